@@ -120,6 +120,8 @@ public abstract class AbstractAgentMojo extends AbstractJacocoMojo {
 	 * <li>tcpclient: At startup the agent connects to the TCP port specified by
 	 * the {@link #address} and {@link #port}. Execution data is written to this
 	 * TCP connection.</li>
+	 * <li>mmap: Execution data is continuously written to a memory mapped
+	 * file, so it is preserved even if the VM is killed.</li>
 	 * <li>none: Do not produce any output.</li>
 	 * </ul>
 	 */
@@ -148,6 +150,80 @@ public abstract class AbstractAgentMojo extends AbstractJacocoMojo {
 	 */
 	@Parameter(property = "jacoco.classDumpDir")
 	File classDumpDir;
+	/**
+	 * If a directory is specified for this parameter the JaCoCo agent caches
+	 * instrumented class files in the given location. Classes which have been
+	 * instrumented before are taken from the cache, which speeds up the start
+	 * of forked JVMs. The directory can be shared by JVMs running in parallel.
+	 *
+	 * @since 0.8.14
+	 */
+	@Parameter(property = "jacoco.cacheDir")
+	File cacheDir;
+	/**
+	 * Maximum size of the class file cache in megabytes. If the size is
+	 * exceeded the least recently used class files are removed.
+	 *
+	 * @since 0.8.14
+	 */
+	@Parameter(property = "jacoco.cacheSize")
+	Integer cacheSize;
+	/**
+	 * If greater than 0 the agent checks in the given interval in seconds for
+	 * classes where all probes have been executed. Such classes are
+	 * retransformed to a version without probes to reduce the overhead in
+	 * long running JVMs. The probes are restored before execution data is
+	 * reset.
+	 *
+	 * @since 0.8.14
+	 */
+	@Parameter(property = "jacoco.retransformInterval")
+	Integer retransformInterval;
+
+	/**
+	 * Granularity of the probes inserted into classes, one of
+	 * <code>method</code>, <code>line</code> or <code>branch</code>. Coarser
+	 * granularities can reduce the runtime overhead, but reports then only
+	 * contain the corresponding counters. Default is <code>branch</code>.
+	 *
+	 * @since 0.8.14
+	 */
+	@Parameter(property = "jacoco.granularity")
+	String granularity;
+
+	/**
+	 * If set to true probes which are implied by other probes are omitted to
+	 * reduce the runtime overhead. Their state is reconstructed during
+	 * analysis. Code executed before an exception terminates a method might be
+	 * reported as not covered in more cases. Only applies to the
+	 * <code>branch</code> granularity.
+	 *
+	 * @since 0.8.14
+	 */
+	@Parameter(property = "jacoco.minimizeProbes")
+	Boolean minimizeProbes;
+
+	/**
+	 * If set to true probes only write to the probe array if they have not been
+	 * executed before. This avoids contention between CPU cores when the same
+	 * code is executed by many threads in parallel.
+	 *
+	 * @since 0.8.14
+	 */
+	@Parameter(property = "jacoco.conditionalProbes")
+	Boolean conditionalProbes;
+
+	/**
+	 * If set to true probes count their executions. The execution counts are
+	 * stored in the execution data file and HTML reports show how often every
+	 * line has been executed. Probes are not minimized and classes are not
+	 * retransformed in this mode.
+	 *
+	 * @since 0.8.14
+	 */
+	@Parameter(property = "jacoco.executionCounts")
+	Boolean executionCounts;
+
 	/**
 	 * If set to true the agent exposes functionality via JMX.
 	 */
@@ -225,6 +301,27 @@ public abstract class AbstractAgentMojo extends AbstractJacocoMojo {
 		if (classDumpDir != null) {
 			agentOptions.setClassDumpDir(classDumpDir.getAbsolutePath());
 		}
+		if (cacheDir != null) {
+			agentOptions.setCacheDir(cacheDir.getAbsolutePath());
+		}
+		if (cacheSize != null) {
+			agentOptions.setCacheSize(cacheSize.intValue());
+		}
+		if (retransformInterval != null) {
+			agentOptions.setRetransformInterval(retransformInterval.intValue());
+		}
+		if (granularity != null) {
+			agentOptions.setGranularity(granularity);
+		}
+		if (minimizeProbes != null) {
+			agentOptions.setMinimizeProbes(minimizeProbes.booleanValue());
+		}
+		if (conditionalProbes != null) {
+			agentOptions.setConditionalProbes(conditionalProbes.booleanValue());
+		}
+		if (executionCounts != null) {
+			agentOptions.setExecutionCounts(executionCounts.booleanValue());
+		}
 		if (jmx != null) {
 			agentOptions.setJmx(jmx.booleanValue());
 		}
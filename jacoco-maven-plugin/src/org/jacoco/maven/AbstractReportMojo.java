@@ -66,6 +66,37 @@ public abstract class AbstractReportMojo extends AbstractMojo
 	@Parameter
 	String footer;
 
+	/**
+	 * If set to <code>true</code> an existing HTML report is updated
+	 * incrementally: Only pages whose content changed are written and pages
+	 * which do not exist any more are deleted. For this a manifest file is
+	 * stored with the HTML report.
+	 *
+	 * @since 0.8.14
+	 */
+	@Parameter(property = "jacoco.incremental", defaultValue = "false")
+	boolean incremental;
+
+	/**
+	 * Number of threads used to render the pages of the HTML report. The
+	 * report content does not depend on the number of threads.
+	 *
+	 * @since 0.8.14
+	 */
+	@Parameter(property = "jacoco.threads", defaultValue = "1")
+	int threads;
+
+	/**
+	 * Directory to cache the structural analysis of class files. With a cache
+	 * subsequent reports for unchanged class files are created without
+	 * analyzing the class files again. The directory may be shared between
+	 * projects and builds, it can be deleted at any time.
+	 *
+	 * @since 0.8.14
+	 */
+	@Parameter(property = "jacoco.analysisCache")
+	File analysisCache;
+
 	/**
 	 * Encoding of the source files.
 	 */
@@ -188,6 +219,7 @@ public abstract class AbstractReportMojo extends AbstractMojo
 			throws MavenReportException {
 		try {
 			final ReportSupport support = new ReportSupport(getLog());
+			support.setAnalysisCache(analysisCache);
 			loadExecutionData(support);
 			addFormatters(support, locale);
 			final IReportVisitor visitor = support.initRootVisitor();
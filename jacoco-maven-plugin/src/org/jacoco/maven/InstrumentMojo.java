@@ -18,7 +18,13 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -63,6 +69,15 @@ public class InstrumentMojo extends AbstractJacocoMojo {
 	@Parameter
 	private List<String> excludes;
 
+	/**
+	 * Number of threads used to instrument class files in parallel. The
+	 * instrumented class files do not depend on this setting.
+	 *
+	 * @since 0.8.14
+	 */
+	@Parameter(property = "jacoco.threads", defaultValue = "1")
+	private int threads;
+
 	@Override
 	public void executeMojo()
 			throws MojoExecutionException, MojoFailureException {
@@ -90,25 +105,71 @@ public class InstrumentMojo extends AbstractJacocoMojo {
 
 		final Instrumenter instrumenter = new Instrumenter(
 				new OfflineInstrumentationAccessGenerator());
+		if (threads > 1) {
+			instrumentParallel(instrumenter, classesDir, originalClassesDir,
+					fileNames);
+			return;
+		}
 		for (final String fileName : fileNames) {
 			if (fileName.endsWith(".class")) {
-				final File source = new File(classesDir, fileName);
-				final File backup = new File(originalClassesDir, fileName);
-				InputStream input = null;
-				OutputStream output = null;
-				try {
-					FileUtils.copyFile(source, backup);
-					input = new FileInputStream(backup);
-					output = new FileOutputStream(source);
-					instrumenter.instrument(input, output, source.getPath());
-				} catch (final IOException e2) {
-					throw new MojoExecutionException(
-							"Unable to instrument file.", e2);
-				} finally {
-					IOUtil.close(input);
-					IOUtil.close(output);
+				instrument(instrumenter, new File(classesDir, fileName),
+						new File(originalClassesDir, fileName));
+			}
+		}
+	}
+
+	private void instrumentParallel(final Instrumenter instrumenter,
+			final File classesDir, final File originalClassesDir,
+			final List<String> fileNames) throws MojoExecutionException {
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			final List<Future<Void>> results = new ArrayList<Future<Void>>();
+			for (final String fileName : fileNames) {
+				if (fileName.endsWith(".class")) {
+					results.add(executor.submit(new Callable<Void>() {
+						public Void call() throws MojoExecutionException {
+							instrument(instrumenter,
+									new File(classesDir, fileName),
+									new File(originalClassesDir, fileName));
+							return null;
+						}
+					}));
 				}
 			}
+			for (final Future<Void> result : results) {
+				result.get();
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MojoExecutionException("Instrumentation interrupted.",
+					e);
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof MojoExecutionException) {
+				throw (MojoExecutionException) cause;
+			}
+			throw new MojoExecutionException("Unable to instrument file.",
+					cause);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static void instrument(final Instrumenter instrumenter,
+			final File source, final File backup)
+			throws MojoExecutionException {
+		InputStream input = null;
+		OutputStream output = null;
+		try {
+			FileUtils.copyFile(source, backup);
+			input = new FileInputStream(backup);
+			output = new FileOutputStream(source);
+			instrumenter.instrument(input, output, source.getPath());
+		} catch (final IOException e2) {
+			throw new MojoExecutionException("Unable to instrument file.", e2);
+		} finally {
+			IOUtil.close(input);
+			IOUtil.close(output);
 		}
 	}
 
@@ -23,7 +23,7 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.shared.model.fileset.FileSet;
 import org.apache.maven.shared.model.fileset.util.FileSetManager;
-import org.jacoco.core.tools.ExecFileLoader;
+import org.jacoco.core.tools.ExecFileMerger;
 
 /**
  * Mojo for merging a set of execution data files (*.exec) into a single file
@@ -78,13 +78,13 @@ public class MergeMojo extends AbstractJacocoMojo {
 	}
 
 	private void executeMerge() throws MojoExecutionException {
-		final ExecFileLoader loader = new ExecFileLoader();
+		final ExecFileMerger merger = new ExecFileMerger();
 
-		load(loader);
-		save(loader);
+		add(merger);
+		merge(merger);
 	}
 
-	private void load(final ExecFileLoader loader)
+	private void add(final ExecFileMerger merger)
 			throws MojoExecutionException {
 		final FileSetManager fileSetManager = new FileSetManager();
 		for (final FileSet fileSet : fileSets) {
@@ -98,7 +98,7 @@ public class MergeMojo extends AbstractJacocoMojo {
 				try {
 					getLog().info("Loading execution data file "
 							+ inputFile.getAbsolutePath());
-					loader.load(inputFile);
+					merger.add(inputFile);
 				} catch (final IOException e) {
 					throw new MojoExecutionException(
 							"Unable to read " + inputFile.getAbsolutePath(), e);
@@ -107,16 +107,16 @@ public class MergeMojo extends AbstractJacocoMojo {
 		}
 	}
 
-	private void save(final ExecFileLoader loader)
+	private void merge(final ExecFileMerger merger)
 			throws MojoExecutionException {
-		if (loader.getExecutionDataStore().getContents().isEmpty()) {
-			getLog().info(MSG_SKIPPING);
-			return;
-		}
-		getLog().info("Writing merged execution data to "
-				+ destFile.getAbsolutePath());
 		try {
-			loader.save(destFile, false);
+			if (!merger.hasExecutionData()) {
+				getLog().info(MSG_SKIPPING);
+				return;
+			}
+			getLog().info("Writing merged execution data to "
+					+ destFile.getAbsolutePath());
+			merger.merge(destFile, false);
 		} catch (final IOException e) {
 			throw new MojoExecutionException(
 					"Unable to write merged file " + destFile.getAbsolutePath(),
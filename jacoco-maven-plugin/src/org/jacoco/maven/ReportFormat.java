@@ -38,6 +38,8 @@ public enum ReportFormat {
 			final HTMLFormatter htmlFormatter = new HTMLFormatter();
 			htmlFormatter.setOutputEncoding(mojo.outputEncoding);
 			htmlFormatter.setLocale(locale);
+			htmlFormatter.setIncremental(mojo.incremental);
+			htmlFormatter.setThreads(mojo.threads);
 			if (mojo.footer != null) {
 				htmlFormatter.setFooterText(mojo.footer);
 			}
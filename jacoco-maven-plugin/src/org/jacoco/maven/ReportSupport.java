@@ -26,6 +26,7 @@ import java.util.List;
 
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
+import org.jacoco.core.analysis.AnalysisCache;
 import org.jacoco.core.analysis.Analyzer;
 import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.analysis.IBundleCoverage;
@@ -57,6 +58,7 @@ final class ReportSupport {
 	private final Log log;
 	private final ExecFileLoader loader;
 	private final List<IReportVisitor> formatters;
+	private AnalysisCache analysisCache;
 
 	/**
 	 * Construct a new instance with the given log output.
@@ -70,6 +72,17 @@ final class ReportSupport {
 		this.formatters = new ArrayList<IReportVisitor>();
 	}
 
+	/**
+	 * Sets the directory to cache the analysis of class files in.
+	 *
+	 * @param directory
+	 *            cache directory or <code>null</code> to disable caching
+	 */
+	public void setAnalysisCache(final File directory) {
+		analysisCache = directory == null ? null
+				: new AnalysisCache(directory);
+	}
+
 	/**
 	 * Loads the given execution data file.
 	 *
@@ -161,6 +174,7 @@ final class ReportSupport {
 		if (classesDir.isDirectory()) {
 			final Analyzer analyzer = new Analyzer(
 					loader.getExecutionDataStore(), builder);
+			analyzer.setCache(analysisCache);
 			final FileFilter filter = new FileFilter(includes, excludes);
 			for (final File file : filter.getFiles(classesDir)) {
 				analyzer.analyzeAll(file);
@@ -51,12 +51,27 @@ public class AgentModuleTest {
 				t.getOtherClassInstance().getClass().getClassLoader());
 	}
 
+	@Test
+	public void should_load_package_private_classes_of_same_package()
+			throws Exception {
+		AgentModule am = new AgentModule();
+		Class<? extends Target> targetclass = am
+				.loadClassInModule(TargetImpl.class);
+		Target t = targetclass.getDeclaredConstructor().newInstance();
+
+		assertSame(t.getClass().getClassLoader(),
+				t.getPackagePrivateClassInstance().getClass()
+						.getClassLoader());
+	}
+
 	public interface Target {
 
 		Object getInnerClassInstance();
 
 		Object getOtherClassInstance();
 
+		Object getPackagePrivateClassInstance();
+
 	}
 
 	public static class TargetImpl implements Target {
@@ -71,9 +86,16 @@ public class AgentModuleTest {
 		public Object getOtherClassInstance() {
 			return new Other();
 		}
+
+		public Object getPackagePrivateClassInstance() {
+			return new PackagePrivate();
+		}
 	}
 
 	public static class Other {
 	}
 
+	static class PackagePrivate {
+	}
+
 }
@@ -21,6 +21,9 @@ import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import javax.management.InstanceNotFoundException;
 import javax.management.MBeanServer;
@@ -28,10 +31,13 @@ import javax.management.ObjectName;
 
 import org.jacoco.agent.rt.internal.output.FileOutput;
 import org.jacoco.agent.rt.internal.output.IAgentOutput;
+import org.jacoco.agent.rt.internal.output.MappedFileOutput;
 import org.jacoco.agent.rt.internal.output.NoneOutput;
 import org.jacoco.agent.rt.internal.output.TcpClientOutput;
 import org.jacoco.agent.rt.internal.output.TcpServerOutput;
 import org.jacoco.core.JaCoCo;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.SessionInfoStore;
 import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.runtime.AgentOptions.OutputMode;
 import org.jacoco.core.runtime.RuntimeData;
@@ -74,6 +80,10 @@ public class AgentTest implements IExceptionLogger, IAgentOutput {
 		assertEquals(TcpClientOutput.class,
 				agent.createAgentOutput().getClass());
 
+		options.setOutput(OutputMode.mmap);
+		assertEquals(MappedFileOutput.class,
+				agent.createAgentOutput().getClass());
+
 		options.setOutput(OutputMode.none);
 		assertEquals(NoneOutput.class, agent.createAgentOutput().getClass());
 	}
@@ -276,6 +286,77 @@ public class AgentTest implements IExceptionLogger, IAgentOutput {
 		assertFalse(probes[0]);
 	}
 
+	@Test
+	public void reset_should_restore_probes_before_reset() {
+		Agent agent = createAgent();
+		final boolean[] probes = agent.getData()
+				.getExecutionData(Long.valueOf(0x12345678), "Foo", 1)
+				.getProbes();
+		probes[0] = true;
+		final List<Boolean> restored = new ArrayList<Boolean>();
+		agent.setProbeRemover(new ProbeRemover(null, null, this) {
+			@Override
+			void restoreProbes() {
+				restored.add(Boolean.valueOf(probes[0]));
+			}
+		});
+
+		agent.reset();
+
+		assertEquals(Arrays.asList(Boolean.TRUE), restored);
+		assertFalse(probes[0]);
+	}
+
+	@Test
+	public void reset_should_restore_probes_without_blocking_execution_data()
+			throws Exception {
+		final Agent agent = createAgent();
+		final List<Boolean> collected = new ArrayList<Boolean>();
+		agent.setProbeRemover(new ProbeRemover(null, null, this) {
+			@Override
+			void restoreProbes() {
+				// Retransformed classes might access the execution data:
+				final Thread collect = new Thread() {
+					@Override
+					public void run() {
+						agent.getData().getExecutionData(Long.valueOf(1),
+								"Foo", 1);
+						agent.getData().collect(new ExecutionDataStore(),
+								new SessionInfoStore(), false);
+						collected.add(Boolean.TRUE);
+					}
+				};
+				collect.start();
+				try {
+					collect.join(5000);
+				} catch (final InterruptedException e) {
+					throw new AssertionError(e);
+				}
+			}
+		});
+
+		agent.reset();
+
+		assertEquals(Arrays.asList(Boolean.TRUE), collected);
+	}
+
+	@Test
+	public void shutdown_should_stop_probe_remover() throws Exception {
+		Agent agent = createAgent();
+		agent.startup();
+		final boolean[] stopped = new boolean[1];
+		agent.setProbeRemover(new ProbeRemover(null, null, this) {
+			@Override
+			void shutdown() {
+				stopped[0] = true;
+			}
+		});
+
+		agent.shutdown();
+
+		assertTrue(stopped[0]);
+	}
+
 	@Test
 	public void getExecutionData_should_return_probes_and_session_id()
 			throws Exception {
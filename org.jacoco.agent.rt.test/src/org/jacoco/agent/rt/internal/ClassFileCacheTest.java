@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ClassFileCache}.
+ */
+public class ClassFileCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private String location;
+
+	@Before
+	public void setup() {
+		location = new File(folder.getRoot(), "cache").toString();
+	}
+
+	@Test
+	public void get_should_return_null_for_unknown_class() {
+		final ClassFileCache cache = new ClassFileCache(location, 1000, "s");
+
+		assertNull(cache.get(42));
+	}
+
+	@Test
+	public void get_should_return_stored_class() {
+		final ClassFileCache cache = new ClassFileCache(location, 1000, "s");
+		final byte[] bytes = createClass(10, 1);
+
+		cache.put(42, bytes);
+
+		assertArrayEquals(bytes, cache.get(42));
+		assertNull(cache.get(43));
+	}
+
+	@Test
+	public void get_should_return_class_stored_by_other_instance() {
+		final byte[] bytes = createClass(10, 1);
+		new ClassFileCache(location, 1000, "s").put(42, bytes);
+
+		final ClassFileCache cache = new ClassFileCache(location, 1000, "s");
+
+		assertArrayEquals(bytes, cache.get(42));
+	}
+
+	@Test
+	public void get_should_not_return_class_of_other_strategy() {
+		new ClassFileCache(location, 1000, "s1").put(42, createClass(10, 1));
+
+		final ClassFileCache cache = new ClassFileCache(location, 1000, "s2");
+
+		assertNull(cache.get(42));
+	}
+
+	@Test
+	public void put_should_replace_existing_entry() {
+		final ClassFileCache cache = new ClassFileCache(location, 1000, "s");
+		cache.put(42, createClass(10, 1));
+		final byte[] bytes = createClass(10, 2);
+
+		cache.put(42, bytes);
+
+		assertArrayEquals(bytes, cache.get(42));
+		assertEquals(1, getEntries().length);
+	}
+
+	@Test
+	public void get_should_ignore_invalid_entries() throws IOException {
+		final ClassFileCache cache = new ClassFileCache(location, 1000, "s");
+		cache.put(42, createClass(10, 1));
+		final File entry = getEntries()[0];
+		final FileOutputStream out = new FileOutputStream(entry);
+		out.write(new byte[] { 1, 2, 3, 4, 5 });
+		out.close();
+
+		assertNull(cache.get(42));
+	}
+
+	@Test
+	public void put_should_evict_least_recently_used_entries() {
+		final ClassFileCache cache = new ClassFileCache(location, 100, "s");
+		cache.put(1, createClass(30, 1));
+		cache.put(2, createClass(30, 2));
+		cache.put(3, createClass(30, 3));
+		setLastModified(1, 3000);
+		setLastModified(2, 1000);
+		setLastModified(3, 2000);
+
+		cache.put(4, createClass(30, 4));
+
+		assertTrue(getEntry(1).isFile());
+		assertFalse(getEntry(2).isFile());
+		assertFalse(getEntry(3).isFile());
+		assertTrue(getEntry(4).isFile());
+	}
+
+	@Test
+	public void get_should_update_last_usage() {
+		final ClassFileCache cache = new ClassFileCache(location, 100, "s");
+		cache.put(1, createClass(30, 1));
+		cache.put(2, createClass(30, 2));
+		setLastModified(1, 1000);
+		setLastModified(2, 2000);
+
+		cache.get(1);
+		cache.put(3, createClass(41, 3));
+
+		assertTrue(getEntry(1).isFile());
+		assertFalse(getEntry(2).isFile());
+		assertTrue(getEntry(3).isFile());
+	}
+
+	@Test
+	public void get_should_not_update_recent_last_usage() {
+		final ClassFileCache cache = new ClassFileCache(location, 100, "s");
+		cache.put(1, createClass(30, 1));
+		final long recent = (System.currentTimeMillis()
+				- ClassFileCache.TOUCH_INTERVAL / 2) / 1000 * 1000;
+		setLastModified(1, recent);
+
+		cache.get(1);
+
+		assertEquals(recent, getEntry(1).lastModified());
+	}
+
+	@Test
+	public void constructor_should_not_evict_entries() {
+		new ClassFileCache(location, 1000, "s").put(1, createClass(40, 1));
+
+		new ClassFileCache(location, 10, "s");
+
+		assertTrue(getEntry(1).isFile());
+	}
+
+	@Test
+	public void put_should_evict_entries_of_other_strategies() {
+		new ClassFileCache(location, 1000, "s1").put(1, createClass(40, 1));
+		final File old = getEntries()[0];
+		old.setLastModified(1000);
+
+		new ClassFileCache(location, 1000, "s2").put(2, createClass(40, 2));
+		new ClassFileCache(location, 90, "s2").put(3, createClass(20, 3));
+
+		assertFalse(old.exists());
+		assertEquals(2, getEntries().length);
+	}
+
+	@Test
+	public void put_should_track_size_of_entries_written_by_all_instances() {
+		final ClassFileCache cache1 = new ClassFileCache(location, 100, "s1");
+		final ClassFileCache cache2 = new ClassFileCache(location, 100, "s2");
+		cache1.put(1, createClass(30, 1));
+		cache2.put(2, createClass(30, 2));
+		cache1.put(3, createClass(30, 3));
+		setLastModified(1, 1000);
+		setLastModified(2, 2000);
+		assertEquals(3, getEntries().length);
+
+		cache2.put(4, createClass(30, 4));
+
+		assertFalse(getEntry(1).isFile());
+		assertFalse(getEntry(2).isFile());
+		assertTrue(getEntry(3).isFile());
+		assertTrue(getEntry(4).isFile());
+	}
+
+	@Test
+	public void put_should_evict_when_size_file_is_invalid()
+			throws IOException {
+		final ClassFileCache cache = new ClassFileCache(location, 100, "s");
+		cache.put(1, createClass(60, 1));
+		setLastModified(1, 1000);
+		final FileOutputStream out = new FileOutputStream(
+				new File(location, ClassFileCache.SIZE_FILE));
+		out.write(new byte[] { 1, 2 });
+		out.close();
+
+		cache.put(2, createClass(60, 2));
+
+		assertFalse(getEntry(1).isFile());
+		assertTrue(getEntry(2).isFile());
+	}
+
+	@Test
+	public void put_should_ignore_io_problems() throws IOException {
+		final File file = folder.newFile();
+		final ClassFileCache cache = new ClassFileCache(file.toString(), 1000,
+				"s");
+
+		cache.put(42, createClass(10, 1));
+
+		assertNull(cache.get(42));
+	}
+
+	private static byte[] createClass(final int size, final int marker) {
+		final byte[] bytes = new byte[size];
+		bytes[0] = (byte) 0xCA;
+		bytes[1] = (byte) 0xFE;
+		bytes[2] = (byte) 0xBA;
+		bytes[3] = (byte) 0xBE;
+		bytes[size - 1] = (byte) marker;
+		return bytes;
+	}
+
+	private File[] getEntries() {
+		final File[] dirs = new File(location).listFiles();
+		final List<File> entries = new ArrayList<File>();
+		for (final File dir : dirs) {
+			if (dir.isDirectory()) {
+				for (final File f : dir.listFiles()) {
+					entries.add(f);
+				}
+			}
+		}
+		return entries.toArray(new File[entries.size()]);
+	}
+
+	private File getEntry(final long classid) {
+		final String name = String.format("%016x.class",
+				Long.valueOf(classid));
+		for (final File dir : new File(location).listFiles()) {
+			final File entry = new File(dir, name);
+			if (entry.exists()) {
+				return entry;
+			}
+		}
+		return new File(location, name);
+	}
+
+	private void setLastModified(final long classid, final long time) {
+		assertTrue(getEntry(classid).setLastModified(time));
+	}
+
+}
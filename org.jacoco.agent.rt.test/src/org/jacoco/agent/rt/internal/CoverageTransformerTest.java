@@ -12,12 +12,15 @@
  *******************************************************************************/
 package org.jacoco.agent.rt.internal;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.instrument.IllegalClassFormatException;
@@ -26,12 +29,18 @@ import java.security.ProtectionDomain;
 import java.security.cert.Certificate;
 
 import org.jacoco.core.JaCoCo;
+import org.jacoco.core.instr.Granularity;
+import org.jacoco.core.instr.Instrumenter;
 import org.jacoco.core.internal.InputStreams;
+import org.jacoco.core.internal.data.CRC64;
 import org.jacoco.core.runtime.AbstractRuntime;
 import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.IExecutionCountersAccessorGenerator;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.objectweb.asm.MethodVisitor;
 
 /**
@@ -39,6 +48,9 @@ import org.objectweb.asm.MethodVisitor;
  */
 public class CoverageTransformerTest {
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	private ExceptionRecorder recorder;
 
 	private AgentOptions options;
@@ -237,10 +249,233 @@ public class CoverageTransformerTest {
 				protectionDomain, getClassData(target)));
 	}
 
+	@Test
+	public void testRetransformWithProbeRemover() throws Exception {
+		final CoverageTransformer t = createTransformer();
+		t.setProbeRemover(createProbeRemover(0));
+		final byte[] original = getClassData(CoverageTransformerTest.class);
+
+		final byte[] instrumented = t.transform(classLoader,
+				"org/jacoco/Sample", CoverageTransformerTest.class,
+				protectionDomain, original);
+
+		assertArrayEquals(
+				new Instrumenter(runtime).instrument(original, "Sample"),
+				instrumented);
+	}
+
+	@Test
+	public void testRetransformWithRemovedProbes() throws Exception {
+		final byte[] original = getClassData(CoverageTransformerTest.class);
+		final CoverageTransformer t = createTransformer();
+		t.setProbeRemover(createProbeRemover(CRC64.classId(original)));
+
+		final byte[] withoutProbes = t.transform(classLoader,
+				"org/jacoco/Sample", CoverageTransformerTest.class,
+				protectionDomain, original);
+
+		assertArrayEquals(new Instrumenter(runtime)
+				.instrumentWithoutProbes(original, "Sample"), withoutProbes);
+	}
+
+	@Test
+	public void testRetransformDoesNotDumpClass() throws Exception {
+		options.setClassDumpDir(folder.getRoot().toString());
+		final CoverageTransformer t = createTransformer();
+		t.setProbeRemover(createProbeRemover(0));
+
+		t.transform(classLoader, "org/jacoco/Sample",
+				CoverageTransformerTest.class, protectionDomain,
+				getClassData(CoverageTransformerTest.class));
+
+		assertEquals(0, folder.getRoot().listFiles().length);
+	}
+
+	private ProbeRemover createProbeRemover(final long removedId) {
+		return new ProbeRemover(null, null, recorder) {
+			@Override
+			boolean isRemoved(final long classid) {
+				return classid == removedId;
+			}
+		};
+	}
+
+	@Test
+	public void testTransformWithCache() throws Exception {
+		options.setCacheDir(folder.getRoot().toString());
+		final byte[] original = getClassData(CoverageTransformerTest.class);
+		final byte[] instrumented = createTransformer().transform(classLoader,
+				"org/jacoco/Sample", null, protectionDomain, original);
+
+		final byte[] cached = createTransformer().transform(classLoader,
+				"org/jacoco/Sample", null, protectionDomain, original);
+
+		assertArrayEquals(instrumented, cached);
+		assertEquals(1, getCacheDirectoryCount());
+	}
+
+	@Test
+	public void testTransformWithCacheHitDoesNotInstrument()
+			throws Exception {
+		options.setCacheDir(folder.getRoot().toString());
+		final byte[] original = getClassData(CoverageTransformerTest.class);
+		createTransformer().transform(classLoader, "org/jacoco/Sample", null,
+				protectionDomain, original);
+		File entry = null;
+		for (final File dir : folder.getRoot().listFiles()) {
+			if (dir.isDirectory()) {
+				entry = dir.listFiles()[0];
+			}
+		}
+		assertEquals(String.format("%016x.class",
+				Long.valueOf(CRC64.classId(original))), entry.getName());
+		final byte[] marker = getClassData(JaCoCo.class);
+		final FileOutputStream out = new FileOutputStream(entry);
+		out.write(marker);
+		out.close();
+
+		assertArrayEquals(marker, createTransformer().transform(classLoader,
+				"org/jacoco/Sample", null, protectionDomain, original));
+	}
+
+	@Test
+	public void testTransformWithGranularity() throws Exception {
+		options.setGranularity(Granularity.METHOD);
+		final byte[] original = getClassData(CoverageTransformerTest.class);
+
+		final byte[] instrumented = createTransformer().transform(classLoader,
+				"org/jacoco/Sample", null, protectionDomain, original);
+
+		final Instrumenter instrumenter = new Instrumenter(runtime);
+		instrumenter.setGranularity(Granularity.METHOD);
+		assertArrayEquals(instrumenter.instrument(original, "Sample"),
+				instrumented);
+	}
+
+	@Test
+	public void testRetransformWithGranularityAndRemovedProbes()
+			throws Exception {
+		options.setGranularity(Granularity.LINE);
+		final byte[] original = getClassData(CoverageTransformerTest.class);
+		final CoverageTransformer t = createTransformer();
+		t.setProbeRemover(createProbeRemover(
+				CRC64.classId(original, Granularity.LINE)));
+
+		final byte[] withoutProbes = t.transform(classLoader,
+				"org/jacoco/Sample", CoverageTransformerTest.class,
+				protectionDomain, original);
+
+		final Instrumenter instrumenter = new Instrumenter(runtime);
+		instrumenter.setGranularity(Granularity.LINE);
+		assertArrayEquals(
+				instrumenter.instrumentWithoutProbes(original, "Sample"),
+				withoutProbes);
+	}
+
+	@Test
+	public void testTransformWithCacheIsSpecificForGranularity()
+			throws Exception {
+		options.setCacheDir(folder.getRoot().toString());
+		final byte[] original = getClassData(CoverageTransformerTest.class);
+		createTransformer().transform(classLoader, "org/jacoco/Sample", null,
+				protectionDomain, original);
+		options.setGranularity(Granularity.METHOD);
+
+		createTransformer().transform(classLoader, "org/jacoco/Sample", null,
+				protectionDomain, original);
+
+		assertEquals(2, getCacheDirectoryCount());
+	}
+
+	@Test
+	public void testTransformWithMinimizeProbes() throws Exception {
+		options.setMinimizeProbes(true);
+		final byte[] original = getClassData(CoverageTransformerTest.class);
+
+		final byte[] instrumented = createTransformer().transform(classLoader,
+				"org/jacoco/Sample", null, protectionDomain, original);
+
+		final Instrumenter instrumenter = new Instrumenter(runtime);
+		instrumenter.setMinimizeProbes(true);
+		assertArrayEquals(instrumenter.instrument(original, "Sample"),
+				instrumented);
+	}
+
+	@Test
+	public void testTransformWithCacheIsSpecificForMinimizeProbes()
+			throws Exception {
+		options.setCacheDir(folder.getRoot().toString());
+		final byte[] original = getClassData(CoverageTransformerTest.class);
+		createTransformer().transform(classLoader, "org/jacoco/Sample", null,
+				protectionDomain, original);
+		options.setMinimizeProbes(true);
+
+		createTransformer().transform(classLoader, "org/jacoco/Sample", null,
+				protectionDomain, original);
+
+		assertEquals(2, getCacheDirectoryCount());
+	}
+
+	@Test
+	public void testTransformWithConditionalProbes() throws Exception {
+		options.setConditionalProbes(true);
+		final byte[] original = getClassData(CoverageTransformerTest.class);
+
+		final byte[] instrumented = createTransformer().transform(classLoader,
+				"org/jacoco/Sample", null, protectionDomain, original);
+
+		final Instrumenter instrumenter = new Instrumenter(runtime);
+		instrumenter.setConditionalProbes(true);
+		assertArrayEquals(instrumenter.instrument(original, "Sample"),
+				instrumented);
+	}
+
+	@Test
+	public void testTransformWithCacheIsSpecificForConditionalProbes()
+			throws Exception {
+		options.setCacheDir(folder.getRoot().toString());
+		final byte[] original = getClassData(CoverageTransformerTest.class);
+		createTransformer().transform(classLoader, "org/jacoco/Sample", null,
+				protectionDomain, original);
+		options.setConditionalProbes(true);
+
+		createTransformer().transform(classLoader, "org/jacoco/Sample", null,
+				protectionDomain, original);
+
+		assertEquals(2, getCacheDirectoryCount());
+	}
+
+	@Test
+	public void testTransformWithExecutionCounts() throws Exception {
+		options.setExecutionCounts(true);
+		final byte[] original = getClassData(CoverageTransformerTest.class);
+
+		final byte[] instrumented = createTransformer().transform(classLoader,
+				"org/jacoco/Sample", null, protectionDomain, original);
+
+		final Instrumenter instrumenter = new Instrumenter(runtime);
+		instrumenter.setExecutionCounts(true);
+		assertArrayEquals(instrumenter.instrument(original, "Sample"),
+				instrumented);
+	}
+
 	private CoverageTransformer createTransformer() {
 		return new CoverageTransformer(runtime, options, recorder);
 	}
 
+	/**
+	 * @return number of strategy specific directories in the cache
+	 */
+	private int getCacheDirectoryCount() {
+		int count = 0;
+		for (final File file : folder.getRoot().listFiles()) {
+			if (file.isDirectory()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
 	private static byte[] getClassData(Class<?> clazz) throws IOException {
 		final String resource = "/" + clazz.getName().replace('.', '/')
 				+ ".class";
@@ -250,7 +485,8 @@ public class CoverageTransformerTest {
 		return bytes;
 	}
 
-	private static class StubRuntime extends AbstractRuntime {
+	private static class StubRuntime extends AbstractRuntime
+			implements IExecutionCountersAccessorGenerator {
 
 		public StubRuntime() {
 		}
@@ -260,6 +496,11 @@ public class CoverageTransformerTest {
 			return 0;
 		}
 
+		public int generateCountersAccessor(long classid, String classname,
+				int probecount, MethodVisitor mv) {
+			return 0;
+		}
+
 		public void shutdown() {
 		}
 
@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.jacoco.core.runtime.RuntimeData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ProbeRemover}.
+ */
+public class ProbeRemoverTest implements InvocationHandler {
+
+	private static final String TARGET1 = "org/jacoco/agent/rt/internal/ProbeRemoverTest$Target1";
+
+	private static final String TARGET2 = "org/jacoco/agent/rt/internal/ProbeRemoverTest$Target2";
+
+	private ExceptionRecorder recorder;
+
+	private RuntimeData data;
+
+	private ProbeRemover remover;
+
+	private boolean supported;
+
+	private boolean modifiable;
+
+	private Exception retransformException;
+
+	private List<Class<?>> retransformed;
+
+	private List<Object> addedTransformer;
+
+	@Before
+	public void setup() {
+		recorder = new ExceptionRecorder();
+		data = new RuntimeData();
+		supported = true;
+		modifiable = true;
+		retransformed = Collections
+				.synchronizedList(new ArrayList<Class<?>>());
+		addedTransformer = new ArrayList<Object>();
+		remover = new ProbeRemover(createInstrumentation(), data, recorder);
+	}
+
+	@After
+	public void teardown() {
+		remover.shutdown();
+		recorder.assertNoException();
+	}
+
+	@Test
+	public void isSupported_should_return_capability_of_jvm() {
+		assertTrue(ProbeRemover.isSupported(createInstrumentation()));
+		supported = false;
+		assertFalse(ProbeRemover.isSupported(createInstrumentation()));
+	}
+
+	@Test
+	public void addTransformer_should_register_retransformation_capable_transformer()
+			throws Exception {
+		final ClassFileTransformer transformer = new ClassFileTransformer() {
+			public byte[] transform(ClassLoader loader, String className,
+					Class<?> classBeingRedefined,
+					ProtectionDomain protectionDomain,
+					byte[] classfileBuffer) {
+				return null;
+			}
+		};
+
+		remover.addTransformer(transformer);
+
+		assertEquals(Arrays.asList(transformer, Boolean.TRUE),
+				addedTransformer);
+	}
+
+	@Test
+	public void removeProbes_should_retransform_fully_covered_classes() {
+		setProbes(1, TARGET1, true, true);
+		setProbes(2, TARGET2, true, false);
+
+		remover.removeProbes();
+
+		assertTrue(remover.isRemoved(1));
+		assertFalse(remover.isRemoved(2));
+		assertEquals(Arrays.<Class<?>> asList(Target1.class), retransformed);
+	}
+
+	@Test
+	public void removeProbes_should_retransform_classes_only_once() {
+		setProbes(1, TARGET1, true);
+		remover.removeProbes();
+		retransformed.clear();
+
+		remover.removeProbes();
+
+		assertTrue(remover.isRemoved(1));
+		assertTrue(retransformed.isEmpty());
+	}
+
+	@Test
+	public void removeProbes_should_not_retransform_unmodifiable_classes() {
+		modifiable = false;
+		setProbes(1, TARGET1, true);
+
+		remover.removeProbes();
+
+		assertTrue(retransformed.isEmpty());
+	}
+
+	@Test
+	public void removeProbes_should_log_retransformation_problems() {
+		retransformException = new UnmodifiableClassException("Expected");
+		setProbes(1, TARGET1, true);
+
+		remover.removeProbes();
+
+		recorder.assertException(UnmodifiableClassException.class,
+				"Expected");
+		recorder.clear();
+	}
+
+	@Test
+	public void restoreProbes_should_retransform_classes_without_probes() {
+		setProbes(1, TARGET1, true);
+		setProbes(2, TARGET2, true);
+		remover.removeProbes();
+		retransformed.clear();
+
+		remover.restoreProbes();
+
+		assertFalse(remover.isRemoved(1));
+		assertFalse(remover.isRemoved(2));
+		assertEquals(2, retransformed.size());
+		assertTrue(retransformed.contains(Target1.class));
+		assertTrue(retransformed.contains(Target2.class));
+	}
+
+	@Test
+	public void beginReset_should_restore_probes_and_defer_removal_until_endReset()
+			throws Exception {
+		setProbes(1, TARGET1, true);
+		remover.removeProbes();
+		retransformed.clear();
+
+		remover.beginReset();
+		assertFalse(remover.isRemoved(1));
+		final Thread removal = new Thread() {
+			@Override
+			public void run() {
+				remover.removeProbes();
+			}
+		};
+		removal.start();
+		removal.join(100);
+		assertTrue(removal.isAlive());
+		assertFalse(remover.isRemoved(1));
+		data.reset();
+		remover.endReset();
+		removal.join();
+
+		assertFalse(remover.isRemoved(1));
+		assertEquals(Arrays.<Class<?>> asList(Target1.class), retransformed);
+	}
+
+	@Test
+	public void restoreProbes_should_do_nothing_when_no_probes_are_removed() {
+		remover.restoreProbes();
+
+		assertTrue(retransformed.isEmpty());
+	}
+
+	@Test
+	public void start_should_remove_probes_periodically() throws Exception {
+		remover.start(10);
+		setProbes(1, TARGET1, true);
+
+		for (int i = 0; i < 500 && retransformed.isEmpty(); i++) {
+			Thread.sleep(10);
+		}
+
+		assertTrue(remover.isRemoved(1));
+		assertSame(Target1.class, retransformed.get(0));
+	}
+
+	private void setProbes(final long id, final String name,
+			final boolean... probes) {
+		final boolean[] array = data
+				.getExecutionData(Long.valueOf(id), name, probes.length)
+				.getProbes();
+		System.arraycopy(probes, 0, array, 0, probes.length);
+	}
+
+	private Instrumentation createInstrumentation() {
+		return (Instrumentation) Proxy.newProxyInstance(
+				getClass().getClassLoader(),
+				new Class<?>[] { Instrumentation.class }, this);
+	}
+
+	// === InvocationHandler ===
+
+	public Object invoke(final Object proxy, final Method method,
+			final Object[] args) throws Throwable {
+		final String name = method.getName();
+		if ("isRetransformClassesSupported".equals(name)) {
+			return Boolean.valueOf(supported);
+		}
+		if ("addTransformer".equals(name)) {
+			addedTransformer.addAll(Arrays.asList(args));
+			return null;
+		}
+		if ("getAllLoadedClasses".equals(name)) {
+			return new Class<?>[] { String.class, Target1.class,
+					Target2.class };
+		}
+		if ("isModifiableClass".equals(name)) {
+			return Boolean.valueOf(modifiable);
+		}
+		if ("retransformClasses".equals(name)) {
+			if (retransformException != null) {
+				throw retransformException;
+			}
+			retransformed.addAll(Arrays.asList((Class<?>[]) args[0]));
+			return null;
+		}
+		throw new AssertionError(name);
+	}
+
+	static class Target1 {
+	}
+
+	static class Target2 {
+	}
+
+}
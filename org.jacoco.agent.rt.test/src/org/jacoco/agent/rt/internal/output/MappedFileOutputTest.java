@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.jacoco.agent.rt.internal.IExceptionLogger;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.RuntimeData;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link MappedFileOutput}.
+ */
+public class MappedFileOutputTest implements IExceptionLogger {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File destFile;
+
+	private AgentOptions options;
+
+	private RuntimeData data;
+
+	@Before
+	public void setup() {
+		destFile = new File(folder.getRoot(), "sub/jacoco.mmap");
+		options = new AgentOptions();
+		options.setDestfile(destFile.getAbsolutePath());
+		data = new RuntimeData();
+		data.setSessionId("mapped");
+	}
+
+	@Test
+	public void startup_should_create_mapped_file() throws Exception {
+		MappedFileOutput controller = new MappedFileOutput(this);
+		controller.startup(options, data);
+
+		assertTrue(destFile.exists());
+		assertEquals("mapped", load().getSessionInfoStore().getInfos().get(0)
+				.getId());
+
+		controller.shutdown();
+	}
+
+	@Test
+	public void writeExecutionData_should_update_mapped_file()
+			throws Exception {
+		MappedFileOutput controller = new MappedFileOutput(this, 60000);
+		controller.startup(options, data);
+		final boolean[] probes = data
+				.getExecutionData(Long.valueOf(123), "Foo", 2).getProbes();
+		probes[1] = true;
+
+		controller.writeExecutionData(false);
+
+		// Content is available without shutdown, like after a crash
+		ExecutionData foo = load().getExecutionDataStore().get(123);
+		assertFalse(foo.getProbes()[0]);
+		assertTrue(foo.getProbes()[1]);
+		controller.shutdown();
+	}
+
+	@Test
+	public void writeExecutionData_should_reset_execution_data_but_keep_file_content()
+			throws Exception {
+		MappedFileOutput controller = new MappedFileOutput(this, 60000);
+		controller.startup(options, data);
+		final boolean[] probes = data
+				.getExecutionData(Long.valueOf(123), "Foo", 2).getProbes();
+		probes[0] = true;
+
+		controller.writeExecutionData(true);
+
+		assertFalse(probes[0]);
+		assertTrue(load().getExecutionDataStore().get(123).getProbes()[0]);
+		probes[1] = true;
+		controller.shutdown();
+		final boolean[] actual = load().getExecutionDataStore().get(123)
+				.getProbes();
+		assertTrue(actual[0]);
+		assertTrue(actual[1]);
+	}
+
+	@Test
+	public void writeExecutionData_should_add_up_execution_counts()
+			throws Exception {
+		MappedFileOutput controller = new MappedFileOutput(this, 60000);
+		controller.startup(options, data);
+		final long[][] counters = data.getCounters(Long.valueOf(123), "Foo",
+				1);
+		counters[0][0] = 3;
+
+		controller.writeExecutionData(false);
+		counters[0][0] = 5;
+		controller.writeExecutionData(true);
+		counters[0][0] = 2;
+		controller.shutdown();
+
+		assertEquals(7,
+				load().getExecutionDataStore().get(123).getCounts()[0]);
+	}
+
+	@Test
+	public void should_periodically_update_mapped_file() throws Exception {
+		MappedFileOutput controller = new MappedFileOutput(this, 10);
+		controller.startup(options, data);
+		data.getExecutionData(Long.valueOf(123), "Foo", 1)
+				.getProbes()[0] = true;
+
+		final long timeout = System.currentTimeMillis() + 10000;
+		while (load().getExecutionDataStore().get(123) == null) {
+			assertTrue("Timeout", System.currentTimeMillis() < timeout);
+			Thread.sleep(10);
+		}
+		controller.shutdown();
+	}
+
+	@Test
+	public void startup_should_append_to_existing_file() throws Exception {
+		MappedFileOutput controller = new MappedFileOutput(this, 60000);
+		controller.startup(options, data);
+		data.getExecutionData(Long.valueOf(123), "Foo", 1)
+				.getProbes()[0] = true;
+		controller.shutdown();
+
+		data = new RuntimeData();
+		controller = new MappedFileOutput(this, 60000);
+		controller.startup(options, data);
+		data.getExecutionData(Long.valueOf(456), "Bar", 1)
+				.getProbes()[0] = true;
+		controller.shutdown();
+
+		assertEquals(2, load().getExecutionDataStore().getContents().size());
+	}
+
+	@Test
+	public void startup_should_overwrite_existing_file_without_append()
+			throws Exception {
+		MappedFileOutput controller = new MappedFileOutput(this, 60000);
+		controller.startup(options, data);
+		data.getExecutionData(Long.valueOf(123), "Foo", 1)
+				.getProbes()[0] = true;
+		controller.shutdown();
+
+		options.setAppend(false);
+		controller = new MappedFileOutput(this, 60000);
+		controller.startup(options, new RuntimeData());
+		controller.shutdown();
+
+		assertEquals(0, load().getExecutionDataStore().getContents().size());
+	}
+
+	@Test
+	public void shutdown_should_release_file() throws Exception {
+		MappedFileOutput controller = new MappedFileOutput(this);
+		controller.startup(options, data);
+		controller.shutdown();
+
+		controller = new MappedFileOutput(this);
+		controller.startup(options, data);
+		controller.shutdown();
+	}
+
+	private ExecFileLoader load() throws IOException {
+		final ExecFileLoader loader = new ExecFileLoader();
+		loader.load(destFile);
+		return loader;
+	}
+
+	public void logExeption(final Exception ex) {
+		throw new AssertionError(ex);
+	}
+
+}
@@ -158,6 +158,55 @@ public class TcpConnectionTest extends ExecutorTestBase {
 		f.get();
 	}
 
+	@Test
+	public void testRemoteDeltaDump() throws Exception {
+		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42)
+				.getProbes()[0] = true;
+
+		final RemoteControlWriter remoteWriter = new RemoteControlWriter(
+				mockConnection.getSocketB().getOutputStream());
+
+		final TcpConnection con = new TcpConnection(mockConnection.getSocketA(),
+				data);
+		con.init();
+
+		final Future<Void> f = executor.submit(new Callable<Void>() {
+			public Void call() throws Exception {
+				con.run();
+				return null;
+			}
+		});
+
+		assertBlocks(f);
+
+		final RemoteControlReader remoteReader = new RemoteControlReader(
+				mockConnection.getSocketB().getInputStream());
+		final ExecutionDataStore execStore = new ExecutionDataStore();
+		remoteReader.setExecutionDataVisitor(execStore);
+		final SessionInfoStore infoStore = new SessionInfoStore();
+		remoteReader.setSessionInfoVisitor(infoStore);
+
+		remoteWriter.visitDeltaDumpCommand("test");
+		assertTrue(remoteReader.read());
+		assertEquals("Foo", execStore.get(0x12345678).getName());
+
+		// unconfirmed delta is sent again
+		execStore.reset();
+		remoteWriter.visitDeltaDumpCommand("test");
+		assertTrue(remoteReader.read());
+		assertTrue(execStore.get(0x12345678).getProbes()[0]);
+
+		execStore.reset();
+		remoteWriter.visitDeltaConfirmCommand("test");
+		remoteWriter.visitDeltaDumpCommand("test");
+		assertTrue(remoteReader.read());
+		assertEquals(3, infoStore.getInfos().size());
+		assertFalse(execStore.get(0x12345678).getProbes()[0]);
+
+		con.close();
+		f.get();
+	}
+
 	@Test
 	public void testLocalDump() throws Exception {
 		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42)
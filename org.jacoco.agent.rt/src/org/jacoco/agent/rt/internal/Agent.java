@@ -20,6 +20,7 @@ import java.util.concurrent.Callable;
 import org.jacoco.agent.rt.IAgent;
 import org.jacoco.agent.rt.internal.output.FileOutput;
 import org.jacoco.agent.rt.internal.output.IAgentOutput;
+import org.jacoco.agent.rt.internal.output.MappedFileOutput;
 import org.jacoco.agent.rt.internal.output.NoneOutput;
 import org.jacoco.agent.rt.internal.output.TcpClientOutput;
 import org.jacoco.agent.rt.internal.output.TcpServerOutput;
@@ -89,6 +90,8 @@ public class Agent implements IAgent {
 
 	private Callable<Void> jmxRegistration;
 
+	private volatile ProbeRemover probeRemover;
+
 	/**
 	 * Creates a new agent with the given agent options.
 	 *
@@ -100,7 +103,23 @@ public class Agent implements IAgent {
 	Agent(final AgentOptions options, final IExceptionLogger logger) {
 		this.options = options;
 		this.logger = logger;
-		this.data = new RuntimeData();
+		this.data = new RuntimeData() {
+			@Override
+			protected void beforeReset() {
+				final ProbeRemover remover = probeRemover;
+				if (remover != null) {
+					remover.beginReset();
+				}
+			}
+
+			@Override
+			protected void afterReset() {
+				final ProbeRemover remover = probeRemover;
+				if (remover != null) {
+					remover.endReset();
+				}
+			}
+		};
 	}
 
 	/**
@@ -112,6 +131,18 @@ public class Agent implements IAgent {
 		return data;
 	}
 
+	/**
+	 * Sets the remover for probes of fully covered classes. The probes are
+	 * restored before the execution data of this agent is reset and no probes
+	 * are removed until the reset has completed.
+	 *
+	 * @param probeRemover
+	 *            remover for probes
+	 */
+	void setProbeRemover(final ProbeRemover probeRemover) {
+		this.probeRemover = probeRemover;
+	}
+
 	/**
 	 * Initializes this agent.
 	 *
@@ -141,6 +172,9 @@ public class Agent implements IAgent {
 	 */
 	public void shutdown() {
 		try {
+			if (probeRemover != null) {
+				probeRemover.shutdown();
+			}
 			if (options.getDumpOnExit()) {
 				output.writeExecutionData(false);
 			}
@@ -167,6 +201,8 @@ public class Agent implements IAgent {
 			return new TcpServerOutput(logger);
 		case tcpclient:
 			return new TcpClientOutput(logger);
+		case mmap:
+			return new MappedFileOutput(logger);
 		case none:
 			return new NoneOutput();
 		default:
@@ -208,7 +244,7 @@ public class Agent implements IAgent {
 		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
 		try {
 			final ExecutionDataWriter writer = new ExecutionDataWriter(buffer);
-			data.collect(writer, writer, reset);
+			data.collectSnapshot(writer, writer, reset);
 		} catch (final IOException e) {
 			// Must not happen with ByteArrayOutputStream
 			throw new AssertionError(e);
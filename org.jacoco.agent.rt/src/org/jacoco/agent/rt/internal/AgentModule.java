@@ -16,6 +16,7 @@ package org.jacoco.agent.rt.internal;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.instrument.Instrumentation;
+import java.lang.reflect.Modifier;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
@@ -51,6 +52,7 @@ public class AgentModule {
 	}
 
 	private final Set<String> scope = new HashSet<String>();
+	private final Set<String> packages = new HashSet<String>();
 	private final ClassLoader classLoader;
 
 	/**
@@ -64,9 +66,13 @@ public class AgentModule {
 			@Override
 			protected Class<?> loadClass(final String name,
 					final boolean resolve) throws ClassNotFoundException {
-				if (!scope.contains(name)) {
+				if (!scope.contains(name) && !isPackagePrivateInScope(name)) {
 					return super.loadClass(name, resolve);
 				}
+				final Class<?> loaded = findLoadedClass(name);
+				if (loaded != null) {
+					return loaded;
+				}
 				final InputStream resourceAsStream = getResourceAsStream(
 						name.replace('.', '/') + ".class");
 				final byte[] bytes;
@@ -81,6 +87,26 @@ public class AgentModule {
 		};
 	}
 
+	/**
+	 * Package private classes can only be accessed from the same class loader.
+	 * Therefore non-public classes in the package of a class in scope are
+	 * loaded in the isolated class loader as well.
+	 */
+	private boolean isPackagePrivateInScope(final String name)
+			throws ClassNotFoundException {
+		if (!packages.contains(getPackageName(name))) {
+			return false;
+		}
+		final Class<?> original = Class.forName(name, false,
+				classLoader.getParent());
+		return !Modifier.isPublic(original.getModifiers());
+	}
+
+	private static String getPackageName(final String name) {
+		final int pos = name.lastIndexOf('.');
+		return pos == -1 ? "" : name.substring(0, pos);
+	}
+
 	/**
 	 * Opens the package of the provided class to the module created in this
 	 * {@link #AgentModule()} instance.
@@ -124,7 +150,8 @@ public class AgentModule {
 
 	/**
 	 * Loads a copy of the given class in the isolated classloader. Also any
-	 * inner classes are loader from the isolated classloader.
+	 * inner classes and package private classes of the same package are loaded
+	 * from the isolated classloader.
 	 *
 	 * @param <T>
 	 *            type of the class to load
@@ -143,6 +170,7 @@ public class AgentModule {
 
 	private void addToScopeWithInnerClasses(final Class<?> c) {
 		scope.add(c.getName());
+		packages.add(getPackageName(c.getName()));
 		for (final Class<?> i : c.getDeclaredClasses()) {
 			addToScopeWithInnerClasses(i);
 		}
@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.jacoco.core.internal.data.CRC64;
+
+/**
+ * Persistent cache for instrumented class files. Entries are stored as
+ * individual files named after the id of the original class in a directory
+ * specific to the instrumentation strategy. Therefore different JaCoCo
+ * versions or runtimes can share the same cache location without conflicts.
+ *
+ * The cache can be used concurrently by multiple JVMs: New entries are written
+ * to temporary files which are atomically renamed afterwards. The last
+ * modification time of an entry is updated on hits, but at most once within
+ * {@link #TOUCH_INTERVAL}. The total size of all entries is tracked in a file
+ * which is locked while it is updated. Only if the total size exceeds the
+ * limit the cache is scanned and the least recently used entries are deleted.
+ *
+ * The cache is a best effort: I/O problems are ignored and result in cache
+ * misses or entries not being written.
+ */
+class ClassFileCache {
+
+	private static final String SUFFIX = ".class";
+
+	/** Magic number of class files, used to detect invalid entries */
+	private static final int MAGIC = 0xCAFEBABE;
+
+	/** Cache is reduced to this fraction of its maximum size */
+	private static final int EVICTION_TARGET_PERCENT = 75;
+
+	/** Minimum time in milliseconds between updates of the last usage */
+	static final long TOUCH_INTERVAL = 60 * 60 * 1000;
+
+	/** Name of the file containing the total size of all entries */
+	static final String SIZE_FILE = "size";
+
+	private final File root;
+
+	private final File directory;
+
+	private final long maxSize;
+
+	/**
+	 * Creates a cache in the given location.
+	 *
+	 * @param location
+	 *            relative path to cache directory
+	 * @param maxSize
+	 *            maximum size of the cache in bytes
+	 * @param strategy
+	 *            identifier of the instrumentation strategy, entries are only
+	 *            shared between caches with the same strategy
+	 */
+	ClassFileCache(final String location, final long maxSize,
+			final String strategy) {
+		this.root = new File(location);
+		this.directory = new File(root, getDirectoryName(strategy));
+		this.maxSize = maxSize;
+	}
+
+	private static String getDirectoryName(final String strategy) {
+		final byte[] bytes = new byte[strategy.length() * 2];
+		for (int i = 0; i < strategy.length(); i++) {
+			final char c = strategy.charAt(i);
+			bytes[2 * i] = (byte) (c >> 8);
+			bytes[2 * i + 1] = (byte) c;
+		}
+		return String.format("%016x", Long.valueOf(CRC64.classId(bytes)));
+	}
+
+	/**
+	 * Returns the instrumented version of the class with the given id if it is
+	 * contained in the cache.
+	 *
+	 * @param classid
+	 *            id of the original class
+	 * @return instrumented class file or <code>null</code>
+	 */
+	byte[] get(final long classid) {
+		final File file = getFile(classid);
+		try {
+			final RandomAccessFile in = new RandomAccessFile(file, "r");
+			final byte[] bytes;
+			try {
+				final long length = in.length();
+				if (length < 4 || length > Integer.MAX_VALUE) {
+					return null;
+				}
+				bytes = new byte[(int) length];
+				in.readFully(bytes);
+			} finally {
+				in.close();
+			}
+			if (getMagic(bytes) != MAGIC) {
+				return null;
+			}
+			touch(file);
+			return bytes;
+		} catch (final IOException e) {
+			return null;
+		}
+	}
+
+	private static int getMagic(final byte[] bytes) {
+		return (bytes[0] & 0xFF) << 24 | (bytes[1] & 0xFF) << 16
+				| (bytes[2] & 0xFF) << 8 | (bytes[3] & 0xFF);
+	}
+
+	private static void touch(final File file) {
+		final long now = System.currentTimeMillis();
+		if (file.lastModified() < now - TOUCH_INTERVAL) {
+			file.setLastModified(now);
+		}
+	}
+
+	/**
+	 * Stores the instrumented version of the class with the given id.
+	 *
+	 * @param classid
+	 *            id of the original class
+	 * @param instrumented
+	 *            instrumented class file
+	 */
+	void put(final long classid, final byte[] instrumented) {
+		File temp = null;
+		try {
+			directory.mkdirs();
+			temp = File.createTempFile("jacoco", ".tmp", directory);
+			final OutputStream out = new FileOutputStream(temp);
+			try {
+				out.write(instrumented);
+			} finally {
+				out.close();
+			}
+			// Another JVM might have created the same entry concurrently,
+			// which has the same content.
+			if (temp.renameTo(getFile(classid))) {
+				temp = null;
+				addSize(instrumented.length);
+			}
+		} catch (final IOException e) {
+			// cache is a best effort only
+		} finally {
+			if (temp != null) {
+				temp.delete();
+			}
+		}
+	}
+
+	/**
+	 * Adds the given number of bytes to the total size of the cache. If the
+	 * total size is unknown or exceeds the limit entries are evicted while the
+	 * size file is locked, so concurrent JVMs do not evict at the same time.
+	 * As file locks are held on behalf of the whole JVM, concurrent updates
+	 * within the JVM are serialized by a lock on this class.
+	 */
+	private void addSize(final long added) throws IOException {
+		synchronized (ClassFileCache.class) {
+			final RandomAccessFile file = new RandomAccessFile(
+					new File(root, SIZE_FILE), "rw");
+			try {
+				file.getChannel().lock();
+				long size = file.length() < 8 ? -1 : file.readLong() + added;
+				if (size < 0 || size > maxSize) {
+					size = evict();
+				}
+				file.seek(0);
+				file.writeLong(size);
+			} finally {
+				file.close();
+			}
+		}
+	}
+
+	private File getFile(final long classid) {
+		return new File(directory,
+				String.format("%016x%s", Long.valueOf(classid), SUFFIX));
+	}
+
+	/**
+	 * Deletes the least recently used entries of all strategies until the
+	 * size of the cache is below its limit.
+	 *
+	 * @return total size of the remaining entries
+	 */
+	private long evict() {
+		final List<File> files = new ArrayList<File>();
+		final File[] directories = root.listFiles();
+		if (directories != null) {
+			for (final File dir : directories) {
+				final File[] entries = dir.listFiles();
+				if (entries != null) {
+					files.addAll(Arrays.asList(entries));
+				}
+			}
+		}
+		final long[] modified = new long[files.size()];
+		long size = 0;
+		for (int i = 0; i < modified.length; i++) {
+			final File file = files.get(i);
+			modified[i] = file.lastModified();
+			size += file.length();
+		}
+		final long target = maxSize * EVICTION_TARGET_PERCENT / 100;
+		if (size > maxSize) {
+			final Integer[] order = new Integer[modified.length];
+			for (int i = 0; i < order.length; i++) {
+				order[i] = Integer.valueOf(i);
+			}
+			Arrays.sort(order, new Comparator<Integer>() {
+				public int compare(final Integer i1, final Integer i2) {
+					final long m1 = modified[i1.intValue()];
+					final long m2 = modified[i2.intValue()];
+					return m1 < m2 ? -1 : (m1 == m2 ? 0 : 1);
+				}
+			});
+			for (int i = 0; i < order.length && size > target; i++) {
+				final File file = files.get(order[i].intValue());
+				final long length = file.length();
+				if (file.delete()) {
+					size -= length;
+				}
+			}
+		}
+		return size;
+	}
+
+}
@@ -12,12 +12,16 @@
  *******************************************************************************/
 package org.jacoco.agent.rt.internal;
 
+import java.io.IOException;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.IllegalClassFormatException;
 import java.security.CodeSource;
 import java.security.ProtectionDomain;
 
+import org.jacoco.core.JaCoCo;
+import org.jacoco.core.instr.Granularity;
 import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.internal.data.CRC64;
 import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.runtime.IRuntime;
 import org.jacoco.core.runtime.WildcardMatcher;
@@ -46,6 +50,17 @@ public class CoverageTransformer implements ClassFileTransformer {
 
 	private final ClassFileDumper classFileDumper;
 
+	/** cache for instrumented classes or <code>null</code> */
+	private final ClassFileCache classFileCache;
+
+	private final Granularity granularity;
+
+	/** whether implied probes are omitted, which changes the class id */
+	private final boolean minimized;
+
+	/** remover for probes of fully covered classes or <code>null</code> */
+	private ProbeRemover probeRemover;
+
 	private final boolean inclBootstrapClasses;
 
 	private final boolean inclNoLocationClasses;
@@ -63,23 +78,49 @@ public class CoverageTransformer implements ClassFileTransformer {
 	public CoverageTransformer(final IRuntime runtime,
 			final AgentOptions options, final IExceptionLogger logger) {
 		this.instrumenter = new Instrumenter(runtime);
+		this.granularity = options.getGranularity();
+		instrumenter.setGranularity(granularity);
+		final boolean minimizeProbes = options.getMinimizeProbes();
+		instrumenter.setMinimizeProbes(minimizeProbes);
+		final boolean conditionalProbes = options.getConditionalProbes();
+		instrumenter.setConditionalProbes(conditionalProbes);
+		final boolean executionCounts = options.getExecutionCounts();
+		instrumenter.setExecutionCounts(executionCounts);
+		this.minimized = minimizeProbes && !executionCounts;
 		this.logger = logger;
 		// Class names will be reported in VM notation:
 		includes = new WildcardMatcher(toVMName(options.getIncludes()));
 		excludes = new WildcardMatcher(toVMName(options.getExcludes()));
 		exclClassloader = new WildcardMatcher(options.getExclClassloader());
 		classFileDumper = new ClassFileDumper(options.getClassDumpDir());
+		final String cacheDir = options.getCacheDir();
+		classFileCache = cacheDir == null ? null
+				: new ClassFileCache(cacheDir,
+						options.getCacheSize() * 1024L * 1024L,
+						getStrategy(runtime, granularity, minimizeProbes,
+								conditionalProbes, executionCounts));
 		inclBootstrapClasses = options.getInclBootstrapClasses();
 		inclNoLocationClasses = options.getInclNoLocationClasses();
 	}
 
+	/**
+	 * Enables retransformation of classes. Classes with removed probes are
+	 * created without probes, all other classes are instrumented as usual.
+	 *
+	 * @param probeRemover
+	 *            remover which decides about classes without probes
+	 */
+	void setProbeRemover(final ProbeRemover probeRemover) {
+		this.probeRemover = probeRemover;
+	}
+
 	public byte[] transform(final ClassLoader loader, final String classname,
 			final Class<?> classBeingRedefined,
 			final ProtectionDomain protectionDomain,
 			final byte[] classfileBuffer) throws IllegalClassFormatException {
 
-		// We do not support class retransformation:
-		if (classBeingRedefined != null) {
+		// Classes are only retransformed to remove or restore probes:
+		if (classBeingRedefined != null && probeRemover == null) {
 			return null;
 		}
 
@@ -88,8 +129,10 @@ public class CoverageTransformer implements ClassFileTransformer {
 		}
 
 		try {
-			classFileDumper.dump(classname, classfileBuffer);
-			return instrumenter.instrument(classfileBuffer, classname);
+			if (classBeingRedefined == null) {
+				classFileDumper.dump(classname, classfileBuffer);
+			}
+			return instrument(classfileBuffer, classname);
 		} catch (final Exception ex) {
 			final IllegalClassFormatException wrapper = new IllegalClassFormatException(
 					ex.getMessage());
@@ -100,6 +143,41 @@ public class CoverageTransformer implements ClassFileTransformer {
 		}
 	}
 
+	private byte[] instrument(final byte[] classfileBuffer,
+			final String classname) throws IOException {
+		if (classFileCache == null && probeRemover == null) {
+			return instrumenter.instrument(classfileBuffer, classname);
+		}
+		final long classid = CRC64.classId(classfileBuffer, granularity,
+				minimized);
+		if (probeRemover != null && probeRemover.isRemoved(classid)) {
+			return instrumenter.instrumentWithoutProbes(classfileBuffer,
+					classname);
+		}
+		if (classFileCache == null) {
+			return instrumenter.instrument(classfileBuffer, classname);
+		}
+		byte[] instrumented = classFileCache.get(classid);
+		if (instrumented == null) {
+			instrumented = instrumenter.instrument(classfileBuffer, classname);
+			classFileCache.put(classid, instrumented);
+		}
+		return instrumented;
+	}
+
+	/**
+	 * Identifies everything the instrumented class files depend on besides
+	 * the original class file.
+	 */
+	private static String getStrategy(final IRuntime runtime,
+			final Granularity granularity, final boolean minimizeProbes,
+			final boolean conditionalProbes, final boolean executionCounts) {
+		return JaCoCo.VERSION + "/" + JaCoCo.COMMITID + "/"
+				+ runtime.getClass().getName() + "/" + granularity + "/"
+				+ minimizeProbes + "/" + conditionalProbes + "/"
+				+ executionCounts;
+	}
+
 	/**
 	 * Checks whether this class should be instrumented.
 	 *
@@ -48,8 +48,21 @@ public final class PreMain {
 
 		final IRuntime runtime = createRuntime(inst);
 		runtime.startup(agent.getData());
-		inst.addTransformer(new CoverageTransformer(runtime, agentOptions,
-				IExceptionLogger.SYSTEM_ERR));
+		final CoverageTransformer transformer = new CoverageTransformer(runtime,
+				agentOptions, IExceptionLogger.SYSTEM_ERR);
+		final int interval = agentOptions.getRetransformInterval();
+		// Counting probes are never completed and must not be removed:
+		if (interval > 0 && !agentOptions.getExecutionCounts()
+				&& ProbeRemover.isSupported(inst)) {
+			final ProbeRemover remover = new ProbeRemover(inst,
+					agent.getData(), IExceptionLogger.SYSTEM_ERR);
+			transformer.setProbeRemover(remover);
+			agent.setProbeRemover(remover);
+			remover.addTransformer(transformer);
+			remover.start(interval * 1000L);
+		} else {
+			inst.addTransformer(transformer);
+		}
 	}
 
 	private static IRuntime createRuntime(final Instrumentation inst)
@@ -0,0 +1,271 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.Instrumentation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.runtime.RuntimeData;
+
+/**
+ * Removes the probes from classes where all probes have been executed. Such
+ * classes are retransformed by the {@link CoverageTransformer} to a version
+ * without probes, so they run without coverage overhead. As the execution data
+ * of these classes can not change any more, the coverage results are not
+ * affected. Before the execution data is reset the probes are restored by
+ * retransforming the classes again.
+ *
+ * As class retransformation has been introduced with Java 6 the corresponding
+ * API is called through reflection.
+ */
+class ProbeRemover {
+
+	private final Instrumentation inst;
+
+	private final RuntimeData data;
+
+	private final IExceptionLogger logger;
+
+	/** VM names of the classes without probes by class id */
+	private final ConcurrentMap<Long, String> removed;
+
+	/**
+	 * serializes the removal of probes with resets, which restore probes
+	 * before the execution data is reset
+	 */
+	private final ReentrantLock lock;
+
+	private Timer timer;
+
+	/**
+	 * Checks whether the JVM supports retransformation of classes.
+	 *
+	 * @param inst
+	 *            instrumentation service of the JVM
+	 * @return <code>true</code> if classes can be retransformed
+	 */
+	static boolean isSupported(final Instrumentation inst) {
+		try {
+			return ((Boolean) invoke(inst, "isRetransformClassesSupported",
+					new Class<?>[0])).booleanValue();
+		} catch (final Exception e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Creates a new remover.
+	 *
+	 * @param inst
+	 *            instrumentation service of the JVM
+	 * @param data
+	 *            runtime data of the agent
+	 * @param logger
+	 *            logger for problems during retransformation
+	 */
+	ProbeRemover(final Instrumentation inst, final RuntimeData data,
+			final IExceptionLogger logger) {
+		this.inst = inst;
+		this.data = data;
+		this.logger = logger;
+		this.removed = new ConcurrentHashMap<Long, String>();
+		this.lock = new ReentrantLock();
+	}
+
+	/**
+	 * Registers the given transformer which is able to retransform classes.
+	 *
+	 * @param transformer
+	 *            transformer to register
+	 * @throws Exception
+	 *             if the transformer can not be registered
+	 */
+	void addTransformer(final ClassFileTransformer transformer)
+			throws Exception {
+		invoke(inst, "addTransformer", new Class<?>[] {
+				ClassFileTransformer.class, Boolean.TYPE }, transformer,
+				Boolean.TRUE);
+	}
+
+	/**
+	 * Periodically removes the probes of fully covered classes in a
+	 * background thread.
+	 *
+	 * @param interval
+	 *            interval in milliseconds
+	 */
+	void start(final long interval) {
+		timer = new Timer("jacoco-probe-remover", true);
+		timer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				removeProbes();
+			}
+		}, interval, interval);
+	}
+
+	/**
+	 * Stops the background thread.
+	 */
+	void shutdown() {
+		if (timer != null) {
+			timer.cancel();
+		}
+	}
+
+	/**
+	 * Checks whether the probes of the class with the given id have been
+	 * removed.
+	 *
+	 * @param classid
+	 *            id of the class
+	 * @return <code>true</code> if the class should be created without probes
+	 */
+	boolean isRemoved(final long classid) {
+		return removed.containsKey(Long.valueOf(classid));
+	}
+
+	/**
+	 * Retransforms all classes where all probes have been executed.
+	 */
+	void removeProbes() {
+		lock.lock();
+		try {
+			final Map<Long, String> covered = new HashMap<Long, String>();
+			data.collect(new IExecutionDataVisitor() {
+				public void visitClassExecution(final ExecutionData ed) {
+					final Long id = Long.valueOf(ed.getId());
+					if (!removed.containsKey(id)
+							&& isCovered(ed.getProbes())) {
+						covered.put(id, ed.getName());
+					}
+				}
+			}, new ISessionInfoVisitor() {
+				public void visitSessionInfo(final SessionInfo info) {
+					// not required
+				}
+			}, false);
+			if (covered.isEmpty()) {
+				return;
+			}
+			removed.putAll(covered);
+			retransform(covered.values());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Restores the probes of all classes where probes have been removed
+	 * before. Probes are not removed again until {@link #endReset()} is
+	 * called, which must follow every call of this method. Must be called
+	 * before execution data is reset without holding the lock on the
+	 * execution data, as the retransformed classes might access it.
+	 */
+	void beginReset() {
+		lock.lock();
+		restoreProbes();
+	}
+
+	/**
+	 * Allows the removal of probes again after execution data has been reset.
+	 */
+	void endReset() {
+		if (lock.isHeldByCurrentThread()) {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Restores the probes of all classes where probes have been removed
+	 * before.
+	 */
+	void restoreProbes() {
+		lock.lock();
+		try {
+			if (removed.isEmpty()) {
+				return;
+			}
+			final List<String> names = new ArrayList<String>(removed.values());
+			removed.clear();
+			retransform(names);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private static boolean isCovered(final boolean[] probes) {
+		for (final boolean p : probes) {
+			if (!p) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void retransform(final Collection<String> vmnames) {
+		final Set<String> names = new HashSet<String>();
+		for (final String vmname : vmnames) {
+			names.add(vmname.replace('/', '.'));
+		}
+		for (final Class<?> c : inst.getAllLoadedClasses()) {
+			if (names.contains(c.getName())) {
+				try {
+					if (((Boolean) invoke(inst, "isModifiableClass",
+							new Class<?>[] { Class.class }, c))
+									.booleanValue()) {
+						invoke(inst, "retransformClasses",
+								new Class<?>[] { Class[].class },
+								(Object) new Class<?>[] { c });
+					}
+				} catch (final Exception e) {
+					logger.logExeption(e);
+				}
+			}
+		}
+	}
+
+	private static Object invoke(final Instrumentation inst,
+			final String name, final Class<?>[] types, final Object... args)
+			throws Exception {
+		final Method method = Instrumentation.class.getMethod(name, types);
+		try {
+			return method.invoke(inst, args);
+		} catch (final InvocationTargetException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			}
+			throw e;
+		}
+	}
+
+}
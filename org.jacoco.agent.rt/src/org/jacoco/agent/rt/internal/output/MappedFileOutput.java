@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import org.jacoco.agent.rt.internal.IExceptionLogger;
+import org.jacoco.core.data.MappedExecutionDataWriter;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.RuntimeData;
+
+/**
+ * Local only agent output that continuously writes coverage data to a memory
+ * mapped file. The probes executed since the previous update are merged into
+ * the file in a fixed interval. As the content of the file is maintained by the
+ * operating system, execution data is not lost if the VM is killed. Resets only
+ * affect the execution data of the VM, the file keeps all execution data. The
+ * file is locked while the VM is running, so VMs running concurrently need
+ * different files. This controller uses the following agent options:
+ * <ul>
+ * <li>destfile</li>
+ * <li>append</li>
+ * </ul>
+ */
+public class MappedFileOutput implements IAgentOutput {
+
+	/** interval in milliseconds in which probes are copied to the file */
+	static final long SYNC_INTERVAL = 1000;
+
+	/** name of the checkpoint for the deltas written to the file */
+	static final String CHECKPOINT = "mmap";
+
+	private final IExceptionLogger logger;
+
+	private final long interval;
+
+	private RuntimeData data;
+
+	private MappedExecutionDataWriter writer;
+
+	private Timer timer;
+
+	/**
+	 * New controller instance.
+	 *
+	 * @param logger
+	 *            logger to use in case of exceptions in the background thread
+	 */
+	public MappedFileOutput(final IExceptionLogger logger) {
+		this(logger, SYNC_INTERVAL);
+	}
+
+	MappedFileOutput(final IExceptionLogger logger, final long interval) {
+		this.logger = logger;
+		this.interval = interval;
+	}
+
+	public void startup(final AgentOptions options, final RuntimeData data)
+			throws IOException {
+		this.data = data;
+		final File destFile = new File(options.getDestfile())
+				.getAbsoluteFile();
+		final File folder = destFile.getParentFile();
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		writer = new MappedExecutionDataWriter(destFile,
+				options.getAppend());
+		sync(false);
+		timer = new Timer(getClass().getName(), true);
+		timer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				try {
+					sync(false);
+				} catch (final RuntimeException e) {
+					logger.logExeption(e);
+				}
+			}
+		}, interval, interval);
+	}
+
+	public void writeExecutionData(final boolean reset) {
+		sync(reset);
+	}
+
+	public void shutdown() throws IOException {
+		timer.cancel();
+		synchronized (this) {
+			sync(false);
+			writer.close();
+			writer = null;
+		}
+	}
+
+	private synchronized void sync(final boolean reset) {
+		if (writer != null) {
+			data.collectDelta(CHECKPOINT, writer, writer, reset);
+			data.confirmDelta(CHECKPOINT);
+		}
+	}
+
+}
@@ -16,7 +16,7 @@ import java.io.IOException;
 import java.net.Socket;
 import java.net.SocketException;
 
-import org.jacoco.core.runtime.IRemoteCommandVisitor;
+import org.jacoco.core.runtime.IRemoteDeltaCommandVisitor;
 import org.jacoco.core.runtime.RemoteControlReader;
 import org.jacoco.core.runtime.RemoteControlWriter;
 import org.jacoco.core.runtime.RuntimeData;
@@ -24,7 +24,7 @@ import org.jacoco.core.runtime.RuntimeData;
 /**
  * Handler for a single socket based remote connection.
  */
-class TcpConnection implements IRemoteCommandVisitor {
+class TcpConnection implements IRemoteDeltaCommandVisitor {
 
 	private final RuntimeData data;
 
@@ -95,12 +95,12 @@ class TcpConnection implements IRemoteCommandVisitor {
 		}
 	}
 
-	// === IRemoteCommandVisitor ===
+	// === IRemoteDeltaCommandVisitor ===
 
 	public void visitDumpCommand(final boolean dump, final boolean reset)
 			throws IOException {
 		if (dump) {
-			data.collect(writer, writer, reset);
+			data.collectSnapshot(writer, writer, reset);
 		} else {
 			if (reset) {
 				data.reset();
@@ -109,4 +109,14 @@ class TcpConnection implements IRemoteCommandVisitor {
 		writer.sendCmdOk();
 	}
 
+	public void visitDeltaDumpCommand(final String checkpoint)
+			throws IOException {
+		data.collectDelta(checkpoint, writer, writer);
+		writer.sendCmdOk();
+	}
+
+	public void visitDeltaConfirmCommand(final String checkpoint) {
+		data.confirmDelta(checkpoint);
+	}
+
 }
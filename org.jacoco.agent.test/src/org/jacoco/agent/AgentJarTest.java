@@ -14,11 +14,14 @@ package org.jacoco.agent;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -74,6 +77,38 @@ public class AgentJarTest {
 		file.delete();
 	}
 
+	@Test
+	public void testStartAgent() throws Exception {
+		file = AgentJar.extractToTempLocation();
+		final File destfile = File.createTempFile("jacoco", ".exec");
+		destfile.delete();
+		try {
+			final Process process = new ProcessBuilder(
+					new File(System.getProperty("java.home"), "bin/java")
+							.getAbsolutePath(),
+					"-javaagent:" + file.getAbsolutePath() + "=destfile="
+							+ destfile.getAbsolutePath(),
+					"-version").redirectErrorStream(true).start();
+			final String output = read(process.getInputStream());
+			assertEquals(output, 0, process.waitFor());
+			assertTrue(output, destfile.isFile());
+		} finally {
+			destfile.delete();
+		}
+	}
+
+	private static String read(final InputStream in) throws IOException {
+		final Reader reader = new InputStreamReader(in);
+		final StringBuilder result = new StringBuilder();
+		final char[] buffer = new char[1024];
+		int len;
+		while ((len = reader.read(buffer)) != -1) {
+			result.append(buffer, 0, len);
+		}
+		reader.close();
+		return result.toString();
+	}
+
 	private void assertAgentContents(InputStream in) throws IOException {
 		final ZipInputStream zip = new ZipInputStream(in);
 		while (true) {
@@ -201,6 +201,79 @@ public class AbstractCoverageTask extends Task {
 		agentOptions.setClassDumpDir(dir.getAbsolutePath());
 	}
 
+	/**
+	 * Sets the directory where the agent caches instrumented class files.
+	 *
+	 * @param dir
+	 *            cache location
+	 */
+	public void setCachedir(final File dir) {
+		agentOptions.setCacheDir(dir.getAbsolutePath());
+	}
+
+	/**
+	 * Sets the maximum size of the class file cache in megabytes.
+	 *
+	 * @param size
+	 *            maximum cache size in megabytes
+	 */
+	public void setCachesize(final int size) {
+		agentOptions.setCacheSize(size);
+	}
+
+	/**
+	 * Sets the interval in seconds in which classes with all probes executed
+	 * are retransformed to a version without probes.
+	 *
+	 * @param interval
+	 *            interval in seconds or <code>0</code> (no retransformation)
+	 */
+	public void setRetransforminterval(final int interval) {
+		agentOptions.setRetransformInterval(interval);
+	}
+
+	/**
+	 * Sets the granularity of the probes inserted into classes.
+	 *
+	 * @param granularity
+	 *            one of <code>method</code>, <code>line</code> or
+	 *            <code>branch</code>
+	 */
+	public void setGranularity(final String granularity) {
+		agentOptions.setGranularity(granularity);
+	}
+
+	/**
+	 * Sets whether probes which are implied by other probes should be omitted.
+	 *
+	 * @param minimize
+	 *            <code>true</code> if implied probes should be omitted
+	 */
+	public void setMinimizeprobes(final boolean minimize) {
+		agentOptions.setMinimizeProbes(minimize);
+	}
+
+	/**
+	 * Sets whether probes should only write to the probe array if they have
+	 * not been executed before.
+	 *
+	 * @param conditional
+	 *            <code>true</code> if probes should write only once
+	 */
+	public void setConditionalprobes(final boolean conditional) {
+		agentOptions.setConditionalProbes(conditional);
+	}
+
+	/**
+	 * Sets whether probes should count their executions.
+	 *
+	 * @param counts
+	 *            <code>true</code> if probes should count executions
+	 */
+	public void setExecutioncounts(final boolean counts) {
+		agentOptions.setExecutionCounts(counts);
+	}
+
 	/**
 	 * Sets whether the agent should expose functionality via JMX.
 	 *
@@ -16,16 +16,18 @@ import static java.lang.String.format;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Task;
 import org.apache.tools.ant.types.Resource;
 import org.apache.tools.ant.types.ResourceCollection;
+import org.apache.tools.ant.types.resources.FileResource;
 import org.apache.tools.ant.types.resources.Union;
-import org.apache.tools.ant.util.FileUtils;
-import org.jacoco.core.tools.ExecFileLoader;
+import org.apache.tools.ant.util.ResourceUtils;
+import org.jacoco.core.tools.ExecFileMerger;
 
 /**
  * Task for merging a set of execution data files (*.exec) into a single file
@@ -63,13 +65,20 @@ public class MergeTask extends Task {
 					getLocation());
 		}
 
-		final ExecFileLoader loader = new ExecFileLoader();
-
-		load(loader);
-		save(loader);
+		final ExecFileMerger merger = new ExecFileMerger();
+		final List<File> temporaryFiles = new ArrayList<File>();
+		try {
+			add(merger, temporaryFiles);
+			merge(merger);
+		} finally {
+			for (final File file : temporaryFiles) {
+				file.delete();
+			}
+		}
 	}
 
-	private void load(final ExecFileLoader loader) {
+	private void add(final ExecFileMerger merger,
+			final List<File> temporaryFiles) {
 		final Iterator<?> resourceIterator = files.iterator();
 		while (resourceIterator.hasNext()) {
 			final Resource resource = (Resource) resourceIterator.next();
@@ -80,24 +89,30 @@ public class MergeTask extends Task {
 
 			log(format("Loading execution data file %s", resource));
 
-			InputStream resourceStream = null;
 			try {
-				resourceStream = resource.getInputStream();
-				loader.load(resourceStream);
+				if (resource instanceof FileResource) {
+					merger.add(((FileResource) resource).getFile());
+				} else {
+					final File file = File.createTempFile("jacoco", ".exec");
+					temporaryFiles.add(file);
+					// Ant does not overwrite existing files:
+					file.delete();
+					ResourceUtils.copyResource(resource,
+							new FileResource(file));
+					merger.add(file);
+				}
 			} catch (final IOException e) {
 				throw new BuildException(format("Unable to read %s", resource),
 						e, getLocation());
-			} finally {
-				FileUtils.close(resourceStream);
 			}
 		}
 	}
 
-	private void save(final ExecFileLoader loader) {
+	private void merge(final ExecFileMerger merger) {
 		log(format("Writing merged execution data to %s",
 				destfile.getAbsolutePath()));
 		try {
-			loader.save(destfile, false);
+			merger.merge(destfile, false);
 		} catch (final IOException e) {
 			throw new BuildException(format("Unable to write merged file %s",
 					destfile.getAbsolutePath()), e, getLocation());
@@ -32,6 +32,7 @@ import org.apache.tools.ant.types.Resource;
 import org.apache.tools.ant.types.resources.FileResource;
 import org.apache.tools.ant.types.resources.Union;
 import org.apache.tools.ant.util.FileUtils;
+import org.jacoco.core.analysis.AnalysisCache;
 import org.jacoco.core.analysis.Analyzer;
 import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.analysis.IBundleCoverage;
@@ -175,6 +176,10 @@ public class ReportTask extends Task {
 
 		private Locale locale = Locale.getDefault();
 
+		private boolean incremental = false;
+
+		private int threads = 1;
+
 		/**
 		 * Sets the output directory for the report.
 		 *
@@ -227,6 +232,33 @@ public class ReportTask extends Task {
 			this.locale = parseLocale(locale);
 		}
 
+		/**
+		 * Enables incremental updates of an existing report in the output
+		 * directory. Only changed pages are written. Default is
+		 * <code>false</code>.
+		 *
+		 * @param incremental
+		 *            <code>true</code> for incremental updates
+		 */
+		public void setIncremental(final boolean incremental) {
+			this.incremental = incremental;
+		}
+
+		/**
+		 * Sets the number of threads used to render the report pages.
+		 * Default is <code>1</code>.
+		 *
+		 * @param threads
+		 *            number of threads
+		 */
+		public void setThreads(final int threads) {
+			if (threads < 1) {
+				throw new BuildException("Number of threads must be positive",
+						getLocation());
+			}
+			this.threads = threads;
+		}
+
 		@Override
 		public IReportVisitor createVisitor() throws IOException {
 			final IMultiReportOutput output;
@@ -251,6 +283,8 @@ public class ReportTask extends Task {
 			formatter.setFooterText(footer);
 			formatter.setOutputEncoding(encoding);
 			formatter.setLocale(locale);
+			formatter.setIncremental(incremental);
+			formatter.setThreads(threads);
 			return formatter.createVisitor(output);
 		}
 
@@ -424,6 +458,19 @@ public class ReportTask extends Task {
 
 	private final List<FormatterElement> formatters = new ArrayList<FormatterElement>();
 
+	private File analysiscache;
+
+	/**
+	 * Sets the directory to cache the structural analysis of class files. By
+	 * default no cache is used.
+	 *
+	 * @param analysiscache
+	 *            cache directory
+	 */
+	public void setAnalysiscache(final File analysiscache) {
+		this.analysiscache = analysiscache;
+	}
+
 	/**
 	 * Returns the nested resource collection for execution data files.
 	 *
@@ -564,6 +611,9 @@ public class ReportTask extends Task {
 			throws IOException {
 		final CoverageBuilder builder = new CoverageBuilder();
 		final Analyzer analyzer = new Analyzer(executionDataStore, builder);
+		if (analysiscache != null) {
+			analyzer.setCache(new AnalysisCache(analysiscache));
+		}
 		for (final Iterator<?> i = group.classfiles.iterator(); i.hasNext();) {
 			final Resource resource = (Resource) i.next();
 			if (resource.isDirectory() && resource instanceof FileResource) {
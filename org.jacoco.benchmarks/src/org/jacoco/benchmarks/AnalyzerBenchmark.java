@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures analysis of all classes of the corpus with
+ * {@link Analyzer#analyzeClass(byte[], String)}, either without execution data
+ * or with execution data where half of the probes are set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AnalyzerBenchmark {
+
+	@Param("1000")
+	int size;
+
+	@Param({ "false", "true" })
+	boolean executed;
+
+	private List<Corpus.ClassFile> classes;
+
+	private ExecutionDataStore executionData;
+
+	@Setup
+	public void setup() throws IOException {
+		final Corpus corpus = Corpus.load(size);
+		classes = corpus.getClasses();
+		executionData = executed ? corpus.createExecutionData(0.5, 42)
+				: new ExecutionDataStore();
+	}
+
+	@Benchmark
+	public IBundleCoverage analyzeClass() throws IOException {
+		final CoverageBuilder builder = new CoverageBuilder();
+		final Analyzer analyzer = new Analyzer(executionData, builder);
+		for (final Corpus.ClassFile c : classes) {
+			analyzer.analyzeClass(c.bytes, c.name);
+		}
+		return builder.getBundle("benchmark");
+	}
+
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.runtime.ModifiedSystemClassRuntime;
+import org.jacoco.core.runtime.RuntimeData;
+import org.jacoco.core.test.TargetLoader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time taken to load and initialize many instrumented classes,
+ * like it happens at the startup of large applications. Every class obtains
+ * its probe array through a {@link ModifiedSystemClassRuntime}. With typed
+ * access the container class provides typed access methods, otherwise it only
+ * supports access through an argument array.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ClassInitializationBenchmark {
+
+	private static final String CONTAINER = "perf/Container";
+
+	private static final String ACCESS_FIELD = "$jacocoAccess";
+
+	@Param({ "false", "true" })
+	boolean typedAccess;
+
+	@Param({ "10000" })
+	int classes;
+
+	private byte[] container;
+
+	private byte[][] targets;
+
+	@Setup
+	public void setup() throws Exception {
+		// typed access is only available for containers with at least
+		// version 7
+		final int version = typedAccess ? Opcodes.V1_7 : Opcodes.V1_5;
+		container = ModifiedSystemClassRuntime.instrument(
+				createClass(version, CONTAINER, false), ACCESS_FIELD);
+		final Instrumenter instrumenter = new Instrumenter(
+				createRuntime(new TargetLoader()));
+		targets = new byte[classes][];
+		for (int i = 0; i < classes; i++) {
+			final String name = getTargetName(i);
+			targets[i] = instrumenter.instrument(
+					createClass(Opcodes.V1_5, name, true), name);
+		}
+	}
+
+	private ModifiedSystemClassRuntime createRuntime(
+			final TargetLoader loader) {
+		return new ModifiedSystemClassRuntime(
+				loader.add(CONTAINER.replace('/', '.'), container),
+				ACCESS_FIELD);
+	}
+
+	@Benchmark
+	public TargetLoader initialize() throws Exception {
+		final TargetLoader loader = new TargetLoader();
+		createRuntime(loader).startup(new RuntimeData());
+		for (int i = 0; i < classes; i++) {
+			final String name = getTargetName(i).replace('/', '.');
+			loader.add(name, targets[i]);
+			Class.forName(name, true, loader);
+		}
+		return loader;
+	}
+
+	private static String getTargetName(final int i) {
+		return "perf/Target" + i;
+	}
+
+	private static byte[] createClass(final int version, final String name,
+			final boolean initializer) {
+		final ClassWriter writer = new ClassWriter(0);
+		writer.visit(version, Opcodes.ACC_PUBLIC, name, null,
+				"java/lang/Object", null);
+		if (initializer) {
+			final MethodVisitor mv = writer.visitMethod(Opcodes.ACC_STATIC,
+					"<clinit>", "()V", null, null);
+			mv.visitCode();
+			mv.visitInsn(Opcodes.RETURN);
+			mv.visitMaxs(0, 0);
+			mv.visitEnd();
+		}
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+}
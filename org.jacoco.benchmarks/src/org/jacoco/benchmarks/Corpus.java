@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.internal.InputStreams;
+import org.jacoco.core.internal.data.CRC64;
+import org.jacoco.core.runtime.IExecutionDataAccessorGenerator;
+import org.jacoco.core.runtime.OfflineInstrumentationAccessGenerator;
+import org.objectweb.asm.MethodVisitor;
+
+/**
+ * A set of real world class files used as input for the benchmarks. By default
+ * the classes of the <code>java.base</code> module (or <code>rt.jar</code> for
+ * Java 8) of the running JDK are used. Alternatively directories or archives
+ * can be specified with the system property
+ * <code>jacoco.benchmarks.corpus</code>, separated by the platform path
+ * separator. The entry <code>jdk</code> stands for the classes of the running
+ * JDK. For example <code>jdk</code> together with the
+ * <code>target/classes</code> folder of the Kotlin validation test module
+ * gives a mixed Java and Kotlin corpus.
+ */
+public final class Corpus {
+
+	/** System property to specify custom locations of class files */
+	public static final String LOCATION_PROPERTY = "jacoco.benchmarks.corpus";
+
+	/** Location for the classes of the running JDK */
+	public static final String JDK_LOCATION = "jdk";
+
+	/**
+	 * A single class file of the corpus.
+	 */
+	public static final class ClassFile {
+
+		/** VM name of the class */
+		public final String name;
+
+		/** class file content */
+		public final byte[] bytes;
+
+		/** class id as calculated by {@link CRC64#classId(byte[])} */
+		public final long id;
+
+		/** number of probes inserted by instrumentation */
+		public final int probeCount;
+
+		ClassFile(final String name, final byte[] bytes, final int probeCount) {
+			this.name = name;
+			this.bytes = bytes;
+			this.id = CRC64.classId(bytes);
+			this.probeCount = probeCount;
+		}
+
+	}
+
+	private final List<ClassFile> classes;
+
+	private Corpus(final List<ClassFile> classes) {
+		this.classes = classes;
+	}
+
+	/**
+	 * @return all class files of this corpus
+	 */
+	public List<ClassFile> getClasses() {
+		return classes;
+	}
+
+	/**
+	 * Creates execution data for all classes of this corpus where the given
+	 * ratio of probes is set.
+	 *
+	 * @param ratio
+	 *            ratio of executed probes between 0.0 and 1.0
+	 * @param seed
+	 *            seed for the random probe selection
+	 * @return new store with execution data for every class
+	 */
+	public ExecutionDataStore createExecutionData(final double ratio,
+			final long seed) {
+		final Random random = new Random(seed);
+		final ExecutionDataStore store = new ExecutionDataStore();
+		for (final ClassFile c : classes) {
+			final boolean[] probes = new boolean[c.probeCount];
+			for (int i = 0; i < probes.length; i++) {
+				probes[i] = random.nextDouble() < ratio;
+			}
+			store.put(new ExecutionData(c.id, c.name, probes));
+		}
+		return store;
+	}
+
+	/**
+	 * Loads the corpus. Classes which can not be instrumented are skipped.
+	 *
+	 * @param limit
+	 *            maximum number of classes to load
+	 * @return loaded corpus
+	 * @throws IOException
+	 *             if class files can not be read
+	 */
+	public static Corpus load(final int limit) throws IOException {
+		final TreeMap<String, byte[]> files = new TreeMap<String, byte[]>();
+		final String location = System.getProperty(LOCATION_PROPERTY);
+		if (location != null) {
+			for (final String path : location.split(File.pathSeparator)) {
+				final File file = new File(path);
+				if (JDK_LOCATION.equals(path)) {
+					readJdk(files);
+				} else if (file.isDirectory()) {
+					readDirectory(file.toPath(), files);
+				} else {
+					readArchive(file, files);
+				}
+			}
+		} else {
+			readJdk(files);
+		}
+		final ProbeCountRecorder recorder = new ProbeCountRecorder();
+		final Instrumenter instrumenter = new Instrumenter(recorder);
+		final List<ClassFile> classes = new ArrayList<ClassFile>();
+		for (final String name : files.keySet()) {
+			if (classes.size() == limit) {
+				break;
+			}
+			final byte[] bytes = files.get(name);
+			recorder.probeCount = 0;
+			try {
+				instrumenter.instrument(bytes, name);
+			} catch (final IOException e) {
+				continue;
+			}
+			classes.add(new ClassFile(name, bytes, recorder.probeCount));
+		}
+		return new Corpus(Collections.unmodifiableList(classes));
+	}
+
+	private static void readJdk(final TreeMap<String, byte[]> files)
+			throws IOException {
+		final File rtjar = new File(System.getProperty("java.home"),
+				"lib/rt.jar");
+		if (rtjar.isFile()) {
+			readArchive(rtjar, files);
+		} else {
+			final FileSystem jrt = FileSystems
+					.getFileSystem(URI.create("jrt:/"));
+			readDirectory(jrt.getPath("/modules/java.base"), files);
+		}
+	}
+
+	private static void readDirectory(final Path root,
+			final TreeMap<String, byte[]> files) throws IOException {
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(final Path file,
+					final BasicFileAttributes attrs) throws IOException {
+				final String name = root.relativize(file).toString()
+						.replace(File.separatorChar, '/');
+				if (isClassFile(name)) {
+					files.put(name, Files.readAllBytes(file));
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	private static void readArchive(final File file,
+			final TreeMap<String, byte[]> files) throws IOException {
+		final ZipFile zip = new ZipFile(file);
+		try {
+			final Enumeration<? extends ZipEntry> entries = zip.entries();
+			while (entries.hasMoreElements()) {
+				final ZipEntry entry = entries.nextElement();
+				if (isClassFile(entry.getName())) {
+					final InputStream in = zip.getInputStream(entry);
+					try {
+						files.put(entry.getName(), InputStreams.readFully(in));
+					} finally {
+						in.close();
+					}
+				}
+			}
+		} finally {
+			zip.close();
+		}
+	}
+
+	private static boolean isClassFile(final String name) {
+		return name.endsWith(".class") && !name.endsWith("module-info.class");
+	}
+
+	/**
+	 * Accessor generator which records the probe count of the last
+	 * instrumented class.
+	 */
+	private static class ProbeCountRecorder
+			implements IExecutionDataAccessorGenerator {
+
+		private final IExecutionDataAccessorGenerator delegate = new OfflineInstrumentationAccessGenerator();
+
+		int probeCount;
+
+		public int generateDataAccessor(final long classid,
+				final String classname, final int probecount,
+				final MethodVisitor mv) {
+			this.probeCount = probecount;
+			return delegate.generateDataAccessor(classid, classname,
+					probecount, mv);
+		}
+
+	}
+
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.benchmarks;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.jacoco.core.tools.ExecFileMerger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures merging of execution data files with {@link ExecFileLoader}, which
+ * loads all data into memory, and with {@link ExecFileMerger}, which streams
+ * the merged data from memory mapped files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExecFileMergeBenchmark {
+
+	@Param("5000")
+	int size;
+
+	@Param("20")
+	int files;
+
+	private File folder;
+
+	private File[] inputs;
+
+	private File output;
+
+	@Setup
+	public void setup() throws IOException {
+		final Corpus corpus = Corpus.load(size);
+		folder = File.createTempFile("jacoco", "benchmark");
+		folder.delete();
+		folder.mkdirs();
+		inputs = new File[files];
+		for (int i = 0; i < files; i++) {
+			inputs[i] = new File(folder, i + ".exec");
+			final OutputStream out = new BufferedOutputStream(
+					new FileOutputStream(inputs[i]));
+			final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+			writer.visitSessionInfo(new SessionInfo("session" + i, i, i));
+			corpus.createExecutionData(0.2, i).accept(writer);
+			out.close();
+		}
+		output = new File(folder, "merged.exec");
+	}
+
+	@TearDown
+	public void teardown() {
+		for (final File file : folder.listFiles()) {
+			file.delete();
+		}
+		folder.delete();
+	}
+
+	@Benchmark
+	public void loader() throws IOException {
+		final ExecFileLoader loader = new ExecFileLoader();
+		for (final File input : inputs) {
+			loader.load(input);
+		}
+		loader.save(output, false);
+	}
+
+	@Benchmark
+	public void merger() throws IOException {
+		final ExecFileMerger merger = new ExecFileMerger();
+		for (final File input : inputs) {
+			merger.add(input);
+		}
+		merger.merge(output, false);
+	}
+
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IExecutionDataFilter;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.internal.data.LongHashMap;
+import org.jacoco.core.internal.data.PackedExecutionDataReader;
+import org.jacoco.core.internal.data.PackedExecutionDataStore;
+import org.jacoco.core.internal.data.PackedExecutionDataWriter;
+import org.jacoco.core.tools.IndexedExecFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures writing and reading of execution data with
+ * {@link ExecutionDataWriter} and {@link ExecutionDataReader} for the probes of
+ * all classes of the corpus. Reading is measured into a
+ * {@link ExecutionDataStore}, into a {@link PackedExecutionDataStore} and with a
+ * filter which selects every tenth class only. The selected classes are also
+ * read from an indexed file with {@link IndexedExecFile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExecutionDataIOBenchmark {
+
+	@Param("5000")
+	int size;
+
+	private ExecutionDataStore executionData;
+
+	private byte[] file;
+
+	private IExecutionDataFilter filter;
+
+	private File indexedFile;
+
+	@Setup
+	public void setup() throws IOException {
+		executionData = Corpus.load(size).createExecutionData(0.5, 42);
+		file = write();
+		final LongHashMap<Boolean> selected = new LongHashMap<Boolean>();
+		int i = 0;
+		for (final ExecutionData data : executionData.getContents()) {
+			if (i++ % 10 == 0) {
+				selected.put(data.getId(), Boolean.TRUE);
+			}
+		}
+		filter = new IExecutionDataFilter() {
+			public boolean include(final long id) {
+				return selected.get(id) != null;
+			}
+		};
+		indexedFile = writeIndexed();
+	}
+
+	private File writeIndexed() throws IOException {
+		final List<ExecutionData> sorted = new ArrayList<ExecutionData>(
+				executionData.getContents());
+		Collections.sort(sorted, new Comparator<ExecutionData>() {
+			public int compare(final ExecutionData a, final ExecutionData b) {
+				return Long.valueOf(a.getId()).compareTo(b.getId());
+			}
+		});
+		final File f = File.createTempFile("jacoco", ".exec");
+		final OutputStream out = new FileOutputStream(f);
+		final PackedExecutionDataWriter writer = new PackedExecutionDataWriter(
+				out, true);
+		writer.visitSessionInfo(new SessionInfo("benchmark", 0, 0));
+		for (final ExecutionData data : sorted) {
+			writer.visitClassExecution(data);
+		}
+		writer.writeIndex();
+		out.close();
+		return f;
+	}
+
+	@TearDown
+	public void teardown() {
+		indexedFile.delete();
+	}
+
+	@Benchmark
+	public byte[] write() throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+		writer.visitSessionInfo(new SessionInfo("benchmark", 0, 0));
+		executionData.accept(writer);
+		return out.toByteArray();
+	}
+
+	@Benchmark
+	public ExecutionDataStore read() throws IOException {
+		final ExecutionDataReader reader = new ExecutionDataReader(
+				new ByteArrayInputStream(file));
+		final ExecutionDataStore store = new ExecutionDataStore();
+		reader.setSessionInfoVisitor(new SessionInfoStore());
+		reader.setExecutionDataVisitor(store);
+		reader.read();
+		return store;
+	}
+
+	@Benchmark
+	public PackedExecutionDataStore readPacked() throws IOException {
+		final PackedExecutionDataStore store = new PackedExecutionDataStore();
+		final ExecutionDataReader reader = new PackedExecutionDataReader(
+				new ByteArrayInputStream(file), store);
+		reader.setSessionInfoVisitor(new SessionInfoStore());
+		reader.read();
+		return store;
+	}
+
+	@Benchmark
+	public ExecutionDataStore readFiltered() throws IOException {
+		final ExecutionDataReader reader = new ExecutionDataReader(
+				new ByteArrayInputStream(file));
+		final ExecutionDataStore store = new ExecutionDataStore();
+		reader.setSessionInfoVisitor(new SessionInfoStore());
+		reader.setExecutionDataVisitor(store);
+		reader.setExecutionDataFilter(filter);
+		reader.read();
+		return store;
+	}
+
+	@Benchmark
+	public ExecutionDataStore readIndexedFiltered() throws IOException {
+		final IndexedExecFile indexed = new IndexedExecFile(indexedFile);
+		final ExecutionDataStore store = new ExecutionDataStore();
+		try {
+			indexed.accept(filter, store);
+		} finally {
+			indexed.close();
+		}
+		return store;
+	}
+
+}
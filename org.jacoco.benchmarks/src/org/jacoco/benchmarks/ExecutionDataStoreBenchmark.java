@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures merging execution data of several sessions into a single
+ * {@link ExecutionDataStore}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExecutionDataStoreBenchmark {
+
+	@Param("5000")
+	int size;
+
+	@Param("10")
+	int sessions;
+
+	private List<ExecutionDataStore> input;
+
+	@Setup
+	public void setup() throws IOException {
+		final Corpus corpus = Corpus.load(size);
+		input = new ArrayList<ExecutionDataStore>();
+		for (int i = 0; i < sessions; i++) {
+			input.add(corpus.createExecutionData(0.2, i));
+		}
+	}
+
+	@Benchmark
+	public ExecutionDataStore merge() {
+		final ExecutionDataStore store = new ExecutionDataStore();
+		for (final ExecutionDataStore session : input) {
+			for (final ExecutionData data : session.getContents()) {
+				// copy probes as merging modifies the first instance
+				store.put(new ExecutionData(data.getId(), data.getName(),
+						data.getProbes().clone()));
+			}
+		}
+		return store;
+	}
+
+}
@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.internal.analysis.filter.Filters;
+import org.jacoco.core.internal.analysis.filter.IFilter;
+import org.jacoco.core.internal.analysis.filter.IFilterContext;
+import org.jacoco.core.internal.analysis.filter.IFilterOutput;
+import org.jacoco.core.internal.analysis.filter.Replacements;
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.objectweb.asm.Attribute;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.AnnotationNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures filtering of all methods of the corpus with {@link Filters#all()}
+ * in isolation from the rest of the analysis. Use a mixed Java and Kotlin
+ * corpus, see {@link Corpus}, to cover the Kotlin specific filters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FilterBenchmark {
+
+	@Param("5000")
+	int size;
+
+	private List<Target> targets;
+
+	private Output output;
+
+	@Setup
+	public void setup() throws IOException {
+		targets = new ArrayList<Target>();
+		for (final Corpus.ClassFile c : Corpus.load(size).getClasses()) {
+			final ClassNode node = new ClassNode();
+			InstrSupport.classReaderFor(c.bytes).accept(node, 0);
+			targets.add(new Target(node));
+		}
+		output = new Output();
+	}
+
+	@Benchmark
+	public int filter() {
+		output.count = 0;
+		for (final Target t : targets) {
+			// Like in the analysis filters are created for every class:
+			final IFilter filter = Filters.all();
+			for (final MethodNode m : t.node.methods) {
+				filter.filter(m, t, output);
+			}
+		}
+		return output.count;
+	}
+
+	private static class Target implements IFilterContext {
+
+		final ClassNode node;
+
+		private final Set<String> annotations = new HashSet<String>();
+
+		private final Set<String> attributes = new HashSet<String>();
+
+		Target(final ClassNode node) {
+			this.node = node;
+			addAnnotations(node.visibleAnnotations);
+			addAnnotations(node.invisibleAnnotations);
+			if (node.attrs != null) {
+				for (final Attribute a : node.attrs) {
+					attributes.add(a.type);
+				}
+			}
+		}
+
+		private void addAnnotations(final List<AnnotationNode> list) {
+			if (list != null) {
+				for (final AnnotationNode a : list) {
+					annotations.add(a.desc);
+				}
+			}
+		}
+
+		public String getClassName() {
+			return node.name;
+		}
+
+		public String getSuperClassName() {
+			return node.superName;
+		}
+
+		public Set<String> getClassAnnotations() {
+			return annotations;
+		}
+
+		public Set<String> getClassAttributes() {
+			return attributes;
+		}
+
+		public String getSourceFileName() {
+			return node.sourceFile;
+		}
+
+		public String getSourceDebugExtension() {
+			return node.sourceDebug;
+		}
+
+	}
+
+	private static class Output implements IFilterOutput {
+
+		int count;
+
+		public void ignore(final AbstractInsnNode fromInclusive,
+				final AbstractInsnNode toInclusive) {
+			count++;
+		}
+
+		public void merge(final AbstractInsnNode i1,
+				final AbstractInsnNode i2) {
+			count++;
+		}
+
+		public void replaceBranches(final AbstractInsnNode source,
+				final Replacements replacements) {
+			count++;
+		}
+
+	}
+
+}
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.report.FileMultiReportOutput;
+import org.jacoco.report.IMultiReportOutput;
+import org.jacoco.report.IReportVisitor;
+import org.jacoco.report.InputStreamSourceFileLocator;
+import org.jacoco.report.html.HTMLFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures rendering of a HTML report for the analyzed corpus. The output is
+ * discarded, written to a directory, written to a directory with one render
+ * thread per available processor or incrementally updated in a directory
+ * which already contains the same report. If the JDK comes with
+ * <code>lib/src.zip</code> source pages are rendered as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HTMLFormatterBenchmark {
+
+	@Param("1000")
+	int size;
+
+	private ExecutionDataStore executionData;
+
+	private IBundleCoverage bundle;
+
+	private ZipFile sources;
+
+	private File directory;
+
+	private File incrementalDirectory;
+
+	@Setup
+	public void setup() throws IOException {
+		final Corpus corpus = Corpus.load(size);
+		executionData = corpus.createExecutionData(0.5, 42);
+		final CoverageBuilder builder = new CoverageBuilder();
+		final Analyzer analyzer = new Analyzer(executionData, builder);
+		for (final Corpus.ClassFile c : corpus.getClasses()) {
+			analyzer.analyzeClass(c.bytes, c.name);
+		}
+		bundle = builder.getBundle("benchmark");
+		final File srczip = new File(System.getProperty("java.home"),
+				"lib/src.zip");
+		if (srczip.isFile()) {
+			sources = new ZipFile(srczip);
+		}
+		directory = createTempDirectory();
+		incrementalDirectory = createTempDirectory();
+		render(new FileMultiReportOutput(incrementalDirectory), true, 1);
+	}
+
+	private static File createTempDirectory() throws IOException {
+		final File dir = File.createTempFile("jacoco", "report");
+		dir.delete();
+		dir.mkdirs();
+		return dir;
+	}
+
+	private static void delete(final File file) {
+		final File[] children = file.listFiles();
+		if (children != null) {
+			for (final File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	@TearDown
+	public void teardown() throws IOException {
+		if (sources != null) {
+			sources.close();
+		}
+		delete(directory);
+		delete(incrementalDirectory);
+	}
+
+	@Benchmark
+	public void render() throws IOException {
+		render(new DiscardingOutput(), false, 1);
+	}
+
+	@Benchmark
+	public void renderToDirectory() throws IOException {
+		render(new FileMultiReportOutput(directory), false, 1);
+	}
+
+	@Benchmark
+	public void renderToDirectoryConcurrent() throws IOException {
+		render(new FileMultiReportOutput(directory), false,
+				Runtime.getRuntime().availableProcessors());
+	}
+
+	@Benchmark
+	public void renderIncrementalUnchanged() throws IOException {
+		render(new FileMultiReportOutput(incrementalDirectory), true, 1);
+	}
+
+	private void render(final IMultiReportOutput output,
+			final boolean incremental, final int threads) throws IOException {
+		final HTMLFormatter formatter = new HTMLFormatter();
+		formatter.setIncremental(incremental);
+		formatter.setThreads(threads);
+		final IReportVisitor visitor = formatter.createVisitor(output);
+		visitor.visitInfo(
+				Collections.<SessionInfo> emptyList(),
+				executionData.getContents());
+		visitor.visitBundle(bundle, new SourceLocator());
+		visitor.visitEnd();
+	}
+
+	/**
+	 * Locates sources in <code>src.zip</code> of the JDK, which contains
+	 * module directories since Java 9.
+	 */
+	private class SourceLocator extends InputStreamSourceFileLocator {
+
+		SourceLocator() {
+			super("UTF-8", 4);
+		}
+
+		@Override
+		protected InputStream getSourceStream(final String path)
+				throws IOException {
+			if (sources == null) {
+				return null;
+			}
+			ZipEntry entry = sources.getEntry(path);
+			if (entry == null) {
+				entry = sources.getEntry("java.base/" + path);
+			}
+			return entry == null ? null : sources.getInputStream(entry);
+		}
+
+	}
+
+	private static class DiscardingOutput implements IMultiReportOutput {
+
+		public OutputStream createFile(final String path) {
+			return new OutputStream() {
+				@Override
+				public void write(final int b) {
+				}
+
+				@Override
+				public void write(final byte[] b, final int off,
+						final int len) {
+				}
+			};
+		}
+
+		public void close() {
+		}
+
+	}
+
+}
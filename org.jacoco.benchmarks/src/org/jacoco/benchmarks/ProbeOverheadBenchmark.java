@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.benchmarks;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.instr.Granularity;
+import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.runtime.IRuntime;
+import org.jacoco.core.runtime.LoggerRuntime;
+import org.jacoco.core.runtime.RuntimeData;
+import org.jacoco.core.test.TargetLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the runtime overhead of probes by executing the performance targets
+ * of <code>org.jacoco.core.test.perf.targets</code> in their original and in
+ * their instrumented version with different probe granularities, optionally
+ * with minimized probes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProbeOverheadBenchmark {
+
+	@Param({ "Target01", "Target02", "Target03" })
+	String target;
+
+	/** probe granularity or <code>NONE</code> for the original version */
+	@Param({ "NONE", "METHOD", "LINE", "BRANCH" })
+	String granularity;
+
+	/** whether probes implied by other probes are omitted */
+	@Param({ "false", "true" })
+	boolean minimizeProbes;
+
+	private IRuntime runtime;
+
+	private Callable<Void> callable;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setup() throws Exception {
+		final Class<?> type = Class
+				.forName("org.jacoco.core.test.perf.targets." + target);
+		if (!"NONE".equals(granularity)) {
+			runtime = new LoggerRuntime();
+			runtime.startup(new RuntimeData());
+			final Instrumenter instrumenter = new Instrumenter(runtime);
+			instrumenter.setGranularity(Granularity.valueOf(granularity));
+			instrumenter.setMinimizeProbes(minimizeProbes);
+			final byte[] bytes = instrumenter.instrument(
+					TargetLoader.getClassDataAsBytes(type), target);
+			callable = (Callable<Void>) new TargetLoader().add(type, bytes)
+					.newInstance();
+		} else {
+			callable = (Callable<Void>) type.newInstance();
+		}
+	}
+
+	@TearDown
+	public void teardown() {
+		if (runtime != null) {
+			runtime.shutdown();
+		}
+	}
+
+	@Benchmark
+	public Void execute() throws Exception {
+		return callable.call();
+	}
+
+}
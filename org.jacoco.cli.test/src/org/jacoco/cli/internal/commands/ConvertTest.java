@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.cli.internal.commands;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+
+import org.jacoco.cli.internal.CommandTestBase;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.MappedExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.data.SessionInfoStore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link Convert}.
+ */
+public class ConvertTest extends CommandTestBase {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void should_print_usage_when_no_options_are_given()
+			throws Exception {
+		execute("convert");
+
+		assertFailure();
+		assertContains("\"--destfile\"", err);
+		assertContains("java -jar jacococli.jar convert <mmapfile>", err);
+	}
+
+	@Test
+	public void should_convert_mapped_file_to_exec_file() throws Exception {
+		File mmap = new File(tmp.getRoot(), "jacoco.mmap");
+		MappedExecutionDataWriter writer = new MappedExecutionDataWriter(mmap);
+		writer.visitSessionInfo(new SessionInfo("mapped", 1, 2));
+		writer.visitClassExecution(
+				new ExecutionData(0x1234, "Foo", new boolean[] { true }));
+		writer.close();
+		File dest = new File(tmp.getRoot(), "jacoco.exec");
+
+		execute("convert", "--destfile", dest.getAbsolutePath(),
+				mmap.getAbsolutePath());
+
+		assertOk();
+		assertContains("[INFO] Writing execution data to "
+				+ dest.getAbsolutePath(), out);
+		SessionInfoStore infos = new SessionInfoStore();
+		ExecutionDataStore store = new ExecutionDataStore();
+		FileInputStream in = new FileInputStream(dest);
+		ExecutionDataReader reader = new ExecutionDataReader(in);
+		reader.setSessionInfoVisitor(infos);
+		reader.setExecutionDataVisitor(store);
+		reader.read();
+		in.close();
+		assertEquals("mapped", infos.getInfos().get(0).getId());
+		assertTrue(store.get(0x1234).getProbes()[0]);
+	}
+
+}
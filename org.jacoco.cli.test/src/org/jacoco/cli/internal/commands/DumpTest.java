@@ -12,6 +12,7 @@
  *******************************************************************************/
 package org.jacoco.cli.internal.commands;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -22,7 +23,7 @@ import java.net.ServerSocket;
 import java.net.Socket;
 
 import org.jacoco.cli.internal.CommandTestBase;
-import org.jacoco.core.runtime.IRemoteCommandVisitor;
+import org.jacoco.core.runtime.IRemoteDeltaCommandVisitor;
 import org.jacoco.core.runtime.RemoteControlReader;
 import org.jacoco.core.runtime.RemoteControlWriter;
 import org.junit.After;
@@ -40,6 +41,8 @@ public class DumpTest extends CommandTestBase {
 
 	private ServerSocket serverSocket;
 
+	private volatile String command;
+
 	@After
 	public void after() throws IOException {
 		if (serverSocket != null) {
@@ -71,6 +74,36 @@ public class DumpTest extends CommandTestBase {
 		assertContains("[INFO] Writing execution data to "
 				+ execfile.getAbsolutePath(), out);
 		assertTrue(execfile.exists());
+		assertEquals("dump", command);
+	}
+
+	@Test
+	public void should_request_delta_dump_when_delta_is_specified()
+			throws Exception {
+
+		File execfile = new File(tmp.getRoot(), "jacoco.exec");
+		int port = startMockServer();
+
+		execute("dump", "--destfile", execfile.getAbsolutePath(), "--port",
+				String.valueOf(port), "--delta");
+
+		assertOk();
+		assertTrue(execfile.exists());
+		assertEquals("delta default", command);
+	}
+
+	@Test
+	public void should_request_delta_dump_for_checkpoint_when_checkpoint_is_specified()
+			throws Exception {
+
+		File execfile = new File(tmp.getRoot(), "jacoco.exec");
+		int port = startMockServer();
+
+		execute("dump", "--destfile", execfile.getAbsolutePath(), "--port",
+				String.valueOf(port), "--delta", "--checkpoint", "nightly");
+
+		assertOk();
+		assertEquals("delta nightly", command);
 	}
 
 	@Test
@@ -112,12 +145,22 @@ public class DumpTest extends CommandTestBase {
 				socket.getOutputStream());
 		final RemoteControlReader reader = new RemoteControlReader(
 				socket.getInputStream());
-		reader.setRemoteCommandVisitor(new IRemoteCommandVisitor() {
+		reader.setRemoteCommandVisitor(new IRemoteDeltaCommandVisitor() {
 
 			public void visitDumpCommand(boolean dump, boolean reset)
 					throws IOException {
+				command = "dump";
 				writer.sendCmdOk();
 			}
+
+			public void visitDeltaDumpCommand(String checkpoint)
+					throws IOException {
+				command = "delta " + checkpoint;
+				writer.sendCmdOk();
+			}
+
+			public void visitDeltaConfirmCommand(String checkpoint) {
+			}
 		});
 		while (reader.read()) {
 		}
@@ -13,7 +13,9 @@
 package org.jacoco.cli.internal.commands;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -25,6 +27,9 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 import org.jacoco.cli.internal.CommandTestBase;
 import org.jacoco.core.internal.InputStreams;
@@ -64,7 +69,7 @@ public class InstrumentTest extends CommandTestBase {
 				getClassPath());
 
 		assertOk();
-		assertContains("[INFO] 14 classes instrumented to "
+		assertContains("[INFO] 15 classes instrumented to "
 				+ destdir.getAbsolutePath(), out);
 
 		// non class-file resources are copied:
@@ -136,11 +141,55 @@ public class InstrumentTest extends CommandTestBase {
 		assertFalse(new File(destdir, "Broken.class").exists());
 	}
 
+	@Test
+	public void should_instrument_archive_entries_when_threads_are_given()
+			throws Exception {
+		File srcdir = new File(tmp.getRoot(), "src");
+		srcdir.mkdir();
+		File destdir = new File(tmp.getRoot(), "dest");
+		destdir.mkdir();
+		final File jar = new File(srcdir, "test.jar");
+		final ZipOutputStream zip = new ZipOutputStream(
+				new FileOutputStream(jar));
+		for (final String name : new String[] { "InstrumentTest",
+				"MergeTest", "ReportTest" }) {
+			zip.putNextEntry(new ZipEntry(name + ".class"));
+			final InputStream in = new FileInputStream(new File(
+					getClassPath(),
+					"org/jacoco/cli/internal/commands/" + name + ".class"));
+			zip.write(InputStreams.readFully(in));
+			in.close();
+		}
+		zip.close();
+
+		execute("instrument", "--dest", destdir.getAbsolutePath(),
+				"--threads", "2", jar.getAbsolutePath());
+
+		assertOk();
+		assertContains(
+				"[INFO] 3 classes instrumented to " + destdir.getAbsolutePath(),
+				out);
+		final ZipInputStream zipin = new ZipInputStream(
+				new FileInputStream(new File(destdir, "test.jar")));
+		assertEquals("InstrumentTest.class", zipin.getNextEntry().getName());
+		assertInstrumented(InputStreams.readFully(zipin));
+		assertEquals("MergeTest.class", zipin.getNextEntry().getName());
+		assertInstrumented(InputStreams.readFully(zipin));
+		assertEquals("ReportTest.class", zipin.getNextEntry().getName());
+		assertInstrumented(InputStreams.readFully(zipin));
+		assertNull(zipin.getNextEntry());
+		zipin.close();
+	}
+
 	private void assertInstrumented(File classfile) throws IOException {
 		InputStream in = new FileInputStream(classfile);
-		final ClassReader reader = InstrSupport
-				.classReaderFor(InputStreams.readFully(in));
+		final byte[] bytes = InputStreams.readFully(in);
 		in.close();
+		assertInstrumented(bytes);
+	}
+
+	private void assertInstrumented(byte[] bytes) {
+		final ClassReader reader = InstrSupport.classReaderFor(bytes);
 		final Set<String> methods = new HashSet<String>();
 		reader.accept(new ClassVisitor(InstrSupport.ASM_API_VERSION) {
 			@Override
@@ -57,7 +57,7 @@ public class ReportTest extends CommandTestBase {
 		execute("report", "--classfiles", getClassPath());
 
 		assertOk();
-		assertContains("[INFO] Analyzing 14 classes.", out);
+		assertContains("[INFO] Analyzing 15 classes.", out);
 	}
 
 	@Test
@@ -127,6 +127,20 @@ public class ReportTest extends CommandTestBase {
 				.isFile());
 	}
 
+	@Test
+	public void should_create_analysis_cache_when_analysiscache_option_is_provided()
+			throws Exception {
+		File cache = new File(tmp.getRoot(), "cache");
+		File xml = new File(tmp.getRoot(), "coverage.xml");
+
+		execute("report", "--classfiles", getClassPath(), "--analysiscache",
+				cache.getAbsolutePath(), "--xml", xml.getAbsolutePath());
+
+		assertOk();
+		assertTrue(xml.isFile());
+		assertTrue(cache.isDirectory());
+	}
+
 	@Test
 	public void should_use_all_values_when_multiple_classfiles_options_are_provided()
 			throws Exception {
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.cli.internal.commands;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import org.jacoco.cli.internal.Command;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.Option;
+
+/**
+ * The <code>convert</code> command.
+ */
+public class Convert extends Command {
+
+	@Argument(usage = "memory mapped file written by an agent in 'mmap' output mode", metaVar = "<mmapfile>", required = true)
+	File mmapfile;
+
+	@Option(name = "--destfile", usage = "file to write execution data to", metaVar = "<path>", required = true)
+	File destfile;
+
+	@Override
+	public String description() {
+		return "Converts a file written by a JaCoCo agent running in 'mmap' output mode to an exec file.";
+	}
+
+	@Override
+	public int execute(final PrintWriter out, final PrintWriter err)
+			throws IOException {
+		out.printf("[INFO] Loading execution data file %s.%n",
+				mmapfile.getAbsolutePath());
+		final ExecFileLoader loader = new ExecFileLoader();
+		loader.load(mmapfile);
+		out.printf("[INFO] Writing execution data to %s.%n",
+				destfile.getAbsolutePath());
+		loader.save(destfile, false);
+		return 0;
+	}
+
+}
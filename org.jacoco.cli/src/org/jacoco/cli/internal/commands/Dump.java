@@ -40,6 +40,12 @@ public class Dump extends Command {
 	@Option(name = "--reset", usage = "reset execution data on test target after dump")
 	boolean reset = false;
 
+	@Option(name = "--delta", usage = "only dump execution data recorded since the previous delta dump")
+	boolean delta = false;
+
+	@Option(name = "--checkpoint", usage = "name of the checkpoint delta dumps are relative to (default 'default')", metaVar = "<name>")
+	String checkpoint = "default";
+
 	@Option(name = "--retry", usage = "number of retries (default 10)", metaVar = "<count>")
 	int retrycount = 10;
 
@@ -65,6 +71,8 @@ public class Dump extends Command {
 			}
 		};
 		client.setReset(reset);
+		client.setDelta(delta);
+		client.setCheckpoint(checkpoint);
 		client.setRetryCount(retrycount);
 
 		final ExecFileLoader loader = client.dump(address, port);
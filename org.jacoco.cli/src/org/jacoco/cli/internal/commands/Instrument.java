@@ -22,6 +22,8 @@ import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.jacoco.cli.internal.Command;
 import org.jacoco.core.instr.Instrumenter;
@@ -37,6 +39,9 @@ public class Instrument extends Command {
 	@Option(name = "--dest", usage = "path to write instrumented Java classes to", metaVar = "<dir>", required = true)
 	File dest;
 
+	@Option(name = "--threads", usage = "number of threads to instrument archive entries in parallel (default 1)", metaVar = "<count>")
+	int threads = 1;
+
 	@Argument(usage = "list of folder or files to instrument recusively", metaVar = "<sourcefiles>")
 	List<File> source = new ArrayList<File>();
 
@@ -53,12 +58,23 @@ public class Instrument extends Command {
 		final File absoluteDest = dest.getAbsoluteFile();
 		instrumenter = new Instrumenter(
 				new OfflineInstrumentationAccessGenerator());
+		final ExecutorService executor = threads > 1
+				? Executors.newFixedThreadPool(threads)
+				: null;
+		instrumenter.setExecutor(executor);
 		int total = 0;
-		for (final File s : source) {
-			if (s.isFile()) {
-				total += instrument(s, new File(absoluteDest, s.getName()));
-			} else {
-				total += instrumentRecursive(s, absoluteDest);
+		try {
+			for (final File s : source) {
+				if (s.isFile()) {
+					total += instrument(s,
+							new File(absoluteDest, s.getName()));
+				} else {
+					total += instrumentRecursive(s, absoluteDest);
+				}
+			}
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
 			}
 		}
 		out.printf("[INFO] %s classes instrumented to %s.%n",
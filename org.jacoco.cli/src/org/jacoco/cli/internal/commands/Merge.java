@@ -19,7 +19,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.jacoco.cli.internal.Command;
-import org.jacoco.core.tools.ExecFileLoader;
+import org.jacoco.core.tools.ExecFileMerger;
 import org.kohsuke.args4j.Argument;
 import org.kohsuke.args4j.Option;
 
@@ -34,6 +34,9 @@ public class Merge extends Command {
 	@Option(name = "--destfile", usage = "file to write merged execution data to", metaVar = "<path>", required = true)
 	File destfile;
 
+	@Option(name = "--indexed", usage = "write an indexed file which allows random access to the execution data of single classes")
+	boolean indexed;
+
 	@Override
 	public String description() {
 		return "Merges multiple exec files into a new one.";
@@ -42,26 +45,27 @@ public class Merge extends Command {
 	@Override
 	public int execute(final PrintWriter out, final PrintWriter err)
 			throws IOException {
-		final ExecFileLoader loader = loadExecutionData(out);
+		final ExecFileMerger merger = addExecutionData(out);
 		out.printf("[INFO] Writing execution data to %s.%n",
 				destfile.getAbsolutePath());
-		loader.save(destfile, true);
+		merger.setIndexed(indexed);
+		merger.merge(destfile, true);
 		return 0;
 	}
 
-	private ExecFileLoader loadExecutionData(final PrintWriter out)
+	private ExecFileMerger addExecutionData(final PrintWriter out)
 			throws IOException {
-		final ExecFileLoader loader = new ExecFileLoader();
+		final ExecFileMerger merger = new ExecFileMerger();
 		if (execfiles.isEmpty()) {
 			out.println("[WARN] No execution data files provided.");
 		} else {
 			for (final File file : execfiles) {
 				out.printf("[INFO] Loading execution data file %s.%n",
 						file.getAbsolutePath());
-				loader.load(file);
+				merger.add(file);
 			}
 		}
-		return loader;
+		return merger;
 	}
 
 }
@@ -22,6 +22,7 @@ import java.util.Collection;
 import java.util.List;
 
 import org.jacoco.cli.internal.Command;
+import org.jacoco.core.analysis.AnalysisCache;
 import org.jacoco.core.analysis.Analyzer;
 import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.analysis.IBundleCoverage;
@@ -51,6 +52,9 @@ public class Report extends Command {
 	@Option(name = "--classfiles", usage = "location of Java class files", metaVar = "<path>", required = true)
 	List<File> classfiles = new ArrayList<File>();
 
+	@Option(name = "--analysiscache", usage = "directory to cache the analysis of class files", metaVar = "<dir>")
+	File analysiscache;
+
 	@Option(name = "--sourcefiles", usage = "location of the source files", metaVar = "<path>")
 	List<File> sourcefiles = new ArrayList<File>();
 
@@ -72,6 +76,9 @@ public class Report extends Command {
 	@Option(name = "--html", usage = "output directory for the HTML report", metaVar = "<dir>")
 	File html;
 
+	@Option(name = "--incremental", usage = "only write changed pages of an existing HTML report")
+	boolean incremental;
+
 	@Override
 	public String description() {
 		return "Generate reports in different formats by reading exec and Java class files.";
@@ -106,6 +113,9 @@ public class Report extends Command {
 			final PrintWriter out) throws IOException {
 		final CoverageBuilder builder = new CoverageBuilder();
 		final Analyzer analyzer = new Analyzer(data, builder);
+		if (analysiscache != null) {
+			analyzer.setCache(new AnalysisCache(analysiscache));
+		}
 		for (final File f : classfiles) {
 			analyzer.analyzeAll(f);
 		}
@@ -155,6 +165,7 @@ public class Report extends Command {
 
 		if (html != null) {
 			final HTMLFormatter formatter = new HTMLFormatter();
+			formatter.setIncremental(incremental);
 			visitors.add(
 					formatter.createVisitor(new FileMultiReportOutput(html)));
 		}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.jacoco.core.JaCoCo;
+import org.jacoco.core.internal.analysis.CoverageTemplate;
+import org.jacoco.core.internal.analysis.StringPool;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link AnalysisCache}.
+ */
+public class AnalysisCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File directory;
+
+	private AnalysisCache cache;
+
+	private StringPool stringPool;
+
+	@Before
+	public void setup() {
+		directory = new File(folder.getRoot(), "cache");
+		cache = new AnalysisCache(directory);
+		stringPool = new StringPool();
+	}
+
+	@Test
+	public void get_should_return_null_when_entry_does_not_exist() {
+		assertNull(cache.get(0x1234, stringPool));
+	}
+
+	@Test
+	public void get_should_return_entry_stored_with_put() {
+		cache.put(0x1234, new CoverageTemplate("Foo"));
+
+		final CoverageTemplate template = cache.get(0x1234, stringPool);
+
+		assertNotNull(template);
+		assertEquals("Foo", template.getName());
+		assertNull(cache.get(0x1235, stringPool));
+	}
+
+	@Test
+	public void put_should_create_entry_in_version_specific_directory() {
+		cache.put(0x1234, new CoverageTemplate("Foo"));
+
+		final File versionDir = new File(directory,
+				JaCoCo.VERSION + "-" + JaCoCo.COMMITID_SHORT);
+		assertArrayEquals(new String[] { "0000000000001234.template" },
+				versionDir.list());
+	}
+
+	@Test
+	public void put_should_ignore_errors() throws IOException {
+		directory = folder.newFile();
+		cache = new AnalysisCache(directory);
+
+		cache.put(0x1234, new CoverageTemplate("Foo"));
+
+		assertNull(cache.get(0x1234, stringPool));
+	}
+
+	@Test
+	public void get_should_return_null_for_invalid_entry() throws IOException {
+		final File versionDir = new File(directory,
+				JaCoCo.VERSION + "-" + JaCoCo.COMMITID_SHORT);
+		versionDir.mkdirs();
+		final FileOutputStream out = new FileOutputStream(
+				new File(versionDir, "0000000000001234.template"));
+		out.write(new byte[] { 1, 2, 3 });
+		out.close();
+
+		assertNull(cache.get(0x1234, stringPool));
+	}
+
+}
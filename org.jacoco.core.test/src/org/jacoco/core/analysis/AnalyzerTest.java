@@ -16,6 +16,7 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -26,11 +27,15 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
@@ -38,8 +43,13 @@ import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import org.jacoco.core.JaCoCo;
+import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.instr.Granularity;
 import org.jacoco.core.internal.Pack200Streams;
+import org.jacoco.core.internal.analysis.CounterImpl;
+import org.jacoco.core.internal.analysis.CoverageTemplate;
+import org.jacoco.core.internal.analysis.StringPool;
 import org.jacoco.core.internal.data.CRC64;
 import org.jacoco.core.test.TargetLoader;
 import org.jacoco.core.test.validation.JavaVersion;
@@ -172,6 +182,198 @@ public class AnalyzerTest {
 				.isNoMatch());
 	}
 
+	@Test
+	public void should_detect_method_granularity() throws IOException {
+		final byte[] bytes = TargetLoader
+				.getClassDataAsBytes(GranularityTarget.class);
+		final long id = CRC64.classId(bytes, Granularity.METHOD);
+		// probes for constructor and method run()
+		executionData.get(Long.valueOf(id), GRANULARITY_TARGET, 2)
+				.getProbes()[1] = true;
+
+		analyzer.analyzeClass(bytes, "Test");
+
+		final IClassCoverage coverage = classes.get(GRANULARITY_TARGET);
+		assertEquals(id, coverage.getId());
+		assertFalse(coverage.isNoMatch());
+		assertEquals(CounterImpl.getInstance(1, 1),
+				coverage.getMethodCounter());
+		assertEquals(CounterImpl.COUNTER_0_0, coverage.getInstructionCounter());
+		assertEquals(CounterImpl.COUNTER_0_0, coverage.getBranchCounter());
+		assertEquals(CounterImpl.COUNTER_0_0, coverage.getLineCounter());
+		assertEquals(CounterImpl.COUNTER_0_0,
+				coverage.getComplexityCounter());
+		assertEquals(CounterImpl.COUNTER_0_1, coverage.getClassCounter());
+	}
+
+	@Test
+	public void should_detect_line_granularity() throws IOException {
+		final byte[] bytes = TargetLoader
+				.getClassDataAsBytes(GranularityTarget.class);
+		final long id = CRC64.classId(bytes, Granularity.LINE);
+		// probes for one line of the constructor and three lines of run()
+		final boolean[] probes = executionData
+				.get(Long.valueOf(id), GRANULARITY_TARGET, 4).getProbes();
+		probes[1] = true;
+		probes[3] = true;
+
+		analyzer.analyzeClass(bytes, "Test");
+
+		final IClassCoverage coverage = classes.get(GRANULARITY_TARGET);
+		assertEquals(id, coverage.getId());
+		assertEquals(CounterImpl.getInstance(1, 1),
+				coverage.getMethodCounter());
+		assertEquals(CounterImpl.getInstance(2, 2),
+				coverage.getLineCounter());
+		assertEquals(CounterImpl.COUNTER_0_0, coverage.getInstructionCounter());
+		assertEquals(CounterImpl.COUNTER_0_0, coverage.getBranchCounter());
+		assertEquals(CounterImpl.COUNTER_0_0,
+				coverage.getComplexityCounter());
+	}
+
+	@Test
+	public void should_create_and_use_cache_entry() throws IOException {
+		final File dir = folder.newFolder();
+		analyzer.setCache(new AnalysisCache(dir));
+		final byte[] bytes = TargetLoader
+				.getClassDataAsBytes(GranularityTarget.class);
+		final long id = CRC64.classId(bytes);
+		// probes for constructor, if branch and return statement
+		final boolean[] probes = executionData
+				.get(Long.valueOf(id), GRANULARITY_TARGET, 3).getProbes();
+		probes[0] = true;
+
+		analyzer.analyzeClass(bytes, "Test");
+		final IClassCoverage first = classes.remove(GRANULARITY_TARGET);
+		probes[2] = true;
+		analyzer.analyzeClass(bytes, "Test");
+		final IClassCoverage second = classes.get(GRANULARITY_TARGET);
+
+		assertEquals(1, new File(dir,
+				JaCoCo.VERSION + "-" + JaCoCo.COMMITID_SHORT).list().length);
+		assertEquals(id, first.getId());
+		assertEquals(CounterImpl.getInstance(1, 1), first.getMethodCounter());
+		assertEquals(CounterImpl.getInstance(2, 0), first.getBranchCounter());
+		assertEquals(id, second.getId());
+		assertEquals(CounterImpl.getInstance(0, 2), second.getMethodCounter());
+		assertEquals(CounterImpl.getInstance(1, 1), second.getBranchCounter());
+		assertEquals("AnalyzerTest.java", second.getSourceFileName());
+	}
+
+	@Test
+	public void should_ignore_cache_entry_of_other_class() throws IOException {
+		final AnalysisCache cache = new AnalysisCache(folder.newFolder());
+		analyzer.setCache(cache);
+		final byte[] bytes = TargetLoader
+				.getClassDataAsBytes(GranularityTarget.class);
+		cache.put(CRC64.classId(bytes),
+				new CoverageTemplate("Foo"));
+
+		analyzer.analyzeClass(bytes, "Test");
+
+		assertClasses(GRANULARITY_TARGET);
+		assertEquals(CounterImpl.getInstance(2, 0),
+				classes.get(GRANULARITY_TARGET).getMethodCounter());
+		assertEquals(GRANULARITY_TARGET, cache
+				.get(CRC64.classId(bytes), new StringPool()).getName());
+	}
+
+	@Test
+	public void should_not_cache_classes_with_coarser_granularity()
+			throws IOException {
+		final File dir = new File(folder.getRoot(), "cache");
+		analyzer.setCache(new AnalysisCache(dir));
+		final byte[] bytes = TargetLoader
+				.getClassDataAsBytes(GranularityTarget.class);
+		final long id = CRC64.classId(bytes, Granularity.METHOD);
+		executionData.get(Long.valueOf(id), GRANULARITY_TARGET, 2)
+				.getProbes()[1] = true;
+
+		analyzer.analyzeClass(bytes, "Test");
+
+		assertEquals(CounterImpl.getInstance(1, 1),
+				classes.get(GRANULARITY_TARGET).getMethodCounter());
+		assertFalse(dir.exists());
+	}
+
+	@Test
+	public void should_not_cache_classes_with_execution_counts()
+			throws IOException {
+		final File dir = new File(folder.getRoot(), "cache");
+		analyzer.setCache(new AnalysisCache(dir));
+		final byte[] bytes = TargetLoader
+				.getClassDataAsBytes(GranularityTarget.class);
+		final long id = CRC64.classId(bytes);
+		executionData.put(new ExecutionData(id, GRANULARITY_TARGET,
+				new boolean[] { true, false, false }, new long[] { 5, 0, 0 }));
+
+		analyzer.analyzeClass(bytes, "Test");
+
+		assertEquals(CounterImpl.getInstance(1, 1),
+				classes.get(GRANULARITY_TARGET).getMethodCounter());
+		assertFalse(dir.exists());
+	}
+
+	@Test
+	public void should_infer_omitted_probes_for_minimized_class_id()
+			throws IOException {
+		final byte[] bytes = TargetLoader
+				.getClassDataAsBytes(MinimizedTarget.class);
+		final long id = CRC64.classId(bytes, Granularity.BRANCH, true);
+		// probes for constructor and assignment within if statement
+		final boolean[] probes = executionData
+				.get(Long.valueOf(id), MINIMIZED_TARGET, 4).getProbes();
+		probes[0] = true;
+		probes[1] = true;
+
+		analyzer.analyzeClass(bytes, "Test");
+
+		final IClassCoverage coverage = classes.get(MINIMIZED_TARGET);
+		assertEquals(id, coverage.getId());
+		assertEquals(CounterImpl.getInstance(2, 9),
+				coverage.getInstructionCounter());
+	}
+
+	@Test
+	public void should_not_infer_probes_for_branch_class_id()
+			throws IOException {
+		final byte[] bytes = TargetLoader
+				.getClassDataAsBytes(MinimizedTarget.class);
+		final long id = CRC64.classId(bytes);
+		final boolean[] probes = executionData
+				.get(Long.valueOf(id), MINIMIZED_TARGET, 4).getProbes();
+		probes[0] = true;
+		probes[1] = true;
+
+		analyzer.analyzeClass(bytes, "Test");
+
+		assertEquals(CounterImpl.getInstance(4, 7),
+				classes.get(MINIMIZED_TARGET).getInstructionCounter());
+	}
+
+	private static final String MINIMIZED_TARGET = "org/jacoco/core/analysis/AnalyzerTest$MinimizedTarget";
+
+	static class MinimizedTarget {
+		int run(int x) {
+			int r = 0;
+			if (x > 0) {
+				r = 1;
+			}
+			return r;
+		}
+	}
+
+	private static final String GRANULARITY_TARGET = "org/jacoco/core/analysis/AnalyzerTest$GranularityTarget";
+
+	static class GranularityTarget {
+		int run(int x) {
+			if (x > 0) {
+				return 1;
+			}
+			return 2;
+		}
+	}
+
 	@Test
 	public void testAnalyzeClassNoIdMatch() throws IOException {
 		executionData.get(Long.valueOf(0),
@@ -477,6 +679,108 @@ public class AnalyzerTest {
 		}
 	}
 
+	@Test
+	public void analyzeAll_should_report_classes_in_same_order_when_executor_is_given()
+			throws IOException {
+		final Class<?>[] sources = new Class<?>[] { AnalyzerTest.class,
+				Analyzer.class, ExecutionDataStore.class, TargetLoader.class,
+				CRC64.class, JaCoCo.class, ICoverageNode.class,
+				CoverageBuilder.class };
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ZipOutputStream zip = new ZipOutputStream(buffer);
+		for (final Class<?> c : sources) {
+			zip.putNextEntry(new ZipEntry(c.getName() + ".class"));
+			zip.write(TargetLoader.getClassDataAsBytes(c));
+		}
+		zip.finish();
+
+		final List<IClassCoverage> expected = analyzeAll(
+				buffer.toByteArray(), null);
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		final List<IClassCoverage> actual;
+		try {
+			actual = analyzeAll(buffer.toByteArray(), executor);
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(sources.length, actual.size());
+		for (int i = 0; i < sources.length; i++) {
+			assertEquals(expected.get(i).getName(), actual.get(i).getName());
+			assertEquals(expected.get(i).getId(), actual.get(i).getId());
+			assertEquals(expected.get(i).getInstructionCounter(),
+					actual.get(i).getInstructionCounter());
+			assertEquals(expected.get(i).getBranchCounter(),
+					actual.get(i).getBranchCounter());
+			assertEquals(expected.get(i).getLineCounter(),
+					actual.get(i).getLineCounter());
+		}
+	}
+
+	private List<IClassCoverage> analyzeAll(final byte[] zip,
+			final ExecutorService executor) throws IOException {
+		final List<IClassCoverage> result = new ArrayList<IClassCoverage>();
+		final Thread caller = Thread.currentThread();
+		final Analyzer analyzer = new Analyzer(executionData,
+				new ICoverageVisitor() {
+					public void visitCoverage(final IClassCoverage coverage) {
+						assertSame(caller, Thread.currentThread());
+						result.add(coverage);
+					}
+				}, executor);
+		analyzer.analyzeAll(new ByteArrayInputStream(zip), "Test");
+		return result;
+	}
+
+	@Test
+	public void analyzeAll_should_throw_exception_for_broken_class_when_executor_is_given()
+			throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ZipOutputStream zip = new ZipOutputStream(buffer);
+		zip.putNextEntry(
+				new ZipEntry("org/jacoco/core/analysis/AnalyzerTest.class"));
+		final byte[] brokenclass = TargetLoader
+				.getClassDataAsBytes(AnalyzerTest.class);
+		brokenclass[10] = 0x23;
+		zip.write(brokenclass);
+		zip.finish();
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		analyzer = new Analyzer(executionData, new EmptyStructureVisitor(),
+				executor);
+
+		try {
+			analyzer.analyzeAll(new ByteArrayInputStream(buffer.toByteArray()),
+					"test.zip");
+			fail("expected exception");
+		} catch (IOException e) {
+			assertExceptionMessage(
+					"test.zip@org/jacoco/core/analysis/AnalyzerTest.class", e);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void analyzeAll_should_analyze_folder_when_executor_is_given()
+			throws IOException {
+		createClassfile("bin1", AnalyzerTest.class);
+		createClassfile("bin2", Analyzer.class);
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		analyzer = new Analyzer(executionData, new EmptyStructureVisitor(),
+				executor);
+
+		final int count;
+		try {
+			count = analyzer.analyzeAll(folder.getRoot());
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(2, count);
+		assertClasses("org/jacoco/core/analysis/AnalyzerTest",
+				"org/jacoco/core/analysis/Analyzer");
+	}
+
 	private void createClassfile(final String dir, final Class<?> source)
 			throws IOException {
 		File file = new File(folder.getRoot(), dir);
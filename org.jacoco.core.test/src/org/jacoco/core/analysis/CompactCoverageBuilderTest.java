@@ -0,0 +1,391 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.internal.analysis.ClassAnalyzer;
+import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.CounterImpl;
+import org.jacoco.core.internal.analysis.MethodCoverageImpl;
+import org.jacoco.core.internal.analysis.SourceNodeImpl;
+import org.jacoco.core.internal.data.CRC64;
+import org.jacoco.core.internal.flow.ClassProbesAdapter;
+import org.jacoco.core.test.TargetLoader;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CompactCoverageBuilder}.
+ */
+public class CompactCoverageBuilderTest {
+
+	private CompactCoverageBuilder coverageBuilder;
+
+	@Before
+	public void setup() {
+		coverageBuilder = new CompactCoverageBuilder();
+	}
+
+	@Test
+	public void should_provide_same_coverage_as_CoverageBuilder()
+			throws IOException {
+		final List<Class<?>> classes = Arrays.<Class<?>> asList(Analyzer.class,
+				CoverageBuilder.class, CompactCoverageBuilder.class,
+				ClassAnalyzer.class, ClassProbesAdapter.class, CRC64.class);
+		final ExecutionDataStore store = new ExecutionDataStore();
+		final Random random = new Random(7);
+		for (final Class<?> c : classes) {
+			final byte[] bytes = TargetLoader.getClassDataAsBytes(c);
+			final boolean[] probes = new boolean[1000];
+			for (int i = 0; i < probes.length; i++) {
+				probes[i] = random.nextBoolean();
+			}
+			store.put(new ExecutionData(CRC64.classId(bytes),
+					c.getName().replace('.', '/'), probes));
+		}
+		final CoverageBuilder expected = new CoverageBuilder();
+		final Analyzer expectedAnalyzer = new Analyzer(store, expected);
+		final Analyzer actualAnalyzer = new Analyzer(store, coverageBuilder);
+		for (final Class<?> c : classes) {
+			final byte[] bytes = TargetLoader.getClassDataAsBytes(c);
+			expectedAnalyzer.analyzeClass(bytes, c.getName());
+			actualAnalyzer.analyzeClass(bytes, c.getName());
+		}
+
+		final IBundleCoverage e = expected.getBundle("bundle");
+		final IBundleCoverage a = coverageBuilder.getBundle("bundle");
+		assertNode(e, a);
+		assertEquals(e.getPackages().size(), a.getPackages().size());
+		for (final IPackageCoverage ep : e.getPackages()) {
+			final IPackageCoverage ap = find(a.getPackages(), ep.getName());
+			assertNode(ep, ap);
+			assertEquals(ep.getClasses().size(), ap.getClasses().size());
+			for (final IClassCoverage ec : ep.getClasses()) {
+				assertClass(ec, find(ap.getClasses(), ec.getName()));
+			}
+			assertEquals(ep.getSourceFiles().size(),
+					ap.getSourceFiles().size());
+			for (final ISourceFileCoverage es : ep.getSourceFiles()) {
+				final ISourceFileCoverage as = find(ap.getSourceFiles(),
+						es.getName());
+				assertSourceNode(es, as);
+				assertEquals(es.getPackageName(), as.getPackageName());
+			}
+		}
+	}
+
+	@Test
+	public void should_create_missed_class() {
+		final MethodCoverageImpl method = new MethodCoverageImpl("doit", "()V",
+				null);
+		method.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 6);
+		method.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 7);
+		method.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 8);
+		method.incrementMethodCounter();
+		addClass(123L, false, "Sample", null, method);
+
+		final Collection<IClassCoverage> classes = coverageBuilder.getClasses();
+		assertEquals(1, classes.size());
+		IClassCoverage c = classes.iterator().next();
+		assertEquals("Sample", c.getName());
+		assertEquals(CounterImpl.COUNTER_1_0, c.getClassCounter());
+		assertEquals(CounterImpl.COUNTER_1_0, c.getMethodCounter());
+		assertEquals(CounterImpl.getInstance(3, 0), c.getLineCounter());
+
+		final Collection<IMethodCoverage> methods = c.getMethods();
+		assertEquals(1, methods.size());
+		IMethodCoverage m = methods.iterator().next();
+		assertEquals("doit", m.getName());
+		assertEquals("()V", m.getDesc());
+		assertEquals(CounterImpl.COUNTER_1_0, m.getMethodCounter());
+		assertEquals(CounterImpl.getInstance(3, 0), m.getLineCounter());
+	}
+
+	@Test
+	public void should_not_ignore_empty_classes() {
+		addClass(123L, false, "Empty", null);
+
+		assertEquals(1, coverageBuilder.getClasses().size());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void should_throw_IllegalStateException_for_different_classes_with_same_name() {
+		MethodCoverageImpl method = new MethodCoverageImpl("doit", "()V", null);
+		method.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 3);
+		addClass(123L, false, "Sample", null, method);
+
+		method = new MethodCoverageImpl("doit", "()V", null);
+		method.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 3);
+		addClass(345L, false, "Sample", null, method);
+	}
+
+	@Test
+	public void should_replace_identical_classes() {
+		MethodCoverageImpl method = new MethodCoverageImpl("doit", "()V", null);
+		method.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 3);
+		addClass(123L, false, "Sample", "Sample.java", method);
+
+		method = new MethodCoverageImpl("doit", "()V", null);
+		method.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 3);
+		addClass(123L, false, "Sample", "Sample.java", method);
+
+		assertEquals(1, coverageBuilder.getClasses().size());
+		final Collection<ISourceFileCoverage> sourcefiles = coverageBuilder
+				.getSourceFiles();
+		assertEquals(1, sourcefiles.size());
+		assertEquals(CounterImpl.COUNTER_1_0,
+				sourcefiles.iterator().next().getClassCounter());
+	}
+
+	@Test
+	public void should_create_source_files() {
+		final MethodCoverageImpl method1 = new MethodCoverageImpl("doit", "()V",
+				null);
+		method1.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 3);
+		addClass(123L, false, "Sample", "Sample.java", method1);
+
+		final MethodCoverageImpl method2 = new MethodCoverageImpl("doit", "()V",
+				null);
+		method2.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0, 6);
+		method2.incrementMethodCounter();
+		addClass(234L, false, "Second", "Sample.java", method2);
+
+		addClass(345L, false, "NoSource", null, method2);
+
+		final Collection<ISourceFileCoverage> sourcefiles = coverageBuilder
+				.getSourceFiles();
+		assertEquals(1, sourcefiles.size());
+		final ISourceFileCoverage s = sourcefiles.iterator().next();
+		assertEquals(ICoverageNode.ElementType.SOURCEFILE,
+				s.getElementType());
+		assertEquals("Sample.java", s.getName());
+		assertEquals("", s.getPackageName());
+		assertEquals(CounterImpl.getInstance(1, 1), s.getClassCounter());
+		assertEquals(CounterImpl.getInstance(1, 1), s.getLineCounter());
+		assertEquals(3, s.getFirstLine());
+		assertEquals(6, s.getLastLine());
+		assertEquals(CounterImpl.COUNTER_0_1,
+				s.getLine(6).getInstructionCounter());
+	}
+
+	@Test
+	public void should_create_bundle() {
+		final MethodCoverageImpl method1 = new MethodCoverageImpl("doit", "()V",
+				null);
+		method1.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 3);
+		addClass(1, false, "org/jacoco/examples/Sample1", null, method1);
+
+		final MethodCoverageImpl method2 = new MethodCoverageImpl("doit", "()V",
+				null);
+		method2.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 6);
+		addClass(2, false, "org/jacoco/examples/Sample2", null, method2);
+
+		final MethodCoverageImpl method3 = new MethodCoverageImpl("doit", "()V",
+				null);
+		method3.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 1);
+		addClass(3, false, "Sample3", null, method3);
+
+		final IBundleCoverage bundle = coverageBuilder.getBundle("testbundle");
+		assertEquals("testbundle", bundle.getName());
+		assertEquals(CounterImpl.getInstance(3, 0),
+				bundle.getInstructionCounter());
+
+		final Map<String, IPackageCoverage> packagesByName = new HashMap<String, IPackageCoverage>();
+		for (IPackageCoverage p : bundle.getPackages()) {
+			packagesByName.put(p.getName(), p);
+		}
+		assertEquals(2, packagesByName.size());
+		assertEquals(
+				new HashSet<String>(Arrays.asList("org/jacoco/examples/Sample1",
+						"org/jacoco/examples/Sample2")),
+				getNames(packagesByName.get("org/jacoco/examples")
+						.getClasses()));
+		assertEquals(Collections.singleton("Sample3"),
+				getNames(packagesByName.get("").getClasses()));
+	}
+
+	@Test
+	public void should_return_no_match_classes() {
+		MethodCoverageImpl m = new MethodCoverageImpl("doit", "()V", null);
+		m.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 1);
+		addClass(1, true, "Sample1", null, m);
+
+		m = new MethodCoverageImpl("doit", "()V", null);
+		m.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 3);
+		addClass(3, false, "Sample3", null, m);
+
+		assertEquals(Collections.singleton("Sample1"),
+				getNames(coverageBuilder.getNoMatchClasses()));
+	}
+
+	@Test
+	public void should_apply_fragments() {
+		coverageBuilder.visitCoverage(new ClassCoverageImpl("FooKt", 0, false) {
+			{
+				setSourceFileName("Foo.kt");
+				addMethod(new MethodCoverageImpl("foo", "()V", null) {
+					{
+						increment(CounterImpl.COUNTER_1_0,
+								CounterImpl.COUNTER_0_0, 42);
+						incrementMethodCounter();
+					}
+				});
+			}
+		});
+		coverageBuilder.visitCoverage(new ClassCoverageImpl("BarKt", 1, false) {
+			{
+				setFragments(Collections.<SourceNodeImpl> singletonList(
+						new SourceNodeImpl(null, "FooKt") {
+							{
+								increment(CounterImpl.COUNTER_0_1,
+										CounterImpl.COUNTER_0_0, 42);
+							}
+						}));
+			}
+		});
+
+		// Fragments must not be applied twice:
+		coverageBuilder.getClasses();
+		coverageBuilder.visitCoverage(new ClassCoverageImpl("Baz", 2, false));
+
+		final IClassCoverage c = find(coverageBuilder.getClasses(), "FooKt");
+		assertEquals(CounterImpl.COUNTER_0_1, c.getClassCounter());
+		assertEquals(CounterImpl.COUNTER_0_1, c.getInstructionCounter());
+		final IMethodCoverage m = c.getMethods().iterator().next();
+		assertEquals(CounterImpl.COUNTER_0_1, m.getMethodCounter());
+		assertEquals(CounterImpl.COUNTER_0_1, m.getComplexityCounter());
+
+		final ISourceFileCoverage s = coverageBuilder.getSourceFiles()
+				.iterator().next();
+		assertEquals(CounterImpl.COUNTER_0_1, s.getClassCounter());
+		assertEquals(CounterImpl.COUNTER_0_1, s.getLineCounter());
+	}
+
+	@Test
+	public void should_create_plain_copies() {
+		final MethodCoverageImpl method = new MethodCoverageImpl("doit", "()V",
+				null);
+		method.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0, 6);
+		method.incrementMethodCounter();
+		addClass(123L, false, "Sample", null, method);
+
+		final IClassCoverage c = coverageBuilder.getClasses().iterator()
+				.next();
+		final ICoverageNode copy = c.getPlainCopy();
+
+		assertEquals(ICoverageNode.ElementType.CLASS, copy.getElementType());
+		assertEquals("Sample", copy.getName());
+		for (final ICoverageNode.CounterEntity entity : ICoverageNode.CounterEntity
+				.values()) {
+			assertEquals(c.getCounter(entity), copy.getCounter(entity));
+		}
+		assertTrue(c.containsCode());
+		assertEquals("Sample [CLASS]", c.toString());
+	}
+
+	private static void assertNode(final ICoverageNode expected,
+			final ICoverageNode actual) {
+		final String name = expected.getName();
+		assertEquals(name, actual.getName());
+		assertEquals(name, expected.getElementType(), actual.getElementType());
+		for (final ICoverageNode.CounterEntity entity : ICoverageNode.CounterEntity
+				.values()) {
+			assertEquals(name + " " + entity, expected.getCounter(entity),
+					actual.getCounter(entity));
+		}
+		assertEquals(name, expected.containsCode(), actual.containsCode());
+	}
+
+	private static void assertClass(final IClassCoverage expected,
+			final IClassCoverage actual) {
+		assertSourceNode(expected, actual);
+		assertEquals(expected.getId(), actual.getId());
+		assertEquals(expected.isNoMatch(), actual.isNoMatch());
+		assertEquals(expected.getSignature(), actual.getSignature());
+		assertEquals(expected.getSuperName(), actual.getSuperName());
+		assertEquals(Arrays.asList(expected.getInterfaceNames()),
+				Arrays.asList(actual.getInterfaceNames()));
+		assertEquals(expected.getPackageName(), actual.getPackageName());
+		assertEquals(expected.getSourceFileName(),
+				actual.getSourceFileName());
+		assertEquals(expected.getMethods().size(), actual.getMethods().size());
+		final Iterator<IMethodCoverage> methods = actual.getMethods()
+				.iterator();
+		for (final IMethodCoverage e : expected.getMethods()) {
+			final IMethodCoverage a = methods.next();
+			assertSourceNode(e, a);
+			assertEquals(e.getDesc(), a.getDesc());
+			assertEquals(e.getSignature(), a.getSignature());
+		}
+	}
+
+	private static void assertSourceNode(final ISourceNode expected,
+			final ISourceNode actual) {
+		assertNode(expected, actual);
+		final String name = expected.getName();
+		assertEquals(name, expected.getFirstLine(), actual.getFirstLine());
+		assertEquals(name, expected.getLastLine(), actual.getLastLine());
+		for (int nr = expected.getFirstLine() - 1; nr <= expected
+				.getLastLine() + 1; nr++) {
+			assertEquals(name + ":" + nr, expected.getLine(nr),
+					actual.getLine(nr));
+			assertEquals(name + ":" + nr, expected.getExecutionCount(nr),
+					actual.getExecutionCount(nr));
+		}
+	}
+
+	private static <T extends ICoverageNode> T find(final Collection<T> nodes,
+			final String name) {
+		for (final T n : nodes) {
+			if (n.getName().equals(name)) {
+				return n;
+			}
+		}
+		throw new AssertionError(name);
+	}
+
+	private Set<String> getNames(Collection<? extends ICoverageNode> nodes) {
+		Set<String> result = new HashSet<String>();
+		for (ICoverageNode n : nodes) {
+			result.add(n.getName());
+		}
+		return result;
+	}
+
+	private void addClass(long id, boolean nomatch, String name, String source,
+			MethodCoverageImpl... methods) {
+		final ClassCoverageImpl coverage = new ClassCoverageImpl(name, id,
+				nomatch);
+		coverage.setSourceFileName(source);
+		for (MethodCoverageImpl m : methods) {
+			coverage.addMethod(m);
+		}
+		coverageBuilder.visitCoverage(coverage);
+	}
+}
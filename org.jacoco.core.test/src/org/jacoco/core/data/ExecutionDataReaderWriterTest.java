@@ -15,6 +15,7 @@ package org.jacoco.core.data;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -283,6 +284,100 @@ public class ExecutionDataReaderWriterTest {
 		assertArrayEquals(data, store.get(123).getProbes());
 	}
 
+	@Test
+	public void testClassWithCounts() throws IOException {
+		final boolean[] data = new boolean[] { true, false, true };
+		final long[] counts = new long[] { 1, 0, Long.MAX_VALUE };
+		writer.visitClassExecution(
+				new ExecutionData(3, "Sample", data, counts));
+		writer.visitClassExecution(
+				new ExecutionData(4, "Sample", createData(15)));
+		assertFalse(createReaderWithVisitors().read());
+		assertArrayEquals(data, store.get(3).getProbes());
+		assertArrayEquals(counts, store.get(3).getCounts());
+		assertNull(store.get(4).getCounts());
+	}
+
+	@Test
+	public void testClassWithCountsDeclaresExtendedVersion()
+			throws IOException {
+		final int first = buffer.size();
+		writer.visitClassExecution(new ExecutionData(3, "Sample",
+				new boolean[] { true }, new long[] { 1 }));
+		final int second = buffer.size();
+		writer.visitClassExecution(new ExecutionData(4, "Sample",
+				new boolean[] { true }, new long[] { 2 }));
+
+		final byte[] bytes = buffer.toByteArray();
+		assertEquals(ExecutionDataWriter.BLOCK_HEADER, bytes[first]);
+		final char version = ExecutionDataWriter.EXTENDED_FORMAT_VERSION;
+		assertEquals(version >> 8, 0xFF & bytes[first + 3]);
+		assertEquals(version & 0xFF, 0xFF & bytes[first + 4]);
+		assertEquals(ExecutionDataWriter.BLOCK_EXECUTIONCOUNTS,
+				bytes[first + 5]);
+		assertEquals(ExecutionDataWriter.BLOCK_EXECUTIONCOUNTS,
+				bytes[second]);
+	}
+
+	@Test
+	public void testClassWithoutCountsKeepsFormatVersion()
+			throws IOException {
+		final int first = buffer.size();
+		writer.visitClassExecution(
+				new ExecutionData(3, "Sample", new boolean[] { true }));
+
+		assertEquals(ExecutionDataWriter.BLOCK_EXECUTIONDATA,
+				buffer.toByteArray()[first]);
+	}
+
+	@Test
+	public void testExtendedVersion() throws IOException {
+		buffer = new ByteArrayOutputStream();
+		buffer.write(ExecutionDataWriter.BLOCK_HEADER);
+		buffer.write(0xC0);
+		buffer.write(0xC0);
+		final char version = ExecutionDataWriter.EXTENDED_FORMAT_VERSION;
+		buffer.write(version >> 8);
+		buffer.write(version & 0xFF);
+		assertFalse(createReader().read());
+	}
+
+	@Test
+	public void testExecutionDataFilterWithCounts() throws IOException {
+		writer.visitClassExecution(new ExecutionData(333, "Sample1",
+				new boolean[] { true }, new long[] { 1000 }));
+		writer.visitClassExecution(new ExecutionData(-45, "Sample2",
+				new boolean[] { true }, new long[] { 2000 }));
+		final ExecutionDataReader reader = createReaderWithVisitors();
+		reader.setExecutionDataFilter(new IExecutionDataFilter() {
+			public boolean include(final long id) {
+				return id == -45;
+			}
+		});
+		assertFalse(reader.read());
+		assertNull(store.get(333));
+		assertArrayEquals(new long[] { 2000 }, store.get(-45).getCounts());
+	}
+
+	@Test
+	public void testExecutionDataFilter() throws IOException {
+		final boolean[] data1 = createData(15);
+		final boolean[] data2 = createData(185);
+		writer.visitClassExecution(new ExecutionData(333, "Sample1", data1));
+		writer.visitClassExecution(new ExecutionData(-45, "Sample2", data2));
+		writer.visitSessionInfo(new SessionInfo("Session", 1, 2));
+		final ExecutionDataReader reader = createReaderWithVisitors();
+		reader.setExecutionDataFilter(new IExecutionDataFilter() {
+			public boolean include(final long id) {
+				return id == -45;
+			}
+		});
+		assertFalse(reader.read());
+		assertNull(store.get(333));
+		assertArrayEquals(data2, store.get(-45).getProbes());
+		assertEquals("Session", sessionInfo.getId());
+	}
+
 	@Test(expected = RuntimeException.class)
 	public void testExecutionDataIOException() throws IOException {
 		final boolean[] broken = new boolean[1];
@@ -323,6 +418,11 @@ public class ExecutionDataReaderWriterTest {
 		assertTrue(Arrays.equals(expected, actual));
 	}
 
+	private void assertArrayEquals(final long[] expected,
+			final long[] actual) {
+		assertTrue(Arrays.equals(expected, actual));
+	}
+
 	protected ExecutionDataWriter createWriter(OutputStream out)
 			throws IOException {
 		return new ExecutionDataWriter(out);
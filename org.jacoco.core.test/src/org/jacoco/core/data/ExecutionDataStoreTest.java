@@ -52,6 +52,18 @@ public class ExecutionDataStoreTest implements IExecutionDataVisitor {
 		assertEquals(Collections.emptyMap(), dataOutput);
 	}
 
+	@Test
+	public void testContainsAfterPut() {
+		assertFalse(store.contains("Sample1"));
+
+		store.put(new ExecutionData(1000, "Sample1", new boolean[1]));
+		store.get(Long.valueOf(1001), "Sample2", 1);
+
+		assertTrue(store.contains("Sample1"));
+		assertTrue(store.contains("Sample2"));
+		assertFalse(store.contains("Sample3"));
+	}
+
 	@Test
 	public void testPut() {
 		final boolean[] probes = new boolean[] { false, false, true };
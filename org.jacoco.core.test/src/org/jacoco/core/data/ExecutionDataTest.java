@@ -12,8 +12,10 @@
  *******************************************************************************/
 package org.jacoco.core.data;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
@@ -42,6 +44,30 @@ public class ExecutionDataTest {
 		assertEquals(5, e.getId());
 		assertEquals("Example", e.getName());
 		assertSame(data, e.getProbes());
+		assertNull(e.getCounts());
+	}
+
+	@Test
+	public void testGettersWithCounts() {
+		final boolean[] data = new boolean[] { true };
+		final long[] counts = new long[] { 42 };
+		final ExecutionData e = new ExecutionData(5, "Example", data, counts);
+		assertSame(data, e.getProbes());
+		assertSame(counts, e.getCounts());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCreateWithIncompatibleCounts() {
+		new ExecutionData(5, "Example", new boolean[2], new long[3]);
+	}
+
+	@Test
+	public void testResetWithCounts() {
+		final ExecutionData e = new ExecutionData(5, "Example",
+				new boolean[] { true, false }, new long[] { 7, 0 });
+		e.reset();
+		assertFalse(e.getProbes()[0]);
+		assertArrayEquals(new long[] { 0, 0 }, e.getCounts());
 	}
 
 	@Test
@@ -91,6 +117,40 @@ public class ExecutionDataTest {
 		assertTrue(b.getProbes()[3]);
 	}
 
+	@Test
+	public void testMergeCounts() {
+		final ExecutionData a = new ExecutionData(5, "Example",
+				new boolean[] { false, true, true }, new long[] { 0, 1, 2 });
+		final ExecutionData b = new ExecutionData(5, "Example",
+				new boolean[] { true, false, true }, new long[] { 3, 0, 4 });
+		a.merge(b);
+
+		assertArrayEquals(new long[] { 3, 1, 6 }, a.getCounts());
+		assertArrayEquals(new long[] { 3, 0, 4 }, b.getCounts());
+	}
+
+	@Test
+	public void testMergeCountsIntoDataWithoutCounts() {
+		final ExecutionData a = new ExecutionData(5, "Example",
+				new boolean[] { false, true });
+		final ExecutionData b = new ExecutionData(5, "Example",
+				new boolean[] { true, false }, new long[] { 3, 0 });
+		a.merge(b);
+
+		assertArrayEquals(new long[] { 3, 0 }, a.getCounts());
+	}
+
+	@Test
+	public void testMergeSubtractCounts() {
+		final ExecutionData a = new ExecutionData(5, "Example",
+				new boolean[] { true, true }, new long[] { 1, 2 });
+		final ExecutionData b = new ExecutionData(5, "Example",
+				new boolean[] { false, true });
+		a.merge(b, false);
+
+		assertArrayEquals(new long[] { 1, 0 }, a.getCounts());
+	}
+
 	@Test
 	public void testMergeSubtract() {
 		final ExecutionData a = new ExecutionData(5, "Example",
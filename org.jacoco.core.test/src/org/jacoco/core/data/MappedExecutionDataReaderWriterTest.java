@@ -0,0 +1,311 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link MappedExecutionDataWriter} and
+ * {@link MappedExecutionDataReader}.
+ */
+public class MappedExecutionDataReaderWriterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File file;
+
+	private MappedExecutionDataWriter writer;
+
+	private SessionInfoStore infos;
+
+	private ExecutionDataStore store;
+
+	@Before
+	public void setup() throws IOException {
+		file = new File(folder.getRoot(), "jacoco.mmap");
+		writer = new MappedExecutionDataWriter(file);
+		infos = new SessionInfoStore();
+		store = new ExecutionDataStore();
+	}
+
+	@After
+	public void teardown() throws IOException {
+		if (writer != null) {
+			writer.close();
+		}
+	}
+
+	@Test
+	public void should_read_empty_file() throws IOException {
+		read();
+
+		assertEquals(1, infos.getInfos().size());
+		assertEquals("", infos.getInfos().get(0).getId());
+		assertEquals(0, store.getContents().size());
+	}
+
+	@Test
+	public void should_read_session_info() throws IOException {
+		writer.visitSessionInfo(new SessionInfo("sess\u00f6n", 123, 456));
+
+		read();
+
+		final SessionInfo info = infos.getInfos().get(0);
+		assertEquals("sess\u00f6n", info.getId());
+		assertEquals(123, info.getStartTimeStamp());
+		assertEquals(456, info.getDumpTimeStamp());
+	}
+
+	@Test
+	public void should_truncate_long_session_id() throws IOException {
+		final StringBuilder id = new StringBuilder();
+		for (int i = 0; i < 300; i++) {
+			id.append('x');
+		}
+		writer.visitSessionInfo(new SessionInfo(id.toString(), 1, 2));
+
+		read();
+
+		assertEquals(id.substring(0,
+				MappedExecutionDataWriter.SESSION_ID_CAPACITY),
+				infos.getInfos().get(0).getId());
+	}
+
+	@Test
+	public void should_read_execution_data() throws IOException {
+		final boolean[] probes = new boolean[] { true, false, false, true,
+				false, false, false, false, false, true };
+		writer.visitClassExecution(
+				new ExecutionData(0x1234, "org/Foo\u00e4", probes));
+		writer.visitClassExecution(new ExecutionData(0x5678, "Bar",
+				new boolean[] { true, true }, new long[] { 3, 0x100000000L }));
+
+		read();
+
+		final ExecutionData foo = store.get(0x1234);
+		assertEquals("org/Foo\u00e4", foo.getName());
+		assertArrayEquals(probes, foo.getProbes());
+		assertNull(foo.getCounts());
+		final ExecutionData bar = store.get(0x5678);
+		assertArrayEquals(new boolean[] { true, true }, bar.getProbes());
+		assertArrayEquals(new long[] { 3, 0x100000000L }, bar.getCounts());
+	}
+
+	@Test
+	public void should_merge_record_of_same_class() throws IOException {
+		writer.visitClassExecution(new ExecutionData(0x1234, "Foo",
+				new boolean[] { true, false, false },
+				new long[] { 1, 0, 0 }));
+		writer.visitClassExecution(new ExecutionData(0x1234, "Foo",
+				new boolean[] { true, true, false },
+				new long[] { 2, 7, 0 }));
+
+		read();
+
+		assertEquals(1, store.getContents().size());
+		final ExecutionData foo = store.get(0x1234);
+		assertArrayEquals(new boolean[] { true, true, false },
+				foo.getProbes());
+		assertArrayEquals(new long[] { 3, 7, 0 }, foo.getCounts());
+	}
+
+	@Test
+	public void should_grow_file() throws IOException {
+		for (int i = 0; i < 5000; i++) {
+			final boolean[] probes = new boolean[100];
+			probes[i % 100] = true;
+			writer.visitClassExecution(
+					new ExecutionData(i, "Class" + i, probes));
+		}
+
+		read();
+
+		assertEquals(5000, store.getContents().size());
+		assertEquals("Class4321", store.get(4321).getName());
+		assertEquals(true, store.get(4321).getProbes()[21]);
+	}
+
+	@Test
+	public void should_throw_IllegalStateException_when_probe_count_differs() {
+		writer.visitClassExecution(
+				new ExecutionData(0x1234, "Foo", new boolean[2]));
+		try {
+			writer.visitClassExecution(
+					new ExecutionData(0x1234, "Foo", new boolean[3]));
+			fail("IllegalStateException expected");
+		} catch (final IllegalStateException e) {
+			assertEquals(
+					"Incompatible execution data for class Foo with id 0000000000001234.",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void should_throw_IOException_when_file_is_locked() {
+		try {
+			new MappedExecutionDataWriter(file);
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals(String.format(
+					"File %s is locked by another writer.", file),
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void should_merge_into_existing_file_in_append_mode()
+			throws IOException {
+		writer.visitSessionInfo(new SessionInfo("s1", 1, 2));
+		writer.visitClassExecution(new ExecutionData(0x1234, "Foo",
+				new boolean[] { true, false }, new long[] { 5, 0 }));
+		writer.close();
+
+		writer = new MappedExecutionDataWriter(file, true);
+		writer.visitSessionInfo(new SessionInfo("s2", 3, 4));
+		writer.visitClassExecution(new ExecutionData(0x1234, "Foo",
+				new boolean[] { false, true }, new long[] { 0, 2 }));
+		writer.visitClassExecution(
+				new ExecutionData(0x5678, "Bar", new boolean[] { true }));
+
+		read();
+
+		assertEquals("s2", infos.getInfos().get(0).getId());
+		assertEquals(2, store.getContents().size());
+		final ExecutionData foo = store.get(0x1234);
+		assertArrayEquals(new boolean[] { true, true }, foo.getProbes());
+		assertArrayEquals(new long[] { 5, 2 }, foo.getCounts());
+		assertArrayEquals(new boolean[] { true },
+				store.get(0x5678).getProbes());
+	}
+
+	@Test
+	public void should_discard_existing_content_without_append_mode()
+			throws IOException {
+		writer.visitClassExecution(
+				new ExecutionData(0x1234, "Foo", new boolean[] { true }));
+		writer.close();
+
+		writer = new MappedExecutionDataWriter(file, false);
+
+		read();
+
+		assertEquals(0, store.getContents().size());
+	}
+
+	@Test
+	public void should_ignore_incomplete_record_in_append_mode()
+			throws IOException {
+		writer.close();
+		// Garbage after the last record like from a killed process:
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.seek(MappedExecutionDataWriter.HEADER_SIZE);
+		for (int i = 0; i < 100; i++) {
+			raf.write(0xFF);
+		}
+		raf.close();
+
+		writer = new MappedExecutionDataWriter(file, true);
+		writer.visitClassExecution(new ExecutionData(0x1234, "Foo",
+				new boolean[] { false, true }));
+
+		read();
+
+		assertArrayEquals(new boolean[] { false, true },
+				store.get(0x1234).getProbes());
+	}
+
+	@Test
+	public void should_throw_IOException_for_invalid_file_in_append_mode()
+			throws IOException {
+		writer.close();
+		writer = null;
+		final OutputStream out = new FileOutputStream(file);
+		out.write(new byte[MappedExecutionDataWriter.HEADER_SIZE]);
+		out.close();
+
+		try {
+			new MappedExecutionDataWriter(file, true);
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals(String.format(
+					"Invalid mapped execution data file %s.", file),
+					e.getMessage());
+		}
+		// The file has been released:
+		new MappedExecutionDataWriter(file, false).close();
+	}
+
+	@Test
+	public void read_should_throw_IOException_when_magic_number_is_invalid() {
+		final MappedExecutionDataReader reader = new MappedExecutionDataReader(
+				new ByteArrayInputStream(new byte[] { 1, 2, 3, 4 }));
+		try {
+			reader.read();
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Invalid mapped execution data file.",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void read_should_throw_IOException_when_version_is_unsupported() {
+		final MappedExecutionDataReader reader = new MappedExecutionDataReader(
+				new ByteArrayInputStream(new byte[] { (byte) 0xC0, (byte) 0xC0,
+						0x4D, 0x4D, 0x00, 0x02 }));
+		try {
+			reader.read();
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Unsupported mapped execution data version 0x2.",
+					e.getMessage());
+		}
+	}
+
+	/**
+	 * Reads the file while the writer is still open, like after a crash of the
+	 * writing process.
+	 */
+	private void read() throws IOException {
+		final InputStream in = new FileInputStream(file);
+		try {
+			final MappedExecutionDataReader reader = new MappedExecutionDataReader(
+					in);
+			reader.setSessionInfoVisitor(infos);
+			reader.setExecutionDataVisitor(store);
+			reader.read();
+		} finally {
+			in.close();
+		}
+	}
+
+}
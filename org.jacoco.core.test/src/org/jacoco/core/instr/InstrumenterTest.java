@@ -15,6 +15,7 @@ package org.jacoco.core.instr;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
@@ -25,7 +26,11 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.zip.CRC32;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
@@ -35,17 +40,29 @@ import java.util.zip.ZipOutputStream;
 
 import org.jacoco.core.JaCoCo;
 import org.jacoco.core.analysis.AnalyzerTest;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.internal.InputStreams;
 import org.jacoco.core.internal.Pack200Streams;
 import org.jacoco.core.internal.data.CRC64;
 import org.jacoco.core.internal.instr.InstrSupport;
 import org.jacoco.core.runtime.IExecutionDataAccessorGenerator;
+import org.jacoco.core.runtime.IRuntime;
+import org.jacoco.core.runtime.LoggerRuntime;
+import org.jacoco.core.runtime.RuntimeData;
 import org.jacoco.core.test.TargetLoader;
 import org.junit.AssumptionViolatedException;
 import org.junit.Before;
 import org.junit.Test;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
 
 /**
  * Unit tests for {@link Instrumenter}.
@@ -160,6 +177,236 @@ public class InstrumenterTest {
 		}
 	}
 
+	@Test
+	public void instrumentWithoutProbes_should_create_class_with_same_members()
+			throws Exception {
+		final byte[] original = TargetLoader
+				.getClassDataAsBytes(SerializationTarget.class);
+
+		final ClassNode instrumented = read(
+				instrumenter.instrument(original, "Test"));
+		final ClassNode withoutProbes = read(
+				instrumenter.instrumentWithoutProbes(original, "Test"));
+
+		assertEquals(getMembers(instrumented), getMembers(withoutProbes));
+	}
+
+	@Test
+	public void instrumentWithoutProbes_should_keep_original_method_code()
+			throws Exception {
+		final byte[] original = TargetLoader
+				.getClassDataAsBytes(SerializationTarget.class);
+
+		final ClassNode expected = read(original);
+		final ClassNode actual = read(
+				instrumenter.instrumentWithoutProbes(original, "Test"));
+
+		for (final MethodNode m : expected.methods) {
+			assertEquals(m.name, m.instructions.size(),
+					getMethod(actual, m.name).instructions.size());
+		}
+	}
+
+	@Test
+	public void instrumentWithoutProbes_should_create_executable_class()
+			throws Exception {
+		final byte[] bytes = instrumenter.instrumentWithoutProbes(
+				TargetLoader.getClassDataAsBytes(SerializationTarget.class),
+				"Test");
+		final TargetLoader loader = new TargetLoader();
+		final Class<?> clazz = loader.add(SerializationTarget.class, bytes);
+
+		final Object obj = clazz.getConstructor(String.class, Integer.TYPE)
+				.newInstance("Hello", Integer.valueOf(42));
+
+		assertEquals("Hello42", obj.toString());
+	}
+
+	@Test
+	public void instrumentWithoutProbes_should_throw_exception_for_broken_class()
+			throws IOException {
+		final byte[] brokenclass = TargetLoader
+				.getClassDataAsBytes(AnalyzerTest.class);
+		brokenclass[10] = 0x23;
+		try {
+			instrumenter.instrumentWithoutProbes(brokenclass, "Broken.class");
+			fail("exception expected");
+		} catch (final IOException e) {
+			assertExceptionMessage("Broken.class", e);
+		}
+	}
+
+	@Test
+	public void setGranularity_should_use_specific_class_id()
+			throws Exception {
+		final byte[] original = TargetLoader
+				.getClassDataAsBytes(SerializationTarget.class);
+		instrumenter.setGranularity(Granularity.LINE);
+
+		instrumenter.instrument(original, "Test");
+
+		assertEquals(CRC64.classId(original, Granularity.LINE),
+				accessorGenerator.classId);
+	}
+
+	@Test
+	public void setGranularity_should_record_method_entries()
+			throws Exception {
+		final boolean[] probes = execute(Granularity.METHOD);
+
+		// constructor executed, toString() not executed
+		assertArrayEquals(new boolean[] { true, false }, probes);
+	}
+
+	@Test
+	public void setGranularity_should_record_lines() throws Exception {
+		final boolean[] probes = execute(Granularity.LINE);
+
+		// four lines of constructor executed, toString() not executed
+		assertArrayEquals(new boolean[] { true, true, true, true, false },
+				probes);
+	}
+
+	@Test
+	public void setMinimizeProbes_should_omit_implied_probes()
+			throws Exception {
+		final byte[] original = TargetLoader
+				.getClassDataAsBytes(CRC64.class);
+		final int all = countProbes(instrumenter.instrument(original, "Test"));
+
+		instrumenter.setMinimizeProbes(true);
+		final int minimized = countProbes(
+				instrumenter.instrument(original, "Test"));
+
+		assertTrue(minimized < all);
+		assertEquals(CRC64.classId(original, Granularity.BRANCH, true),
+				accessorGenerator.classId);
+	}
+
+	private static int countProbes(final byte[] bytes) {
+		int count = 0;
+		for (final MethodNode m : read(bytes).methods) {
+			for (final AbstractInsnNode i : m.instructions) {
+				if (i.getOpcode() == Opcodes.BASTORE) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void setConditionalProbes_should_record_probes()
+			throws Exception {
+		final boolean[] probes = execute(Granularity.BRANCH, true);
+
+		assertArrayEquals(execute(Granularity.BRANCH, false), probes);
+	}
+
+	@Test
+	public void setExecutionCounts_should_throw_IllegalStateException_when_runtime_does_not_support_counters() {
+		try {
+			instrumenter.setExecutionCounts(true);
+			fail("IllegalStateException expected");
+		} catch (final IllegalStateException e) {
+			assertEquals("Runtime does not support execution counts.",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void setExecutionCounts_should_count_executions() throws Exception {
+		final RuntimeData data = new RuntimeData();
+		final IRuntime runtime = new LoggerRuntime();
+		runtime.startup(data);
+		try {
+			final Instrumenter instrumenter = new Instrumenter(runtime);
+			instrumenter.setExecutionCounts(true);
+			final byte[] original = TargetLoader
+					.getClassDataAsBytes(SerializationTarget.class);
+			final Class<?> clazz = new TargetLoader().add(
+					SerializationTarget.class,
+					instrumenter.instrument(original, "Test"));
+
+			for (int i = 0; i < 3; i++) {
+				clazz.getConstructor(String.class, Integer.TYPE)
+						.newInstance("Hello", Integer.valueOf(42));
+			}
+
+			final ExecutionDataStore store = new ExecutionDataStore();
+			data.collect(store, new SessionInfoStore(), false);
+			final ExecutionData executionData = store
+					.get(CRC64.classId(original));
+			assertArrayEquals(execute(Granularity.BRANCH),
+					executionData.getProbes());
+			final long[] counts = executionData.getCounts();
+			for (int i = 0; i < counts.length; i++) {
+				assertEquals(executionData.getProbes()[i] ? 3 : 0, counts[i]);
+			}
+		} finally {
+			runtime.shutdown();
+		}
+	}
+
+	private boolean[] execute(final Granularity granularity)
+			throws Exception {
+		return execute(granularity, false);
+	}
+
+	private boolean[] execute(final Granularity granularity,
+			final boolean conditionalProbes) throws Exception {
+		final RuntimeData data = new RuntimeData();
+		final IRuntime runtime = new LoggerRuntime();
+		runtime.startup(data);
+		try {
+			final Instrumenter instrumenter = new Instrumenter(runtime);
+			instrumenter.setGranularity(granularity);
+			instrumenter.setConditionalProbes(conditionalProbes);
+			final byte[] original = TargetLoader
+					.getClassDataAsBytes(SerializationTarget.class);
+			final Class<?> clazz = new TargetLoader().add(
+					SerializationTarget.class,
+					instrumenter.instrument(original, "Test"));
+
+			clazz.getConstructor(String.class, Integer.TYPE)
+					.newInstance("Hello", Integer.valueOf(42));
+
+			final ExecutionDataStore store = new ExecutionDataStore();
+			data.collect(store, new SessionInfoStore(), false);
+			return store.get(CRC64.classId(original, granularity))
+					.getProbes();
+		} finally {
+			runtime.shutdown();
+		}
+	}
+
+	private static ClassNode read(final byte[] bytes) {
+		final ClassNode node = new ClassNode();
+		new ClassReader(bytes).accept(node, 0);
+		return node;
+	}
+
+	private static List<String> getMembers(final ClassNode node) {
+		final List<String> members = new ArrayList<String>();
+		for (final FieldNode f : node.fields) {
+			members.add(f.access + " " + f.name + " " + f.desc);
+		}
+		for (final MethodNode m : node.methods) {
+			members.add(m.access + " " + m.name + m.desc);
+		}
+		return members;
+	}
+
+	private static MethodNode getMethod(final ClassNode node,
+			final String name) {
+		for (final MethodNode m : node.methods) {
+			if (m.name.equals(name)) {
+				return m;
+			}
+		}
+		throw new AssertionError(name);
+	}
+
 	private static class BrokenInputStream extends InputStream {
 		@Override
 		public int read() throws IOException {
@@ -421,6 +668,96 @@ public class InstrumenterTest {
 	 * Triggers exception in
 	 * {@link Instrumenter#instrumentGzip(InputStream, OutputStream, String)}.
 	 */
+	@Test
+	public void instrumentAll_should_create_same_archive_when_executor_is_set()
+			throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ZipOutputStream zipout = new ZipOutputStream(buffer);
+		final Class<?>[] classes = new Class<?>[] { InstrumenterTest.class,
+				Instrumenter.class, AnalyzerTest.class, CRC64.class,
+				JaCoCo.class, TargetLoader.class };
+		for (int i = 0; i < classes.length; i++) {
+			final byte[] bytes = TargetLoader.getClassDataAsBytes(classes[i]);
+			final ZipEntry entry = new ZipEntry("Test" + i + ".class");
+			if (i % 2 == 0) {
+				entry.setMethod(ZipEntry.DEFLATED);
+			} else {
+				entry.setMethod(ZipEntry.STORED);
+				entry.setSize(bytes.length);
+				final CRC32 crc = new CRC32();
+				crc.update(bytes);
+				entry.setCrc(crc.getValue());
+			}
+			zipout.putNextEntry(entry);
+			zipout.write(bytes);
+		}
+		zipout.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+		zipout.write("Manifest-Version: 1.0\r\n".getBytes("UTF-8"));
+		zipout.putNextEntry(new ZipEntry("readme.txt"));
+		zipout.write("Hello".getBytes("UTF-8"));
+		zipout.finish();
+
+		final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		final int expectedCount = instrumenter.instrumentAll(
+				new ByteArrayInputStream(buffer.toByteArray()), expected,
+				"Test");
+		final ExecutorService executor = Executors.newFixedThreadPool(3);
+		final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		final int actualCount;
+		try {
+			instrumenter.setExecutor(executor);
+			actualCount = instrumenter.instrumentAll(
+					new ByteArrayInputStream(buffer.toByteArray()), actual,
+					"Test");
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(classes.length, expectedCount);
+		assertEquals(expectedCount, actualCount);
+		assertEquals(readEntries(expected.toByteArray()),
+				readEntries(actual.toByteArray()));
+	}
+
+	private static List<String> readEntries(final byte[] zip)
+			throws IOException {
+		final List<String> entries = new ArrayList<String>();
+		final ZipInputStream zipin = new ZipInputStream(
+				new ByteArrayInputStream(zip));
+		ZipEntry entry;
+		while ((entry = zipin.getNextEntry()) != null) {
+			entries.add(entry.getName() + ":" + entry.getMethod() + ":"
+					+ Arrays.toString(InputStreams.readFully(zipin)));
+		}
+		return entries;
+	}
+
+	@Test
+	public void instrumentAll_should_throw_exception_for_broken_class_when_executor_is_set()
+			throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		ZipOutputStream zipout = new ZipOutputStream(buffer);
+		zipout.putNextEntry(new ZipEntry("Test.class"));
+		final byte[] brokenclass = TargetLoader.getClassDataAsBytes(getClass());
+		brokenclass[10] = 0x23;
+		zipout.write(brokenclass);
+		zipout.finish();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		instrumenter.setExecutor(executor);
+
+		try {
+			instrumenter.instrumentAll(
+					new ByteArrayInputStream(buffer.toByteArray()), out,
+					"test.zip");
+			fail();
+		} catch (IOException e) {
+			assertExceptionMessage("test.zip@Test.class", e);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
 	@Test
 	public void testInstrumentAll_BrokenGZ() {
 		final byte[] buffer = new byte[] { 0x1f, (byte) 0x8b, 0x00, 0x00 };
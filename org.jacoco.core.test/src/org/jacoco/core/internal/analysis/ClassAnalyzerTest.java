@@ -16,11 +16,23 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.jacoco.core.analysis.ICoverageNode.CounterEntity;
+import org.jacoco.core.analysis.IMethodCoverage;
+import org.jacoco.core.analysis.ISourceNode;
+import org.jacoco.core.internal.analysis.filter.KotlinSMAP;
+import org.jacoco.core.internal.flow.ClassProbesAdapter;
+import org.jacoco.core.internal.flow.LabelFlowAnalyzer;
 import org.jacoco.core.internal.flow.MethodProbesVisitor;
 import org.jacoco.core.internal.instr.InstrSupport;
+import org.jacoco.core.test.TargetLoader;
 import org.junit.Before;
 import org.junit.Test;
 import org.objectweb.asm.Attribute;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.MethodNode;
@@ -200,4 +212,63 @@ public class ClassAnalyzerTest {
 		}
 	}
 
+
+	@Test(expected = IllegalStateException.class)
+	public void withoutProbes_should_throw_IllegalStateException_when_class_is_instrumented_with_init_method() {
+		analyzer.withoutProbes().visitMethod(InstrSupport.INITMETHOD_ACC,
+				InstrSupport.INITMETHOD_NAME, InstrSupport.INITMETHOD_DESC,
+				null, null);
+	}
+
+	@Test
+	public void withoutProbes_should_calculate_same_coverage_as_ClassProbesAdapter()
+			throws IOException {
+		for (final Class<?> c : Arrays.asList(ClassAnalyzer.class,
+				MethodAnalyzer.class, Instructions.class,
+				LabelFlowAnalyzer.class, KotlinSMAP.class)) {
+			final byte[] bytes = TargetLoader.getClassDataAsBytes(c);
+			final ClassReader reader = InstrSupport.classReaderFor(bytes);
+			final ClassCoverageImpl expected = new ClassCoverageImpl(
+					reader.getClassName(), 0, false);
+			reader.accept(new ClassProbesAdapter(
+					new ClassAnalyzer(expected, null, new StringPool()), false),
+					0);
+			final ClassCoverageImpl actual = new ClassCoverageImpl(
+					reader.getClassName(), 0, false);
+			reader.accept(new ClassAnalyzer(actual, null, new StringPool())
+					.withoutProbes(), 0);
+
+			assertEquals(expected.getMethods().size(),
+					actual.getMethods().size());
+			final Iterator<IMethodCoverage> e = expected.getMethods()
+					.iterator();
+			final Iterator<IMethodCoverage> a = actual.getMethods().iterator();
+			while (e.hasNext()) {
+				assertNode(e.next(), a.next());
+			}
+			assertNode(expected, actual);
+		}
+	}
+
+	private static void assertNode(final ISourceNode expected,
+			final ISourceNode actual) {
+		final String name = expected.getName();
+		assertEquals(name, actual.getName());
+		for (final CounterEntity entity : CounterEntity.values()) {
+			assertEquals(name + " " + entity, expected.getCounter(entity),
+					actual.getCounter(entity));
+		}
+		assertEquals(name, expected.getFirstLine(), actual.getFirstLine());
+		assertEquals(name, expected.getLastLine(), actual.getLastLine());
+		for (int nr = expected.getFirstLine(); nr <= expected
+				.getLastLine(); nr++) {
+			assertEquals(name + ":" + nr,
+					expected.getLine(nr).getInstructionCounter(),
+					actual.getLine(nr).getInstructionCounter());
+			assertEquals(name + ":" + nr,
+					expected.getLine(nr).getBranchCounter(),
+					actual.getLine(nr).getBranchCounter());
+		}
+	}
+
 }
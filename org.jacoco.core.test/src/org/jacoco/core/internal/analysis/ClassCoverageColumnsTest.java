@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICoverageNode.CounterEntity;
+import org.jacoco.core.analysis.ICoverageNode.ElementType;
+import org.jacoco.core.analysis.IMethodCoverage;
+import org.jacoco.core.analysis.ISourceFileCoverage;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ClassCoverageColumns}.
+ */
+public class ClassCoverageColumnsTest {
+
+	private ClassCoverageColumns columns;
+
+	@Before
+	public void setup() {
+		columns = new ClassCoverageColumns();
+	}
+
+	@Test
+	public void get_should_return_view_of_class() {
+		final ClassCoverageImpl coverage = createClass("org/example/Foo", 1,
+				"Foo.java", 3);
+		coverage.setSignature("<T:Ljava/lang/Object;>Ljava/lang/Object;");
+		coverage.setSuperName("java/lang/Object");
+		coverage.setInterfaces(new String[] { "java/lang/Runnable" });
+
+		final IClassCoverage c = columns.get(columns.add(coverage));
+
+		assertEquals(ElementType.CLASS, c.getElementType());
+		assertEquals("org/example/Foo", c.getName());
+		assertEquals(1, c.getId());
+		assertEquals(true, c.isNoMatch());
+		assertEquals("<T:Ljava/lang/Object;>Ljava/lang/Object;",
+				c.getSignature());
+		assertEquals("java/lang/Object", c.getSuperName());
+		assertEquals(Arrays.asList("java/lang/Runnable"),
+				Arrays.asList(c.getInterfaceNames()));
+		assertEquals("org/example", c.getPackageName());
+		assertEquals("Foo.java", c.getSourceFileName());
+		assertEquals(CounterImpl.getInstance(1, 1), c.getMethodCounter());
+		assertEquals(CounterImpl.COUNTER_0_1, c.getClassCounter());
+		assertEquals(3, c.getFirstLine());
+		assertEquals(4, c.getLastLine());
+
+		final Iterator<IMethodCoverage> methods = c.getMethods().iterator();
+		final IMethodCoverage m1 = methods.next();
+		assertEquals(ElementType.METHOD, m1.getElementType());
+		assertEquals("a", m1.getName());
+		assertEquals("()V", m1.getDesc());
+		assertNull(m1.getSignature());
+		assertEquals(CounterImpl.COUNTER_1_0, m1.getInstructionCounter());
+		final IMethodCoverage m2 = methods.next();
+		assertEquals("b", m2.getName());
+		assertEquals("(Ljava/lang/Object;)V", m2.getDesc());
+		assertEquals("<T:Ljava/lang/Object;>(TT;)V", m2.getSignature());
+		assertEquals(CounterImpl.COUNTER_0_1, m2.getInstructionCounter());
+		assertEquals(false, methods.hasNext());
+	}
+
+	@Test
+	public void get_should_return_views_of_classes_without_package_and_methods() {
+		final IClassCoverage c = columns
+				.get(columns.add(new ClassCoverageImpl("Foo", 0, false)));
+
+		assertEquals("", c.getPackageName());
+		assertTrue(c.getMethods().isEmpty());
+		assertEquals(false, c.containsCode());
+	}
+
+	@Test
+	public void trimToSize_should_keep_classes_and_allow_further_classes() {
+		columns.trimToSize();
+		final int c1 = columns.add(createClass("a/Foo", 1, "Foo.java", 3));
+		columns.trimToSize();
+		final int c2 = columns.add(createClass("a/Bar", 2, "Bar.java", 5));
+		columns.trimToSize();
+
+		final IClassCoverage foo = columns.get(c1);
+		assertEquals("a/Foo", foo.getName());
+		assertEquals(1, foo.getId());
+		assertEquals(2, foo.getMethods().size());
+		final IClassCoverage bar = columns.get(c2);
+		assertEquals("a/Bar", bar.getName());
+		assertEquals(2, bar.getId());
+		assertEquals("Bar.java", bar.getSourceFileName());
+		assertEquals(5, bar.getFirstLine());
+		final Iterator<IMethodCoverage> methods = bar.getMethods()
+				.iterator();
+		assertEquals("()V", methods.next().getDesc());
+		assertEquals("<T:Ljava/lang/Object;>(TT;)V",
+				methods.next().getSignature());
+	}
+
+	@Test
+	public void createSourceFiles_should_aggregate_classes_of_same_source_file() {
+		final List<Integer> classes = new ArrayList<Integer>();
+		classes.add(Integer.valueOf(
+				columns.add(createClass("a/Foo", 1, "Foo.java", 10))));
+		classes.add(Integer.valueOf(
+				columns.add(createClass("a/Foo$1", 2, "Foo.java", 2))));
+		classes.add(Integer.valueOf(
+				columns.add(createClass("b/Foo", 3, "Foo.java", 1))));
+		classes.add(Integer
+				.valueOf(columns.add(createClass("a/Bar", 4, null, 1))));
+
+		final Collection<ISourceFileCoverage> sourceFiles = columns
+				.createSourceFiles(classes);
+
+		assertEquals(2, sourceFiles.size());
+		final Iterator<ISourceFileCoverage> i = sourceFiles.iterator();
+		final ISourceFileCoverage s1 = i.next();
+		assertEquals(ElementType.SOURCEFILE, s1.getElementType());
+		assertEquals("Foo.java", s1.getName());
+		assertEquals("a", s1.getPackageName());
+		assertEquals(CounterImpl.getInstance(0, 2), s1.getClassCounter());
+		assertEquals(2, s1.getFirstLine());
+		assertEquals(11, s1.getLastLine());
+		final ISourceFileCoverage s2 = i.next();
+		assertEquals("b", s2.getPackageName());
+		assertEquals(CounterImpl.getInstance(0, 1), s2.getClassCounter());
+	}
+
+	@Test
+	public void createSourceFiles_should_calculate_lines_from_classes() {
+		final ClassCoverageImpl foo = createClass("a/Foo", 1, "Foo.java", 3);
+		final MethodCoverageImpl m = new MethodCoverageImpl("c", "()V", null);
+		m.increment(CounterImpl.getInstance(200, 0),
+				CounterImpl.getInstance(2, 0), 8);
+		m.updateExecutionCount(8, 5);
+		m.incrementMethodCounter();
+		foo.addMethod(m);
+		final ClassCoverageImpl inner = createClass("a/Foo$1", 2, "Foo.java",
+				4);
+		final ClassCoverageImpl empty = new ClassCoverageImpl("a/Foo$2", 3,
+				false);
+		empty.setSourceFileName("Foo.java");
+		final SourceFileCoverageImpl expected = new SourceFileCoverageImpl(
+				"Foo.java", "a");
+		expected.increment(foo);
+		expected.increment(inner);
+		expected.increment(empty);
+
+		final ISourceFileCoverage s = columns.createSourceFiles(Arrays.asList(
+				Integer.valueOf(columns.add(foo)),
+				Integer.valueOf(columns.add(inner)),
+				Integer.valueOf(columns.add(empty)))).iterator().next();
+
+		for (final CounterEntity entity : CounterEntity.values()) {
+			assertEquals(entity.name(), expected.getCounter(entity),
+					s.getCounter(entity));
+		}
+		assertEquals(3, s.getFirstLine());
+		assertEquals(8, s.getLastLine());
+		for (int nr = 2; nr <= 9; nr++) {
+			assertEquals(String.valueOf(nr), expected.getLine(nr),
+					s.getLine(nr));
+			assertEquals(String.valueOf(nr), expected.getExecutionCount(nr),
+					s.getExecutionCount(nr));
+		}
+	}
+
+	private static ClassCoverageImpl createClass(final String name,
+			final long id, final String source, final int line) {
+		final ClassCoverageImpl coverage = new ClassCoverageImpl(name, id,
+				id == 1);
+		coverage.setSourceFileName(source);
+		final MethodCoverageImpl m1 = new MethodCoverageImpl("a", "()V", null);
+		m1.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, line);
+		m1.incrementMethodCounter();
+		coverage.addMethod(m1);
+		final MethodCoverageImpl m2 = new MethodCoverageImpl("b",
+				"(Ljava/lang/Object;)V", "<T:Ljava/lang/Object;>(TT;)V");
+		m2.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0,
+				line + 1);
+		m2.incrementMethodCounter();
+		coverage.addMethod(m2);
+		return coverage;
+	}
+
+}
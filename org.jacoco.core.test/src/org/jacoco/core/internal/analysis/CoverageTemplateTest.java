@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import org.jacoco.core.analysis.ICoverageNode.CounterEntity;
+import org.jacoco.core.analysis.ILine;
+import org.jacoco.core.analysis.IMethodCoverage;
+import org.jacoco.core.analysis.ISourceNode;
+import org.jacoco.core.instr.Granularity;
+import org.jacoco.core.internal.flow.ClassProbesAdapter;
+import org.jacoco.core.internal.flow.MethodProbesVisitor;
+import org.jacoco.core.internal.flow.ProbeImplications;
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.jacoco.core.test.TargetLoader;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Unit tests for {@link CoverageTemplate}.
+ */
+public class CoverageTemplateTest {
+
+	private StringPool stringPool;
+
+	private int probeCount;
+
+	@Before
+	public void setup() {
+		stringPool = new StringPool();
+	}
+
+	@Test
+	public void apply_should_calculate_same_coverage_as_ClassAnalyzer()
+			throws Exception {
+		final Random random = new Random(42);
+		for (final Class<?> c : Arrays.asList(ProbeImplications.class,
+				ClassAnalyzer.class, InstructionsBuilder.class,
+				CounterImpl.class)) {
+			final byte[] bytes = TargetLoader.getClassDataAsBytes(c);
+			final CoverageTemplate template = createTemplate(bytes);
+			final CoverageTemplate copy = copy(template);
+
+			final boolean[] probes = new boolean[probeCount];
+			assertCoverage(analyze(bytes, null), template.apply(1, false, null));
+			assertCoverage(analyze(bytes, probes),
+					template.apply(1, false, probes));
+			Arrays.fill(probes, true);
+			assertCoverage(analyze(bytes, probes), copy.apply(1, false, probes));
+			for (int i = 0; i < 10; i++) {
+				for (int p = 0; p < probes.length; p++) {
+					probes[p] = random.nextInt(4) == 0;
+				}
+				assertCoverage(analyze(bytes, probes),
+						template.apply(1, false, probes));
+				assertCoverage(analyze(bytes, probes),
+						copy.apply(1, false, probes));
+			}
+		}
+	}
+
+	@Test
+	public void apply_should_set_class_properties() throws Exception {
+		final CoverageTemplate template = copy(createTemplate(
+				TargetLoader.getClassDataAsBytes(ClassAnalyzer.class)));
+
+		final ClassCoverageImpl coverage = template.apply(0x1234, true, null);
+
+		assertEquals("org/jacoco/core/internal/analysis/ClassAnalyzer",
+				coverage.getName());
+		assertEquals(0x1234, coverage.getId());
+		assertEquals(true, coverage.isNoMatch());
+		assertEquals("org/jacoco/core/internal/flow/ClassProbesVisitor",
+				coverage.getSuperName());
+		assertEquals(Arrays.asList(
+				"org/jacoco/core/internal/analysis/filter/IFilterContext"),
+				Arrays.asList(coverage.getInterfaceNames()));
+		assertNull(coverage.getSignature());
+		assertEquals("ClassAnalyzer.java", coverage.getSourceFileName());
+	}
+
+	@Test
+	public void apply_should_infer_implied_probes() {
+		final CoverageTemplate template = new CoverageTemplate("Foo");
+		final Instructions instructions = new Instructions();
+		final int insn = instructions.add(new InsnNode(Opcodes.NOP), 3);
+		instructions.addProbeBranch(insn, 0, 0);
+		template.addMethod(new MethodTemplate("foo", "()V", null, 3, 3,
+				instructions, new BitSet()));
+		template.addImplications(
+				ProbeImplications.create(0, new int[][] { {}, { 0 } }));
+
+		final ClassCoverageImpl coverage = template.apply(0, false,
+				new boolean[] { false, true });
+
+		assertEquals(CounterImpl.COUNTER_0_1, coverage.getInstructionCounter());
+	}
+
+	@Test
+	public void apply_should_calculate_fragments() throws IOException {
+		final boolean[] probes = new boolean[] { false, true };
+		final ClassCoverageImpl expected = new ClassCoverageImpl("Foo", 0,
+				false);
+		visitKotlinClass(new ClassAnalyzer(expected, probes, stringPool));
+		final CoverageTemplate template = new CoverageTemplate("Foo");
+		visitKotlinClass(new ClassAnalyzer(template, stringPool));
+
+		final ClassCoverageImpl coverage = copy(template).apply(0, false,
+				probes);
+
+		assertCoverage(expected, coverage);
+		final SourceNodeImpl fragment = coverage.getFragments().iterator()
+				.next();
+		assertEquals("Foo", fragment.getName());
+		assertEquals(CounterImpl.COUNTER_0_1,
+				fragment.getLine(2).getInstructionCounter());
+	}
+
+	@Test
+	public void read_should_throw_IOException_for_invalid_content() {
+		try {
+			CoverageTemplate.read(
+					new ByteArrayInputStream(new byte[] { 1, 2, 3, 4 }),
+					stringPool);
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Invalid coverage template.", e.getMessage());
+		}
+	}
+
+	private static void visitKotlinClass(final ClassAnalyzer analyzer) {
+		analyzer.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC, "Foo", null,
+				"java/lang/Object", null);
+		analyzer.visitSource("Foo.kt", "SMAP\n" //
+				+ "Foo.kt\n" //
+				+ "Kotlin\n" //
+				+ "*S Kotlin\n" //
+				+ "*F\n" //
+				+ "+ 1 Foo.kt\n" //
+				+ "Foo\n" //
+				+ "*L\n" //
+				+ "1#1,4:1\n" //
+				+ "2#1:6\n" //
+				+ "*E\n");
+		analyzer.visitAnnotation("Lkotlin/Metadata;", false);
+		addMethod(analyzer, "foo", 2, 0);
+		addMethod(analyzer, "bar", 6, 1);
+		analyzer.visitEnd();
+	}
+
+	private static void addMethod(final ClassAnalyzer analyzer,
+			final String name, final int line, final int probeId) {
+		final MethodNode mn = new MethodNode(InstrSupport.ASM_API_VERSION, 0,
+				name, "()V", null, null) {
+			{
+				final Label label = new Label();
+				visitLabel(label);
+				visitLineNumber(line, label);
+				visitInsn(Opcodes.RETURN);
+			}
+		};
+		final MethodProbesVisitor visitor = analyzer.visitMethod(mn.access,
+				mn.name, mn.desc, mn.signature, null);
+		visitor.accept(mn, new MethodProbesVisitor(visitor) {
+			@Override
+			public void visitInsn(final int opcode) {
+				visitor.visitInsnWithProbe(opcode, probeId);
+			}
+		});
+	}
+
+	private CoverageTemplate createTemplate(final byte[] bytes) {
+		final ClassReader reader = InstrSupport.classReaderFor(bytes);
+		final CoverageTemplate template = new CoverageTemplate(
+				reader.getClassName());
+		final ClassAnalyzer analyzer = new ClassAnalyzer(template,
+				stringPool) {
+			@Override
+			public void visitTotalProbeCount(final int count) {
+				probeCount = count;
+			}
+		};
+		reader.accept(new ClassProbesAdapter(analyzer, false,
+				Granularity.BRANCH, true), 0);
+		return template;
+	}
+
+	private ClassCoverageImpl analyze(final byte[] bytes,
+			final boolean[] probes) {
+		final ClassReader reader = InstrSupport.classReaderFor(bytes);
+		final ClassCoverageImpl coverage = new ClassCoverageImpl(
+				reader.getClassName(), 1, false);
+		final ClassAnalyzer analyzer = new ClassAnalyzer(coverage, probes,
+				stringPool);
+		reader.accept(new ClassProbesAdapter(analyzer, false,
+				Granularity.BRANCH, probes != null), 0);
+		return coverage;
+	}
+
+	private CoverageTemplate copy(final CoverageTemplate template)
+			throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		template.write(out);
+		return CoverageTemplate.read(
+				new ByteArrayInputStream(out.toByteArray()), stringPool);
+	}
+
+	private static void assertCoverage(final ClassCoverageImpl expected,
+			final ClassCoverageImpl actual) {
+		assertNode(expected, actual);
+		assertEquals(expected.getMethods().size(), actual.getMethods().size());
+		for (final IMethodCoverage e : expected.getMethods()) {
+			boolean found = false;
+			for (final IMethodCoverage a : actual.getMethods()) {
+				if (e.getName().equals(a.getName())
+						&& e.getDesc().equals(a.getDesc())) {
+					assertNode(e, a);
+					found = true;
+				}
+			}
+			assertEquals(e.getName() + e.getDesc(), true, found);
+		}
+	}
+
+	private static void assertNode(final ISourceNode expected,
+			final ISourceNode actual) {
+		final String name = expected.getName();
+		for (final CounterEntity entity : CounterEntity.values()) {
+			assertEquals(name + " " + entity, expected.getCounter(entity),
+					actual.getCounter(entity));
+		}
+		assertEquals(name, expected.getFirstLine(), actual.getFirstLine());
+		assertEquals(name, expected.getLastLine(), actual.getLastLine());
+		for (int nr = expected.getFirstLine(); nr <= expected
+				.getLastLine(); nr++) {
+			final ILine e = expected.getLine(nr);
+			final ILine a = actual.getLine(nr);
+			assertEquals(name + ":" + nr, e.getInstructionCounter(),
+					a.getInstructionCounter());
+			assertEquals(name + ":" + nr, e.getBranchCounter(),
+					a.getBranchCounter());
+		}
+	}
+
+}
@@ -52,11 +52,15 @@ public class InstructionsBuilderTest {
 		InsnNode i4 = new InsnNode(Opcodes.NOP);
 		builder.addInstruction(i4);
 
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
-		assertEquals(ISourceNode.UNKNOWN_LINE, map.get(i1).getLine());
-		assertEquals(10, map.get(i2).getLine());
-		assertEquals(10, map.get(i3).getLine());
-		assertEquals(20, map.get(i4).getLine());
+		Instructions instructions = builder.getInstructions();
+		assertEquals(ISourceNode.UNKNOWN_LINE,
+				instructions.getLine(instructions.indexOf(i1)));
+		assertEquals(10,
+				instructions.getLine(instructions.indexOf(i2)));
+		assertEquals(10,
+				instructions.getLine(instructions.indexOf(i3)));
+		assertEquals(20,
+				instructions.getLine(instructions.indexOf(i4)));
 	}
 
 	@Test
@@ -67,9 +71,9 @@ public class InstructionsBuilderTest {
 		builder.addInstruction(i1);
 		builder.addProbe(5, 0);
 
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instructions instructions = builder.getInstructions();
 		assertEquals(CounterImpl.COUNTER_1_0,
-				map.get(i1).getInstructionCounter());
+				instructions.getInstructionCounter(instructions.indexOf(i1)));
 	}
 
 	@Test
@@ -78,9 +82,9 @@ public class InstructionsBuilderTest {
 		builder.addInstruction(i1);
 		builder.addProbe(0, 0);
 
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instructions instructions = builder.getInstructions();
 		assertEquals(CounterImpl.COUNTER_1_0,
-				map.get(i1).getInstructionCounter());
+				instructions.getInstructionCounter(instructions.indexOf(i1)));
 	}
 
 	@Test
@@ -89,9 +93,9 @@ public class InstructionsBuilderTest {
 		builder.addInstruction(i1);
 		builder.addProbe(1, 0);
 
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instructions instructions = builder.getInstructions();
 		assertEquals(CounterImpl.COUNTER_0_1,
-				map.get(i1).getInstructionCounter());
+				instructions.getInstructionCounter(instructions.indexOf(i1)));
 	}
 
 	@Test
@@ -106,9 +110,9 @@ public class InstructionsBuilderTest {
 		builder.addProbe(1, 0);
 
 		// coverage should be propagated to i1
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instructions instructions = builder.getInstructions();
 		assertEquals(CounterImpl.COUNTER_0_1,
-				map.get(i1).getInstructionCounter());
+				instructions.getInstructionCounter(instructions.indexOf(i1)));
 	}
 
 	@Test
@@ -124,9 +128,9 @@ public class InstructionsBuilderTest {
 		builder.addProbe(1, 0);
 
 		// coverage should not be propagated to i1
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instructions instructions = builder.getInstructions();
 		assertEquals(CounterImpl.COUNTER_1_0,
-				map.get(i1).getInstructionCounter());
+				instructions.getInstructionCounter(instructions.indexOf(i1)));
 	}
 
 	@Test
@@ -144,9 +148,9 @@ public class InstructionsBuilderTest {
 		builder.addProbe(1, 0);
 
 		// coverage should be propagated to i1
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instructions instructions = builder.getInstructions();
 		assertEquals(CounterImpl.COUNTER_0_1,
-				map.get(i1).getInstructionCounter());
+				instructions.getInstructionCounter(instructions.indexOf(i1)));
 	}
 
 	@Test
@@ -162,9 +166,9 @@ public class InstructionsBuilderTest {
 		builder.addProbe(1, 0);
 
 		// coverage should not be propagated to i1
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instructions instructions = builder.getInstructions();
 		assertEquals(CounterImpl.COUNTER_1_0,
-				map.get(i1).getInstructionCounter());
+				instructions.getInstructionCounter(instructions.indexOf(i1)));
 	}
 
 	@Test
@@ -182,9 +186,51 @@ public class InstructionsBuilderTest {
 		builder.addProbe(1, 0);
 
 		// coverage should be propagated to i1
-		Map<AbstractInsnNode, Instruction> map = builder.getInstructions();
+		Instructions instructions = builder.getInstructions();
 		assertEquals(CounterImpl.COUNTER_0_1,
-				map.get(i1).getInstructionCounter());
+				instructions.getInstructionCounter(instructions.indexOf(i1)));
+	}
+
+	@Test
+	public void probe_points_should_apply_to_next_instruction() {
+		InsnNode i1 = new InsnNode(Opcodes.NOP);
+		builder.addInstruction(i1);
+		builder.addProbePoint(1);
+		InsnNode i2 = new InsnNode(Opcodes.NOP);
+		builder.addInstruction(i2);
+		builder.addProbePoint(0);
+		InsnNode i3 = new InsnNode(Opcodes.NOP);
+		builder.addInstruction(i3);
+
+		Map<AbstractInsnNode, Boolean> points = builder.getProbePoints();
+		assertEquals(2, points.size());
+		assertEquals(Boolean.TRUE, points.get(i2));
+		assertEquals(Boolean.FALSE, points.get(i3));
+	}
+
+	@Test
+	public void probe_points_should_not_propagate_coverage_status() {
+		InsnNode i1 = new InsnNode(Opcodes.NOP);
+		builder.addInstruction(i1);
+		builder.addProbePoint(1);
+		InsnNode i2 = new InsnNode(Opcodes.NOP);
+		builder.addInstruction(i2);
+
+		Instructions instructions = builder.getInstructions();
+		assertEquals(CounterImpl.COUNTER_1_0,
+				instructions.getInstructionCounter(instructions.indexOf(i1)));
+		assertEquals(CounterImpl.COUNTER_1_0,
+				instructions.getInstructionCounter(instructions.indexOf(i2)));
+	}
+
+	@Test
+	public void null_probearray_should_not_mark_probe_points_as_executed() {
+		builder = new InstructionsBuilder(null);
+		builder.addProbePoint(1);
+		InsnNode i1 = new InsnNode(Opcodes.NOP);
+		builder.addInstruction(i1);
+
+		assertEquals(Boolean.FALSE, builder.getProbePoints().get(i1));
 	}
 
 }
@@ -0,0 +1,362 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.BitSet;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.LabelNode;
+
+/**
+ * Unit tests for {@link Instructions}.
+ */
+public class InstructionsTest {
+
+	private Instructions instructions;
+
+	private int instruction;
+
+	@Before
+	public void setup() {
+		instructions = new Instructions();
+		instruction = add(123);
+	}
+
+	@Test
+	public void getLine_should_return_line_number() {
+		assertEquals(123, instructions.getLine(instruction));
+	}
+
+	@Test
+	public void add_should_return_subsequent_indices() {
+		assertEquals(0, instruction);
+		assertEquals(1, add(124));
+		assertEquals(2, add(125));
+		assertEquals(3, instructions.size());
+	}
+
+	@Test
+	public void indexOf_should_return_index_of_node() {
+		final InsnNode node = new InsnNode(Opcodes.NOP);
+		for (int i = 0; i < 1000; i++) {
+			add(i);
+		}
+		final int index = instructions.add(node, 1);
+		add(2);
+
+		assertEquals(index, instructions.indexOf(node));
+		assertSame(node, instructions.getNode(index));
+		assertEquals(0, instructions.indexOf(instructions.getNode(0)));
+	}
+
+	@Test
+	public void indexOf_should_return_NONE_for_unknown_node() {
+		assertEquals(Instructions.NONE,
+				instructions.indexOf(new LabelNode()));
+	}
+
+	@Test
+	public void new_instruction_should_have_no_coverage_and_no_branches() {
+		assertEquals(CounterImpl.COUNTER_1_0,
+				instructions.getInstructionCounter(instruction));
+		assertEquals(CounterImpl.COUNTER_0_0,
+				instructions.getBranchCounter(instruction));
+		assertEquals(0, instructions.getExecutionCount(instruction));
+	}
+
+	@Test
+	public void addBranchWithInstruction_should_not_increment_branches_when_only_one_branch_is_added() {
+		instructions.addBranch(instruction, add(122), 0);
+
+		assertEquals(CounterImpl.COUNTER_0_0,
+				instructions.getBranchCounter(instruction));
+	}
+
+	@Test
+	public void addBranchWithInstruction_should_increment_branches_when_two_branches_are_added() {
+		instructions.addBranch(instruction, add(122), 0);
+		instructions.addBranch(instruction, add(123), 1);
+
+		assertEquals(CounterImpl.getInstance(2, 0),
+				instructions.getBranchCounter(instruction));
+	}
+
+	@Test
+	public void addBranchWithInstruction_should_propagate_existing_coverage_status() {
+		final int target = add(122);
+		instructions.addBranch(target, true, 0);
+
+		instructions.addBranch(instruction, target, 0);
+
+		assertEquals(CounterImpl.COUNTER_0_1,
+				instructions.getInstructionCounter(instruction));
+	}
+
+	@Test
+	public void addBranchWithInstruction_should_propagate_existing_execution_count() {
+		final int target = add(122);
+		instructions.addExecutionCount(target, 5);
+
+		instructions.addBranch(instruction, target, 0);
+
+		assertEquals(5, instructions.getExecutionCount(instruction));
+	}
+
+	@Test
+	public void addBranchWithProbe_should_increment_branches_when_covered() {
+		instructions.addBranch(instruction, true, 0);
+		instructions.addBranch(instruction, true, 1);
+
+		assertEquals(CounterImpl.getInstance(0, 1),
+				instructions.getInstructionCounter(instruction));
+		assertEquals(CounterImpl.getInstance(0, 2),
+				instructions.getBranchCounter(instruction));
+	}
+
+	@Test
+	public void addBranchWithProbe_should_increment_branches_when_not_covered() {
+		instructions.addBranch(instruction, false, 0);
+		instructions.addBranch(instruction, false, 1);
+
+		assertEquals(CounterImpl.getInstance(1, 0),
+				instructions.getInstructionCounter(instruction));
+		assertEquals(CounterImpl.getInstance(2, 0),
+				instructions.getBranchCounter(instruction));
+	}
+
+	@Test
+	public void addBranchWithProbe_should_increment_branches_when_partly_covered() {
+		instructions.addBranch(instruction, false, 0);
+		instructions.addBranch(instruction, true, 1);
+
+		assertEquals(CounterImpl.getInstance(0, 1),
+				instructions.getInstructionCounter(instruction));
+		assertEquals(CounterImpl.getInstance(1, 1),
+				instructions.getBranchCounter(instruction));
+	}
+
+	@Test
+	public void addBranchWithProbe_should_propagate_coverage_status_to_existing_predecessors() {
+		final int i1 = add(124);
+		final int i2 = add(125);
+		instructions.addBranch(instruction, i1, 3);
+		instructions.addBranch(i1, i2, 5);
+
+		instructions.addBranch(i2, true, 8);
+
+		assertEquals(CounterImpl.COUNTER_0_1,
+				instructions.getInstructionCounter(instruction));
+		assertEquals(true, instructions.isCovered(instruction, 3));
+		assertEquals(true, instructions.isCovered(i1, 5));
+	}
+
+	@Test
+	public void addExecutionCount_should_propagate_count_to_existing_predecessors() {
+		final int i1 = add(124);
+		instructions.addBranch(instruction, i1, 0);
+
+		instructions.addExecutionCount(i1, 3);
+		instructions.addExecutionCount(i1, 4);
+
+		assertEquals(7, instructions.getExecutionCount(instruction));
+		assertEquals(7, instructions.getExecutionCount(i1));
+	}
+
+	@Test
+	public void addBranch_should_count_large_number_of_branches() {
+		for (int branch = 0; branch < 0x1000; branch++) {
+			instructions.addBranch(instruction, true, branch);
+		}
+
+		assertEquals(CounterImpl.getInstance(0, 0x1000),
+				instructions.getBranchCounter(instruction));
+	}
+
+	@Test
+	public void addBranch_should_count_branches_beyond_word_size() {
+		for (int branch = 0; branch < 100; branch++) {
+			instructions.addBranch(instruction, branch % 3 == 0, branch);
+		}
+
+		assertEquals(CounterImpl.getInstance(66, 34),
+				instructions.getBranchCounter(instruction));
+		assertEquals(true, instructions.isCovered(instruction, 99));
+		assertEquals(false, instructions.isCovered(instruction, 98));
+	}
+
+	@Test
+	public void addBranch_should_propagate_coverage_status_over_very_long_sequence() {
+		int next = instruction;
+		for (int i = 0; i < 0x10000; i++) {
+			final int insn = add(i);
+			instructions.addBranch(next, insn, 0);
+			next = insn;
+		}
+		instructions.addBranch(next, true, 0);
+
+		assertEquals(CounterImpl.COUNTER_0_1,
+				instructions.getInstructionCounter(instruction));
+	}
+
+	@Test
+	public void merge_should_calculate_superset_of_covered_branches() {
+		final int i1 = add(124);
+		instructions.addBranch(i1, false, 1);
+		instructions.addBranch(i1, false, 2);
+		instructions.addBranch(i1, true, 3);
+		instructions.addBranch(i1, true, 4);
+		final int i2 = add(124);
+		instructions.addBranch(i2, false, 1);
+		instructions.addBranch(i2, true, 2);
+		instructions.addBranch(i2, false, 3);
+		instructions.addBranch(i2, true, 4);
+
+		instructions.merge(i1, i2);
+
+		assertEquals(CounterImpl.getInstance(1, 3),
+				instructions.getBranchCounter(i1));
+		assertEquals(CounterImpl.getInstance(2, 2),
+				instructions.getBranchCounter(i2));
+	}
+
+	@Test
+	public void merge_should_calculate_superset_of_covered_branches_beyond_word_size() {
+		final int i1 = add(124);
+		instructions.addBranch(i1, false, 0);
+		instructions.addBranch(i1, false, 70);
+		final int i2 = add(124);
+		instructions.addBranch(i2, false, 0);
+		instructions.addBranch(i2, true, 70);
+
+		instructions.merge(i1, i2);
+
+		assertEquals(CounterImpl.getInstance(1, 1),
+				instructions.getBranchCounter(i1));
+	}
+
+	@Test
+	public void merge_should_add_execution_counts() {
+		final int i1 = add(124);
+		instructions.addExecutionCount(i1, 3);
+		final int i2 = add(124);
+		instructions.addExecutionCount(i2, 4);
+
+		instructions.merge(i1, i2);
+
+		assertEquals(7, instructions.getExecutionCount(i1));
+	}
+
+	@Test
+	public void replaceBranches_should_set_new_branches() {
+		instructions.addBranch(instruction, true, 0);
+		instructions.addBranch(instruction, true, 1);
+		instructions.addExecutionCount(instruction, 2);
+
+		instructions.replaceBranches(instruction, 3, bits(2, 80),
+				new BitSet[3]);
+
+		assertEquals(CounterImpl.getInstance(1, 2),
+				instructions.getBranchCounter(instruction));
+		assertEquals(false, instructions.isCovered(instruction, 0));
+		assertEquals(2, instructions.getExecutionCount(instruction));
+	}
+
+	@Test
+	public void addProbeBranch_should_record_probe_for_branch() {
+		instructions.addProbeBranch(instruction, 7, 0);
+		instructions.addProbeBranch(instruction, 9, 1);
+
+		assertEquals(2, instructions.getBranches(instruction));
+		assertEquals(bits(7), instructions.getBranchProbes(instruction, 0));
+		assertEquals(bits(9), instructions.getBranchProbes(instruction, 1));
+		assertEquals(bits(7, 9), instructions.getCoveringProbes(instruction));
+		assertEquals(CounterImpl.COUNTER_1_0,
+				instructions.getInstructionCounter(instruction));
+	}
+
+	@Test
+	public void addProbeBranch_should_record_probe_for_predecessors() {
+		final int i1 = add(124);
+		final int i2 = add(125);
+		instructions.addBranch(instruction, i1, 3);
+		instructions.addBranch(i1, i2, 5);
+
+		instructions.addProbeBranch(i2, 2, 8);
+
+		assertEquals(bits(2), instructions.getBranchProbes(instruction, 3));
+		assertEquals(bits(2), instructions.getBranchProbes(i1, 5));
+		assertEquals(bits(2), instructions.getBranchProbes(i2, 8));
+		assertNull(instructions.getBranchProbes(instruction, 0));
+	}
+
+	@Test
+	public void addBranchWithInstruction_should_propagate_recorded_probes() {
+		final int target = add(122);
+		instructions.addProbeBranch(target, 1, 0);
+		instructions.addProbeBranch(target, 4, 1);
+
+		instructions.addBranch(instruction, target, 2);
+
+		assertEquals(bits(1, 4), instructions.getBranchProbes(instruction, 2));
+		assertEquals(3, instructions.getBranchProbesLength(instruction));
+	}
+
+	@Test
+	public void merge_should_calculate_union_of_recorded_probes() {
+		final int i1 = add(124);
+		instructions.addProbeBranch(i1, 1, 0);
+		instructions.addProbeBranch(i1, 2, 1);
+		final int i2 = add(124);
+		instructions.addProbeBranch(i2, 3, 0);
+		instructions.addProbeBranch(i2, 2, 1);
+
+		instructions.merge(i1, i2);
+
+		assertEquals(bits(1, 3), instructions.getBranchProbes(i1, 0));
+		assertEquals(bits(2), instructions.getBranchProbes(i1, 1));
+	}
+
+	@Test
+	public void replaceBranches_should_replace_recorded_probes() {
+		instructions.addProbeBranch(instruction, 5, 0);
+		instructions.addProbeBranch(instruction, 6, 1);
+
+		instructions.replaceBranches(instruction, 2, new BitSet(),
+				new BitSet[] { null, bits(7) });
+
+		assertEquals(2, instructions.getBranches(instruction));
+		assertNull(instructions.getBranchProbes(instruction, 0));
+		assertEquals(bits(7), instructions.getBranchProbes(instruction, 1));
+		assertEquals(bits(7), instructions.getCoveringProbes(instruction));
+	}
+
+	private int add(final int line) {
+		return instructions.add(new InsnNode(Opcodes.NOP), line);
+	}
+
+	private static BitSet bits(final int... probes) {
+		final BitSet set = new BitSet();
+		for (final int p : probes) {
+			set.set(p);
+		}
+		return set;
+	}
+
+}
@@ -18,6 +18,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.jacoco.core.analysis.ISourceNode;
+import org.jacoco.core.instr.Granularity;
 import org.jacoco.core.internal.analysis.filter.Replacements;
 import org.junit.Before;
 import org.junit.Test;
@@ -25,13 +26,14 @@ import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.LabelNode;
 
 /**
  * Unit tests for {@link MethodCoverageCalculator}.
  */
 public class MethodCoverageCalculatorTest {
 
-	private Map<AbstractInsnNode, Instruction> instructions;
+	private Instructions instructions;
 
 	// The purpose of this list is to link instruction nodes
 	private InsnList list;
@@ -40,7 +42,7 @@ public class MethodCoverageCalculatorTest {
 
 	@Before
 	public void setup() {
-		instructions = new HashMap<AbstractInsnNode, Instruction>();
+		instructions = new Instructions();
 		coverage = new MethodCoverageImpl("run", "()V", null);
 		list = new InsnList();
 	}
@@ -208,6 +210,39 @@ public class MethodCoverageCalculatorTest {
 		assertLine(1, 0, 1, 0, 3);
 	}
 
+	@Test
+	public void should_replace_branches_with_own_branches() {
+		InsnNode i1 = addInsn(1, false, true, false);
+
+		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		LabelNode target1 = new LabelNode();
+		LabelNode target2 = new LabelNode();
+		Replacements replacements = new Replacements();
+		replacements.add(target1, i1, 1);
+		replacements.add(target1, i1, 2);
+		replacements.add(target2, i1, 0);
+		c.replaceBranches(i1, replacements);
+		c.calculate(coverage);
+
+		// branch is covered when at least one of its replacements is covered
+		assertLine(1, 0, 1, 1, 1);
+	}
+
+	@Test
+	public void should_ignore_labels() {
+		LabelNode label = new LabelNode();
+		list.add(label);
+		InsnNode i1 = addInsn(1, false);
+		addInsn(2, true);
+
+		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions);
+		c.ignore(label, i1);
+		c.calculate(coverage);
+
+		assertLine(1, 0, 0, 0, 0);
+		assertLine(2, 0, 1, 0, 0);
+	}
+
 	@Test
 	public void should_work_without_lines() {
 		addInsn(ISourceNode.UNKNOWN_LINE, false);
@@ -223,6 +258,107 @@ public class MethodCoverageCalculatorTest {
 				coverage.getInstructionCounter());
 	}
 
+	@Test
+	public void should_report_probe_points_only() {
+		addInsn(1, false, true);
+		InsnNode i1 = addInsn(2, false);
+		addInsn(2, true);
+		InsnNode i2 = addInsn(3, false);
+		addInsn(4, true);
+		Map<AbstractInsnNode, Boolean> probePoints = new HashMap<AbstractInsnNode, Boolean>();
+		probePoints.put(i1, Boolean.TRUE);
+		probePoints.put(i2, Boolean.FALSE);
+
+		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions,
+				probePoints, Granularity.LINE);
+		c.calculate(coverage);
+
+		assertLine(1, 0, 0, 0, 0);
+		assertLine(2, 0, 1, 0, 0);
+		assertLine(3, 1, 0, 0, 0);
+		assertLine(4, 0, 0, 0, 0);
+		assertEquals(CounterImpl.COUNTER_0_1, coverage.getMethodCounter());
+		assertEquals(CounterImpl.getInstance(1, 1), coverage.getLineCounter());
+		assertEquals(CounterImpl.COUNTER_0_0,
+				coverage.getInstructionCounter());
+		assertEquals(CounterImpl.COUNTER_0_0, coverage.getBranchCounter());
+		assertEquals(CounterImpl.COUNTER_0_0,
+				coverage.getComplexityCounter());
+	}
+
+	@Test
+	public void should_report_method_only_for_method_granularity() {
+		InsnNode i1 = addInsn(1, false);
+		addInsn(2, true);
+		Map<AbstractInsnNode, Boolean> probePoints = new HashMap<AbstractInsnNode, Boolean>();
+		probePoints.put(i1, Boolean.FALSE);
+
+		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions,
+				probePoints, Granularity.METHOD);
+		c.calculate(coverage);
+
+		assertLine(1, 0, 0, 0, 0);
+		assertLine(2, 0, 0, 0, 0);
+		assertEquals(1, coverage.getFirstLine());
+		assertEquals(2, coverage.getLastLine());
+		assertEquals(CounterImpl.COUNTER_1_0, coverage.getMethodCounter());
+		assertEquals(CounterImpl.COUNTER_0_0, coverage.getLineCounter());
+		assertEquals(CounterImpl.COUNTER_0_0,
+				coverage.getInstructionCounter());
+		assertEquals(CounterImpl.COUNTER_0_0,
+				coverage.getComplexityCounter());
+	}
+
+	@Test
+	public void should_move_ignored_probe_points_to_next_instruction() {
+		InsnNode i1 = addInsn(1, false);
+		addInsn(2, false);
+		Map<AbstractInsnNode, Boolean> probePoints = new HashMap<AbstractInsnNode, Boolean>();
+		probePoints.put(i1, Boolean.TRUE);
+
+		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions,
+				probePoints, Granularity.LINE);
+		c.ignore(i1, i1);
+		c.calculate(coverage);
+
+		assertLine(1, 0, 0, 0, 0);
+		assertLine(2, 0, 1, 0, 0);
+	}
+
+	@Test
+	public void should_not_move_ignored_probe_points_to_other_probe_points() {
+		InsnNode i1 = addInsn(1, false);
+		InsnNode i2 = addInsn(2, false);
+		Map<AbstractInsnNode, Boolean> probePoints = new HashMap<AbstractInsnNode, Boolean>();
+		probePoints.put(i1, Boolean.TRUE);
+		probePoints.put(i2, Boolean.FALSE);
+
+		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions,
+				probePoints, Granularity.LINE);
+		c.ignore(i1, i1);
+		c.calculate(coverage);
+
+		assertLine(1, 0, 0, 0, 0);
+		assertLine(2, 1, 0, 0, 0);
+	}
+
+	@Test
+	public void should_drop_probe_points_in_ignored_code_at_method_end() {
+		addInsn(1, false);
+		InsnNode i1 = addInsn(2, false);
+		Map<AbstractInsnNode, Boolean> probePoints = new HashMap<AbstractInsnNode, Boolean>();
+		probePoints.put(i1, Boolean.TRUE);
+
+		MethodCoverageCalculator c = new MethodCoverageCalculator(instructions,
+				probePoints, Granularity.LINE);
+		c.ignore(i1, i1);
+		c.calculate(coverage);
+
+		assertEquals(CounterImpl.COUNTER_0_0,
+				coverage.getInstructionCounter());
+		assertEquals(CounterImpl.COUNTER_0_0, coverage.getMethodCounter());
+	}
+
 	private void assertLine(int idx, int mi, int ci, int mb, int cb) {
 		assertEquals("instructions", CounterImpl.getInstance(mi, ci),
 				coverage.getLine(idx).getInstructionCounter());
@@ -231,14 +367,13 @@ public class MethodCoverageCalculatorTest {
 	}
 
 	private InsnNode addInsn(int line, boolean... branches) {
-		Instruction i = new Instruction(line);
+		InsnNode node = new InsnNode(Opcodes.NOP);
+		list.add(node);
+		int i = instructions.add(node, line);
 		int idx = 0;
 		for (boolean covered : branches) {
-			i.addBranch(covered, idx++);
+			instructions.addBranch(i, covered, idx++);
 		}
-		InsnNode node = new InsnNode(Opcodes.NOP);
-		list.add(node);
-		instructions.put(node, i);
 		return node;
 	}
 
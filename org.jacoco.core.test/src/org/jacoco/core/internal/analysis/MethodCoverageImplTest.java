@@ -49,6 +49,25 @@ public class MethodCoverageImplTest {
 		assertEquals(CounterImpl.COUNTER_0_0, node.getClassCounter());
 	}
 
+	@Test
+	public void testIncrementMethodCounterWithoutInstructions() {
+		MethodCoverageImpl node = new MethodCoverageImpl("sample", "()V", null);
+		node.incrementMethodCounter();
+		assertEquals(CounterImpl.COUNTER_0_0, node.getMethodCounter());
+		assertEquals(CounterImpl.COUNTER_0_0, node.getComplexityCounter());
+		assertFalse(node.containsCode());
+	}
+
+	@Test
+	public void testIncrementMethodCounterExecuted() {
+		MethodCoverageImpl node = new MethodCoverageImpl("sample", "()V", null);
+		node.incrementMethodCounter(true);
+		assertEquals(CounterImpl.COUNTER_0_1, node.getMethodCounter());
+		assertEquals(CounterImpl.COUNTER_0_0, node.getComplexityCounter());
+		assertEquals(CounterImpl.COUNTER_0_0, node.getInstructionCounter());
+		assertTrue(node.containsCode());
+	}
+
 	@Test
 	public void testIncrementMissedInstructions() {
 		MethodCoverageImpl node = new MethodCoverageImpl("sample", "()V", null);
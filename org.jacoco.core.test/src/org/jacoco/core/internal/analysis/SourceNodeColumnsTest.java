@@ -0,0 +1,243 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.jacoco.core.analysis.ICoverageNode.CounterEntity;
+import org.jacoco.core.analysis.ICoverageNode.ElementType;
+import org.jacoco.core.analysis.ISourceNode;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link SourceNodeColumns}.
+ */
+public class SourceNodeColumnsTest {
+
+	private SourceNodeColumns columns;
+
+	@Before
+	public void setup() {
+		columns = new SourceNodeColumns();
+	}
+
+	@Test
+	public void add_should_copy_counters_and_lines() {
+		final SourceNodeImpl node = new SourceNodeImpl(ElementType.METHOD,
+				"foo");
+		node.increment(CounterImpl.getInstance(2, 3),
+				CounterImpl.getInstance(1, 1), 10);
+		node.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 12);
+
+		final int n = columns.add(node);
+
+		assertNode(node, n);
+	}
+
+	@Test
+	public void add_should_copy_lines_with_large_counters() {
+		final SourceNodeImpl node = new SourceNodeImpl(ElementType.METHOD,
+				"foo");
+		node.increment(CounterImpl.getInstance(127, 128),
+				CounterImpl.getInstance(1000, 0), 3);
+		node.increment(CounterImpl.getInstance(127, 127),
+				CounterImpl.getInstance(127, 127), 4);
+		node.increment(CounterImpl.getInstance(0, 100000),
+				CounterImpl.COUNTER_0_0, 5);
+
+		final int n = columns.add(node);
+
+		assertNode(node, n);
+	}
+
+	@Test
+	public void add_should_copy_nodes_without_lines() {
+		final SourceNodeImpl node = new SourceNodeImpl(ElementType.METHOD,
+				"foo");
+		node.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0,
+				ISourceNode.UNKNOWN_LINE);
+
+		final int n = columns.add(node);
+
+		assertNode(node, n);
+		assertEquals(LineImpl.EMPTY, columns.getLine(n, 1));
+	}
+
+	@Test
+	public void add_should_copy_execution_counts() {
+		final SourceNodeImpl plain = new SourceNodeImpl(ElementType.METHOD,
+				"plain");
+		plain.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 1);
+		final SourceNodeImpl counted = new SourceNodeImpl(ElementType.METHOD,
+				"counted");
+		counted.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0, 5);
+		counted.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 7);
+		counted.updateExecutionCount(5, 42);
+
+		final int p = columns.add(plain);
+		final int c = columns.add(counted);
+
+		assertNode(plain, p);
+		assertNode(counted, c);
+		assertEquals(42, columns.getExecutionCount(c, 5));
+		assertEquals(0, columns.getExecutionCount(c, 6));
+	}
+
+	@Test
+	public void add_should_grow_columns() {
+		for (int i = 0; i < 100; i++) {
+			final SourceNodeImpl node = new SourceNodeImpl(ElementType.METHOD,
+					"m" + i);
+			node.increment(CounterImpl.getInstance(i, 0),
+					CounterImpl.COUNTER_0_0, 10 * i);
+			node.increment(CounterImpl.getInstance(0, i),
+					CounterImpl.COUNTER_0_0, 10 * i + 9);
+			node.updateExecutionCount(10 * i, i);
+			assertEquals(i, columns.add(node));
+		}
+
+		for (int i = 0; i < 100; i++) {
+			assertEquals("m" + i, columns.getName(i));
+			assertEquals(CounterImpl.getInstance(i, 0),
+					columns.getLine(i, 10 * i).getInstructionCounter());
+			assertEquals(CounterImpl.getInstance(0, i),
+					columns.getLine(i, 10 * i + 9).getInstructionCounter());
+			assertEquals(i, columns.getExecutionCount(i, 10 * i));
+		}
+	}
+
+	@Test
+	public void trimToSize_should_keep_nodes_and_allow_further_nodes() {
+		final SourceNodeImpl node = new SourceNodeImpl(ElementType.METHOD,
+				"foo");
+		node.increment(CounterImpl.getInstance(1000, 1),
+				CounterImpl.getInstance(1, 1), 3);
+		node.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0, 4);
+		node.updateExecutionCount(4, 7);
+
+		columns.trimToSize();
+		final int n1 = columns.add(node);
+		columns.trimToSize();
+		final int n2 = columns.add(node);
+		columns.trimToSize();
+
+		assertNode(node, n1);
+		assertNode(node, n2);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void add_should_reject_line_ranges_exceeding_class_file_limits() {
+		final SourceNodeImpl node = new SourceNodeImpl(ElementType.METHOD,
+				"foo");
+		node.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 1);
+		node.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0,
+				0x10002);
+
+		columns.add(node);
+	}
+
+	@Test
+	public void applyFragment_should_replace_lines() {
+		final SourceNodeImpl node = new SourceNodeImpl(ElementType.METHOD,
+				"foo");
+		node.increment(CounterImpl.getInstance(200, 0),
+				CounterImpl.getInstance(2, 0), 1);
+		node.increment(CounterImpl.getInstance(1, 1),
+				CounterImpl.getInstance(1, 1), 2);
+		node.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 3);
+		node.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 5);
+		final SourceNodeImpl fragment = new SourceNodeImpl(null, "foo");
+		fragment.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0,
+				1);
+		fragment.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0,
+				2);
+		fragment.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0,
+				4);
+		fragment.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0,
+				9);
+		final int n = columns.add(node);
+
+		assertTrue(columns.applyFragment(n, fragment));
+		assertTrue(node.applyFragment(fragment));
+
+		assertNode(node, n);
+	}
+
+	@Test
+	public void applyFragment_should_keep_execution_counts_and_other_nodes() {
+		final SourceNodeImpl node = new SourceNodeImpl(ElementType.METHOD,
+				"foo");
+		node.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 2);
+		node.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0, 5);
+		node.updateExecutionCount(5, 7);
+		final SourceNodeImpl other = new SourceNodeImpl(ElementType.METHOD,
+				"bar");
+		other.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0, 3);
+		final SourceNodeImpl fragment = new SourceNodeImpl(null, "foo");
+		fragment.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0,
+				3);
+		fragment.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0,
+				5);
+		final int n = columns.add(node);
+		final int o = columns.add(other);
+
+		assertTrue(columns.applyFragment(n, fragment));
+		assertTrue(node.applyFragment(fragment));
+		assertTrue(columns.applyFragment(o, fragment));
+		assertTrue(other.applyFragment(fragment));
+
+		assertNode(node, n);
+		assertNode(other, o);
+		assertEquals(7, columns.getExecutionCount(n, 5));
+		assertEquals(0, columns.getExecutionCount(n, 3));
+	}
+
+	@Test
+	public void applyFragment_should_return_false_when_no_lines_match() {
+		final SourceNodeImpl node = new SourceNodeImpl(ElementType.METHOD,
+				"foo");
+		node.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 3);
+		final SourceNodeImpl fragment = new SourceNodeImpl(null, "foo");
+		fragment.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0,
+				4);
+		final int n = columns.add(node);
+		final int empty = columns
+				.add(new SourceNodeImpl(ElementType.METHOD, "bar"));
+
+		assertFalse(columns.applyFragment(n, fragment));
+		assertFalse(columns.applyFragment(empty, fragment));
+
+		assertNode(node, n);
+	}
+
+	private void assertNode(final ISourceNode expected, final int n) {
+		assertEquals(expected.getName(), columns.getName(n));
+		for (final CounterEntity entity : CounterEntity.values()) {
+			assertEquals(entity.name(), expected.getCounter(entity),
+					columns.getCounter(n, entity));
+		}
+		assertEquals(expected.getFirstLine(), columns.getFirstLine(n));
+		assertEquals(expected.getLastLine(), columns.getLastLine(n));
+		for (int nr = expected.getFirstLine() - 1; nr <= expected.getLastLine()
+				+ 1; nr++) {
+			assertEquals(String.valueOf(nr), expected.getLine(nr),
+					columns.getLine(n, nr));
+			assertEquals(String.valueOf(nr), expected.getExecutionCount(nr),
+					columns.getExecutionCount(n, nr));
+		}
+	}
+
+}
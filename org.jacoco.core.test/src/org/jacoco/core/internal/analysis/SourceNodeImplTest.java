@@ -15,6 +15,7 @@ package org.jacoco.core.internal.analysis;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import org.jacoco.core.analysis.ICounter;
 import org.jacoco.core.analysis.ICoverageNode.ElementType;
 import org.jacoco.core.analysis.ISourceNode;
 import org.junit.Test;
@@ -73,6 +74,20 @@ public class SourceNodeImplTest {
 		assertEquals(CounterImpl.COUNTER_0_0, node.getLineCounter());
 	}
 
+	@Test
+	public void testIncrementLineOnly() {
+		final SourceNodeImpl node = new SourceNodeImpl(ElementType.CLASS,
+				"Foo");
+		node.incrementLine(CounterImpl.COUNTER_1_0, 10);
+		node.incrementLine(CounterImpl.COUNTER_0_1, 12);
+		node.incrementLine(CounterImpl.COUNTER_0_1, ISourceNode.UNKNOWN_LINE);
+
+		assertEquals(CounterImpl.COUNTER_0_0, node.getInstructionCounter());
+		assertEquals(CounterImpl.getInstance(1, 1), node.getLineCounter());
+		assertEquals(ICounter.NOT_COVERED, node.getLine(10).getStatus());
+		assertEquals(ICounter.FULLY_COVERED, node.getLine(12).getStatus());
+	}
+
 	@Test
 	public void testIncrementLines() {
 		final SourceNodeImpl node = new SourceNodeImpl(ElementType.CLASS,
@@ -224,6 +239,48 @@ public class SourceNodeImplTest {
 		assertEquals(CounterImpl.getInstance(0, 1), node.getLineCounter());
 	}
 
+	@Test
+	public void testGetExecutionCountUnknown() {
+		final SourceNodeImpl node = new SourceNodeImpl(ElementType.CLASS,
+				"Foo");
+		node.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0, 5);
+
+		assertEquals(ISourceNode.UNKNOWN_EXECUTION_COUNT,
+				node.getExecutionCount(5));
+	}
+
+	@Test
+	public void testUpdateExecutionCount() {
+		final SourceNodeImpl node = new SourceNodeImpl(ElementType.CLASS,
+				"Foo");
+		node.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0, 5);
+		node.updateExecutionCount(5, 3);
+		node.updateExecutionCount(5, 2);
+		node.updateExecutionCount(3, 7);
+		node.updateExecutionCount(ISourceNode.UNKNOWN_LINE, 9);
+
+		assertEquals(7, node.getExecutionCount(3));
+		assertEquals(0, node.getExecutionCount(4));
+		assertEquals(3, node.getExecutionCount(5));
+		assertEquals(ISourceNode.UNKNOWN_EXECUTION_COUNT,
+				node.getExecutionCount(6));
+	}
+
+	@Test
+	public void testIncrementChildWithExecutionCounts() {
+		final SourceNodeImpl node = new SourceNodeImpl(ElementType.CLASS,
+				"Foo");
+		final SourceNodeImpl child = new SourceNodeImpl(ElementType.METHOD,
+				"a");
+		child.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0, 5);
+		child.updateExecutionCount(5, 3);
+
+		node.increment(child);
+		node.increment(child);
+
+		assertEquals(6, node.getExecutionCount(5));
+	}
+
 	/**
 	 * {@link SourceNodeImpl#applyFragment(SourceNodeImpl)}
 	 */
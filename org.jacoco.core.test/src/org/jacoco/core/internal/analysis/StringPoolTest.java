@@ -16,6 +16,13 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -70,4 +77,29 @@ public class StringPoolTest {
 		assertSame(arr1[0], arr2[0]);
 	}
 
+	@Test
+	public void testGetStringConcurrently() throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		final List<Future<String[]>> results = new ArrayList<Future<String[]>>();
+		for (int t = 0; t < 4; t++) {
+			results.add(executor.submit(new Callable<String[]>() {
+				public String[] call() {
+					final String[] result = new String[1000];
+					for (int i = 0; i < result.length; i++) {
+						result[i] = pool.get(new String("s" + i));
+					}
+					return result;
+				}
+			}));
+		}
+		final String[] expected = results.get(0).get();
+		for (final Future<String[]> result : results) {
+			final String[] actual = result.get();
+			for (int i = 0; i < expected.length; i++) {
+				assertSame(expected[i], actual[i]);
+			}
+		}
+		executor.shutdown();
+	}
+
 }
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.filter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.junit.Test;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Unit tests for {@link FilterSet}.
+ */
+public class FilterSetTest extends FilterTestBase {
+
+	private final List<String> invoked = new ArrayList<String>();
+
+	@Test
+	public void should_invoke_all_filters_in_order() {
+		final MethodNode m = new MethodNode(InstrSupport.ASM_API_VERSION, 0,
+				"name", "()V", null, null);
+		m.visitInsn(Opcodes.RETURN);
+
+		new FilterSet(new Filter("a"), new Filter("b"), new Filter("c"))
+				.filter(m, context, output);
+
+		assertEquals(Arrays.asList("a", "b", "c"), invoked);
+	}
+
+	@Test
+	public void should_invoke_triggered_filters_only_when_opcode_is_present() {
+		final MethodNode m = new MethodNode(InstrSupport.ASM_API_VERSION, 0,
+				"name", "()V", null, null);
+		final Label label = new Label();
+		m.visitLabel(label);
+		m.visitLineNumber(1, label);
+		m.visitVarInsn(Opcodes.ALOAD, 0);
+		m.visitJumpInsn(Opcodes.IFNULL, label);
+		m.visitInsn(Opcodes.RETURN);
+
+		new FilterSet(new Filter("a"), //
+				new TriggeredFilter("b", Opcodes.IFNONNULL), //
+				new TriggeredFilter("c", Opcodes.IFNONNULL, Opcodes.IFNULL), //
+				new TriggeredFilter("d", Opcodes.TABLESWITCH,
+						Opcodes.LOOKUPSWITCH), //
+				new TriggeredFilter("e", Opcodes.RETURN), //
+				new TriggeredFilter("f")).filter(m, context, output);
+
+		assertEquals(Arrays.asList("a", "c", "e"), invoked);
+	}
+
+	@Test
+	public void should_support_all_opcodes() {
+		final MethodNode m = new MethodNode(InstrSupport.ASM_API_VERSION, 0,
+				"name", "()V", null, null);
+		m.visitInsn(Opcodes.NOP);
+		m.visitInsn(Opcodes.RETURN);
+		m.visitMultiANewArrayInsn("[[I", 2);
+
+		new FilterSet(new TriggeredFilter("a", Opcodes.NOP), //
+				new TriggeredFilter("b", Opcodes.MULTIANEWARRAY), //
+				new TriggeredFilter("c", Opcodes.IFNONNULL), //
+				new TriggeredFilter("d", Opcodes.ARETURN)).filter(m, context,
+						output);
+
+		assertEquals(Arrays.asList("a", "b"), invoked);
+	}
+
+	private class Filter implements IFilter {
+
+		private final String name;
+
+		Filter(final String name) {
+			this.name = name;
+		}
+
+		public void filter(final MethodNode methodNode,
+				final IFilterContext context, final IFilterOutput output) {
+			invoked.add(name);
+		}
+
+	}
+
+	private class TriggeredFilter extends Filter
+			implements IOpcodeTriggeredFilter {
+
+		private final int[] opcodes;
+
+		TriggeredFilter(final String name, final int... opcodes) {
+			super(name);
+			this.opcodes = opcodes;
+		}
+
+		public int[] getTriggerOpcodes() {
+			return opcodes;
+		}
+
+	}
+
+}
@@ -17,6 +17,7 @@ import static org.junit.Assert.assertEquals;
 import java.io.UnsupportedEncodingException;
 
 import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.instr.Granularity;
 import org.junit.Test;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Opcodes;
@@ -95,4 +96,56 @@ public class CRC64Test {
 		assertEquals(0xD8016B38AAD48308L, sum);
 	}
 
+	@Test
+	public void classId_should_be_unchanged_for_branch_granularity()
+			throws UnsupportedEncodingException {
+		final byte[] bytes = "IHATEMATH".getBytes("ASCII");
+		assertEquals(CRC64.classId(bytes),
+				CRC64.classId(bytes, Granularity.BRANCH));
+	}
+
+	@Test
+	public void classId_should_be_specific_for_coarse_granularities()
+			throws UnsupportedEncodingException {
+		final byte[] bytes = "IHATEMATH".getBytes("ASCII");
+		assertEquals(CRC64.classId("IHATEMATHM".getBytes("ASCII")),
+				CRC64.classId(bytes, Granularity.METHOD));
+		assertEquals(CRC64.classId("IHATEMATHL".getBytes("ASCII")),
+				CRC64.classId(bytes, Granularity.LINE));
+	}
+
+	@Test
+	public void classId_should_be_specific_for_minimized_branch_granularity()
+			throws UnsupportedEncodingException {
+		final byte[] bytes = "IHATEMATH".getBytes("ASCII");
+		assertEquals(CRC64.classId("IHATEMATHP".getBytes("ASCII")),
+				CRC64.classId(bytes, Granularity.BRANCH, true));
+		assertEquals(CRC64.classId(bytes),
+				CRC64.classId(bytes, Granularity.BRANCH, false));
+	}
+
+	@Test
+	public void classId_should_ignore_minimized_for_coarse_granularities()
+			throws UnsupportedEncodingException {
+		final byte[] bytes = "IHATEMATH".getBytes("ASCII");
+		for (final Granularity g : Granularity.values()) {
+			if (g != Granularity.BRANCH) {
+				assertEquals(CRC64.classId(bytes, g),
+						CRC64.classId(bytes, g, true));
+			}
+		}
+	}
+
+	@Test
+	public void classId_should_be_calculated_from_branch_classId()
+			throws UnsupportedEncodingException {
+		final byte[] bytes = "IHATEMATH".getBytes("ASCII");
+		final long sum = CRC64.classId(bytes);
+		for (final Granularity g : Granularity.values()) {
+			assertEquals(CRC64.classId(bytes, g), CRC64.classId(sum, g));
+			assertEquals(CRC64.classId(bytes, g, true),
+					CRC64.classId(sum, g, true));
+		}
+	}
+
 }
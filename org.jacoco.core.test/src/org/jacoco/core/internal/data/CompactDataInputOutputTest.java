@@ -12,11 +12,14 @@
  *******************************************************************************/
 package org.jacoco.core.internal.data;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
+import java.util.Random;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -85,6 +88,53 @@ public class CompactDataInputOutputTest {
 		assertEquals(Integer.valueOf(-1), Integer.valueOf(in.read()));
 	}
 
+	@Test
+	public void testVarLong0x00() throws IOException {
+		testVarLong(0x00L);
+	}
+
+	@Test
+	public void testVarLong0x80() throws IOException {
+		testVarLong(0x80L);
+	}
+
+	@Test
+	public void testVarLong0x123456789ABCDEF0() throws IOException {
+		testVarLong(0x123456789ABCDEF0L);
+	}
+
+	@Test
+	public void testVarLongMinus1() throws IOException {
+		testVarLong(-1L);
+	}
+
+	private void testVarLong(long value) throws IOException {
+		out.writeVarLong(value);
+		out.close();
+		assertEquals(value, in.readVarLong());
+		assertEquals(Integer.valueOf(-1), Integer.valueOf(in.read()));
+	}
+
+	@Test
+	public void testVarLongArray() throws IOException {
+		final long[] values = new long[] { 0, 1, 0x7F, 0x80, Long.MAX_VALUE,
+				Long.MIN_VALUE };
+		out.writeVarLongArray(values);
+		out.close();
+		assertArrayEquals(values, in.readVarLongArray());
+		assertEquals(Integer.valueOf(-1), Integer.valueOf(in.read()));
+	}
+
+	@Test
+	public void testSkipVarLongArray() throws IOException {
+		out.writeVarLongArray(new long[] { 0, 0x80, Long.MIN_VALUE });
+		out.writeByte(42);
+		out.close();
+		in.skipVarLongArray();
+		assertEquals(42, in.readByte());
+		assertEquals(Integer.valueOf(-1), Integer.valueOf(in.read()));
+	}
+
 	@Test
 	public void testPackedBooleanEmpty() throws IOException {
 		testPackedBoolean();
@@ -116,4 +166,104 @@ public class CompactDataInputOutputTest {
 		}
 	}
 
+	@Test
+	public void testPackedBooleanWordsEmpty() throws IOException {
+		testPackedBooleanWords(0);
+	}
+
+	@Test
+	public void testPackedBooleanWords63() throws IOException {
+		testPackedBooleanWords(63);
+	}
+
+	@Test
+	public void testPackedBooleanWords64() throws IOException {
+		testPackedBooleanWords(64);
+	}
+
+	@Test
+	public void testPackedBooleanWords65() throws IOException {
+		testPackedBooleanWords(65);
+	}
+
+	@Test
+	public void testPackedBooleanWords200() throws IOException {
+		testPackedBooleanWords(200);
+	}
+
+	private void testPackedBooleanWords(int length) throws IOException {
+		final Random random = new Random(length);
+		final boolean[] values = new boolean[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = random.nextBoolean();
+		}
+		out.writeBooleanArray(values);
+		out.writePackedBooleanArray(pack(values), length);
+		out.close();
+
+		assertEquals(length, in.readVarInt());
+		final long[] words = in.readPackedBooleanArray(length);
+		assertEquals((length + 63) / 64, words.length);
+		assertArrayEquals(pack(values), words);
+		final boolean[] actual = in.readBooleanArray();
+		assertEquals(length, actual.length);
+		for (int i = 0; i < length; i++) {
+			assertEquals("Index " + i, Boolean.valueOf(values[i]),
+					Boolean.valueOf(actual[i]));
+		}
+		assertEquals(-1, in.read());
+	}
+
+	@Test
+	public void testPackedBooleanWordsIgnoresUnusedBits()
+			throws IOException {
+		out.writeVarInt(3);
+		out.writeByte(0xFF);
+		out.close();
+
+		assertEquals(3, in.readVarInt());
+		final long[] words = in.readPackedBooleanArray(3);
+		assertEquals(1, words.length);
+		assertEquals(0x07L, words[0]);
+	}
+
+	@Test
+	public void testSkipBooleanArray() throws IOException {
+		out.writeBooleanArray(new boolean[17]);
+		out.writeByte(42);
+		out.close();
+
+		in.skipBooleanArray();
+		assertEquals(42, in.readByte());
+	}
+
+	@Test(expected = EOFException.class)
+	public void testSkipBooleanArrayTruncated() throws IOException {
+		out.writeVarInt(100);
+		out.writeByte(0);
+		out.close();
+
+		in.skipBooleanArray();
+	}
+
+	@Test
+	public void testSkipUTF() throws IOException {
+		out.writeUTF("Sample\u00E4");
+		out.writeByte(42);
+		out.close();
+
+		in.skipUTF();
+		assertEquals(42, in.readByte());
+	}
+
+	private static long[] pack(boolean[] values) {
+		final long[] words = new long[(values.length + 63) / 64];
+		for (int i = 0; i < values.length; i++) {
+			if (values[i]) {
+				words[i / 64] |= 1L << (i % 64);
+			}
+		}
+		return words;
+	}
+
 }
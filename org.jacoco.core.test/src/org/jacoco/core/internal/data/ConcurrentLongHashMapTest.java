@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ConcurrentLongHashMap}.
+ */
+public class ConcurrentLongHashMapTest {
+
+	private ConcurrentLongHashMap<String> map;
+
+	@Before
+	public void setup() {
+		map = new ConcurrentLongHashMap<String>();
+	}
+
+	@Test
+	public void get_should_return_null_when_empty() {
+		assertNull(map.get(0));
+		assertNull(map.get(42));
+		assertEquals(0, map.size());
+	}
+
+	@Test
+	public void get_should_return_value_when_put() {
+		assertNull(map.putIfAbsent(42, "a"));
+		assertNull(map.putIfAbsent(0, "b"));
+		assertNull(map.putIfAbsent(-1, "c"));
+
+		assertEquals("a", map.get(42));
+		assertEquals("b", map.get(0));
+		assertEquals("c", map.get(-1));
+		assertNull(map.get(1));
+		assertEquals(3, map.size());
+	}
+
+	@Test
+	public void putIfAbsent_should_keep_existing_value() {
+		map.putIfAbsent(42, "a");
+
+		assertEquals("a", map.putIfAbsent(42, "b"));
+		assertEquals("a", map.get(42));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	public void putIfAbsent_should_handle_colliding_keys() {
+		// keys differing only in upper bits with identical lower bits
+		map.putIfAbsent(0x0000000100000000L, "a");
+		map.putIfAbsent(0x0000000200000000L, "b");
+		map.putIfAbsent(0x0000000300000000L, "c");
+
+		assertEquals("a", map.get(0x0000000100000000L));
+		assertEquals("b", map.get(0x0000000200000000L));
+		assertEquals("c", map.get(0x0000000300000000L));
+	}
+
+	@Test
+	public void putIfAbsent_should_grow_map() {
+		for (long i = 0; i < 10000; i++) {
+			map.putIfAbsent(i * 0x123456789L, String.valueOf(i));
+		}
+
+		assertEquals(10000, map.size());
+		for (long i = 0; i < 10000; i++) {
+			assertEquals(String.valueOf(i), map.get(i * 0x123456789L));
+		}
+	}
+
+	@Test
+	public void putIfAbsent_should_add_values_from_multiple_threads()
+			throws InterruptedException {
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		for (int t = 0; t < 4; t++) {
+			final long offset = t;
+			executor.execute(new Runnable() {
+				public void run() {
+					for (long i = offset; i < 10000; i += 4) {
+						map.putIfAbsent(i, String.valueOf(i));
+					}
+				}
+			});
+		}
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+
+		assertEquals(10000, map.size());
+		for (long i = 0; i < 10000; i++) {
+			assertEquals(String.valueOf(i), map.get(i));
+		}
+	}
+
+	@Test
+	public void values_should_add_all_values() {
+		map.putIfAbsent(1, "a");
+		map.putIfAbsent(2, "b");
+		map.putIfAbsent(3, "c");
+
+		final Set<String> values = new HashSet<String>();
+		map.values(values);
+
+		final Set<String> expected = new HashSet<String>();
+		expected.add("a");
+		expected.add("b");
+		expected.add("c");
+		assertEquals(expected, values);
+	}
+
+}
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.data.SessionInfoStore;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ExecutionDataIndex} and indexed output of
+ * {@link PackedExecutionDataWriter}.
+ */
+public class ExecutionDataIndexTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private ByteArrayOutputStream buffer;
+
+	private PackedExecutionDataWriter writer;
+
+	@Before
+	public void setup() throws IOException {
+		buffer = new ByteArrayOutputStream();
+		writer = new PackedExecutionDataWriter(buffer, true);
+	}
+
+	@Test
+	public void indexOf_should_find_entries() {
+		final ExecutionDataIndex index = new ExecutionDataIndex();
+		for (int i = 0; i < 100; i++) {
+			index.add(i * 3 - 50, i * 10);
+		}
+
+		assertEquals(100, index.size());
+		assertEquals(0, index.indexOf(-50));
+		assertEquals(20, index.indexOf(10));
+		assertEquals(99, index.indexOf(247));
+		assertEquals(-1, index.indexOf(11));
+		assertEquals(-1, index.indexOf(-51));
+		assertEquals(-1, index.indexOf(248));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void add_should_require_ascending_ids() {
+		final ExecutionDataIndex index = new ExecutionDataIndex();
+		index.add(2, 5);
+		index.add(2, 10);
+	}
+
+	@Test
+	public void read_should_return_index_written_by_writer()
+			throws IOException {
+		writer.visitSessionInfo(new SessionInfo("s", 1, 2));
+		writer.visitClassExecution(
+				new ExecutionData(-1, "A", new boolean[] { true }));
+		writer.visitClassExecution(
+				new ExecutionData(3, "B", new boolean[] { false }));
+		writer.visitPackedClassExecution(7, "C", 70,
+				new long[] { 0, 1 << 5 }, null);
+		writer.writeIndex();
+
+		final ExecutionDataIndex index = ExecutionDataIndex
+				.read(ByteBuffer.wrap(buffer.toByteArray()));
+		assertEquals(2, index.size());
+		assertEquals(-1, index.getId(0));
+		assertEquals(7, index.getId(1));
+		assertEquals(index.getOffset(1) - index.getOffset(0),
+				index.getLength(0));
+		assertEquals(index.getPosition() - index.getOffset(1),
+				index.getLength(1));
+
+		final File file = folder.newFile();
+		final OutputStream out = new FileOutputStream(file);
+		out.write(buffer.toByteArray());
+		out.close();
+		final FileInputStream in = new FileInputStream(file);
+		final ExecutionDataIndex fromChannel = ExecutionDataIndex
+				.read(in.getChannel());
+		in.close();
+		assertEquals(index.getPosition(), fromChannel.getPosition());
+		assertEquals(index.getOffset(1), fromChannel.getOffset(1));
+	}
+
+	@Test
+	public void indexed_file_should_declare_extended_version()
+			throws IOException {
+		writer.writeIndex();
+
+		final byte[] bytes = buffer.toByteArray();
+		assertEquals(ExecutionDataWriter.BLOCK_HEADER, bytes[5]);
+		final char version = ExecutionDataWriter.EXTENDED_FORMAT_VERSION;
+		assertEquals(version >> 8, 0xFF & bytes[8]);
+		assertEquals(version & 0xFF, 0xFF & bytes[9]);
+		assertEquals(ExecutionDataWriter.BLOCK_INDEX, bytes[10]);
+	}
+
+	@Test
+	public void indexed_file_should_be_readable_by_ExecutionDataReader()
+			throws IOException {
+		writer.visitSessionInfo(new SessionInfo("s", 1, 2));
+		writer.visitClassExecution(
+				new ExecutionData(1, "A", new boolean[] { true }));
+		writer.writeIndex();
+		new ExecutionDataWriter(buffer).visitClassExecution(
+				new ExecutionData(2, "B", new boolean[] { true }));
+
+		final ExecutionDataReader reader = new ExecutionDataReader(
+				new ByteArrayInputStream(buffer.toByteArray()));
+		final ExecutionDataStore store = new ExecutionDataStore();
+		reader.setExecutionDataVisitor(store);
+		reader.setSessionInfoVisitor(new SessionInfoStore());
+		reader.read();
+		assertNotNull(store.get(1));
+		assertNotNull(store.get(2));
+	}
+
+	@Test
+	public void read_should_return_null_for_regular_file() {
+		final ByteArrayOutputStream regular = new ByteArrayOutputStream();
+		regular.write(ExecutionDataWriter.getFileHeader(), 0, 5);
+		for (int i = 0; i < 20; i++) {
+			regular.write(0xC0);
+		}
+		assertNull(ExecutionDataIndex
+				.read(ByteBuffer.wrap(regular.toByteArray())));
+		assertNull(ExecutionDataIndex
+				.read(ByteBuffer.wrap(ExecutionDataWriter.getFileHeader())));
+	}
+
+	@Test
+	public void read_should_return_null_for_corrupt_index()
+			throws IOException {
+		writer.visitClassExecution(
+				new ExecutionData(1, "A", new boolean[] { true }));
+		writer.writeIndex();
+		final byte[] bytes = buffer.toByteArray();
+		// entry count
+		bytes[bytes.length - 10 - 16 - 1]++;
+
+		assertNull(ExecutionDataIndex.read(ByteBuffer.wrap(bytes)));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void writer_should_require_ascending_ids() {
+		writer.visitClassExecution(
+				new ExecutionData(2, "A", new boolean[] { true }));
+		writer.visitClassExecution(
+				new ExecutionData(1, "B", new boolean[] { true }));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void writer_should_require_session_infos_before_execution_data() {
+		writer.visitClassExecution(
+				new ExecutionData(2, "A", new boolean[] { true }));
+		writer.visitSessionInfo(new SessionInfo("s", 1, 2));
+	}
+
+}
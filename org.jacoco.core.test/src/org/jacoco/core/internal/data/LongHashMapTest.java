@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link LongHashMap}.
+ */
+public class LongHashMapTest {
+
+	private LongHashMap<String> map;
+
+	@Before
+	public void setup() {
+		map = new LongHashMap<String>();
+	}
+
+	@Test
+	public void get_should_return_null_when_empty() {
+		assertNull(map.get(0));
+		assertNull(map.get(42));
+		assertEquals(0, map.size());
+	}
+
+	@Test
+	public void get_should_return_value_when_put() {
+		map.put(42, "a");
+		map.put(0, "b");
+		map.put(-1, "c");
+
+		assertEquals("a", map.get(42));
+		assertEquals("b", map.get(0));
+		assertEquals("c", map.get(-1));
+		assertNull(map.get(1));
+		assertEquals(3, map.size());
+	}
+
+	@Test
+	public void put_should_replace_existing_value() {
+		map.put(42, "a");
+		map.put(42, "b");
+
+		assertEquals("b", map.get(42));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	public void put_should_handle_colliding_keys() {
+		// keys differing only in upper bits with identical lower bits
+		map.put(0x0000000100000000L, "a");
+		map.put(0x0000000200000000L, "b");
+		map.put(0x0000000300000000L, "c");
+
+		assertEquals("a", map.get(0x0000000100000000L));
+		assertEquals("b", map.get(0x0000000200000000L));
+		assertEquals("c", map.get(0x0000000300000000L));
+	}
+
+	@Test
+	public void put_should_grow_map() {
+		for (long i = 0; i < 10000; i++) {
+			map.put(i * 0x123456789L, String.valueOf(i));
+		}
+
+		assertEquals(10000, map.size());
+		for (long i = 0; i < 10000; i++) {
+			assertEquals(String.valueOf(i), map.get(i * 0x123456789L));
+		}
+	}
+
+	@Test
+	public void values_should_add_all_values() {
+		map.put(1, "a");
+		map.put(2, "b");
+		map.put(3, "c");
+
+		final Set<String> values = new HashSet<String>();
+		map.values(values);
+
+		final Set<String> expected = new HashSet<String>();
+		expected.add("a");
+		expected.add("b");
+		expected.add("c");
+		assertEquals(expected, values);
+	}
+
+}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.data.SessionInfoStore;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link PackedExecutionDataStore},
+ * {@link PackedExecutionDataReader} and {@link PackedExecutionDataWriter}.
+ */
+public class PackedExecutionDataStoreTest {
+
+	private PackedExecutionDataStore store;
+
+	@Before
+	public void setup() {
+		store = new PackedExecutionDataStore();
+	}
+
+	@Test
+	public void put_should_merge_probes() {
+		store.put(1, "Foo", 3, new long[] { 0x01 }, null);
+		store.put(1, "Foo", 3, new long[] { 0x04 }, null);
+		store.put(2, "Bar", 70, new long[] { 0, 0x20 }, null);
+
+		final ExecutionDataStore result = new ExecutionDataStore();
+		store.accept(result);
+
+		assertEquals(2, store.size());
+		assertProbes(result.get(1).getProbes(), 0, 2);
+		assertEquals("Foo", result.get(1).getName());
+		assertProbes(result.get(2).getProbes(), 69);
+		assertEquals("Bar", result.get(2).getName());
+	}
+
+	@Test
+	public void put_should_add_copy_of_execution_data() {
+		final boolean[] probes = new boolean[70];
+		probes[1] = true;
+		probes[64] = true;
+		final long[] counts = new long[70];
+		counts[1] = 42;
+		store.put(new ExecutionData(1, "Foo", probes, counts));
+		probes[2] = true;
+		counts[1] = 0;
+
+		final ExecutionDataStore result = new ExecutionDataStore();
+		store.accept(result);
+
+		assertProbes(result.get(1).getProbes(), 1, 64);
+		assertEquals(42, result.get(1).getCounts()[1]);
+	}
+
+	@Test
+	public void put_should_throw_IllegalStateException_when_names_differ() {
+		store.put(1, "Foo", 3, new long[] { 0x01 }, null);
+		try {
+			store.put(1, "Bar", 3, new long[] { 0x01 }, null);
+			fail("IllegalStateException expected");
+		} catch (final IllegalStateException e) {
+			assertEquals(
+					"Different class names Foo and Bar for id 0000000000000001.",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void put_should_throw_IllegalStateException_when_probe_counts_differ() {
+		store.put(1, "Foo", 3, new long[] { 0x01 }, null);
+		try {
+			store.put(1, "Foo", 4, new long[] { 0x01 }, null);
+			fail("IllegalStateException expected");
+		} catch (final IllegalStateException e) {
+			assertEquals(
+					"Incompatible execution data for class Foo with id 0000000000000001.",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void should_merge_files_like_ExecutionDataStore()
+			throws IOException {
+		final ExecutionDataStore expected = new ExecutionDataStore();
+		final SessionInfoStore sessions = new SessionInfoStore();
+		for (int i = 0; i < 3; i++) {
+			final ByteArrayOutputStream file = new ByteArrayOutputStream();
+			final ExecutionDataWriter writer = new ExecutionDataWriter(file);
+			writer.visitSessionInfo(new SessionInfo("s" + i, i, i));
+			writer.visitClassExecution(
+					new ExecutionData(1, "Foo", probes(130, i, 64 + i)));
+			writer.visitClassExecution(
+					new ExecutionData(2 + i, "Bar" + i, probes(5, i)));
+			final byte[] bytes = file.toByteArray();
+
+			final ExecutionDataReader reader = new ExecutionDataReader(
+					new ByteArrayInputStream(bytes));
+			reader.setSessionInfoVisitor(new SessionInfoStore());
+			reader.setExecutionDataVisitor(expected);
+			reader.read();
+
+			final PackedExecutionDataReader packedReader = new PackedExecutionDataReader(
+					new ByteArrayInputStream(bytes), store);
+			packedReader.setSessionInfoVisitor(sessions);
+			packedReader.read();
+		}
+		assertEquals(3, sessions.getInfos().size());
+
+		final ByteArrayOutputStream merged = new ByteArrayOutputStream();
+		final PackedExecutionDataWriter writer = new PackedExecutionDataWriter(
+				merged);
+		store.accept(writer);
+		writer.visitPackedClassExecution(42, "NoHits", 8, new long[1], null);
+
+		final ExecutionDataStore actual = new ExecutionDataStore();
+		final ExecutionDataReader reader = new ExecutionDataReader(
+				new ByteArrayInputStream(merged.toByteArray()));
+		reader.setExecutionDataVisitor(actual);
+		assertFalse(reader.read());
+
+		assertEquals(expected.getContents().size(),
+				actual.getContents().size());
+		for (final ExecutionData data : expected.getContents()) {
+			assertTrue(Arrays.equals(data.getProbes(),
+					actual.get(data.getId()).getProbes()));
+		}
+		assertProbes(actual.get(1).getProbes(), 0, 1, 2, 64, 65, 66);
+	}
+
+	private static boolean[] probes(final int length, final int... set) {
+		final boolean[] probes = new boolean[length];
+		for (final int i : set) {
+			probes[i] = true;
+		}
+		return probes;
+	}
+
+	private static void assertProbes(final boolean[] actual,
+			final int... expected) {
+		assertTrue(Arrays.equals(probes(actual.length, expected), actual));
+	}
+
+}
@@ -14,8 +14,11 @@ package org.jacoco.core.internal.flow;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import org.jacoco.core.instr.Granularity;
 import org.junit.Test;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.Label;
@@ -31,6 +34,14 @@ public class ClassProbesAdapterTest {
 
 		boolean frame = false;
 
+		ProbeImplications implications;
+
+		@Override
+		public void visitProbeImplications(
+				ProbeImplications implications) {
+			this.implications = implications;
+		}
+
 		@Override
 		public void visitJumpInsnWithProbe(int opcode, Label label, int probeId,
 				IFrame frame) {
@@ -147,6 +158,76 @@ public class ClassProbesAdapterTest {
 		assertFalse(mv.frame);
 	}
 
+	@Test
+	public void testMethodGranularity() {
+		final MockClassVisitor cv = new MockClassVisitor();
+		final ClassProbesAdapter adapter = new ClassProbesAdapter(cv, false,
+				Granularity.METHOD);
+		writeMethod(adapter); // 1 probe
+		writeMethodWithBranch(adapter); // 1 probe
+		writeMethodWithLines(adapter); // 1 probe
+		writeAbstractMethod(adapter); // no probe
+		adapter.visitEnd();
+		assertEquals(3, cv.count);
+	}
+
+	@Test
+	public void testLineGranularity() {
+		final MockClassVisitor cv = new MockClassVisitor();
+		final ClassProbesAdapter adapter = new ClassProbesAdapter(cv, false,
+				Granularity.LINE);
+		writeMethod(adapter); // 1 probe as there are no lines
+		writeMethodWithLines(adapter); // 2 probes
+		writeAbstractMethod(adapter); // no probe
+		adapter.visitEnd();
+		assertEquals(3, cv.count);
+	}
+
+	@Test
+	public void testVisitWithImplications() {
+		final MockMethodVisitor mv = new MockMethodVisitor();
+		final MockClassVisitor cv = new MockClassVisitor() {
+			@Override
+			public MethodProbesVisitor visitMethod(int access, String name,
+					String desc, String signature, String[] exceptions) {
+				return mv;
+			}
+		};
+		final ClassProbesAdapter adapter = new ClassProbesAdapter(cv, false,
+				Granularity.BRANCH, true);
+		writeMethodWithBranch(adapter);
+		adapter.visitEnd();
+		assertNotNull(mv.implications);
+		assertEquals(3, cv.count);
+	}
+
+	@Test
+	public void testVisitWithoutImplications() {
+		final MockMethodVisitor mv = new MockMethodVisitor();
+		final MockClassVisitor cv = new MockClassVisitor() {
+			@Override
+			public MethodProbesVisitor visitMethod(int access, String name,
+					String desc, String signature, String[] exceptions) {
+				return mv;
+			}
+		};
+		final ClassProbesAdapter adapter = new ClassProbesAdapter(cv, false,
+				Granularity.BRANCH, false);
+		writeMethodWithBranch(adapter);
+		adapter.visitEnd();
+		assertNull(mv.implications);
+	}
+
+	@Test
+	public void testVisitWithImplicationsNullMethodVisitor() {
+		final MockClassVisitor cv = new MockClassVisitor();
+		final ClassProbesAdapter adapter = new ClassProbesAdapter(cv, false,
+				Granularity.BRANCH, true);
+		writeMethodWithBranch(adapter);
+		adapter.visitEnd();
+		assertEquals(3, cv.count);
+	}
+
 	private void writeMethod(final ClassVisitor cv) {
 		MethodVisitor mv = cv.visitMethod(0, "foo", "()V", null, null);
 		mv.visitCode();
@@ -155,6 +236,27 @@ public class ClassProbesAdapterTest {
 		mv.visitEnd();
 	}
 
+	private void writeMethodWithLines(final ClassVisitor cv) {
+		MethodVisitor mv = cv.visitMethod(0, "foo", "()V", null, null);
+		mv.visitCode();
+		final Label l1 = new Label();
+		mv.visitLabel(l1);
+		mv.visitLineNumber(1, l1);
+		mv.visitInsn(Opcodes.NOP);
+		final Label l2 = new Label();
+		mv.visitLabel(l2);
+		mv.visitLineNumber(2, l2);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 1);
+		mv.visitEnd();
+	}
+
+	private void writeAbstractMethod(final ClassVisitor cv) {
+		MethodVisitor mv = cv.visitMethod(Opcodes.ACC_ABSTRACT, "foo", "()V",
+				null, null);
+		mv.visitEnd();
+	}
+
 	private void writeMethodWithBranch(final ClassVisitor cv) {
 		MethodVisitor mv = cv.visitMethod(0, "foo", "()V", null, null);
 		mv.visitCode();
@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.flow;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.jacoco.core.instr.MethodRecorder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.util.Printer;
+
+/**
+ * Unit tests for {@link CoarseMethodProbesAdapter}.
+ */
+public class CoarseMethodProbesAdapterTest implements IProbeIdGenerator {
+
+	private int id;
+
+	private MethodRecorder expected, actual;
+
+	private MethodProbesVisitor expectedVisitor, actualVisitor;
+
+	private static class TraceAdapter extends MethodProbesVisitor {
+
+		private final Printer printer;
+
+		TraceAdapter(MethodRecorder recorder) {
+			super(recorder.getVisitor());
+			printer = recorder.getPrinter();
+		}
+
+		@Override
+		public void visitProbe(int probeId) {
+			printer.text.add(
+					"visitProbe" + Arrays.asList(Integer.valueOf(probeId)));
+		}
+
+	}
+
+	@Before
+	public void setup() {
+		id = 1000;
+		expected = new MethodRecorder();
+		expectedVisitor = new TraceAdapter(expected);
+		actual = new MethodRecorder();
+		actualVisitor = new TraceAdapter(actual);
+	}
+
+	@After
+	public void verify() {
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void should_emit_probe_at_method_entry() {
+		final MethodVisitor adapter = new CoarseMethodProbesAdapter(
+				actualVisitor, this, true, false);
+		final Label label = new Label();
+
+		adapter.visitCode();
+		adapter.visitLabel(label);
+		adapter.visitLineNumber(3, label);
+		adapter.visitInsn(Opcodes.NOP);
+		adapter.visitLineNumber(4, label);
+		adapter.visitInsn(Opcodes.RETURN);
+
+		expectedVisitor.visitCode();
+		expectedVisitor.visitProbe(1000);
+		expectedVisitor.visitLabel(label);
+		expectedVisitor.visitLineNumber(3, label);
+		expectedVisitor.visitInsn(Opcodes.NOP);
+		expectedVisitor.visitLineNumber(4, label);
+		expectedVisitor.visitInsn(Opcodes.RETURN);
+	}
+
+	@Test
+	public void should_emit_probe_before_first_instruction_of_every_line() {
+		final MethodVisitor adapter = new CoarseMethodProbesAdapter(
+				actualVisitor, this, false, true);
+		final Label l1 = new Label();
+		final Label l2 = new Label();
+
+		adapter.visitCode();
+		adapter.visitLabel(l1);
+		adapter.visitLineNumber(3, l1);
+		adapter.visitFrame(Opcodes.F_SAME, 0, null, 0, null);
+		adapter.visitVarInsn(Opcodes.ILOAD, 1);
+		adapter.visitJumpInsn(Opcodes.IFEQ, l2);
+		adapter.visitLabel(l2);
+		adapter.visitLineNumber(4, l2);
+		adapter.visitInsn(Opcodes.RETURN);
+
+		expectedVisitor.visitCode();
+		expectedVisitor.visitLabel(l1);
+		expectedVisitor.visitLineNumber(3, l1);
+		expectedVisitor.visitFrame(Opcodes.F_SAME, 0, null, 0, null);
+		expectedVisitor.visitProbe(1000);
+		expectedVisitor.visitVarInsn(Opcodes.ILOAD, 1);
+		expectedVisitor.visitJumpInsn(Opcodes.IFEQ, l2);
+		expectedVisitor.visitLabel(l2);
+		expectedVisitor.visitLineNumber(4, l2);
+		expectedVisitor.visitProbe(1001);
+		expectedVisitor.visitInsn(Opcodes.RETURN);
+	}
+
+	@Test
+	public void should_emit_probe_for_all_instruction_types() {
+		final MethodVisitor adapter = new CoarseMethodProbesAdapter(
+				actualVisitor, this, false, true);
+		final Label label = new Label();
+
+		adapter.visitLineNumber(1, label);
+		adapter.visitIntInsn(Opcodes.BIPUSH, 5);
+		adapter.visitLineNumber(2, label);
+		adapter.visitTypeInsn(Opcodes.NEW, "Foo");
+		adapter.visitLineNumber(3, label);
+		adapter.visitFieldInsn(Opcodes.GETSTATIC, "Foo", "f", "I");
+		adapter.visitLineNumber(4, label);
+		adapter.visitMethodInsn(Opcodes.INVOKESTATIC, "Foo", "m", "()V",
+				false);
+		adapter.visitLineNumber(5, label);
+		adapter.visitLdcInsn("x");
+		adapter.visitLineNumber(6, label);
+		adapter.visitIincInsn(1, 1);
+		adapter.visitLineNumber(7, label);
+		adapter.visitTableSwitchInsn(0, 0, label, label);
+		adapter.visitLineNumber(8, label);
+		adapter.visitLookupSwitchInsn(label, new int[] { 0 },
+				new Label[] { label });
+		adapter.visitLineNumber(9, label);
+		adapter.visitMultiANewArrayInsn("[[I", 2);
+
+		expectedVisitor.visitLineNumber(1, label);
+		expectedVisitor.visitProbe(1000);
+		expectedVisitor.visitIntInsn(Opcodes.BIPUSH, 5);
+		expectedVisitor.visitLineNumber(2, label);
+		expectedVisitor.visitProbe(1001);
+		expectedVisitor.visitTypeInsn(Opcodes.NEW, "Foo");
+		expectedVisitor.visitLineNumber(3, label);
+		expectedVisitor.visitProbe(1002);
+		expectedVisitor.visitFieldInsn(Opcodes.GETSTATIC, "Foo", "f", "I");
+		expectedVisitor.visitLineNumber(4, label);
+		expectedVisitor.visitProbe(1003);
+		expectedVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, "Foo", "m",
+				"()V", false);
+		expectedVisitor.visitLineNumber(5, label);
+		expectedVisitor.visitProbe(1004);
+		expectedVisitor.visitLdcInsn("x");
+		expectedVisitor.visitLineNumber(6, label);
+		expectedVisitor.visitProbe(1005);
+		expectedVisitor.visitIincInsn(1, 1);
+		expectedVisitor.visitLineNumber(7, label);
+		expectedVisitor.visitProbe(1006);
+		expectedVisitor.visitTableSwitchInsn(0, 0, label, label);
+		expectedVisitor.visitLineNumber(8, label);
+		expectedVisitor.visitProbe(1007);
+		expectedVisitor.visitLookupSwitchInsn(label, new int[] { 0 },
+				new Label[] { label });
+		expectedVisitor.visitLineNumber(9, label);
+		expectedVisitor.visitProbe(1008);
+		expectedVisitor.visitMultiANewArrayInsn("[[I", 2);
+	}
+
+	@Test
+	public void should_not_emit_probes_without_entry_and_lines() {
+		final MethodVisitor adapter = new CoarseMethodProbesAdapter(
+				actualVisitor, this, false, false);
+		final Label label = new Label();
+
+		adapter.visitCode();
+		adapter.visitLineNumber(3, label);
+		adapter.visitInsn(Opcodes.RETURN);
+
+		expectedVisitor.visitCode();
+		expectedVisitor.visitLineNumber(3, label);
+		expectedVisitor.visitInsn(Opcodes.RETURN);
+	}
+
+	// === IProbeIdGenerator ===
+
+	public int nextId() {
+		return id++;
+	}
+
+}
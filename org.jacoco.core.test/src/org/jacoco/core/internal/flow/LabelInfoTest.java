@@ -18,7 +18,6 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
-import org.jacoco.core.internal.analysis.Instruction;
 import org.junit.Before;
 import org.junit.Test;
 import org.objectweb.asm.Label;
@@ -43,7 +42,8 @@ public class LabelInfoTest {
 		assertFalse(LabelInfo.isDone(label));
 		assertEquals(LabelInfo.NO_PROBE, LabelInfo.getProbeId(label));
 		assertNull(LabelInfo.getIntermediateLabel(label));
-		assertNull(LabelInfo.getInstruction(label));
+		assertEquals(LabelInfo.NO_INSTRUCTION,
+				LabelInfo.getInstruction(label));
 	}
 
 	@Test
@@ -161,9 +161,8 @@ public class LabelInfoTest {
 
 	@Test
 	public void testSetInstruction() {
-		final Instruction instruction = new Instruction(123);
-		LabelInfo.setInstruction(label, instruction);
-		assertSame(instruction, LabelInfo.getInstruction(label));
+		LabelInfo.setInstruction(label, 123);
+		assertEquals(123, LabelInfo.getInstruction(label));
 	}
 
 }
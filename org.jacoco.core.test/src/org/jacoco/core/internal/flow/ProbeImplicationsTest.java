@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.flow;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Unit tests for {@link ProbeImplications}.
+ */
+public class ProbeImplicationsTest {
+
+	private MethodNode method;
+
+	private ProbeImplications implications;
+
+	@Before
+	public void setup() {
+		method = new MethodNode(0, "m", "(I)V", null, null);
+	}
+
+	@Test
+	public void should_keep_single_probe() {
+		method.visitInsn(Opcodes.NOP);
+		method.visitInsn(Opcodes.RETURN);
+
+		calculate(1);
+
+		assertRedundant("-");
+	}
+
+	@Test
+	public void should_omit_probe_after_merge_of_straight_branches() {
+		final Label l1 = new Label();
+		final Label l2 = new Label();
+		method.visitVarInsn(Opcodes.ILOAD, 1);
+		method.visitJumpInsn(Opcodes.IFEQ, l1);
+		method.visitInsn(Opcodes.NOP);
+		method.visitJumpInsn(Opcodes.GOTO, l2); // probe 0
+		method.visitLabel(l1);
+		method.visitInsn(Opcodes.NOP);
+		method.visitLabel(l2); // probe 1
+		method.visitInsn(Opcodes.RETURN); // probe 2
+
+		calculate(3);
+
+		assertRedundant("--R");
+		assertInfer("X--", "X-X");
+		assertInfer("-X-", "-XX");
+	}
+
+	@Test
+	public void should_not_omit_probe_after_instruction_which_may_throw() {
+		final Label l1 = new Label();
+		final Label l2 = new Label();
+		method.visitVarInsn(Opcodes.ILOAD, 1);
+		method.visitJumpInsn(Opcodes.IFEQ, l1);
+		method.visitInsn(Opcodes.NOP);
+		method.visitJumpInsn(Opcodes.GOTO, l2); // probe 0
+		method.visitLabel(l1);
+		method.visitInsn(Opcodes.NOP);
+		method.visitLabel(l2); // probe 1
+		method.visitTypeInsn(Opcodes.NEW, "Foo");
+		method.visitInsn(Opcodes.POP);
+		method.visitInsn(Opcodes.RETURN); // probe 2
+
+		calculate(3);
+
+		assertRedundant("---");
+		assertInfer("--X", "--X");
+	}
+
+	@Test
+	public void should_omit_entry_probe_of_loop() {
+		final Label l0 = new Label();
+		final Label l1 = new Label();
+		method.visitInsn(Opcodes.NOP);
+		method.visitLabel(l0); // probe 0
+		method.visitVarInsn(Opcodes.ILOAD, 1);
+		method.visitJumpInsn(Opcodes.IFEQ, l1);
+		method.visitIincInsn(1, -1);
+		method.visitJumpInsn(Opcodes.GOTO, l0); // probe 1
+		method.visitLabel(l1);
+		method.visitInsn(Opcodes.RETURN); // probe 2
+
+		calculate(3);
+
+		assertRedundant("R--");
+		assertInfer("--X", "X-X");
+		assertInfer("-X-", "XX-");
+	}
+
+	@Test
+	public void should_keep_probe_before_line_with_method_invocation() {
+		final Label l0 = new Label();
+		final Label l1 = new Label();
+		final Label l2 = new Label();
+		method.visitLabel(l0);
+		method.visitLineNumber(1, l0);
+		method.visitInsn(Opcodes.NOP);
+		method.visitLabel(l1); // probe 0
+		method.visitLineNumber(2, l1);
+		method.visitMethodInsn(Opcodes.INVOKESTATIC, "Foo", "m", "()V",
+				false);
+		method.visitVarInsn(Opcodes.ILOAD, 1);
+		method.visitJumpInsn(Opcodes.IFEQ, l2);
+		method.visitInsn(Opcodes.RETURN); // probe 1
+		method.visitLabel(l2);
+		method.visitInsn(Opcodes.RETURN); // probe 2
+
+		calculate(3);
+
+		assertRedundant("---");
+	}
+
+	@Test
+	public void should_not_omit_probes_within_try_catch_block() {
+		final Label start = new Label();
+		final Label end = new Label();
+		final Label handler = new Label();
+		method.visitTryCatchBlock(start, end, handler, null);
+		method.visitLabel(start);
+		method.visitMethodInsn(Opcodes.INVOKESTATIC, "Foo", "m", "()V",
+				false);
+		method.visitInsn(Opcodes.RETURN); // probe 0
+		method.visitLabel(end);
+		method.visitLabel(handler);
+		method.visitInsn(Opcodes.POP);
+		method.visitInsn(Opcodes.RETURN); // probe 1
+
+		calculate(2);
+
+		assertRedundant("--");
+	}
+
+	@Test
+	public void infer_should_return_same_array_when_nothing_is_implied() {
+		final Label l1 = new Label();
+		final Label l2 = new Label();
+		method.visitVarInsn(Opcodes.ILOAD, 1);
+		method.visitJumpInsn(Opcodes.IFEQ, l1);
+		method.visitInsn(Opcodes.NOP);
+		method.visitJumpInsn(Opcodes.GOTO, l2);
+		method.visitLabel(l1);
+		method.visitInsn(Opcodes.NOP);
+		method.visitLabel(l2);
+		method.visitInsn(Opcodes.RETURN);
+
+		calculate(3);
+
+		final boolean[] probes = new boolean[] { true, false, true };
+		assertSame(probes, implications.infer(probes));
+	}
+
+	@Test
+	public void infer_should_respect_first_probe_id() {
+		final Label l1 = new Label();
+		final Label l2 = new Label();
+		method.visitVarInsn(Opcodes.ILOAD, 1);
+		method.visitJumpInsn(Opcodes.IFEQ, l1);
+		method.visitInsn(Opcodes.NOP);
+		method.visitJumpInsn(Opcodes.GOTO, l2);
+		method.visitLabel(l1);
+		method.visitInsn(Opcodes.NOP);
+		method.visitLabel(l2);
+		method.visitInsn(Opcodes.RETURN);
+
+		LabelFlowAnalyzer.markLabels(method);
+		implications = ProbeImplications.calculate(method, 5);
+
+		final boolean[] probes = new boolean[8];
+		probes[5] = true;
+		final boolean[] result = implications.infer(probes);
+
+		assertArrayEquals(new boolean[] { false, false, false, false, false,
+				true, false, true }, result);
+		assertEquals(false, probes[7]);
+	}
+
+	private void calculate(final int expectedProbeCount) {
+		LabelFlowAnalyzer.markLabels(method);
+		implications = ProbeImplications.calculate(method, 0);
+		assertEquals(expectedProbeCount, countProbes());
+	}
+
+	private int countProbes() {
+		final int[] count = new int[1];
+		final MethodProbesVisitor counter = new MethodProbesVisitor() {
+			@Override
+			public void visitProbe(int probeId) {
+				count[0]++;
+			}
+
+			@Override
+			public void visitJumpInsnWithProbe(int opcode, Label label,
+					int probeId, IFrame frame) {
+				count[0]++;
+			}
+
+			@Override
+			public void visitInsnWithProbe(int opcode, int probeId) {
+				count[0]++;
+			}
+		};
+		method.instructions.accept(new MethodProbesAdapter(counter,
+				new IProbeIdGenerator() {
+					private int id;
+
+					public int nextId() {
+						return id++;
+					}
+				}));
+		return count[0];
+	}
+
+	private void assertRedundant(final String expected) {
+		final StringBuilder actual = new StringBuilder();
+		for (int i = 0; i < expected.length(); i++) {
+			actual.append(implications.isRedundant(i) ? 'R' : '-');
+		}
+		assertEquals(expected, actual.toString());
+	}
+
+	private void assertInfer(final String executed, final String expected) {
+		final boolean[] probes = new boolean[executed.length()];
+		for (int i = 0; i < probes.length; i++) {
+			probes[i] = executed.charAt(i) == 'X';
+		}
+		final boolean[] result = implications.infer(probes);
+		final StringBuilder actual = new StringBuilder();
+		for (int i = 0; i < result.length; i++) {
+			actual.append(result[i] ? 'X' : '-');
+		}
+		assertEquals(expected, actual.toString());
+	}
+
+}
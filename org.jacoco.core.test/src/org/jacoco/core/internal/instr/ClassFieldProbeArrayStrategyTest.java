@@ -30,7 +30,7 @@ import org.objectweb.asm.tree.MethodNode;
 public class ClassFieldProbeArrayStrategyTest {
 
 	private ClassFieldProbeArrayStrategy create(final boolean withFrames) {
-		return new ClassFieldProbeArrayStrategy("ClassName", 1L, withFrames,
+		return new ClassFieldProbeArrayStrategy("ClassName", 1L, withFrames, false,
 				new IExecutionDataAccessorGenerator() {
 					public int generateDataAccessor(final long classid,
 							final String classname, final int probecount,
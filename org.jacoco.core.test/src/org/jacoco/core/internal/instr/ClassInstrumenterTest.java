@@ -13,6 +13,7 @@
 package org.jacoco.core.internal.instr;
 
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -61,6 +62,27 @@ public class ClassInstrumenterTest implements IProbeArrayStrategy {
 		assertNull(instrumenter.visitMethod(0, "foo", "()V", null, null));
 	}
 
+	@Test
+	public void visitMethod_should_not_instrument_methods_without_probes() {
+		instrumenter = new ClassInstrumenter(this, false,
+				new ClassVisitor(InstrSupport.ASM_API_VERSION) {
+					@Override
+					public MethodVisitor visitMethod(int access, String name,
+							String desc, String signature,
+							String[] exceptions) {
+						return new MethodVisitor(
+								InstrSupport.ASM_API_VERSION) {
+						};
+					}
+				});
+
+		assertTrue(instrumenter.visitMethod(0, "foo", "()V", null,
+				null) instanceof ProbeFreeMethodVisitor);
+		assertTrue(instrumenter.visitMethod(InstrSupport.CLINIT_ACC,
+				InstrSupport.CLINIT_NAME, InstrSupport.CLINIT_DESC, null,
+				null) instanceof MethodInstrumenter);
+	}
+
 	// === IProbeArrayStrategy ===
 
 	public int storeInstance(MethodVisitor mv, boolean clinit, int variable) {
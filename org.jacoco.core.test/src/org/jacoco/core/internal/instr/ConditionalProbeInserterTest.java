@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.instr;
+
+import static org.junit.Assert.assertEquals;
+
+import org.jacoco.core.instr.MethodRecorder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.commons.AnalyzerAdapter;
+
+/**
+ * Unit tests for {@link ConditionalProbeInserter}.
+ */
+public class ConditionalProbeInserterTest {
+
+	private MethodRecorder actual, expected;
+
+	private MethodVisitor actualVisitor, expectedVisitor;
+
+	private IProbeArrayStrategy arrayStrategy;
+
+	@Before
+	public void setup() {
+		actual = new MethodRecorder();
+		actualVisitor = actual.getVisitor();
+		expected = new MethodRecorder();
+		expectedVisitor = expected.getVisitor();
+		arrayStrategy = new IProbeArrayStrategy() {
+			public int storeInstance(MethodVisitor mv, boolean clinit,
+					int variable) {
+				return 0;
+			}
+
+			public void addMembers(ClassVisitor delegate, int probeCount) {
+			}
+		};
+	}
+
+	@After
+	public void verify() {
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void insertProbe_should_only_write_when_probe_is_not_set() {
+		ConditionalProbeInserter pi = new ConditionalProbeInserter(0, "m",
+				"()V", actualVisitor, arrayStrategy);
+		pi.insertProbe(7);
+
+		final Label executed = new Label();
+		expectedVisitor.visitVarInsn(Opcodes.ALOAD, 2);
+		expectedVisitor.visitIntInsn(Opcodes.BIPUSH, 7);
+		expectedVisitor.visitInsn(Opcodes.BALOAD);
+		expectedVisitor.visitJumpInsn(Opcodes.IFNE, executed);
+		expectedVisitor.visitVarInsn(Opcodes.ALOAD, 2);
+		expectedVisitor.visitIntInsn(Opcodes.BIPUSH, 7);
+		expectedVisitor.visitInsn(Opcodes.ICONST_1);
+		expectedVisitor.visitInsn(Opcodes.BASTORE);
+		expectedVisitor.visitLabel(executed);
+	}
+
+	@Test
+	public void insertProbe_should_emit_frame_when_analyzer_is_set() {
+		ConditionalProbeInserter pi = new ConditionalProbeInserter(
+				Opcodes.ACC_STATIC, "m", "(I)V", actualVisitor, arrayStrategy);
+		AnalyzerAdapter analyzer = new AnalyzerAdapter("Foo",
+				Opcodes.ACC_STATIC, "m", "(I)V", pi);
+		pi.setAnalyzer(analyzer);
+		analyzer.visitLdcInsn("x");
+		pi.insertProbe(0);
+
+		final Label executed = new Label();
+		expectedVisitor.visitLdcInsn("x");
+		expectedVisitor.visitVarInsn(Opcodes.ALOAD, 2);
+		expectedVisitor.visitInsn(Opcodes.ICONST_0);
+		expectedVisitor.visitInsn(Opcodes.BALOAD);
+		expectedVisitor.visitJumpInsn(Opcodes.IFNE, executed);
+		expectedVisitor.visitVarInsn(Opcodes.ALOAD, 2);
+		expectedVisitor.visitInsn(Opcodes.ICONST_0);
+		expectedVisitor.visitInsn(Opcodes.ICONST_1);
+		expectedVisitor.visitInsn(Opcodes.BASTORE);
+		expectedVisitor.visitLabel(executed);
+		expectedVisitor.visitFrame(Opcodes.F_NEW, 3,
+				new Object[] { Opcodes.INTEGER, Opcodes.TOP, "[Z" }, 1,
+				new Object[] { "java/lang/String" });
+		expectedVisitor.visitInsn(Opcodes.NOP);
+	}
+
+}
@@ -36,7 +36,7 @@ public class CondyProbeArrayStrategyTest {
 
 	@Before
 	public void setup() {
-		strategy = new CondyProbeArrayStrategy("ClassName", true, 1L,
+		strategy = new CondyProbeArrayStrategy("ClassName", true, 1L, false,
 				new OfflineInstrumentationAccessGenerator());
 	}
 
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.instr;
+
+import static org.junit.Assert.assertEquals;
+
+import org.jacoco.core.instr.MethodRecorder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Unit tests for {@link CountingProbeInserter}.
+ */
+public class CountingProbeInserterTest {
+
+	private MethodRecorder actual, expected;
+
+	private MethodVisitor actualVisitor, expectedVisitor;
+
+	private IProbeArrayStrategy arrayStrategy;
+
+	@Before
+	public void setup() {
+		actual = new MethodRecorder();
+		actualVisitor = actual.getVisitor();
+		expected = new MethodRecorder();
+		expectedVisitor = expected.getVisitor();
+		arrayStrategy = new IProbeArrayStrategy() {
+			public int storeInstance(MethodVisitor mv, boolean clinit,
+					int variable) {
+				return 0;
+			}
+
+			public void addMembers(ClassVisitor delegate, int probeCount) {
+			}
+		};
+	}
+
+	@After
+	public void verify() {
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void insertProbe_should_increment_counter() {
+		CountingProbeInserter pi = new CountingProbeInserter(0, "m", "()V",
+				actualVisitor, arrayStrategy);
+		pi.insertProbe(7);
+
+		expectedVisitor.visitVarInsn(Opcodes.ALOAD, 2);
+		expectedVisitor.visitIntInsn(Opcodes.BIPUSH, 7);
+		expectedVisitor.visitInsn(Opcodes.DUP2);
+		expectedVisitor.visitInsn(Opcodes.LALOAD);
+		expectedVisitor.visitInsn(Opcodes.LCONST_1);
+		expectedVisitor.visitInsn(Opcodes.LADD);
+		expectedVisitor.visitInsn(Opcodes.LASTORE);
+	}
+
+	@Test
+	public void visitMaxs_should_increase_stack_size_by_6() {
+		CountingProbeInserter pi = new CountingProbeInserter(0, "m", "()V",
+				actualVisitor, arrayStrategy);
+		pi.visitMaxs(10, 3);
+
+		expectedVisitor.visitMaxs(16, 5);
+	}
+
+	@Test
+	public void visitFrame_should_insert_counter_array_variable() {
+		CountingProbeInserter pi = new CountingProbeInserter(Opcodes.ACC_STATIC,
+				"m", "(I)V", actualVisitor, arrayStrategy);
+		pi.visitFrame(Opcodes.F_NEW, 1, new Object[] { Opcodes.INTEGER }, 0,
+				new Object[0]);
+
+		expectedVisitor.visitFrame(Opcodes.F_NEW, 3,
+				new Object[] { Opcodes.INTEGER, Opcodes.TOP, "[J" }, 0,
+				new Object[0]);
+	}
+
+}
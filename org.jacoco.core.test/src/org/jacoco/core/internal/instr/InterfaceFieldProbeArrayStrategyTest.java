@@ -34,7 +34,7 @@ public class InterfaceFieldProbeArrayStrategyTest {
 
 	@Before
 	public void setup() {
-		strategy = new InterfaceFieldProbeArrayStrategy("ClassName", 1L, 2,
+		strategy = new InterfaceFieldProbeArrayStrategy("ClassName", 1L, 2, false,
 				new IExecutionDataAccessorGenerator() {
 					public int generateDataAccessor(final long classid,
 							final String classname, final int probecount,
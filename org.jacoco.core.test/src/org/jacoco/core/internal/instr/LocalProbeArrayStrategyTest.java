@@ -31,7 +31,7 @@ public class LocalProbeArrayStrategyTest {
 
 	@Before
 	public void setup() {
-		strategy = new LocalProbeArrayStrategy("ClassName", 1L, 2,
+		strategy = new LocalProbeArrayStrategy("ClassName", 1L, 2, false,
 				new IExecutionDataAccessorGenerator() {
 					public int generateDataAccessor(final long classid,
 							final String classname, final int probecount,
@@ -16,12 +16,15 @@ import static org.junit.Assert.assertEquals;
 
 import org.jacoco.core.instr.MethodRecorder;
 import org.jacoco.core.internal.flow.IFrame;
+import org.jacoco.core.internal.flow.LabelFlowAnalyzer;
 import org.jacoco.core.internal.flow.LabelInfo;
+import org.jacoco.core.internal.flow.ProbeImplications;
 import org.junit.Before;
 import org.junit.Test;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.MethodNode;
 
 /**
  * Unit tests for {@link MethodInstrumenter}.
@@ -233,4 +236,76 @@ public class MethodInstrumenterTest {
 		assertEquals(expected, actual);
 	}
 
+	@Test
+	public void testVisitProbeRedundant() {
+		instrumenter.visitProbeImplications(createImplications());
+		instrumenter.visitProbe(1);
+		instrumenter.visitProbe(2);
+
+		expectedVisitor.visitLdcInsn("Probe 1");
+
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testVisitInsnWithProbeRedundant() {
+		instrumenter.visitProbeImplications(createImplications());
+		instrumenter.visitInsnWithProbe(Opcodes.RETURN, 2);
+
+		expectedVisitor.visitInsn(Opcodes.RETURN);
+
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testVisitJumpInsnWithProbeRedundant() {
+		instrumenter.visitProbeImplications(createImplications());
+		final Label label = new Label();
+		instrumenter.visitJumpInsnWithProbe(Opcodes.IFEQ, label, 2, frame);
+
+		expectedVisitor.visitJumpInsn(Opcodes.IFEQ, label);
+
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testVisitTableSwitchInsnWithProbesRedundant() {
+		instrumenter.visitProbeImplications(createImplications());
+		final Label L0 = new Label();
+		final Label L1 = new Label();
+		LabelInfo.setProbeId(L0, 2);
+		LabelInfo.setProbeId(L1, 1);
+		instrumenter.visitTableSwitchInsnWithProbes(3, 4, L0,
+				new Label[] { L1, L1 }, frame);
+
+		final Label intermediate = new Label();
+		expectedVisitor.visitTableSwitchInsn(3, 4, L0,
+				new Label[] { intermediate, intermediate });
+		expectedVisitor.visitLabel(intermediate);
+		expectedVisitor.visitFrame(Opcodes.F_FULL, 0, null, 0, null);
+		expectedVisitor.visitLdcInsn("Probe 1");
+		expectedVisitor.visitJumpInsn(Opcodes.GOTO, new Label());
+
+		assertEquals(expected, actual);
+	}
+
+	/**
+	 * Implications of a method with three probes where the last probe is
+	 * implied by the two others.
+	 */
+	private static ProbeImplications createImplications() {
+		final MethodNode method = new MethodNode(0, "m", "(I)V", null, null);
+		final Label l1 = new Label();
+		final Label l2 = new Label();
+		method.visitVarInsn(Opcodes.ILOAD, 1);
+		method.visitJumpInsn(Opcodes.IFEQ, l1);
+		method.visitJumpInsn(Opcodes.GOTO, l2); // probe 0
+		method.visitLabel(l1);
+		method.visitInsn(Opcodes.NOP);
+		method.visitLabel(l2); // probe 1
+		method.visitInsn(Opcodes.RETURN); // probe 2
+		LabelFlowAnalyzer.markLabels(method);
+		return ProbeImplications.calculate(method, 0);
+	}
+
 }
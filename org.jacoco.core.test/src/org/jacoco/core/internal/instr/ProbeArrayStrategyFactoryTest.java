@@ -20,6 +20,7 @@ import static org.junit.Assert.fail;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.jacoco.core.instr.Granularity;
 import org.jacoco.core.runtime.IExecutionDataAccessorGenerator;
 import org.jacoco.core.runtime.OfflineInstrumentationAccessGenerator;
 import org.junit.Before;
@@ -271,7 +272,8 @@ public class ProbeArrayStrategyFactoryTest {
 		writer.visitModule("module", 0, null).visitEnd();
 		writer.visitEnd();
 		return ProbeArrayStrategyFactory.createFor(0,
-				new ClassReader(writer.toByteArray()), generator);
+				new ClassReader(writer.toByteArray()), generator,
+				Granularity.BRANCH);
 	}
 
 	private IProbeArrayStrategy test(int version, int access, boolean clinit,
@@ -304,7 +306,8 @@ public class ProbeArrayStrategyFactoryTest {
 		writer.visitEnd();
 
 		final IProbeArrayStrategy strategy = ProbeArrayStrategyFactory
-				.createFor(0, new ClassReader(writer.toByteArray()), generator);
+				.createFor(0, new ClassReader(writer.toByteArray()), generator,
+						Granularity.BRANCH);
 
 		strategy.addMembers(cv, 123);
 		return strategy;
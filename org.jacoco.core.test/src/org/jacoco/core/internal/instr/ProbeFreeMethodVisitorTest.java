@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.instr;
+
+import static org.junit.Assert.assertEquals;
+
+import org.jacoco.core.instr.MethodRecorder;
+import org.jacoco.core.internal.flow.IFrame;
+import org.jacoco.core.internal.flow.LabelInfo;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Unit tests for {@link ProbeFreeMethodVisitor}.
+ */
+public class ProbeFreeMethodVisitorTest {
+
+	private ProbeFreeMethodVisitor visitor;
+
+	private MethodRecorder expected, actual;
+
+	private MethodVisitor expectedVisitor;
+
+	private IFrame frame;
+
+	@Before
+	public void setup() {
+		actual = new MethodRecorder();
+		expected = new MethodRecorder();
+		expectedVisitor = expected.getVisitor();
+		visitor = new ProbeFreeMethodVisitor(actual.getVisitor());
+		frame = new IFrame() {
+			public void accept(MethodVisitor mv) {
+				mv.visitFrame(Opcodes.F_FULL, 0, null, 0, null);
+			}
+		};
+	}
+
+	@Test
+	public void testVisitProbe() {
+		visitor.visitProbe(33);
+
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testVisitInsnWithProbe() {
+		visitor.visitInsnWithProbe(Opcodes.RETURN, 3);
+
+		expectedVisitor.visitInsn(Opcodes.RETURN);
+
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testVisitJumpInsnWithProbe() {
+		final Label label = new Label();
+		visitor.visitJumpInsnWithProbe(Opcodes.IFEQ, label, 3, frame);
+
+		expectedVisitor.visitJumpInsn(Opcodes.IFEQ, label);
+
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testVisitTableSwitchInsnWithProbes() {
+		final Label L0 = new Label();
+		final Label L1 = new Label();
+		final Label L2 = new Label();
+		LabelInfo.setProbeId(L0, 0);
+		LabelInfo.setProbeId(L1, 1);
+		visitor.visitTableSwitchInsnWithProbes(3, 5, L0,
+				new Label[] { L1, L1, L2 }, frame);
+
+		expectedVisitor.visitTableSwitchInsn(3, 5, L0,
+				new Label[] { L1, L1, L2 });
+
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testVisitLookupSwitchInsnWithProbes() {
+		final Label L0 = new Label();
+		final Label L1 = new Label();
+		final Label L2 = new Label();
+		LabelInfo.setProbeId(L0, 0);
+		LabelInfo.setProbeId(L1, 1);
+		visitor.visitLookupSwitchInsnWithProbes(L0, new int[] { 10, 20, 30 },
+				new Label[] { L1, L1, L2 }, frame);
+
+		expectedVisitor.visitLookupSwitchInsn(L0, new int[] { 10, 20, 30 },
+				new Label[] { L1, L1, L2 });
+
+		assertEquals(expected, actual);
+	}
+
+}
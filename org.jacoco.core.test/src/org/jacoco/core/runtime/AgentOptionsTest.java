@@ -20,6 +20,7 @@ import static org.junit.Assert.assertTrue;
 import java.io.File;
 import java.util.Properties;
 
+import org.jacoco.core.instr.Granularity;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -52,6 +53,13 @@ public class AgentOptionsTest {
 		assertEquals(AgentOptions.DEFAULT_ADDRESS, options.getAddress());
 		assertEquals(AgentOptions.DEFAULT_PORT, options.getPort());
 		assertNull(options.getClassDumpDir());
+		assertNull(options.getCacheDir());
+		assertEquals(AgentOptions.DEFAULT_CACHESIZE, options.getCacheSize());
+		assertEquals(0, options.getRetransformInterval());
+		assertEquals(Granularity.BRANCH, options.getGranularity());
+		assertFalse(options.getMinimizeProbes());
+		assertFalse(options.getConditionalProbes());
+		assertFalse(options.getExecutionCounts());
 		assertFalse(options.getJmx());
 
 		assertEquals("", options.toString());
@@ -85,6 +93,13 @@ public class AgentOptionsTest {
 		properties.put("address", "remotehost");
 		properties.put("port", "1234");
 		properties.put("classdumpdir", "target/dump");
+		properties.put("cachedir", "target/cache");
+		properties.put("cachesize", "42");
+		properties.put("retransforminterval", "60");
+		properties.put("granularity", "line");
+		properties.put("minimizeprobes", "true");
+		properties.put("conditionalprobes", "true");
+		properties.put("executioncounts", "true");
 		properties.put("jmx", "true");
 
 		AgentOptions options = new AgentOptions(properties);
@@ -103,6 +118,13 @@ public class AgentOptionsTest {
 		assertEquals("remotehost", options.getAddress());
 		assertEquals(1234, options.getPort());
 		assertEquals("target/dump", options.getClassDumpDir());
+		assertEquals("target/cache", options.getCacheDir());
+		assertEquals(42, options.getCacheSize());
+		assertEquals(60, options.getRetransformInterval());
+		assertEquals(Granularity.LINE, options.getGranularity());
+		assertTrue(options.getMinimizeProbes());
+		assertTrue(options.getConditionalProbes());
+		assertTrue(options.getExecutionCounts());
 		assertTrue(options.getJmx());
 	}
 
@@ -388,6 +410,136 @@ public class AgentOptionsTest {
 		assertEquals("classdumpdir=target/dump", options.toString());
 	}
 
+	@Test
+	public void testGetCacheDir() {
+		AgentOptions options = new AgentOptions("cachedir=target/cache");
+		assertEquals("target/cache", options.getCacheDir());
+	}
+
+	@Test
+	public void testSetCacheDir() {
+		AgentOptions options = new AgentOptions();
+		options.setCacheDir("target/cache");
+		assertEquals("target/cache", options.getCacheDir());
+		assertEquals("cachedir=target/cache", options.toString());
+	}
+
+	@Test
+	public void testGetCacheSize() {
+		AgentOptions options = new AgentOptions("cachesize=42");
+		assertEquals(42, options.getCacheSize());
+	}
+
+	@Test
+	public void testSetCacheSize() {
+		AgentOptions options = new AgentOptions();
+		options.setCacheSize(42);
+		assertEquals(42, options.getCacheSize());
+		assertEquals("cachesize=42", options.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidCacheSizeOptionValue() {
+		new AgentOptions("cachesize=0");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetInvalidCacheSize() {
+		new AgentOptions().setCacheSize(-1);
+	}
+
+	@Test
+	public void testGetRetransformInterval() {
+		AgentOptions options = new AgentOptions("retransforminterval=60");
+		assertEquals(60, options.getRetransformInterval());
+	}
+
+	@Test
+	public void testSetRetransformInterval() {
+		AgentOptions options = new AgentOptions();
+		options.setRetransformInterval(60);
+		assertEquals(60, options.getRetransformInterval());
+		assertEquals("retransforminterval=60", options.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidRetransformIntervalOptionValue() {
+		new AgentOptions("retransforminterval=-1");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetInvalidRetransformInterval() {
+		new AgentOptions().setRetransformInterval(-1);
+	}
+
+	@Test
+	public void testGetGranularity() {
+		AgentOptions options = new AgentOptions("granularity=method");
+		assertEquals(Granularity.METHOD, options.getGranularity());
+	}
+
+	@Test
+	public void testSetGranularity() {
+		AgentOptions options = new AgentOptions();
+		options.setGranularity(Granularity.LINE);
+		assertEquals(Granularity.LINE, options.getGranularity());
+		assertEquals("granularity=line", options.toString());
+	}
+
+	@Test
+	public void testSetGranularityString() {
+		AgentOptions options = new AgentOptions();
+		options.setGranularity("method");
+		assertEquals(Granularity.METHOD, options.getGranularity());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidGranularityOptionValue() {
+		new AgentOptions("granularity=statement");
+	}
+
+	@Test
+	public void testGetMinimizeProbes() {
+		AgentOptions options = new AgentOptions("minimizeprobes=true");
+		assertTrue(options.getMinimizeProbes());
+	}
+
+	@Test
+	public void testSetMinimizeProbes() {
+		AgentOptions options = new AgentOptions();
+		options.setMinimizeProbes(true);
+		assertTrue(options.getMinimizeProbes());
+		assertEquals("minimizeprobes=true", options.toString());
+	}
+
+	@Test
+	public void testGetConditionalProbes() {
+		AgentOptions options = new AgentOptions("conditionalprobes=true");
+		assertTrue(options.getConditionalProbes());
+	}
+
+	@Test
+	public void testSetConditionalProbes() {
+		AgentOptions options = new AgentOptions();
+		options.setConditionalProbes(true);
+		assertTrue(options.getConditionalProbes());
+		assertEquals("conditionalprobes=true", options.toString());
+	}
+
+	@Test
+	public void testGetExecutionCounts() {
+		AgentOptions options = new AgentOptions("executioncounts=true");
+		assertTrue(options.getExecutionCounts());
+	}
+
+	@Test
+	public void testSetExecutionCounts() {
+		AgentOptions options = new AgentOptions();
+		options.setExecutionCounts(true);
+		assertTrue(options.getExecutionCounts());
+		assertEquals("executioncounts=true", options.toString());
+	}
+
 	@Test
 	public void testGetJmx() {
 		AgentOptions options = new AgentOptions("jmx=true");
@@ -15,8 +15,10 @@ package org.jacoco.core.runtime;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.Instrumentation;
@@ -26,6 +28,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
 
+import org.jacoco.core.internal.instr.InstrSupport;
 import org.jacoco.core.test.TargetLoader;
 import org.junit.Test;
 
@@ -46,6 +49,33 @@ public class ModifiedSystemClassRuntimeTest extends RuntimeTestBase {
 		ModifiedSystemClassRuntime.createFor(inst, TARGET_CLASS_NAME);
 	}
 
+	@Test
+	public void instrument_should_add_typed_access_methods() throws Exception {
+		final byte[] source = TargetLoader
+				.getClassDataAsBytes(ModifiedSystemClassRuntimeTest.class);
+		assumeTrue(MethodHandleAccessor
+				.isSupported(InstrSupport.getMajorVersion(source)));
+		final Class<?> targetClass = new TargetLoader().add(
+				TARGET_CLASS_NAME.replace('/', '.'),
+				ModifiedSystemClassRuntime.instrument(source, "$jacocoAccess"));
+		final RuntimeData data = new RuntimeData();
+		new ModifiedSystemClassRuntime(targetClass, "$jacocoAccess")
+				.startup(data);
+
+		final Method probes = targetClass.getMethod("$jacocoAccessProbes",
+				Long.TYPE, String.class, Integer.TYPE);
+		assertSame(
+				data.getExecutionData(Long.valueOf(42), "Foo", 3).getProbes(),
+				probes.invoke(null, Long.valueOf(42), "Foo",
+						Integer.valueOf(3)));
+		final Method counters = targetClass.getMethod(
+				"$jacocoAccessCounters", Long.TYPE, String.class,
+				Integer.TYPE);
+		assertSame(data.getCounters(Long.valueOf(43), "Bar", 2),
+				counters.invoke(null, Long.valueOf(43), "Bar",
+						Integer.valueOf(2)));
+	}
+
 	/** This static member emulate the instrumented system class. */
 	public static Object accessField;
 
@@ -15,6 +15,7 @@ package org.jacoco.core.runtime;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -85,6 +86,47 @@ public class RemoteControlReaderWriterTest
 		assertEquals("cmd(" + doDump + "," + doReset + ")", calls.toString());
 	}
 
+	@Test
+	public void should_read_delta_commands() throws IOException {
+		writer.visitDeltaDumpCommand("a");
+		writer.visitDeltaConfirmCommand("b");
+		final RemoteControlReader reader = createReader();
+		final StringBuilder calls = new StringBuilder();
+		reader.setRemoteCommandVisitor(new IRemoteDeltaCommandVisitor() {
+
+			public void visitDumpCommand(boolean dump, boolean reset) {
+				calls.append("cmd(" + dump + "," + reset + ")");
+			}
+
+			public void visitDeltaDumpCommand(String checkpoint) {
+				calls.append("delta(" + checkpoint + ")");
+			}
+
+			public void visitDeltaConfirmCommand(String checkpoint) {
+				calls.append("confirm(" + checkpoint + ")");
+			}
+		});
+		assertFalse(reader.read());
+		assertEquals("delta(a)confirm(b)", calls.toString());
+	}
+
+	@Test
+	public void delta_dump_command_should_throw_IOException_when_visitor_does_not_support_it()
+			throws IOException {
+		writer.visitDeltaDumpCommand("a");
+		final RemoteControlReader reader = createReader();
+		reader.setRemoteCommandVisitor(new IRemoteCommandVisitor() {
+			public void visitDumpCommand(boolean dump, boolean reset) {
+			}
+		});
+		try {
+			reader.read();
+			fail("IOException expected");
+		} catch (IOException e) {
+			assertEquals("Delta dump command not supported.", e.getMessage());
+		}
+	}
+
 	@Test
 	public void testSendCmdOk() throws IOException {
 		writer.sendCmdOk();
@@ -12,13 +12,26 @@
  *******************************************************************************/
 package org.jacoco.core.runtime;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
 
 import org.jacoco.core.test.TargetLoader;
 import org.junit.Before;
@@ -68,6 +81,63 @@ public class RuntimeDataTest {
 		assertEquals("Foo", storage.getData(123).getName());
 	}
 
+	@Test
+	public void testGetProbesWithCounters() {
+		Object[] args = new Object[] { Long.valueOf(123), "Foo",
+				Integer.valueOf(3), null };
+		data.equals(args);
+
+		assertSame(data.getCounters(Long.valueOf(123), "Foo", 3), args[0]);
+	}
+
+	@Test
+	public void testGetCounters() {
+		final long[][] counters = data.getCounters(Long.valueOf(123), "Foo", 3);
+
+		assertTrue(counters.length > 0);
+		assertEquals(0, counters.length & (counters.length - 1));
+		for (final long[] c : counters) {
+			assertEquals(3, c.length);
+		}
+		assertSame(counters, data.getCounters(Long.valueOf(123), "Foo", 3));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testGetCountersIncompatible() {
+		data.getExecutionData(Long.valueOf(123), "Foo", 3);
+		data.getCounters(Long.valueOf(123), "Foo", 3);
+	}
+
+	@Test
+	public void collect_should_sum_up_counters() {
+		data = new RuntimeData(4);
+		final long[][] counters = data.getCounters(Long.valueOf(123), "Foo", 3);
+		counters[0][1] = 2;
+		counters[3][1] = 3;
+		counters[2][2] = 0x100000000L;
+		counters[1][2] = 0xFFFFFFFFL;
+
+		data.collect(storage, storage, false);
+
+		final ExecutionData executionData = storage.getData(123);
+		assertArrayEquals(new boolean[] { false, true, true },
+				executionData.getProbes());
+		assertArrayEquals(new long[] { 0, 5, 0x1FFFFFFFFL },
+				executionData.getCounts());
+	}
+
+	@Test
+	public void reset_should_clear_counters() {
+		final long[][] counters = data.getCounters(Long.valueOf(123), "Foo", 1);
+		counters[0][0] = 42;
+
+		data.collect(storage, storage, true);
+
+		assertEquals(0, counters[0][0]);
+		assertEquals(0, data.getExecutionData(Long.valueOf(123), "Foo", 1)
+				.getCounts()[0]);
+	}
+
 	@Test
 	public void testCollectEmpty() {
 		data.collect(storage, storage, false);
@@ -100,6 +170,329 @@ public class RuntimeDataTest {
 		assertEquals("testsession", storage.getSessionInfo().getId());
 	}
 
+	@Test
+	public void collectSnapshot_should_provide_copy_of_execution_data() {
+		data.setSessionId("testsession");
+		final boolean[] probes = data
+				.getExecutionData(Long.valueOf(123), "Foo", 70).getProbes();
+		probes[0] = true;
+		probes[69] = true;
+		final long[][] counters = data.getCounters(Long.valueOf(456), "Bar", 1);
+		counters[0][0] = 5;
+
+		data.collectSnapshot(storage, storage, true);
+
+		assertFalse(probes[0]);
+		assertEquals(0, counters[0][0]);
+		assertEquals("testsession", storage.getSessionInfo().getId());
+		final ExecutionData foo = storage.getData(123);
+		assertEquals("Foo", foo.getName());
+		assertTrue(foo.getProbes()[0]);
+		assertFalse(foo.getProbes()[1]);
+		assertTrue(foo.getProbes()[69]);
+		assertArrayEquals(new long[] { 5 }, storage.getData(456).getCounts());
+	}
+
+	@Test
+	public void collectSnapshot_should_not_hold_lock_while_visiting()
+			throws Exception {
+		data.getExecutionData(Long.valueOf(123), "Foo", 1).getProbes()[0] = true;
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		final List<Boolean> resets = new ArrayList<Boolean>();
+
+		data.collectSnapshot(new IExecutionDataVisitor() {
+			public void visitClassExecution(final ExecutionData ed) {
+				final Future<?> reset = executor.submit(new Runnable() {
+					public void run() {
+						data.reset();
+					}
+				});
+				try {
+					reset.get(10, TimeUnit.SECONDS);
+				} catch (final Exception e) {
+					throw new AssertionError(e);
+				}
+				resets.add(Boolean.valueOf(ed.getProbes()[0]));
+			}
+		}, storage, false);
+		executor.shutdown();
+
+		assertEquals(1, resets.size());
+		assertTrue(resets.get(0).booleanValue());
+	}
+
+	@Test
+	public void collectDelta_should_only_provide_probes_executed_since_confirmed_delta() {
+		data.setSessionId("testsession");
+		final boolean[] probes = data
+				.getExecutionData(Long.valueOf(123), "Foo", 3).getProbes();
+		data.getExecutionData(Long.valueOf(456), "Bar", 1);
+		probes[0] = true;
+
+		data.collectDelta("c", storage, storage);
+		data.confirmDelta("c");
+
+		assertEquals("testsession", storage.getSessionInfo().getId());
+		storage.assertSize(1);
+		assertArrayEquals(new boolean[] { true, false, false },
+				storage.getData(123).getProbes());
+
+		probes[2] = true;
+		storage = new TestStorage();
+		data.collectDelta("c", storage, storage);
+		data.confirmDelta("c");
+
+		storage.assertSize(1);
+		assertArrayEquals(new boolean[] { false, false, true },
+				storage.getData(123).getProbes());
+
+		storage = new TestStorage();
+		data.collectDelta("c", storage, storage);
+
+		storage.assertSize(0);
+		assertTrue(probes[0]);
+		assertTrue(probes[2]);
+	}
+
+	@Test
+	public void collectDelta_should_provide_unconfirmed_delta_again() {
+		final boolean[] probes = data
+				.getExecutionData(Long.valueOf(123), "Foo", 2).getProbes();
+		probes[0] = true;
+		data.collectDelta("c", storage, storage);
+
+		probes[1] = true;
+		storage = new TestStorage();
+		data.collectDelta("c", storage, storage);
+
+		assertArrayEquals(new boolean[] { true, true },
+				storage.getData(123).getProbes());
+	}
+
+	@Test
+	public void collectDelta_should_keep_independent_checkpoints() {
+		final boolean[] probes = data
+				.getExecutionData(Long.valueOf(123), "Foo", 1).getProbes();
+		probes[0] = true;
+		data.collectDelta("a", storage, storage);
+		data.confirmDelta("a");
+
+		storage = new TestStorage();
+		data.collectDelta("b", storage, storage);
+
+		assertArrayEquals(new boolean[] { true },
+				storage.getData(123).getProbes());
+	}
+
+	@Test
+	public void collectDelta_should_provide_counts_since_confirmed_delta() {
+		final long[][] counters = data.getCounters(Long.valueOf(123), "Foo", 2);
+		counters[0][0] = 3;
+
+		data.collectDelta("c", storage, storage);
+		data.confirmDelta("c");
+		assertArrayEquals(new long[] { 3, 0 },
+				storage.getData(123).getCounts());
+
+		counters[0][0] = 5;
+		storage = new TestStorage();
+		data.collectDelta("c", storage, storage);
+		assertArrayEquals(new long[] { 2, 0 },
+				storage.getData(123).getCounts());
+
+		counters[0][1] = 1;
+		storage = new TestStorage();
+		data.collectDelta("c", storage, storage);
+		data.confirmDelta("c");
+
+		assertArrayEquals(new boolean[] { true, true },
+				storage.getData(123).getProbes());
+		assertArrayEquals(new long[] { 2, 1 },
+				storage.getData(123).getCounts());
+
+		storage = new TestStorage();
+		data.collectDelta("c", storage, storage);
+		storage.assertSize(0);
+	}
+
+	@Test
+	public void collectDelta_should_reset_execution_data() {
+		final boolean[] probes = data
+				.getExecutionData(Long.valueOf(123), "Foo", 2).getProbes();
+		probes[0] = true;
+
+		data.collectDelta("c", storage, storage, true);
+
+		assertArrayEquals(new boolean[] { true, false },
+				storage.getData(123).getProbes());
+		assertFalse(probes[0]);
+
+		probes[1] = true;
+		storage = new TestStorage();
+		data.collectDelta("c", storage, storage, false);
+
+		assertArrayEquals(new boolean[] { false, true },
+				storage.getData(123).getProbes());
+	}
+
+	@Test
+	public void collectDelta_should_start_new_checkpoint_after_reset() {
+		final ExecutionData foo = data.getExecutionData(Long.valueOf(123),
+				"Foo", 1);
+		foo.getProbes()[0] = true;
+		data.collectDelta("c", storage, storage);
+
+		data.reset();
+		data.confirmDelta("c");
+		foo.getProbes()[0] = true;
+		storage = new TestStorage();
+		data.collectDelta("c", storage, storage);
+
+		assertArrayEquals(new boolean[] { true },
+				storage.getData(123).getProbes());
+	}
+
+	@Test
+	public void testGetExecutionDataReturnsSameInstance() {
+		final ExecutionData first = data.getExecutionData(Long.valueOf(123),
+				"Foo", 2);
+		final ExecutionData second = data.getExecutionData(Long.valueOf(123),
+				"Foo", 2);
+
+		assertSame(first, second);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testGetExecutionDataIncompatible() {
+		data.getExecutionData(Long.valueOf(123), "Foo", 2);
+		data.getExecutionData(Long.valueOf(123), "Foo", 3);
+	}
+
+	@Test
+	public void testResetAfterGetExecutionData() {
+		final boolean[] probes = data
+				.getExecutionData(Long.valueOf(123), "Foo", 1).getProbes();
+		probes[0] = true;
+
+		data.reset();
+
+		assertFalse(probes[0]);
+	}
+
+	@Test
+	public void reset_should_call_beforeReset_before_probes_are_cleared() {
+		final List<Boolean> calls = new ArrayList<Boolean>();
+		final boolean[][] probes = new boolean[1][];
+		data = new RuntimeData() {
+			@Override
+			protected void beforeReset() {
+				calls.add(Boolean.valueOf(probes[0][0]));
+			}
+		};
+		probes[0] = data.getExecutionData(Long.valueOf(123), "Foo", 1)
+				.getProbes();
+		probes[0][0] = true;
+
+		data.reset();
+		data.collect(storage, storage, true);
+		data.collect(storage, storage, false);
+
+		assertEquals(2, calls.size());
+		assertTrue(calls.get(0).booleanValue());
+		assertFalse(calls.get(1).booleanValue());
+	}
+
+	@Test
+	public void reset_should_call_hooks_without_holding_lock_on_store() {
+		final List<String> calls = new ArrayList<String>();
+		data = new RuntimeData() {
+			@Override
+			protected void beforeReset() {
+				calls.add("before " + Thread.holdsLock(store));
+			}
+
+			@Override
+			protected void afterReset() {
+				calls.add("after " + Thread.holdsLock(store));
+			}
+		};
+
+		data.reset();
+		data.collect(storage, storage, true);
+		data.collectSnapshot(storage, storage, true);
+		data.collectDelta("c", storage, storage, true);
+		data.collectSnapshot(storage, storage, false);
+
+		assertEquals(8, calls.size());
+		for (int i = 0; i < calls.size(); i += 2) {
+			assertEquals("before false", calls.get(i));
+			assertEquals("after false", calls.get(i + 1));
+		}
+	}
+
+	@Test
+	public void reset_should_call_afterReset_when_beforeReset_fails() {
+		final List<String> calls = new ArrayList<String>();
+		data = new RuntimeData() {
+			@Override
+			protected void beforeReset() {
+				throw new IllegalStateException();
+			}
+
+			@Override
+			protected void afterReset() {
+				calls.add("after");
+			}
+		};
+
+		try {
+			data.reset();
+			fail("IllegalStateException expected");
+		} catch (final IllegalStateException e) {
+			// expected
+		}
+
+		assertEquals(Arrays.asList("after"), calls);
+	}
+
+	@Test
+	public void testConcurrentGetExecutionData() throws Exception {
+		final int threads = 8;
+		final int classes = 1000;
+		final CountDownLatch start = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final List<Future<boolean[][]>> results = new ArrayList<Future<boolean[][]>>();
+		for (int t = 0; t < threads; t++) {
+			results.add(executor.submit(new Callable<boolean[][]>() {
+				public boolean[][] call() throws Exception {
+					start.await();
+					final boolean[][] probes = new boolean[classes][];
+					for (int i = 0; i < classes; i++) {
+						probes[i] = data.getExecutionData(Long.valueOf(i),
+								"Class" + i, 1).getProbes();
+					}
+					return probes;
+				}
+			}));
+		}
+		start.countDown();
+		final boolean[][] expected = results.get(0).get();
+		for (final Future<boolean[][]> result : results) {
+			final boolean[][] actual = result.get();
+			for (int i = 0; i < classes; i++) {
+				assertSame(expected[i], actual[i]);
+			}
+		}
+		executor.shutdown();
+
+		data.collect(storage, storage, false);
+
+		storage.assertSize(classes);
+		for (int i = 0; i < classes; i++) {
+			assertSame(expected[i], storage.getData(i).getProbes());
+		}
+	}
+
 	@Test
 	public void testEquals() {
 		assertTrue(data.equals(data));
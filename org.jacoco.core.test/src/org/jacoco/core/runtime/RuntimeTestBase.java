@@ -13,9 +13,12 @@
 package org.jacoco.core.runtime;
 
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.concurrent.Callable;
+
 import org.jacoco.core.internal.instr.InstrSupport;
 import org.jacoco.core.test.TargetLoader;
 import org.junit.After;
@@ -97,6 +100,51 @@ public abstract class RuntimeTestBase {
 		assertTrue(data[1]);
 	}
 
+	@Test
+	public void testCountersAccessor() throws Exception {
+		final String className = "org/jacoco/test/targets/RuntimeTestTarget_Counters";
+
+		final ClassWriter writer = new ClassWriter(0);
+		writer.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC, className, null,
+				"java/lang/Object",
+				new String[] { Type.getInternalName(Callable.class) });
+
+		// Constructor
+		GeneratorAdapter gen = new GeneratorAdapter(
+				writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null,
+						new String[0]),
+				Opcodes.ACC_PUBLIC, "<init>", "()V");
+		gen.visitCode();
+		gen.loadThis();
+		gen.invokeConstructor(Type.getType(Object.class),
+				new Method("<init>", "()V"));
+		gen.returnValue();
+		gen.visitMaxs(1, 1);
+		gen.visitEnd();
+
+		// call()
+		gen = new GeneratorAdapter(
+				writer.visitMethod(Opcodes.ACC_PUBLIC, "call",
+						"()Ljava/lang/Object;", null, new String[0]),
+				Opcodes.ACC_PUBLIC, "call", "()Ljava/lang/Object;");
+		gen.visitCode();
+		final int size = ((IExecutionCountersAccessorGenerator) runtime)
+				.generateCountersAccessor(1001, className, 2, gen);
+		gen.returnValue();
+		gen.visitMaxs(size, 1);
+		gen.visitEnd();
+
+		writer.visitEnd();
+
+		final TargetLoader loader = new TargetLoader();
+		final Callable<?> target = (Callable<?>) loader
+				.add(className.replace('/', '.'), writer.toByteArray())
+				.newInstance();
+
+		assertSame(data.getCounters(Long.valueOf(1001), className, 2),
+				target.call());
+	}
+
 	/**
 	 * Creates a new class with the given id, loads this class and instantiates
 	 * it. The constructor of the generated class will request the probe array
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.runtime.RuntimeData;
+
+/**
+ * Scenario to measure the time taken by instrumented classes to register their
+ * probe arrays from multiple threads in parallel, like it happens when classes
+ * get loaded concurrently. The reference is a runtime which serializes all
+ * registrations on a single lock.
+ */
+public class ConcurrentRegistrationScenario extends TimedScenario {
+
+	private final int threads;
+
+	private final int count;
+
+	protected ConcurrentRegistrationScenario(final int threads,
+			final int count) {
+		super(String.format("registering %s classes",
+				Integer.valueOf(count)));
+		this.threads = threads;
+		this.count = count;
+	}
+
+	@Override
+	protected Callable<Void> getInstrumentedCallable() throws Exception {
+		return new Registration(new RuntimeData());
+	}
+
+	@Override
+	protected Callable<Void> getReferenceCallable() throws Exception {
+		return new Registration(new SynchronizedRuntimeData());
+	}
+
+	private class Registration implements Callable<Void> {
+
+		private final RuntimeData data;
+
+		Registration(final RuntimeData data) {
+			this.data = data;
+		}
+
+		public Void call() throws Exception {
+			final ExecutorService executor = Executors
+					.newFixedThreadPool(threads);
+			final List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int t = 0; t < threads; t++) {
+				final int offset = t;
+				futures.add(executor.submit(new Callable<Void>() {
+					public Void call() throws Exception {
+						for (int i = offset; i < count; i += threads) {
+							final Object[] args = new Object[] {
+									Long.valueOf(i), "Target",
+									Integer.valueOf(10) };
+							data.equals(args);
+						}
+						return null;
+					}
+				}));
+			}
+			for (final Future<?> f : futures) {
+				f.get();
+			}
+			executor.shutdown();
+			return null;
+		}
+	}
+
+	/**
+	 * Runtime which registers all classes under a global lock.
+	 */
+	private static class SynchronizedRuntimeData extends RuntimeData {
+
+		@Override
+		public ExecutionData getExecutionData(final Long id,
+				final String name, final int probecount) {
+			synchronized (store) {
+				return store.get(id, name, probecount);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.IExecutionDataVisitor;
+
+/**
+ * Scenario to measure time and memory consumption of merging execution data
+ * of many sessions into a {@link ExecutionDataStore}. The reference is a store
+ * based on a {@link HashMap} with boxed {@link Long} keys.
+ */
+public class ExecutionDataStoreScenario extends TimedScenario {
+
+	private final int sessions;
+
+	private final int count;
+
+	private final ExecutionData[][] input;
+
+	protected ExecutionDataStoreScenario(final int sessions, final int count) {
+		super(String.format("merging %s classes", Integer.valueOf(count)));
+		this.sessions = sessions;
+		this.count = count;
+		this.input = createInput();
+	}
+
+	private ExecutionData[][] createInput() {
+		final ExecutionData[][] result = new ExecutionData[sessions][count];
+		for (int s = 0; s < sessions; s++) {
+			for (int i = 0; i < count; i++) {
+				final boolean[] probes = new boolean[16];
+				probes[(s + i) % probes.length] = true;
+				result[s][i] = new ExecutionData(i * 0x9E3779B97F4A7C15L,
+						"Class" + i, probes);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void run(final IPerfOutput output) throws Exception {
+		super.run(output);
+		final long reference = getRetainedMemory(new HashMapStore());
+		final long size = getRetainedMemory(new ExecutionDataStore());
+		output.writeByteResult("retained store memory", size, reference);
+	}
+
+	private long getRetainedMemory(final IExecutionDataVisitor store)
+			throws Exception {
+		final long before = getUsedMemory();
+		merge(store);
+		final long after = getUsedMemory();
+		// keep store reachable until memory has been measured
+		store.hashCode();
+		return after - before;
+	}
+
+	private static long getUsedMemory() throws InterruptedException {
+		final Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private void merge(final IExecutionDataVisitor store) {
+		for (final ExecutionData[] session : input) {
+			for (final ExecutionData data : session) {
+				// copy probes as merging modifies the first instance
+				store.visitClassExecution(new ExecutionData(data.getId(),
+						data.getName(), data.getProbes().clone()));
+			}
+		}
+	}
+
+	@Override
+	protected Callable<Void> getInstrumentedCallable() throws Exception {
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				merge(new ExecutionDataStore());
+				return null;
+			}
+		};
+	}
+
+	@Override
+	protected Callable<Void> getReferenceCallable() throws Exception {
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				merge(new HashMapStore());
+				return null;
+			}
+		};
+	}
+
+	/**
+	 * Store implementation with boxed keys and an eager name index.
+	 */
+	private static class HashMapStore implements IExecutionDataVisitor {
+
+		private final Map<Long, ExecutionData> entries = new HashMap<Long, ExecutionData>();
+
+		private final Set<String> names = new HashSet<String>();
+
+		public void visitClassExecution(final ExecutionData data) {
+			final Long id = Long.valueOf(data.getId());
+			final ExecutionData entry = entries.get(id);
+			if (entry == null) {
+				entries.put(id, data);
+				names.add(data.getName());
+			} else {
+				entry.merge(data);
+			}
+		}
+
+	}
+
+}
@@ -21,13 +21,25 @@ import java.io.PrintWriter;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 
+import org.jacoco.core.analysis.AnalysisCache;
 import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.CompactCoverageBuilder;
 import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.IClassCoverage;
 import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.ICoverageNode.CounterEntity;
 import org.jacoco.core.analysis.ILine;
+import org.jacoco.core.analysis.IMethodCoverage;
+import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.core.analysis.ISourceFileCoverage;
+import org.jacoco.core.analysis.ISourceNode;
 import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.SessionInfo;
@@ -43,7 +55,9 @@ import org.jacoco.report.IReportVisitor;
 import org.jacoco.report.ISourceFileLocator;
 import org.jacoco.report.html.HTMLFormatter;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runners.model.MultipleFailureException;
 import org.objectweb.asm.util.ASMifier;
 import org.objectweb.asm.util.Textifier;
@@ -59,6 +73,12 @@ public abstract class ValidationTestBase {
 
 	private static final String[] STATUS_NAME = new String[4];
 
+	private static final Comparator<ICoverageNode> NAME_ORDER = new Comparator<ICoverageNode>() {
+		public int compare(final ICoverageNode n1, final ICoverageNode n2) {
+			return n1.getName().compareTo(n2.getName());
+		}
+	};
+
 	{
 		STATUS_NAME[ICounter.EMPTY] = "EMPTY";
 		STATUS_NAME[ICounter.NOT_COVERED] = "NOT_COVERED";
@@ -66,8 +86,13 @@ public abstract class ValidationTestBase {
 		STATUS_NAME[ICounter.PARTLY_COVERED] = "PARTLY_COVERED";
 	}
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	private final Class<?> target;
 
+	private ExecutionDataStore store;
+
 	private Source source;
 
 	private IBundleCoverage bundle;
@@ -80,7 +105,7 @@ public abstract class ValidationTestBase {
 
 	@Before
 	public void setup() throws Exception {
-		final ExecutionDataStore store = execute();
+		store = execute();
 		analyze(store);
 	}
 
@@ -97,22 +122,31 @@ public abstract class ValidationTestBase {
 	}
 
 	private void analyze(final ExecutionDataStore store) throws IOException {
+		bundle = analyze(store, store.getContents(), null, true);
+		source = Source.load(target, bundle);
+	}
+
+	private IBundleCoverage analyze(final ExecutionDataStore store,
+			final Collection<ExecutionData> classes, final AnalysisCache cache,
+			final boolean save) throws IOException {
 		final CoverageBuilder builder = new CoverageBuilder();
 		final Analyzer analyzer = new Analyzer(store, builder);
-		for (ExecutionData data : store.getContents()) {
-			analyze(analyzer, data);
+		analyzer.setCache(cache);
+		for (ExecutionData data : classes) {
+			analyze(analyzer, data, save);
 		}
 		final String testClassSimpleName = getClass().getSimpleName();
-		bundle = builder.getBundle(testClassSimpleName);
-		source = Source.load(target, bundle);
+		return builder.getBundle(testClassSimpleName);
 	}
 
-	private void analyze(final Analyzer analyzer, final ExecutionData data)
-			throws IOException {
+	private void analyze(final Analyzer analyzer, final ExecutionData data,
+			final boolean save) throws IOException {
 		final byte[] bytes = TargetLoader
 				.getClassDataAsBytes(target.getClassLoader(), data.getName());
 		analyzer.analyzeClass(bytes, data.getName());
-		saveBytecodeRepresentations(bytes, data.getName());
+		if (save) {
+			saveBytecodeRepresentations(bytes, data.getName());
+		}
 	}
 
 	private void saveBytecodeRepresentations(final byte[] classBytes,
@@ -216,6 +250,104 @@ public abstract class ValidationTestBase {
 				source.getCoverage().getBranchCounter(), c);
 	}
 
+	/**
+	 * The coverage calculated from cached analysis results must be the same as
+	 * the coverage calculated from the class files. The first analysis creates
+	 * the cache entries, the second one uses them.
+	 */
+	@Test
+	public final void analysis_with_cache_should_calculate_same_coverage()
+			throws IOException {
+		final AnalysisCache cache = new AnalysisCache(folder.getRoot());
+		final String expected = dump(bundle);
+		assertEquals(expected,
+				dump(analyze(store, store.getContents(), cache, false)));
+		assertEquals(expected,
+				dump(analyze(store, store.getContents(), cache, false)));
+	}
+
+	/**
+	 * Classes without execution data are analyzed without probes. The coverage
+	 * must be the same as for classes which have not been executed.
+	 */
+	@Test
+	public final void analysis_without_execution_data_should_calculate_same_coverage()
+			throws IOException {
+		final ExecutionDataStore notExecuted = new ExecutionDataStore();
+		for (final ExecutionData data : store.getContents()) {
+			notExecuted.put(new ExecutionData(data.getId(), data.getName(),
+					data.getProbes().length));
+		}
+		assertEquals(
+				dump(analyze(notExecuted, notExecuted.getContents(), null,
+						false)),
+				dump(analyze(new ExecutionDataStore(), store.getContents(),
+						null, false)));
+	}
+
+	/**
+	 * The coverage provided by {@link CompactCoverageBuilder} must be the same
+	 * as the coverage provided by {@link CoverageBuilder}.
+	 */
+	@Test
+	public final void compact_coverage_should_provide_same_coverage()
+			throws IOException {
+		final CompactCoverageBuilder builder = new CompactCoverageBuilder();
+		final Analyzer analyzer = new Analyzer(store, builder);
+		for (final ExecutionData data : store.getContents()) {
+			analyzer.analyzeClass(TargetLoader.getClassDataAsBytes(
+					target.getClassLoader(), data.getName()), data.getName());
+		}
+		assertEquals(dump(bundle), dump(builder.getBundle(bundle.getName())));
+	}
+
+	private static String dump(final IBundleCoverage bundle) {
+		final StringBuilder sb = new StringBuilder();
+		final List<IPackageCoverage> packages = new ArrayList<IPackageCoverage>(
+				bundle.getPackages());
+		Collections.sort(packages, NAME_ORDER);
+		for (final IPackageCoverage p : packages) {
+			dump(p, sb);
+			final List<IClassCoverage> classes = new ArrayList<IClassCoverage>(
+					p.getClasses());
+			Collections.sort(classes, NAME_ORDER);
+			for (final IClassCoverage c : classes) {
+				dumpSource(c, sb);
+				for (final IMethodCoverage m : c.getMethods()) {
+					sb.append(m.getDesc()).append(' ');
+					dumpSource(m, sb);
+				}
+			}
+			final List<ISourceFileCoverage> sources = new ArrayList<ISourceFileCoverage>(
+					p.getSourceFiles());
+			Collections.sort(sources, NAME_ORDER);
+			for (final ISourceFileCoverage s : sources) {
+				dumpSource(s, sb);
+			}
+		}
+		return sb.toString();
+	}
+
+	private static void dumpSource(final ISourceNode node,
+			final StringBuilder sb) {
+		dump(node, sb);
+		for (int nr = node.getFirstLine(); nr <= node.getLastLine(); nr++) {
+			final ILine line = node.getLine(nr);
+			sb.append("  ").append(nr).append(' ')
+					.append(line.getInstructionCounter()).append(' ')
+					.append(line.getBranchCounter()).append('\n');
+		}
+	}
+
+	private static void dump(final ICoverageNode node,
+			final StringBuilder sb) {
+		sb.append(node.getName());
+		for (final CounterEntity entity : CounterEntity.values()) {
+			sb.append(' ').append(node.getCounter(entity));
+		}
+		sb.append('\n');
+	}
+
 	/*
 	 * Predefined assertion methods:
 	 */
@@ -26,9 +26,12 @@ import java.net.Socket;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.jacoco.core.data.SessionInfo;
-import org.jacoco.core.runtime.IRemoteCommandVisitor;
+import org.jacoco.core.runtime.IRemoteDeltaCommandVisitor;
 import org.jacoco.core.runtime.RemoteControlReader;
 import org.jacoco.core.runtime.RemoteControlWriter;
 import org.junit.After;
@@ -45,12 +48,15 @@ public class ExecDumpClientTest {
 
 	private boolean dumpRequested;
 	private boolean resetRequested;
+	private String deltaRequested;
+	private BlockingQueue<String> deltaConfirmed;
 
 	private ServerSocket server;
 
 	@Before
 	public void setup() {
 		callbacks = new ArrayList<String>();
+		deltaConfirmed = new ArrayBlockingQueue<String>(1);
 		client = new ExecDumpClient() {
 			@Override
 			protected void onConnecting(InetAddress address, int port) {
@@ -128,6 +134,32 @@ public class ExecDumpClientTest {
 		assertTrue(resetRequested);
 	}
 
+	@Test
+	public void should_request_delta_dump_when_delta_is_set()
+			throws IOException {
+		int port = createExecServer();
+		client.setDelta(true);
+		ExecFileLoader loader = client.dump((String) null, port);
+		assertEquals("default", deltaRequested);
+		assertFalse(dumpRequested);
+		assertFalse(resetRequested);
+
+		List<SessionInfo> infos = loader.getSessionInfoStore().getInfos();
+		assertEquals(1, infos.size());
+		assertEquals("TestDeltaId", infos.get(0).getId());
+	}
+
+	@Test
+	public void should_confirm_delta_dump_for_checkpoint_after_receipt()
+			throws Exception {
+		int port = createExecServer();
+		client.setDelta(true);
+		client.setCheckpoint("nightly");
+		client.dump((String) null, port);
+		assertEquals("nightly", deltaRequested);
+		assertEquals("nightly", deltaConfirmed.poll(5, TimeUnit.SECONDS));
+	}
+
 	@Test
 	public void should_throw_IOException_when_server_closes_connection_without_response()
 			throws IOException {
@@ -167,7 +199,7 @@ public class ExecDumpClientTest {
 				socket.getOutputStream());
 		final RemoteControlReader reader = new RemoteControlReader(
 				socket.getInputStream());
-		reader.setRemoteCommandVisitor(new IRemoteCommandVisitor() {
+		reader.setRemoteCommandVisitor(new IRemoteDeltaCommandVisitor() {
 			public void visitDumpCommand(boolean dump, boolean reset)
 					throws IOException {
 				dumpRequested = dump;
@@ -178,6 +210,18 @@ public class ExecDumpClientTest {
 				}
 				writer.sendCmdOk();
 			}
+
+			public void visitDeltaDumpCommand(String checkpoint)
+					throws IOException {
+				deltaRequested = checkpoint;
+				writer.visitSessionInfo(
+						new SessionInfo("TestDeltaId", 100, 200));
+				writer.sendCmdOk();
+			}
+
+			public void visitDeltaConfirmCommand(String checkpoint) {
+				deltaConfirmed.add(checkpoint);
+			}
 		});
 		reader.read();
 	}
@@ -21,12 +21,14 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.List;
 
 import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataReader;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.MappedExecutionDataWriter;
 import org.jacoco.core.data.SessionInfo;
 import org.jacoco.core.data.SessionInfoStore;
 import org.junit.Before;
@@ -69,6 +71,48 @@ public class ExecFileLoaderTest {
 		assertLoaderContents("a", "bb");
 	}
 
+	@Test
+	public void testLoadAfterGetExecutionDataStore() throws IOException {
+		loader.load(createFile("a"));
+		loader.getExecutionDataStore();
+		loader.load(createFile("bb"));
+
+		assertLoaderContents("a", "bb");
+	}
+
+	@Test
+	public void testMergeFiles() throws IOException {
+		final File file = new File(sourceFolder.getRoot(), "target.exec");
+
+		loader.load(createFile("a", "a1.exec", true, false, false));
+		loader.load(createFile("a", "a2.exec", false, false, true));
+		loader.save(file, false);
+
+		final ExecFileLoader result = new ExecFileLoader();
+		result.load(file);
+		final boolean[] probes = result.getExecutionDataStore().get(1)
+				.getProbes();
+		assertEquals(Arrays.toString(new boolean[] { true, false, true }),
+				Arrays.toString(probes));
+	}
+
+	@Test
+	public void load_should_detect_mapped_execution_data()
+			throws IOException {
+		final File file = new File(sourceFolder.getRoot(), "jacoco.mmap");
+		final MappedExecutionDataWriter writer = new MappedExecutionDataWriter(
+				file);
+		writer.visitSessionInfo(new SessionInfo("mapped", 10, 20));
+		writer.visitClassExecution(
+				new ExecutionData(6, "mapped", new boolean[] { true }));
+		writer.close();
+
+		loader.load(createFile("a"));
+		loader.load(file);
+
+		assertLoaderContents("a", "mapped");
+	}
+
 	@Test(expected = IOException.class)
 	public void testLoadBrokenContent() throws IOException {
 		final File file = new File(sourceFolder.getRoot(), "broken.exec");
@@ -115,12 +159,16 @@ public class ExecFileLoaderTest {
 	}
 
 	private File createFile(String id) throws IOException {
-		final File file = new File(sourceFolder.getRoot(), id + ".exec");
+		return createFile(id, id + ".exec", true);
+	}
+
+	private File createFile(String id, String fileName, boolean... probes)
+			throws IOException {
+		final File file = new File(sourceFolder.getRoot(), fileName);
 		final FileOutputStream out = new FileOutputStream(file);
 		final ExecutionDataWriter writer = new ExecutionDataWriter(out);
 		final int value = id.length();
-		writer.visitClassExecution(
-				new ExecutionData(value, id, new boolean[] { true }));
+		writer.visitClassExecution(new ExecutionData(value, id, probes));
 		writer.visitSessionInfo(new SessionInfo(id, value, value));
 		out.close();
 		return file;
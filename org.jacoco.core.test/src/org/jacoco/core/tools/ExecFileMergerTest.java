@@ -0,0 +1,547 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.IncompatibleExecDataVersionException;
+import org.jacoco.core.data.MappedExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.data.SessionInfoStore;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ExecFileMerger}.
+ */
+public class ExecFileMergerTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private ExecFileMerger merger;
+
+	private ExecFileLoader loader;
+
+	private Random random;
+
+	@Before
+	public void setup() {
+		merger = new ExecFileMerger();
+		loader = new ExecFileLoader();
+		random = new Random(7);
+	}
+
+	@Test
+	public void merge_should_write_header_when_no_files_are_added()
+			throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		merger.merge(out);
+
+		assertTrue(Arrays.equals(ExecutionDataWriter.getFileHeader(),
+				out.toByteArray()));
+	}
+
+	@Test
+	public void merge_should_produce_same_content_as_ExecFileLoader()
+			throws IOException {
+		for (int i = 0; i < 5; i++) {
+			add(createRandomFile(i));
+		}
+
+		assertMerged();
+	}
+
+	@Test
+	public void merge_should_merge_in_multiple_passes() throws IOException {
+		merger.setMaxFilesPerPass(2);
+		for (int i = 0; i < 7; i++) {
+			add(createRandomFile(i));
+		}
+
+		assertMerged();
+	}
+
+	@Test
+	public void merge_should_merge_classes_contained_multiple_times_in_one_file()
+			throws IOException {
+		final File file = createFile("a.exec", "s1",
+				new ExecutionData(1, "Foo", new boolean[] { true, false }));
+		append(file, "s2",
+				new ExecutionData(1, "Foo", new boolean[] { false, true }));
+		add(file);
+
+		final ExecutionDataStore store = assertMerged();
+		assertEquals(1, store.getContents().size());
+	}
+
+	@Test
+	public void merge_should_merge_blocks_larger_than_read_buffer()
+			throws IOException {
+		final boolean[] probes = new boolean[1000000];
+		for (int i = 0; i < probes.length; i += 3) {
+			probes[i] = true;
+		}
+		add(createFile("a.exec", "s1",
+				new ExecutionData(2, "Bar", new boolean[] { true }),
+				new ExecutionData(1, "Foo", probes)));
+		append(createRandomFile(0), "s2",
+				new ExecutionData(1, "Foo", new boolean[probes.length]));
+		add(new File(folder.getRoot(), "f0.exec"));
+
+		assertMerged();
+	}
+
+	@Test
+	public void merge_should_sum_up_execution_counts() throws IOException {
+		add(createFile("a.exec", "s1",
+				new ExecutionData(1, "Foo", new boolean[] { true, false },
+						new long[] { 3, 0 }),
+				new ExecutionData(2, "Bar", new boolean[] { true })));
+		add(createFile("b.exec", "s2",
+				new ExecutionData(1, "Foo", new boolean[] { true, true },
+						new long[] { 200, 1 }),
+				new ExecutionData(2, "Bar", new boolean[] { true })));
+
+		final ExecutionDataStore store = assertMerged();
+		assertArrayEquals(new long[] { 203, 1 }, store.get(1).getCounts());
+		assertNull(store.get(2).getCounts());
+	}
+
+	@Test
+	public void merge_should_write_classes_ordered_by_id() throws IOException {
+		add(createFile("a.exec", "s1",
+				new ExecutionData(3, "C", new boolean[] { true }),
+				new ExecutionData(-1, "A", new boolean[] { true }),
+				new ExecutionData(2, "B", new boolean[] { true })));
+
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		merger.merge(out);
+		final StringBuilder order = new StringBuilder();
+		final ExecutionDataReader reader = new ExecutionDataReader(
+				new ByteArrayInputStream(out.toByteArray()));
+		reader.setSessionInfoVisitor(new SessionInfoStore());
+		reader.setExecutionDataVisitor(
+				new IExecutionDataVisitor() {
+					public void visitClassExecution(final ExecutionData data) {
+						order.append(data.getName());
+					}
+				});
+		reader.read();
+		assertEquals("ABC", order.toString());
+	}
+
+	@Test
+	public void merge_should_throw_IllegalStateException_when_probe_counts_differ()
+			throws IOException {
+		merger.add(createFile("a.exec", "s1",
+				new ExecutionData(1, "Foo", new boolean[] { true })));
+		merger.add(createFile("b.exec", "s2",
+				new ExecutionData(1, "Foo", new boolean[] { true, true })));
+
+		try {
+			merger.merge(new ByteArrayOutputStream());
+			fail("IllegalStateException expected");
+		} catch (final IllegalStateException e) {
+			assertEquals(
+					"Incompatible execution data for class Foo with id 0000000000000001.",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void merge_should_throw_IllegalStateException_when_names_differ()
+			throws IOException {
+		merger.add(createFile("a.exec", "s1",
+				new ExecutionData(1, "Foo", new boolean[] { true })));
+		merger.add(createFile("b.exec", "s2",
+				new ExecutionData(1, "Bar", new boolean[] { true })));
+
+		try {
+			merger.merge(new ByteArrayOutputStream());
+			fail("IllegalStateException expected");
+		} catch (final IllegalStateException e) {
+			assertEquals(
+					"Different class names Foo and Bar for id 0000000000000001.",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void merge_should_throw_EOFException_when_file_is_truncated()
+			throws IOException {
+		final File file = createFile("a.exec", "s1",
+				new ExecutionData(1, "Foo", new boolean[] { true }));
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.setLength(raf.length() - 1);
+		raf.close();
+		merger.add(file);
+
+		try {
+			merger.merge(new ByteArrayOutputStream());
+			fail("EOFException expected");
+		} catch (final EOFException e) {
+			assertEquals("Truncated execution data file " + file + ".",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void merge_should_throw_IOException_for_unknown_block_type()
+			throws IOException {
+		final File file = createFile("a.exec", "s1");
+		final ByteArrayOutputStream content = new ByteArrayOutputStream();
+		content.write(ExecutionDataWriter.getFileHeader());
+		content.write(0x55);
+		write(file, content.toByteArray());
+		merger.add(file);
+
+		try {
+			merger.merge(new ByteArrayOutputStream());
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Unknown block type 55.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void add_should_throw_IOException_for_invalid_file()
+			throws IOException {
+		final File file = new File(folder.getRoot(), "invalid.exec");
+		write(file, "Invalid Content".getBytes());
+
+		try {
+			merger.add(file);
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Invalid execution data file " + file + ".",
+					e.getMessage());
+		}
+	}
+
+	@Test(expected = IncompatibleExecDataVersionException.class)
+	public void add_should_throw_IncompatibleExecDataVersionException()
+			throws IOException {
+		final File file = new File(folder.getRoot(), "old.exec");
+		write(file, new byte[] { 0x01, (byte) 0xC0, (byte) 0xC0, 0x10, 0x06 });
+
+		merger.add(file);
+	}
+
+	@Test
+	public void add_should_accept_empty_file() throws IOException {
+		final File file = new File(folder.getRoot(), "empty.exec");
+		write(file, new byte[0]);
+		add(file);
+
+		assertFalse(merger.hasExecutionData());
+		assertMerged();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setMaxFilesPerPass_should_require_at_least_two_files() {
+		merger.setMaxFilesPerPass(1);
+	}
+
+	@Test
+	public void hasExecutionData_should_return_true_when_data_exists()
+			throws IOException {
+		add(createFile("a.exec", "s1"));
+		assertFalse(merger.hasExecutionData());
+
+		add(createFile("b.exec", "s2",
+				new ExecutionData(1, "Foo", new boolean[] { true })));
+		assertTrue(merger.hasExecutionData());
+	}
+
+	@Test
+	public void merge_should_merge_mapped_files() throws IOException {
+		add(createFile("a.exec", "s1",
+				new ExecutionData(1, "Foo", new boolean[] { true, false })));
+		add(createMappedFile("b.mmap", "s2",
+				new ExecutionData(1, "Foo", new boolean[] { false, true }),
+				new ExecutionData(2, "Bar", new boolean[] { true })));
+
+		assertTrue(merger.hasExecutionData());
+		final ExecutionDataStore store = assertMerged();
+		assertEquals(2, store.getContents().size());
+		assertEquals("[true, true]",
+				Arrays.toString(store.get(1).getProbes()));
+	}
+
+	@Test
+	public void hasExecutionData_should_return_false_for_empty_mapped_file()
+			throws IOException {
+		add(createMappedFile("a.mmap", "s1"));
+
+		assertFalse(merger.hasExecutionData());
+	}
+
+	@Test
+	public void add_should_throw_IOException_for_unsupported_mapped_file_version()
+			throws IOException {
+		final File file = createMappedFile("a.mmap", "s1");
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.seek(4);
+		raf.writeChar(0x7777);
+		raf.close();
+
+		try {
+			merger.add(file);
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals(String.format(
+					"Unsupported mapped execution data version 0x7777 in %s.",
+					file), e.getMessage());
+		}
+	}
+
+	@Test
+	public void merge_should_overwrite_input_file() throws IOException {
+		final File a = createFile("a.exec", "s1",
+				new ExecutionData(1, "Foo", new boolean[] { true, false }));
+		final File b = createFile("b.exec", "s2",
+				new ExecutionData(1, "Foo", new boolean[] { false, true }));
+		add(a);
+		add(b);
+
+		merger.merge(a, false);
+
+		final ExecFileLoader result = new ExecFileLoader();
+		result.load(a);
+		assertEquals(2, result.getSessionInfoStore().getInfos().size());
+		assertEquals("[true, true]", Arrays.toString(
+				result.getExecutionDataStore().get(1).getProbes()));
+		assertEquals(2, folder.getRoot().list().length);
+	}
+
+	@Test
+	public void merge_should_append_to_file() throws IOException {
+		final File a = createFile("a.exec", "s1",
+				new ExecutionData(1, "Foo", new boolean[] { true, false }));
+		final File dest = createFile("dest.exec", "s0",
+				new ExecutionData(2, "Bar", new boolean[] { true }));
+		add(a);
+
+		merger.merge(dest, true);
+
+		final ExecFileLoader result = new ExecFileLoader();
+		result.load(dest);
+		assertEquals(2, result.getSessionInfoStore().getInfos().size());
+		assertEquals(2, result.getExecutionDataStore().getContents().size());
+	}
+
+	@Test
+	public void merge_should_create_parent_folders() throws IOException {
+		add(createRandomFile(0));
+		final File dest = new File(folder.getRoot(), "a/b/c/merged.exec");
+
+		merger.merge(dest, false);
+
+		assertTrue(dest.isFile());
+	}
+
+	@Test
+	public void merge_should_write_indexed_file() throws IOException {
+		for (int i = 0; i < 3; i++) {
+			add(createRandomFile(i));
+		}
+		merger.setIndexed(true);
+
+		final ExecutionDataStore expected = assertMerged();
+		final File file = new File(folder.getRoot(), "indexed.exec");
+		merger.merge(file, false);
+		final IndexedExecFile indexed = new IndexedExecFile(file);
+		assertEquals(expected.getContents().size(), indexed.getClassCount());
+		for (final ExecutionData data : expected.getContents()) {
+			assertTrue(Arrays.equals(data.getProbes(),
+					indexed.get(data.getId()).getProbes()));
+		}
+		indexed.close();
+	}
+
+	@Test
+	public void merge_should_use_index_of_indexed_files() throws IOException {
+		add(createIndexedFile("a.exec", createRandomFile(0),
+				createRandomFile(1)));
+		add(createIndexedFile("b.exec", createRandomFile(2)));
+
+		assertMerged();
+	}
+
+	@Test
+	public void merge_should_read_complete_file_when_index_covers_only_appended_part()
+			throws IOException {
+		final File file = createFile("a.exec", "s1",
+				new ExecutionData(1, "Foo", new boolean[] { true, false }));
+		final ExecFileMerger indexed = new ExecFileMerger();
+		indexed.setIndexed(true);
+		indexed.add(createFile("b.exec", "s2",
+				new ExecutionData(2, "Bar", new boolean[] { true })));
+		final OutputStream out = new FileOutputStream(file, true);
+		indexed.merge(out);
+		out.close();
+		add(file);
+
+		final ExecutionDataStore store = assertMerged();
+		assertEquals(2, store.getContents().size());
+	}
+
+	@Test
+	public void merge_should_merge_existing_content_when_appending_indexed_file()
+			throws IOException {
+		final File a = createFile("a.exec", "s1",
+				new ExecutionData(1, "Foo", new boolean[] { true, false }));
+		final File dest = createFile("dest.exec", "s0",
+				new ExecutionData(1, "Foo", new boolean[] { false, true }),
+				new ExecutionData(2, "Bar", new boolean[] { true }));
+		add(a);
+		merger.setIndexed(true);
+
+		merger.merge(dest, true);
+
+		final IndexedExecFile indexed = new IndexedExecFile(dest);
+		assertEquals(2, indexed.getClassCount());
+		assertEquals("[true, true]",
+				Arrays.toString(indexed.get(1).getProbes()));
+		assertEquals("[true]", Arrays.toString(indexed.get(2).getProbes()));
+		indexed.close();
+		assertEquals(2, folder.getRoot().list().length);
+	}
+
+	private File createIndexedFile(final String name, final File... inputs)
+			throws IOException {
+		final ExecFileMerger m = new ExecFileMerger();
+		m.setIndexed(true);
+		for (final File input : inputs) {
+			m.add(input);
+		}
+		final File file = new File(folder.getRoot(), name);
+		m.merge(file, false);
+		assertTrue(IndexedExecFile.isIndexed(file));
+		return file;
+	}
+
+	private void add(final File file) throws IOException {
+		merger.add(file);
+		loader.load(file);
+	}
+
+	private ExecutionDataStore assertMerged() throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		merger.merge(out);
+
+		final ExecutionDataStore actual = new ExecutionDataStore();
+		final SessionInfoStore sessions = new SessionInfoStore();
+		final ExecutionDataReader reader = new ExecutionDataReader(
+				new ByteArrayInputStream(out.toByteArray()));
+		reader.setExecutionDataVisitor(actual);
+		reader.setSessionInfoVisitor(sessions);
+		reader.read();
+
+		assertEquals(loader.getSessionInfoStore().getInfos().toString(),
+				sessions.getInfos().toString());
+		final ExecutionDataStore expected = loader.getExecutionDataStore();
+		int count = 0;
+		for (final ExecutionData data : expected.getContents()) {
+			if (data.hasHits()) {
+				final ExecutionData a = actual.get(data.getId());
+				assertEquals(data.getName(), a.getName());
+				assertTrue(data.getName(),
+						Arrays.equals(data.getProbes(), a.getProbes()));
+				count++;
+			}
+		}
+		assertEquals(count, actual.getContents().size());
+		return actual;
+	}
+
+	private File createRandomFile(final int index) throws IOException {
+		final ExecutionData[] data = new ExecutionData[50];
+		for (int i = 0; i < data.length; i++) {
+			final int c = random.nextInt(100);
+			final boolean[] probes = new boolean[c % 7 * 20];
+			for (int j = 0; j < probes.length; j++) {
+				probes[j] = random.nextInt(5) == 0;
+			}
+			data[i] = new ExecutionData(c * 0x9E3779B97F4A7C15L, "C" + c,
+					probes);
+		}
+		return createFile("f" + index + ".exec", "session" + index, data);
+	}
+
+	private File createFile(final String name, final String session,
+			final ExecutionData... data) throws IOException {
+		final File file = new File(folder.getRoot(), name);
+		write(file, new byte[0]);
+		append(file, session, data);
+		return file;
+	}
+
+	private File createMappedFile(final String name, final String session,
+			final ExecutionData... data) throws IOException {
+		final File file = new File(folder.getRoot(), name);
+		final MappedExecutionDataWriter writer = new MappedExecutionDataWriter(
+				file);
+		writer.visitSessionInfo(
+				new SessionInfo(session, session.hashCode(), 1000));
+		for (final ExecutionData d : data) {
+			writer.visitClassExecution(d);
+		}
+		writer.close();
+		return file;
+	}
+
+	private void append(final File file, final String session,
+			final ExecutionData... data) throws IOException {
+		final OutputStream out = new FileOutputStream(file, true);
+		final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+		writer.visitSessionInfo(
+				new SessionInfo(session, session.hashCode(), 1000));
+		for (final ExecutionData d : data) {
+			writer.visitClassExecution(d);
+		}
+		out.close();
+	}
+
+	private static void write(final File file, final byte[] content)
+			throws IOException {
+		final OutputStream out = new FileOutputStream(file);
+		out.write(content);
+		out.close();
+	}
+
+}
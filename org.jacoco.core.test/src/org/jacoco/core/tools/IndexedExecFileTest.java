@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IExecutionDataFilter;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.internal.data.PackedExecutionDataWriter;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link IndexedExecFile}.
+ */
+public class IndexedExecFileTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private IndexedExecFile file;
+
+	@After
+	public void teardown() throws IOException {
+		if (file != null) {
+			file.close();
+		}
+	}
+
+	@Test
+	public void should_read_session_infos() throws IOException {
+		file = new IndexedExecFile(createIndexedFile());
+
+		final List<SessionInfo> infos = file.getSessionInfoStore().getInfos();
+		assertEquals(2, infos.size());
+		assertEquals("s1", infos.get(0).getId());
+		assertEquals("s2", infos.get(1).getId());
+	}
+
+	@Test
+	public void get_should_read_execution_data_of_single_class()
+			throws IOException {
+		file = new IndexedExecFile(createIndexedFile());
+
+		assertEquals(3, file.getClassCount());
+		final ExecutionData data = file.get(2);
+		assertEquals("Bar", data.getName());
+		assertTrue(Arrays.equals(new boolean[] { false, true, true },
+				data.getProbes()));
+		assertTrue(file.contains(-5));
+		assertFalse(file.contains(3));
+		assertNull(file.get(3));
+	}
+
+	@Test
+	public void accept_should_report_classes_selected_by_filter()
+			throws IOException {
+		file = new IndexedExecFile(createIndexedFile());
+		final List<String> names = new ArrayList<String>();
+		final IExecutionDataVisitor visitor = new IExecutionDataVisitor() {
+			public void visitClassExecution(final ExecutionData data) {
+				names.add(data.getName());
+			}
+		};
+
+		file.accept(null, visitor);
+		assertEquals(Arrays.asList("Neg", "Foo", "Bar"), names);
+
+		names.clear();
+		file.accept(new IExecutionDataFilter() {
+			public boolean include(final long id) {
+				return id > 0;
+			}
+		}, visitor);
+		assertEquals(Arrays.asList("Foo", "Bar"), names);
+	}
+
+	@Test
+	public void should_open_indexed_file_without_execution_data()
+			throws IOException {
+		final File f = new File(folder.getRoot(), "empty.exec");
+		final OutputStream out = new FileOutputStream(f);
+		final PackedExecutionDataWriter writer = new PackedExecutionDataWriter(
+				out, true);
+		writer.visitSessionInfo(new SessionInfo("s1", 1, 2));
+		writer.writeIndex();
+		out.close();
+
+		file = new IndexedExecFile(f);
+		assertEquals(0, file.getClassCount());
+		assertEquals(1, file.getSessionInfoStore().getInfos().size());
+	}
+
+	@Test
+	public void isIndexed_should_return_false_for_regular_file()
+			throws IOException {
+		final File f = new File(folder.getRoot(), "regular.exec");
+		final OutputStream out = new FileOutputStream(f);
+		final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+		writer.visitClassExecution(
+				new ExecutionData(1, "Foo", new boolean[] { true }));
+		out.close();
+
+		assertTrue(IndexedExecFile.isIndexed(createIndexedFile()));
+		assertFalse(IndexedExecFile.isIndexed(f));
+		try {
+			new IndexedExecFile(f);
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals(
+					f + " is not an indexed execution data file.",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void should_reject_file_where_index_covers_only_appended_part()
+			throws IOException {
+		final File f = createIndexedFile();
+		final OutputStream out = new FileOutputStream(f, false);
+		final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+		writer.visitClassExecution(
+				new ExecutionData(7, "Other", new boolean[] { true }));
+		final PackedExecutionDataWriter indexed = new PackedExecutionDataWriter(
+				out, true);
+		indexed.visitClassExecution(
+				new ExecutionData(8, "Appended", new boolean[] { true }));
+		indexed.writeIndex();
+		out.close();
+
+		assertFalse(IndexedExecFile.isIndexed(f));
+	}
+
+	private File createIndexedFile() throws IOException {
+		final File f = new File(folder.getRoot(), "indexed.exec");
+		final OutputStream out = new FileOutputStream(f);
+		final PackedExecutionDataWriter writer = new PackedExecutionDataWriter(
+				out, true);
+		writer.visitSessionInfo(new SessionInfo("s1", 1, 2));
+		writer.visitSessionInfo(new SessionInfo("s2", 3, 4));
+		writer.visitClassExecution(
+				new ExecutionData(-5, "Neg", new boolean[] { true }));
+		writer.visitClassExecution(
+				new ExecutionData(1, "Foo", new boolean[] { true, false }));
+		writer.visitClassExecution(new ExecutionData(2, "Bar",
+				new boolean[] { false, true, true }));
+		writer.writeIndex();
+		out.close();
+		return f;
+	}
+
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.jacoco.core.JaCoCo;
+import org.jacoco.core.internal.analysis.CoverageTemplate;
+import org.jacoco.core.internal.analysis.StringPool;
+
+/**
+ * Persistent cache for the structural analysis of class files which can be
+ * used with {@link Analyzer#setCache(AnalysisCache)}. For every class the
+ * cache stores a template which maps the probes of the class to its
+ * instructions, lines and branches. Once a template exists the coverage of
+ * the class is calculated from its probes without parsing the class file
+ * again.
+ *
+ * Entries are stored as individual files named after the id of the class in a
+ * directory specific to the JaCoCo version, as the analysis result depends on
+ * the version. Therefore the same cache location can be shared between
+ * different JaCoCo versions and concurrent builds: New entries are written to
+ * temporary files which are atomically renamed afterwards. The cache is not
+ * limited in size, it can be deleted at any time.
+ *
+ * The cache is a best effort: I/O problems are ignored and result in cache
+ * misses or entries not being written. Classes instrumented with a coarser
+ * granularity or to count executions are always analyzed from their class
+ * files.
+ *
+ * @since 0.8.14
+ */
+public class AnalysisCache {
+
+	private static final String SUFFIX = ".template";
+
+	private final File directory;
+
+	/**
+	 * Creates a cache in the given location.
+	 *
+	 * @param location
+	 *            cache directory, will be created if it does not exist
+	 */
+	public AnalysisCache(final File location) {
+		this.directory = new File(location,
+				JaCoCo.VERSION + "-" + JaCoCo.COMMITID_SHORT);
+	}
+
+	/**
+	 * Returns the template for the class with the given id if it is contained
+	 * in the cache.
+	 *
+	 * @param classid
+	 *            id of the class
+	 * @param stringPool
+	 *            pool for the strings of the template
+	 * @return template or <code>null</code>
+	 */
+	CoverageTemplate get(final long classid, final StringPool stringPool) {
+		final File file = getFile(classid);
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			final InputStream in = new BufferedInputStream(
+					new FileInputStream(file));
+			try {
+				return CoverageTemplate.read(in, stringPool);
+			} finally {
+				in.close();
+			}
+		} catch (final IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the template for the class with the given id.
+	 *
+	 * @param classid
+	 *            id of the class
+	 * @param template
+	 *            template of the class
+	 */
+	void put(final long classid, final CoverageTemplate template) {
+		File temp = null;
+		try {
+			directory.mkdirs();
+			temp = File.createTempFile("jacoco", ".tmp", directory);
+			final OutputStream out = new BufferedOutputStream(
+					new FileOutputStream(temp));
+			try {
+				template.write(out);
+			} finally {
+				out.close();
+			}
+			// Another process might have created the same entry concurrently,
+			// which has the same content.
+			if (temp.renameTo(getFile(classid))) {
+				temp = null;
+			}
+		} catch (final IOException e) {
+			// cache is a best effort only
+		} finally {
+			if (temp != null) {
+				temp.delete();
+			}
+		}
+	}
+
+	private File getFile(final long classid) {
+		return new File(directory,
+				String.format("%016x%s", Long.valueOf(classid), SUFFIX));
+	}
+
+}
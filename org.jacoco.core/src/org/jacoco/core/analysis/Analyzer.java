@@ -16,7 +16,12 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.LinkedList;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -24,11 +29,13 @@ import java.util.zip.ZipInputStream;
 import org.jacoco.core.JaCoCo;
 import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.instr.Granularity;
 import org.jacoco.core.internal.ContentTypeDetector;
 import org.jacoco.core.internal.InputStreams;
 import org.jacoco.core.internal.Pack200Streams;
 import org.jacoco.core.internal.analysis.ClassAnalyzer;
 import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.CoverageTemplate;
 import org.jacoco.core.internal.analysis.StringPool;
 import org.jacoco.core.internal.data.CRC64;
 import org.jacoco.core.internal.flow.ClassProbesAdapter;
@@ -44,15 +51,35 @@ import org.objectweb.asm.Opcodes;
  * {@link Analyzer} requires a {@link ExecutionDataStore} instance that holds
  * the execution data for the classes to analyze. The {@link Analyzer} offers
  * several methods to analyze classes from a variety of sources.
+ * <p>
+ * Optionally an {@link Executor} can be provided to analyze classes in
+ * parallel. In this case archives and folders are still read by the calling
+ * thread, while the analysis of the individual class files is performed by the
+ * executor. The results are always reported to the {@link ICoverageVisitor}
+ * from the calling thread in the same order as without an executor, and all
+ * analysis work is completed before a method of this class returns.
+ * <p>
+ * Optionally an {@link AnalysisCache} can be provided which stores the
+ * structural analysis of every class. For classes contained in the cache only
+ * the execution data is applied to the cached result.
  */
 public class Analyzer {
 
+	/** maximum number of classes submitted for parallel analysis at once */
+	private static final int MAX_PENDING = 256;
+
 	private final ExecutionDataStore executionData;
 
 	private final ICoverageVisitor coverageVisitor;
 
 	private final StringPool stringPool;
 
+	private final Executor executor;
+
+	private final LinkedList<FutureTask<IClassCoverage>> pending;
+
+	private AnalysisCache cache;
+
 	/**
 	 * Creates a new analyzer reporting to the given output.
 	 *
@@ -64,57 +91,283 @@ public class Analyzer {
 	 */
 	public Analyzer(final ExecutionDataStore executionData,
 			final ICoverageVisitor coverageVisitor) {
+		this(executionData, coverageVisitor, null);
+	}
+
+	/**
+	 * Creates a new analyzer reporting to the given output which analyzes
+	 * classes in parallel with the given executor.
+	 *
+	 * @param executionData
+	 *            execution data
+	 * @param coverageVisitor
+	 *            the output instance that will coverage data for every analyzed
+	 *            class
+	 * @param executor
+	 *            executor to analyze classes with or <code>null</code> to
+	 *            analyze all classes in the calling thread
+	 */
+	public Analyzer(final ExecutionDataStore executionData,
+			final ICoverageVisitor coverageVisitor, final Executor executor) {
 		this.executionData = executionData;
 		this.coverageVisitor = coverageVisitor;
 		this.stringPool = new StringPool();
+		this.executor = executor;
+		this.pending = new LinkedList<FutureTask<IClassCoverage>>();
+	}
+
+	/**
+	 * Sets a cache for the structural analysis of classes. Subsequently
+	 * analyzed classes are looked up in the cache and added to it.
+	 *
+	 * @param cache
+	 *            cache to use or <code>null</code> to always analyze the class
+	 *            files
+	 * @since 0.8.14
+	 */
+	public void setCache(final AnalysisCache cache) {
+		this.cache = cache;
 	}
 
 	/**
-	 * Creates an ASM class visitor for analysis.
+	 * Creates the analysis of the given class. The granularity of the
+	 * instrumentation and whether implied probes have been omitted is detected
+	 * from the class id the execution data has been recorded for. The execution data is accessed when the analysis is
+	 * created, the returned analysis only accesses the class definition.
 	 *
-	 * @param classid
-	 *            id of the class calculated with {@link CRC64}
-	 * @param className
-	 *            VM name of the class
-	 * @return ASM visitor to write class definition to
+	 * @param source
+	 *            definition of the class
+	 * @param reader
+	 *            reader for the class definition
+	 * @param output
+	 *            visitor the coverage is reported to when the analysis is run
+	 * @return analysis of the class
 	 */
-	private ClassVisitor createAnalyzingVisitor(final long classid,
-			final String className) {
-		final ExecutionData data = executionData.get(classid);
+	private Runnable createAnalysis(final byte[] source,
+			final ClassReader reader, final ICoverageVisitor output) {
+		final String className = reader.getClassName();
+		Granularity granularity = Granularity.BRANCH;
+		final long branchid = CRC64.classId(source);
+		long classid = branchid;
+		ExecutionData data = executionData.get(classid);
+		if (data == null) {
+			for (final Granularity g : Granularity.values()) {
+				if (g != Granularity.BRANCH) {
+					final long id = CRC64.classId(branchid, g);
+					data = executionData.get(id);
+					if (data != null) {
+						granularity = g;
+						classid = id;
+						break;
+					}
+				}
+			}
+		}
+		boolean minimized = false;
+		if (data == null) {
+			final long id = CRC64.classId(branchid, Granularity.BRANCH, true);
+			data = executionData.get(id);
+			if (data != null) {
+				minimized = true;
+				classid = id;
+			}
+		}
 		final boolean[] probes;
+		final long[] counts;
 		final boolean noMatch;
 		if (data == null) {
 			probes = null;
+			counts = null;
 			noMatch = executionData.contains(className);
 		} else {
 			probes = data.getProbes();
+			counts = data.getCounts();
 			noMatch = false;
 		}
+		if (cache != null && granularity == Granularity.BRANCH
+				&& counts == null) {
+			return createCachedAnalysis(reader, classid, minimized, noMatch,
+					probes, output);
+		}
 		final ClassCoverageImpl coverage = new ClassCoverageImpl(className,
 				classid, noMatch);
 		final ClassAnalyzer analyzer = new ClassAnalyzer(coverage, probes,
-				stringPool) {
+				counts, stringPool, granularity) {
 			@Override
 			public void visitEnd() {
 				super.visitEnd();
-				coverageVisitor.visitCoverage(coverage);
+				output.visitCoverage(coverage);
 			}
 		};
-		return new ClassProbesAdapter(analyzer, false);
+		final ClassVisitor visitor;
+		if (probes == null) {
+			// Without execution data the control flow is not required
+			visitor = analyzer.withoutProbes();
+		} else {
+			// Omitted probes are inferred for partially executed classes only,
+			// as nothing can be implied otherwise:
+			visitor = new ClassProbesAdapter(analyzer, false, granularity,
+					minimized && isPartial(probes));
+		}
+		return new Runnable() {
+			public void run() {
+				reader.accept(visitor, 0);
+			}
+		};
+	}
+
+	private Runnable createCachedAnalysis(final ClassReader reader,
+			final long classid, final boolean minimized, final boolean noMatch,
+			final boolean[] probes, final ICoverageVisitor output) {
+		return new Runnable() {
+			public void run() {
+				final String className = reader.getClassName();
+				CoverageTemplate template = cache.get(classid, stringPool);
+				if (template == null
+						|| !template.getName().equals(className)) {
+					template = new CoverageTemplate(className);
+					reader.accept(new ClassProbesAdapter(
+							new ClassAnalyzer(template, stringPool), false,
+							Granularity.BRANCH, minimized), 0);
+					cache.put(classid, template);
+				}
+				output.visitCoverage(template.apply(classid, noMatch, probes));
+			}
+		};
+	}
+
+	private static boolean isPartial(final boolean[] probes) {
+		if (probes == null) {
+			return false;
+		}
+		boolean executed = false, missed = false;
+		for (final boolean p : probes) {
+			executed |= p;
+			missed |= !p;
+		}
+		return executed && missed;
 	}
 
 	private void analyzeClass(final byte[] source) {
-		final long classId = CRC64.classId(source);
+		final ClassReader reader = createReader(source);
+		if (reader == null) {
+			return;
+		}
+		createAnalysis(source, reader, coverageVisitor).run();
+	}
+
+	private static ClassReader createReader(final byte[] source) {
 		final ClassReader reader = InstrSupport.classReaderFor(source);
 		if ((reader.getAccess() & Opcodes.ACC_MODULE) != 0) {
-			return;
+			return null;
 		}
 		if ((reader.getAccess() & Opcodes.ACC_SYNTHETIC) != 0) {
-			return;
+			return null;
+		}
+		return reader;
+	}
+
+	private void analyzeClassBuffer(final byte[] buffer, final String location)
+			throws IOException {
+		if (executor == null) {
+			try {
+				analyzeClass(buffer);
+			} catch (final RuntimeException cause) {
+				throw analyzerError(location, cause);
+			}
+		} else {
+			submitClass(buffer, location);
+		}
+	}
+
+	/**
+	 * Schedules the analysis of the given class with the executor. The access
+	 * to the execution data happens in the calling thread, only the actual
+	 * analysis is performed by the executor.
+	 */
+	private void submitClass(final byte[] buffer, final String location)
+			throws IOException {
+		final ClassReader reader;
+		final IClassCoverage[] result = new IClassCoverage[1];
+		final Runnable analysis;
+		try {
+			reader = createReader(buffer);
+			if (reader == null) {
+				return;
+			}
+			analysis = createAnalysis(buffer, reader,
+					new ICoverageVisitor() {
+						public void visitCoverage(
+								final IClassCoverage coverage) {
+							result[0] = coverage;
+						}
+					});
+		} catch (final RuntimeException cause) {
+			throw analyzerError(location, cause);
+		}
+		final FutureTask<IClassCoverage> task = new FutureTask<IClassCoverage>(
+				new Callable<IClassCoverage>() {
+					public IClassCoverage call() throws IOException {
+						try {
+							analysis.run();
+						} catch (final RuntimeException cause) {
+							throw analyzerError(location, cause);
+						}
+						return result[0];
+					}
+				});
+		if (pending.size() >= MAX_PENDING) {
+			deliver(pending.removeFirst());
+		}
+		pending.add(task);
+		executor.execute(task);
+		while (!pending.isEmpty() && pending.getFirst().isDone()) {
+			deliver(pending.removeFirst());
+		}
+	}
+
+	private void deliver(final FutureTask<IClassCoverage> task)
+			throws IOException {
+		final IClassCoverage coverage;
+		try {
+			coverage = task.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			final IOException ex = new IOException(
+					"Interrupted while waiting for analysis results.");
+			ex.initCause(e);
+			throw ex;
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw (Error) cause;
+		}
+		coverageVisitor.visitCoverage(coverage);
+	}
+
+	/**
+	 * Waits for all pending analysis tasks and reports their results in
+	 * submission order.
+	 */
+	private void completePending() throws IOException {
+		while (!pending.isEmpty()) {
+			deliver(pending.removeFirst());
 		}
-		final ClassVisitor visitor = createAnalyzingVisitor(classId,
-				reader.getClassName());
-		reader.accept(visitor, 0);
+	}
+
+	/**
+	 * Cancels all pending analysis tasks, e.g. after an error occurred.
+	 */
+	private void cancelPending() {
+		for (final FutureTask<IClassCoverage> task : pending) {
+			task.cancel(false);
+		}
+		pending.clear();
 	}
 
 	/**
@@ -130,9 +383,10 @@ public class Analyzer {
 	public void analyzeClass(final byte[] buffer, final String location)
 			throws IOException {
 		try {
-			analyzeClass(buffer);
-		} catch (final RuntimeException cause) {
-			throw analyzerError(location, cause);
+			analyzeClassBuffer(buffer, location);
+			completePending();
+		} finally {
+			cancelPending();
 		}
 	}
 
@@ -149,13 +403,23 @@ public class Analyzer {
 	 */
 	public void analyzeClass(final InputStream input, final String location)
 			throws IOException {
+		try {
+			analyzeClassStream(input, location);
+			completePending();
+		} finally {
+			cancelPending();
+		}
+	}
+
+	private void analyzeClassStream(final InputStream input,
+			final String location) throws IOException {
 		final byte[] buffer;
 		try {
 			buffer = InputStreams.readFully(input);
 		} catch (final IOException e) {
 			throw analyzerError(location, e);
 		}
-		analyzeClass(buffer, location);
+		analyzeClassBuffer(buffer, location);
 	}
 
 	private IOException analyzerError(final String location,
@@ -184,6 +448,17 @@ public class Analyzer {
 	 */
 	public int analyzeAll(final InputStream input, final String location)
 			throws IOException {
+		try {
+			final int count = analyzeStream(input, location);
+			completePending();
+			return count;
+		} finally {
+			cancelPending();
+		}
+	}
+
+	private int analyzeStream(final InputStream input, final String location)
+			throws IOException {
 		final ContentTypeDetector detector;
 		try {
 			detector = new ContentTypeDetector(input);
@@ -192,7 +467,7 @@ public class Analyzer {
 		}
 		switch (detector.getType()) {
 		case ContentTypeDetector.CLASSFILE:
-			analyzeClass(detector.getInputStream(), location);
+			analyzeClassStream(detector.getInputStream(), location);
 			return 1;
 		case ContentTypeDetector.ZIPFILE:
 			return analyzeZip(detector.getInputStream(), location);
@@ -217,15 +492,25 @@ public class Analyzer {
 	 *             if the file can't be read or a class can't be analyzed
 	 */
 	public int analyzeAll(final File file) throws IOException {
+		try {
+			final int count = analyzeFile(file);
+			completePending();
+			return count;
+		} finally {
+			cancelPending();
+		}
+	}
+
+	private int analyzeFile(final File file) throws IOException {
 		int count = 0;
 		if (file.isDirectory()) {
 			for (final File f : file.listFiles()) {
-				count += analyzeAll(f);
+				count += analyzeFile(f);
 			}
 		} else {
 			final InputStream in = new FileInputStream(file);
 			try {
-				count += analyzeAll(in, file.getPath());
+				count += analyzeStream(in, file.getPath());
 			} finally {
 				in.close();
 			}
@@ -249,13 +534,18 @@ public class Analyzer {
 	 */
 	public int analyzeAll(final String path, final File basedir)
 			throws IOException {
-		int count = 0;
-		final StringTokenizer st = new StringTokenizer(path,
-				File.pathSeparator);
-		while (st.hasMoreTokens()) {
-			count += analyzeAll(new File(basedir, st.nextToken()));
+		try {
+			int count = 0;
+			final StringTokenizer st = new StringTokenizer(path,
+					File.pathSeparator);
+			while (st.hasMoreTokens()) {
+				count += analyzeFile(new File(basedir, st.nextToken()));
+			}
+			completePending();
+			return count;
+		} finally {
+			cancelPending();
 		}
-		return count;
 	}
 
 	private int analyzeZip(final InputStream input, final String location)
@@ -264,7 +554,7 @@ public class Analyzer {
 		ZipEntry entry;
 		int count = 0;
 		while ((entry = nextEntry(zip, location)) != null) {
-			count += analyzeAll(zip, location + "@" + entry.getName());
+			count += analyzeStream(zip, location + "@" + entry.getName());
 		}
 		return count;
 	}
@@ -291,7 +581,7 @@ public class Analyzer {
 		} catch (final IOException e) {
 			throw analyzerError(location, e);
 		}
-		return analyzeAll(gzipInputStream, location);
+		return analyzeStream(gzipInputStream, location);
 	}
 
 	private int analyzePack200(final InputStream input, final String location)
@@ -302,7 +592,7 @@ public class Analyzer {
 		} catch (final IOException e) {
 			throw analyzerError(location, e);
 		}
-		return analyzeAll(unpackedInput, location);
+		return analyzeStream(unpackedInput, location);
 	}
 
 }
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jacoco.core.internal.analysis.BundleCoverageImpl;
+import org.jacoco.core.internal.analysis.ClassCoverageColumns;
+import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.SourceNodeImpl;
+
+/**
+ * Alternative to {@link CoverageBuilder} for bundles with a huge number of
+ * classes. Instead of keeping the {@link IClassCoverage} nodes feed into the
+ * builder their counters and lines are copied into arrays of primitives and
+ * the nodes are discarded. The aggregated data provides the same hierarchy
+ * and values as {@link CoverageBuilder}:
+ *
+ * <pre>
+ * {@link IBundleCoverage}
+ * +-- {@link IPackageCoverage}*
+ *     +-- {@link IClassCoverage}*
+ *     +-- {@link ISourceFileCoverage}*
+ * </pre>
+ *
+ * The class, method and source file nodes returned by this builder are views
+ * of the stored data which are created on demand, so the same node might be
+ * represented by different instances.
+ *
+ * @since 0.8.14
+ */
+public class CompactCoverageBuilder implements ICoverageVisitor {
+
+	private final ClassCoverageColumns columns;
+
+	/** index of every class in the columns by its name */
+	private final Map<String, Integer> classes;
+
+	/** fragments of all classes, see {@link ClassCoverageImpl#getFragments()} */
+	private final List<SourceNodeImpl> fragments;
+
+	private Collection<ISourceFileCoverage> sourcefiles;
+
+	/**
+	 * Create a new builder.
+	 */
+	public CompactCoverageBuilder() {
+		this.columns = new ClassCoverageColumns();
+		this.classes = new HashMap<String, Integer>();
+		this.fragments = new ArrayList<SourceNodeImpl>();
+		this.sourcefiles = Collections.emptyList();
+	}
+
+	/**
+	 * Returns all class nodes currently contained in this builder.
+	 *
+	 * @return all class nodes
+	 */
+	public Collection<IClassCoverage> getClasses() {
+		build();
+		final List<IClassCoverage> result = new ArrayList<IClassCoverage>(
+				classes.size());
+		for (final Integer c : classes.values()) {
+			result.add(columns.get(c.intValue()));
+		}
+		return Collections.unmodifiableCollection(result);
+	}
+
+	/**
+	 * Returns all source file nodes currently contained in this builder.
+	 *
+	 * @return all source file nodes
+	 */
+	public Collection<ISourceFileCoverage> getSourceFiles() {
+		build();
+		return Collections.unmodifiableCollection(sourcefiles);
+	}
+
+	/**
+	 * Creates a bundle from all nodes currently contained in this bundle.
+	 *
+	 * @param name
+	 *            Name of the bundle
+	 * @return bundle containing all classes and source files
+	 */
+	public IBundleCoverage getBundle(final String name) {
+		return new BundleCoverageImpl(name, getClasses(), getSourceFiles());
+	}
+
+	/**
+	 * Returns all classes for which execution data does not match.
+	 *
+	 * @see IClassCoverage#isNoMatch()
+	 * @return collection of classes with non-matching execution data
+	 */
+	public Collection<IClassCoverage> getNoMatchClasses() {
+		final Collection<IClassCoverage> result = new ArrayList<IClassCoverage>();
+		for (final IClassCoverage c : getClasses()) {
+			if (c.isNoMatch()) {
+				result.add(c);
+			}
+		}
+		return result;
+	}
+
+	private void build() {
+		if (sourcefiles != null) {
+			return;
+		}
+		// Applying a fragment again has no effect
+		for (final SourceNodeImpl fragment : fragments) {
+			final Integer c = classes.get(fragment.getName());
+			if (c != null) {
+				columns.applyFragment(c.intValue(), fragment);
+			}
+		}
+		sourcefiles = columns.createSourceFiles(classes.values());
+		columns.trimToSize();
+	}
+
+	// === ICoverageVisitor ===
+
+	public void visitCoverage(final IClassCoverage coverage) {
+		final String name = coverage.getName();
+		final Integer dup = classes.get(name);
+		if (dup != null) {
+			if (columns.get(dup.intValue()).getId() != coverage.getId()) {
+				throw new IllegalStateException(
+						"Can't add different class with same name: " + name);
+			}
+		}
+		sourcefiles = null;
+		classes.put(name, Integer.valueOf(columns.add(coverage)));
+		fragments.addAll(((ClassCoverageImpl) coverage).getFragments());
+	}
+
+}
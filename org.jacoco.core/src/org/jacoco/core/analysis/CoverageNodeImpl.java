@@ -145,7 +145,8 @@ public class CoverageNodeImpl implements ICoverageNode {
 	}
 
 	public boolean containsCode() {
-		return getInstructionCounter().getTotalCount() != 0;
+		return getInstructionCounter().getTotalCount() != 0
+				|| getMethodCounter().getTotalCount() != 0;
 	}
 
 	public ICoverageNode getPlainCopy() {
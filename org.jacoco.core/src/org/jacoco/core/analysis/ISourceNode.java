@@ -21,6 +21,14 @@ public interface ISourceNode extends ICoverageNode {
 	/** Placeholder for unknown lines (no debug information) */
 	int UNKNOWN_LINE = -1;
 
+	/**
+	 * Placeholder for unknown execution counts (classes not instrumented to
+	 * count executions)
+	 *
+	 * @since 0.8.14
+	 */
+	long UNKNOWN_EXECUTION_COUNT = -1;
+
 	/**
 	 * The number of the first line coverage information is available for. If no
 	 * line is contained, the method returns -1.
@@ -46,4 +54,17 @@ public interface ISourceNode extends ICoverageNode {
 	 */
 	ILine getLine(int nr);
 
+	/**
+	 * Returns how often the given line has been executed. Execution counts are
+	 * only available for classes which have been instrumented to count
+	 * executions. Within a method the count of a line is the maximum count of
+	 * its instructions, counts of different methods are summed up.
+	 *
+	 * @param nr
+	 *            line number of interest
+	 * @return number of executions or {@link #UNKNOWN_EXECUTION_COUNT}
+	 * @since 0.8.14
+	 */
+	long getExecutionCount(int nr);
+
 }
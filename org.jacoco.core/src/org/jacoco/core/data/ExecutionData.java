@@ -19,7 +19,8 @@ import java.util.Arrays;
 /**
  * Execution data for a single Java class. While instances are immutable care
  * has to be taken about the probe data array of type <code>boolean[]</code>
- * which can be modified.
+ * which can be modified. Optionally execution counts are available for every
+ * probe if the class has been instrumented to count executions.
  */
 public final class ExecutionData {
 
@@ -29,6 +30,8 @@ public final class ExecutionData {
 
 	private final boolean[] probes;
 
+	private long[] counts;
+
 	/**
 	 * Creates a new {@link ExecutionData} object with the given probe data.
 	 *
@@ -46,6 +49,32 @@ public final class ExecutionData {
 		this.probes = probes;
 	}
 
+	/**
+	 * Creates a new {@link ExecutionData} object with the given probe data and
+	 * execution counts.
+	 *
+	 * @param id
+	 *            class identifier
+	 * @param name
+	 *            VM name
+	 * @param probes
+	 *            probe data
+	 * @param counts
+	 *            execution count of every probe or <code>null</code> if
+	 *            executions have not been counted
+	 * @since 0.8.14
+	 */
+	public ExecutionData(final long id, final String name,
+			final boolean[] probes, final long[] counts) {
+		this(id, name, probes);
+		if (counts != null && counts.length != probes.length) {
+			throw new IllegalArgumentException(format(
+					"Incompatible execution counts for class %s with id %016x.",
+					name, Long.valueOf(id)));
+		}
+		this.counts = counts;
+	}
+
 	/**
 	 * Creates a new {@link ExecutionData} object with the given probe data
 	 * length. All probes are set to <code>false</code>.
@@ -94,10 +123,26 @@ public final class ExecutionData {
 	}
 
 	/**
-	 * Sets all probes to <code>false</code>.
+	 * Returns the execution counts of the probes if executions have been
+	 * counted. The array has the same length as the probe data and can be
+	 * modified like the probe data.
+	 *
+	 * @return execution count of every probe or <code>null</code>
+	 * @since 0.8.14
+	 */
+	public long[] getCounts() {
+		return counts;
+	}
+
+	/**
+	 * Sets all probes to <code>false</code> and all execution counts to
+	 * <code>0</code>.
 	 */
 	public void reset() {
 		Arrays.fill(probes, false);
+		if (counts != null) {
+			Arrays.fill(counts, 0);
+		}
 	}
 
 	/**
@@ -124,7 +169,8 @@ public final class ExecutionData {
 	 * A or B
 	 * </pre>
 	 *
-	 * The probe array of the other object is not modified.
+	 * The probe array of the other object is not modified. Execution counts of
+	 * the other object are added to the execution counts of this object.
 	 *
 	 * @param other
 	 *            execution data to merge
@@ -149,7 +195,10 @@ public final class ExecutionData {
 	 * A and not B
 	 * </pre>
 	 *
-	 * The probe array of the other object is not modified.
+	 * The probe array of the other object is not modified. For
+	 * <code>flag==true</code> execution counts of the other object are added to
+	 * the execution counts of this object, for <code>flag==false</code> the
+	 * execution counts of probes executed in the other object are cleared.
 	 *
 	 * @param other
 	 *            execution data to merge
@@ -165,6 +214,27 @@ public final class ExecutionData {
 				probes[i] = flag;
 			}
 		}
+		if (flag) {
+			mergeCounts(other.getCounts());
+		} else if (counts != null) {
+			for (int i = 0; i < counts.length; i++) {
+				if (otherData[i]) {
+					counts[i] = 0;
+				}
+			}
+		}
+	}
+
+	private void mergeCounts(final long[] otherCounts) {
+		if (otherCounts == null) {
+			return;
+		}
+		if (counts == null) {
+			counts = new long[probes.length];
+		}
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] += otherCounts[i];
+		}
 	}
 
 	/**
@@ -31,6 +31,8 @@ public class ExecutionDataReader {
 
 	private IExecutionDataVisitor executionDataVisitor = null;
 
+	private IExecutionDataFilter executionDataFilter = null;
+
 	private boolean firstBlock = true;
 
 	/**
@@ -65,6 +67,19 @@ public class ExecutionDataReader {
 		this.executionDataVisitor = visitor;
 	}
 
+	/**
+	 * Sets a filter to select the classes for which execution data is
+	 * reported. Execution data of all other classes is skipped without
+	 * decoding it. By default execution data of all classes is reported.
+	 *
+	 * @param filter
+	 *            filter to select classes or <code>null</code> to report all
+	 *            classes
+	 */
+	public void setExecutionDataFilter(final IExecutionDataFilter filter) {
+		this.executionDataFilter = filter;
+	}
+
 	/**
 	 * Reads all data and reports it to the corresponding visitors. The stream
 	 * is read until its end or a command confirmation has been sent.
@@ -113,7 +128,13 @@ public class ExecutionDataReader {
 			readSessionInfo();
 			return true;
 		case ExecutionDataWriter.BLOCK_EXECUTIONDATA:
-			readExecutionData();
+			readExecutionData(false);
+			return true;
+		case ExecutionDataWriter.BLOCK_EXECUTIONCOUNTS:
+			readExecutionData(true);
+			return true;
+		case ExecutionDataWriter.BLOCK_INDEX:
+			readIndex();
 			return true;
 		default:
 			throw new IOException(
@@ -126,11 +147,23 @@ public class ExecutionDataReader {
 			throw new IOException("Invalid execution data file.");
 		}
 		final char version = in.readChar();
-		if (version != ExecutionDataWriter.FORMAT_VERSION) {
+		if (version != ExecutionDataWriter.FORMAT_VERSION
+				&& version != ExecutionDataWriter.EXTENDED_FORMAT_VERSION) {
 			throw new IncompatibleExecDataVersionException(version);
 		}
 	}
 
+	private void readIndex() throws IOException {
+		// The index is only required for random access, see ExecutionDataIndex
+		final int count = in.readVarInt();
+		for (int i = 0; i < count; i++) {
+			in.readLong();
+			in.readLong();
+		}
+		in.readLong();
+		in.readChar();
+	}
+
 	private void readSessionInfo() throws IOException {
 		if (sessionInfoVisitor == null) {
 			throw new IOException("No session info visitor.");
@@ -141,15 +174,33 @@ public class ExecutionDataReader {
 		sessionInfoVisitor.visitSessionInfo(new SessionInfo(id, start, dump));
 	}
 
-	private void readExecutionData() throws IOException {
+	private void readExecutionData(final boolean withCounts)
+			throws IOException {
 		if (executionDataVisitor == null) {
 			throw new IOException("No execution data visitor.");
 		}
 		final long id = in.readLong();
+		if (executionDataFilter != null && !executionDataFilter.include(id)) {
+			in.skipUTF();
+			in.skipBooleanArray();
+			if (withCounts) {
+				in.skipVarLongArray();
+			}
+			return;
+		}
 		final String name = in.readUTF();
 		final boolean[] probes = in.readBooleanArray();
-		executionDataVisitor
-				.visitClassExecution(new ExecutionData(id, name, probes));
+		final long[] counts = withCounts ? readCounts(probes.length) : null;
+		executionDataVisitor.visitClassExecution(
+				new ExecutionData(id, name, probes, counts));
+	}
+
+	private long[] readCounts(final int length) throws IOException {
+		final long[] counts = in.readVarLongArray();
+		if (counts.length != length) {
+			throw new IOException("Invalid execution counts.");
+		}
+		return counts;
 	}
 
 }
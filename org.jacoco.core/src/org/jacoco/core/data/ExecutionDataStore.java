@@ -14,11 +14,11 @@ package org.jacoco.core.data;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
+import org.jacoco.core.internal.data.LongHashMap;
+
 /**
  * In-memory data store for execution data. The data can be added through its
  * {@link IExecutionDataVisitor} interface. If execution data is provided
@@ -29,9 +29,10 @@ import java.util.Set;
  */
 public final class ExecutionDataStore implements IExecutionDataVisitor {
 
-	private final Map<Long, ExecutionData> entries = new HashMap<Long, ExecutionData>();
+	private final LongHashMap<ExecutionData> entries = new LongHashMap<ExecutionData>();
 
-	private final Set<String> names = new HashSet<String>();
+	/** index of class names, only created on demand */
+	private Set<String> names = null;
 
 	/**
 	 * Adds the given {@link ExecutionData} object into the store. If there is
@@ -46,11 +47,10 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 * @see ExecutionData#assertCompatibility(long, String, int)
 	 */
 	public void put(final ExecutionData data) throws IllegalStateException {
-		final Long id = Long.valueOf(data.getId());
+		final long id = data.getId();
 		final ExecutionData entry = entries.get(id);
 		if (entry == null) {
-			entries.put(id, data);
-			names.add(data.getName());
+			add(data);
 		} else {
 			entry.merge(data);
 		}
@@ -71,8 +71,7 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 */
 	public void subtract(final ExecutionData data)
 			throws IllegalStateException {
-		final Long id = Long.valueOf(data.getId());
-		final ExecutionData entry = entries.get(id);
+		final ExecutionData entry = entries.get(data.getId());
 		if (entry != null) {
 			entry.merge(data, false);
 		}
@@ -100,7 +99,7 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 * @return execution data or <code>null</code>
 	 */
 	public ExecutionData get(final long id) {
-		return entries.get(Long.valueOf(id));
+		return entries.get(id);
 	}
 
 	/**
@@ -113,6 +112,12 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 *         contained.
 	 */
 	public boolean contains(final String name) {
+		if (names == null) {
+			names = new HashSet<String>();
+			for (final ExecutionData data : getContents()) {
+				names.add(data.getName());
+			}
+		}
 		return names.contains(name);
 	}
 
@@ -130,11 +135,10 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 */
 	public ExecutionData get(final Long id, final String name,
 			final int probecount) {
-		ExecutionData entry = entries.get(id);
+		ExecutionData entry = entries.get(id.longValue());
 		if (entry == null) {
 			entry = new ExecutionData(id.longValue(), name, probecount);
-			entries.put(id, entry);
-			names.add(name);
+			add(entry);
 		} else {
 			entry.assertCompatibility(id.longValue(), name, probecount);
 		}
@@ -146,7 +150,7 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 * execution data objects itself are not removed.
 	 */
 	public void reset() {
-		for (final ExecutionData executionData : this.entries.values()) {
+		for (final ExecutionData executionData : getContents()) {
 			executionData.reset();
 		}
 	}
@@ -157,7 +161,17 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 * @return current contents
 	 */
 	public Collection<ExecutionData> getContents() {
-		return new ArrayList<ExecutionData>(entries.values());
+		final Collection<ExecutionData> contents = new ArrayList<ExecutionData>(
+				entries.size());
+		entries.values(contents);
+		return contents;
+	}
+
+	private void add(final ExecutionData data) {
+		entries.put(data.getId(), data);
+		if (names != null) {
+			names.add(data.getName());
+		}
 	}
 
 	/**
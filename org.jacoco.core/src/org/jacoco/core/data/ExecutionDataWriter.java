@@ -29,9 +29,22 @@ public class ExecutionDataWriter
 	 */
 	public static final char FORMAT_VERSION;
 
+	/**
+	 * File format version for extensions of the format with
+	 * {@link #FORMAT_VERSION}: Files with an index block or with execution
+	 * counts declare this version in an additional header block which is
+	 * written in front of the first such block. Readers which do not know
+	 * this version fail with an {@link IncompatibleExecDataVersionException}
+	 * while files without extensions can still be read by them.
+	 *
+	 * @since 0.8.14
+	 */
+	public static final char EXTENDED_FORMAT_VERSION;
+
 	static {
 		// Runtime initialize to ensure javac does not inline the value.
 		FORMAT_VERSION = 0x1007;
+		EXTENDED_FORMAT_VERSION = 0x1008;
 	}
 
 	/** Magic number in header for file format identification. */
@@ -46,9 +59,29 @@ public class ExecutionDataWriter
 	/** Block identifier for execution data of a single class. */
 	public static final byte BLOCK_EXECUTIONDATA = 0x11;
 
+	/**
+	 * Block identifier for the index at the end of indexed execution data
+	 * files. This block requires {@link #EXTENDED_FORMAT_VERSION}.
+	 *
+	 * @since 0.8.14
+	 */
+	public static final byte BLOCK_INDEX = 0x12;
+
+	/**
+	 * Block identifier for execution data of a single class including the
+	 * execution counts of its probes. Such blocks are only written for classes
+	 * instrumented to count executions. This block requires
+	 * {@link #EXTENDED_FORMAT_VERSION}.
+	 *
+	 * @since 0.8.14
+	 */
+	public static final byte BLOCK_EXECUTIONCOUNTS = 0x13;
+
 	/** Underlying data output */
 	protected final CompactDataOutput out;
 
+	private boolean extended;
+
 	/**
 	 * Creates a new writer based on the given output stream. Depending on the
 	 * nature of the underlying stream output should be buffered as most data is
@@ -76,6 +109,24 @@ public class ExecutionDataWriter
 		out.writeChar(FORMAT_VERSION);
 	}
 
+	/**
+	 * Writes a header with {@link #EXTENDED_FORMAT_VERSION} unless it has
+	 * already been written. Must be called before the first block which
+	 * requires this version.
+	 *
+	 * @throws IOException
+	 *             if the header can't be written
+	 * @since 0.8.14
+	 */
+	protected void writeExtendedHeader() throws IOException {
+		if (!extended) {
+			extended = true;
+			out.writeByte(BLOCK_HEADER);
+			out.writeChar(MAGIC_NUMBER);
+			out.writeChar(EXTENDED_FORMAT_VERSION);
+		}
+	}
+
 	/**
 	 * Flushes the underlying stream.
 	 *
@@ -100,10 +151,18 @@ public class ExecutionDataWriter
 	public void visitClassExecution(final ExecutionData data) {
 		if (data.hasHits()) {
 			try {
-				out.writeByte(BLOCK_EXECUTIONDATA);
+				final long[] counts = data.getCounts();
+				if (counts != null) {
+					writeExtendedHeader();
+				}
+				out.writeByte(counts == null ? BLOCK_EXECUTIONDATA
+						: BLOCK_EXECUTIONCOUNTS);
 				out.writeLong(data.getId());
 				out.writeUTF(data.getName());
 				out.writeBooleanArray(data.getProbes());
+				if (counts != null) {
+					out.writeVarLongArray(counts);
+				}
 			} catch (final IOException e) {
 				throw new RuntimeException(e);
 			}
@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+/**
+ * Selects the classes for which execution data should be read. Execution data
+ * of classes which are not selected are skipped by {@link ExecutionDataReader}
+ * without decoding them.
+ */
+public interface IExecutionDataFilter {
+
+	/**
+	 * Checks whether execution data of the class with the given id should be
+	 * read.
+	 *
+	 * @param id
+	 *            class identifier
+	 * @return <code>true</code> if the execution data should be read
+	 */
+	boolean include(long id);
+
+}
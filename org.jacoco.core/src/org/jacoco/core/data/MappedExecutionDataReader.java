@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import static java.lang.String.format;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads execution data from files written by {@link MappedExecutionDataWriter}.
+ * Such files contain a single session.
+ *
+ * @since 0.8.14
+ */
+public class MappedExecutionDataReader {
+
+	private final DataInputStream in;
+
+	private ISessionInfoVisitor sessionInfoVisitor = null;
+
+	private IExecutionDataVisitor executionDataVisitor = null;
+
+	/**
+	 * Creates a new reader based on the given input stream. Depending on the
+	 * nature of the underlying stream input should be buffered.
+	 *
+	 * @param input
+	 *            input stream to read execution data from
+	 */
+	public MappedExecutionDataReader(final InputStream input) {
+		this.in = new DataInputStream(input);
+	}
+
+	/**
+	 * Sets a listener for session information.
+	 *
+	 * @param visitor
+	 *            visitor to retrieve session info events
+	 */
+	public void setSessionInfoVisitor(final ISessionInfoVisitor visitor) {
+		this.sessionInfoVisitor = visitor;
+	}
+
+	/**
+	 * Sets a listener for execution data.
+	 *
+	 * @param visitor
+	 *            visitor to retrieve execution data events
+	 */
+	public void setExecutionDataVisitor(final IExecutionDataVisitor visitor) {
+		this.executionDataVisitor = visitor;
+	}
+
+	/**
+	 * Reads the complete file content and reports it to the registered
+	 * visitors.
+	 *
+	 * @throws IOException
+	 *             might be thrown by the underlying input stream or if the
+	 *             file has an invalid header
+	 */
+	public void read() throws IOException {
+		if (in.readInt() != MappedExecutionDataWriter.MAGIC_NUMBER) {
+			throw new IOException("Invalid mapped execution data file.");
+		}
+		final char version = in.readChar();
+		if (version != MappedExecutionDataWriter.FORMAT_VERSION) {
+			throw new IOException(format(
+					"Unsupported mapped execution data version 0x%x.",
+					Integer.valueOf(version)));
+		}
+		in.readChar();
+		final long start = in.readLong();
+		final long dump = in.readLong();
+		final int recordCount = in.readInt();
+		in.readInt();
+		final byte[] id = new byte[in.readUnsignedShort()];
+		in.readFully(id);
+		skip(MappedExecutionDataWriter.HEADER_SIZE
+				- MappedExecutionDataWriter.POS_SESSION_ID - 2 - id.length);
+		if (sessionInfoVisitor != null) {
+			sessionInfoVisitor.visitSessionInfo(
+					new SessionInfo(new String(id, "UTF-8"), start, dump));
+		}
+		for (int i = 0; i < recordCount; i++) {
+			readRecord();
+		}
+	}
+
+	private void readRecord() throws IOException {
+		final long id = in.readLong();
+		final int probeCount = in.readInt();
+		final byte flags = in.readByte();
+		final byte[] name = new byte[in.readUnsignedShort()];
+		in.readFully(name);
+		final byte[] bits = new byte[MappedExecutionDataWriter
+				.getProbesSize(probeCount)];
+		in.readFully(bits);
+		final boolean[] probes = new boolean[probeCount];
+		for (int i = 0; i < probeCount; i++) {
+			probes[i] = (bits[i >> 3] & (1 << (i & 7))) != 0;
+		}
+		long[] counts = null;
+		if ((flags & MappedExecutionDataWriter.FLAG_COUNTS) != 0) {
+			counts = new long[probeCount];
+			for (int i = 0; i < probeCount; i++) {
+				counts[i] = in.readLong();
+			}
+		}
+		if (executionDataVisitor != null) {
+			executionDataVisitor.visitClassExecution(new ExecutionData(id,
+					new String(name, "UTF-8"), probes, counts));
+		}
+	}
+
+	private void skip(final int count) throws IOException {
+		if (in.skipBytes(count) != count) {
+			throw new IOException("Truncated mapped execution data.");
+		}
+	}
+
+}
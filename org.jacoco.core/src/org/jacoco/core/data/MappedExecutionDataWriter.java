@@ -0,0 +1,345 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+
+import org.jacoco.core.internal.data.LongHashMap;
+
+/**
+ * Writes execution data into a memory mapped file. In contrast to
+ * {@link ExecutionDataWriter} the content of the file is updated in place:
+ * Every class has a fixed record into which execution data for this class is
+ * merged whenever it is visited again. Probes are combined and execution
+ * counts are added up, so the visited execution data is expected to be the
+ * delta since the previous visit, e.g. as collected with
+ * <code>RuntimeData.collectDelta()</code>. As the file content is maintained
+ * by the operating system it survives if the writing process is killed. Such
+ * files can be read with {@link MappedExecutionDataReader}.
+ *
+ * <p>
+ * The file starts with a header of {@value #HEADER_SIZE} bytes containing the
+ * magic number, the format version, the session information and the number of
+ * class records. Every record contains the class id, probe count, flags, class
+ * name, the probes as a bit set and optionally the execution counts. The
+ * header is updated after a new record has been completely written, so the
+ * file is consistent at any time.
+ * </p>
+ *
+ * @since 0.8.14
+ */
+public class MappedExecutionDataWriter
+		implements ISessionInfoVisitor, IExecutionDataVisitor {
+
+	/** Magic number in header for file format identification. */
+	public static final int MAGIC_NUMBER = 0xC0C04D4D;
+
+	/**
+	 * File format version, will be incremented for each incompatible change.
+	 */
+	public static final char FORMAT_VERSION = 0x0001;
+
+	/** Size of the file header in bytes. */
+	public static final int HEADER_SIZE = 256;
+
+	/** Record flag for classes with execution counts. */
+	static final byte FLAG_COUNTS = 0x01;
+
+	static final int POS_START_TIMESTAMP = 8;
+
+	static final int POS_DUMP_TIMESTAMP = 16;
+
+	static final int POS_RECORD_COUNT = 24;
+
+	static final int POS_END = 28;
+
+	static final int POS_SESSION_ID = 32;
+
+	/** maximum length of the UTF-8 encoded session id */
+	static final int SESSION_ID_CAPACITY = HEADER_SIZE - POS_SESSION_ID - 2;
+
+	private static final int INITIAL_SIZE = 64 * 1024;
+
+	private final RandomAccessFile file;
+
+	private final FileChannel channel;
+
+	private final FileLock lock;
+
+	/** record positions by class id */
+	private final LongHashMap<Integer> records;
+
+	private MappedByteBuffer buffer;
+
+	private int recordCount;
+
+	private int end;
+
+	/**
+	 * Creates a new writer for the given file. Existing content of the file is
+	 * discarded. The file is locked until the writer is closed.
+	 *
+	 * @param file
+	 *            file to write execution data to
+	 * @throws IOException
+	 *             if the file can not be created or is locked
+	 */
+	public MappedExecutionDataWriter(final File file) throws IOException {
+		this(file, false);
+	}
+
+	/**
+	 * Creates a new writer for the given file. The file is locked until the
+	 * writer is closed, so only one process at a time can write to a file.
+	 * Processes running concurrently need separate files which can be merged
+	 * afterwards.
+	 *
+	 * @param file
+	 *            file to write execution data to
+	 * @param append
+	 *            if <code>true</code> execution data is merged into the
+	 *            records of an existing file, only its session information is
+	 *            replaced. Otherwise existing content of the file is discarded.
+	 * @throws IOException
+	 *             if the file can not be created, is locked or is not a valid
+	 *             mapped execution data file in append mode
+	 */
+	public MappedExecutionDataWriter(final File file, final boolean append)
+			throws IOException {
+		this.file = new RandomAccessFile(file, "rw");
+		this.channel = this.file.getChannel();
+		this.lock = tryLock(file);
+		this.records = new LongHashMap<Integer>();
+		if (append && this.file.length() > 0) {
+			try {
+				load(file);
+			} catch (final IOException e) {
+				this.file.close();
+				throw e;
+			}
+		} else {
+			this.file.setLength(0);
+			this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+					INITIAL_SIZE);
+			buffer.putInt(0, MAGIC_NUMBER);
+			buffer.putChar(4, FORMAT_VERSION);
+			recordCount = 0;
+			end = HEADER_SIZE;
+			updateHeader();
+		}
+	}
+
+	/**
+	 * Maps the existing content of the file and indexes its records.
+	 */
+	private void load(final File f) throws IOException {
+		final long length = file.length();
+		if (length < HEADER_SIZE || length > Integer.MAX_VALUE) {
+			throw invalid(f);
+		}
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+				Math.max(INITIAL_SIZE, (int) length));
+		if (buffer.getInt(0) != MAGIC_NUMBER
+				|| buffer.getChar(4) != FORMAT_VERSION) {
+			throw invalid(f);
+		}
+		recordCount = buffer.getInt(POS_RECORD_COUNT);
+		end = buffer.getInt(POS_END);
+		if (recordCount < 0 || end < HEADER_SIZE || end > length) {
+			throw invalid(f);
+		}
+		int record = HEADER_SIZE;
+		for (int i = 0; i < recordCount; i++) {
+			if (record + 15 > end) {
+				throw invalid(f);
+			}
+			final int probeCount = buffer.getInt(record + 8);
+			final boolean counts = (buffer.get(record + 12)
+					& FLAG_COUNTS) != 0;
+			final int nameLength = buffer.getShort(record + 13) & 0xFFFF;
+			if (probeCount < 0) {
+				throw invalid(f);
+			}
+			records.put(buffer.getLong(record), Integer.valueOf(record));
+			record += getRecordSize(nameLength, probeCount, counts);
+		}
+		if (record != end) {
+			throw invalid(f);
+		}
+	}
+
+	private static IOException invalid(final File f) {
+		return new IOException(String
+				.format("Invalid mapped execution data file %s.", f));
+	}
+
+	private FileLock tryLock(final File f) throws IOException {
+		FileLock l;
+		try {
+			l = channel.tryLock();
+		} catch (final OverlappingFileLockException e) {
+			l = null;
+		}
+		if (l == null) {
+			file.close();
+			throw new IOException(
+					String.format("File %s is locked by another writer.", f));
+		}
+		return l;
+	}
+
+	public void visitSessionInfo(final SessionInfo info) {
+		buffer.putLong(POS_START_TIMESTAMP, info.getStartTimeStamp());
+		buffer.putLong(POS_DUMP_TIMESTAMP, info.getDumpTimeStamp());
+		final byte[] id = encode(info.getId());
+		final int length = Math.min(id.length, SESSION_ID_CAPACITY);
+		buffer.putShort(POS_SESSION_ID, (short) length);
+		for (int i = 0; i < length; i++) {
+			buffer.put(POS_SESSION_ID + 2 + i, id[i]);
+		}
+	}
+
+	public void visitClassExecution(final ExecutionData data) {
+		final Integer record = records.get(data.getId());
+		if (record == null) {
+			addRecord(data);
+		} else {
+			mergeData(data, record.intValue());
+		}
+	}
+
+	private void addRecord(final ExecutionData data) {
+		final boolean[] probes = data.getProbes();
+		final long[] counts = data.getCounts();
+		final byte[] name = encode(data.getName());
+		final int size = getRecordSize(name.length, probes.length,
+				counts != null);
+		ensureCapacity(end + size);
+
+		final int record = end;
+		buffer.putLong(record, data.getId());
+		buffer.putInt(record + 8, probes.length);
+		buffer.put(record + 12, counts == null ? 0 : FLAG_COUNTS);
+		buffer.putShort(record + 13, (short) name.length);
+		for (int i = 0; i < name.length; i++) {
+			buffer.put(record + 15 + i, name[i]);
+		}
+		// Remove remainders of a record which was incompletely written when
+		// a previous process was killed:
+		for (int i = record + 15 + name.length; i < record + size; i++) {
+			buffer.put(i, (byte) 0);
+		}
+		records.put(data.getId(), Integer.valueOf(record));
+		mergeData(data, record);
+
+		// The record becomes visible only after it has been written:
+		recordCount++;
+		end += size;
+		updateHeader();
+	}
+
+	private void mergeData(final ExecutionData data, final int record) {
+		final boolean[] probes = data.getProbes();
+		if (buffer.getInt(record + 8) != probes.length) {
+			throw new IllegalStateException(String.format(
+					"Incompatible execution data for class %s with id %016x.",
+					data.getName(), Long.valueOf(data.getId())));
+		}
+		final int nameLength = buffer.getShort(record + 13) & 0xFFFF;
+		int pos = record + 15 + nameLength;
+		for (int i = 0; i < probes.length; i += 8) {
+			byte b = buffer.get(pos);
+			for (int j = 0; j < 8 && i + j < probes.length; j++) {
+				if (probes[i + j]) {
+					b |= 1 << j;
+				}
+			}
+			buffer.put(pos++, b);
+		}
+		final long[] counts = data.getCounts();
+		if (counts != null && (buffer.get(record + 12) & FLAG_COUNTS) != 0) {
+			for (final long count : counts) {
+				buffer.putLong(pos, buffer.getLong(pos) + count);
+				pos += 8;
+			}
+		}
+	}
+
+	private void updateHeader() {
+		buffer.putInt(POS_RECORD_COUNT, recordCount);
+		buffer.putInt(POS_END, end);
+	}
+
+	private void ensureCapacity(final int required) {
+		if (required <= buffer.capacity()) {
+			return;
+		}
+		int size = buffer.capacity();
+		while (size < required) {
+			size *= 2;
+		}
+		try {
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		} catch (final IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Writes the mapped content to the storage device. This is not required
+	 * to preserve the content if the process terminates, but only if the
+	 * operating system terminates.
+	 */
+	public void flush() {
+		buffer.force();
+	}
+
+	/**
+	 * Flushes the content and releases the file.
+	 *
+	 * @throws IOException
+	 *             if the file can not be closed
+	 */
+	public void close() throws IOException {
+		flush();
+		lock.release();
+		file.close();
+	}
+
+	private static int getRecordSize(final int nameLength,
+			final int probeCount, final boolean counts) {
+		final int size = 8 + 4 + 1 + 2 + nameLength
+				+ getProbesSize(probeCount);
+		return counts ? size + 8 * probeCount : size;
+	}
+
+	static int getProbesSize(final int probeCount) {
+		return (probeCount + 7) / 8;
+	}
+
+	private static byte[] encode(final String s) {
+		try {
+			return s.getBytes("UTF-8");
+		} catch (final UnsupportedEncodingException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+}
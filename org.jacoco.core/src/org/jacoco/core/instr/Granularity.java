@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.instr;
+
+/**
+ * Granularity of the probes inserted by the {@link Instrumenter}. Probes at
+ * method level cause the least runtime overhead. Probes at line level only
+ * reduce the overhead for code with many branches, as straight-line code
+ * requires more probes than with {@link #BRANCH}. In return the analysis of
+ * such classes can only determine coverage at the locations of the probes: All
+ * other instructions as well as branches are not counted at all, i.e. they are
+ * reported as unknown instead of missed.
+ *
+ * Classes instrumented with a coarse granularity have a different class id.
+ * Therefore the analysis automatically detects the granularity which has been
+ * used to record execution data.
+ *
+ * @since 0.8.14
+ */
+public enum Granularity {
+
+	/**
+	 * One probe at the entry of every method. Only method, class and the first
+	 * instruction of every method are counted.
+	 */
+	METHOD,
+
+	/**
+	 * One probe at the beginning of every source line. Only line, method,
+	 * class and the first instruction of every line are counted. Methods
+	 * without line number information get a single probe at their entry.
+	 */
+	LINE,
+
+	/**
+	 * Probes at every branch of the control flow. All counters are available.
+	 * This is the default.
+	 */
+	BRANCH
+
+}
@@ -12,10 +12,16 @@
  *******************************************************************************/
 package org.jacoco.core.instr;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.zip.CRC32;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
@@ -24,6 +30,7 @@ import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import org.jacoco.core.JaCoCo;
+import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.internal.ContentTypeDetector;
 import org.jacoco.core.internal.InputStreams;
 import org.jacoco.core.internal.Pack200Streams;
@@ -34,6 +41,7 @@ import org.jacoco.core.internal.instr.IProbeArrayStrategy;
 import org.jacoco.core.internal.instr.InstrSupport;
 import org.jacoco.core.internal.instr.ProbeArrayStrategyFactory;
 import org.jacoco.core.internal.instr.SignatureRemover;
+import org.jacoco.core.runtime.IExecutionCountersAccessorGenerator;
 import org.jacoco.core.runtime.IExecutionDataAccessorGenerator;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
@@ -44,10 +52,23 @@ import org.objectweb.asm.ClassWriter;
  */
 public class Instrumenter {
 
+	/** maximum number of archive entries instrumented in parallel at once */
+	private static final int MAX_PENDING = 256;
+
 	private final IExecutionDataAccessorGenerator accessorGenerator;
 
 	private final SignatureRemover signatureRemover;
 
+	private Executor executor;
+
+	private Granularity granularity = Granularity.BRANCH;
+
+	private boolean minimizeProbes;
+
+	private boolean conditionalProbes;
+
+	private boolean executionCounts;
+
 	/**
 	 * Creates a new instance based on the given runtime.
 	 *
@@ -72,8 +93,98 @@ public class Instrumenter {
 		signatureRemover.setActive(flag);
 	}
 
-	private byte[] instrument(final byte[] source) {
-		final long classId = CRC64.classId(source);
+	/**
+	 * Sets an executor to instrument the entries of archive files in
+	 * parallel. Archives are still read and written sequentially by the
+	 * calling thread, while the executor instruments the individual entries.
+	 * The resulting archives have the same content as without an executor.
+	 * Default is <code>null</code>, i.e. all entries are instrumented by the
+	 * calling thread.
+	 *
+	 * @param executor
+	 *            executor for instrumentation of archive entries or
+	 *            <code>null</code>
+	 */
+	public void setExecutor(final Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Sets the granularity of the inserted probes. Coarser granularities can
+	 * reduce the runtime overhead but provide less detailed coverage
+	 * information. Default is {@link Granularity#BRANCH}.
+	 *
+	 * @param granularity
+	 *            granularity of the probes
+	 * @since 0.8.14
+	 */
+	public void setGranularity(final Granularity granularity) {
+		this.granularity = granularity;
+	}
+
+	/**
+	 * Determines whether probes which are implied by other probes should be
+	 * omitted. The analysis reconstructs the state of such probes from the
+	 * control flow. This reduces the runtime overhead, but code executed before
+	 * an exception terminates a method might be reported as not covered in
+	 * more cases. Only applies to {@link Granularity#BRANCH}. Classes with
+	 * omitted probes have a different class id, so that the analysis only
+	 * reconstructs probes for execution data recorded with this option.
+	 * Default is <code>false</code>.
+	 *
+	 * @param flag
+	 *            <code>true</code> if implied probes should be omitted
+	 * @since 0.8.14
+	 */
+	public void setMinimizeProbes(final boolean flag) {
+		this.minimizeProbes = flag;
+	}
+
+	/**
+	 * Determines whether probes should only write to the probe array if they
+	 * have not been executed before. Such probes first read their slot and
+	 * skip the write if it is already set. This avoids that the same cache
+	 * line is invalidated on all cores over and over again when instrumented
+	 * code is executed by many threads in parallel, but adds a branch to
+	 * every probe. Default is <code>false</code>.
+	 *
+	 * @param flag
+	 *            <code>true</code> if probes should only write once
+	 * @since 0.8.14
+	 */
+	public void setConditionalProbes(final boolean flag) {
+		this.conditionalProbes = flag;
+	}
+
+	/**
+	 * Determines whether probes should count their executions. Counting probes
+	 * increment a counter of the current thread instead of setting a flag.
+	 * Counters are summed up when execution data is collected from the
+	 * runtime and are available through {@link ExecutionData#getCounts()}.
+	 * When counting, implied probes are not omitted and probes always write,
+	 * see {@link #setMinimizeProbes(boolean)} and
+	 * {@link #setConditionalProbes(boolean)}. The runtime must implement
+	 * {@link IExecutionCountersAccessorGenerator}. Default is
+	 * <code>false</code>.
+	 *
+	 * @param flag
+	 *            <code>true</code> if probes should count executions
+	 * @throws IllegalStateException
+	 *             if the runtime does not support counters
+	 * @since 0.8.14
+	 */
+	public void setExecutionCounts(final boolean flag) {
+		final boolean supported = accessorGenerator instanceof IExecutionCountersAccessorGenerator;
+		if (flag && !supported) {
+			throw new IllegalStateException(
+					"Runtime does not support execution counts.");
+		}
+		this.executionCounts = flag;
+	}
+
+	private byte[] instrument(final byte[] source, final boolean probes) {
+		final boolean minimize = minimizeProbes && !executionCounts;
+		final long classId = CRC64.classId(source, granularity, minimize);
 		final ClassReader reader = InstrSupport.classReaderFor(source);
 		final ClassWriter writer = new ClassWriter(reader, 0) {
 			@Override
@@ -83,11 +194,13 @@ public class Instrumenter {
 			}
 		};
 		final IProbeArrayStrategy strategy = ProbeArrayStrategyFactory
-				.createFor(classId, reader, accessorGenerator);
+				.createFor(classId, reader, accessorGenerator, granularity,
+						executionCounts);
 		final int version = InstrSupport.getMajorVersion(reader);
 		final ClassVisitor visitor = new ClassProbesAdapter(
-				new ClassInstrumenter(strategy, writer),
-				InstrSupport.needsFrames(version));
+				new ClassInstrumenter(strategy, probes, conditionalProbes,
+						executionCounts, writer),
+				InstrSupport.needsFrames(version), granularity, minimize);
 		reader.accept(visitor, ClassReader.EXPAND_FRAMES);
 		return writer.toByteArray();
 	}
@@ -106,7 +219,32 @@ public class Instrumenter {
 	public byte[] instrument(final byte[] buffer, final String name)
 			throws IOException {
 		try {
-			return instrument(buffer);
+			return instrument(buffer, true);
+		} catch (final RuntimeException e) {
+			throw instrumentError(name, e);
+		}
+	}
+
+	/**
+	 * Creates a version of the given class which has the same structure as the
+	 * instrumented version created by {@link #instrument(byte[], String)} but
+	 * does not record execution. Such a version can replace an instrumented
+	 * class at runtime through class retransformation, for example when all
+	 * probes of the class have already been executed.
+	 *
+	 * @param buffer
+	 *            definition of the class
+	 * @param name
+	 *            a name used for exception messages
+	 * @return definition without probes
+	 * @throws IOException
+	 *             if the class can't be instrumented
+	 * @since 0.8.14
+	 */
+	public byte[] instrumentWithoutProbes(final byte[] buffer,
+			final String name) throws IOException {
+		try {
+			return instrument(buffer, false);
 		} catch (final RuntimeException e) {
 			throw instrumentError(name, e);
 		}
@@ -185,6 +323,12 @@ public class Instrumenter {
 	 */
 	public int instrumentAll(final InputStream input, final OutputStream output,
 			final String name) throws IOException {
+		return instrumentAll(input, output, name, executor);
+	}
+
+	private int instrumentAll(final InputStream input,
+			final OutputStream output, final String name,
+			final Executor executor) throws IOException {
 		final ContentTypeDetector detector;
 		try {
 			detector = new ContentTypeDetector(input);
@@ -196,11 +340,17 @@ public class Instrumenter {
 			instrument(detector.getInputStream(), output, name);
 			return 1;
 		case ContentTypeDetector.ZIPFILE:
-			return instrumentZip(detector.getInputStream(), output, name);
+			if (executor == null) {
+				return instrumentZip(detector.getInputStream(), output, name);
+			}
+			return instrumentZip(detector.getInputStream(), output, name,
+					executor);
 		case ContentTypeDetector.GZFILE:
-			return instrumentGzip(detector.getInputStream(), output, name);
+			return instrumentGzip(detector.getInputStream(), output, name,
+					executor);
 		case ContentTypeDetector.PACK200FILE:
-			return instrumentPack200(detector.getInputStream(), output, name);
+			return instrumentPack200(detector.getInputStream(), output, name,
+					executor);
 		default:
 			copy(detector.getInputStream(), output, name);
 			return 0;
@@ -252,8 +402,128 @@ public class Instrumenter {
 		if (signatureRemover.filterEntry(entryName, in, out)) {
 			return 0;
 		} else {
-			return instrumentAll(in, out, name + "@" + entryName);
+			return instrumentAll(in, out, name + "@" + entryName, null);
+		}
+	}
+
+	/**
+	 * Instruments the given archive with the given executor. The entries are
+	 * read sequentially, instrumented in parallel and written in their original
+	 * order.
+	 */
+	private int instrumentZip(final InputStream input,
+			final OutputStream output, final String name,
+			final Executor executor) throws IOException {
+		final ZipInputStream zipin = new ZipInputStream(input);
+		final ZipOutputStream zipout = new ZipOutputStream(output);
+		final LinkedList<PendingEntry> pending = new LinkedList<PendingEntry>();
+		ZipEntry entry;
+		int count = 0;
+		try {
+			while ((entry = nextEntry(zipin, name)) != null) {
+				final String entryName = entry.getName();
+				if (signatureRemover.removeEntry(entryName)) {
+					continue;
+				}
+				final byte[] bytes;
+				try {
+					bytes = InputStreams.readFully(zipin);
+				} catch (final IOException e) {
+					throw instrumentError(name + "@" + entryName, e);
+				}
+				final PendingEntry pendingEntry = new PendingEntry(entry,
+						bytes, name);
+				if (pending.size() >= MAX_PENDING) {
+					count += pending.removeFirst().write(zipout);
+				}
+				pending.add(pendingEntry);
+				executor.execute(pendingEntry.task);
+				while (!pending.isEmpty() && pending.getFirst().task.isDone()) {
+					count += pending.removeFirst().write(zipout);
+				}
+			}
+			while (!pending.isEmpty()) {
+				count += pending.removeFirst().write(zipout);
+			}
+		} finally {
+			for (final PendingEntry p : pending) {
+				p.task.cancel(false);
+			}
+		}
+		zipout.finish();
+		return count;
+	}
+
+	/**
+	 * An archive entry which is instrumented asynchronously.
+	 */
+	private class PendingEntry implements Callable<Integer> {
+
+		private final ZipEntry entry;
+
+		private final byte[] bytes;
+
+		private final String name;
+
+		private final ByteArrayOutputStream result;
+
+		final FutureTask<Integer> task;
+
+		PendingEntry(final ZipEntry entry, final byte[] bytes,
+				final String name) {
+			this.entry = entry;
+			this.bytes = bytes;
+			this.name = name;
+			this.result = new ByteArrayOutputStream();
+			this.task = new FutureTask<Integer>(this);
+		}
+
+		public Integer call() throws IOException {
+			return Integer.valueOf(
+					filterOrInstrument(new ByteArrayInputStream(bytes), result,
+							name, entry.getName()));
 		}
+
+		int write(final ZipOutputStream zipout) throws IOException {
+			final int count = awaitResult();
+			final byte[] content = result.toByteArray();
+			final ZipEntry newEntry = new ZipEntry(entry.getName());
+			newEntry.setMethod(entry.getMethod());
+			switch (entry.getMethod()) {
+			case ZipEntry.DEFLATED:
+				break;
+			case ZipEntry.STORED:
+				newEntry.setSize(content.length);
+				newEntry.setCompressedSize(content.length);
+				newEntry.setCrc(crc(content));
+				break;
+			default:
+				throw new AssertionError(entry.getMethod());
+			}
+			zipout.putNextEntry(newEntry);
+			zipout.write(content);
+			zipout.closeEntry();
+			return count;
+		}
+
+		private int awaitResult() throws IOException {
+			try {
+				return task.get().intValue();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw instrumentError(name + "@" + entry.getName(), e);
+			} catch (final ExecutionException e) {
+				final Throwable cause = e.getCause();
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				}
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				throw (Error) cause;
+			}
+		}
+
 	}
 
 	private static long crc(final byte[] data) {
@@ -277,7 +547,8 @@ public class Instrumenter {
 	}
 
 	private int instrumentGzip(final InputStream input,
-			final OutputStream output, final String name) throws IOException {
+			final OutputStream output, final String name,
+			final Executor executor) throws IOException {
 		final GZIPInputStream gzipInputStream;
 		try {
 			gzipInputStream = new GZIPInputStream(input);
@@ -285,13 +556,15 @@ public class Instrumenter {
 			throw instrumentError(name, e);
 		}
 		final GZIPOutputStream gzout = new GZIPOutputStream(output);
-		final int count = instrumentAll(gzipInputStream, gzout, name);
+		final int count = instrumentAll(gzipInputStream, gzout, name,
+				executor);
 		gzout.finish();
 		return count;
 	}
 
 	private int instrumentPack200(final InputStream input,
-			final OutputStream output, final String name) throws IOException {
+			final OutputStream output, final String name,
+			final Executor executor) throws IOException {
 		final InputStream unpackedInput;
 		try {
 			unpackedInput = Pack200Streams.unpack(input);
@@ -299,7 +572,8 @@ public class Instrumenter {
 			throw instrumentError(name, e);
 		}
 		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-		final int count = instrumentAll(unpackedInput, buffer, name);
+		final int count = instrumentAll(unpackedInput, buffer, name,
+				executor);
 		Pack200Streams.pack(buffer.toByteArray(), output);
 		return count;
 	}
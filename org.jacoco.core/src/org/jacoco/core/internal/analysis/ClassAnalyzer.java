@@ -15,21 +15,23 @@ package org.jacoco.core.internal.analysis;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
+import org.jacoco.core.instr.Granularity;
 import org.jacoco.core.internal.analysis.filter.Filters;
 import org.jacoco.core.internal.analysis.filter.IFilter;
 import org.jacoco.core.internal.analysis.filter.IFilterContext;
 import org.jacoco.core.internal.analysis.filter.KotlinSMAP;
 import org.jacoco.core.internal.flow.ClassProbesVisitor;
 import org.jacoco.core.internal.flow.MethodProbesVisitor;
+import org.jacoco.core.internal.flow.MethodSanitizer;
+import org.jacoco.core.internal.flow.ProbeImplications;
 import org.jacoco.core.internal.instr.InstrSupport;
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.Attribute;
+import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.MethodVisitor;
-import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.MethodNode;
 
 /**
@@ -40,6 +42,7 @@ public class ClassAnalyzer extends ClassProbesVisitor
 
 	private final ClassCoverageImpl coverage;
 	private final boolean[] probes;
+	private final long[] counts;
 	private final StringPool stringPool;
 
 	private final Set<String> classAnnotations = new HashSet<String>();
@@ -52,6 +55,11 @@ public class ClassAnalyzer extends ClassProbesVisitor
 
 	private final IFilter filter;
 
+	private final Granularity granularity;
+
+	/** template to record or <code>null</code> to calculate the coverage */
+	private final CoverageTemplate template;
+
 	/**
 	 * Creates a new analyzer that builds coverage data for a class.
 	 *
@@ -64,10 +72,78 @@ public class ClassAnalyzer extends ClassProbesVisitor
 	 */
 	public ClassAnalyzer(final ClassCoverageImpl coverage,
 			final boolean[] probes, final StringPool stringPool) {
+		this(coverage, probes, stringPool, Granularity.BRANCH);
+	}
+
+	/**
+	 * Creates a new analyzer that builds coverage data for a class which has
+	 * been instrumented with the given granularity.
+	 *
+	 * @param coverage
+	 *            coverage node for the analyzed class data
+	 * @param probes
+	 *            execution data for this class or <code>null</code>
+	 * @param stringPool
+	 *            shared pool to minimize the number of {@link String} instances
+	 * @param granularity
+	 *            granularity of the probes
+	 */
+	public ClassAnalyzer(final ClassCoverageImpl coverage,
+			final boolean[] probes, final StringPool stringPool,
+			final Granularity granularity) {
+		this(coverage, probes, null, stringPool, granularity);
+	}
+
+	/**
+	 * Creates a new analyzer that builds coverage data for a class which has
+	 * been instrumented with the given granularity. If execution counts are
+	 * given they are calculated for every line.
+	 *
+	 * @param coverage
+	 *            coverage node for the analyzed class data
+	 * @param probes
+	 *            execution data for this class or <code>null</code>
+	 * @param counts
+	 *            execution counts for this class or <code>null</code>
+	 * @param stringPool
+	 *            shared pool to minimize the number of {@link String} instances
+	 * @param granularity
+	 *            granularity of the probes
+	 */
+	public ClassAnalyzer(final ClassCoverageImpl coverage,
+			final boolean[] probes, final long[] counts,
+			final StringPool stringPool, final Granularity granularity) {
+		this(coverage, probes, counts, stringPool, granularity, null);
+	}
+
+	/**
+	 * Creates a new analyzer that records a coverage template for a class
+	 * which has been instrumented with branch granularity. Implications
+	 * between probes are recorded in the template and should therefore always
+	 * be reported by the {@link org.jacoco.core.internal.flow.ClassProbesAdapter}.
+	 *
+	 * @param template
+	 *            empty template for the analyzed class
+	 * @param stringPool
+	 *            shared pool to minimize the number of {@link String} instances
+	 */
+	public ClassAnalyzer(final CoverageTemplate template,
+			final StringPool stringPool) {
+		this(new ClassCoverageImpl(template.getName(), 0, false), null, null,
+				stringPool, Granularity.BRANCH, template);
+	}
+
+	private ClassAnalyzer(final ClassCoverageImpl coverage,
+			final boolean[] probes, final long[] counts,
+			final StringPool stringPool, final Granularity granularity,
+			final CoverageTemplate template) {
 		this.coverage = coverage;
 		this.probes = probes;
+		this.counts = counts;
 		this.stringPool = stringPool;
 		this.filter = Filters.all();
+		this.granularity = granularity;
+		this.template = template;
 	}
 
 	@Override
@@ -104,7 +180,9 @@ public class ClassAnalyzer extends ClassProbesVisitor
 
 		InstrSupport.assertNotInstrumented(name, coverage.getName());
 
-		final InstructionsBuilder builder = new InstructionsBuilder(probes);
+		final InstructionsBuilder builder = template == null
+				? new InstructionsBuilder(probes, counts)
+				: InstructionsBuilder.recordingProbes();
 
 		return new MethodAnalyzer(builder) {
 
@@ -115,21 +193,99 @@ public class ClassAnalyzer extends ClassProbesVisitor
 				addMethodCoverage(stringPool.get(name), stringPool.get(desc),
 						stringPool.get(signature), builder, methodNode);
 			}
+
+			@Override
+			public void visitProbeImplications(
+					final ProbeImplications implications) {
+				if (template == null) {
+					super.visitProbeImplications(implications);
+				} else {
+					template.addImplications(implications);
+				}
+			}
+
+			@Override
+			public void visitProbe(final int probeId) {
+				if (granularity == Granularity.BRANCH) {
+					super.visitProbe(probeId);
+				} else {
+					builder.addProbePoint(probeId);
+				}
+			}
 		};
 	}
 
-	private void addMethodCoverage(final String name, final String desc,
-			final String signature, final InstructionsBuilder icc,
-			final MethodNode methodNode) {
+	/**
+	 * Returns a visitor which directly analyzes the class file without
+	 * calculating probes. This is only supported for classes without execution
+	 * data, i.e. for analyzers created without probes, execution counts and
+	 * template: As nothing has been executed the instructions and branches of
+	 * every method are counted in a single pass without building the control
+	 * flow between the instructions. The result is the same as visiting the
+	 * class with a {@link org.jacoco.core.internal.flow.ClassProbesAdapter}.
+	 *
+	 * @return visitor for the class file
+	 */
+	public ClassVisitor withoutProbes() {
+		return new ClassVisitor(InstrSupport.ASM_API_VERSION, this) {
+			@Override
+			public MethodVisitor visitMethod(final int access,
+					final String name, final String desc,
+					final String signature, final String[] exceptions) {
+				InstrSupport.assertNotInstrumented(name, coverage.getName());
+				return new MethodSanitizer(null, access, name, desc, signature,
+						exceptions) {
+					@Override
+					public void visitEnd() {
+						super.visitEnd();
+						addMissedMethodCoverage(stringPool.get(name),
+								stringPool.get(desc), stringPool.get(signature),
+								this);
+					}
+				};
+			}
+		};
+	}
 
-		final Map<AbstractInsnNode, Instruction> instructions = icc
-				.getInstructions();
+	private void addMissedMethodCoverage(final String name, final String desc,
+			final String signature, final MethodNode methodNode) {
+		final Instructions instructions = MethodAnalyzer
+				.createMissedInstructions(methodNode);
 		calculateFragments(instructions);
-
 		final MethodCoverageCalculator mcc = new MethodCoverageCalculator(
 				instructions);
 		filter.filter(methodNode, this, mcc);
+		addMethodCoverage(name, desc, signature, mcc);
+	}
+
+	private void addMethodCoverage(final String name, final String desc,
+			final String signature, final InstructionsBuilder icc,
+			final MethodNode methodNode) {
+
+		final Instructions instructions = icc.getInstructions();
+		final MethodCoverageCalculator mcc;
+		if (granularity == Granularity.BRANCH) {
+			calculateFragments(instructions);
+			mcc = new MethodCoverageCalculator(instructions);
+		} else {
+			// Coverage of inlined code is unknown with coarse probes
+			mcc = new MethodCoverageCalculator(instructions,
+					icc.getProbePoints(), granularity);
+		}
+		if (icc.hasExecutionCounts()) {
+			mcc.setExecutionCounts(icc.getProbePointCounts());
+		}
+		filter.filter(methodNode, this, mcc);
 
+		if (template != null) {
+			template.addMethod(mcc.createTemplate(name, desc, signature));
+			return;
+		}
+		addMethodCoverage(name, desc, signature, mcc);
+	}
+
+	private void addMethodCoverage(final String name, final String desc,
+			final String signature, final MethodCoverageCalculator mcc) {
 		final MethodCoverageImpl mc = new MethodCoverageImpl(name, desc,
 				signature);
 		mcc.calculate(mc);
@@ -138,11 +294,9 @@ public class ClassAnalyzer extends ClassProbesVisitor
 			// Only consider methods that actually contain code
 			coverage.addMethod(mc);
 		}
-
 	}
 
-	private void calculateFragments(
-			final Map<AbstractInsnNode, Instruction> instructions) {
+	private void calculateFragments(final Instructions instructions) {
 		if (sourceDebugExtension == null || !Filters.isKotlinClass(this)) {
 			return;
 		}
@@ -160,15 +314,25 @@ public class ClassAnalyzer extends ClassProbesVisitor
 			if (fragment == null) {
 				fragment = new SourceNodeImpl(null, mapping.inputClassName());
 				fragments.put(mapping.inputClassName(), fragment);
+				if (template != null) {
+					template.addFragment(mapping.inputClassName());
+				}
 			}
 			final int mappingOutputEndLine = mapping.outputStartLine()
 					+ mapping.repeatCount() - 1;
-			for (Instruction instruction : instructions.values()) {
-				if (mapping.outputStartLine() <= instruction.getLine()
-						&& instruction.getLine() <= mappingOutputEndLine) {
-					final int originalLine = mapping.inputStartLine()
-							+ instruction.getLine() - mapping.outputStartLine();
-					fragment.increment(instruction.getInstructionCounter(),
+			for (int i = 0; i < instructions.size(); i++) {
+				final int line = instructions.getLine(i);
+				if (mapping.outputStartLine() <= line
+						&& line <= mappingOutputEndLine) {
+					final int originalLine = mapping.inputStartLine() + line
+							- mapping.outputStartLine();
+					if (template != null) {
+						template.addFragmentInstruction(
+								mapping.inputClassName(), originalLine,
+								instructions.getCoveringProbes(i));
+						continue;
+					}
+					fragment.increment(instructions.getInstructionCounter(i),
 							CounterImpl.COUNTER_0_0, originalLine);
 				}
 			}
@@ -189,6 +353,12 @@ public class ClassAnalyzer extends ClassProbesVisitor
 
 	@Override
 	public void visitEnd() {
+		if (template != null) {
+			template.setClassInfo(coverage.getSignature(),
+					coverage.getSuperName(), coverage.getInterfaceNames(),
+					coverage.getSourceFileName());
+			return;
+		}
 		if (!fragments.isEmpty()) {
 			coverage.setFragments(Arrays
 					.asList(fragments.values().toArray(new SourceNodeImpl[0])));
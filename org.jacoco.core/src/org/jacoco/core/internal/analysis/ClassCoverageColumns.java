@@ -0,0 +1,531 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jacoco.core.analysis.CoverageNodeImpl;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.ICoverageNode.CounterEntity;
+import org.jacoco.core.analysis.ILine;
+import org.jacoco.core.analysis.IMethodCoverage;
+import org.jacoco.core.analysis.ISourceFileCoverage;
+import org.jacoco.core.analysis.ISourceNode;
+
+/**
+ * Memory compact storage for the coverage of many classes. The counters and
+ * lines of the classes and their methods are copied into columns of
+ * primitive arrays, so that the original {@link IClassCoverage} instances can
+ * be discarded. The stored classes are exposed as {@link IClassCoverage} views
+ * which are created on demand.
+ */
+public final class ClassCoverageColumns {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final SourceNodeColumns nodes;
+
+	/** descriptors of methods, indexed by node */
+	private String[] descs;
+
+	/** signatures of classes and methods, indexed by node */
+	private String[] signatures;
+
+	private int size;
+
+	private int[] classNodes;
+
+	/** number of methods, which are stored as the nodes following the class */
+	private int[] methodCounts;
+
+	private long[] ids;
+
+	private boolean[] noMatch;
+
+	private String[] superNames;
+
+	private String[][] interfaces;
+
+	private String[] sourceFileNames;
+
+	/**
+	 * Creates new empty columns.
+	 */
+	public ClassCoverageColumns() {
+		nodes = new SourceNodeColumns();
+		descs = new String[INITIAL_CAPACITY];
+		signatures = new String[INITIAL_CAPACITY];
+		classNodes = new int[INITIAL_CAPACITY];
+		methodCounts = new int[INITIAL_CAPACITY];
+		ids = new long[INITIAL_CAPACITY];
+		noMatch = new boolean[INITIAL_CAPACITY];
+		superNames = new String[INITIAL_CAPACITY];
+		interfaces = new String[INITIAL_CAPACITY][];
+		sourceFileNames = new String[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Adds a copy of the given class and its methods.
+	 *
+	 * @param coverage
+	 *            class to add
+	 * @return index of the class
+	 */
+	public int add(final IClassCoverage coverage) {
+		if (size == classNodes.length) {
+			final int capacity = newCapacity(size);
+			classNodes = grow(classNodes, new int[capacity]);
+			methodCounts = grow(methodCounts, new int[capacity]);
+			final long[] newIds = new long[capacity];
+			System.arraycopy(ids, 0, newIds, 0, size);
+			ids = newIds;
+			final boolean[] newNoMatch = new boolean[capacity];
+			System.arraycopy(noMatch, 0, newNoMatch, 0, size);
+			noMatch = newNoMatch;
+			superNames = grow(superNames, new String[capacity]);
+			interfaces = grow(interfaces, new String[capacity][]);
+			sourceFileNames = grow(sourceFileNames, new String[capacity]);
+		}
+		final int c = size++;
+		classNodes[c] = addNode(coverage, null, coverage.getSignature());
+		for (final IMethodCoverage m : coverage.getMethods()) {
+			addNode(m, m.getDesc(), m.getSignature());
+			methodCounts[c]++;
+		}
+		ids[c] = coverage.getId();
+		noMatch[c] = coverage.isNoMatch();
+		superNames[c] = coverage.getSuperName();
+		interfaces[c] = coverage.getInterfaceNames();
+		sourceFileNames[c] = coverage.getSourceFileName();
+		return c;
+	}
+
+	private int addNode(final ISourceNode node, final String desc,
+			final String signature) {
+		final int n = nodes.add(node);
+		if (n == descs.length) {
+			final int capacity = newCapacity(n);
+			descs = grow(descs, new String[capacity]);
+			signatures = grow(signatures, new String[capacity]);
+		}
+		descs[n] = desc;
+		signatures[n] = signature;
+		return n;
+	}
+
+	/**
+	 * Applies a fragment to the given class and its methods.
+	 *
+	 * @see ClassCoverageImpl#applyFragment(SourceNodeImpl)
+	 * @param c
+	 *            index of the class
+	 * @param fragment
+	 *            fragment to apply
+	 */
+	public void applyFragment(final int c, final SourceNodeImpl fragment) {
+		final int classNode = classNodes[c];
+		nodes.applyFragment(classNode, fragment);
+		for (int m = classNode + 1; m <= classNode + methodCounts[c]; m++) {
+			final int mm = nodes.getMissed(m, CounterEntity.METHOD);
+			final int cm = nodes.getCovered(m, CounterEntity.METHOD);
+			final int mc = nodes.getMissed(m, CounterEntity.COMPLEXITY);
+			final int cc = nodes.getCovered(m, CounterEntity.COMPLEXITY);
+			if (nodes.applyFragment(m, fragment)) {
+				final CounterImpl methodCounter = nodes.getCovered(m,
+						CounterEntity.INSTRUCTION) == 0
+								? CounterImpl.COUNTER_1_0
+								: CounterImpl.COUNTER_0_1;
+				nodes.setCounter(m, CounterEntity.METHOD, methodCounter);
+				nodes.setCounter(m, CounterEntity.COMPLEXITY, methodCounter);
+				nodes.incrementCounter(classNode, CounterEntity.METHOD,
+						methodCounter.getMissedCount() - mm,
+						methodCounter.getCoveredCount() - cm);
+				nodes.incrementCounter(classNode, CounterEntity.COMPLEXITY,
+						methodCounter.getMissedCount() - mc,
+						methodCounter.getCoveredCount() - cc);
+			}
+		}
+		nodes.setCounter(classNode, CounterEntity.CLASS,
+				nodes.getCovered(classNode, CounterEntity.METHOD) > 0
+						? CounterImpl.COUNTER_0_1
+						: CounterImpl.COUNTER_1_0);
+	}
+
+	/**
+	 * Returns a view of the class with the given index.
+	 *
+	 * @param c
+	 *            index of the class
+	 * @return view of the class
+	 */
+	public IClassCoverage get(final int c) {
+		return new ClassView(c);
+	}
+
+	/**
+	 * Creates the source files of the given classes. The source files are
+	 * views which calculate their lines from the lines of their classes on
+	 * demand.
+	 *
+	 * @param classes
+	 *            indices of the classes
+	 * @return source files of all classes with a source file name
+	 */
+	public Collection<ISourceFileCoverage> createSourceFiles(
+			final Collection<Integer> classes) {
+		final Map<String, List<Integer>> sourceFiles = new LinkedHashMap<String, List<Integer>>();
+		for (final Integer c : classes) {
+			final String source = sourceFileNames[c.intValue()];
+			if (source == null) {
+				continue;
+			}
+			final String key = getPackageName(c.intValue()) + '/' + source;
+			List<Integer> sourceFile = sourceFiles.get(key);
+			if (sourceFile == null) {
+				sourceFile = new ArrayList<Integer>();
+				sourceFiles.put(key, sourceFile);
+			}
+			sourceFile.add(c);
+		}
+		final List<ISourceFileCoverage> result = new ArrayList<ISourceFileCoverage>(
+				sourceFiles.size());
+		for (final List<Integer> sourceFile : sourceFiles.values()) {
+			final int[] c = new int[sourceFile.size()];
+			for (int i = 0; i < c.length; i++) {
+				c[i] = sourceFile.get(i).intValue();
+			}
+			result.add(new SourceFileView(c));
+		}
+		return result;
+	}
+
+	/**
+	 * Shrinks all columns to the number of classes and nodes currently stored.
+	 * Further classes can still be added afterwards.
+	 */
+	public void trimToSize() {
+		nodes.trimToSize();
+		final int nodeCount = size == 0 ? 0
+				: classNodes[size - 1] + methodCounts[size - 1] + 1;
+		descs = trim(descs, new String[nodeCount]);
+		signatures = trim(signatures, new String[nodeCount]);
+		classNodes = trim(classNodes, new int[size]);
+		methodCounts = trim(methodCounts, new int[size]);
+		final long[] newIds = new long[size];
+		System.arraycopy(ids, 0, newIds, 0, size);
+		ids = newIds;
+		final boolean[] newNoMatch = new boolean[size];
+		System.arraycopy(noMatch, 0, newNoMatch, 0, size);
+		noMatch = newNoMatch;
+		superNames = trim(superNames, new String[size]);
+		interfaces = trim(interfaces, new String[size][]);
+		sourceFileNames = trim(sourceFileNames, new String[size]);
+	}
+
+	private String getPackageName(final int c) {
+		final String name = nodes.getName(classNodes[c]);
+		final int pos = name.lastIndexOf('/');
+		return pos == -1 ? "" : name.substring(0, pos);
+	}
+
+	private static int newCapacity(final int length) {
+		return Math.max(INITIAL_CAPACITY, length + (length >> 1));
+	}
+
+	private static int[] trim(final int[] array, final int[] copy) {
+		System.arraycopy(array, 0, copy, 0, copy.length);
+		return copy;
+	}
+
+	private static <T> T[] trim(final T[] array, final T[] copy) {
+		System.arraycopy(array, 0, copy, 0, copy.length);
+		return copy;
+	}
+
+	private static int[] grow(final int[] array, final int[] copy) {
+		System.arraycopy(array, 0, copy, 0, array.length);
+		return copy;
+	}
+
+	private static <T> T[] grow(final T[] array, final T[] copy) {
+		System.arraycopy(array, 0, copy, 0, array.length);
+		return copy;
+	}
+
+	private class ClassView extends SourceNodeColumns.Node
+			implements IClassCoverage {
+
+		private final int c;
+
+		ClassView(final int c) {
+			super(nodes, classNodes[c]);
+			this.c = c;
+		}
+
+		public ElementType getElementType() {
+			return ElementType.CLASS;
+		}
+
+		public long getId() {
+			return ids[c];
+		}
+
+		public boolean isNoMatch() {
+			return noMatch[c];
+		}
+
+		public String getSignature() {
+			return signatures[index];
+		}
+
+		public String getSuperName() {
+			return superNames[c];
+		}
+
+		public String[] getInterfaceNames() {
+			return interfaces[c];
+		}
+
+		public String getPackageName() {
+			return ClassCoverageColumns.this.getPackageName(c);
+		}
+
+		public String getSourceFileName() {
+			return sourceFileNames[c];
+		}
+
+		public Collection<IMethodCoverage> getMethods() {
+			final List<IMethodCoverage> methods = new ArrayList<IMethodCoverage>(
+					methodCounts[c]);
+			for (int i = 1; i <= methodCounts[c]; i++) {
+				methods.add(new MethodView(index + i));
+			}
+			return methods;
+		}
+
+	}
+
+	private class MethodView extends SourceNodeColumns.Node
+			implements IMethodCoverage {
+
+		MethodView(final int node) {
+			super(nodes, node);
+		}
+
+		public ElementType getElementType() {
+			return ElementType.METHOD;
+		}
+
+		public String getDesc() {
+			return descs[index];
+		}
+
+		public String getSignature() {
+			return signatures[index];
+		}
+
+	}
+
+	/**
+	 * View of the classes of a source file. All values are calculated from the
+	 * class nodes on demand.
+	 */
+	private class SourceFileView implements ISourceFileCoverage {
+
+		/** indices of the classes */
+		private final int[] classes;
+
+		private final int first;
+
+		private final int last;
+
+		/**
+		 * line counter, which can not be summed up from the classes and is
+		 * therefore calculated on first access
+		 */
+		private ICounter lineCounter;
+
+		SourceFileView(final int[] classes) {
+			this.classes = classes;
+			int firstLine = UNKNOWN_LINE;
+			int lastLine = UNKNOWN_LINE;
+			for (final int c : classes) {
+				final int classFirst = nodes.getFirstLine(classNodes[c]);
+				if (classFirst == UNKNOWN_LINE) {
+					continue;
+				}
+				final int classLast = nodes.getLastLine(classNodes[c]);
+				if (firstLine == UNKNOWN_LINE) {
+					firstLine = classFirst;
+					lastLine = classLast;
+				} else {
+					firstLine = Math.min(firstLine, classFirst);
+					lastLine = Math.max(lastLine, classLast);
+				}
+			}
+			this.first = firstLine;
+			this.last = lastLine;
+		}
+
+		// === ICoverageNode implementation ===
+
+		public ElementType getElementType() {
+			return ElementType.SOURCEFILE;
+		}
+
+		public String getName() {
+			return sourceFileNames[classes[0]];
+		}
+
+		public ICounter getInstructionCounter() {
+			return getCounter(CounterEntity.INSTRUCTION);
+		}
+
+		public ICounter getBranchCounter() {
+			return getCounter(CounterEntity.BRANCH);
+		}
+
+		public ICounter getLineCounter() {
+			return getCounter(CounterEntity.LINE);
+		}
+
+		public ICounter getComplexityCounter() {
+			return getCounter(CounterEntity.COMPLEXITY);
+		}
+
+		public ICounter getMethodCounter() {
+			return getCounter(CounterEntity.METHOD);
+		}
+
+		public ICounter getClassCounter() {
+			return getCounter(CounterEntity.CLASS);
+		}
+
+		public ICounter getCounter(final CounterEntity entity) {
+			if (entity == CounterEntity.LINE) {
+				if (lineCounter == null) {
+					lineCounter = calculateLineCounter();
+				}
+				return lineCounter;
+			}
+			int missed = 0;
+			int covered = 0;
+			for (final int c : classes) {
+				missed += nodes.getMissed(classNodes[c], entity);
+				covered += nodes.getCovered(classNodes[c], entity);
+			}
+			return CounterImpl.getInstance(missed, covered);
+		}
+
+		private ICounter calculateLineCounter() {
+			if (classes.length == 1) {
+				return nodes.getCounter(classNodes[classes[0]],
+						CounterEntity.LINE);
+			}
+			int missed = 0;
+			int covered = 0;
+			if (first != UNKNOWN_LINE) {
+				final int[] values = new int[SourceNodeColumns.FIELDS];
+				for (int nr = first; nr <= last; nr++) {
+					addLine(nr, values);
+					if (values[SourceNodeColumns.INSN_COVERED] > 0) {
+						covered++;
+					} else if (values[SourceNodeColumns.INSN_MISSED] > 0) {
+						missed++;
+					}
+					Arrays.fill(values, 0);
+				}
+			}
+			return CounterImpl.getInstance(missed, covered);
+		}
+
+		public boolean containsCode() {
+			return getInstructionCounter().getTotalCount() != 0
+				|| getMethodCounter().getTotalCount() != 0;
+		}
+
+		public ICoverageNode getPlainCopy() {
+			final CoverageNodeImpl copy = new CoverageNodeImpl(
+					getElementType(), getName());
+			copy.increment(this);
+			return copy;
+		}
+
+		// === ISourceNode implementation ===
+
+		public int getFirstLine() {
+			return first;
+		}
+
+		public int getLastLine() {
+			return last;
+		}
+
+		public ILine getLine(final int nr) {
+			final int[] values = new int[SourceNodeColumns.FIELDS];
+			addLine(nr, values);
+			return LineImpl.getInstance(
+					CounterImpl.getInstance(
+							values[SourceNodeColumns.INSN_MISSED],
+							values[SourceNodeColumns.INSN_COVERED]),
+					CounterImpl.getInstance(
+							values[SourceNodeColumns.BRANCH_MISSED],
+							values[SourceNodeColumns.BRANCH_COVERED]));
+		}
+
+		private void addLine(final int nr, final int[] values) {
+			for (final int c : classes) {
+				nodes.addLine(classNodes[c], nr, values);
+			}
+		}
+
+		public long getExecutionCount(final int nr) {
+			if (first == UNKNOWN_LINE || nr < first || nr > last) {
+				return UNKNOWN_EXECUTION_COUNT;
+			}
+			boolean known = false;
+			long count = 0;
+			for (final int c : classes) {
+				if (nodes.hasExecutionCounts(classNodes[c])) {
+					known = true;
+					final long classCount = nodes
+							.getExecutionCount(classNodes[c], nr);
+					if (classCount != UNKNOWN_EXECUTION_COUNT) {
+						count += classCount;
+					}
+				}
+			}
+			return known ? count : UNKNOWN_EXECUTION_COUNT;
+		}
+
+		// === ISourceFileCoverage implementation ===
+
+		public String getPackageName() {
+			return ClassCoverageColumns.this.getPackageName(classes[0]);
+		}
+
+		@Override
+		public String toString() {
+			return getName() + " [" + getElementType() + "]";
+		}
+
+	}
+
+}
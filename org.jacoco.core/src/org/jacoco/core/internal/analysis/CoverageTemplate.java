@@ -0,0 +1,336 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jacoco.core.internal.data.CompactDataInput;
+import org.jacoco.core.internal.data.CompactDataOutput;
+import org.jacoco.core.internal.flow.ProbeImplications;
+
+/**
+ * Result of the structural analysis of a class which has been instrumented
+ * with branch granularity: For every instruction, line and branch the template
+ * contains the probes which cover it. With a template the coverage of the
+ * class can be calculated for any probe array without parsing and filtering
+ * the class file again. Templates are created with
+ * {@link ClassAnalyzer#ClassAnalyzer(CoverageTemplate, StringPool)} and can be
+ * stored in a binary format.
+ */
+public final class CoverageTemplate {
+
+	/** Magic number at the beginning of serialized templates */
+	private static final int MAGIC = 0xC0C07E3A;
+
+	private final String name;
+
+	private String signature;
+
+	private String superName;
+
+	private String[] interfaces;
+
+	private String sourceFileName;
+
+	private final List<MethodTemplate> methods;
+
+	private final List<ProbeImplications> implications;
+
+	/** instructions of other source nodes mapped to this class */
+	private final Map<String, Fragment> fragments;
+
+	/**
+	 * Creates a new empty template for the class with the given name.
+	 *
+	 * @param name
+	 *            VM name of the class
+	 */
+	public CoverageTemplate(final String name) {
+		this.name = name;
+		this.methods = new ArrayList<MethodTemplate>();
+		this.implications = new ArrayList<ProbeImplications>();
+		this.fragments = new LinkedHashMap<String, Fragment>();
+	}
+
+	/**
+	 * Returns the VM name of the class.
+	 *
+	 * @return VM name of the class
+	 */
+	public String getName() {
+		return name;
+	}
+
+	void setClassInfo(final String signature, final String superName,
+			final String[] interfaces, final String sourceFileName) {
+		this.signature = signature;
+		this.superName = superName;
+		this.interfaces = interfaces;
+		this.sourceFileName = sourceFileName;
+	}
+
+	void addMethod(final MethodTemplate method) {
+		methods.add(method);
+	}
+
+	void addImplications(final ProbeImplications implications) {
+		this.implications.add(implications);
+	}
+
+	void addFragment(final String fragmentName) {
+		fragments.put(fragmentName, new Fragment());
+	}
+
+	void addFragmentInstruction(final String fragmentName, final int line,
+			final BitSet probes) {
+		fragments.get(fragmentName).add(line, probes);
+	}
+
+	/**
+	 * Calculates the coverage of the class for the given probes. The result is
+	 * the same as analyzing the class file with {@link ClassAnalyzer}.
+	 *
+	 * @param id
+	 *            class identifier
+	 * @param noMatch
+	 *            <code>true</code>, if class id does not match with execution
+	 *            data
+	 * @param probes
+	 *            execution data for this class or <code>null</code>
+	 * @return coverage of the class
+	 */
+	public ClassCoverageImpl apply(final long id, final boolean noMatch,
+			final boolean[] probes) {
+		final ClassCoverageImpl coverage = new ClassCoverageImpl(name, id,
+				noMatch);
+		coverage.setSignature(signature);
+		coverage.setSuperName(superName);
+		coverage.setInterfaces(interfaces);
+		coverage.setSourceFileName(sourceFileName);
+
+		// Inference has no effect if either all or no probes are executed:
+		boolean[] executed = probes;
+		if (executed != null) {
+			for (final ProbeImplications i : implications) {
+				executed = i.infer(executed);
+			}
+		}
+
+		for (final MethodTemplate method : methods) {
+			final MethodCoverageImpl mc = method.apply(executed);
+			if (mc.containsCode()) {
+				// Only consider methods that actually contain code
+				coverage.addMethod(mc);
+			}
+		}
+
+		if (!fragments.isEmpty()) {
+			final List<SourceNodeImpl> nodes = new ArrayList<SourceNodeImpl>();
+			for (final Map.Entry<String, Fragment> entry : fragments
+					.entrySet()) {
+				nodes.add(entry.getValue().apply(entry.getKey(), executed));
+			}
+			coverage.setFragments(nodes);
+		}
+		return coverage;
+	}
+
+	/**
+	 * Writes this template to the given stream.
+	 *
+	 * @param output
+	 *            stream to write to
+	 * @throws IOException
+	 *             if the stream can't be written
+	 */
+	public void write(final OutputStream output) throws IOException {
+		final CompactDataOutput out = new CompactDataOutput(output);
+		out.writeInt(MAGIC);
+		out.writeUTF(name);
+		writeString(out, signature);
+		writeString(out, superName);
+		out.writeBoolean(interfaces != null);
+		if (interfaces != null) {
+			out.writeVarInt(interfaces.length);
+			for (final String i : interfaces) {
+				out.writeUTF(i);
+			}
+		}
+		writeString(out, sourceFileName);
+		out.writeVarInt(methods.size());
+		for (final MethodTemplate method : methods) {
+			method.write(out);
+		}
+		out.writeVarInt(implications.size());
+		for (final ProbeImplications i : implications) {
+			out.writeVarInt(i.getFirstProbeId());
+			final int[][] implied = i.getImplied();
+			out.writeVarInt(implied.length);
+			for (final int[] ids : implied) {
+				out.writeVarInt(ids.length);
+				for (final int id : ids) {
+					out.writeVarInt(id);
+				}
+			}
+		}
+		out.writeVarInt(fragments.size());
+		for (final Map.Entry<String, Fragment> entry : fragments.entrySet()) {
+			out.writeUTF(entry.getKey());
+			entry.getValue().write(out);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Reads a template written with {@link #write(OutputStream)}.
+	 *
+	 * @param input
+	 *            stream to read from
+	 * @param stringPool
+	 *            pool for the strings of the template
+	 * @return template read from the stream
+	 * @throws IOException
+	 *             if the stream can't be read or does not contain a template
+	 */
+	public static CoverageTemplate read(final InputStream input,
+			final StringPool stringPool) throws IOException {
+		final CompactDataInput in = new CompactDataInput(input);
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Invalid coverage template.");
+		}
+		final CoverageTemplate template = new CoverageTemplate(
+				stringPool.get(in.readUTF()));
+		final String signature = stringPool.get(readString(in));
+		final String superName = stringPool.get(readString(in));
+		String[] interfaces = null;
+		if (in.readBoolean()) {
+			interfaces = new String[in.readVarInt()];
+			for (int i = 0; i < interfaces.length; i++) {
+				interfaces[i] = in.readUTF();
+			}
+		}
+		final String sourceFileName = stringPool.get(readString(in));
+		template.setClassInfo(signature, superName,
+				stringPool.get(interfaces), sourceFileName);
+		for (int i = in.readVarInt(); i > 0; i--) {
+			template.addMethod(MethodTemplate.read(in, stringPool));
+		}
+		for (int i = in.readVarInt(); i > 0; i--) {
+			final int first = in.readVarInt();
+			final int[][] implied = new int[in.readVarInt()][];
+			for (int j = 0; j < implied.length; j++) {
+				implied[j] = new int[in.readVarInt()];
+				for (int k = 0; k < implied[j].length; k++) {
+					implied[j][k] = in.readVarInt();
+				}
+			}
+			template.addImplications(ProbeImplications.create(first, implied));
+		}
+		for (int i = in.readVarInt(); i > 0; i--) {
+			template.fragments.put(in.readUTF(), Fragment.read(in));
+		}
+		return template;
+	}
+
+	static void writeString(final CompactDataOutput out, final String s)
+			throws IOException {
+		out.writeBoolean(s != null);
+		if (s != null) {
+			out.writeUTF(s);
+		}
+	}
+
+	static String readString(final CompactDataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	/**
+	 * Writes sorted probe ids as differences to the respective previous id.
+	 */
+	static void writeProbeIds(final CompactDataOutput out, final int[] ids)
+			throws IOException {
+		out.writeVarInt(ids.length);
+		int previous = 0;
+		for (final int id : ids) {
+			out.writeVarInt(id - previous);
+			previous = id;
+		}
+	}
+
+	static int[] readProbeIds(final CompactDataInput in) throws IOException {
+		final int[] ids = new int[in.readVarInt()];
+		int previous = 0;
+		for (int i = 0; i < ids.length; i++) {
+			previous += in.readVarInt();
+			ids[i] = previous;
+		}
+		return ids;
+	}
+
+	/**
+	 * Instructions mapped to lines of another source node, see
+	 * {@link ClassCoverageImpl#getFragments()}.
+	 */
+	private static class Fragment {
+
+		private final Map<BitSet, int[]> shared = new HashMap<BitSet, int[]>();
+
+		private final List<Integer> lines = new ArrayList<Integer>();
+
+		private final List<int[]> probes = new ArrayList<int[]>();
+
+		void add(final int line, final BitSet set) {
+			lines.add(Integer.valueOf(line));
+			probes.add(MethodTemplate.toArray(set, shared));
+		}
+
+		SourceNodeImpl apply(final String name, final boolean[] executed) {
+			final SourceNodeImpl node = new SourceNodeImpl(null, name);
+			for (int i = 0; i < lines.size(); i++) {
+				node.increment(
+						MethodTemplate.isCovered(probes.get(i), executed)
+								? CounterImpl.COUNTER_0_1
+								: CounterImpl.COUNTER_1_0,
+						CounterImpl.COUNTER_0_0, lines.get(i).intValue());
+			}
+			return node;
+		}
+
+		void write(final CompactDataOutput out) throws IOException {
+			out.writeVarInt(lines.size());
+			for (int i = 0; i < lines.size(); i++) {
+				out.writeVarInt(lines.get(i).intValue() + 1);
+				writeProbeIds(out, probes.get(i));
+			}
+		}
+
+		static Fragment read(final CompactDataInput in) throws IOException {
+			final Fragment fragment = new Fragment();
+			for (int i = in.readVarInt(); i > 0; i--) {
+				fragment.lines.add(Integer.valueOf(in.readVarInt() - 1));
+				fragment.probes.add(readProbeIds(in));
+			}
+			return fragment;
+		}
+
+	}
+
+}
@@ -0,0 +1,654 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import java.util.BitSet;
+
+import org.jacoco.core.analysis.ICounter;
+import org.objectweb.asm.tree.AbstractInsnNode;
+
+/**
+ * Execution status of the bytecode instructions of a method internally used
+ * for coverage analysis. The execution status is recorded separately for each
+ * outgoing branch. Each instruction has at least one branch, for example in
+ * case of a simple sequence of instructions (by convention branch 0).
+ *
+ * Instructions are identified by their index, which is the position in the
+ * sequence they have been added with {@link #add(AbstractInsnNode, int)}. To
+ * avoid objects per instruction for large methods all properties are stored
+ * in parallel arrays indexed by this position, the covered branches in a
+ * bitmap with one word per instruction. This container is used in two steps:
+ *
+ * <h2>Step 1: Building the CFG</h2>
+ *
+ * For each bytecode instruction of a method an entry is added. In
+ * correspondence with the CFG the entries are linked with each other with the
+ * <code>addBranch()</code> methods. The executions status is either directly
+ * derived from a probe which has been inserted in the execution flow
+ * ({@link #addBranch(int, boolean, int)}) or indirectly propagated along the
+ * CFG edges ({@link #addBranch(int, int, int)}).
+ *
+ * <h2>Step 2: Querying the Coverage Status</h2>
+ *
+ * After all instructions have been added and linked each instruction knows its
+ * execution status and can be queried with:
+ *
+ * <ul>
+ * <li>{@link #getLine(int)}</li>
+ * <li>{@link #getInstructionCounter(int)}</li>
+ * <li>{@link #getBranchCounter(int)}</li>
+ * <li>{@link #getExecutionCount(int)}</li>
+ * </ul>
+ *
+ * For the purpose of filtering the status of instructions can be combined.
+ * Other than the CFG links these methods do not propagate the status to
+ * predecessors:
+ *
+ * <ul>
+ * <li>{@link #merge(int, int)}</li>
+ * <li>{@link #replaceBranches(int, int, BitSet, BitSet[])}</li>
+ * </ul>
+ *
+ * Instead of the execution status for a given probe array the instructions can
+ * also record which probes cover their branches
+ * ({@link #addProbeBranch(int, int, int)}). This allows to calculate the
+ * coverage for any probe array later without building the CFG again.
+ */
+class Instructions {
+
+	/** Index which denotes no instruction */
+	static final int NONE = -1;
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** Number of instructions */
+	private int size;
+
+	private AbstractInsnNode[] nodes;
+
+	private int[] lines;
+
+	/** Number of outgoing branches of every instruction */
+	private int[] branches;
+
+	/** Predecessor of every instruction or {@link #NONE} */
+	private int[] predecessors;
+
+	/** Branch of the predecessor leading to the respective instruction */
+	private int[] predecessorBranches;
+
+	/**
+	 * Covered branches of all instructions, one word per instruction for the
+	 * first {@link Long#SIZE} branches.
+	 */
+	private long[] coveredBranches;
+
+	/**
+	 * Covered branches beyond the first {@link Long#SIZE} branches, which only
+	 * exist for large switches, or <code>null</code> if there are none.
+	 */
+	private BitSet[] wideCoveredBranches;
+
+	/** Execution counts or <code>null</code> if all counts are 0 */
+	private long[] executionCounts;
+
+	/**
+	 * Probes which cover the respective branch of every instruction or
+	 * <code>null</code> if no probe has been recorded.
+	 */
+	private BitSet[][] branchProbes;
+
+	/**
+	 * Probes which cover any branch of every instruction or <code>null</code>
+	 * if no probe has been recorded.
+	 */
+	private BitSet[] coveringProbes;
+
+	/**
+	 * Open addressing hash table from instruction nodes to their index plus 1,
+	 * created on demand.
+	 */
+	private int[] index;
+
+	/**
+	 * Creates a new empty container.
+	 */
+	Instructions() {
+		nodes = new AbstractInsnNode[INITIAL_CAPACITY];
+		lines = new int[INITIAL_CAPACITY];
+		branches = new int[INITIAL_CAPACITY];
+		predecessors = new int[INITIAL_CAPACITY];
+		predecessorBranches = new int[INITIAL_CAPACITY];
+		coveredBranches = new long[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Adds a new instruction without branches.
+	 *
+	 * @param node
+	 *            corresponding ASM instruction node
+	 * @param line
+	 *            source line this instruction belongs to
+	 * @return index of the new instruction
+	 */
+	int add(final AbstractInsnNode node, final int line) {
+		if (size == nodes.length) {
+			grow();
+		}
+		nodes[size] = node;
+		lines[size] = line;
+		predecessors[size] = NONE;
+		index = null;
+		return size++;
+	}
+
+	private void grow() {
+		final int capacity = nodes.length * 2;
+		final AbstractInsnNode[] newNodes = new AbstractInsnNode[capacity];
+		System.arraycopy(nodes, 0, newNodes, 0, size);
+		nodes = newNodes;
+		lines = grow(lines, capacity);
+		branches = grow(branches, capacity);
+		predecessors = grow(predecessors, capacity);
+		predecessorBranches = grow(predecessorBranches, capacity);
+		final long[] newCoveredBranches = new long[capacity];
+		System.arraycopy(coveredBranches, 0, newCoveredBranches, 0, size);
+		coveredBranches = newCoveredBranches;
+		if (wideCoveredBranches != null) {
+			final BitSet[] newWide = new BitSet[capacity];
+			System.arraycopy(wideCoveredBranches, 0, newWide, 0, size);
+			wideCoveredBranches = newWide;
+		}
+		if (executionCounts != null) {
+			final long[] newCounts = new long[capacity];
+			System.arraycopy(executionCounts, 0, newCounts, 0, size);
+			executionCounts = newCounts;
+		}
+		if (coveringProbes != null) {
+			final BitSet[][] newBranchProbes = new BitSet[capacity][];
+			System.arraycopy(branchProbes, 0, newBranchProbes, 0, size);
+			branchProbes = newBranchProbes;
+			final BitSet[] newCoveringProbes = new BitSet[capacity];
+			System.arraycopy(coveringProbes, 0, newCoveringProbes, 0, size);
+			coveringProbes = newCoveringProbes;
+		}
+	}
+
+	private int[] grow(final int[] array, final int capacity) {
+		final int[] newArray = new int[capacity];
+		System.arraycopy(array, 0, newArray, 0, size);
+		return newArray;
+	}
+
+	/**
+	 * Returns the number of instructions.
+	 *
+	 * @return number of instructions
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the ASM instruction node of the given instruction.
+	 *
+	 * @param insn
+	 *            index of the instruction
+	 * @return corresponding ASM instruction node
+	 */
+	AbstractInsnNode getNode(final int insn) {
+		return nodes[insn];
+	}
+
+	/**
+	 * Returns the index of the instruction for the given ASM node.
+	 *
+	 * @param node
+	 *            ASM instruction node
+	 * @return index of the corresponding instruction or {@link #NONE} if the
+	 *         node has not been added, e.g. for labels
+	 */
+	int indexOf(final AbstractInsnNode node) {
+		if (index == null) {
+			createIndex();
+		}
+		final int mask = index.length - 1;
+		for (int h = hash(node) & mask;; h = (h + 1) & mask) {
+			final int insn = index[h] - 1;
+			if (insn == NONE || nodes[insn] == node) {
+				return insn;
+			}
+		}
+	}
+
+	private void createIndex() {
+		// Load factor of at most 0.5, there is always a free slot:
+		int capacity = INITIAL_CAPACITY;
+		while (capacity < 2 * size) {
+			capacity <<= 1;
+		}
+		index = new int[capacity];
+		final int mask = capacity - 1;
+		for (int insn = 0; insn < size; insn++) {
+			int h = hash(nodes[insn]) & mask;
+			while (index[h] != 0) {
+				h = (h + 1) & mask;
+			}
+			index[h] = insn + 1;
+		}
+	}
+
+	private static int hash(final AbstractInsnNode node) {
+		final int h = System.identityHashCode(node);
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Adds a branch to the given instruction which execution status is
+	 * indirectly derived from the execution status of the target instruction.
+	 * In case the branch is covered the status is propagated also to the
+	 * predecessors of the instruction.
+	 *
+	 * Note: This method is not idempotent and must be called exactly once for
+	 * every branch.
+	 *
+	 * @param insn
+	 *            index of the instruction
+	 * @param target
+	 *            index of the target instruction of this branch
+	 * @param branch
+	 *            branch identifier unique for the instruction
+	 */
+	void addBranch(final int insn, final int target, final int branch) {
+		branches[insn]++;
+		predecessors[target] = insn;
+		predecessorBranches[target] = branch;
+		if (isCovered(target)) {
+			propagateExecutedBranch(insn, branch);
+		}
+		if (executionCounts != null && executionCounts[target] != 0) {
+			propagateExecutionCount(insn, executionCounts[target]);
+		}
+		if (coveringProbes != null && coveringProbes[target] != null) {
+			final BitSet probes = coveringProbes[target];
+			for (int p = probes.nextSetBit(0); p >= 0; p = probes
+					.nextSetBit(p + 1)) {
+				propagateProbe(insn, branch, p);
+			}
+		}
+	}
+
+	/**
+	 * Adds a branch to the given instruction which execution status is
+	 * directly derived from a probe. In case the branch is covered the status
+	 * is propagated also to the predecessors of the instruction.
+	 *
+	 * Note: This method is not idempotent and must be called exactly once for
+	 * every branch.
+	 *
+	 * @param insn
+	 *            index of the instruction
+	 * @param executed
+	 *            whether the corresponding probe has been executed
+	 * @param branch
+	 *            branch identifier unique for the instruction
+	 */
+	void addBranch(final int insn, final boolean executed, final int branch) {
+		branches[insn]++;
+		if (executed) {
+			propagateExecutedBranch(insn, branch);
+		}
+	}
+
+	/**
+	 * Adds a branch to the given instruction which is covered by the given
+	 * probe. Other than with {@link #addBranch(int, boolean, int)} the
+	 * execution status is not calculated, but the probe is recorded for this
+	 * branch and the branches of all predecessors.
+	 *
+	 * Note: This method is not idempotent and must be called exactly once for
+	 * every branch.
+	 *
+	 * @param insn
+	 *            index of the instruction
+	 * @param probeId
+	 *            index of the probe in the probe array of the class
+	 * @param branch
+	 *            branch identifier unique for the instruction
+	 */
+	void addProbeBranch(final int insn, final int probeId, final int branch) {
+		branches[insn]++;
+		propagateProbe(insn, branch, probeId);
+	}
+
+	/**
+	 * Adds executions of a counting probe to the given instruction. The count
+	 * is propagated also to the predecessors of the instruction.
+	 *
+	 * @param insn
+	 *            index of the instruction
+	 * @param count
+	 *            number of executions of the corresponding probe
+	 */
+	void addExecutionCount(final int insn, final long count) {
+		if (count != 0) {
+			propagateExecutionCount(insn, count);
+		}
+	}
+
+	private void propagateExecutionCount(int insn, final long count) {
+		if (executionCounts == null) {
+			executionCounts = new long[nodes.length];
+		}
+		// Other than the executed status the count has to be added to all
+		// predecessors, as every predecessor is executed once more.
+		while (insn != NONE) {
+			executionCounts[insn] += count;
+			insn = predecessors[insn];
+		}
+	}
+
+	private void propagateExecutedBranch(int insn, int branch) {
+		// No recursion here, as there can be very long chains of instructions
+		while (insn != NONE) {
+			if (isCovered(insn)) {
+				setCovered(insn, branch);
+				break;
+			}
+			setCovered(insn, branch);
+			branch = predecessorBranches[insn];
+			insn = predecessors[insn];
+		}
+	}
+
+	private void propagateProbe(int insn, int branch, final int probeId) {
+		// Same as propagateExecutedBranch() for every probe separately
+		while (insn != NONE) {
+			final boolean covered = coveringProbes != null
+					&& coveringProbes[insn] != null
+					&& coveringProbes[insn].get(probeId);
+			setBranchProbe(insn, branch, probeId);
+			if (covered) {
+				break;
+			}
+			branch = predecessorBranches[insn];
+			insn = predecessors[insn];
+		}
+	}
+
+	private void setCovered(final int insn, final int branch) {
+		if (branch < Long.SIZE) {
+			coveredBranches[insn] |= 1L << branch;
+			return;
+		}
+		if (wideCoveredBranches == null) {
+			wideCoveredBranches = new BitSet[nodes.length];
+		}
+		if (wideCoveredBranches[insn] == null) {
+			wideCoveredBranches[insn] = new BitSet();
+		}
+		wideCoveredBranches[insn].set(branch);
+	}
+
+	private void setBranchProbe(final int insn, final int branch,
+			final int probeId) {
+		if (coveringProbes == null) {
+			coveringProbes = new BitSet[nodes.length];
+			branchProbes = new BitSet[nodes.length][];
+		}
+		BitSet[] probes = branchProbes[insn];
+		if (probes == null) {
+			coveringProbes[insn] = new BitSet();
+			probes = new BitSet[branch + 1];
+			branchProbes[insn] = probes;
+		} else if (probes.length <= branch) {
+			final BitSet[] newProbes = new BitSet[branch + 1];
+			System.arraycopy(probes, 0, newProbes, 0, probes.length);
+			probes = newProbes;
+			branchProbes[insn] = probes;
+		}
+		if (probes[branch] == null) {
+			probes[branch] = new BitSet();
+		}
+		probes[branch].set(probeId);
+		coveringProbes[insn].set(probeId);
+	}
+
+	private void addBranchProbes(final int insn, final int branch,
+			final BitSet probes) {
+		for (int p = probes.nextSetBit(0); p >= 0; p = probes
+				.nextSetBit(p + 1)) {
+			setBranchProbe(insn, branch, p);
+		}
+	}
+
+	/**
+	 * Merges information about covered branches and execution counts of
+	 * another instruction into the given instruction.
+	 *
+	 * @param insn
+	 *            index of the instruction to merge into
+	 * @param other
+	 *            index of the instruction to merge with
+	 */
+	void merge(final int insn, final int other) {
+		coveredBranches[insn] |= coveredBranches[other];
+		if (wideCoveredBranches != null
+				&& wideCoveredBranches[other] != null) {
+			final BitSet wide = wideCoveredBranches[other];
+			for (int b = wide.nextSetBit(0); b >= 0; b = wide
+					.nextSetBit(b + 1)) {
+				setCovered(insn, b);
+			}
+		}
+		if (executionCounts != null) {
+			executionCounts[insn] += executionCounts[other];
+		}
+		if (branchProbes != null && branchProbes[other] != null) {
+			final BitSet[] probes = branchProbes[other];
+			for (int b = 0; b < probes.length; b++) {
+				if (probes[b] != null) {
+					addBranchProbes(insn, b, probes[b]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Replaces all outgoing branches of the given instruction. The execution
+	 * count of the instruction is not modified.
+	 *
+	 * @param insn
+	 *            index of the instruction
+	 * @param count
+	 *            new number of branches
+	 * @param covered
+	 *            new branches which are covered
+	 * @param probes
+	 *            probes covering the respective new branch, elements might be
+	 *            <code>null</code>
+	 */
+	void replaceBranches(final int insn, final int count, final BitSet covered,
+			final BitSet[] probes) {
+		branches[insn] = count;
+		coveredBranches[insn] = 0;
+		if (wideCoveredBranches != null) {
+			wideCoveredBranches[insn] = null;
+		}
+		for (int b = covered.nextSetBit(0); b >= 0; b = covered
+				.nextSetBit(b + 1)) {
+			setCovered(insn, b);
+		}
+		if (branchProbes != null) {
+			branchProbes[insn] = null;
+			coveringProbes[insn] = null;
+		}
+		for (int b = 0; b < probes.length; b++) {
+			if (probes[b] != null) {
+				addBranchProbes(insn, b, probes[b]);
+			}
+		}
+	}
+
+	/**
+	 * Returns the source line the given instruction belongs to.
+	 *
+	 * @param insn
+	 *            index of the instruction
+	 * @return corresponding source line
+	 */
+	int getLine(final int insn) {
+		return lines[insn];
+	}
+
+	/**
+	 * Returns the number of outgoing branches of the given instruction.
+	 *
+	 * @param insn
+	 *            index of the instruction
+	 * @return number of branches
+	 */
+	int getBranches(final int insn) {
+		return branches[insn];
+	}
+
+	/**
+	 * Checks whether any branch of the given instruction is covered.
+	 *
+	 * @param insn
+	 *            index of the instruction
+	 * @return <code>true</code> if the instruction is covered
+	 */
+	boolean isCovered(final int insn) {
+		return coveredBranches[insn] != 0 || (wideCoveredBranches != null
+				&& wideCoveredBranches[insn] != null);
+	}
+
+	/**
+	 * Checks whether the given branch of the given instruction is covered.
+	 *
+	 * @param insn
+	 *            index of the instruction
+	 * @param branch
+	 *            branch identifier
+	 * @return <code>true</code> if the branch is covered
+	 */
+	boolean isCovered(final int insn, final int branch) {
+		if (branch < Long.SIZE) {
+			return (coveredBranches[insn] & (1L << branch)) != 0;
+		}
+		return wideCoveredBranches != null
+				&& wideCoveredBranches[insn] != null
+				&& wideCoveredBranches[insn].get(branch);
+	}
+
+	private int getCoveredBranches(final int insn) {
+		int covered = Long.bitCount(coveredBranches[insn]);
+		if (wideCoveredBranches != null
+				&& wideCoveredBranches[insn] != null) {
+			covered += wideCoveredBranches[insn].cardinality();
+		}
+		return covered;
+	}
+
+	/**
+	 * Returns how often the given instruction has been executed. The count is
+	 * only known if the probes of the class counted their executions,
+	 * otherwise it is always 0.
+	 *
+	 * @param insn
+	 *            index of the instruction
+	 * @return number of executions
+	 */
+	long getExecutionCount(final int insn) {
+		return executionCounts == null ? 0 : executionCounts[insn];
+	}
+
+	/**
+	 * Returns the recorded probes which cover the given branch of the given
+	 * instruction.
+	 *
+	 * @param insn
+	 *            index of the instruction
+	 * @param branch
+	 *            branch identifier
+	 * @return probes covering this branch or <code>null</code> if there are
+	 *         none
+	 */
+	BitSet getBranchProbes(final int insn, final int branch) {
+		if (branchProbes == null || branchProbes[insn] == null
+				|| branchProbes[insn].length <= branch) {
+			return null;
+		}
+		return branchProbes[insn][branch];
+	}
+
+	/**
+	 * Returns the number of branches of the given instruction for which probes
+	 * have been recorded, which might be less or more than
+	 * {@link #getBranches(int)}.
+	 *
+	 * @param insn
+	 *            index of the instruction
+	 * @return number of branch slots with recorded probes
+	 */
+	int getBranchProbesLength(final int insn) {
+		if (branchProbes == null || branchProbes[insn] == null) {
+			return 0;
+		}
+		return branchProbes[insn].length;
+	}
+
+	/**
+	 * Returns the recorded probes which cover any branch of the given
+	 * instruction.
+	 *
+	 * @param insn
+	 *            index of the instruction
+	 * @return probes covering this instruction or <code>null</code> if there
+	 *         are none
+	 */
+	BitSet getCoveringProbes(final int insn) {
+		return coveringProbes == null ? null : coveringProbes[insn];
+	}
+
+	/**
+	 * Returns the instruction coverage counter of the given instruction. It is
+	 * always 1 instruction which is covered or not.
+	 *
+	 * @param insn
+	 *            index of the instruction
+	 * @return the instruction coverage counter
+	 */
+	ICounter getInstructionCounter(final int insn) {
+		return isCovered(insn) ? CounterImpl.COUNTER_0_1
+				: CounterImpl.COUNTER_1_0;
+	}
+
+	/**
+	 * Returns the branch coverage counter of the given instruction. Only
+	 * instructions with at least 2 outgoing edges report branches.
+	 *
+	 * @param insn
+	 *            index of the instruction
+	 * @return the branch coverage counter
+	 */
+	ICounter getBranchCounter(final int insn) {
+		if (branches[insn] < 2) {
+			return CounterImpl.COUNTER_0_0;
+		}
+		final int covered = getCoveredBranches(insn);
+		return CounterImpl.getInstance(branches[insn] - covered, covered);
+	}
+
+}
@@ -19,11 +19,12 @@ import java.util.Map;
 
 import org.jacoco.core.analysis.ISourceNode;
 import org.jacoco.core.internal.flow.LabelInfo;
+import org.jacoco.core.internal.flow.ProbeImplications;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.tree.AbstractInsnNode;
 
 /**
- * Stateful builder for the {@link Instruction}s of a method. All instructions
+ * Stateful builder for the {@link Instructions} of a method. All instructions
  * of a method must be added in their original sequence along with additional
  * information like line numbers. Afterwards the instructions can be obtained
  * with the <code>getInstructions()</code> method.
@@ -31,19 +32,31 @@ import org.objectweb.asm.tree.AbstractInsnNode;
 class InstructionsBuilder {
 
 	/** Probe array of the class the analyzed method belongs to. */
-	private final boolean[] probes;
+	private boolean[] probes;
+
+	/**
+	 * Execution counts of the class the analyzed method belongs to or
+	 * <code>null</code>.
+	 */
+	private final long[] counts;
+
+	/**
+	 * Whether the probes covering the instructions are recorded instead of
+	 * calculating the execution status.
+	 */
+	private final boolean recordProbes;
 
 	/** The line which belong to subsequently added instructions. */
 	private int currentLine;
 
-	/** The last instruction which has been added. */
-	private Instruction currentInsn;
-
 	/**
-	 * All instructions of a method mapped from the ASM node to the
-	 * corresponding {@link Instruction} instance.
+	 * Index of the last instruction which has been added or
+	 * {@link Instructions#NONE}.
 	 */
-	private final Map<AbstractInsnNode, Instruction> instructions;
+	private int currentInsn;
+
+	/** All instructions of a method in their original sequence. */
+	private final Instructions instructions;
 
 	/**
 	 * The labels which mark the subsequent instructions.
@@ -54,10 +67,31 @@ class InstructionsBuilder {
 
 	/**
 	 * List of all jumps within the control flow. We need to store jumps
-	 * temporarily as the target {@link Instruction} may not been known yet.
+	 * temporarily as the target instruction may not been known yet.
 	 */
 	private final List<Jump> jumps;
 
+	/**
+	 * Instructions with coarse grained probes mapped to their execution
+	 * status.
+	 */
+	private final Map<AbstractInsnNode, Boolean> probePoints;
+
+	/** Whether a probe point has been added for the next instruction. */
+	private boolean probePoint;
+
+	/** Execution status of the probe point for the next instruction. */
+	private boolean probePointExecuted;
+
+	/**
+	 * Instructions with coarse grained probes mapped to their execution
+	 * count, only if execution counts are available.
+	 */
+	private final Map<AbstractInsnNode, Long> probePointCounts;
+
+	/** Execution count of the probe point for the next instruction. */
+	private long probePointCount;
+
 	/**
 	 * Creates a new builder instance which can be used to analyze a single
 	 * method.
@@ -67,12 +101,48 @@ class InstructionsBuilder {
 	 *            coverage status of every instruction.
 	 */
 	InstructionsBuilder(final boolean[] probes) {
+		this(probes, null);
+	}
+
+	/**
+	 * Creates a new builder instance which can be used to analyze a single
+	 * method of a class which has been instrumented to count executions.
+	 *
+	 * @param probes
+	 *            probe array of the corresponding class used to determine the
+	 *            coverage status of every instruction.
+	 * @param counts
+	 *            execution counts of the corresponding class or
+	 *            <code>null</code>
+	 */
+	InstructionsBuilder(final boolean[] probes, final long[] counts) {
+		this(probes, counts, false);
+	}
+
+	/**
+	 * Creates a new builder instance which records for every instruction the
+	 * probes which cover it, see
+	 * {@link Instructions#addProbeBranch(int, int, int)}.
+	 * Execution counts are not supported in this mode.
+	 *
+	 * @return new builder which records probes
+	 */
+	static InstructionsBuilder recordingProbes() {
+		return new InstructionsBuilder(null, null, true);
+	}
+
+	private InstructionsBuilder(final boolean[] probes, final long[] counts,
+			final boolean recordProbes) {
 		this.probes = probes;
+		this.counts = counts;
+		this.recordProbes = recordProbes;
 		this.currentLine = ISourceNode.UNKNOWN_LINE;
-		this.currentInsn = null;
-		this.instructions = new HashMap<AbstractInsnNode, Instruction>();
+		this.currentInsn = Instructions.NONE;
+		this.instructions = new Instructions();
 		this.currentLabel = new ArrayList<Label>(2);
 		this.jumps = new ArrayList<Jump>();
+		this.probePoints = new HashMap<AbstractInsnNode, Boolean>();
+		this.probePointCounts = new HashMap<AbstractInsnNode, Long>();
 	}
 
 	/**
@@ -101,7 +171,7 @@ class InstructionsBuilder {
 	 * previous instruction unless specified otherwise.
 	 */
 	void addInstruction(final AbstractInsnNode node) {
-		final Instruction insn = new Instruction(currentLine);
+		final int insn = instructions.add(node, currentLine);
 		final int labelCount = currentLabel.size();
 		if (labelCount > 0) {
 			for (int i = labelCount; --i >= 0;) {
@@ -109,11 +179,19 @@ class InstructionsBuilder {
 			}
 			currentLabel.clear();
 		}
-		if (currentInsn != null) {
-			currentInsn.addBranch(insn, 0);
+		if (currentInsn != Instructions.NONE) {
+			instructions.addBranch(currentInsn, insn, 0);
 		}
 		currentInsn = insn;
-		instructions.put(node, insn);
+		if (probePoint) {
+			probePoints.put(node, Boolean.valueOf(probePointExecuted));
+			if (counts != null) {
+				probePointCounts.put(node, Long.valueOf(probePointCount));
+			}
+			probePoint = false;
+			probePointExecuted = false;
+			probePointCount = 0;
+		}
 	}
 
 	/**
@@ -122,7 +200,7 @@ class InstructionsBuilder {
 	 * when a probe was inserted before.
 	 */
 	void noSuccessor() {
-		currentInsn = null;
+		currentInsn = Instructions.NONE;
 	}
 
 	/**
@@ -137,6 +215,19 @@ class InstructionsBuilder {
 		jumps.add(new Jump(currentInsn, target, branch));
 	}
 
+	/**
+	 * Adds the state of all probes of this method which are implied by
+	 * executed probes. Must be called before any probe is added.
+	 *
+	 * @param implications
+	 *            implications between the probes of this method
+	 */
+	void inferProbes(final ProbeImplications implications) {
+		if (probes != null) {
+			probes = implications.infer(probes);
+		}
+	}
+
 	/**
 	 * Adds a new probe for the last instruction.
 	 *
@@ -146,21 +237,76 @@ class InstructionsBuilder {
 	 *            unique branch number for the last instruction
 	 */
 	void addProbe(final int probeId, final int branch) {
+		if (recordProbes) {
+			instructions.addProbeBranch(currentInsn, probeId, branch);
+			return;
+		}
 		final boolean executed = probes != null && probes[probeId];
-		currentInsn.addBranch(executed, branch);
+		instructions.addBranch(currentInsn, executed, branch);
+		if (counts != null) {
+			instructions.addExecutionCount(currentInsn, counts[probeId]);
+		}
+	}
+
+	/**
+	 * Adds a coarse grained probe for the next instruction. Other than probes
+	 * added with {@link #addProbe(int, int)} the execution status of such a
+	 * probe point is not propagated through the control flow.
+	 *
+	 * @param probeId
+	 *            index in the probe array
+	 */
+	void addProbePoint(final int probeId) {
+		probePoint = true;
+		if (probes != null && probes[probeId]) {
+			probePointExecuted = true;
+		}
+		if (counts != null) {
+			probePointCount += counts[probeId];
+		}
+	}
+
+	/**
+	 * Returns the instructions with coarse grained probes added with
+	 * {@link #addProbePoint(int)} and their execution status.
+	 *
+	 * @return map of ASM instruction nodes to execution status
+	 */
+	Map<AbstractInsnNode, Boolean> getProbePoints() {
+		return probePoints;
+	}
+
+	/**
+	 * Returns the instructions with coarse grained probes added with
+	 * {@link #addProbePoint(int)} and their execution count.
+	 *
+	 * @return map of ASM instruction nodes to execution count or
+	 *         <code>null</code> if execution counts are not available
+	 */
+	Map<AbstractInsnNode, Long> getProbePointCounts() {
+		return counts == null ? null : probePointCounts;
+	}
+
+	/**
+	 * Returns whether execution counts are available for the instructions of
+	 * this method.
+	 *
+	 * @return <code>true</code> if execution counts are available
+	 */
+	boolean hasExecutionCounts() {
+		return counts != null;
 	}
 
 	/**
 	 * Returns the status for all instructions of this method. This method must
 	 * be called exactly once after the instructions have been added.
 	 *
-	 * @return map of ASM instruction nodes to corresponding {@link Instruction}
-	 *         instances
+	 * @return all instructions of this method
 	 */
-	Map<AbstractInsnNode, Instruction> getInstructions() {
+	Instructions getInstructions() {
 		// Wire jumps:
 		for (final Jump j : jumps) {
-			j.wire();
+			j.wire(instructions);
 		}
 
 		return instructions;
@@ -168,18 +314,19 @@ class InstructionsBuilder {
 
 	private static class Jump {
 
-		private final Instruction source;
+		private final int source;
 		private final Label target;
 		private final int branch;
 
-		Jump(final Instruction source, final Label target, final int branch) {
+		Jump(final int source, final Label target, final int branch) {
 			this.source = source;
 			this.target = target;
 			this.branch = branch;
 		}
 
-		void wire() {
-			source.addBranch(LabelInfo.getInstruction(target), branch);
+		void wire(final Instructions instructions) {
+			instructions.addBranch(source, LabelInfo.getInstruction(target),
+					branch);
 		}
 
 	}
@@ -12,18 +12,29 @@
  *******************************************************************************/
 package org.jacoco.core.internal.analysis;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.jacoco.core.analysis.ISourceNode;
 import org.jacoco.core.internal.flow.IFrame;
 import org.jacoco.core.internal.flow.LabelInfo;
 import org.jacoco.core.internal.flow.MethodProbesVisitor;
+import org.jacoco.core.internal.flow.ProbeImplications;
 import org.objectweb.asm.Handle;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LineNumberNode;
+import org.objectweb.asm.tree.LookupSwitchInsnNode;
 import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TableSwitchInsnNode;
 import org.objectweb.asm.tree.TryCatchBlockNode;
 
 /**
- * A {@link MethodProbesVisitor} that builds the {@link Instruction}s of a
+ * A {@link MethodProbesVisitor} that builds the {@link Instructions} of a
  * method to calculate the detailed execution status.
  */
 public class MethodAnalyzer extends MethodProbesVisitor {
@@ -40,6 +51,87 @@ public class MethodAnalyzer extends MethodProbesVisitor {
 		this.builder = builder;
 	}
 
+	/**
+	 * Creates the instructions of a method which has not been executed in a
+	 * single pass over the instructions. As nothing is covered neither probes
+	 * nor the control flow between the instructions are required: Every
+	 * instruction gets the same number of branches as if it had been analyzed
+	 * with probes by a {@link MethodAnalyzer}, i.e. one for the sequence to the
+	 * next instruction, one for returning from the method and one for every
+	 * distinct jump target.
+	 *
+	 * @param methodNode
+	 *            method to create the instructions for
+	 * @return instructions of the method without any coverage
+	 */
+	static Instructions createMissedInstructions(final MethodNode methodNode) {
+		final Instructions instructions = new Instructions();
+		int line = ISourceNode.UNKNOWN_LINE;
+		int previous = Instructions.NONE;
+		boolean successor = false;
+		for (final AbstractInsnNode node : methodNode.instructions) {
+			switch (node.getType()) {
+			case AbstractInsnNode.LABEL:
+				// Same as the successor labels of the LabelFlowAnalyzer
+				if (!successor) {
+					previous = Instructions.NONE;
+				}
+				continue;
+			case AbstractInsnNode.LINE:
+				line = ((LineNumberNode) node).line;
+				continue;
+			case AbstractInsnNode.FRAME:
+				continue;
+			default:
+				break;
+			}
+			final int insn = instructions.add(node, line);
+			if (previous != Instructions.NONE) {
+				instructions.addBranch(previous, false, 0);
+			}
+			successor = false;
+			switch (node.getOpcode()) {
+			case Opcodes.IRETURN:
+			case Opcodes.LRETURN:
+			case Opcodes.FRETURN:
+			case Opcodes.DRETURN:
+			case Opcodes.ARETURN:
+			case Opcodes.RETURN:
+			case Opcodes.ATHROW:
+			case Opcodes.GOTO:
+				instructions.addBranch(insn, false, 0);
+				break;
+			case Opcodes.TABLESWITCH:
+				final TableSwitchInsnNode table = (TableSwitchInsnNode) node;
+				addSwitchBranches(instructions, insn, table.dflt, table.labels);
+				break;
+			case Opcodes.LOOKUPSWITCH:
+				final LookupSwitchInsnNode lookup = (LookupSwitchInsnNode) node;
+				addSwitchBranches(instructions, insn, lookup.dflt,
+						lookup.labels);
+				break;
+			default:
+				if (node.getType() == AbstractInsnNode.JUMP_INSN) {
+					instructions.addBranch(insn, false, 1);
+				}
+				successor = true;
+				break;
+			}
+			previous = insn;
+		}
+		return instructions;
+	}
+
+	private static void addSwitchBranches(final Instructions instructions,
+			final int insn, final LabelNode dflt, final List<LabelNode> labels) {
+		final Set<LabelNode> targets = new HashSet<LabelNode>();
+		targets.add(dflt);
+		targets.addAll(labels);
+		for (int branch = 0; branch < targets.size(); branch++) {
+			instructions.addBranch(insn, false, branch);
+		}
+	}
+
 	@Override
 	public void accept(final MethodNode methodNode,
 			final MethodVisitor methodVisitor) {
@@ -54,6 +146,12 @@ public class MethodAnalyzer extends MethodProbesVisitor {
 		methodVisitor.visitEnd();
 	}
 
+	@Override
+	public void visitProbeImplications(
+			final ProbeImplications implications) {
+		builder.inferProbes(implications);
+	}
+
 	@Override
 	public void visitLabel(final Label label) {
 		builder.addLabel(label);
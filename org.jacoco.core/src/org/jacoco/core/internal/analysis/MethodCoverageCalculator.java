@@ -12,13 +12,16 @@
  *******************************************************************************/
 package org.jacoco.core.internal.analysis;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
 
 import org.jacoco.core.analysis.ISourceNode;
+import org.jacoco.core.instr.Granularity;
 import org.jacoco.core.internal.analysis.filter.IFilterOutput;
 import org.jacoco.core.internal.analysis.filter.Replacements;
 import org.objectweb.asm.tree.AbstractInsnNode;
@@ -26,13 +29,15 @@ import org.objectweb.asm.tree.AbstractInsnNode;
 /**
  * Calculates the filtered coverage of a single method. An instance of this
  * class can be first used as {@link IFilterOutput} before the coverage result
- * is calculated.
+ * is calculated. The filtering commands are translated to indices of the
+ * {@link Instructions} of the method.
  */
 class MethodCoverageCalculator implements IFilterOutput {
 
-	private final Map<AbstractInsnNode, Instruction> instructions;
+	private final Instructions instructions;
 
-	private final Set<AbstractInsnNode> ignored;
+	/** indices of the ignored instructions */
+	private final BitSet ignored;
 
 	/**
 	 * Instructions that should be merged form disjoint sets. Coverage
@@ -43,18 +48,81 @@ class MethodCoverageCalculator implements IFilterOutput {
 	 * one references another element from the same set, element without
 	 * reference - is a representative of this set.
 	 *
-	 * This map stores reference (value) for elements of sets (key).
+	 * This array stores the reference for every instruction or
+	 * {@link Instructions#NONE}, it is created with the first merge.
 	 */
-	private final Map<AbstractInsnNode, AbstractInsnNode> merged;
+	private int[] merged;
 
-	private final Map<AbstractInsnNode, Replacements> replacements;
+	/**
+	 * Replaced branches for every instruction, created with the first
+	 * replacement.
+	 */
+	private Replacements[] replacements;
+
+	/**
+	 * Instructions with coarse grained probes mapped to their execution status
+	 * or <code>null</code> if the coverage of all instructions is known.
+	 */
+	private final Map<AbstractInsnNode, Boolean> probePoints;
+
+	/** granularity of the probes */
+	private final Granularity granularity;
+
+	/** Whether execution counts should be calculated for every line. */
+	private boolean executionCounts;
+
+	/**
+	 * Instructions with coarse grained probes mapped to their execution count
+	 * or <code>null</code>.
+	 */
+	private Map<AbstractInsnNode, Long> probePointCounts;
+
+	/** first line of the instructions which are not ignored */
+	private int firstLine;
+
+	/** last line of the instructions which are not ignored */
+	private int lastLine;
+
+	MethodCoverageCalculator(final Instructions instructions) {
+		this(instructions, null, Granularity.BRANCH);
+	}
 
-	MethodCoverageCalculator(
-			final Map<AbstractInsnNode, Instruction> instructions) {
+	/**
+	 * Creates a calculator for a method with coarse grained probes. Only what
+	 * the probes record is counted: The method counter and with
+	 * {@link Granularity#LINE} also the line counter. Instructions, branches
+	 * and complexity are unknown and therefore not counted.
+	 *
+	 * @param instructions
+	 *            all instructions of the method
+	 * @param probePoints
+	 *            instructions with coarse grained probes mapped to their
+	 *            execution status or <code>null</code>
+	 * @param granularity
+	 *            granularity of the probes
+	 */
+	MethodCoverageCalculator(final Instructions instructions,
+			final Map<AbstractInsnNode, Boolean> probePoints,
+			final Granularity granularity) {
 		this.instructions = instructions;
-		this.ignored = new HashSet<AbstractInsnNode>();
-		this.merged = new HashMap<AbstractInsnNode, AbstractInsnNode>();
-		this.replacements = new HashMap<AbstractInsnNode, Replacements>();
+		this.probePoints = probePoints;
+		this.granularity = granularity;
+		this.ignored = new BitSet();
+	}
+
+	/**
+	 * Enables the calculation of execution counts for every line. The count of
+	 * a line is the maximum count of its instructions.
+	 *
+	 * @param probePointCounts
+	 *            instructions with coarse grained probes mapped to their
+	 *            execution count or <code>null</code> if the method has fine
+	 *            grained probes
+	 */
+	void setExecutionCounts(
+			final Map<AbstractInsnNode, Long> probePointCounts) {
+		this.executionCounts = true;
+		this.probePointCounts = probePointCounts;
 	}
 
 	/**
@@ -69,82 +137,188 @@ class MethodCoverageCalculator implements IFilterOutput {
 		applyReplacements();
 		ensureCapacity(coverage);
 
-		for (final Entry<AbstractInsnNode, Instruction> entry : instructions
+		if (probePoints == null) {
+			final int size = instructions.size();
+			for (int i = ignored.nextClearBit(0); i < size; i = ignored
+					.nextClearBit(i + 1)) {
+				coverage.increment(instructions.getInstructionCounter(i),
+						instructions.getBranchCounter(i),
+						instructions.getLine(i));
+				if (executionCounts) {
+					coverage.updateExecutionCount(instructions.getLine(i),
+							instructions.getExecutionCount(i));
+				}
+			}
+			coverage.incrementMethodCounter();
+		} else {
+			incrementProbePoints(coverage);
+		}
+	}
+
+	/**
+	 * Applies all specified filtering commands and creates a template which
+	 * allows to calculate the resulting coverage for any probe array. This is
+	 * only supported for instructions which recorded their probes, see
+	 * {@link Instructions#addProbeBranch(int, int, int)}.
+	 *
+	 * @param name
+	 *            name of the method
+	 * @param desc
+	 *            method descriptor
+	 * @param signature
+	 *            generic signature or <code>null</code>
+	 * @return template for the coverage of the method
+	 */
+	MethodTemplate createTemplate(final String name, final String desc,
+			final String signature) {
+		applyMerges();
+		applyReplacements();
+		calculateLineRange();
+		return new MethodTemplate(name, desc, signature, firstLine, lastLine,
+				instructions, ignored);
+	}
+
+	private void incrementProbePoints(final MethodCoverageImpl coverage) {
+		boolean counted = false;
+		boolean executed = false;
+		for (final Entry<AbstractInsnNode, Boolean> entry : probePoints
 				.entrySet()) {
-			if (!ignored.contains(entry.getKey())) {
-				final Instruction instruction = entry.getValue();
-				coverage.increment(instruction.getInstructionCounter(),
-						instruction.getBranchCounter(), instruction.getLine());
+			final int insn = findCounted(entry.getKey());
+			if (insn != Instructions.NONE) {
+				counted = true;
+				executed |= entry.getValue().booleanValue();
+				if (granularity == Granularity.LINE) {
+					coverage.incrementLine(entry.getValue().booleanValue()
+							? CounterImpl.COUNTER_0_1
+							: CounterImpl.COUNTER_1_0,
+							instructions.getLine(insn));
+				}
+			}
+		}
+		if (!counted) {
+			return;
+		}
+		coverage.incrementMethodCounter(executed);
+		if (granularity == Granularity.LINE && executionCounts
+				&& probePointCounts != null) {
+			for (final Entry<AbstractInsnNode, Long> entry : probePointCounts
+					.entrySet()) {
+				final int insn = findCounted(entry.getKey());
+				if (insn != Instructions.NONE) {
+					coverage.updateExecutionCount(instructions.getLine(insn),
+							entry.getValue().longValue());
+				}
 			}
 		}
+	}
 
-		coverage.incrementMethodCounter();
+	/**
+	 * If the instruction of a probe point is filtered the probe point moves to
+	 * the next instruction which is not filtered, unless this instruction has
+	 * its own probe point.
+	 */
+	private int findCounted(final AbstractInsnNode node) {
+		int insn = instructions.indexOf(node);
+		while (ignored.get(insn)) {
+			insn++;
+			if (insn == instructions.size()
+					|| probePoints.containsKey(instructions.getNode(insn))) {
+				return Instructions.NONE;
+			}
+		}
+		return insn;
 	}
 
 	private void applyMerges() {
+		if (merged == null) {
+			return;
+		}
 		// Merge to the representative:
-		for (final Entry<AbstractInsnNode, AbstractInsnNode> entry : merged
-				.entrySet()) {
-			final AbstractInsnNode node = entry.getKey();
-			final Instruction instruction = instructions.get(node);
-			final AbstractInsnNode representativeNode = findRepresentative(
-					node);
-			ignored.add(node);
-			instructions.put(representativeNode,
-					instructions.get(representativeNode).merge(instruction));
-			entry.setValue(representativeNode);
-		}
-
-		// Get merged value back from representative
-		for (final Entry<AbstractInsnNode, AbstractInsnNode> entry : merged
-				.entrySet()) {
-			instructions.put(entry.getKey(),
-					instructions.get(entry.getValue()));
+		for (int i = 0; i < merged.length; i++) {
+			if (merged[i] != Instructions.NONE) {
+				ignored.set(i);
+				instructions.merge(findRepresentative(i), i);
+			}
 		}
 	}
 
 	private void applyReplacements() {
-		final Instruction.Mapper mapper = new Instruction.Mapper() {
-			public Instruction apply(final AbstractInsnNode node) {
-				return instructions.get(node);
+		if (replacements == null) {
+			return;
+		}
+		for (int i = 0; i < replacements.length; i++) {
+			if (replacements[i] != null) {
+				replaceBranches(i, replacements[i]);
 			}
-		};
-		for (final Entry<AbstractInsnNode, Replacements> entry : replacements
-				.entrySet()) {
-			final AbstractInsnNode node = entry.getKey();
-			instructions.put(node, instructions.get(node)
-					.replaceBranches(entry.getValue(), mapper));
 		}
 	}
 
-	private void ensureCapacity(final MethodCoverageImpl coverage) {
-		// Determine line range:
-		int firstLine = ISourceNode.UNKNOWN_LINE;
-		int lastLine = ISourceNode.UNKNOWN_LINE;
-		for (final Entry<AbstractInsnNode, Instruction> entry : instructions
-				.entrySet()) {
-			if (!ignored.contains(entry.getKey())) {
-				final int line = entry.getValue().getLine();
-				if (line != ISourceNode.UNKNOWN_LINE) {
-					if (firstLine > line
-							|| lastLine == ISourceNode.UNKNOWN_LINE) {
-						firstLine = line;
-					}
-					if (lastLine < line) {
-						lastLine = line;
+	/**
+	 * The coverage statuses of the new branches are derived from the statuses
+	 * of the given branches of the given instructions, where merged
+	 * instructions are represented by the result of the merge.
+	 */
+	private void replaceBranches(final int insn,
+			final Replacements replacements) {
+		final BitSet covered = new BitSet();
+		final List<BitSet> probes = new ArrayList<BitSet>();
+		int branchIndex = 0;
+		for (final Collection<Replacements.InstructionBranch> newBranch : replacements
+				.values()) {
+			BitSet branchProbes = null;
+			for (final Replacements.InstructionBranch from : newBranch) {
+				final int source = findRepresentative(
+						instructions.indexOf(from.instruction));
+				if (instructions.isCovered(source, from.branch)) {
+					covered.set(branchIndex);
+				}
+				final BitSet sourceProbes = instructions
+						.getBranchProbes(source, from.branch);
+				if (sourceProbes != null) {
+					if (branchProbes == null) {
+						branchProbes = new BitSet();
 					}
+					branchProbes.or(sourceProbes);
 				}
 			}
+			probes.add(branchProbes);
+			branchIndex++;
 		}
+		instructions.replaceBranches(insn, branchIndex, covered,
+				probes.toArray(new BitSet[branchIndex]));
+	}
+
+	private void ensureCapacity(final MethodCoverageImpl coverage) {
+		calculateLineRange();
 
 		// Performance optimization to avoid incremental increase of line array:
 		coverage.ensureCapacity(firstLine, lastLine);
 	}
 
-	private AbstractInsnNode findRepresentative(AbstractInsnNode i) {
-		AbstractInsnNode r;
-		while ((r = merged.get(i)) != null) {
-			i = r;
+	private void calculateLineRange() {
+		firstLine = ISourceNode.UNKNOWN_LINE;
+		lastLine = ISourceNode.UNKNOWN_LINE;
+		final int size = instructions.size();
+		for (int i = ignored.nextClearBit(0); i < size; i = ignored
+				.nextClearBit(i + 1)) {
+			final int line = instructions.getLine(i);
+			if (line != ISourceNode.UNKNOWN_LINE) {
+				if (firstLine > line || lastLine == ISourceNode.UNKNOWN_LINE) {
+					firstLine = line;
+				}
+				if (lastLine < line) {
+					lastLine = line;
+				}
+			}
+		}
+	}
+
+	private int findRepresentative(int i) {
+		if (merged != null) {
+			int r;
+			while ((r = merged[i]) != Instructions.NONE) {
+				i = r;
+			}
 		}
 		return i;
 	}
@@ -155,22 +329,36 @@ class MethodCoverageCalculator implements IFilterOutput {
 			final AbstractInsnNode toInclusive) {
 		for (AbstractInsnNode i = fromInclusive; i != toInclusive; i = i
 				.getNext()) {
-			ignored.add(i);
+			ignore(i);
 		}
-		ignored.add(toInclusive);
+		ignore(toInclusive);
 	}
 
-	public void merge(AbstractInsnNode i1, AbstractInsnNode i2) {
-		i1 = findRepresentative(i1);
-		i2 = findRepresentative(i2);
-		if (i1 != i2) {
-			merged.put(i2, i1);
+	private void ignore(final AbstractInsnNode node) {
+		final int insn = instructions.indexOf(node);
+		if (insn != Instructions.NONE) {
+			ignored.set(insn);
+		}
+	}
+
+	public void merge(final AbstractInsnNode i1, final AbstractInsnNode i2) {
+		if (merged == null) {
+			merged = new int[instructions.size()];
+			Arrays.fill(merged, Instructions.NONE);
+		}
+		final int r1 = findRepresentative(instructions.indexOf(i1));
+		final int r2 = findRepresentative(instructions.indexOf(i2));
+		if (r1 != r2) {
+			merged[r2] = r1;
 		}
 	}
 
 	public void replaceBranches(final AbstractInsnNode source,
 			final Replacements replacements) {
-		this.replacements.put(source, replacements);
+		if (this.replacements == null) {
+			this.replacements = new Replacements[instructions.size()];
+		}
+		this.replacements[instructions.indexOf(source)] = replacements;
 	}
 
 }
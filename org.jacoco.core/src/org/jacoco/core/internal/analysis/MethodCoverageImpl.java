@@ -56,9 +56,13 @@ public class MethodCoverageImpl extends SourceNodeImpl
 
 	/**
 	 * This method must be called exactly once after all instructions and
-	 * branches have been incremented for this method coverage node.
+	 * branches have been incremented for this method coverage node. Methods
+	 * without instructions are not counted.
 	 */
 	public void incrementMethodCounter() {
+		if (this.instructionCounter.getTotalCount() == 0) {
+			return;
+		}
 		final ICounter base = this.instructionCounter.getCoveredCount() == 0
 				? CounterImpl.COUNTER_1_0
 				: CounterImpl.COUNTER_0_1;
@@ -66,6 +70,19 @@ public class MethodCoverageImpl extends SourceNodeImpl
 		this.complexityCounter = this.complexityCounter.increment(base);
 	}
 
+	/**
+	 * Alternative to {@link #incrementMethodCounter()} for methods where only
+	 * the execution of the method itself is known. Instructions and complexity
+	 * of such methods are not counted.
+	 *
+	 * @param executed
+	 *            whether the method has been executed
+	 */
+	public void incrementMethodCounter(final boolean executed) {
+		this.methodCounter = this.methodCounter.increment(
+				executed ? CounterImpl.COUNTER_0_1 : CounterImpl.COUNTER_1_0);
+	}
+
 	@Override
 	public boolean applyFragment(final SourceNodeImpl fragment) {
 		final boolean applied = super.applyFragment(fragment);
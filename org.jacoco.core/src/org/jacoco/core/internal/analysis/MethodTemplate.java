@@ -0,0 +1,284 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.internal.data.CompactDataInput;
+import org.jacoco.core.internal.data.CompactDataOutput;
+
+/**
+ * Filtered instructions of a method with the probes covering their branches.
+ * This allows to calculate the coverage of the method for any probe array
+ * without analyzing the method again.
+ *
+ * The probes of each branch are stored as sorted arrays of probe ids. Equal
+ * arrays are shared within a method, as typically long sequences of
+ * instructions are covered by the same probes.
+ */
+class MethodTemplate {
+
+	private static final int[] NO_PROBES = new int[0];
+
+	private final String name;
+
+	private final String desc;
+
+	private final String signature;
+
+	private final int firstLine;
+
+	private final int lastLine;
+
+	/** source line for every instruction */
+	private final int[] lines;
+
+	/** number of branches for every instruction */
+	private final int[] branches;
+
+	/**
+	 * for every instruction the index of its first entry in {@link #probes},
+	 * with an additional entry for the end
+	 */
+	private final int[] offsets;
+
+	/** probes covering the branches of all instructions */
+	private final int[][] probes;
+
+	/**
+	 * Creates a template from the given instructions which recorded their
+	 * probes.
+	 *
+	 * @param name
+	 *            name of the method
+	 * @param desc
+	 *            method descriptor
+	 * @param signature
+	 *            generic signature or <code>null</code>
+	 * @param firstLine
+	 *            first line of the instructions
+	 * @param lastLine
+	 *            last line of the instructions
+	 * @param instructions
+	 *            instructions of the method
+	 * @param ignored
+	 *            indices of the instructions which are ignored
+	 */
+	MethodTemplate(final String name, final String desc,
+			final String signature, final int firstLine, final int lastLine,
+			final Instructions instructions, final BitSet ignored) {
+		this.name = name;
+		this.desc = desc;
+		this.signature = signature;
+		this.firstLine = firstLine;
+		this.lastLine = lastLine;
+		final int count = instructions.size();
+		final int size = count - ignored.get(0, count).cardinality();
+		lines = new int[size];
+		branches = new int[size];
+		offsets = new int[size + 1];
+		final List<int[]> list = new ArrayList<int[]>();
+		final Map<BitSet, int[]> shared = new HashMap<BitSet, int[]>();
+		int i = 0;
+		for (int insn = ignored.nextClearBit(0); insn < count; insn = ignored
+				.nextClearBit(insn + 1)) {
+			lines[i] = instructions.getLine(insn);
+			branches[i] = instructions.getBranches(insn);
+			offsets[i] = list.size();
+			final int length = instructions.getBranchProbesLength(insn);
+			for (int b = 0; b < length; b++) {
+				list.add(toArray(instructions.getBranchProbes(insn, b),
+						shared));
+			}
+			i++;
+		}
+		offsets[size] = list.size();
+		probes = list.toArray(new int[list.size()][]);
+	}
+
+	private MethodTemplate(final String name, final String desc,
+			final String signature, final int firstLine, final int lastLine,
+			final int[] lines, final int[] branches, final int[] offsets,
+			final int[][] probes) {
+		this.name = name;
+		this.desc = desc;
+		this.signature = signature;
+		this.firstLine = firstLine;
+		this.lastLine = lastLine;
+		this.lines = lines;
+		this.branches = branches;
+		this.offsets = offsets;
+		this.probes = probes;
+	}
+
+	/**
+	 * Converts the given set of probes to a sorted array of probe ids.
+	 *
+	 * @param set
+	 *            set of probes or <code>null</code>
+	 * @param shared
+	 *            arrays already created for equal sets
+	 * @return probe ids
+	 */
+	static int[] toArray(final BitSet set, final Map<BitSet, int[]> shared) {
+		if (set == null || set.isEmpty()) {
+			return NO_PROBES;
+		}
+		int[] array = shared.get(set);
+		if (array == null) {
+			array = new int[set.cardinality()];
+			int i = 0;
+			for (int p = set.nextSetBit(0); p >= 0; p = set
+					.nextSetBit(p + 1)) {
+				array[i++] = p;
+			}
+			shared.put(set, array);
+		}
+		return array;
+	}
+
+	/**
+	 * Checks whether any of the given probes has been executed.
+	 *
+	 * @param ids
+	 *            probe ids
+	 * @param executed
+	 *            probe array of the class or <code>null</code>
+	 * @return <code>true</code> if any probe has been executed
+	 */
+	static boolean isCovered(final int[] ids, final boolean[] executed) {
+		if (executed != null) {
+			for (final int id : ids) {
+				if (executed[id]) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Calculates the coverage of the method for the given probes.
+	 *
+	 * @param executed
+	 *            probe array of the class or <code>null</code>
+	 * @return coverage of the method
+	 */
+	MethodCoverageImpl apply(final boolean[] executed) {
+		final MethodCoverageImpl coverage = new MethodCoverageImpl(name, desc,
+				signature);
+		coverage.ensureCapacity(firstLine, lastLine);
+		for (int i = 0; i < lines.length; i++) {
+			int covered = 0;
+			for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+				if (isCovered(probes[j], executed)) {
+					covered++;
+				}
+			}
+			final ICounter instructionCounter = covered == 0
+					? CounterImpl.COUNTER_1_0
+					: CounterImpl.COUNTER_0_1;
+			final ICounter branchCounter = branches[i] < 2
+					? CounterImpl.COUNTER_0_0
+					: CounterImpl.getInstance(branches[i] - covered, covered);
+			coverage.increment(instructionCounter, branchCounter, lines[i]);
+		}
+		coverage.incrementMethodCounter();
+		return coverage;
+	}
+
+	/**
+	 * Writes this template to the given output.
+	 *
+	 * @param out
+	 *            output to write to
+	 * @throws IOException
+	 *             if the output can't be written
+	 */
+	void write(final CompactDataOutput out) throws IOException {
+		out.writeUTF(name);
+		out.writeUTF(desc);
+		CoverageTemplate.writeString(out, signature);
+		out.writeVarInt(firstLine + 1);
+		out.writeVarInt(lastLine + 1);
+		out.writeVarInt(lines.length);
+		for (int i = 0; i < lines.length; i++) {
+			out.writeVarInt(lines[i] + 1);
+			out.writeVarInt(branches[i]);
+			out.writeVarInt(offsets[i + 1] - offsets[i]);
+		}
+		// Shared arrays are written once and referenced by index afterwards:
+		final Map<int[], Integer> index = new HashMap<int[], Integer>();
+		final List<int[]> distinct = new ArrayList<int[]>();
+		for (final int[] ids : probes) {
+			if (!index.containsKey(ids)) {
+				index.put(ids, Integer.valueOf(distinct.size()));
+				distinct.add(ids);
+			}
+		}
+		out.writeVarInt(distinct.size());
+		for (final int[] ids : distinct) {
+			CoverageTemplate.writeProbeIds(out, ids);
+		}
+		for (final int[] ids : probes) {
+			out.writeVarInt(index.get(ids).intValue());
+		}
+	}
+
+	/**
+	 * Reads a template written with {@link #write(CompactDataOutput)}.
+	 *
+	 * @param in
+	 *            input to read from
+	 * @param stringPool
+	 *            pool for the strings of the template
+	 * @return template read from the input
+	 * @throws IOException
+	 *             if the input can't be read
+	 */
+	static MethodTemplate read(final CompactDataInput in,
+			final StringPool stringPool) throws IOException {
+		final String name = stringPool.get(in.readUTF());
+		final String desc = stringPool.get(in.readUTF());
+		final String signature = stringPool
+				.get(CoverageTemplate.readString(in));
+		final int firstLine = in.readVarInt() - 1;
+		final int lastLine = in.readVarInt() - 1;
+		final int size = in.readVarInt();
+		final int[] lines = new int[size];
+		final int[] branches = new int[size];
+		final int[] offsets = new int[size + 1];
+		for (int i = 0; i < size; i++) {
+			lines[i] = in.readVarInt() - 1;
+			branches[i] = in.readVarInt();
+			offsets[i + 1] = offsets[i] + in.readVarInt();
+		}
+		final int[][] distinct = new int[in.readVarInt()][];
+		for (int i = 0; i < distinct.length; i++) {
+			distinct[i] = CoverageTemplate.readProbeIds(in);
+		}
+		final int[][] probes = new int[offsets[size]][];
+		for (int i = 0; i < probes.length; i++) {
+			probes[i] = distinct[in.readVarInt()];
+		}
+		return new MethodTemplate(name, desc, signature, firstLine, lastLine,
+				lines, branches, offsets, probes);
+	}
+
+}
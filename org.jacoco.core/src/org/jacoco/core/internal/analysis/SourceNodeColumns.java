@@ -0,0 +1,575 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import org.jacoco.core.analysis.CoverageNodeImpl;
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.ICoverageNode.CounterEntity;
+import org.jacoco.core.analysis.ILine;
+import org.jacoco.core.analysis.ISourceNode;
+
+/**
+ * Storage for the counters and lines of many {@link ISourceNode}s in arrays of
+ * primitives which are indexed by the number of the node or line. Other than
+ * with {@link SourceNodeImpl} no objects are required for the nodes, lines and
+ * counters. The nodes are exposed through {@link Node} views.
+ *
+ * Only lines which contain code are stored. The lines of a node are stored
+ * consecutively in ascending order with their offset to the first line of the
+ * node. As line numbers in class files are unsigned 16 bit values the offset
+ * always fits into a <code>char</code>. Every line is packed into a single
+ * <code>int</code> with 7 bits for each of its four counter values. Lines with
+ * larger values refer to a separate array with the unpacked values.
+ */
+final class SourceNodeColumns {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** number of values per node in {@link #counters} */
+	private static final int COUNTERS = 2 * CounterEntity.values().length;
+
+	/** bits per value of a packed line */
+	private static final int FIELD_BITS = 7;
+
+	private static final int FIELD_MASK = (1 << FIELD_BITS) - 1;
+
+	/** marks a line which values are stored in {@link #wideLines} */
+	private static final int WIDE = 0x80000000;
+
+	/** number of values per line */
+	static final int FIELDS = 4;
+
+	static final int INSN_MISSED = 0;
+	static final int INSN_COVERED = 1;
+	static final int BRANCH_MISSED = 2;
+	static final int BRANCH_COVERED = 3;
+
+	private int size;
+
+	private String[] names;
+
+	/** missed and covered count of every counter entity of every node */
+	private int[] counters;
+
+	private int[] firstLines;
+
+	private int[] lastLines;
+
+	/** index of the first stored line of every node */
+	private int[] lineStarts;
+
+	/** index after the last stored line of every node */
+	private int[] lineEnds;
+
+	private int lineCount;
+
+	/** offset of every stored line to the first line of its node */
+	private char[] lineOffsets;
+
+	private int[] lines;
+
+	/**
+	 * execution counts of the stored lines incremented by one, so that 0
+	 * represents {@link ISourceNode#UNKNOWN_EXECUTION_COUNT}, or
+	 * <code>null</code> if no counts are available at all
+	 */
+	private long[] executionCounts;
+
+	private int wideCount;
+
+	private int[] wideLines;
+
+	SourceNodeColumns() {
+		names = new String[INITIAL_CAPACITY];
+		counters = new int[INITIAL_CAPACITY * COUNTERS];
+		firstLines = new int[INITIAL_CAPACITY];
+		lastLines = new int[INITIAL_CAPACITY];
+		lineStarts = new int[INITIAL_CAPACITY];
+		lineEnds = new int[INITIAL_CAPACITY];
+		lineOffsets = new char[INITIAL_CAPACITY];
+		lines = new int[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Adds a copy of the given node.
+	 *
+	 * @param node
+	 *            node to copy
+	 * @return index of the new node
+	 */
+	int add(final ISourceNode node) {
+		if (size == names.length) {
+			final int capacity = newCapacity(size, INITIAL_CAPACITY);
+			names = grow(names, new String[capacity]);
+			counters = grow(counters, new int[capacity * COUNTERS]);
+			firstLines = grow(firstLines, new int[capacity]);
+			lastLines = grow(lastLines, new int[capacity]);
+			lineStarts = grow(lineStarts, new int[capacity]);
+			lineEnds = grow(lineEnds, new int[capacity]);
+		}
+		final int n = size++;
+		names[n] = node.getName();
+		for (final CounterEntity entity : CounterEntity.values()) {
+			setCounter(n, entity, node.getCounter(entity));
+		}
+		final int first = node.getFirstLine();
+		final int last = node.getLastLine();
+		lineStarts[n] = lineCount;
+		if (first == ISourceNode.UNKNOWN_LINE) {
+			firstLines[n] = ISourceNode.UNKNOWN_LINE;
+			lastLines[n] = ISourceNode.UNKNOWN_LINE;
+		} else {
+			if (last - first > Character.MAX_VALUE) {
+				throw new IllegalArgumentException(
+						"Line range too large: " + node.getName());
+			}
+			firstLines[n] = first;
+			lastLines[n] = last;
+			// The first line is kept to tell whether counts are known
+			final long firstCount = node.getExecutionCount(first);
+			final boolean counts = firstCount != ISourceNode.UNKNOWN_EXECUTION_COUNT;
+			for (int nr = first; nr <= last; nr++) {
+				final ILine line = node.getLine(nr);
+				final long count = node.getExecutionCount(nr);
+				if (line.getInstructionCounter().getTotalCount() == 0
+						&& line.getBranchCounter().getTotalCount() == 0
+						&& !(counts && (nr == first || count != 0))) {
+					continue;
+				}
+				final ICounter instructions = line.getInstructionCounter();
+				final ICounter branches = line.getBranchCounter();
+				addLine(nr - first, instructions.getMissedCount(),
+						instructions.getCoveredCount(),
+						branches.getMissedCount(), branches.getCoveredCount(),
+						counts ? count + 1 : 0);
+			}
+		}
+		lineEnds[n] = lineCount;
+		return n;
+	}
+
+	private void addLine(final int offset, final int im, final int ic,
+			final int bm, final int bc, final long count) {
+		if (lineCount == lines.length) {
+			final int capacity = newCapacity(lineCount, INITIAL_CAPACITY);
+			lineOffsets = grow(lineOffsets, new char[capacity]);
+			lines = grow(lines, new int[capacity]);
+			if (executionCounts != null) {
+				executionCounts = grow(executionCounts, new long[capacity]);
+			}
+		}
+		final int l = lineCount++;
+		lineOffsets[l] = (char) offset;
+		lines[l] = 0;
+		setLine(l, im, ic, bm, bc);
+		if (count != 0 || executionCounts != null) {
+			getExecutionCounts()[l] = count;
+		}
+	}
+
+	/**
+	 * Replaces the lines of a node with the lines of a fragment of the same
+	 * source file. Every line which contains instructions in the fragment
+	 * becomes a single instruction which is covered if the line is covered in
+	 * either the node or the fragment. Branches of these lines are removed.
+	 *
+	 * @see SourceNodeImpl#applyFragment(SourceNodeImpl)
+	 * @param node
+	 *            index of the node
+	 * @param fragment
+	 *            fragment to apply
+	 * @return <code>true</code> if fragment contains lines of this node
+	 */
+	boolean applyFragment(final int node, final ISourceNode fragment) {
+		final int first = firstLines[node];
+		if (first == ISourceNode.UNKNOWN_LINE) {
+			return false;
+		}
+		final boolean counts = hasExecutionCounts(node);
+		final int start = lineCount;
+		final int startWide = wideCount;
+		boolean applied = false;
+		int l = lineStarts[node];
+		for (int nr = first; nr <= lastLines[node]; nr++) {
+			final int line;
+			final long count;
+			if (l < lineEnds[node] && lineOffsets[l] == nr - first) {
+				line = lines[l];
+				count = counts ? executionCounts[l] : 0;
+				l++;
+			} else {
+				line = 0;
+				count = counts ? 1 : 0;
+			}
+			final ILine fragmentLine = fragment.getLine(nr);
+			if (fragmentLine.equals(LineImpl.EMPTY)) {
+				if (line != 0 || count > 1 || nr == first && counts) {
+					addLine(nr - first, getValue(line, INSN_MISSED),
+							getValue(line, INSN_COVERED),
+							getValue(line, BRANCH_MISSED),
+							getValue(line, BRANCH_COVERED), count);
+				}
+				continue;
+			}
+			final int missed = getValue(line, INSN_MISSED);
+			final int covered = getValue(line, INSN_COVERED);
+			final boolean lineCovered = covered > 0 || fragmentLine
+					.getInstructionCounter().getCoveredCount() > 0;
+			if (covered > 0) {
+				incrementCounter(node, CounterEntity.LINE, 0, -1);
+			} else if (missed > 0) {
+				incrementCounter(node, CounterEntity.LINE, -1, 0);
+			}
+			incrementCounter(node, CounterEntity.BRANCH,
+					-getValue(line, BRANCH_MISSED),
+					-getValue(line, BRANCH_COVERED));
+			final int newMissed = lineCovered ? 0 : 1;
+			final int newCovered = lineCovered ? 1 : 0;
+			incrementCounter(node, CounterEntity.LINE, newMissed, newCovered);
+			incrementCounter(node, CounterEntity.INSTRUCTION,
+					newMissed - missed, newCovered - covered);
+			addLine(nr - first, newMissed, newCovered, 0, 0, count);
+			applied = true;
+		}
+		if (!applied) {
+			lineCount = start;
+			wideCount = startWide;
+		} else if (lineCount - start == lineEnds[node] - lineStarts[node]) {
+			// Same lines, so the new values fit into the old place
+			final int length = lineCount - start;
+			System.arraycopy(lines, start, lines, lineStarts[node], length);
+			if (executionCounts != null) {
+				System.arraycopy(executionCounts, start, executionCounts,
+						lineStarts[node], length);
+			}
+			lineCount = start;
+		} else {
+			lineStarts[node] = start;
+			lineEnds[node] = lineCount;
+		}
+		return applied;
+	}
+
+	private void setLine(final int l, final int im, final int ic,
+			final int bm, final int bc) {
+		if (lines[l] < 0) {
+			setWideLine(lines[l] & ~WIDE, im, ic, bm, bc);
+		} else if (im <= FIELD_MASK && ic <= FIELD_MASK && bm <= FIELD_MASK
+				&& bc <= FIELD_MASK) {
+			lines[l] = im | ic << FIELD_BITS | bm << 2 * FIELD_BITS
+					| bc << 3 * FIELD_BITS;
+		} else {
+			if (wideLines == null) {
+				wideLines = new int[INITIAL_CAPACITY * FIELDS];
+			} else if ((wideCount + 1) * FIELDS > wideLines.length) {
+				wideLines = grow(wideLines, new int[newCapacity(
+						wideLines.length, INITIAL_CAPACITY * FIELDS)]);
+			}
+			lines[l] = WIDE | wideCount;
+			setWideLine(wideCount++, im, ic, bm, bc);
+		}
+	}
+
+	private void setWideLine(final int w, final int im, final int ic,
+			final int bm, final int bc) {
+		wideLines[w * FIELDS + INSN_MISSED] = im;
+		wideLines[w * FIELDS + INSN_COVERED] = ic;
+		wideLines[w * FIELDS + BRANCH_MISSED] = bm;
+		wideLines[w * FIELDS + BRANCH_COVERED] = bc;
+	}
+
+	private int getValue(final int line, final int field) {
+		if (line < 0) {
+			return wideLines[(line & ~WIDE) * FIELDS + field];
+		}
+		return (line >>> field * FIELD_BITS) & FIELD_MASK;
+	}
+
+	/**
+	 * Searches the stored line with the given number.
+	 *
+	 * @return index of the line or -1 if the line has not been stored
+	 */
+	private int getLineIndex(final int node, final int nr) {
+		if (firstLines[node] == ISourceNode.UNKNOWN_LINE
+				|| nr < firstLines[node] || nr > lastLines[node]) {
+			return -1;
+		}
+		final int offset = nr - firstLines[node];
+		int low = lineStarts[node];
+		int high = lineEnds[node] - 1;
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			if (lineOffsets[mid] < offset) {
+				low = mid + 1;
+			} else if (lineOffsets[mid] > offset) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	private long[] getExecutionCounts() {
+		if (executionCounts == null) {
+			executionCounts = new long[lines.length];
+		}
+		return executionCounts;
+	}
+
+	void incrementCounter(final int node, final CounterEntity entity,
+			final int missed, final int covered) {
+		final int i = node * COUNTERS + 2 * entity.ordinal();
+		counters[i] += missed;
+		counters[i + 1] += covered;
+	}
+
+	void setCounter(final int node, final CounterEntity entity,
+			final ICounter counter) {
+		final int i = node * COUNTERS + 2 * entity.ordinal();
+		counters[i] = counter.getMissedCount();
+		counters[i + 1] = counter.getCoveredCount();
+	}
+
+	int getMissed(final int node, final CounterEntity entity) {
+		return counters[node * COUNTERS + 2 * entity.ordinal()];
+	}
+
+	int getCovered(final int node, final CounterEntity entity) {
+		return counters[node * COUNTERS + 2 * entity.ordinal() + 1];
+	}
+
+	ICounter getCounter(final int node, final CounterEntity entity) {
+		return CounterImpl.getInstance(getMissed(node, entity),
+				getCovered(node, entity));
+	}
+
+	String getName(final int node) {
+		return names[node];
+	}
+
+	int getFirstLine(final int node) {
+		return firstLines[node];
+	}
+
+	int getLastLine(final int node) {
+		return lastLines[node];
+	}
+
+	ILine getLine(final int node, final int nr) {
+		final int l = getLineIndex(node, nr);
+		if (l == -1) {
+			return LineImpl.EMPTY;
+		}
+		final int line = lines[l];
+		return LineImpl.getInstance(
+				CounterImpl.getInstance(getValue(line, INSN_MISSED),
+						getValue(line, INSN_COVERED)),
+				CounterImpl.getInstance(getValue(line, BRANCH_MISSED),
+						getValue(line, BRANCH_COVERED)));
+	}
+
+	/**
+	 * Adds the values of a line to the given array with {@link #FIELDS}
+	 * elements.
+	 *
+	 * @param node
+	 *            index of the node
+	 * @param nr
+	 *            line number
+	 * @param values
+	 *            array to increment
+	 */
+	void addLine(final int node, final int nr, final int[] values) {
+		final int l = getLineIndex(node, nr);
+		if (l != -1) {
+			for (int field = 0; field < FIELDS; field++) {
+				values[field] += getValue(lines[l], field);
+			}
+		}
+	}
+
+	/**
+	 * Execution counts are either known for all or for none of the lines of a
+	 * node. If known the first line of the node is always stored.
+	 *
+	 * @param node
+	 *            index of the node
+	 * @return <code>true</code> if the node has execution counts
+	 */
+	boolean hasExecutionCounts(final int node) {
+		return executionCounts != null && lineStarts[node] < lineEnds[node]
+				&& executionCounts[lineStarts[node]] != 0;
+	}
+
+	long getExecutionCount(final int node, final int nr) {
+		if (!hasExecutionCounts(node) || nr < firstLines[node]
+				|| nr > lastLines[node]) {
+			return ISourceNode.UNKNOWN_EXECUTION_COUNT;
+		}
+		final int l = getLineIndex(node, nr);
+		return l == -1 ? 0 : executionCounts[l] - 1;
+	}
+
+	/**
+	 * Shrinks all columns to the number of nodes and lines currently stored.
+	 * Further nodes can still be added afterwards.
+	 */
+	void trimToSize() {
+		names = trim(names, new String[size]);
+		counters = trim(counters, new int[size * COUNTERS]);
+		firstLines = trim(firstLines, new int[size]);
+		lastLines = trim(lastLines, new int[size]);
+		lineStarts = trim(lineStarts, new int[size]);
+		lineEnds = trim(lineEnds, new int[size]);
+		final char[] offsets = new char[lineCount];
+		System.arraycopy(lineOffsets, 0, offsets, 0, lineCount);
+		lineOffsets = offsets;
+		lines = trim(lines, new int[lineCount]);
+		if (executionCounts != null) {
+			final long[] counts = new long[lineCount];
+			System.arraycopy(executionCounts, 0, counts, 0, lineCount);
+			executionCounts = counts;
+		}
+		if (wideLines != null) {
+			wideLines = trim(wideLines, new int[wideCount * FIELDS]);
+		}
+	}
+
+	private static int newCapacity(final int length, final int minimum) {
+		return Math.max(minimum, length + (length >> 1));
+	}
+
+	private static String[] trim(final String[] array, final String[] copy) {
+		System.arraycopy(array, 0, copy, 0, copy.length);
+		return copy;
+	}
+
+	private static int[] trim(final int[] array, final int[] copy) {
+		System.arraycopy(array, 0, copy, 0, copy.length);
+		return copy;
+	}
+
+	private static String[] grow(final String[] array, final String[] copy) {
+		System.arraycopy(array, 0, copy, 0, array.length);
+		return copy;
+	}
+
+	private static int[] grow(final int[] array, final int[] copy) {
+		System.arraycopy(array, 0, copy, 0, array.length);
+		return copy;
+	}
+
+	private static char[] grow(final char[] array, final char[] copy) {
+		System.arraycopy(array, 0, copy, 0, array.length);
+		return copy;
+	}
+
+	private static long[] grow(final long[] array, final long[] copy) {
+		System.arraycopy(array, 0, copy, 0, array.length);
+		return copy;
+	}
+
+	/**
+	 * View of a node stored in {@link SourceNodeColumns}. Views do not hold
+	 * any data themselves and can be created on demand.
+	 */
+	abstract static class Node implements ISourceNode {
+
+		/** columns containing the node */
+		protected final SourceNodeColumns columns;
+
+		/** index of the node in the columns */
+		protected final int index;
+
+		Node(final SourceNodeColumns columns, final int index) {
+			this.columns = columns;
+			this.index = index;
+		}
+
+		// === ICoverageNode implementation ===
+
+		public String getName() {
+			return columns.getName(index);
+		}
+
+		public ICounter getInstructionCounter() {
+			return getCounter(CounterEntity.INSTRUCTION);
+		}
+
+		public ICounter getBranchCounter() {
+			return getCounter(CounterEntity.BRANCH);
+		}
+
+		public ICounter getLineCounter() {
+			return getCounter(CounterEntity.LINE);
+		}
+
+		public ICounter getComplexityCounter() {
+			return getCounter(CounterEntity.COMPLEXITY);
+		}
+
+		public ICounter getMethodCounter() {
+			return getCounter(CounterEntity.METHOD);
+		}
+
+		public ICounter getClassCounter() {
+			return getCounter(CounterEntity.CLASS);
+		}
+
+		public ICounter getCounter(final CounterEntity entity) {
+			return columns.getCounter(index, entity);
+		}
+
+		public boolean containsCode() {
+			return columns.getMissed(index, CounterEntity.INSTRUCTION)
+					+ columns.getCovered(index, CounterEntity.INSTRUCTION) != 0
+					|| columns.getMissed(index, CounterEntity.METHOD) + columns
+							.getCovered(index, CounterEntity.METHOD) != 0;
+		}
+
+		public ICoverageNode getPlainCopy() {
+			final CoverageNodeImpl copy = new CoverageNodeImpl(
+					getElementType(), getName());
+			copy.increment(this);
+			return copy;
+		}
+
+		// === ISourceNode implementation ===
+
+		public int getFirstLine() {
+			return columns.getFirstLine(index);
+		}
+
+		public int getLastLine() {
+			return columns.getLastLine(index);
+		}
+
+		public ILine getLine(final int nr) {
+			return columns.getLine(index, nr);
+		}
+
+		public long getExecutionCount(final int nr) {
+			return columns.getExecutionCount(index, nr);
+		}
+
+		@Override
+		public String toString() {
+			return getName() + " [" + getElementType() + "]";
+		}
+
+	}
+
+}
@@ -27,6 +27,12 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
 	/** first line number in {@link #lines} */
 	private int offset;
 
+	/**
+	 * execution counts with the same offset as {@link #lines} or
+	 * <code>null</code> if counts are not available
+	 */
+	private long[] executionCounts;
+
 	/**
 	 * Create a new source node implementation instance.
 	 *
@@ -103,6 +109,12 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
 				final LineImpl[] newLines = new LineImpl[newLength];
 				System.arraycopy(lines, 0, newLines, offset - newFirst,
 						lines.length);
+				if (executionCounts != null) {
+					final long[] newCounts = new long[newLength];
+					System.arraycopy(executionCounts, 0, newCounts,
+							offset - newFirst, executionCounts.length);
+					executionCounts = newCounts;
+				}
 				offset = newFirst;
 				lines = newLines;
 			}
@@ -133,6 +145,10 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
 				final ILine line = child.getLine(i);
 				incrementLine(line.getInstructionCounter(),
 						line.getBranchCounter(), i);
+				final long count = child.getExecutionCount(i);
+				if (count != UNKNOWN_EXECUTION_COUNT) {
+					getExecutionCounts()[i - offset] += count;
+				}
 			}
 		}
 	}
@@ -158,6 +174,51 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
 		branchCounter = branchCounter.increment(branches);
 	}
 
+	/**
+	 * Adds the given instructions to the given line only. The line counter is
+	 * incremented accordingly but the instruction counter of this node is not.
+	 * This is used for lines which are known to be executed or not while the
+	 * coverage of their instructions is unknown.
+	 *
+	 * @param instructions
+	 *            instructions to add to the line
+	 * @param line
+	 *            line number or {@link ISourceNode#UNKNOWN_LINE}
+	 */
+	public void incrementLine(final ICounter instructions, final int line) {
+		if (line != UNKNOWN_LINE) {
+			incrementLine(instructions, CounterImpl.COUNTER_0_0, line);
+		}
+	}
+
+	/**
+	 * Updates the execution count of the given line to the given count if it
+	 * is higher than the current count. Once a count has been updated for any
+	 * line the counts of all lines of this node are known.
+	 *
+	 * @param line
+	 *            line number or {@link ISourceNode#UNKNOWN_LINE}
+	 * @param count
+	 *            number of executions
+	 */
+	public void updateExecutionCount(final int line, final long count) {
+		if (line == UNKNOWN_LINE) {
+			return;
+		}
+		ensureCapacity(line, line);
+		final long[] counts = getExecutionCounts();
+		if (counts[line - offset] < count) {
+			counts[line - offset] = count;
+		}
+	}
+
+	private long[] getExecutionCounts() {
+		if (executionCounts == null) {
+			executionCounts = new long[lines.length];
+		}
+		return executionCounts;
+	}
+
 	private void incrementLine(final ICounter instructions,
 			final ICounter branches, final int line) {
 		ensureCapacity(line, line);
@@ -204,4 +265,12 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
 		return line == null ? LineImpl.EMPTY : line;
 	}
 
+	public long getExecutionCount(final int nr) {
+		if (executionCounts == null || nr < getFirstLine()
+				|| nr > getLastLine()) {
+			return UNKNOWN_EXECUTION_COUNT;
+		}
+		return executionCounts[nr - offset];
+	}
+
 }
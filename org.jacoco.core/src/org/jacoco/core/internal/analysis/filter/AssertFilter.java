@@ -19,7 +19,7 @@ import org.objectweb.asm.tree.MethodNode;
 /**
  * Filters code that is generated for an <code>assert</code> statement.
  */
-final class AssertFilter implements IFilter {
+final class AssertFilter implements IOpcodeTriggeredFilter {
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
@@ -34,6 +34,10 @@ final class AssertFilter implements IFilter {
 		}
 	}
 
+	public int[] getTriggerOpcodes() {
+		return new int[] { Opcodes.GETSTATIC, Opcodes.PUTSTATIC };
+	}
+
 	private static class Matcher extends AbstractMatcher {
 		public void matchSet(final String className,
 				final AbstractInsnNode start, final IFilterOutput output) {
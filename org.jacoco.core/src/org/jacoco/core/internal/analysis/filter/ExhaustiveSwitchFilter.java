@@ -25,7 +25,7 @@ import org.objectweb.asm.tree.TypeInsnNode;
  * Filters default branch generated by compilers for exhaustive switch
  * expressions.
  */
-final class ExhaustiveSwitchFilter implements IFilter {
+final class ExhaustiveSwitchFilter implements IOpcodeTriggeredFilter {
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
@@ -39,6 +39,10 @@ final class ExhaustiveSwitchFilter implements IFilter {
 		}
 	}
 
+	public int[] getTriggerOpcodes() {
+		return new int[] { Opcodes.TABLESWITCH, Opcodes.LOOKUPSWITCH };
+	}
+
 	private static class Matcher extends AbstractMatcher {
 		public void match(final AbstractInsnNode start, final int line,
 				final IFilterOutput output) {
@@ -12,24 +12,82 @@
  *******************************************************************************/
 package org.jacoco.core.internal.analysis.filter;
 
+import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.MethodNode;
 
 /**
- * Filter that combines other filters.
+ * Filter that combines other filters. Filters implementing
+ * {@link IOpcodeTriggeredFilter} are only invoked for methods containing one
+ * of their trigger opcodes. For this the instructions of every method are
+ * scanned once, instead of every such filter iterating over all instructions.
  */
 final class FilterSet implements IFilter {
 
+	/** number of <code>long</code> values for a set of all opcodes */
+	private static final int OPCODE_SET_SIZE = 4;
+
 	private final IFilter[] filters;
 
+	/**
+	 * for every filter the set of trigger opcodes or <code>null</code> if the
+	 * filter is always invoked
+	 */
+	private final long[][] triggers;
+
+	private final boolean triggered;
+
 	FilterSet(final IFilter... filters) {
 		this.filters = filters;
+		this.triggers = new long[filters.length][];
+		boolean triggered = false;
+		for (int i = 0; i < filters.length; i++) {
+			if (filters[i] instanceof IOpcodeTriggeredFilter) {
+				triggers[i] = opcodeSet(((IOpcodeTriggeredFilter) filters[i])
+						.getTriggerOpcodes());
+				triggered = true;
+			}
+		}
+		this.triggered = triggered;
 	}
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
-		for (final IFilter filter : filters) {
-			filter.filter(methodNode, context, output);
+		final long[] opcodes = triggered ? opcodeSet(methodNode) : null;
+		for (int i = 0; i < filters.length; i++) {
+			final long[] trigger = triggers[i];
+			if (trigger == null || intersects(trigger, opcodes)) {
+				filters[i].filter(methodNode, context, output);
+			}
+		}
+	}
+
+	private static long[] opcodeSet(final int[] opcodes) {
+		final long[] set = new long[OPCODE_SET_SIZE];
+		for (final int opcode : opcodes) {
+			set[opcode >>> 6] |= 1L << opcode;
+		}
+		return set;
+	}
+
+	private static long[] opcodeSet(final MethodNode methodNode) {
+		final long[] set = new long[OPCODE_SET_SIZE];
+		for (AbstractInsnNode i = methodNode.instructions
+				.getFirst(); i != null; i = i.getNext()) {
+			final int opcode = i.getOpcode();
+			if (opcode >= 0) {
+				set[opcode >>> 6] |= 1L << opcode;
+			}
+		}
+		return set;
+	}
+
+	private static boolean intersects(final long[] s1, final long[] s2) {
+		for (int i = 0; i < OPCODE_SET_SIZE; i++) {
+			if ((s1[i] & s2[i]) != 0) {
+				return true;
+			}
 		}
+		return false;
 	}
 
 }
@@ -34,24 +34,34 @@ public final class Filters {
 	 * @return filter that combines all filters
 	 */
 	public static IFilter all() {
-		final IFilter allCommonFilters = allCommonFilters();
-		final IFilter allKotlinFilters = allKotlinFilters();
-		final IFilter allNonKotlinFilters = allNonKotlinFilters();
+		final IFilter[] allCommonFilters = allCommonFilters();
+		// Common filters are contained in both sets, so that the instructions
+		// of every method are only scanned by a single set:
+		final IFilter kotlinFilters = new FilterSet(
+				concat(allCommonFilters, allKotlinFilters()));
+		final IFilter nonKotlinFilters = new FilterSet(
+				concat(allCommonFilters, allNonKotlinFilters()));
 		return new IFilter() {
 			public void filter(final MethodNode methodNode,
 					final IFilterContext context, final IFilterOutput output) {
-				allCommonFilters.filter(methodNode, context, output);
 				if (isKotlinClass(context)) {
-					allKotlinFilters.filter(methodNode, context, output);
+					kotlinFilters.filter(methodNode, context, output);
 				} else {
-					allNonKotlinFilters.filter(methodNode, context, output);
+					nonKotlinFilters.filter(methodNode, context, output);
 				}
 			}
 		};
 	}
 
-	private static IFilter allCommonFilters() {
-		return new FilterSet( //
+	private static IFilter[] concat(final IFilter[] a, final IFilter[] b) {
+		final IFilter[] result = new IFilter[a.length + b.length];
+		System.arraycopy(a, 0, result, 0, a.length);
+		System.arraycopy(b, 0, result, a.length, b.length);
+		return result;
+	}
+
+	private static IFilter[] allCommonFilters() {
+		return new IFilter[] { //
 				new EnumFilter(), //
 				new BridgeFilter(), //
 				new SynchronizedFilter(), //
@@ -67,16 +77,16 @@ public final class Filters {
 				new RecordsFilter(), //
 				new ExhaustiveSwitchFilter(), //
 				new RecordPatternFilter(), //
-				new AnnotationGeneratedFilter());
+				new AnnotationGeneratedFilter() };
 	}
 
-	private static IFilter allNonKotlinFilters() {
-		return new FilterSet( //
-				new SyntheticFilter());
+	private static IFilter[] allNonKotlinFilters() {
+		return new IFilter[] { //
+				new SyntheticFilter() };
 	}
 
-	private static IFilter allKotlinFilters() {
-		return new FilterSet( //
+	private static IFilter[] allKotlinFilters() {
+		return new IFilter[] { //
 				new KotlinGeneratedFilter(), //
 				new KotlinSyntheticAccessorsFilter(), //
 				new KotlinEnumFilter(), //
@@ -92,7 +102,7 @@ public final class Filters {
 				new KotlinInlineFilter(), //
 				new KotlinCoroutineFilter(), //
 				new KotlinDefaultMethodsFilter(), //
-				new KotlinComposeFilter());
+				new KotlinComposeFilter() };
 	}
 
 	/**
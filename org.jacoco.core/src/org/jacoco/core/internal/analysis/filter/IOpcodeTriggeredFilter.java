@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.filter;
+
+/**
+ * Filter which can only match methods containing certain instructions.
+ * {@link FilterSet} invokes such filters only for methods which contain at
+ * least one instruction with one of the trigger opcodes. The filter itself
+ * must not rely on this, i.e. it must still work correctly for any method.
+ */
+interface IOpcodeTriggeredFilter extends IFilter {
+
+	/**
+	 * Returns the opcodes of instructions of which at least one must be
+	 * present in a method for this filter to have any effect.
+	 *
+	 * @return trigger opcodes
+	 */
+	int[] getTriggerOpcodes();
+
+}
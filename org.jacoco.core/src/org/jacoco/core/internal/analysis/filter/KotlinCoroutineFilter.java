@@ -26,7 +26,7 @@ import org.objectweb.asm.tree.TableSwitchInsnNode;
 /**
  * Filters branches that Kotlin compiler generates for coroutines.
  */
-final class KotlinCoroutineFilter implements IFilter {
+final class KotlinCoroutineFilter implements IOpcodeTriggeredFilter {
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
@@ -34,6 +34,10 @@ final class KotlinCoroutineFilter implements IFilter {
 		new Matcher().matchOptimizedTailCall(methodNode, output);
 	}
 
+	public int[] getTriggerOpcodes() {
+		return new int[] { Opcodes.INVOKESTATIC };
+	}
+
 	private static class Matcher extends AbstractMatcher {
 
 		private void matchOptimizedTailCall(final MethodNode methodNode,
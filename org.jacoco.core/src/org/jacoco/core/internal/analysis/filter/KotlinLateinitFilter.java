@@ -22,7 +22,7 @@ import org.objectweb.asm.tree.MethodNode;
  * Filters branch in bytecode that Kotlin compiler generates for reading from
  * <code>lateinit</code> properties.
  */
-final class KotlinLateinitFilter implements IFilter {
+final class KotlinLateinitFilter implements IOpcodeTriggeredFilter {
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
@@ -32,6 +32,10 @@ final class KotlinLateinitFilter implements IFilter {
 		}
 	}
 
+	public int[] getTriggerOpcodes() {
+		return new int[] { Opcodes.IFNONNULL, Opcodes.IFNULL };
+	}
+
 	private static class Matcher extends AbstractMatcher {
 		public void match(final AbstractInsnNode start,
 				final IFilterOutput output) {
@@ -20,7 +20,7 @@ import org.objectweb.asm.tree.MethodNode;
  * Filters branch in bytecode that Kotlin compiler generates for not-null
  * assertion operator.
  */
-final class KotlinNotNullOperatorFilter implements IFilter {
+final class KotlinNotNullOperatorFilter implements IOpcodeTriggeredFilter {
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
@@ -30,6 +30,10 @@ final class KotlinNotNullOperatorFilter implements IFilter {
 		}
 	}
 
+	public int[] getTriggerOpcodes() {
+		return new int[] { Opcodes.IFNONNULL };
+	}
+
 	private static class Matcher extends AbstractMatcher {
 		public void match(final AbstractInsnNode start,
 				final IFilterOutput output) {
@@ -27,7 +27,7 @@ import org.objectweb.asm.tree.VarInsnNode;
  * Filters bytecode that Kotlin compiler generates for chains of safe call
  * operators ({@code ?.}).
  */
-final class KotlinSafeCallOperatorFilter implements IFilter {
+final class KotlinSafeCallOperatorFilter implements IOpcodeTriggeredFilter {
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
@@ -55,6 +55,10 @@ final class KotlinSafeCallOperatorFilter implements IFilter {
 		}
 	}
 
+	public int[] getTriggerOpcodes() {
+		return new int[] { Opcodes.IFNULL };
+	}
+
 	/**
 	 * "optimized" chain:
 	 *
@@ -22,7 +22,7 @@ import org.objectweb.asm.tree.MethodNode;
  * Filters branch in bytecode that Kotlin compiler generates for "unsafe" cast
  * operator.
  */
-final class KotlinUnsafeCastOperatorFilter implements IFilter {
+final class KotlinUnsafeCastOperatorFilter implements IOpcodeTriggeredFilter {
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
@@ -34,6 +34,10 @@ final class KotlinUnsafeCastOperatorFilter implements IFilter {
 		}
 	}
 
+	public int[] getTriggerOpcodes() {
+		return new int[] { Opcodes.IFNONNULL };
+	}
+
 	private static class Matcher extends AbstractMatcher {
 		public void match(final String exceptionType,
 				final AbstractInsnNode start, final IFilterOutput output) {
@@ -26,7 +26,7 @@ import org.objectweb.asm.tree.TableSwitchInsnNode;
  * expressions and statements with subject of type <code>enum class</code> or
  * <code>sealed class</code>.
  */
-final class KotlinWhenFilter implements IFilter {
+final class KotlinWhenFilter implements IOpcodeTriggeredFilter {
 
 	private static final String EXCEPTION = "kotlin/NoWhenBranchMatchedException";
 
@@ -39,6 +39,10 @@ final class KotlinWhenFilter implements IFilter {
 		}
 	}
 
+	public int[] getTriggerOpcodes() {
+		return new int[] { Opcodes.ATHROW, Opcodes.IFNONNULL };
+	}
+
 	private static class Matcher extends AbstractMatcher {
 		void match(final AbstractInsnNode start, final IFilterOutput output) {
 			if (start.getType() != AbstractInsnNode.LABEL) {
@@ -25,7 +25,7 @@ import org.objectweb.asm.tree.VarInsnNode;
  * Filters bytecode that Kotlin compiler generates for <code>when</code>
  * expressions with a <code>String</code>.
  */
-final class KotlinWhenStringFilter implements IFilter {
+final class KotlinWhenStringFilter implements IOpcodeTriggeredFilter {
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
@@ -35,6 +35,10 @@ final class KotlinWhenStringFilter implements IFilter {
 		}
 	}
 
+	public int[] getTriggerOpcodes() {
+		return new int[] { Opcodes.TABLESWITCH, Opcodes.LOOKUPSWITCH };
+	}
+
 	private static class Matcher extends AbstractMatcher {
 		public void match(final AbstractInsnNode start,
 				final IFilterOutput output) {
@@ -26,7 +26,7 @@ import org.objectweb.asm.tree.VarInsnNode;
  * with a <code>String</code> and by Kotlin compiler 1.5 and above for a
  * <code>when</code> expression with a <code>String</code>.
  */
-final class StringSwitchFilter implements IFilter {
+final class StringSwitchFilter implements IOpcodeTriggeredFilter {
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
@@ -36,6 +36,10 @@ final class StringSwitchFilter implements IFilter {
 		}
 	}
 
+	public int[] getTriggerOpcodes() {
+		return new int[] { Opcodes.TABLESWITCH, Opcodes.LOOKUPSWITCH };
+	}
+
 	private static class Matcher extends AbstractMatcher {
 		public void match(final AbstractInsnNode start,
 				final IFilterOutput output) {
@@ -23,7 +23,7 @@ import org.objectweb.asm.tree.TableSwitchInsnNode;
 /**
  * Filters code that is generated by javac for a switch statement with a String.
  */
-final class StringSwitchJavacFilter implements IFilter {
+final class StringSwitchJavacFilter implements IOpcodeTriggeredFilter {
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
@@ -32,6 +32,10 @@ final class StringSwitchJavacFilter implements IFilter {
 		}
 	}
 
+	public int[] getTriggerOpcodes() {
+		return new int[] { Opcodes.TABLESWITCH, Opcodes.LOOKUPSWITCH };
+	}
+
 	/**
 	 * javac generates two switches. First one by {@link String#hashCode()}.
 	 * Number of handlers in the second switch is equal to number of handlers in
@@ -20,7 +20,7 @@ import org.objectweb.asm.tree.TryCatchBlockNode;
 /**
  * Filters code that is generated for synchronized statement.
  */
-final class SynchronizedFilter implements IFilter {
+final class SynchronizedFilter implements IOpcodeTriggeredFilter {
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
@@ -39,6 +39,10 @@ final class SynchronizedFilter implements IFilter {
 		}
 	}
 
+	public int[] getTriggerOpcodes() {
+		return new int[] { Opcodes.MONITOREXIT };
+	}
+
 	private static class Matcher extends AbstractMatcher {
 		private final AbstractInsnNode start;
 
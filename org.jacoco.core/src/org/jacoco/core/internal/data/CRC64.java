@@ -12,6 +12,7 @@
  *******************************************************************************/
 package org.jacoco.core.internal.data;
 
+import org.jacoco.core.instr.Granularity;
 import org.objectweb.asm.Opcodes;
 
 /**
@@ -98,6 +99,87 @@ public final class CRC64 {
 		return update(0, bytes, 0, bytes.length);
 	}
 
+	/**
+	 * Calculates class identifier for the given class bytes instrumented with
+	 * the given granularity. For {@link Granularity#BRANCH} this is the same
+	 * identifier as calculated by {@link #classId(byte[])}, for coarser
+	 * granularities the identifier is modified so that execution data recorded
+	 * with different granularities can not be mixed up.
+	 *
+	 * @param bytes
+	 *            class bytes
+	 * @param granularity
+	 *            granularity of the instrumentation
+	 * @return class identifier
+	 */
+	public static long classId(final byte[] bytes,
+			final Granularity granularity) {
+		return classId(classId(bytes), granularity);
+	}
+
+	/**
+	 * Calculates class identifier for a class instrumented with the given
+	 * granularity from the identifier calculated by {@link #classId(byte[])}.
+	 * This avoids calculating the checksum of the class bytes again.
+	 *
+	 * @param sum
+	 *            class identifier calculated by {@link #classId(byte[])}
+	 * @param granularity
+	 *            granularity of the instrumentation
+	 * @return class identifier
+	 */
+	public static long classId(final long sum, final Granularity granularity) {
+		switch (granularity) {
+		case METHOD:
+			return update(sum, (byte) 'M');
+		case LINE:
+			return update(sum, (byte) 'L');
+		default:
+			return sum;
+		}
+	}
+
+	/**
+	 * Calculates class identifier for the given class bytes instrumented with
+	 * the given granularity where probes implied by other probes might have
+	 * been omitted. Such probes can only be omitted with
+	 * {@link Granularity#BRANCH}, the identifier is modified in this case so
+	 * that the analysis only reconstructs omitted probes where required.
+	 *
+	 * @param bytes
+	 *            class bytes
+	 * @param granularity
+	 *            granularity of the instrumentation
+	 * @param minimized
+	 *            whether implied probes have been omitted
+	 * @return class identifier
+	 */
+	public static long classId(final byte[] bytes,
+			final Granularity granularity, final boolean minimized) {
+		return classId(classId(bytes), granularity, minimized);
+	}
+
+	/**
+	 * Calculates class identifier for a class instrumented with the given
+	 * granularity where probes implied by other probes might have been
+	 * omitted from the identifier calculated by {@link #classId(byte[])}.
+	 *
+	 * @param sum
+	 *            class identifier calculated by {@link #classId(byte[])}
+	 * @param granularity
+	 *            granularity of the instrumentation
+	 * @param minimized
+	 *            whether implied probes have been omitted
+	 * @return class identifier
+	 */
+	public static long classId(final long sum, final Granularity granularity,
+			final boolean minimized) {
+		if (minimized && granularity == Granularity.BRANCH) {
+			return update(sum, (byte) 'P');
+		}
+		return classId(sum, granularity);
+	}
+
 	private CRC64() {
 	}
 
@@ -13,6 +13,7 @@
 package org.jacoco.core.internal.data;
 
 import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -23,6 +24,9 @@ import java.io.InputStream;
  */
 public class CompactDataInput extends DataInputStream {
 
+	/** reused buffer for packed boolean arrays */
+	private byte[] buffer = new byte[0];
+
 	/**
 	 * Creates a new {@link CompactDataInput} that uses the specified underlying
 	 * input stream.
@@ -42,11 +46,65 @@ public class CompactDataInput extends DataInputStream {
 	 *             if thrown by the underlying stream
 	 */
 	public int readVarInt() throws IOException {
-		final int value = 0xFF & readByte();
-		if ((value & 0x80) == 0) {
-			return value;
+		int value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = 0xFF & readByte();
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	/**
+	 * Reads a variable length representation of a long value.
+	 *
+	 * @return read value
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public long readVarLong() throws IOException {
+		long value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = 0xFF & readByte();
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	/**
+	 * Reads a long array written with
+	 * {@link CompactDataOutput#writeVarLongArray(long[])}.
+	 *
+	 * @return long array
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public long[] readVarLongArray() throws IOException {
+		final long[] value = new long[readVarInt()];
+		for (int i = 0; i < value.length; i++) {
+			value[i] = readVarLong();
+		}
+		return value;
+	}
+
+	/**
+	 * Skips a long array written with
+	 * {@link CompactDataOutput#writeVarLongArray(long[])}.
+	 *
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void skipVarLongArray() throws IOException {
+		for (int i = readVarInt(); i > 0; i--) {
+			while ((readByte() & 0x80) != 0) {
+				// skip continuation bytes
+			}
 		}
-		return (value & 0x7F) | (readVarInt() << 7);
 	}
 
 	/**
@@ -58,15 +116,82 @@ public class CompactDataInput extends DataInputStream {
 	 */
 	public boolean[] readBooleanArray() throws IOException {
 		final boolean[] value = new boolean[readVarInt()];
-		int buffer = 0;
+		final byte[] bytes = readPackedBytes(value.length);
 		for (int i = 0; i < value.length; i++) {
-			if ((i % 8) == 0) {
-				buffer = readByte();
-			}
-			value[i] = (buffer & 0x01) != 0;
-			buffer >>>= 1;
+			value[i] = (bytes[i >>> 3] & (1 << (i & 7))) != 0;
 		}
 		return value;
 	}
 
+	/**
+	 * Reads the content of a boolean array into 64 bit words. The length of
+	 * the array has to be read before with {@link #readVarInt()}. The value at
+	 * index <code>i</code> of the array is stored in bit <code>i % 64</code> of
+	 * word <code>i / 64</code>.
+	 *
+	 * @param length
+	 *            length of the boolean array
+	 * @return packed content of the boolean array
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 * @see CompactDataOutput#writePackedBooleanArray(long[], int)
+	 */
+	public long[] readPackedBooleanArray(final int length) throws IOException {
+		final long[] words = new long[(length + 63) >>> 6];
+		final byte[] bytes = readPackedBytes(length);
+		final int size = (length + 7) >>> 3;
+		for (int i = 0; i < size; i++) {
+			words[i >>> 3] |= (0xFFL & bytes[i]) << ((i & 7) << 3);
+		}
+		if ((length & 63) != 0) {
+			words[words.length - 1] &= (1L << length) - 1;
+		}
+		return words;
+	}
+
+	private byte[] readPackedBytes(final int length) throws IOException {
+		final int size = (length + 7) >>> 3;
+		if (buffer.length < size) {
+			buffer = new byte[size];
+		}
+		readFully(buffer, 0, size);
+		return buffer;
+	}
+
+	/**
+	 * Skips a boolean array without decoding its content.
+	 *
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void skipBooleanArray() throws IOException {
+		skipFully((readVarInt() + 7) >>> 3);
+	}
+
+	/**
+	 * Skips a string written with {@link java.io.DataOutput#writeUTF(String)}
+	 * without decoding it.
+	 *
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void skipUTF() throws IOException {
+		skipFully(readUnsignedShort());
+	}
+
+	private void skipFully(final int n) throws IOException {
+		int remaining = n;
+		while (remaining > 0) {
+			final int skipped = skipBytes(remaining);
+			if (skipped <= 0) {
+				if (read() == -1) {
+					throw new EOFException();
+				}
+				remaining--;
+			} else {
+				remaining -= skipped;
+			}
+		}
+	}
+
 }
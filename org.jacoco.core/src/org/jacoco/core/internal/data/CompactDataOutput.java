@@ -15,6 +15,7 @@ package org.jacoco.core.internal.data;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Arrays;
 
 /**
  * Additional data output methods for compact storage of data structures.
@@ -23,6 +24,9 @@ import java.io.OutputStream;
  */
 public class CompactDataOutput extends DataOutputStream {
 
+	/** reused buffer for packed boolean arrays */
+	private byte[] buffer = new byte[0];
+
 	/**
 	 * Creates a new {@link CompactDataOutput} instance that writes data to the
 	 * specified underlying output stream
@@ -45,11 +49,48 @@ public class CompactDataOutput extends DataOutputStream {
 	 *             if thrown by the underlying stream
 	 */
 	public void writeVarInt(final int value) throws IOException {
-		if ((value & 0xFFFFFF80) == 0) {
-			writeByte(value);
-		} else {
-			writeByte(0x80 | (value & 0x7F));
-			writeVarInt(value >>> 7);
+		int v = value;
+		while ((v & 0xFFFFFF80) != 0) {
+			writeByte(0x80 | (v & 0x7F));
+			v >>>= 7;
+		}
+		writeByte(v);
+	}
+
+	/**
+	 * Writes a variable length representation of a long value that reduces the
+	 * number of written bytes for small positive values. Depending on the
+	 * given value 1 to 10 bytes will be written to the underlying stream.
+	 *
+	 * @param value
+	 *            value to write
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void writeVarLong(final long value) throws IOException {
+		long v = value;
+		while ((v & 0xFFFFFFFFFFFFFF80L) != 0) {
+			writeByte(0x80 | ((int) v & 0x7F));
+			v >>>= 7;
+		}
+		writeByte((int) v);
+	}
+
+	/**
+	 * Writes a long array where every value is written in its variable length
+	 * representation. This is efficient for arrays of small positive values
+	 * like execution counts.
+	 *
+	 * @param value
+	 *            long array
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 * @see #writeVarLong(long)
+	 */
+	public void writeVarLongArray(final long[] value) throws IOException {
+		writeVarInt(value.length);
+		for (final long v : value) {
+			writeVarLong(v);
 		}
 	}
 
@@ -64,21 +105,49 @@ public class CompactDataOutput extends DataOutputStream {
 	 */
 	public void writeBooleanArray(final boolean[] value) throws IOException {
 		writeVarInt(value.length);
-		int buffer = 0;
-		int bufferSize = 0;
-		for (final boolean b : value) {
-			if (b) {
-				buffer |= 0x01 << bufferSize;
-			}
-			if (++bufferSize == 8) {
-				writeByte(buffer);
-				buffer = 0;
-				bufferSize = 0;
+		final int size = (value.length + 7) >>> 3;
+		final byte[] bytes = getBuffer(size);
+		for (int i = 0; i < value.length; i++) {
+			if (value[i]) {
+				bytes[i >>> 3] |= 1 << (i & 7);
 			}
 		}
-		if (bufferSize > 0) {
-			writeByte(buffer);
+		write(bytes, 0, size);
+	}
+
+	/**
+	 * Writes a boolean array which is packed into 64 bit words. The written
+	 * data is identical to {@link #writeBooleanArray(boolean[])} for the
+	 * corresponding boolean array.
+	 *
+	 * @param words
+	 *            content of the boolean array where the value at index
+	 *            <code>i</code> is stored in bit <code>i % 64</code> of word
+	 *            <code>i / 64</code>
+	 * @param length
+	 *            length of the boolean array
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 * @see CompactDataInput#readPackedBooleanArray(int)
+	 */
+	public void writePackedBooleanArray(final long[] words, final int length)
+			throws IOException {
+		writeVarInt(length);
+		final int size = (length + 7) >>> 3;
+		final byte[] bytes = getBuffer(size);
+		for (int i = 0; i < size; i++) {
+			bytes[i] = (byte) (words[i >>> 3] >>> ((i & 7) << 3));
+		}
+		write(bytes, 0, size);
+	}
+
+	private byte[] getBuffer(final int size) {
+		if (buffer.length < size) {
+			buffer = new byte[size];
+		} else {
+			Arrays.fill(buffer, 0, size, (byte) 0);
 		}
+		return buffer;
 	}
 
 }
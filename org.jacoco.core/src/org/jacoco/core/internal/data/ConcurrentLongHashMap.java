@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Thread safe hash map with primitive <code>long</code> keys. Like
+ * {@link LongHashMap} keys and values are stored in parallel arrays, so
+ * lookups neither box keys nor allocate. Lookups do not block, insertions
+ * are serialized by a lock. <code>null</code> values are not supported and
+ * mappings can not be removed or replaced.
+ *
+ * @param <V>
+ *            type of the values
+ */
+public final class ConcurrentLongHashMap<V> {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * Table of keys and values. A value is set after its key, so a reader
+	 * which sees a value also sees its key. Tables are replaced when they
+	 * grow, readers of a replaced table still see all its mappings.
+	 */
+	private static final class Table {
+
+		final long[] keys;
+
+		final AtomicReferenceArray<Object> values;
+
+		final int threshold;
+
+		Table(final int capacity) {
+			keys = new long[capacity];
+			values = new AtomicReferenceArray<Object>(capacity);
+			threshold = capacity / 4 * 3;
+		}
+
+		int indexOf(final long key) {
+			final int mask = keys.length - 1;
+			int i = hash(key) & mask;
+			while (values.get(i) != null && keys[i] != key) {
+				i = (i + 1) & mask;
+			}
+			return i;
+		}
+
+	}
+
+	private volatile Table table;
+
+	private int size;
+
+	/**
+	 * Creates a new empty map.
+	 */
+	public ConcurrentLongHashMap() {
+		table = new Table(INITIAL_CAPACITY);
+	}
+
+	private static int hash(final long key) {
+		final int h = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Returns the value mapped to the given key. This method does not block.
+	 *
+	 * @param key
+	 *            key to look up
+	 * @return mapped value or <code>null</code> if there is no mapping
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(final long key) {
+		final Table t = table;
+		return (V) t.values.get(t.indexOf(key));
+	}
+
+	/**
+	 * Maps the given key to the given value unless the key is already mapped.
+	 *
+	 * @param key
+	 *            key of the mapping
+	 * @param value
+	 *            value of the mapping, must not be <code>null</code>
+	 * @return the existing value or <code>null</code> if the given value has
+	 *         been added
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized V putIfAbsent(final long key, final V value) {
+		Table t = table;
+		final int i = t.indexOf(key);
+		final Object existing = t.values.get(i);
+		if (existing != null) {
+			return (V) existing;
+		}
+		if (size + 1 > t.threshold) {
+			t = rehash(t);
+			insert(t, key, value);
+			table = t;
+		} else {
+			insert(t, key, value);
+		}
+		size++;
+		return null;
+	}
+
+	private static void insert(final Table t, final long key,
+			final Object value) {
+		final int i = t.indexOf(key);
+		t.keys[i] = key;
+		t.values.set(i, value);
+	}
+
+	private static Table rehash(final Table old) {
+		final Table t = new Table(old.keys.length * 2);
+		for (int j = 0; j < old.keys.length; j++) {
+			final Object value = old.values.get(j);
+			if (value != null) {
+				insert(t, old.keys[j], value);
+			}
+		}
+		return t;
+	}
+
+	/**
+	 * Returns the number of mappings in this map.
+	 *
+	 * @return number of mappings
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Adds all values of this map to the given collection. Values which are
+	 * added concurrently may or may not be included.
+	 *
+	 * @param target
+	 *            collection to add values to
+	 */
+	@SuppressWarnings("unchecked")
+	public void values(final Collection<? super V> target) {
+		final Table t = table;
+		for (int i = 0; i < t.keys.length; i++) {
+			final Object value = t.values.get(i);
+			if (value != null) {
+				target.add((V) value);
+			}
+		}
+	}
+
+}
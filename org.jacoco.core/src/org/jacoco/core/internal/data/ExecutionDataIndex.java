@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.jacoco.core.data.ExecutionDataWriter;
+
+/**
+ * Index of the execution data blocks of an indexed execution data file. In an
+ * indexed file all session info blocks are followed by execution data blocks
+ * in ascending order of class ids. The file ends with an index block which
+ * lists the class ids and the file offsets of all execution data blocks:
+ *
+ * <pre>
+ * BLOCK_INDEX
+ * varint   number of entries
+ * entries: long class id, long offset of the execution data block
+ * long     offset of the index block
+ * char     MAGIC_NUMBER
+ * </pre>
+ *
+ * The last ten bytes allow to locate the index without reading the complete
+ * file.
+ */
+public final class ExecutionDataIndex {
+
+	/** Length of the fixed size trailer at the end of an indexed file */
+	private static final int TRAILER_LENGTH = 10;
+
+	private long[] ids = new long[16];
+
+	private long[] offsets = new long[16];
+
+	private int size;
+
+	private long position = -1;
+
+	/**
+	 * Adds an execution data block to the index. Blocks must be added in
+	 * ascending order of their class ids.
+	 *
+	 * @param id
+	 *            class identifier
+	 * @param offset
+	 *            file offset of the execution data block
+	 * @throws IllegalStateException
+	 *             if the class id is not greater than the previous one
+	 */
+	public void add(final long id, final long offset)
+			throws IllegalStateException {
+		if (size > 0 && ids[size - 1] >= id) {
+			throw new IllegalStateException(format(
+					"Class id %016x is not in ascending order.",
+					Long.valueOf(id)));
+		}
+		if (size == ids.length) {
+			final long[] newIds = new long[size * 2];
+			System.arraycopy(ids, 0, newIds, 0, size);
+			ids = newIds;
+			final long[] newOffsets = new long[size * 2];
+			System.arraycopy(offsets, 0, newOffsets, 0, size);
+			offsets = newOffsets;
+		}
+		ids[size] = id;
+		offsets[size] = offset;
+		size++;
+	}
+
+	/**
+	 * @return number of execution data blocks
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param i
+	 *            index of the entry
+	 * @return class id of the given entry
+	 */
+	public long getId(final int i) {
+		return ids[i];
+	}
+
+	/**
+	 * @param i
+	 *            index of the entry
+	 * @return file offset of the execution data block of the given entry
+	 */
+	public long getOffset(final int i) {
+		return offsets[i];
+	}
+
+	/**
+	 * @param i
+	 *            index of the entry
+	 * @return length of the execution data block of the given entry in bytes
+	 */
+	public int getLength(final int i) {
+		final long end = i + 1 < size ? offsets[i + 1] : position;
+		return (int) (end - offsets[i]);
+	}
+
+	/**
+	 * @return file offset of the index block, the first execution data block
+	 *         or the index block ends the session infos
+	 */
+	public long getPosition() {
+		return position;
+	}
+
+	/**
+	 * Returns the entry for the given class id.
+	 *
+	 * @param id
+	 *            class identifier
+	 * @return index of the entry or <code>-1</code> if the class is not
+	 *         contained
+	 */
+	public int indexOf(final long id) {
+		int low = 0;
+		int high = size - 1;
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			final long midId = ids[mid];
+			if (midId < id) {
+				low = mid + 1;
+			} else if (midId > id) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Writes the index block.
+	 *
+	 * @param out
+	 *            output to write to
+	 * @param position
+	 *            file offset of the index block
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void write(final CompactDataOutput out, final long position)
+			throws IOException {
+		this.position = position;
+		out.writeByte(ExecutionDataWriter.BLOCK_INDEX);
+		out.writeVarInt(size);
+		for (int i = 0; i < size; i++) {
+			out.writeLong(ids[i]);
+			out.writeLong(offsets[i]);
+		}
+		out.writeLong(position);
+		out.writeChar(ExecutionDataWriter.MAGIC_NUMBER);
+	}
+
+	/**
+	 * Reads the index of the given file.
+	 *
+	 * @param channel
+	 *            channel of the file
+	 * @return index or <code>null</code> if the file is not indexed
+	 * @throws IOException
+	 *             if the file can not be read
+	 */
+	public static ExecutionDataIndex read(final FileChannel channel)
+			throws IOException {
+		final long fileSize = channel.size();
+		if (fileSize < 5 + TRAILER_LENGTH) {
+			return null;
+		}
+		final long position = readFully(channel, fileSize - TRAILER_LENGTH,
+				TRAILER_LENGTH).getLong(0);
+		if (!isValidPosition(position, fileSize)) {
+			return null;
+		}
+		return read(readFully(channel, position, (int) (fileSize - position)),
+				position);
+	}
+
+	/**
+	 * Reads the index of the given file content.
+	 *
+	 * @param file
+	 *            complete content of the file
+	 * @return index or <code>null</code> if the file is not indexed
+	 */
+	public static ExecutionDataIndex read(final ByteBuffer file) {
+		final int fileSize = file.limit();
+		if (fileSize < 5 + TRAILER_LENGTH) {
+			return null;
+		}
+		final long position = file.getLong(fileSize - TRAILER_LENGTH);
+		if (!isValidPosition(position, fileSize)) {
+			return null;
+		}
+		final ByteBuffer block = file.duplicate();
+		block.position((int) position);
+		return read(block.slice(), position);
+	}
+
+	private static boolean isValidPosition(final long position,
+			final long fileSize) {
+		return position >= 5 && position <= fileSize - TRAILER_LENGTH - 2
+				&& fileSize - position <= Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Parses the index block which extends to the end of the given buffer.
+	 */
+	private static ExecutionDataIndex read(final ByteBuffer block,
+			final long position) {
+		final int length = block.limit();
+		if (block.get(0) != ExecutionDataWriter.BLOCK_INDEX || block
+				.getChar(length - 2) != ExecutionDataWriter.MAGIC_NUMBER) {
+			return null;
+		}
+		int pos = 1;
+		long count = 0;
+		int shift = 0;
+		int b;
+		do {
+			if (pos >= length || shift > 28) {
+				return null;
+			}
+			b = 0xFF & block.get(pos++);
+			count |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		if (pos + 16 * count + TRAILER_LENGTH != length) {
+			return null;
+		}
+		final ExecutionDataIndex index = new ExecutionDataIndex();
+		long previous = 0;
+		for (int i = 0; i < count; i++, pos += 16) {
+			final long offset = block.getLong(pos + 8);
+			if (offset < previous || offset >= position) {
+				return null;
+			}
+			previous = offset;
+			try {
+				index.add(block.getLong(pos), offset);
+			} catch (final IllegalStateException e) {
+				return null;
+			}
+		}
+		index.position = position;
+		return index;
+	}
+
+	private static ByteBuffer readFully(final FileChannel channel,
+			final long position, final int length) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of file.");
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+}
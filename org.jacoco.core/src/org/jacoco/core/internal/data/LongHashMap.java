@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import java.util.Collection;
+
+/**
+ * Hash map with primitive <code>long</code> keys. The implementation uses open
+ * addressing with linear probing and stores keys and values in two parallel
+ * arrays, therefore lookups do not require boxing of keys or allocation of
+ * entry objects. <code>null</code> values are not supported and mappings can
+ * not be removed. An instance of this class is not thread safe.
+ *
+ * @param <V>
+ *            type of the values
+ */
+public final class LongHashMap<V> {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private long[] keys;
+
+	private Object[] values;
+
+	private int size;
+
+	private int threshold;
+
+	/**
+	 * Creates a new empty map.
+	 */
+	public LongHashMap() {
+		allocate(INITIAL_CAPACITY);
+	}
+
+	private void allocate(final int capacity) {
+		keys = new long[capacity];
+		values = new Object[capacity];
+		threshold = capacity / 4 * 3;
+	}
+
+	private static int hash(final long key) {
+		final int h = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private int indexOf(final long key) {
+		final int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		while (values[i] != null && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	/**
+	 * Returns the value mapped to the given key.
+	 *
+	 * @param key
+	 *            key to look up
+	 * @return mapped value or <code>null</code> if there is no mapping
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(final long key) {
+		return (V) values[indexOf(key)];
+	}
+
+	/**
+	 * Maps the given key to the given value. An existing mapping for the same
+	 * key is replaced.
+	 *
+	 * @param key
+	 *            key of the mapping
+	 * @param value
+	 *            value of the mapping, must not be <code>null</code>
+	 */
+	public void put(final long key, final V value) {
+		final int i = indexOf(key);
+		if (values[i] == null) {
+			keys[i] = key;
+			values[i] = value;
+			if (++size > threshold) {
+				rehash();
+			}
+		} else {
+			values[i] = value;
+		}
+	}
+
+	private void rehash() {
+		final long[] oldKeys = keys;
+		final Object[] oldValues = values;
+		allocate(oldKeys.length * 2);
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldValues[j] != null) {
+				final int i = indexOf(oldKeys[j]);
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of mappings in this map.
+	 *
+	 * @return number of mappings
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Adds all values of this map to the given collection.
+	 *
+	 * @param target
+	 *            collection to add values to
+	 */
+	@SuppressWarnings("unchecked")
+	public void values(final Collection<? super V> target) {
+		for (final Object value : values) {
+			if (value != null) {
+				target.add((V) value);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataWriter;
+
+/**
+ * Reader which adds execution data to a {@link PackedExecutionDataStore}
+ * without decoding probes into <code>boolean[]</code> arrays. Session
+ * information is reported to the session info visitor as usual.
+ */
+public class PackedExecutionDataReader extends ExecutionDataReader {
+
+	private final PackedExecutionDataStore store;
+
+	/**
+	 * Creates a new reader based on the given input stream.
+	 *
+	 * @param input
+	 *            input stream to read execution data from
+	 * @param store
+	 *            store to add execution data to
+	 */
+	public PackedExecutionDataReader(final InputStream input,
+			final PackedExecutionDataStore store) {
+		super(input);
+		this.store = store;
+	}
+
+	@Override
+	protected boolean readBlock(final byte blocktype) throws IOException {
+		if (blocktype == ExecutionDataWriter.BLOCK_EXECUTIONDATA
+				|| blocktype == ExecutionDataWriter.BLOCK_EXECUTIONCOUNTS) {
+			final long id = in.readLong();
+			final String name = in.readUTF();
+			final int length = in.readVarInt();
+			final long[] words = in.readPackedBooleanArray(length);
+			long[] counts = null;
+			if (blocktype == ExecutionDataWriter.BLOCK_EXECUTIONCOUNTS) {
+				counts = in.readVarLongArray();
+				if (counts.length != length) {
+					throw new IOException("Invalid execution counts.");
+				}
+			}
+			store.put(id, name, length, words, counts);
+			return true;
+		}
+		return super.readBlock(blocktype);
+	}
+
+}
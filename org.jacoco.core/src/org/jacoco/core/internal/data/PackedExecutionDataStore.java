@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.IExecutionDataVisitor;
+
+/**
+ * In-memory store for execution data where probes are packed into 64 bit
+ * words. Compared to {@link ExecutionDataStore} merging requires a bitwise
+ * <code>or</code> per 64 probes only and no <code>boolean[]</code> arrays are
+ * created while reading and writing execution data files. An instance of this
+ * class is not thread safe.
+ *
+ * @see PackedExecutionDataReader
+ * @see PackedExecutionDataWriter
+ */
+public final class PackedExecutionDataStore {
+
+	private final LongHashMap<Entry> entries = new LongHashMap<Entry>();
+
+	/**
+	 * Adds the given execution data to the store. If there is already
+	 * execution data with the same class id, the probes are merged.
+	 *
+	 * @param id
+	 *            class identifier
+	 * @param name
+	 *            VM name
+	 * @param length
+	 *            number of probes
+	 * @param words
+	 *            probes packed into 64 bit words
+	 * @param counts
+	 *            execution counts of the probes or <code>null</code>
+	 * @throws IllegalStateException
+	 *             if the given data is not compatible to existing data with the
+	 *             same class id
+	 * @see ExecutionData#assertCompatibility(long, String, int)
+	 */
+	public void put(final long id, final String name, final int length,
+			final long[] words, final long[] counts)
+			throws IllegalStateException {
+		final Entry entry = entries.get(id);
+		if (entry == null) {
+			entries.put(id, new Entry(id, name, length, words, counts));
+		} else {
+			entry.merge(name, length, words, counts);
+		}
+	}
+
+	/**
+	 * Adds a copy of the given execution data to the store. The probes are
+	 * packed into 64 bit words and execution counts are copied, so subsequent
+	 * modifications of the given execution data do not affect this store.
+	 *
+	 * @param data
+	 *            execution data to add
+	 * @throws IllegalStateException
+	 *             if the given data is not compatible to existing data with the
+	 *             same class id
+	 */
+	public void put(final ExecutionData data) throws IllegalStateException {
+		final boolean[] probes = data.getProbes();
+		final long[] words = new long[(probes.length + 63) >>> 6];
+		for (int i = 0; i < probes.length; i++) {
+			if (probes[i]) {
+				words[i >>> 6] |= 1L << i;
+			}
+		}
+		final long[] counts = data.getCounts();
+		put(data.getId(), data.getName(), probes.length, words,
+				counts == null ? null : counts.clone());
+	}
+
+	/**
+	 * Returns the number of classes in this store.
+	 *
+	 * @return number of classes
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Writes the content of the store to the given writer.
+	 *
+	 * @param writer
+	 *            writer to write content to
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void accept(final PackedExecutionDataWriter writer)
+			throws IOException {
+		for (final Entry entry : getEntries()) {
+			writer.visitPackedClassExecution(entry.id, entry.name,
+					entry.length, entry.words, entry.counts);
+		}
+	}
+
+	/**
+	 * Writes the content of the store to the given visitor. For every class a
+	 * new {@link ExecutionData} instance is created.
+	 *
+	 * @param visitor
+	 *            visitor to write content to
+	 */
+	public void accept(final IExecutionDataVisitor visitor) {
+		for (final Entry entry : getEntries()) {
+			final boolean[] probes = new boolean[entry.length];
+			for (int i = 0; i < probes.length; i++) {
+				probes[i] = (entry.words[i >>> 6] & (1L << i)) != 0;
+			}
+			visitor.visitClassExecution(new ExecutionData(entry.id,
+					entry.name, probes, entry.counts));
+		}
+	}
+
+	private Collection<Entry> getEntries() {
+		final Collection<Entry> contents = new ArrayList<Entry>(
+				entries.size());
+		entries.values(contents);
+		return contents;
+	}
+
+	private static class Entry {
+
+		final long id;
+
+		final String name;
+
+		final int length;
+
+		final long[] words;
+
+		long[] counts;
+
+		Entry(final long id, final String name, final int length,
+				final long[] words, final long[] counts) {
+			this.id = id;
+			this.name = name;
+			this.length = length;
+			this.words = words;
+			this.counts = counts;
+		}
+
+		void merge(final String otherName, final int otherLength,
+				final long[] otherWords, final long[] otherCounts) {
+			if (!name.equals(otherName)) {
+				throw new IllegalStateException(
+						format("Different class names %s and %s for id %016x.",
+								name, otherName, Long.valueOf(id)));
+			}
+			if (length != otherLength) {
+				throw new IllegalStateException(format(
+						"Incompatible execution data for class %s with id %016x.",
+						otherName, Long.valueOf(id)));
+			}
+			for (int i = 0; i < words.length; i++) {
+				words[i] |= otherWords[i];
+			}
+			if (otherCounts != null) {
+				if (counts == null) {
+					counts = new long[length];
+				}
+				for (int i = 0; i < length; i++) {
+					counts[i] += otherCounts[i];
+				}
+			}
+		}
+
+	}
+
+}
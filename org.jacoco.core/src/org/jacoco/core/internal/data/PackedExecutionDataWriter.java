@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+
+/**
+ * Writer which additionally supports execution data where probes are packed
+ * into 64 bit words. The written format is identical to
+ * {@link ExecutionDataWriter}. Optionally an indexed file is written, see
+ * {@link ExecutionDataIndex}. In this case all session infos have to be
+ * written first and execution data has to be written in ascending order of
+ * class ids.
+ */
+public class PackedExecutionDataWriter extends ExecutionDataWriter {
+
+	private final ExecutionDataIndex index;
+
+	/**
+	 * Creates a new writer based on the given output stream.
+	 *
+	 * @param output
+	 *            binary stream to write execution data to
+	 * @throws IOException
+	 *             if the header can't be written
+	 */
+	public PackedExecutionDataWriter(final OutputStream output)
+			throws IOException {
+		this(output, false);
+	}
+
+	/**
+	 * Creates a new writer based on the given output stream.
+	 *
+	 * @param output
+	 *            binary stream to write execution data to
+	 * @param indexed
+	 *            if <code>true</code> an indexed file is written which has to
+	 *            be completed with {@link #writeIndex()}
+	 * @throws IOException
+	 *             if the header can't be written
+	 */
+	public PackedExecutionDataWriter(final OutputStream output,
+			final boolean indexed) throws IOException {
+		super(output);
+		this.index = indexed ? new ExecutionDataIndex() : null;
+		if (indexed) {
+			// The header must precede all blocks which are indexed
+			writeExtendedHeader();
+		}
+	}
+
+	@Override
+	public void visitSessionInfo(final SessionInfo info) {
+		if (index != null && index.size() > 0) {
+			throw new IllegalStateException(
+					"Session infos must be written before execution data.");
+		}
+		super.visitSessionInfo(info);
+	}
+
+	@Override
+	public void visitClassExecution(final ExecutionData data) {
+		if (index != null && data.hasHits()) {
+			index.add(data.getId(), out.size());
+		}
+		super.visitClassExecution(data);
+	}
+
+	/**
+	 * Writes execution data of a single class. Nothing is written if no probe
+	 * is set.
+	 *
+	 * @param id
+	 *            class identifier
+	 * @param name
+	 *            VM name
+	 * @param length
+	 *            number of probes
+	 * @param words
+	 *            probes packed into 64 bit words
+	 * @param counts
+	 *            execution counts of the probes or <code>null</code>
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void visitPackedClassExecution(final long id, final String name,
+			final int length, final long[] words, final long[] counts)
+			throws IOException {
+		if (hasHits(words)) {
+			if (counts != null) {
+				writeExtendedHeader();
+			}
+			if (index != null) {
+				index.add(id, out.size());
+			}
+			out.writeByte(counts == null ? BLOCK_EXECUTIONDATA
+					: BLOCK_EXECUTIONCOUNTS);
+			out.writeLong(id);
+			out.writeUTF(name);
+			out.writePackedBooleanArray(words, length);
+			if (counts != null) {
+				out.writeVarLongArray(counts);
+			}
+		}
+	}
+
+	/**
+	 * Completes an indexed file by writing the index block. Does nothing if
+	 * this writer does not create an indexed file.
+	 *
+	 * @throws IOException
+	 *             if thrown by the underlying stream or if the file exceeds
+	 *             the maximum size of indexed files
+	 */
+	public void writeIndex() throws IOException {
+		if (index != null) {
+			final int position = out.size();
+			if (position == Integer.MAX_VALUE) {
+				throw new IOException(
+						"Execution data too large for indexed file.");
+			}
+			index.write(out, position);
+		}
+	}
+
+	private static boolean hasHits(final long[] words) {
+		for (final long w : words) {
+			if (w != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
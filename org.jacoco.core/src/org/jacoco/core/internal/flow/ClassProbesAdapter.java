@@ -12,10 +12,13 @@
  *******************************************************************************/
 package org.jacoco.core.internal.flow;
 
+import org.jacoco.core.instr.Granularity;
 import org.jacoco.core.internal.instr.InstrSupport;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.commons.AnalyzerAdapter;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.MethodNode;
 
 /**
  * A {@link org.objectweb.asm.ClassVisitor} that calculates probes for every
@@ -31,6 +34,10 @@ public class ClassProbesAdapter extends ClassVisitor
 
 	private final boolean trackFrames;
 
+	private final Granularity granularity;
+
+	private final boolean implications;
+
 	private int counter = 0;
 
 	private String name;
@@ -45,9 +52,50 @@ public class ClassProbesAdapter extends ClassVisitor
 	 */
 	public ClassProbesAdapter(final ClassProbesVisitor cv,
 			final boolean trackFrames) {
+		this(cv, trackFrames, Granularity.BRANCH, false);
+	}
+
+	/**
+	 * Creates a new adapter that delegates to the given visitor and calculates
+	 * probes with the given granularity.
+	 *
+	 * @param cv
+	 *            instance to delegate to
+	 * @param trackFrames
+	 *            if <code>true</code> stackmap frames are tracked and provided,
+	 *            only applies to {@link Granularity#BRANCH}
+	 * @param granularity
+	 *            granularity of the probes
+	 */
+	public ClassProbesAdapter(final ClassProbesVisitor cv,
+			final boolean trackFrames, final Granularity granularity) {
+		this(cv, trackFrames, granularity, false);
+	}
+
+	/**
+	 * Creates a new adapter that delegates to the given visitor and calculates
+	 * probes with the given granularity.
+	 *
+	 * @param cv
+	 *            instance to delegate to
+	 * @param trackFrames
+	 *            if <code>true</code> stackmap frames are tracked and provided,
+	 *            only applies to {@link Granularity#BRANCH}
+	 * @param granularity
+	 *            granularity of the probes
+	 * @param implications
+	 *            if <code>true</code> the implications between the probes of
+	 *            every method are calculated and provided, only applies to
+	 *            {@link Granularity#BRANCH}
+	 */
+	public ClassProbesAdapter(final ClassProbesVisitor cv,
+			final boolean trackFrames, final Granularity granularity,
+			final boolean implications) {
 		super(InstrSupport.ASM_API_VERSION, cv);
 		this.cv = cv;
 		this.trackFrames = trackFrames;
+		this.granularity = granularity;
+		this.implications = implications;
 	}
 
 	@Override
@@ -78,7 +126,21 @@ public class ClassProbesAdapter extends ClassVisitor
 			@Override
 			public void visitEnd() {
 				super.visitEnd();
+				if (granularity != Granularity.BRANCH) {
+					final boolean lines = granularity == Granularity.LINE
+							&& hasLineNumbers(this);
+					final boolean entry = !lines && instructions.size() > 0;
+					methodProbes.accept(this, new CoarseMethodProbesAdapter(
+							methodProbes, ClassProbesAdapter.this, entry,
+							lines));
+					return;
+				}
 				LabelFlowAnalyzer.markLabels(this);
+				if (implications
+						&& methodProbes != EMPTY_METHOD_PROBES_VISITOR) {
+					methodProbes.visitProbeImplications(
+							ProbeImplications.calculate(this, counter));
+				}
 				final MethodProbesAdapter probesAdapter = new MethodProbesAdapter(
 						methodProbes, ClassProbesAdapter.this);
 				if (trackFrames) {
@@ -94,6 +156,15 @@ public class ClassProbesAdapter extends ClassVisitor
 		};
 	}
 
+	private static boolean hasLineNumbers(final MethodNode method) {
+		for (final AbstractInsnNode i : method.instructions) {
+			if (i.getType() == AbstractInsnNode.LINE) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public void visitEnd() {
 		cv.visitTotalProbeCount(counter);
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.flow;
+
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+/**
+ * Adapter that creates probe events for coarse grained instrumentation: A
+ * probe is emitted at the entry of the method or directly before the first
+ * instruction following every line number. As these probes do not depend on
+ * the control flow no frames are required and all instructions are emitted
+ * without probes.
+ */
+public final class CoarseMethodProbesAdapter extends MethodVisitor {
+
+	private final MethodProbesVisitor probesVisitor;
+
+	private final IProbeIdGenerator idGenerator;
+
+	private final boolean entry;
+
+	private final boolean lines;
+
+	private boolean pending;
+
+	/**
+	 * Create a new adapter instance.
+	 *
+	 * @param probesVisitor
+	 *            visitor to delegate to
+	 * @param idGenerator
+	 *            generator for unique probe ids
+	 * @param entry
+	 *            if <code>true</code> a probe is emitted at the method entry,
+	 *            must only be set for methods with code
+	 * @param lines
+	 *            if <code>true</code> a probe is emitted for every line number
+	 */
+	public CoarseMethodProbesAdapter(final MethodProbesVisitor probesVisitor,
+			final IProbeIdGenerator idGenerator, final boolean entry,
+			final boolean lines) {
+		super(InstrSupport.ASM_API_VERSION, probesVisitor);
+		this.probesVisitor = probesVisitor;
+		this.idGenerator = idGenerator;
+		this.entry = entry;
+		this.lines = lines;
+	}
+
+	@Override
+	public void visitCode() {
+		super.visitCode();
+		if (entry) {
+			probesVisitor.visitProbe(idGenerator.nextId());
+		}
+	}
+
+	@Override
+	public void visitLineNumber(final int line, final Label start) {
+		super.visitLineNumber(line, start);
+		if (lines) {
+			pending = true;
+		}
+	}
+
+	private void probe() {
+		if (pending) {
+			probesVisitor.visitProbe(idGenerator.nextId());
+			pending = false;
+		}
+	}
+
+	@Override
+	public void visitInsn(final int opcode) {
+		probe();
+		super.visitInsn(opcode);
+	}
+
+	@Override
+	public void visitIntInsn(final int opcode, final int operand) {
+		probe();
+		super.visitIntInsn(opcode, operand);
+	}
+
+	@Override
+	public void visitVarInsn(final int opcode, final int var) {
+		probe();
+		super.visitVarInsn(opcode, var);
+	}
+
+	@Override
+	public void visitTypeInsn(final int opcode, final String type) {
+		probe();
+		super.visitTypeInsn(opcode, type);
+	}
+
+	@Override
+	public void visitFieldInsn(final int opcode, final String owner,
+			final String name, final String desc) {
+		probe();
+		super.visitFieldInsn(opcode, owner, name, desc);
+	}
+
+	@Override
+	public void visitMethodInsn(final int opcode, final String owner,
+			final String name, final String desc, final boolean itf) {
+		probe();
+		super.visitMethodInsn(opcode, owner, name, desc, itf);
+	}
+
+	@Override
+	public void visitInvokeDynamicInsn(final String name, final String desc,
+			final Handle bsm, final Object... bsmArgs) {
+		probe();
+		super.visitInvokeDynamicInsn(name, desc, bsm, bsmArgs);
+	}
+
+	@Override
+	public void visitJumpInsn(final int opcode, final Label label) {
+		probe();
+		super.visitJumpInsn(opcode, label);
+	}
+
+	@Override
+	public void visitLdcInsn(final Object cst) {
+		probe();
+		super.visitLdcInsn(cst);
+	}
+
+	@Override
+	public void visitIincInsn(final int var, final int increment) {
+		probe();
+		super.visitIincInsn(var, increment);
+	}
+
+	@Override
+	public void visitTableSwitchInsn(final int min, final int max,
+			final Label dflt, final Label... labels) {
+		probe();
+		super.visitTableSwitchInsn(min, max, dflt, labels);
+	}
+
+	@Override
+	public void visitLookupSwitchInsn(final Label dflt, final int[] keys,
+			final Label[] labels) {
+		probe();
+		super.visitLookupSwitchInsn(dflt, keys, labels);
+	}
+
+	@Override
+	public void visitMultiANewArrayInsn(final String desc, final int dims) {
+		probe();
+		super.visitMultiANewArrayInsn(desc, dims);
+	}
+
+}
@@ -12,7 +12,6 @@
  *******************************************************************************/
 package org.jacoco.core.internal.flow;
 
-import org.jacoco.core.internal.analysis.Instruction;
 import org.objectweb.asm.Label;
 
 /**
@@ -27,6 +26,11 @@ public final class LabelInfo {
 	 */
 	public static final int NO_PROBE = -1;
 
+	/**
+	 * Reserved index for "no instruction".
+	 */
+	public static final int NO_INSTRUCTION = -1;
+
 	private boolean target = false;
 
 	private boolean multiTarget = false;
@@ -41,7 +45,7 @@ public final class LabelInfo {
 
 	private Label intermediate = null;
 
-	private Instruction instruction = null;
+	private int instruction = NO_INSTRUCTION;
 
 	// instances are only created within this class
 	private LabelInfo() {
@@ -245,29 +249,30 @@ public final class LabelInfo {
 	}
 
 	/**
-	 * Sets the instruction corresponding to this label.
+	 * Sets the index of the instruction corresponding to this label.
 	 *
 	 * @param label
 	 *            label to set the instruction for
 	 * @param instruction
-	 *            corresponding instruction
+	 *            index of the corresponding instruction
 	 */
 	public static void setInstruction(final Label label,
-			final Instruction instruction) {
+			final int instruction) {
 		create(label).instruction = instruction;
 	}
 
 	/**
-	 * Returns the corresponding instruction for the given label if one has been
-	 * defined.
+	 * Returns the index of the corresponding instruction for the given label
+	 * if one has been defined.
 	 *
 	 * @param label
 	 *            label to look for
-	 * @return corresponding instruction or <code>null</code>
+	 * @return index of the corresponding instruction or
+	 *         {@link #NO_INSTRUCTION}
 	 */
-	public static Instruction getInstruction(final Label label) {
+	public static int getInstruction(final Label label) {
 		final LabelInfo info = get(label);
-		return info == null ? null : info.instruction;
+		return info == null ? NO_INSTRUCTION : info.instruction;
 	}
 
 	private static LabelInfo get(final Label label) {
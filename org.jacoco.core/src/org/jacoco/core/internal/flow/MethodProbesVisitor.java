@@ -149,6 +149,19 @@ public abstract class MethodProbesVisitor extends MethodVisitor {
 			final int[] keys, final Label[] labels, final IFrame frame) {
 	}
 
+	/**
+	 * Visits the implications between the probes of this method. This event is
+	 * only emitted if requested from the {@link ClassProbesAdapter} and always
+	 * before the instructions of the method are visited.
+	 *
+	 * @param implications
+	 *            implications between the probes of this method
+	 */
+	@SuppressWarnings("unused")
+	public void visitProbeImplications(
+			final ProbeImplications implications) {
+	}
+
 	/**
 	 * This method can be overwritten to hook into the process of emitting the
 	 * instructions of this method as <code>visitX()</code> events.
@@ -29,10 +29,27 @@ import org.objectweb.asm.commons.JSRInlinerAdapter;
  * labels with ASM class files do not verify any more.</li>
  * </ul>
  */
-class MethodSanitizer extends JSRInlinerAdapter {
+public class MethodSanitizer extends JSRInlinerAdapter {
 
-	MethodSanitizer(final MethodVisitor mv, final int access, final String name,
-			final String desc, final String signature,
+	/**
+	 * Creates a new sanitizer for the given method.
+	 *
+	 * @param mv
+	 *            visitor the sanitized method is passed to or
+	 *            <code>null</code>
+	 * @param access
+	 *            access flags of the method
+	 * @param name
+	 *            name of the method
+	 * @param desc
+	 *            descriptor of the method
+	 * @param signature
+	 *            signature of the method or <code>null</code>
+	 * @param exceptions
+	 *            internal names of the exception classes or <code>null</code>
+	 */
+	public MethodSanitizer(final MethodVisitor mv, final int access,
+			final String name, final String desc, final String signature,
 			final String[] exceptions) {
 		super(InstrSupport.ASM_API_VERSION, mv, access, name, desc, signature,
 				exceptions);
@@ -0,0 +1,757 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.flow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TryCatchBlockNode;
+
+/**
+ * Implications between the probes of a method derived from its control flow
+ * graph:
+ *
+ * <ul>
+ * <li>If a probe dominates another probe, i.e. every path from the method entry
+ * to the latter passes the former, the execution of the latter implies the
+ * execution of the former.</li>
+ * <li>If every path to a probe starts at one of certain other probes and
+ * continues without branches and without instructions which may throw
+ * exceptions, the execution of any of these probes implies the execution of
+ * the probe.</li>
+ * </ul>
+ *
+ * A probe is redundant if its execution can be reconstructed from the other
+ * probes of every method invocation which does not terminate with an exception.
+ * Redundant probes can be omitted from instrumented code, the analysis infers
+ * their state from the other probes.
+ */
+public final class ProbeImplications {
+
+	private final int first;
+
+	/** for every probe the probes implied by its execution */
+	private final int[][] implied;
+
+	private final boolean[] redundant;
+
+	private ProbeImplications(final int first, final int[][] implied,
+			final boolean[] redundant) {
+		this.first = first;
+		this.implied = implied;
+		this.redundant = redundant;
+	}
+
+	/**
+	 * Calculates the implications between the probes of the given method.
+	 * Labels of the method must already be marked with
+	 * {@link LabelFlowAnalyzer#markLabels(MethodNode)}.
+	 *
+	 * @param method
+	 *            method to calculate implications for
+	 * @param firstProbeId
+	 *            id of the first probe of the method
+	 * @return implications between the probes of the method
+	 */
+	public static ProbeImplications calculate(final MethodNode method,
+			final int firstProbeId) {
+		final GraphBuilder builder = new GraphBuilder(firstProbeId);
+		final MethodProbesAdapter adapter = new MethodProbesAdapter(builder,
+				builder);
+		// MethodNode.accept() must not be used here as a subsequent call would
+		// reset the labels and therefore their LabelInfo
+		for (final TryCatchBlockNode t : method.tryCatchBlocks) {
+			t.accept(adapter);
+		}
+		method.instructions.accept(adapter);
+		final List<Node> nodes = builder.build();
+
+		final int count = builder.nextId - firstProbeId;
+		final List<List<Integer>> implied = new ArrayList<List<Integer>>(
+				count);
+		for (int i = 0; i < count; i++) {
+			implied.add(new ArrayList<Integer>(1));
+		}
+		final boolean[] redundant = new boolean[count];
+		if (!nodes.isEmpty()) {
+			calculateDominators(nodes);
+			addDominatorImplications(nodes, implied, firstProbeId);
+			addFlowImplications(nodes, implied, redundant, firstProbeId);
+			markDominatingProbes(nodes, redundant, firstProbeId);
+		}
+
+		final int[][] impliedArray = new int[count][];
+		for (int i = 0; i < count; i++) {
+			final List<Integer> list = implied.get(i);
+			impliedArray[i] = new int[list.size()];
+			for (int j = 0; j < impliedArray[i].length; j++) {
+				impliedArray[i][j] = list.get(j).intValue();
+			}
+		}
+		return new ProbeImplications(firstProbeId, impliedArray, redundant);
+	}
+
+	/**
+	 * Creates implications from their serialized form as returned by
+	 * {@link #getFirstProbeId()} and {@link #getImplied()}. The resulting
+	 * instance can only be used to infer probes, no probe is redundant.
+	 *
+	 * @param firstProbeId
+	 *            id of the first probe of the method
+	 * @param implied
+	 *            for every probe of the method the probes implied by its
+	 *            execution, relative to the first probe
+	 * @return implications between the probes of the method
+	 */
+	public static ProbeImplications create(final int firstProbeId,
+			final int[][] implied) {
+		return new ProbeImplications(firstProbeId, implied,
+				new boolean[implied.length]);
+	}
+
+	/**
+	 * Returns the id of the first probe of the method.
+	 *
+	 * @return id of the first probe
+	 */
+	public int getFirstProbeId() {
+		return first;
+	}
+
+	/**
+	 * Returns for every probe of the method the probes implied by its
+	 * execution, relative to the first probe. The returned array must not be
+	 * modified.
+	 *
+	 * @return implied probes
+	 */
+	public int[][] getImplied() {
+		return implied;
+	}
+
+	/**
+	 * Checks whether the given probe of this method is redundant and can be
+	 * omitted.
+	 *
+	 * @param probeId
+	 *            id of a probe of this method
+	 * @return <code>true</code> if the probe is redundant
+	 */
+	public boolean isRedundant(final int probeId) {
+		return redundant[probeId - first];
+	}
+
+	/**
+	 * Infers the state of all probes of this method which are implied by
+	 * executed probes.
+	 *
+	 * @param probes
+	 *            probe array of the class, will not be modified
+	 * @return the given array if no additional probe is implied, a modified
+	 *         copy otherwise
+	 */
+	public boolean[] infer(final boolean[] probes) {
+		boolean[] result = probes;
+		final int[] stack = new int[implied.length];
+		int size = 0;
+		for (int i = 0; i < implied.length; i++) {
+			if (probes[first + i]) {
+				stack[size++] = i;
+			}
+		}
+		while (size > 0) {
+			for (final int j : implied[stack[--size]]) {
+				if (!result[first + j]) {
+					if (result == probes) {
+						result = new boolean[probes.length];
+						System.arraycopy(probes, 0, result, 0, probes.length);
+					}
+					result[first + j] = true;
+					stack[size++] = j;
+				}
+			}
+		}
+		return result;
+	}
+
+	private static void calculateDominators(final List<Node> nodes) {
+		final Node entry = nodes.get(0);
+		final List<Node> order = reversePostOrder(entry);
+
+		// Cooper, Harvey, Kennedy: A Simple, Fast Dominance Algorithm
+		entry.idom = entry;
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int i = 1; i < order.size(); i++) {
+				final Node node = order.get(i);
+				Node idom = null;
+				for (final Node p : node.predecessors) {
+					if (p.idom != null) {
+						idom = idom == null ? p : intersect(p, idom);
+					}
+				}
+				if (idom != node.idom) {
+					node.idom = idom;
+					changed = true;
+				}
+			}
+		}
+
+		// Dominators precede the nodes they dominate in reverse post order:
+		for (final Node node : order) {
+			if (node != entry) {
+				node.idom.children.add(node);
+			}
+			final Node dominator = node == entry ? null : node.idom.probe;
+			node.probe = node.probeId == LabelInfo.NO_PROBE ? dominator
+					: node;
+			node.parent = node.probeId == LabelInfo.NO_PROBE ? null
+					: dominator;
+		}
+		numberDominatorTree(entry);
+	}
+
+	private static List<Node> reversePostOrder(final Node entry) {
+		final List<Node> order = new ArrayList<Node>();
+		final List<Node> stack = new ArrayList<Node>();
+		entry.visited = true;
+		stack.add(entry);
+		while (!stack.isEmpty()) {
+			final Node node = stack.get(stack.size() - 1);
+			if (node.next < node.successors.size()) {
+				final Node s = node.successors.get(node.next++);
+				if (!s.visited) {
+					s.visited = true;
+					stack.add(s);
+				}
+			} else {
+				stack.remove(stack.size() - 1);
+				order.add(node);
+			}
+		}
+		Collections.reverse(order);
+		for (int i = 0; i < order.size(); i++) {
+			order.get(i).order = i;
+		}
+		return order;
+	}
+
+	private static Node intersect(Node a, Node b) {
+		while (a != b) {
+			while (a.order > b.order) {
+				a = a.idom;
+			}
+			while (b.order > a.order) {
+				b = b.idom;
+			}
+		}
+		return a;
+	}
+
+	private static void numberDominatorTree(final Node entry) {
+		final List<Node> stack = new ArrayList<Node>();
+		int counter = 0;
+		entry.pre = counter++;
+		stack.add(entry);
+		while (!stack.isEmpty()) {
+			final Node node = stack.get(stack.size() - 1);
+			if (node.next2 < node.children.size()) {
+				final Node child = node.children.get(node.next2++);
+				child.pre = counter++;
+				stack.add(child);
+			} else {
+				stack.remove(stack.size() - 1);
+				node.post = counter++;
+			}
+		}
+	}
+
+	private static boolean dominates(final Node a, final Node b) {
+		return a.pre <= b.pre && b.post <= a.post;
+	}
+
+	private static void addDominatorImplications(final List<Node> nodes,
+			final List<List<Integer>> implied, final int first) {
+		for (final Node node : nodes) {
+			if (node.parent != null) {
+				implied.get(node.probeId - first)
+						.add(Integer.valueOf(node.parent.probeId - first));
+			}
+		}
+	}
+
+	/**
+	 * Adds implications for probes which are always reached from other probes
+	 * by straight code which can not throw exceptions. Such probes are marked
+	 * redundant unless one of the implying probes has already been marked.
+	 */
+	private static void addFlowImplications(final List<Node> nodes,
+			final List<List<Integer>> implied, final boolean[] redundant,
+			final int first) {
+		int stamp = 0;
+		for (final Node node : nodes) {
+			if (node.probeId == LabelInfo.NO_PROBE || node.order == -1) {
+				continue;
+			}
+			final List<Node> sources = findSources(node, nodes.get(0),
+					++stamp);
+			if (sources == null) {
+				continue;
+			}
+			boolean implyingRedundant = false;
+			for (final Node source : sources) {
+				implied.get(source.probeId - first)
+						.add(Integer.valueOf(node.probeId - first));
+				implyingRedundant |= redundant[source.probeId - first];
+			}
+			if (!implyingRedundant) {
+				redundant[node.probeId - first] = true;
+				node.flowRedundant = true;
+			}
+		}
+	}
+
+	/**
+	 * Finds the probes which precede every path to the given probe. Returns
+	 * <code>null</code> if not all of these paths are straight code without
+	 * exceptions.
+	 */
+	private static List<Node> findSources(final Node probe, final Node entry,
+			final int stamp) {
+		final List<Node> sources = new ArrayList<Node>();
+		final List<Node> queue = new ArrayList<Node>();
+		probe.mark = stamp;
+		queue.add(probe);
+		while (!queue.isEmpty()) {
+			final Node node = queue.remove(queue.size() - 1);
+			for (final Node p : node.predecessors) {
+				if (p.mark == stamp) {
+					if (p == probe) {
+						return null;
+					}
+					continue;
+				}
+				p.mark = stamp;
+				if (p.probeId != LabelInfo.NO_PROBE) {
+					if (!isStraight(p, probe)) {
+						return null;
+					}
+					sources.add(p);
+				} else if (p == entry) {
+					return null;
+				} else {
+					queue.add(p);
+				}
+			}
+		}
+		return sources.isEmpty() ? null : sources;
+	}
+
+	private static boolean isStraight(Node from, final Node to) {
+		while (from.successors.size() == 1) {
+			from = from.successors.get(0);
+			if (from == to) {
+				return true;
+			}
+			if (from.probeId != LabelInfo.NO_PROBE || from.mayThrow) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Marks probes redundant if every path from the probe reaches dominated
+	 * probes. Probes which are redundant by flow implications can not be used
+	 * here, as they might be implied by the probe itself. Probes at lines
+	 * following method invocations are kept, as they are inserted to track
+	 * execution before exceptions.
+	 */
+	private static void markDominatingProbes(final List<Node> nodes,
+			final boolean[] redundant, final int first) {
+		int stamp = -1;
+		for (final Node node : nodes) {
+			if (node.probeId == LabelInfo.NO_PROBE || node.order == -1
+					|| node.flowRedundant || node.invocationLine) {
+				continue;
+			}
+			if (reachesDominatedProbes(node, --stamp)) {
+				redundant[node.probeId - first] = true;
+			}
+		}
+	}
+
+	private static boolean reachesDominatedProbes(final Node probe,
+			final int stamp) {
+		boolean found = false;
+		final List<Node> queue = new ArrayList<Node>();
+		probe.mark = stamp;
+		queue.add(probe);
+		while (!queue.isEmpty()) {
+			final Node node = queue.remove(queue.size() - 1);
+			if (node != probe && node.probeId != LabelInfo.NO_PROBE
+					&& !node.flowRedundant) {
+				if (!dominates(probe, node)) {
+					return false;
+				}
+				found = true;
+				continue;
+			}
+			if (node.successors.isEmpty()) {
+				return false;
+			}
+			for (final Node s : node.successors) {
+				if (s == probe) {
+					continue;
+				}
+				if (s.mark != stamp) {
+					s.mark = stamp;
+					queue.add(s);
+				}
+			}
+		}
+		return found;
+	}
+
+	private static final class Node {
+
+		final int probeId;
+
+		final boolean mayThrow;
+
+		final List<Node> successors = new ArrayList<Node>(2);
+
+		final List<Node> predecessors = new ArrayList<Node>(2);
+
+		final List<Node> children = new ArrayList<Node>(2);
+
+		/** position in reverse post order, -1 if unreachable */
+		int order = -1;
+
+		Node idom;
+
+		/** nearest probe dominating this node including the node itself */
+		Node probe;
+
+		/** nearest probe strictly dominating this probe */
+		Node parent;
+
+		/** position within the dominator tree */
+		int pre, post;
+
+		boolean flowRedundant;
+
+		/** probe at the start of a line following a method invocation */
+		boolean invocationLine;
+
+		boolean visited;
+
+		int next, next2, mark;
+
+		Node(final int probeId, final boolean mayThrow) {
+			this.probeId = probeId;
+			this.mayThrow = mayThrow;
+		}
+
+		void addSuccessor(final Node successor) {
+			successors.add(successor);
+			successor.predecessors.add(this);
+		}
+
+	}
+
+	/**
+	 * Builds the control flow graph of a method from probe events. Besides
+	 * instructions the probes are nodes of the graph.
+	 */
+	private static final class GraphBuilder extends MethodProbesVisitor
+			implements IProbeIdGenerator {
+
+		private final List<Node> nodes = new ArrayList<Node>();
+
+		private final List<Label> pendingLabels = new ArrayList<Label>();
+
+		private final Map<Label, Node> labelNodes = new HashMap<Label, Node>();
+
+		private final Map<Label, Integer> labelPositions = new HashMap<Label, Integer>();
+
+		private final List<Node> jumpSources = new ArrayList<Node>();
+
+		private final List<Label> jumpTargets = new ArrayList<Label>();
+
+		private final List<Label> tryCatchLabels = new ArrayList<Label>();
+
+		private Node previous;
+
+		int nextId;
+
+		GraphBuilder(final int firstProbeId) {
+			this.nextId = firstProbeId;
+		}
+
+		public int nextId() {
+			return nextId++;
+		}
+
+		List<Node> build() {
+			for (int i = 0; i < jumpSources.size(); i++) {
+				final Node target = labelNodes.get(jumpTargets.get(i));
+				if (target != null) {
+					jumpSources.get(i).addSuccessor(target);
+				}
+			}
+			for (int i = 0; i < tryCatchLabels.size(); i += 3) {
+				final Integer start = labelPositions
+						.get(tryCatchLabels.get(i));
+				final Integer end = labelPositions
+						.get(tryCatchLabels.get(i + 1));
+				final Node handler = labelNodes.get(tryCatchLabels.get(i + 2));
+				if (start == null || end == null || handler == null) {
+					continue;
+				}
+				for (int j = start.intValue(); j < end.intValue(); j++) {
+					final Node node = nodes.get(j);
+					if (node.mayThrow) {
+						node.addSuccessor(handler);
+					}
+				}
+			}
+			return nodes;
+		}
+
+		private Node node(final int probeId, final boolean mayThrow) {
+			final Node node = new Node(probeId, mayThrow);
+			nodes.add(node);
+			if (previous != null) {
+				previous.addSuccessor(node);
+			}
+			for (final Label label : pendingLabels) {
+				labelNodes.put(label, node);
+			}
+			pendingLabels.clear();
+			previous = node;
+			return node;
+		}
+
+		private Node probeNode(final Node source, final int probeId,
+				final Label target) {
+			final Node node = new Node(probeId, false);
+			nodes.add(node);
+			source.addSuccessor(node);
+			jump(node, target);
+			return node;
+		}
+
+		private void jump(final Node source, final Label target) {
+			jumpSources.add(source);
+			jumpTargets.add(target);
+		}
+
+		@Override
+		public void visitTryCatchBlock(final Label start, final Label end,
+				final Label handler, final String type) {
+			tryCatchLabels.add(start);
+			tryCatchLabels.add(end);
+			tryCatchLabels.add(handler);
+		}
+
+		@Override
+		public void visitLabel(final Label label) {
+			if (previous != null && previous.probeId != LabelInfo.NO_PROBE
+					&& LabelInfo.isMethodInvocationLine(label)) {
+				previous.invocationLine = true;
+			}
+			pendingLabels.add(label);
+			labelPositions.put(label, Integer.valueOf(nodes.size()));
+		}
+
+		@Override
+		public void visitProbe(final int probeId) {
+			node(probeId, false);
+		}
+
+		@Override
+		public void visitInsn(final int opcode) {
+			node(LabelInfo.NO_PROBE, mayThrow(opcode));
+			switch (opcode) {
+			case Opcodes.IRETURN:
+			case Opcodes.LRETURN:
+			case Opcodes.FRETURN:
+			case Opcodes.DRETURN:
+			case Opcodes.ARETURN:
+			case Opcodes.RETURN:
+			case Opcodes.ATHROW:
+				previous = null;
+				break;
+			}
+		}
+
+		private static boolean mayThrow(final int opcode) {
+			if (opcode <= Opcodes.SALOAD) {
+				// constants and array loads
+				return opcode >= Opcodes.IALOAD;
+			}
+			if (opcode <= Opcodes.DCMPG) {
+				// array stores, stack and arithmetic instructions
+				switch (opcode) {
+				case Opcodes.IASTORE:
+				case Opcodes.LASTORE:
+				case Opcodes.FASTORE:
+				case Opcodes.DASTORE:
+				case Opcodes.AASTORE:
+				case Opcodes.BASTORE:
+				case Opcodes.CASTORE:
+				case Opcodes.SASTORE:
+				case Opcodes.IDIV:
+				case Opcodes.LDIV:
+				case Opcodes.IREM:
+				case Opcodes.LREM:
+					return true;
+				default:
+					return false;
+				}
+			}
+			// returns, ARRAYLENGTH, ATHROW and MONITORENTER/MONITOREXIT
+			return true;
+		}
+
+		@Override
+		public void visitInsnWithProbe(final int opcode, final int probeId) {
+			node(probeId, false);
+			visitInsn(opcode);
+		}
+
+		@Override
+		public void visitIntInsn(final int opcode, final int operand) {
+			node(LabelInfo.NO_PROBE, opcode == Opcodes.NEWARRAY);
+		}
+
+		@Override
+		public void visitVarInsn(final int opcode, final int var) {
+			node(LabelInfo.NO_PROBE, false);
+		}
+
+		@Override
+		public void visitTypeInsn(final int opcode, final String type) {
+			node(LabelInfo.NO_PROBE, true);
+		}
+
+		@Override
+		public void visitFieldInsn(final int opcode, final String owner,
+				final String name, final String desc) {
+			node(LabelInfo.NO_PROBE, true);
+		}
+
+		@Override
+		public void visitMethodInsn(final int opcode, final String owner,
+				final String name, final String desc, final boolean itf) {
+			node(LabelInfo.NO_PROBE, true);
+		}
+
+		@Override
+		public void visitInvokeDynamicInsn(final String name,
+				final String desc, final Handle bsm, final Object... bsmArgs) {
+			node(LabelInfo.NO_PROBE, true);
+		}
+
+		@Override
+		public void visitLdcInsn(final Object cst) {
+			node(LabelInfo.NO_PROBE,
+					!(cst instanceof Number || cst instanceof String));
+		}
+
+		@Override
+		public void visitIincInsn(final int var, final int increment) {
+			node(LabelInfo.NO_PROBE, false);
+		}
+
+		@Override
+		public void visitMultiANewArrayInsn(final String desc,
+				final int dims) {
+			node(LabelInfo.NO_PROBE, true);
+		}
+
+		@Override
+		public void visitJumpInsn(final int opcode, final Label label) {
+			jump(node(LabelInfo.NO_PROBE, false), label);
+			if (opcode == Opcodes.GOTO) {
+				previous = null;
+			}
+		}
+
+		@Override
+		public void visitJumpInsnWithProbe(final int opcode, final Label label,
+				final int probeId, final IFrame frame) {
+			final Node node = node(LabelInfo.NO_PROBE, false);
+			probeNode(node, probeId, label);
+			previous = opcode == Opcodes.GOTO ? null : node;
+		}
+
+		@Override
+		public void visitTableSwitchInsn(final int min, final int max,
+				final Label dflt, final Label... labels) {
+			switchInsn(dflt, labels, false);
+		}
+
+		@Override
+		public void visitLookupSwitchInsn(final Label dflt, final int[] keys,
+				final Label[] labels) {
+			switchInsn(dflt, labels, false);
+		}
+
+		@Override
+		public void visitTableSwitchInsnWithProbes(final int min,
+				final int max, final Label dflt, final Label[] labels,
+				final IFrame frame) {
+			switchInsn(dflt, labels, true);
+		}
+
+		@Override
+		public void visitLookupSwitchInsnWithProbes(final Label dflt,
+				final int[] keys, final Label[] labels, final IFrame frame) {
+			switchInsn(dflt, labels, true);
+		}
+
+		private void switchInsn(final Label dflt, final Label[] labels,
+				final boolean withProbes) {
+			final Node node = node(LabelInfo.NO_PROBE, false);
+			final Map<Label, Node> probes = new HashMap<Label, Node>();
+			switchTarget(node, dflt, withProbes, probes);
+			for (final Label label : labels) {
+				switchTarget(node, label, withProbes, probes);
+			}
+			previous = null;
+		}
+
+		private void switchTarget(final Node node, final Label label,
+				final boolean withProbes, final Map<Label, Node> probes) {
+			final int probeId = withProbes ? LabelInfo.getProbeId(label)
+					: LabelInfo.NO_PROBE;
+			if (probeId == LabelInfo.NO_PROBE) {
+				jump(node, label);
+			} else if (!probes.containsKey(label)) {
+				probes.put(label, probeNode(node, probeId, label));
+			}
+		}
+
+	}
+
+}
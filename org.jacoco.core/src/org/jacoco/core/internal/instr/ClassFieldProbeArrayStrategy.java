@@ -21,16 +21,12 @@ import org.objectweb.asm.Opcodes;
 /**
  * The strategy for regular classes adds a static field to hold the probe array
  * and a static initialization method requesting the probe array from the
- * runtime.
+ * runtime. For classes instrumented to count executions the field holds the
+ * counter arrays instead and every method selects the counter array of the
+ * current thread.
  */
 class ClassFieldProbeArrayStrategy implements IProbeArrayStrategy {
 
-	/**
-	 * Frame stack with a single boolean array.
-	 */
-	private static final Object[] FRAME_STACK_ARRZ = new Object[] {
-			InstrSupport.DATAFIELD_DESC };
-
 	/**
 	 * Empty frame locals.
 	 */
@@ -39,22 +35,29 @@ class ClassFieldProbeArrayStrategy implements IProbeArrayStrategy {
 	private final String className;
 	private final long classId;
 	private final boolean withFrames;
+	private final boolean counters;
 	private final IExecutionDataAccessorGenerator accessorGenerator;
 
 	ClassFieldProbeArrayStrategy(final String className, final long classId,
-			final boolean withFrames,
+			final boolean withFrames, final boolean counters,
 			final IExecutionDataAccessorGenerator accessorGenerator) {
 		this.className = className;
 		this.classId = classId;
 		this.withFrames = withFrames;
+		this.counters = counters;
 		this.accessorGenerator = accessorGenerator;
 	}
 
 	public int storeInstance(final MethodVisitor mv, final boolean clinit,
 			final int variable) {
 		mv.visitMethodInsn(Opcodes.INVOKESTATIC, className,
-				InstrSupport.INITMETHOD_NAME, InstrSupport.INITMETHOD_DESC,
-				false);
+				InstrSupport.INITMETHOD_NAME,
+				InstrSupport.getInitMethodDesc(counters), false);
+		if (counters) {
+			InstrSupport.selectCounters(mv);
+			mv.visitVarInsn(Opcodes.ASTORE, variable);
+			return 3;
+		}
 		mv.visitVarInsn(Opcodes.ASTORE, variable);
 		return 1;
 	}
@@ -66,18 +69,19 @@ class ClassFieldProbeArrayStrategy implements IProbeArrayStrategy {
 
 	private void createDataField(final ClassVisitor cv) {
 		cv.visitField(InstrSupport.DATAFIELD_ACC, InstrSupport.DATAFIELD_NAME,
-				InstrSupport.DATAFIELD_DESC, null, null);
+				InstrSupport.getDataFieldDesc(counters), null, null);
 	}
 
 	private void createInitMethod(final ClassVisitor cv, final int probeCount) {
+		final String fieldDesc = InstrSupport.getDataFieldDesc(counters);
 		final MethodVisitor mv = cv.visitMethod(InstrSupport.INITMETHOD_ACC,
-				InstrSupport.INITMETHOD_NAME, InstrSupport.INITMETHOD_DESC,
-				null, null);
+				InstrSupport.INITMETHOD_NAME,
+				InstrSupport.getInitMethodDesc(counters), null, null);
 		mv.visitCode();
 
 		// Load the value of the static data field:
 		mv.visitFieldInsn(Opcodes.GETSTATIC, className,
-				InstrSupport.DATAFIELD_NAME, InstrSupport.DATAFIELD_DESC);
+				InstrSupport.DATAFIELD_NAME, fieldDesc);
 		mv.visitInsn(Opcodes.DUP);
 
 		// Stack[1]: [Z
@@ -97,7 +101,7 @@ class ClassFieldProbeArrayStrategy implements IProbeArrayStrategy {
 		// Return the class' probe array:
 		if (withFrames) {
 			mv.visitFrame(Opcodes.F_NEW, 0, FRAME_LOCALS_EMPTY, 1,
-					FRAME_STACK_ARRZ);
+					new Object[] { fieldDesc });
 		}
 		mv.visitLabel(alreadyInitialized);
 		mv.visitInsn(Opcodes.ARETURN);
@@ -117,8 +121,8 @@ class ClassFieldProbeArrayStrategy implements IProbeArrayStrategy {
 	 */
 	private int genInitializeDataField(final MethodVisitor mv,
 			final int probeCount) {
-		final int size = accessorGenerator.generateDataAccessor(classId,
-				className, probeCount, mv);
+		final int size = InstrSupport.generateDataAccessor(accessorGenerator,
+				counters, classId, className, probeCount, mv);
 
 		// Stack[0]: [Z
 
@@ -128,7 +132,8 @@ class ClassFieldProbeArrayStrategy implements IProbeArrayStrategy {
 		// Stack[0]: [Z
 
 		mv.visitFieldInsn(Opcodes.PUTSTATIC, className,
-				InstrSupport.DATAFIELD_NAME, InstrSupport.DATAFIELD_DESC);
+				InstrSupport.DATAFIELD_NAME,
+				InstrSupport.getDataFieldDesc(counters));
 
 		// Stack[0]: [Z
 
@@ -17,6 +17,7 @@ import org.jacoco.core.internal.flow.MethodProbesVisitor;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.commons.AnalyzerAdapter;
 
 /**
  * Adapter that instruments a class for coverage tracing.
@@ -25,21 +26,96 @@ public class ClassInstrumenter extends ClassProbesVisitor {
 
 	private final IProbeArrayStrategy probeArrayStrategy;
 
+	private final boolean probes;
+
+	private final boolean conditionalProbes;
+
+	private final boolean counters;
+
 	private String className;
 
+	private boolean frames;
+
+	/**
+	 * Emits an instrumented version of this class to the given class visitor.
+	 *
+	 * @param probeArrayStrategy
+	 *            this strategy will be used to access the probe array
+	 * @param cv
+	 *            next delegate in the visitor chain will receive the
+	 *            instrumented class
+	 */
+	public ClassInstrumenter(final IProbeArrayStrategy probeArrayStrategy,
+			final ClassVisitor cv) {
+		this(probeArrayStrategy, true, cv);
+	}
+
+	/**
+	 * Emits an instrumented version of this class to the given class visitor.
+	 * Without probes the emitted class has the same members as the
+	 * instrumented version, but only the class initializer is instrumented.
+	 * All other methods keep their original code and do not record execution.
+	 *
+	 * @param probeArrayStrategy
+	 *            this strategy will be used to access the probe array
+	 * @param probes
+	 *            <code>false</code> if methods should not be instrumented
+	 * @param cv
+	 *            next delegate in the visitor chain will receive the
+	 *            instrumented class
+	 */
+	public ClassInstrumenter(final IProbeArrayStrategy probeArrayStrategy,
+			final boolean probes, final ClassVisitor cv) {
+		this(probeArrayStrategy, probes, false, cv);
+	}
+
 	/**
 	 * Emits an instrumented version of this class to the given class visitor.
+	 * Conditional probes only write to the probe array if the probe has not
+	 * been executed before.
 	 *
 	 * @param probeArrayStrategy
 	 *            this strategy will be used to access the probe array
+	 * @param probes
+	 *            <code>false</code> if methods should not be instrumented
+	 * @param conditionalProbes
+	 *            <code>true</code> if conditional probes should be inserted
 	 * @param cv
 	 *            next delegate in the visitor chain will receive the
 	 *            instrumented class
 	 */
 	public ClassInstrumenter(final IProbeArrayStrategy probeArrayStrategy,
+			final boolean probes, final boolean conditionalProbes,
 			final ClassVisitor cv) {
+		this(probeArrayStrategy, probes, conditionalProbes, false, cv);
+	}
+
+	/**
+	 * Emits an instrumented version of this class to the given class visitor.
+	 * Counting probes increment a counter for every execution, the given
+	 * strategy must provide the counter array of the current thread in this
+	 * case. Conditional probes are ignored for counting probes.
+	 *
+	 * @param probeArrayStrategy
+	 *            this strategy will be used to access the probe array
+	 * @param probes
+	 *            <code>false</code> if methods should not be instrumented
+	 * @param conditionalProbes
+	 *            <code>true</code> if conditional probes should be inserted
+	 * @param counters
+	 *            <code>true</code> if counting probes should be inserted
+	 * @param cv
+	 *            next delegate in the visitor chain will receive the
+	 *            instrumented class
+	 */
+	public ClassInstrumenter(final IProbeArrayStrategy probeArrayStrategy,
+			final boolean probes, final boolean conditionalProbes,
+			final boolean counters, final ClassVisitor cv) {
 		super(cv);
 		this.probeArrayStrategy = probeArrayStrategy;
+		this.probes = probes;
+		this.conditionalProbes = conditionalProbes;
+		this.counters = counters;
 	}
 
 	@Override
@@ -47,6 +123,7 @@ public class ClassInstrumenter extends ClassProbesVisitor {
 			final String signature, final String superName,
 			final String[] interfaces) {
 		this.className = name;
+		this.frames = InstrSupport.needsFrames(version);
 		super.visit(version, access, name, signature, superName, interfaces);
 	}
 
@@ -70,7 +147,28 @@ public class ClassInstrumenter extends ClassProbesVisitor {
 		if (mv == null) {
 			return null;
 		}
+		if (!probes && !InstrSupport.CLINIT_NAME.equals(name)) {
+			return new ProbeFreeMethodVisitor(mv);
+		}
 		final MethodVisitor frameEliminator = new DuplicateFrameEliminator(mv);
+		if (counters) {
+			final ProbeInserter probeVariableInserter = new CountingProbeInserter(
+					access, name, desc, frameEliminator, probeArrayStrategy);
+			return new MethodInstrumenter(probeVariableInserter,
+					probeVariableInserter);
+		}
+		if (conditionalProbes) {
+			final ConditionalProbeInserter probeVariableInserter = new ConditionalProbeInserter(
+					access, name, desc, frameEliminator, probeArrayStrategy);
+			if (frames) {
+				final AnalyzerAdapter analyzer = new AnalyzerAdapter(className,
+						access, name, desc, probeVariableInserter);
+				probeVariableInserter.setAnalyzer(analyzer);
+				return new MethodInstrumenter(analyzer, probeVariableInserter);
+			}
+			return new MethodInstrumenter(probeVariableInserter,
+					probeVariableInserter);
+		}
 		final ProbeInserter probeVariableInserter = new ProbeInserter(access,
 				name, desc, frameEliminator, probeArrayStrategy);
 		return new MethodInstrumenter(probeVariableInserter,
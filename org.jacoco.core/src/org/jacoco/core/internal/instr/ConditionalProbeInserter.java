@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.instr;
+
+import org.jacoco.core.internal.flow.FrameSnapshot;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.commons.AnalyzerAdapter;
+
+/**
+ * {@link ProbeInserter} which only writes to the probe array if the probe has
+ * not been executed before. Once executed a probe only reads the array, so the
+ * cache line holding the slot is not invalidated on other cores again and
+ * again when the same code is executed by multiple threads in parallel.
+ *
+ * The conditional write requires a branch. For class files which require
+ * stackmap frames an {@link AnalyzerAdapter} has to be set which receives the
+ * original method and calculates the frame at the branch target.
+ */
+class ConditionalProbeInserter extends ProbeInserter {
+
+	private AnalyzerAdapter analyzer;
+
+	/**
+	 * Creates a new {@link ConditionalProbeInserter}.
+	 *
+	 * @param access
+	 *            access flags of the adapted method
+	 * @param name
+	 *            the method's name
+	 * @param desc
+	 *            the method's descriptor
+	 * @param mv
+	 *            the method visitor to which this adapter delegates calls
+	 * @param arrayStrategy
+	 *            callback to create the code that retrieves the reference to
+	 *            the probe array
+	 */
+	ConditionalProbeInserter(final int access, final String name,
+			final String desc, final MethodVisitor mv,
+			final IProbeArrayStrategy arrayStrategy) {
+		super(access, name, desc, mv, arrayStrategy);
+	}
+
+	/**
+	 * If an analyzer is set stackmap frames are emitted for the branch
+	 * targets of the probes. The analyzer must delegate to this instance.
+	 *
+	 * @param analyzer
+	 *            optional analyzer to set
+	 */
+	void setAnalyzer(final AnalyzerAdapter analyzer) {
+		this.analyzer = analyzer;
+	}
+
+	@Override
+	public void insertProbe(final int id) {
+
+		// Only if the corresponding position in the boolean[] array is still
+		// false we set it to true.
+
+		final Label executed = new Label();
+
+		mv.visitVarInsn(Opcodes.ALOAD, variable);
+
+		// Stack[0]: [Z
+
+		InstrSupport.push(mv, id);
+
+		// Stack[1]: I
+		// Stack[0]: [Z
+
+		mv.visitInsn(Opcodes.BALOAD);
+
+		// Stack[0]: Z
+
+		mv.visitJumpInsn(Opcodes.IFNE, executed);
+
+		super.insertProbe(id);
+
+		mv.visitLabel(executed);
+		if (analyzer != null) {
+			FrameSnapshot.create(analyzer, 0).accept(this);
+			// The original code might define a frame at the same offset,
+			// which would be dropped. The additional instruction ensures that
+			// both frames are kept.
+			mv.visitInsn(Opcodes.NOP);
+		}
+	}
+
+}
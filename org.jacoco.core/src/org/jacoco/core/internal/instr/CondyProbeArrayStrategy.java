@@ -31,41 +31,62 @@ public class CondyProbeArrayStrategy implements IProbeArrayStrategy {
 	 */
 	public static final String B_DESC = "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;)[Z";
 
+	/**
+	 * Descriptor of the bootstrap method for classes instrumented to count
+	 * executions.
+	 */
+	static final String COUNTERS_B_DESC = "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;)[[J";
+
 	private final String className;
 
 	private final boolean isInterface;
 
 	private final long classId;
 
+	private final boolean counters;
+
 	private final IExecutionDataAccessorGenerator accessorGenerator;
 
 	CondyProbeArrayStrategy(final String className, final boolean isInterface,
-			final long classId,
+			final long classId, final boolean counters,
 			final IExecutionDataAccessorGenerator accessorGenerator) {
 		this.className = className;
 		this.isInterface = isInterface;
 		this.classId = classId;
+		this.counters = counters;
 		this.accessorGenerator = accessorGenerator;
 	}
 
 	public int storeInstance(final MethodVisitor mv, final boolean clinit,
 			final int variable) {
 		final Handle bootstrapMethod = new Handle(Opcodes.H_INVOKESTATIC,
-				className, InstrSupport.INITMETHOD_NAME, B_DESC, isInterface);
+				className, InstrSupport.INITMETHOD_NAME, getBootstrapDesc(),
+				isInterface);
 		// As a workaround for https://bugs.openjdk.java.net/browse/JDK-8216970
 		// constant should have type Object
 		mv.visitLdcInsn(new ConstantDynamic(InstrSupport.DATAFIELD_NAME,
 				"Ljava/lang/Object;", bootstrapMethod));
-		mv.visitTypeInsn(Opcodes.CHECKCAST, "[Z");
+		mv.visitTypeInsn(Opcodes.CHECKCAST,
+				InstrSupport.getDataFieldDesc(counters));
+		if (counters) {
+			InstrSupport.selectCounters(mv);
+			mv.visitVarInsn(Opcodes.ASTORE, variable);
+			return 3;
+		}
 		mv.visitVarInsn(Opcodes.ASTORE, variable);
 		return 1;
 	}
 
+	private String getBootstrapDesc() {
+		return counters ? COUNTERS_B_DESC : B_DESC;
+	}
+
 	public void addMembers(final ClassVisitor cv, final int probeCount) {
 		final MethodVisitor mv = cv.visitMethod(InstrSupport.INITMETHOD_ACC,
-				InstrSupport.INITMETHOD_NAME, B_DESC, null, null);
-		final int maxStack = accessorGenerator.generateDataAccessor(classId,
-				className, probeCount, mv);
+				InstrSupport.INITMETHOD_NAME, getBootstrapDesc(), null, null);
+		final int maxStack = InstrSupport.generateDataAccessor(
+				accessorGenerator, counters, classId, className, probeCount,
+				mv);
 		mv.visitInsn(Opcodes.ARETURN);
 		mv.visitMaxs(maxStack, 3);
 		mv.visitEnd();
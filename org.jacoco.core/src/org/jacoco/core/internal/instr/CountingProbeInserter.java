@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.instr;
+
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * {@link ProbeInserter} which counts the executions of every probe. The
+ * inserted variable holds the counter array of the current thread which has
+ * been selected by the probe array strategy, so a probe simply increments a
+ * slot of a <code>long[]</code> array. The 64 bit counters do not overflow even
+ * for code executed in tight loops. As threads running in parallel most likely
+ * use different counter arrays they rarely contend for the same cache line.
+ * The increment is not atomic, concurrent executions using the same counter
+ * array might be lost.
+ */
+class CountingProbeInserter extends ProbeInserter {
+
+	/**
+	 * Creates a new {@link CountingProbeInserter}.
+	 *
+	 * @param access
+	 *            access flags of the adapted method
+	 * @param name
+	 *            the method's name
+	 * @param desc
+	 *            the method's descriptor
+	 * @param mv
+	 *            the method visitor to which this adapter delegates calls
+	 * @param arrayStrategy
+	 *            callback to create the code that retrieves the reference to
+	 *            the counter array
+	 */
+	CountingProbeInserter(final int access, final String name,
+			final String desc, final MethodVisitor mv,
+			final IProbeArrayStrategy arrayStrategy) {
+		super(access, name, desc, mv, arrayStrategy,
+				InstrSupport.COUNTERS_DESC, 6);
+	}
+
+	@Override
+	public void insertProbe(final int id) {
+
+		// For a probe we increment the corresponding position in the long[]
+		// array.
+
+		mv.visitVarInsn(Opcodes.ALOAD, variable);
+
+		// Stack[0]: [J
+
+		InstrSupport.push(mv, id);
+
+		// Stack[1]: I
+		// Stack[0]: [J
+
+		mv.visitInsn(Opcodes.DUP2);
+
+		// Stack[3]: I
+		// Stack[2]: [J
+		// Stack[1]: I
+		// Stack[0]: [J
+
+		mv.visitInsn(Opcodes.LALOAD);
+		mv.visitInsn(Opcodes.LCONST_1);
+		mv.visitInsn(Opcodes.LADD);
+
+		// Stack[2]: J
+		// Stack[1]: I
+		// Stack[0]: [J
+
+		mv.visitInsn(Opcodes.LASTORE);
+	}
+
+}
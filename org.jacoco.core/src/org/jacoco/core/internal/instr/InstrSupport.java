@@ -14,6 +14,8 @@ package org.jacoco.core.internal.instr;
 
 import static java.lang.String.format;
 
+import org.jacoco.core.runtime.IExecutionCountersAccessorGenerator;
+import org.jacoco.core.runtime.IExecutionDataAccessorGenerator;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
@@ -80,6 +82,18 @@ public final class InstrSupport {
 	 */
 	public static final String DATAFIELD_DESC = "[Z";
 
+	/**
+	 * Data type of the field that stores the counter arrays for a class
+	 * instrumented to count executions (<code>long[][]</code>).
+	 */
+	public static final String COUNTERSFIELD_DESC = "[[J";
+
+	/**
+	 * Data type of the local variable that stores the counter array of the
+	 * current thread (<code>long[]</code>).
+	 */
+	static final String COUNTERS_DESC = "[J";
+
 	// === Init Method ===
 
 	/**
@@ -92,6 +106,12 @@ public final class InstrSupport {
 	 */
 	public static final String INITMETHOD_DESC = "()[Z";
 
+	/**
+	 * Descriptor of the initialization method for classes instrumented to
+	 * count executions.
+	 */
+	static final String COUNTERS_INITMETHOD_DESC = "()[[J";
+
 	/**
 	 * Access modifiers of the initialization method.
 	 */
@@ -263,6 +283,98 @@ public final class InstrSupport {
 		}
 	}
 
+	/**
+	 * Returns the data type of the field that stores coverage information.
+	 *
+	 * @param counters
+	 *            <code>true</code> if the class is instrumented to count
+	 *            executions
+	 * @return field descriptor
+	 */
+	static String getDataFieldDesc(final boolean counters) {
+		return counters ? COUNTERSFIELD_DESC : DATAFIELD_DESC;
+	}
+
+	/**
+	 * Returns the descriptor of the initialization method.
+	 *
+	 * @param counters
+	 *            <code>true</code> if the class is instrumented to count
+	 *            executions
+	 * @return method descriptor
+	 */
+	static String getInitMethodDesc(final boolean counters) {
+		return counters ? COUNTERS_INITMETHOD_DESC : INITMETHOD_DESC;
+	}
+
+	/**
+	 * Generates the code to obtain the coverage information of a class from
+	 * the runtime, which is either the probe array or the counter arrays.
+	 *
+	 * @param accessorGenerator
+	 *            accessor to the coverage runtime
+	 * @param counters
+	 *            <code>true</code> if the counter arrays should be obtained
+	 * @param classId
+	 *            class identifier
+	 * @param className
+	 *            VM class name
+	 * @param probeCount
+	 *            probe count for this class
+	 * @param mv
+	 *            visitor to emit generated code
+	 * @return additional stack size required by the accessor
+	 */
+	static int generateDataAccessor(
+			final IExecutionDataAccessorGenerator accessorGenerator,
+			final boolean counters, final long classId, final String className,
+			final int probeCount, final MethodVisitor mv) {
+		if (counters) {
+			return ((IExecutionCountersAccessorGenerator) accessorGenerator)
+					.generateCountersAccessor(classId, className, probeCount,
+							mv);
+		}
+		return accessorGenerator.generateDataAccessor(classId, className,
+				probeCount, mv);
+	}
+
+	/**
+	 * Generates the code which selects the counter array for the current
+	 * thread from the counter arrays on top of the operand stack. The array is
+	 * selected by the identity hash code of the current thread, masked with
+	 * the number of arrays minus one. The generated code requires a stack size
+	 * of 3.
+	 *
+	 * @param mv
+	 *            visitor to emit generated code
+	 */
+	static void selectCounters(final MethodVisitor mv) {
+
+		// Stack[0]: [[J
+
+		mv.visitInsn(Opcodes.DUP);
+		mv.visitInsn(Opcodes.ARRAYLENGTH);
+		mv.visitInsn(Opcodes.ICONST_1);
+		mv.visitInsn(Opcodes.ISUB);
+
+		// Stack[1]: I
+		// Stack[0]: [[J
+
+		mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Thread",
+				"currentThread", "()Ljava/lang/Thread;", false);
+		mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/System",
+				"identityHashCode", "(Ljava/lang/Object;)I", false);
+
+		// Stack[2]: I
+		// Stack[1]: I
+		// Stack[0]: [[J
+
+		mv.visitInsn(Opcodes.IAND);
+		mv.visitInsn(Opcodes.AALOAD);
+
+		// Stack[0]: [J
+	}
+
 	/**
 	 * Creates a {@link ClassReader} instance for given bytes of class even if
 	 * its version not yet supported by ASM.
@@ -25,12 +25,6 @@ import org.objectweb.asm.Opcodes;
  */
 class InterfaceFieldProbeArrayStrategy implements IProbeArrayStrategy {
 
-	/**
-	 * Frame stack with a single boolean array.
-	 */
-	private static final Object[] FRAME_STACK_ARRZ = new Object[] {
-			InstrSupport.DATAFIELD_DESC };
-
 	/**
 	 * Empty frame locals.
 	 */
@@ -39,24 +33,27 @@ class InterfaceFieldProbeArrayStrategy implements IProbeArrayStrategy {
 	private final String className;
 	private final long classId;
 	private final int probeCount;
+	private final boolean counters;
 	private final IExecutionDataAccessorGenerator accessorGenerator;
 
 	private boolean seenClinit = false;
 
 	InterfaceFieldProbeArrayStrategy(final String className, final long classId,
-			final int probeCount,
+			final int probeCount, final boolean counters,
 			final IExecutionDataAccessorGenerator accessorGenerator) {
 		this.className = className;
 		this.classId = classId;
 		this.probeCount = probeCount;
+		this.counters = counters;
 		this.accessorGenerator = accessorGenerator;
 	}
 
 	public int storeInstance(final MethodVisitor mv, final boolean clinit,
 			final int variable) {
 		if (clinit) {
-			final int maxStack = accessorGenerator.generateDataAccessor(classId,
-					className, probeCount, mv);
+			final int maxStack = InstrSupport.generateDataAccessor(
+					accessorGenerator, counters, classId, className,
+					probeCount, mv);
 
 			// Stack[0]: [Z
 
@@ -66,18 +63,27 @@ class InterfaceFieldProbeArrayStrategy implements IProbeArrayStrategy {
 			// Stack[0]: [Z
 
 			mv.visitFieldInsn(Opcodes.PUTSTATIC, className,
-					InstrSupport.DATAFIELD_NAME, InstrSupport.DATAFIELD_DESC);
+					InstrSupport.DATAFIELD_NAME,
+					InstrSupport.getDataFieldDesc(counters));
 
 			// Stack[0]: [Z
 
+			if (counters) {
+				InstrSupport.selectCounters(mv);
+			}
 			mv.visitVarInsn(Opcodes.ASTORE, variable);
 
 			seenClinit = true;
-			return Math.max(maxStack, 2);
+			return Math.max(maxStack, counters ? 3 : 2);
 		} else {
 			mv.visitMethodInsn(Opcodes.INVOKESTATIC, className,
-					InstrSupport.INITMETHOD_NAME, InstrSupport.INITMETHOD_DESC,
-					true);
+					InstrSupport.INITMETHOD_NAME,
+					InstrSupport.getInitMethodDesc(counters), true);
+			if (counters) {
+				InstrSupport.selectCounters(mv);
+				mv.visitVarInsn(Opcodes.ASTORE, variable);
+				return 3;
+			}
 			mv.visitVarInsn(Opcodes.ASTORE, variable);
 			return 1;
 		}
@@ -93,19 +99,20 @@ class InterfaceFieldProbeArrayStrategy implements IProbeArrayStrategy {
 
 	private void createDataField(final ClassVisitor cv) {
 		cv.visitField(InstrSupport.DATAFIELD_INTF_ACC,
-				InstrSupport.DATAFIELD_NAME, InstrSupport.DATAFIELD_DESC, null,
-				null);
+				InstrSupport.DATAFIELD_NAME,
+				InstrSupport.getDataFieldDesc(counters), null, null);
 	}
 
 	private void createInitMethod(final ClassVisitor cv, final int probeCount) {
+		final String fieldDesc = InstrSupport.getDataFieldDesc(counters);
 		final MethodVisitor mv = cv.visitMethod(InstrSupport.INITMETHOD_ACC,
-				InstrSupport.INITMETHOD_NAME, InstrSupport.INITMETHOD_DESC,
-				null, null);
+				InstrSupport.INITMETHOD_NAME,
+				InstrSupport.getInitMethodDesc(counters), null, null);
 		mv.visitCode();
 
 		// Load the value of the static data field:
 		mv.visitFieldInsn(Opcodes.GETSTATIC, className,
-				InstrSupport.DATAFIELD_NAME, InstrSupport.DATAFIELD_DESC);
+				InstrSupport.DATAFIELD_NAME, fieldDesc);
 		mv.visitInsn(Opcodes.DUP);
 
 		// Stack[1]: [Z
@@ -118,14 +125,14 @@ class InterfaceFieldProbeArrayStrategy implements IProbeArrayStrategy {
 		// Stack[0]: [Z
 
 		mv.visitInsn(Opcodes.POP);
-		final int size = accessorGenerator.generateDataAccessor(classId,
-				className, probeCount, mv);
+		final int size = InstrSupport.generateDataAccessor(accessorGenerator,
+				counters, classId, className, probeCount, mv);
 
 		// Stack[0]: [Z
 
 		// Return the class' probe array:
 		mv.visitFrame(Opcodes.F_NEW, 0, FRAME_LOCALS_EMPTY, 1,
-				FRAME_STACK_ARRZ);
+				new Object[] { fieldDesc });
 		mv.visitLabel(alreadyInitialized);
 		mv.visitInsn(Opcodes.ARETURN);
 
@@ -139,13 +146,15 @@ class InterfaceFieldProbeArrayStrategy implements IProbeArrayStrategy {
 				InstrSupport.CLINIT_NAME, InstrSupport.CLINIT_DESC, null, null);
 		mv.visitCode();
 
-		final int maxStack = accessorGenerator.generateDataAccessor(classId,
-				className, probeCount, mv);
+		final int maxStack = InstrSupport.generateDataAccessor(
+				accessorGenerator, counters, classId, className, probeCount,
+				mv);
 
 		// Stack[0]: [Z
 
 		mv.visitFieldInsn(Opcodes.PUTSTATIC, className,
-				InstrSupport.DATAFIELD_NAME, InstrSupport.DATAFIELD_DESC);
+				InstrSupport.DATAFIELD_NAME,
+				InstrSupport.getDataFieldDesc(counters));
 
 		mv.visitInsn(Opcodes.RETURN);
 
@@ -28,21 +28,29 @@ class LocalProbeArrayStrategy implements IProbeArrayStrategy {
 	private final String className;
 	private final long classId;
 	private final int probeCount;
+	private final boolean counters;
 	private final IExecutionDataAccessorGenerator accessorGenerator;
 
 	LocalProbeArrayStrategy(final String className, final long classId,
-			final int probeCount,
+			final int probeCount, final boolean counters,
 			final IExecutionDataAccessorGenerator accessorGenerator) {
 		this.className = className;
 		this.classId = classId;
 		this.probeCount = probeCount;
+		this.counters = counters;
 		this.accessorGenerator = accessorGenerator;
 	}
 
 	public int storeInstance(final MethodVisitor mv, final boolean clinit,
 			final int variable) {
-		final int maxStack = accessorGenerator.generateDataAccessor(classId,
-				className, probeCount, mv);
+		final int maxStack = InstrSupport.generateDataAccessor(
+				accessorGenerator, counters, classId, className, probeCount,
+				mv);
+		if (counters) {
+			InstrSupport.selectCounters(mv);
+			mv.visitVarInsn(Opcodes.ASTORE, variable);
+			return Math.max(maxStack, 3);
+		}
 		mv.visitVarInsn(Opcodes.ASTORE, variable);
 		return maxStack;
 	}
@@ -15,6 +15,7 @@ package org.jacoco.core.internal.instr;
 import org.jacoco.core.internal.flow.IFrame;
 import org.jacoco.core.internal.flow.LabelInfo;
 import org.jacoco.core.internal.flow.MethodProbesVisitor;
+import org.jacoco.core.internal.flow.ProbeImplications;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
@@ -27,6 +28,9 @@ class MethodInstrumenter extends MethodProbesVisitor {
 
 	private final IProbeInserter probeInserter;
 
+	/** implications to omit redundant probes or <code>null</code> */
+	private ProbeImplications implications;
+
 	/**
 	 * Create a new instrumenter instance for the given method.
 	 *
@@ -41,23 +45,47 @@ class MethodInstrumenter extends MethodProbesVisitor {
 		this.probeInserter = probeInserter;
 	}
 
+	private boolean isRedundant(final int probeId) {
+		return implications != null && implications.isRedundant(probeId);
+	}
+
+	private int getProbeId(final Label label) {
+		final int probeId = LabelInfo.getProbeId(label);
+		if (probeId != LabelInfo.NO_PROBE && isRedundant(probeId)) {
+			return LabelInfo.NO_PROBE;
+		}
+		return probeId;
+	}
+
 	// === IMethodProbesVisitor ===
 
+	@Override
+	public void visitProbeImplications(
+			final ProbeImplications implications) {
+		this.implications = implications;
+	}
+
 	@Override
 	public void visitProbe(final int probeId) {
-		probeInserter.insertProbe(probeId);
+		if (!isRedundant(probeId)) {
+			probeInserter.insertProbe(probeId);
+		}
 	}
 
 	@Override
 	public void visitInsnWithProbe(final int opcode, final int probeId) {
-		probeInserter.insertProbe(probeId);
+		if (!isRedundant(probeId)) {
+			probeInserter.insertProbe(probeId);
+		}
 		mv.visitInsn(opcode);
 	}
 
 	@Override
 	public void visitJumpInsnWithProbe(final int opcode, final Label label,
 			final int probeId, final IFrame frame) {
-		if (opcode == Opcodes.GOTO) {
+		if (isRedundant(probeId)) {
+			mv.visitJumpInsn(opcode, label);
+		} else if (opcode == Opcodes.GOTO) {
 			probeInserter.insertProbe(probeId);
 			mv.visitJumpInsn(Opcodes.GOTO, label);
 		} else {
@@ -146,7 +174,7 @@ class MethodInstrumenter extends MethodProbesVisitor {
 
 	private Label createIntermediate(final Label label) {
 		final Label intermediate;
-		if (LabelInfo.getProbeId(label) == LabelInfo.NO_PROBE) {
+		if (getProbeId(label) == LabelInfo.NO_PROBE) {
 			intermediate = label;
 		} else {
 			if (LabelInfo.isDone(label)) {
@@ -162,7 +190,7 @@ class MethodInstrumenter extends MethodProbesVisitor {
 
 	private void insertIntermediateProbe(final Label label,
 			final IFrame frame) {
-		final int probeId = LabelInfo.getProbeId(label);
+		final int probeId = getProbeId(label);
 		if (probeId != LabelInfo.NO_PROBE && !LabelInfo.isDone(label)) {
 			mv.visitLabel(LabelInfo.getIntermediateLabel(label));
 			frame.accept(mv);
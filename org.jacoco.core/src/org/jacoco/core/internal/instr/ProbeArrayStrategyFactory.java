@@ -12,7 +12,9 @@
  *******************************************************************************/
 package org.jacoco.core.internal.instr;
 
+import org.jacoco.core.instr.Granularity;
 import org.jacoco.core.internal.flow.ClassProbesAdapter;
+import org.jacoco.core.runtime.IExecutionCountersAccessorGenerator;
 import org.jacoco.core.runtime.IExecutionDataAccessorGenerator;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Opcodes;
@@ -37,38 +39,71 @@ public final class ProbeArrayStrategyFactory {
 	 *            reader to get information about the class
 	 * @param accessorGenerator
 	 *            accessor to the coverage runtime
+	 * @param granularity
+	 *            granularity of the probes
 	 * @return strategy instance
 	 */
 	public static IProbeArrayStrategy createFor(final long classId,
 			final ClassReader reader,
-			final IExecutionDataAccessorGenerator accessorGenerator) {
+			final IExecutionDataAccessorGenerator accessorGenerator,
+			final Granularity granularity) {
+		return createFor(classId, reader, accessorGenerator, granularity,
+				false);
+	}
+
+	/**
+	 * Creates a suitable strategy instance for the class described by the given
+	 * reader. Created instance must be used only to process a class or
+	 * interface for which it has been created and must be used only once.
+	 *
+	 * @param classId
+	 *            class identifier
+	 * @param reader
+	 *            reader to get information about the class
+	 * @param accessorGenerator
+	 *            accessor to the coverage runtime, must implement
+	 *            {@link IExecutionCountersAccessorGenerator} if counters are
+	 *            requested
+	 * @param granularity
+	 *            granularity of the probes
+	 * @param counters
+	 *            <code>true</code> if the strategy should provide the counter
+	 *            array of the current thread instead of the probe array
+	 * @return strategy instance
+	 */
+	public static IProbeArrayStrategy createFor(final long classId,
+			final ClassReader reader,
+			final IExecutionDataAccessorGenerator accessorGenerator,
+			final Granularity granularity, final boolean counters) {
 
 		final String className = reader.getClassName();
 		final int version = InstrSupport.getMajorVersion(reader);
 
 		if (isInterfaceOrModule(reader)) {
-			final ProbeCounter counter = getProbeCounter(reader);
+			final ProbeCounter counter = getProbeCounter(reader,
+					granularity);
 			if (counter.getCount() == 0) {
 				return new NoneProbeArrayStrategy();
 			}
 			if (version >= Opcodes.V11 && counter.hasMethods()) {
 				return new CondyProbeArrayStrategy(className, true, classId,
-						accessorGenerator);
+						counters, accessorGenerator);
 			}
 			if (version >= Opcodes.V1_8 && counter.hasMethods()) {
 				return new InterfaceFieldProbeArrayStrategy(className, classId,
-						counter.getCount(), accessorGenerator);
+						counter.getCount(), counters, accessorGenerator);
 			} else {
 				return new LocalProbeArrayStrategy(className, classId,
-						counter.getCount(), accessorGenerator);
+						counter.getCount(), counters, accessorGenerator);
 			}
 		} else {
 			if (version >= Opcodes.V11) {
 				return new CondyProbeArrayStrategy(className, false, classId,
-						accessorGenerator);
+						counters, accessorGenerator);
 			}
 			return new ClassFieldProbeArrayStrategy(className, classId,
-					InstrSupport.needsFrames(version), accessorGenerator);
+					InstrSupport.needsFrames(version), counters,
+					accessorGenerator);
 		}
 	}
 
@@ -77,9 +112,10 @@ public final class ProbeArrayStrategyFactory {
 				& (Opcodes.ACC_INTERFACE | Opcodes.ACC_MODULE)) != 0;
 	}
 
-	private static ProbeCounter getProbeCounter(final ClassReader reader) {
+	private static ProbeCounter getProbeCounter(final ClassReader reader,
+			final Granularity granularity) {
 		final ProbeCounter counter = new ProbeCounter();
-		reader.accept(new ClassProbesAdapter(counter, false), 0);
+		reader.accept(new ClassProbesAdapter(counter, false, granularity), 0);
 		return counter;
 	}
 
@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.instr;
+
+import org.jacoco.core.internal.flow.IFrame;
+import org.jacoco.core.internal.flow.MethodProbesVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+/**
+ * This method adapter ignores all probes and emits the original instructions
+ * of the method only.
+ */
+class ProbeFreeMethodVisitor extends MethodProbesVisitor {
+
+	/**
+	 * Create a new visitor instance for the given method.
+	 *
+	 * @param mv
+	 *            next method visitor in the chain
+	 */
+	ProbeFreeMethodVisitor(final MethodVisitor mv) {
+		super(mv);
+	}
+
+	// === IMethodProbesVisitor ===
+
+	@Override
+	public void visitInsnWithProbe(final int opcode, final int probeId) {
+		mv.visitInsn(opcode);
+	}
+
+	@Override
+	public void visitJumpInsnWithProbe(final int opcode, final Label label,
+			final int probeId, final IFrame frame) {
+		mv.visitJumpInsn(opcode, label);
+	}
+
+	@Override
+	public void visitTableSwitchInsnWithProbes(final int min, final int max,
+			final Label dflt, final Label[] labels, final IFrame frame) {
+		mv.visitTableSwitchInsn(min, max, dflt, labels);
+	}
+
+	@Override
+	public void visitLookupSwitchInsnWithProbes(final Label dflt,
+			final int[] keys, final Label[] labels, final IFrame frame) {
+		mv.visitLookupSwitchInsn(dflt, keys, labels);
+	}
+
+}
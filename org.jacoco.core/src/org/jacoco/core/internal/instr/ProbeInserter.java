@@ -42,7 +42,7 @@ class ProbeInserter extends MethodVisitor implements IProbeInserter {
 	private final boolean clinit;
 
 	/** Position of the inserted variable. */
-	private final int variable;
+	final int variable;
 
 	/** Label for the new beginning of the method */
 	private final Label beginLabel;
@@ -50,6 +50,12 @@ class ProbeInserter extends MethodVisitor implements IProbeInserter {
 	/** Maximum stack usage of the code to access the probe array. */
 	private int accessorStackSize;
 
+	/** Frame type of the inserted variable. */
+	private final String variableType;
+
+	/** Maximum stack usage of the code of a single probe. */
+	private final int probeStackSize;
+
 	/**
 	 * Creates a new {@link ProbeInserter}.
 	 *
@@ -67,7 +73,36 @@ class ProbeInserter extends MethodVisitor implements IProbeInserter {
 	 */
 	ProbeInserter(final int access, final String name, final String desc,
 			final MethodVisitor mv, final IProbeArrayStrategy arrayStrategy) {
+		this(access, name, desc, mv, arrayStrategy,
+				InstrSupport.DATAFIELD_DESC, 3);
+	}
+
+	/**
+	 * Creates a new {@link ProbeInserter} for subclasses which store a
+	 * different type in the inserted variable.
+	 *
+	 * @param access
+	 *            access flags of the adapted method
+	 * @param name
+	 *            the method's name
+	 * @param desc
+	 *            the method's descriptor
+	 * @param mv
+	 *            the method visitor to which this adapter delegates calls
+	 * @param arrayStrategy
+	 *            callback to create the code that retrieves the reference to
+	 *            the probe array
+	 * @param variableType
+	 *            frame type of the inserted variable
+	 * @param probeStackSize
+	 *            maximum stack size of the code of a single probe
+	 */
+	ProbeInserter(final int access, final String name, final String desc,
+			final MethodVisitor mv, final IProbeArrayStrategy arrayStrategy,
+			final String variableType, final int probeStackSize) {
 		super(InstrSupport.ASM_API_VERSION, mv);
+		this.variableType = variableType;
+		this.probeStackSize = probeStackSize;
 		this.clinit = InstrSupport.CLINIT_NAME.equals(name);
 		this.arrayStrategy = arrayStrategy;
 		int pos = (Opcodes.ACC_STATIC & access) == 0 ? 1 : 0;
@@ -146,11 +181,13 @@ class ProbeInserter extends MethodVisitor implements IProbeInserter {
 
 	@Override
 	public void visitMaxs(final int maxStack, final int maxLocals) {
-		// Max stack size of the probe code is 3 which can add to the
-		// original stack size depending on the probe locations. The accessor
-		// stack size is an absolute maximum, as the accessor code is inserted
-		// at the very beginning of each method when the stack size is empty.
-		final int increasedStack = Math.max(maxStack + 3, accessorStackSize);
+		// Max stack size of the probe code is 3 (6 for counting probes) which
+		// can add to the original stack size depending on the probe locations.
+		// The accessor stack size is an absolute maximum, as the accessor code
+		// is inserted at the very beginning of each method when the stack size
+		// is empty.
+		final int increasedStack = Math.max(maxStack + probeStackSize,
+				accessorStackSize);
 		mv.visitMaxs(increasedStack, maxLocals + 2);
 	}
 
@@ -186,7 +223,7 @@ class ProbeInserter extends MethodVisitor implements IProbeInserter {
 			newLocal[newIdx++] = Opcodes.TOP;
 			pos++;
 		}
-		newLocal[newIdx++] = InstrSupport.DATAFIELD_DESC;
+		newLocal[newIdx++] = variableType;
 		if (idx < nLocal && safetySlotOccupied) {
 			newLocal[newIdx++] = Opcodes.TOP;
 		}
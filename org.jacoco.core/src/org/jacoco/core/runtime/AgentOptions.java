@@ -20,10 +20,13 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.regex.Pattern;
 
+import org.jacoco.core.instr.Granularity;
+
 /**
  * Utility to create and parse options for the runtime agent. Options are
  * represented as a string in the following format:
@@ -111,6 +114,7 @@ public final class AgentOptions {
 	 * @see OutputMode#file
 	 * @see OutputMode#tcpserver
 	 * @see OutputMode#tcpclient
+	 * @see OutputMode#mmap
 	 * @see OutputMode#none
 	 */
 	public static final String OUTPUT = "output";
@@ -144,6 +148,16 @@ public final class AgentOptions {
 		 */
 		tcpclient,
 
+		/**
+		 * Value for the {@link AgentOptions#OUTPUT} parameter: Execution data
+		 * is continuously written to a memory mapped file specified by
+		 * {@link AgentOptions#DESTFILE}, so it is preserved even if the VM is
+		 * killed.
+		 *
+		 * @since 0.8.14
+		 */
+		mmap,
+
 		/**
 		 * Value for the {@link AgentOptions#OUTPUT} parameter: Do not produce
 		 * any output.
@@ -183,6 +197,76 @@ public final class AgentOptions {
 	 */
 	public static final String CLASSDUMPDIR = "classdumpdir";
 
+	/**
+	 * Specifies a directory where the agent caches instrumented class files.
+	 * Classes which have been instrumented before by the same JaCoCo version
+	 * are taken from the cache instead of being instrumented again. The
+	 * directory can be shared by multiple JVMs running in parallel. The
+	 * location is specified as a relative path to the working directory.
+	 * Default is <code>null</code> (no cache).
+	 */
+	public static final String CACHEDIR = "cachedir";
+
+	/**
+	 * Maximum size of the class file cache in megabytes. If the size is
+	 * exceeded the least recently used class files are removed from the cache.
+	 * Default is defined by {@link #DEFAULT_CACHESIZE}.
+	 */
+	public static final String CACHESIZE = "cachesize";
+
+	/**
+	 * Default value for the "cachesize" agent option.
+	 */
+	public static final int DEFAULT_CACHESIZE = 100;
+
+	/**
+	 * Interval in seconds in which the agent checks for classes where all
+	 * probes have been executed. Such classes are retransformed to a version
+	 * without probes to avoid further overhead. Before execution data is reset
+	 * the probes are restored. Requires a JVM which supports class
+	 * retransformation. Default is <code>0</code> (no retransformation).
+	 */
+	public static final String RETRANSFORMINTERVAL = "retransforminterval";
+
+	/**
+	 * Granularity of the probes inserted into classes, one of
+	 * <code>method</code>, <code>line</code> or <code>branch</code>. Coarser
+	 * granularities can reduce the runtime overhead, but the analysis of such
+	 * execution data only provides the corresponding counters. Default is
+	 * <code>branch</code>.
+	 *
+	 * @see Granularity
+	 */
+	public static final String GRANULARITY = "granularity";
+
+	/**
+	 * Specifies whether probes which are implied by other probes should be
+	 * omitted to reduce the runtime overhead. Only applies to the
+	 * <code>branch</code> granularity. Default is <code>false</code>.
+	 *
+	 * @see org.jacoco.core.instr.Instrumenter#setMinimizeProbes(boolean)
+	 */
+	public static final String MINIMIZEPROBES = "minimizeprobes";
+
+	/**
+	 * Specifies whether probes should only write to the probe array if they
+	 * have not been executed before. This avoids contention between cores when
+	 * the same code is executed by many threads in parallel. Default is
+	 * <code>false</code>.
+	 *
+	 * @see org.jacoco.core.instr.Instrumenter#setConditionalProbes(boolean)
+	 */
+	public static final String CONDITIONALPROBES = "conditionalprobes";
+
+	/**
+	 * Specifies whether probes should count their executions. The counts are
+	 * written to the execution data and allow to determine how often every
+	 * line has been executed. Default is <code>false</code>.
+	 *
+	 * @see org.jacoco.core.instr.Instrumenter#setExecutionCounts(boolean)
+	 */
+	public static final String EXECUTIONCOUNTS = "executioncounts";
+
 	/**
 	 * Specifies whether the agent should expose functionality via JMX under the
 	 * name "org.jacoco:type=Runtime". Default is <code>false</code>.
@@ -192,7 +276,9 @@ public final class AgentOptions {
 	private static final Collection<String> VALID_OPTIONS = Arrays.asList(
 			DESTFILE, APPEND, INCLUDES, EXCLUDES, EXCLCLASSLOADER,
 			INCLBOOTSTRAPCLASSES, INCLNOLOCATIONCLASSES, SESSIONID, DUMPONEXIT,
-			OUTPUT, ADDRESS, PORT, CLASSDUMPDIR, JMX);
+			OUTPUT, ADDRESS, PORT, CLASSDUMPDIR, CACHEDIR, CACHESIZE,
+			RETRANSFORMINTERVAL, GRANULARITY, MINIMIZEPROBES, CONDITIONALPROBES,
+			EXECUTIONCOUNTS, JMX);
 
 	private final Map<String, String> options;
 
@@ -250,7 +336,10 @@ public final class AgentOptions {
 
 	private void validateAll() {
 		validatePort(getPort());
+		validateCacheSize(getCacheSize());
+		validateRetransformInterval(getRetransformInterval());
 		getOutput();
+		getGranularity();
 	}
 
 	private void validatePort(final int port) {
@@ -259,6 +348,19 @@ public final class AgentOptions {
 		}
 	}
 
+	private void validateCacheSize(final int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("cachesize must be positive");
+		}
+	}
+
+	private void validateRetransformInterval(final int interval) {
+		if (interval < 0) {
+			throw new IllegalArgumentException(
+					"retransforminterval must not be negative");
+		}
+	}
+
 	/**
 	 * Returns the output file location.
 	 *
@@ -538,6 +640,160 @@ public final class AgentOptions {
 		setOption(CLASSDUMPDIR, location);
 	}
 
+	/**
+	 * Returns the location of the directory where instrumented class files are
+	 * cached.
+	 *
+	 * @return cache location or <code>null</code> (no cache)
+	 */
+	public String getCacheDir() {
+		return getOption(CACHEDIR, null);
+	}
+
+	/**
+	 * Sets the directory where instrumented class files are cached.
+	 *
+	 * @param location
+	 *            cache location or <code>null</code> (no cache)
+	 */
+	public void setCacheDir(final String location) {
+		setOption(CACHEDIR, location);
+	}
+
+	/**
+	 * Returns the maximum size of the class file cache in megabytes.
+	 *
+	 * @return maximum cache size in megabytes
+	 */
+	public int getCacheSize() {
+		return getOption(CACHESIZE, DEFAULT_CACHESIZE);
+	}
+
+	/**
+	 * Sets the maximum size of the class file cache in megabytes.
+	 *
+	 * @param size
+	 *            maximum cache size in megabytes, must be positive
+	 */
+	public void setCacheSize(final int size) {
+		validateCacheSize(size);
+		setOption(CACHESIZE, size);
+	}
+
+	/**
+	 * Returns the interval in seconds in which classes with all probes
+	 * executed are retransformed to a version without probes.
+	 *
+	 * @return interval in seconds or <code>0</code> (no retransformation)
+	 */
+	public int getRetransformInterval() {
+		return getOption(RETRANSFORMINTERVAL, 0);
+	}
+
+	/**
+	 * Sets the interval in seconds in which classes with all probes executed
+	 * are retransformed to a version without probes.
+	 *
+	 * @param interval
+	 *            interval in seconds or <code>0</code> (no retransformation)
+	 */
+	public void setRetransformInterval(final int interval) {
+		validateRetransformInterval(interval);
+		setOption(RETRANSFORMINTERVAL, interval);
+	}
+
+	/**
+	 * Returns the granularity of the inserted probes.
+	 *
+	 * @return granularity of the probes
+	 */
+	public Granularity getGranularity() {
+		final String value = options.get(GRANULARITY);
+		return value == null ? Granularity.BRANCH
+				: Granularity.valueOf(value.toUpperCase(Locale.ENGLISH));
+	}
+
+	/**
+	 * Sets the granularity of the inserted probes.
+	 *
+	 * @param granularity
+	 *            one of <code>method</code>, <code>line</code> or
+	 *            <code>branch</code>
+	 */
+	public void setGranularity(final String granularity) {
+		setGranularity(
+				Granularity.valueOf(granularity.toUpperCase(Locale.ENGLISH)));
+	}
+
+	/**
+	 * Sets the granularity of the inserted probes.
+	 *
+	 * @param granularity
+	 *            granularity of the probes
+	 */
+	public void setGranularity(final Granularity granularity) {
+		setOption(GRANULARITY, granularity.name().toLowerCase(Locale.ENGLISH));
+	}
+
+	/**
+	 * Returns whether probes which are implied by other probes are omitted.
+	 *
+	 * @return <code>true</code> if implied probes are omitted
+	 */
+	public boolean getMinimizeProbes() {
+		return getOption(MINIMIZEPROBES, false);
+	}
+
+	/**
+	 * Sets whether probes which are implied by other probes should be omitted.
+	 *
+	 * @param minimize
+	 *            <code>true</code> if implied probes should be omitted
+	 */
+	public void setMinimizeProbes(final boolean minimize) {
+		setOption(MINIMIZEPROBES, minimize);
+	}
+
+	/**
+	 * Returns whether probes only write to the probe array if they have not
+	 * been executed before.
+	 *
+	 * @return <code>true</code> if probes write only once
+	 */
+	public boolean getConditionalProbes() {
+		return getOption(CONDITIONALPROBES, false);
+	}
+
+	/**
+	 * Sets whether probes should only write to the probe array if they have
+	 * not been executed before.
+	 *
+	 * @param conditional
+	 *            <code>true</code> if probes should write only once
+	 */
+	public void setConditionalProbes(final boolean conditional) {
+		setOption(CONDITIONALPROBES, conditional);
+	}
+
+	/**
+	 * Returns whether probes count their executions.
+	 *
+	 * @return <code>true</code> if probes count executions
+	 */
+	public boolean getExecutionCounts() {
+		return getOption(EXECUTIONCOUNTS, false);
+	}
+
+	/**
+	 * Sets whether probes should count their executions.
+	 *
+	 * @param counts
+	 *            <code>true</code> if probes should count executions
+	 */
+	public void setExecutionCounts(final boolean counts) {
+		setOption(EXECUTIONCOUNTS, counts);
+	}
+
 	/**
 	 * Returns whether the agent exposes functionality via JMX.
 	 *
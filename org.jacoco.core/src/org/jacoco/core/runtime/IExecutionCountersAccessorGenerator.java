@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.runtime;
+
+import org.objectweb.asm.MethodVisitor;
+
+/**
+ * Extension of {@link IExecutionDataAccessorGenerator} for runtimes which
+ * support classes instrumented to count executions. Instead of a
+ * <code>boolean[]</code> instance such classes obtain counter arrays from the
+ * runtime.
+ *
+ * @since 0.8.14
+ */
+public interface IExecutionCountersAccessorGenerator
+		extends IExecutionDataAccessorGenerator {
+
+	/**
+	 * This method generates the byte code required to obtain the execution
+	 * counters for the class with the given id. The same rules as for
+	 * {@link #generateDataAccessor(long, String, int, MethodVisitor)} apply,
+	 * except that the generated code must push an <code>long[][]</code>
+	 * instance to the operand stack. Every element of this array is a counter
+	 * array of length <code>probecount</code>. The number of counter arrays is
+	 * a power of two, so threads can select a counter array with a bit mask to
+	 * avoid contention.
+	 *
+	 * @param classid
+	 *            identifier of the class
+	 * @param classname
+	 *            VM class name
+	 * @param probecount
+	 *            probe count for this class
+	 * @param mv
+	 *            code output
+	 * @return additional stack size required by the implementation, including
+	 *         the instance pushed to the stack
+	 */
+	int generateCountersAccessor(long classid, String classname,
+			int probecount, MethodVisitor mv);
+
+}
@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.runtime;
+
+import java.io.IOException;
+
+/**
+ * Extension of {@link IRemoteCommandVisitor} for runtimes which support delta
+ * dumps. Clients must only send delta dump commands to runtimes which know
+ * them, runtimes which do not implement this interface close the connection
+ * when they receive such a command. A delta only advances the checkpoint of
+ * the runtime once the client has confirmed its receipt, so a delta which gets
+ * lost on its way is contained in the next delta again.
+ *
+ * @since 0.8.14
+ */
+public interface IRemoteDeltaCommandVisitor extends IRemoteCommandVisitor {
+
+	/**
+	 * Requests a dump of the execution data which has been recorded since the
+	 * last confirmed delta dump for the given checkpoint or the last reset.
+	 *
+	 * @see RuntimeData#collectDelta(String,
+	 *      org.jacoco.core.data.IExecutionDataVisitor,
+	 *      org.jacoco.core.data.ISessionInfoVisitor)
+	 * @param checkpoint
+	 *            name of the checkpoint
+	 * @throws IOException
+	 *             in case of problems with the remote connection
+	 */
+	void visitDeltaDumpCommand(String checkpoint) throws IOException;
+
+	/**
+	 * Confirms that the last delta dump for the given checkpoint has been
+	 * received completely. This command is not answered.
+	 *
+	 * @see RuntimeData#confirmDelta(String)
+	 * @param checkpoint
+	 *            name of the checkpoint
+	 * @throws IOException
+	 *             in case of problems with the remote connection
+	 */
+	void visitDeltaConfirmCommand(String checkpoint) throws IOException;
+
+}
@@ -20,9 +20,11 @@ import org.objectweb.asm.Opcodes;
  * {@link IRuntime} which defines a new class using
  * {@code java.lang.invoke.MethodHandles.Lookup.defineClass} introduced in Java
  * 9. Module where class will be defined must be opened to at least module of
- * this class.
+ * this class. Instrumented classes access the runtime data through typed
+ * static methods of the defined class, see {@link MethodHandleAccessor}.
  */
-public class InjectedClassRuntime extends AbstractRuntime {
+public class InjectedClassRuntime extends AbstractRuntime
+		implements IExecutionCountersAccessorGenerator {
 
 	private static final String FIELD_NAME = "data";
 
@@ -51,11 +53,11 @@ public class InjectedClassRuntime extends AbstractRuntime {
 	@Override
 	public void startup(final RuntimeData data) throws Exception {
 		super.startup(data);
-		Lookup //
+		final Class<?> injectedClass = Lookup //
 				.privateLookupIn(locator, Lookup.lookup()) //
-				.defineClass(createClass(injectedClassName)) //
-				.getField(FIELD_NAME) //
-				.set(null, data);
+				.defineClass(createClass(injectedClassName));
+		injectedClass.getField(FIELD_NAME).set(null, data);
+		MethodHandleAccessor.bind(injectedClass, FIELD_NAME, data);
 	}
 
 	public void shutdown() {
@@ -64,12 +66,19 @@ public class InjectedClassRuntime extends AbstractRuntime {
 
 	public int generateDataAccessor(final long classid, final String classname,
 			final int probecount, final MethodVisitor mv) {
-		mv.visitFieldInsn(Opcodes.GETSTATIC, injectedClassName, FIELD_NAME,
-				FIELD_TYPE);
+		MethodHandleAccessor.generateProbesAccessCall(injectedClassName,
+				FIELD_NAME, classid, classname, probecount, mv);
 
-		RuntimeData.generateAccessCall(classid, classname, probecount, mv);
+		return 4;
+	}
+
+	public int generateCountersAccessor(final long classid,
+			final String classname, final int probecount,
+			final MethodVisitor mv) {
+		MethodHandleAccessor.generateCountersAccessCall(injectedClassName,
+				FIELD_NAME, classid, classname, probecount, mv);
 
-		return 6;
+		return 4;
 	}
 
 	private static byte[] createClass(final String name) {
@@ -78,6 +87,8 @@ public class InjectedClassRuntime extends AbstractRuntime {
 				name.replace('.', '/'), null, "java/lang/Object", null);
 		cw.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, FIELD_NAME,
 				FIELD_TYPE, null, null);
+		MethodHandleAccessor.createMembers(cw, name.replace('.', '/'),
+				FIELD_NAME);
 		cw.visitEnd();
 		return cw.toByteArray();
 	}
@@ -32,7 +32,8 @@ import org.objectweb.asm.Opcodes;
  * for this channel that puts the probe data structure into the first slot of
  * the parameter array.
  */
-public class LoggerRuntime extends AbstractRuntime {
+public class LoggerRuntime extends AbstractRuntime
+		implements IExecutionCountersAccessorGenerator {
 
 	private static final String CHANNEL = "jacoco-runtime";
 
@@ -79,6 +80,31 @@ public class LoggerRuntime extends AbstractRuntime {
 
 		RuntimeData.generateArgumentArray(classid, classname, probecount, mv);
 
+		// 2. Call Logger and load data structure from parameter array:
+
+		generateLoggerCall(mv);
+		mv.visitTypeInsn(Opcodes.CHECKCAST, InstrSupport.DATAFIELD_DESC);
+
+		// Stack[0]: [Z
+
+		return 5; // Maximum local stack size is 5
+	}
+
+	public int generateCountersAccessor(final long classid,
+			final String classname, final int probecount,
+			final MethodVisitor mv) {
+		RuntimeData.generateCountersArgumentArray(classid, classname,
+				probecount, mv);
+		generateLoggerCall(mv);
+		mv.visitTypeInsn(Opcodes.CHECKCAST, InstrSupport.COUNTERSFIELD_DESC);
+
+		// Stack[0]: [[J
+
+		return 5;
+	}
+
+	private void generateLoggerCall(final MethodVisitor mv) {
+
 		// Stack[0]: [Ljava/lang/Object;
 
 		mv.visitInsn(Opcodes.DUP);
@@ -86,8 +112,6 @@ public class LoggerRuntime extends AbstractRuntime {
 		// Stack[1]: [Ljava/lang/Object;
 		// Stack[0]: [Ljava/lang/Object;
 
-		// 2. Call Logger:
-
 		mv.visitLdcInsn(CHANNEL);
 		mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/util/logging/Logger",
 				"getLogger", "(Ljava/lang/String;)Ljava/util/logging/Logger;",
@@ -141,15 +165,10 @@ public class LoggerRuntime extends AbstractRuntime {
 
 		// Stack[0]: [Ljava/lang/Object;
 
-		// 3. Load data structure from parameter array:
-
 		mv.visitInsn(Opcodes.ICONST_0);
 		mv.visitInsn(Opcodes.AALOAD);
-		mv.visitTypeInsn(Opcodes.CHECKCAST, InstrSupport.DATAFIELD_DESC);
-
-		// Stack[0]: [Z
 
-		return 5; // Maximum local stack size is 5
+		// Stack[0]: Ljava/lang/Object;
 	}
 
 	@Override
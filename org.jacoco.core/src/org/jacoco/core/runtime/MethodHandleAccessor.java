@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.runtime;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Typed access to {@link RuntimeData} from instrumented classes. A container
+ * class which is visible to all instrumented classes gets public static
+ * {@code java.lang.invoke.MethodHandle} fields bound to the runtime data and
+ * public static methods with primitive parameters which invoke these handles.
+ * Accessors call these methods, so in contrast to
+ * {@link RuntimeData#generateAccessCall(long, String, int, MethodVisitor)}
+ * they neither allocate an argument array nor box the class id and the probe
+ * count. The {@code java.lang.invoke} API is only used through reflection as
+ * it is not available before Java 7.
+ */
+final class MethodHandleAccessor {
+
+	private static final String HANDLE_TYPE = "java/lang/invoke/MethodHandle";
+
+	private static final String HANDLE_DESC = "L" + HANDLE_TYPE + ";";
+
+	private static final String PROBES_SUFFIX = "Probes";
+
+	private static final String PROBES_DESC = "(JLjava/lang/String;I)[Z";
+
+	private static final String COUNTERS_SUFFIX = "Counters";
+
+	private static final String COUNTERS_DESC = "(JLjava/lang/String;I)[[J";
+
+	private MethodHandleAccessor() {
+	}
+
+	/**
+	 * Checks whether the members for typed access can be added to a container
+	 * class with the given version in the current VM.
+	 *
+	 * @param classVersion
+	 *            version of the container class
+	 * @return <code>true</code> if method handles can be used
+	 */
+	static boolean isSupported(final int classVersion) {
+		if ((classVersion & 0xFFFF) < Opcodes.V1_7) {
+			return false;
+		}
+		try {
+			Class.forName("java.lang.invoke.MethodHandle");
+			return true;
+		} catch (final ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Adds the fields and methods for typed access to a container class.
+	 *
+	 * @param cv
+	 *            visitor of the container class
+	 * @param owner
+	 *            VM name of the container class
+	 * @param prefix
+	 *            prefix for the names of the added members
+	 */
+	static void createMembers(final ClassVisitor cv, final String owner,
+			final String prefix) {
+		createMembers(cv, owner, prefix + PROBES_SUFFIX, PROBES_DESC);
+		createMembers(cv, owner, prefix + COUNTERS_SUFFIX, COUNTERS_DESC);
+	}
+
+	private static void createMembers(final ClassVisitor cv,
+			final String owner, final String name, final String desc) {
+		cv.visitField(
+				Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_SYNTHETIC
+						| Opcodes.ACC_TRANSIENT,
+				name, HANDLE_DESC, null, null);
+		final MethodVisitor mv = cv.visitMethod(
+				Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_SYNTHETIC,
+				name, desc, null, null);
+		mv.visitCode();
+		mv.visitFieldInsn(Opcodes.GETSTATIC, owner, name, HANDLE_DESC);
+		mv.visitVarInsn(Opcodes.LLOAD, 0);
+		mv.visitVarInsn(Opcodes.ALOAD, 2);
+		mv.visitVarInsn(Opcodes.ILOAD, 3);
+		mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, HANDLE_TYPE, "invokeExact",
+				desc, false);
+		mv.visitInsn(Opcodes.ARETURN);
+		mv.visitMaxs(5, 4);
+		mv.visitEnd();
+	}
+
+	/**
+	 * Checks whether the given container class has the members for typed
+	 * access.
+	 *
+	 * @param container
+	 *            container class
+	 * @param prefix
+	 *            prefix for the names of the members
+	 * @return <code>true</code> if the members are available
+	 */
+	static boolean hasMembers(final Class<?> container, final String prefix) {
+		try {
+			container.getField(prefix + PROBES_SUFFIX);
+			container.getField(prefix + COUNTERS_SUFFIX);
+			return true;
+		} catch (final NoSuchFieldException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Binds the method handles of the given container class to the given
+	 * runtime data.
+	 *
+	 * @param container
+	 *            container class with members for typed access
+	 * @param prefix
+	 *            prefix for the names of the members
+	 * @param data
+	 *            runtime data to bind
+	 * @throws Exception
+	 *             if the method handles can not be created
+	 */
+	static void bind(final Class<?> container, final String prefix,
+			final RuntimeData data) throws Exception {
+		bind(container.getField(prefix + PROBES_SUFFIX), data, "getProbes",
+				boolean[].class);
+		bind(container.getField(prefix + COUNTERS_SUFFIX), data,
+				"getCounters", long[][].class);
+	}
+
+	private static void bind(final Field field, final RuntimeData data,
+			final String name, final Class<?> returnType) throws Exception {
+		final Class<?> methodHandles = Class
+				.forName("java.lang.invoke.MethodHandles");
+		final Class<?> lookupType = Class
+				.forName("java.lang.invoke.MethodHandles$Lookup");
+		final Class<?> methodTypeType = Class
+				.forName("java.lang.invoke.MethodType");
+		final Class<?> handleType = Class
+				.forName("java.lang.invoke.MethodHandle");
+
+		final Object lookup = methodHandles.getMethod("lookup").invoke(null);
+		final Object type = methodTypeType
+				.getMethod("methodType", Class.class, Class[].class)
+				.invoke(null, returnType, new Class<?>[] { Long.TYPE,
+						String.class, Integer.TYPE });
+		final Method findVirtual = lookupType.getMethod("findVirtual",
+				Class.class, String.class, methodTypeType);
+		final Object handle = findVirtual.invoke(lookup, RuntimeData.class,
+				name, type);
+		field.set(null, handleType.getMethod("bindTo", Object.class)
+				.invoke(handle, data));
+	}
+
+	/**
+	 * Generates code which calls the typed access method of the container
+	 * class and leaves the probe array of type <code>boolean[]</code> on the
+	 * operand stack. The generated code requires a stack size of 4.
+	 *
+	 * @param owner
+	 *            VM name of the container class
+	 * @param prefix
+	 *            prefix for the names of the members
+	 * @param classid
+	 *            class identifier
+	 * @param classname
+	 *            VM class name
+	 * @param probecount
+	 *            probe count for this class
+	 * @param mv
+	 *            visitor to emit generated code
+	 */
+	static void generateProbesAccessCall(final String owner,
+			final String prefix, final long classid, final String classname,
+			final int probecount, final MethodVisitor mv) {
+		generateAccessCall(owner, prefix + PROBES_SUFFIX, PROBES_DESC, classid,
+				classname, probecount, mv);
+	}
+
+	/**
+	 * Generates code which calls the typed access method of the container
+	 * class and leaves the counter arrays of type <code>long[][]</code> on the
+	 * operand stack. The generated code requires a stack size of 4.
+	 *
+	 * @param owner
+	 *            VM name of the container class
+	 * @param prefix
+	 *            prefix for the names of the members
+	 * @param classid
+	 *            class identifier
+	 * @param classname
+	 *            VM class name
+	 * @param probecount
+	 *            probe count for this class
+	 * @param mv
+	 *            visitor to emit generated code
+	 */
+	static void generateCountersAccessCall(final String owner,
+			final String prefix, final long classid, final String classname,
+			final int probecount, final MethodVisitor mv) {
+		generateAccessCall(owner, prefix + COUNTERS_SUFFIX, COUNTERS_DESC,
+				classid, classname, probecount, mv);
+	}
+
+	private static void generateAccessCall(final String owner,
+			final String name, final String desc, final long classid,
+			final String classname, final int probecount,
+			final MethodVisitor mv) {
+		mv.visitLdcInsn(Long.valueOf(classid));
+		mv.visitLdcInsn(classname);
+		InstrSupport.push(mv, probecount);
+		mv.visitMethodInsn(Opcodes.INVOKESTATIC, owner, name, desc, false);
+	}
+
+}
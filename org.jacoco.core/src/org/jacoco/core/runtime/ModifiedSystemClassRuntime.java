@@ -30,10 +30,13 @@ import org.objectweb.asm.Opcodes;
 /**
  * This {@link IRuntime} implementation works with a modified system class. A
  * new static field is added to a bootstrap class that will be used by
- * instrumented classes. As the system class itself needs to be instrumented
- * this runtime requires a Java agent.
+ * instrumented classes. On Java 7 and later typed access methods backed by
+ * method handles are added as well, which instrumented classes call without
+ * allocating argument arrays. As the system class itself needs to be
+ * instrumented this runtime requires a Java agent.
  */
-public class ModifiedSystemClassRuntime extends AbstractRuntime {
+public class ModifiedSystemClassRuntime extends AbstractRuntime
+		implements IExecutionCountersAccessorGenerator {
 
 	private static final String ACCESS_FIELD_TYPE = "Ljava/lang/Object;";
 
@@ -43,6 +46,9 @@ public class ModifiedSystemClassRuntime extends AbstractRuntime {
 
 	private final String accessFieldName;
 
+	/** whether the system class has members for typed access */
+	private final boolean typedAccess;
+
 	/**
 	 * Creates a new runtime based on the given class and members.
 	 *
@@ -58,6 +64,8 @@ public class ModifiedSystemClassRuntime extends AbstractRuntime {
 		this.systemClass = systemClass;
 		this.systemClassName = systemClass.getName().replace('.', '/');
 		this.accessFieldName = accessFieldName;
+		this.typedAccess = MethodHandleAccessor.hasMembers(systemClass,
+				accessFieldName);
 	}
 
 	@Override
@@ -65,6 +73,9 @@ public class ModifiedSystemClassRuntime extends AbstractRuntime {
 		super.startup(data);
 		final Field field = systemClass.getField(accessFieldName);
 		field.set(null, data);
+		if (typedAccess) {
+			MethodHandleAccessor.bind(systemClass, accessFieldName, data);
+		}
 	}
 
 	public void shutdown() {
@@ -73,6 +84,11 @@ public class ModifiedSystemClassRuntime extends AbstractRuntime {
 
 	public int generateDataAccessor(final long classid, final String classname,
 			final int probecount, final MethodVisitor mv) {
+		if (typedAccess) {
+			MethodHandleAccessor.generateProbesAccessCall(systemClassName,
+					accessFieldName, classid, classname, probecount, mv);
+			return 4;
+		}
 
 		mv.visitFieldInsn(Opcodes.GETSTATIC, systemClassName, accessFieldName,
 				ACCESS_FIELD_TYPE);
@@ -82,6 +98,24 @@ public class ModifiedSystemClassRuntime extends AbstractRuntime {
 		return 6;
 	}
 
+	public int generateCountersAccessor(final long classid,
+			final String classname, final int probecount,
+			final MethodVisitor mv) {
+		if (typedAccess) {
+			MethodHandleAccessor.generateCountersAccessCall(systemClassName,
+					accessFieldName, classid, classname, probecount, mv);
+			return 4;
+		}
+
+		mv.visitFieldInsn(Opcodes.GETSTATIC, systemClassName, accessFieldName,
+				ACCESS_FIELD_TYPE);
+
+		RuntimeData.generateCountersAccessCall(classid, classname, probecount,
+				mv);
+
+		return 6;
+	}
+
 	/**
 	 * Creates a new {@link ModifiedSystemClassRuntime} using the given class as
 	 * the data container. Member is created with internal default name. The
@@ -145,7 +179,9 @@ public class ModifiedSystemClassRuntime extends AbstractRuntime {
 	}
 
 	/**
-	 * Adds the static data field to the given class definition.
+	 * Adds the static data field to the given class definition. If supported
+	 * by the class version and the current VM also the members for typed
+	 * access are added.
 	 *
 	 * @param source
 	 *            class definition source
@@ -159,9 +195,27 @@ public class ModifiedSystemClassRuntime extends AbstractRuntime {
 		final ClassWriter writer = new ClassWriter(reader, 0);
 		reader.accept(new ClassVisitor(InstrSupport.ASM_API_VERSION, writer) {
 
+			private String name;
+
+			private int version;
+
+			@Override
+			public void visit(final int version, final int access,
+					final String name, final String signature,
+					final String superName, final String[] interfaces) {
+				this.name = name;
+				this.version = version;
+				super.visit(version, access, name, signature, superName,
+						interfaces);
+			}
+
 			@Override
 			public void visitEnd() {
 				createDataField(cv, accessFieldName);
+				if (MethodHandleAccessor.isSupported(version)) {
+					MethodHandleAccessor.createMembers(cv, name,
+							accessFieldName);
+				}
 				super.visitEnd();
 			}
 
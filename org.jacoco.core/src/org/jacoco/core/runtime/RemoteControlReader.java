@@ -42,6 +42,12 @@ public class RemoteControlReader extends ExecutionDataReader {
 		case RemoteControlWriter.BLOCK_CMDDUMP:
 			readDumpCommand();
 			return true;
+		case RemoteControlWriter.BLOCK_CMDDELTADUMP:
+			getDeltaCommandVisitor().visitDeltaDumpCommand(in.readUTF());
+			return true;
+		case RemoteControlWriter.BLOCK_CMDDELTACONFIRM:
+			getDeltaCommandVisitor().visitDeltaConfirmCommand(in.readUTF());
+			return true;
 		case RemoteControlWriter.BLOCK_CMDOK:
 			return false;
 		default:
@@ -50,7 +56,8 @@ public class RemoteControlReader extends ExecutionDataReader {
 	}
 
 	/**
-	 * Sets a listener for agent commands.
+	 * Sets a listener for agent commands. To receive delta dump commands the
+	 * listener has to implement {@link IRemoteDeltaCommandVisitor}.
 	 *
 	 * @param visitor
 	 *            visitor to retrieve agent commands
@@ -68,4 +75,15 @@ public class RemoteControlReader extends ExecutionDataReader {
 		remoteCommandVisitor.visitDumpCommand(dump, reset);
 	}
 
+	private IRemoteDeltaCommandVisitor getDeltaCommandVisitor()
+			throws IOException {
+		if (remoteCommandVisitor == null) {
+			throw new IOException("No remote command visitor.");
+		}
+		if (!(remoteCommandVisitor instanceof IRemoteDeltaCommandVisitor)) {
+			throw new IOException("Delta dump command not supported.");
+		}
+		return (IRemoteDeltaCommandVisitor) remoteCommandVisitor;
+	}
+
 }
@@ -21,7 +21,7 @@ import org.jacoco.core.data.ExecutionDataWriter;
  * {@link ExecutionDataWriter} with commands added for runtime remote control.
  */
 public class RemoteControlWriter extends ExecutionDataWriter
-		implements IRemoteCommandVisitor {
+		implements IRemoteDeltaCommandVisitor {
 
 	/** Block identifier to confirm successful command execution. */
 	public static final byte BLOCK_CMDOK = 0x20;
@@ -29,6 +29,20 @@ public class RemoteControlWriter extends ExecutionDataWriter
 	/** Block identifier for dump command */
 	public static final byte BLOCK_CMDDUMP = 0x40;
 
+	/**
+	 * Block identifier for delta dump command
+	 *
+	 * @since 0.8.14
+	 */
+	public static final byte BLOCK_CMDDELTADUMP = 0x41;
+
+	/**
+	 * Block identifier for delta confirm command
+	 *
+	 * @since 0.8.14
+	 */
+	public static final byte BLOCK_CMDDELTACONFIRM = 0x42;
+
 	/**
 	 * Creates a new writer based on the given output stream.
 	 *
@@ -59,4 +73,16 @@ public class RemoteControlWriter extends ExecutionDataWriter
 		out.writeBoolean(reset);
 	}
 
+	public void visitDeltaDumpCommand(final String checkpoint)
+			throws IOException {
+		out.writeByte(RemoteControlWriter.BLOCK_CMDDELTADUMP);
+		out.writeUTF(checkpoint);
+	}
+
+	public void visitDeltaConfirmCommand(final String checkpoint)
+			throws IOException {
+		out.writeByte(RemoteControlWriter.BLOCK_CMDDELTACONFIRM);
+		out.writeUTF(checkpoint);
+	}
+
 }
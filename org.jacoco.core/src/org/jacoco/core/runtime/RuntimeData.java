@@ -12,11 +12,20 @@
  *******************************************************************************/
 package org.jacoco.core.runtime;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.IExecutionDataVisitor;
 import org.jacoco.core.data.ISessionInfoVisitor;
 import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.internal.data.ConcurrentLongHashMap;
+import org.jacoco.core.internal.data.LongHashMap;
+import org.jacoco.core.internal.data.PackedExecutionDataStore;
 import org.jacoco.core.internal.instr.InstrSupport;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
@@ -27,9 +36,30 @@ import org.objectweb.asm.Opcodes;
  */
 public class RuntimeData {
 
-	/** store for execution data */
+	/** maximum number of counter arrays per class */
+	private static final int MAX_COUNTER_STRIPES = 16;
+
+	/**
+	 * store for execution data, execution data registered by instrumented
+	 * classes is transferred to this store before it is collected or reset
+	 */
 	protected final ExecutionDataStore store;
 
+	/** lock-free index of all execution data registered at runtime */
+	private final ConcurrentLongHashMap<ExecutionData> entries;
+
+	/** counter arrays of classes instrumented to count executions */
+	private final ConcurrentLongHashMap<Counters> counters;
+
+	/** number of counter arrays per class, always a power of two */
+	private final int counterStripes;
+
+	/**
+	 * checkpoints of delta collections by name, guarded by the lock on the
+	 * store
+	 */
+	private final Map<String, Checkpoint> checkpoints;
+
 	private long startTimeStamp;
 
 	private String sessionId;
@@ -38,11 +68,38 @@ public class RuntimeData {
 	 * Creates a new runtime.
 	 */
 	public RuntimeData() {
+		this(getDefaultCounterStripes());
+	}
+
+	/**
+	 * Creates a new runtime with the given number of counter arrays per class.
+	 *
+	 * @param counterStripes
+	 *            number of counter arrays, must be a power of two
+	 */
+	RuntimeData(final int counterStripes) {
 		store = new ExecutionDataStore();
+		entries = new ConcurrentLongHashMap<ExecutionData>();
+		counters = new ConcurrentLongHashMap<Counters>();
+		this.counterStripes = counterStripes;
+		checkpoints = new HashMap<String, Checkpoint>();
 		sessionId = "<none>";
 		startTimeStamp = System.currentTimeMillis();
 	}
 
+	/**
+	 * One counter array per available processor, so threads running in
+	 * parallel most likely increment different arrays.
+	 */
+	private static int getDefaultCounterStripes() {
+		final int processors = Runtime.getRuntime().availableProcessors();
+		int stripes = 1;
+		while (stripes < processors && stripes < MAX_COUNTER_STRIPES) {
+			stripes <<= 1;
+		}
+		return stripes;
+	}
+
 	/**
 	 * Sets a session identifier for this runtime. The identifier is used when
 	 * execution data is collected. If no identifier is explicitly set an
@@ -81,31 +138,362 @@ public class RuntimeData {
 	 */
 	public final void collect(final IExecutionDataVisitor executionDataVisitor,
 			final ISessionInfoVisitor sessionInfoVisitor, final boolean reset) {
-		synchronized (store) {
-			final SessionInfo info = new SessionInfo(sessionId, startTimeStamp,
-					System.currentTimeMillis());
-			sessionInfoVisitor.visitSessionInfo(info);
-			store.accept(executionDataVisitor);
+		try {
 			if (reset) {
-				reset();
+				beforeReset();
+			}
+			synchronized (store) {
+				final SessionInfo info = new SessionInfo(sessionId,
+						startTimeStamp, System.currentTimeMillis());
+				sessionInfoVisitor.visitSessionInfo(info);
+				transferEntries();
+				transferCounters();
+				store.accept(executionDataVisitor);
+				if (reset) {
+					resetStore();
+				}
+			}
+		} finally {
+			if (reset) {
+				afterReset();
 			}
 		}
 	}
 
+	/**
+	 * Collects the current execution data like
+	 * {@link #collect(IExecutionDataVisitor, ISessionInfoVisitor, boolean)}
+	 * but only holds the lock on the store while the probes are copied into a
+	 * compact snapshot where probes are packed into 64 bit words. The visitors
+	 * are called after the lock has been released, so slow visitors like
+	 * remote connections do not block concurrent collections or resets. The
+	 * visitors receive copies of the execution data.
+	 *
+	 * @param executionDataVisitor
+	 *            handler to write coverage data to
+	 * @param sessionInfoVisitor
+	 *            handler to write session information to
+	 * @param reset
+	 *            if <code>true</code> the current coverage information is also
+	 *            cleared
+	 * @since 0.8.14
+	 */
+	public final void collectSnapshot(
+			final IExecutionDataVisitor executionDataVisitor,
+			final ISessionInfoVisitor sessionInfoVisitor, final boolean reset) {
+		final SessionInfo info;
+		final PackedExecutionDataStore snapshot = new PackedExecutionDataStore();
+		try {
+			if (reset) {
+				beforeReset();
+			}
+			synchronized (store) {
+				info = new SessionInfo(sessionId, startTimeStamp,
+						System.currentTimeMillis());
+				transferEntries();
+				transferCounters();
+				for (final ExecutionData data : store.getContents()) {
+					snapshot.put(data);
+				}
+				if (reset) {
+					resetStore();
+				}
+			}
+		} finally {
+			if (reset) {
+				afterReset();
+			}
+		}
+		sessionInfoVisitor.visitSessionInfo(info);
+		snapshot.accept(executionDataVisitor);
+	}
+
+	/**
+	 * Collects the execution data which changed since the given checkpoint.
+	 * Only classes with probes which have been executed since then are
+	 * written, and their execution data only contains these probes. For
+	 * classes with execution counts the counts are the executions since then.
+	 * Like
+	 * {@link #collectSnapshot(IExecutionDataVisitor, ISessionInfoVisitor, boolean)}
+	 * the visitors are called after the lock on the store has been released.
+	 * <p>
+	 * The checkpoint only advances when the delta is confirmed with
+	 * {@link #confirmDelta(String)} after it has been delivered. Until then
+	 * every delta collection for the same checkpoint again contains the
+	 * execution data of unconfirmed deltas, so a delta which gets lost is not
+	 * missing in the merged execution data. Merging all confirmed deltas of a
+	 * session results in the same execution data as a single full collection.
+	 * Checkpoints are independent of each other, every consumer of deltas
+	 * should use its own checkpoint. All checkpoints are discarded on reset.
+	 *
+	 * @param checkpoint
+	 *            name of the checkpoint, created on first use
+	 * @param executionDataVisitor
+	 *            handler to write coverage data to
+	 * @param sessionInfoVisitor
+	 *            handler to write session information to
+	 * @since 0.8.14
+	 */
+	public final void collectDelta(final String checkpoint,
+			final IExecutionDataVisitor executionDataVisitor,
+			final ISessionInfoVisitor sessionInfoVisitor) {
+		collectDelta(checkpoint, executionDataVisitor, sessionInfoVisitor,
+				false);
+	}
+
+	/**
+	 * Collects the execution data which changed since the given checkpoint
+	 * like
+	 * {@link #collectDelta(String, IExecutionDataVisitor, ISessionInfoVisitor)}
+	 * and optionally resets the coverage information while still holding the
+	 * lock on the store. Therefore no executions get lost between the
+	 * collection and the reset. As the reset discards all checkpoints the
+	 * collected delta does not need to be confirmed.
+	 *
+	 * @param checkpoint
+	 *            name of the checkpoint, created on first use
+	 * @param executionDataVisitor
+	 *            handler to write coverage data to
+	 * @param sessionInfoVisitor
+	 *            handler to write session information to
+	 * @param reset
+	 *            if <code>true</code> the current coverage information is also
+	 *            cleared
+	 * @since 0.8.14
+	 */
+	public final void collectDelta(final String checkpoint,
+			final IExecutionDataVisitor executionDataVisitor,
+			final ISessionInfoVisitor sessionInfoVisitor, final boolean reset) {
+		final SessionInfo info;
+		final PackedExecutionDataStore snapshot = new PackedExecutionDataStore();
+		try {
+			if (reset) {
+				beforeReset();
+			}
+			synchronized (store) {
+				info = new SessionInfo(sessionId, startTimeStamp,
+						System.currentTimeMillis());
+				transferEntries();
+				transferCounters();
+				Checkpoint c = checkpoints.get(checkpoint);
+				if (c == null) {
+					c = new Checkpoint();
+					checkpoints.put(checkpoint, c);
+				}
+				c.pending.clear();
+				for (final ExecutionData data : store.getContents()) {
+					final ExecutionData delta = c.getDelta(data);
+					if (delta != null) {
+						c.pending.add(delta);
+						snapshot.put(delta);
+					}
+				}
+				if (reset) {
+					resetStore();
+				}
+			}
+		} finally {
+			if (reset) {
+				afterReset();
+			}
+		}
+		sessionInfoVisitor.visitSessionInfo(info);
+		snapshot.accept(executionDataVisitor);
+	}
+
+	/**
+	 * Confirms that the last delta collected for the given checkpoint has been
+	 * delivered. The checkpoint then advances to the state of this delta, so
+	 * subsequent deltas do not contain its execution data any more. Does
+	 * nothing if there is no unconfirmed delta for this checkpoint, e.g. when
+	 * the coverage information has been reset in the meantime.
+	 *
+	 * @param checkpoint
+	 *            name of the checkpoint
+	 * @since 0.8.14
+	 */
+	public final void confirmDelta(final String checkpoint) {
+		synchronized (store) {
+			final Checkpoint c = checkpoints.get(checkpoint);
+			if (c != null) {
+				c.confirm();
+			}
+		}
+	}
+
+	/**
+	 * Execution data as of the last confirmed delta together with the delta
+	 * which has been collected but not confirmed yet.
+	 */
+	private static final class Checkpoint {
+
+		final LongHashMap<ExecutionData> confirmed = new LongHashMap<ExecutionData>();
+
+		final List<ExecutionData> pending = new ArrayList<ExecutionData>();
+
+		/**
+		 * @return execution data with the probes executed since the last
+		 *         confirmed delta or <code>null</code> if there are no such
+		 *         probes
+		 */
+		ExecutionData getDelta(final ExecutionData data) {
+			final boolean[] probes = data.getProbes();
+			final long[] counts = data.getCounts();
+			final ExecutionData previous = confirmed.get(data.getId());
+			boolean[] deltaProbes = null;
+			long[] deltaCounts = null;
+			for (int i = 0; i < probes.length; i++) {
+				final long count = counts == null ? 0
+						: counts[i] - getCount(previous, i);
+				if (count != 0 || (probes[i] && !getProbe(previous, i))) {
+					if (deltaProbes == null) {
+						deltaProbes = new boolean[probes.length];
+						deltaCounts = counts == null ? null
+								: new long[counts.length];
+					}
+					deltaProbes[i] = true;
+					if (deltaCounts != null) {
+						deltaCounts[i] = count;
+					}
+				}
+			}
+			if (deltaProbes == null) {
+				return null;
+			}
+			return new ExecutionData(data.getId(), data.getName(), deltaProbes,
+					deltaCounts);
+		}
+
+		private static boolean getProbe(final ExecutionData data,
+				final int i) {
+			return data != null && data.getProbes()[i];
+		}
+
+		private static long getCount(final ExecutionData data, final int i) {
+			return data == null || data.getCounts() == null ? 0
+					: data.getCounts()[i];
+		}
+
+		void confirm() {
+			for (final ExecutionData delta : pending) {
+				final ExecutionData previous = confirmed.get(delta.getId());
+				if (previous == null) {
+					confirmed.put(delta.getId(), delta);
+				} else {
+					previous.merge(delta);
+				}
+			}
+			pending.clear();
+		}
+
+	}
+
 	/**
 	 * Resets all coverage information.
 	 */
 	public final void reset() {
-		synchronized (store) {
-			store.reset();
-			startTimeStamp = System.currentTimeMillis();
+		try {
+			beforeReset();
+			synchronized (store) {
+				resetStore();
+			}
+		} finally {
+			afterReset();
+		}
+	}
+
+	/**
+	 * Resets all coverage information. Must be called while holding the lock
+	 * on the store.
+	 */
+	private void resetStore() {
+		transferEntries();
+		store.reset();
+		for (final Counters c : getCounters()) {
+			for (final long[] stripe : c.stripes) {
+				Arrays.fill(stripe, 0);
+			}
+		}
+		checkpoints.clear();
+		startTimeStamp = System.currentTimeMillis();
+	}
+
+	/**
+	 * Called before the coverage information is reset. The lock on the store
+	 * is not held yet, so this method may wait for other threads which access
+	 * the runtime, e.g. while classes are retransformed. Subclasses may
+	 * override this method to prepare for the reset, for example to make sure
+	 * that all classes record execution again. Every call is followed by a call
+	 * of {@link #afterReset()}, also if this method fails. The default
+	 * implementation does nothing.
+	 *
+	 * @since 0.8.14
+	 */
+	protected void beforeReset() {
+		// nothing to do by default
+	}
+
+	/**
+	 * Called after the coverage information has been reset and the lock on the
+	 * store has been released. It is also called if the reset failed.
+	 * Subclasses may override this method to release resources acquired in
+	 * {@link #beforeReset()}. The default implementation does nothing.
+	 *
+	 * @since 0.8.14
+	 */
+	protected void afterReset() {
+		// nothing to do by default
+	}
+
+	/**
+	 * Adds all execution data registered since the last call to the store.
+	 * Must be called while holding the lock on the store.
+	 */
+	private void transferEntries() {
+		final List<ExecutionData> values = new ArrayList<ExecutionData>();
+		entries.values(values);
+		for (final ExecutionData data : values) {
+			if (store.get(data.getId()) == null) {
+				store.put(data);
+			}
+		}
+	}
+
+	private List<Counters> getCounters() {
+		final List<Counters> values = new ArrayList<Counters>();
+		counters.values(values);
+		return values;
+	}
+
+	/**
+	 * Sums up the counter arrays of every class into the execution counts of
+	 * its execution data. Probes with executions are marked as executed.
+	 * The counters are 64 bit values which do not overflow in practice. Must
+	 * be called while holding the lock on the store.
+	 */
+	private void transferCounters() {
+		for (final Counters c : getCounters()) {
+			final boolean[] probes = c.data.getProbes();
+			final long[] counts = c.data.getCounts();
+			Arrays.fill(counts, 0);
+			for (final long[] stripe : c.stripes) {
+				for (int i = 0; i < counts.length; i++) {
+					counts[i] += stripe[i];
+				}
+			}
+			for (int i = 0; i < counts.length; i++) {
+				if (counts[i] != 0) {
+					probes[i] = true;
+				}
+			}
 		}
 	}
 
 	/**
 	 * Returns the coverage data for the class with the given identifier. If
 	 * there is no data available under the given id a new entry is created.
-	 * This is a synchronized access to the underlying store.
+	 * This method does not block, concurrent calls from multiple threads for
+	 * different classes do not contend for a common lock.
 	 *
 	 * @param id
 	 *            class identifier
@@ -117,9 +505,118 @@ public class RuntimeData {
 	 */
 	public ExecutionData getExecutionData(final Long id, final String name,
 			final int probecount) {
-		synchronized (store) {
-			return store.get(id, name, probecount);
+		return getExecutionData(id.longValue(), name, probecount, false);
+	}
+
+	private ExecutionData getExecutionData(final long id, final String name,
+			final int probecount, final boolean withCounts) {
+		ExecutionData entry = entries.get(id);
+		if (entry == null) {
+			final ExecutionData created = new ExecutionData(id, name,
+					new boolean[probecount],
+					withCounts ? new long[probecount] : null);
+			entry = entries.putIfAbsent(id, created);
+			if (entry == null) {
+				return created;
+			}
+		}
+		entry.assertCompatibility(id, name, probecount);
+		if (withCounts && entry.getCounts() == null) {
+			throw new IllegalStateException(String.format(
+					"Execution data for class %s with id %016x without counts.",
+					name, Long.valueOf(id)));
 		}
+		return entry;
+	}
+
+	/**
+	 * Returns the counter arrays for the class with the given identifier. If
+	 * there are no counter arrays available under the given id new arrays are
+	 * created. The number of arrays is a power of two, every array has the
+	 * given length. The counters are summed up into the execution counts of
+	 * the class when execution data is collected. Like
+	 * {@link #getExecutionData(Long, String, int)} this method does not block.
+	 *
+	 * @param id
+	 *            class identifier
+	 * @param name
+	 *            VM name of the class
+	 * @param probecount
+	 *            probe data length
+	 * @return counter arrays
+	 * @since 0.8.14
+	 */
+	public long[][] getCounters(final Long id, final String name,
+			final int probecount) {
+		return getCounters(id.longValue(), name, probecount);
+	}
+
+	/**
+	 * Returns the probe array for the class with the given identifier like
+	 * {@link #getProbes(Object[])}, but with typed parameters. This method is
+	 * invoked from instrumented classes through method handles which avoid the
+	 * allocation of an argument array and boxing of the parameters. Execution
+	 * data which has already been registered is looked up without allocation.
+	 *
+	 * @param id
+	 *            class identifier
+	 * @param name
+	 *            VM name of the class
+	 * @param probecount
+	 *            probe data length
+	 * @return probe array
+	 * @since 0.8.14
+	 */
+	public boolean[] getProbes(final long id, final String name,
+			final int probecount) {
+		return getExecutionData(id, name, probecount, false).getProbes();
+	}
+
+	/**
+	 * Returns the counter arrays for the class with the given identifier like
+	 * {@link #getCounters(Long, String, int)}. This method is invoked from
+	 * instrumented classes through method handles. Counter arrays which have
+	 * already been created are looked up without allocation.
+	 *
+	 * @param id
+	 *            class identifier
+	 * @param name
+	 *            VM name of the class
+	 * @param probecount
+	 *            probe data length
+	 * @return counter arrays
+	 * @since 0.8.14
+	 */
+	public long[][] getCounters(final long id, final String name,
+			final int probecount) {
+		Counters entry = counters.get(id);
+		if (entry == null) {
+			final Counters created = new Counters(
+					getExecutionData(id, name, probecount, true),
+					new long[counterStripes][probecount]);
+			entry = counters.putIfAbsent(id, created);
+			if (entry == null) {
+				return created.stripes;
+			}
+		}
+		entry.data.assertCompatibility(id, name, probecount);
+		return entry.stripes;
+	}
+
+	/**
+	 * Counter arrays of a class together with its execution data.
+	 */
+	private static final class Counters {
+
+		final ExecutionData data;
+
+		final long[][] stripes;
+
+		Counters(final ExecutionData data, final long[][] stripes) {
+			this.data = data;
+			this.stripes = stripes;
+		}
+
 	}
 
 	/**
@@ -139,14 +636,22 @@ public class RuntimeData {
 	 * <li>args[0]: probe array (<code>boolean[]</code>)
 	 * </ul>
 	 *
+	 * If the parameter array has a length of 4 the counter arrays
+	 * (<code>long[][]</code>) of the class are returned instead, see
+	 * {@link #getCounters(Long, String, int)}.
+	 *
 	 * @param args
-	 *            parameter array of length 3
+	 *            parameter array of length 3 or 4
 	 */
 	public void getProbes(final Object[] args) {
 		final Long classid = (Long) args[0];
 		final String name = (String) args[1];
 		final int probecount = ((Integer) args[2]).intValue();
-		args[0] = getExecutionData(classid, name, probecount).getProbes();
+		if (args.length > 3) {
+			args[0] = getCounters(classid, name, probecount);
+		} else {
+			args[0] = getExecutionData(classid, name, probecount).getProbes();
+		}
 	}
 
 	/**
@@ -182,7 +687,35 @@ public class RuntimeData {
 	public static void generateArgumentArray(final long classid,
 			final String classname, final int probecount,
 			final MethodVisitor mv) {
-		mv.visitInsn(Opcodes.ICONST_3);
+		generateArgumentArray(3, classid, classname, probecount, mv);
+	}
+
+	/**
+	 * Generates code that creates the argument array for the
+	 * {@link #getProbes(Object[])} method which requests the counter arrays of
+	 * a class. The array instance is left on the operand stack. The generated
+	 * code requires a stack size of 5.
+	 *
+	 * @param classid
+	 *            class identifier
+	 * @param classname
+	 *            VM class name
+	 * @param probecount
+	 *            probe count for this class
+	 * @param mv
+	 *            visitor to emit generated code
+	 * @since 0.8.14
+	 */
+	public static void generateCountersArgumentArray(final long classid,
+			final String classname, final int probecount,
+			final MethodVisitor mv) {
+		generateArgumentArray(4, classid, classname, probecount, mv);
+	}
+
+	private static void generateArgumentArray(final int size,
+			final long classid, final String classname, final int probecount,
+			final MethodVisitor mv) {
+		InstrSupport.push(mv, size);
 		mv.visitTypeInsn(Opcodes.ANEWARRAY, "java/lang/Object");
 
 		// Class Id:
@@ -227,9 +760,46 @@ public class RuntimeData {
 	public static void generateAccessCall(final long classid,
 			final String classname, final int probecount,
 			final MethodVisitor mv) {
+		generateAccessCall(3, classid, classname, probecount, mv);
+
+		// stack[0]: [Z
+
+		mv.visitTypeInsn(Opcodes.CHECKCAST, InstrSupport.DATAFIELD_DESC);
+	}
+
+	/**
+	 * Generates the code that calls a {@link RuntimeData} instance through the
+	 * JRE API method {@link Object#equals(Object)} to obtain the counter arrays
+	 * of a class. The code pops a {@link Object} instance from the stack and
+	 * pushes the counter arrays of type <code>long[][]</code> on the operand
+	 * stack. The generated code requires a stack size of 6.
+	 *
+	 * @param classid
+	 *            class identifier
+	 * @param classname
+	 *            VM class name
+	 * @param probecount
+	 *            probe count for this class
+	 * @param mv
+	 *            visitor to emit generated code
+	 * @since 0.8.14
+	 */
+	public static void generateCountersAccessCall(final long classid,
+			final String classname, final int probecount,
+			final MethodVisitor mv) {
+		generateAccessCall(4, classid, classname, probecount, mv);
+
+		// stack[0]: [[J
+
+		mv.visitTypeInsn(Opcodes.CHECKCAST, InstrSupport.COUNTERSFIELD_DESC);
+	}
+
+	private static void generateAccessCall(final int size, final long classid,
+			final String classname, final int probecount,
+			final MethodVisitor mv) {
 		// stack[0]: Ljava/lang/Object;
 
-		generateArgumentArray(classid, classname, probecount, mv);
+		generateArgumentArray(size, classid, classname, probecount, mv);
 
 		// stack[1]: [Ljava/lang/Object;
 		// stack[0]: Ljava/lang/Object;
@@ -248,10 +818,6 @@ public class RuntimeData {
 
 		mv.visitInsn(Opcodes.ICONST_0);
 		mv.visitInsn(Opcodes.AALOAD);
-
-		// stack[0]: [Z
-
-		mv.visitTypeInsn(Opcodes.CHECKCAST, InstrSupport.DATAFIELD_DESC);
 	}
 
 }
@@ -25,7 +25,8 @@ import org.objectweb.asm.Opcodes;
  * in applications that replace the system properties or in applications that
  * fail if non-String values are placed in the system properties.
  */
-public class SystemPropertiesRuntime extends AbstractRuntime {
+public class SystemPropertiesRuntime extends AbstractRuntime
+		implements IExecutionCountersAccessorGenerator {
 
 	private static final String KEYPREFIX = "jacoco-";
 
@@ -41,6 +42,33 @@ public class SystemPropertiesRuntime extends AbstractRuntime {
 
 	public int generateDataAccessor(final long classid, final String classname,
 			final int probecount, final MethodVisitor mv) {
+		generateGetData(mv);
+
+		// Stack[0]: Ljava/lang/Object;
+
+		RuntimeData.generateAccessCall(classid, classname, probecount, mv);
+
+		// Stack[0]: [Z
+
+		return 6; // Maximum local stack size is 3
+	}
+
+	public int generateCountersAccessor(final long classid,
+			final String classname, final int probecount,
+			final MethodVisitor mv) {
+		generateGetData(mv);
+
+		// Stack[0]: Ljava/lang/Object;
+
+		RuntimeData.generateCountersAccessCall(classid, classname, probecount,
+				mv);
+
+		// Stack[0]: [[J
+
+		return 6;
+	}
+
+	private void generateGetData(final MethodVisitor mv) {
 		mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/System",
 				"getProperties", "()Ljava/util/Properties;", false);
 
@@ -53,14 +81,6 @@ public class SystemPropertiesRuntime extends AbstractRuntime {
 
 		mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/util/Properties", "get",
 				"(Ljava/lang/Object;)Ljava/lang/Object;", false);
-
-		// Stack[0]: Ljava/lang/Object;
-
-		RuntimeData.generateAccessCall(classid, classname, probecount, mv);
-
-		// Stack[0]: [Z
-
-		return 6; // Maximum local stack size is 3
 	}
 
 	@Override
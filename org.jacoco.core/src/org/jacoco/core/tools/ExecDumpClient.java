@@ -27,17 +27,22 @@ public class ExecDumpClient {
 
 	private boolean dump;
 	private boolean reset;
+	private boolean delta;
+	private String checkpoint;
 	private int retryCount;
 	private long retryDelay;
 
 	/**
 	 * New instance with the defaults <code>dump==true</code>,
-	 * <code>reset==false</code>, <code>retryCount==0</code> and
+	 * <code>reset==false</code>, <code>delta==false</code>,
+	 * <code>checkpoint=="default"</code>, <code>retryCount==0</code> and
 	 * <code>retryDelay=1000</code>.
 	 */
 	public ExecDumpClient() {
 		this.dump = true;
 		this.reset = false;
+		this.delta = false;
+		this.checkpoint = "default";
 		this.retryCount = 0;
 		this.setRetryDelay(1000);
 	}
@@ -62,6 +67,36 @@ public class ExecDumpClient {
 		this.reset = reset;
 	}
 
+	/**
+	 * Specifies whether only the execution data recorded since the previous
+	 * delta dump should be requested. Merging all delta dumps results in the
+	 * complete execution data. If set the <code>dump</code> and
+	 * <code>reset</code> options are ignored. The target agent has to support
+	 * delta dumps, older agents close the connection. The delta is confirmed
+	 * to the agent once it has been received completely, a delta which could
+	 * not be received is therefore contained in the next delta dump again.
+	 *
+	 * @param delta
+	 *            <code>true</code> if a delta dump should be requested
+	 * @since 0.8.14
+	 */
+	public void setDelta(final boolean delta) {
+		this.delta = delta;
+	}
+
+	/**
+	 * Sets the name of the checkpoint delta dumps are relative to. The agent
+	 * keeps a checkpoint per name, so clients requesting delta dumps from the
+	 * same agent independently of each other need different names.
+	 *
+	 * @param checkpoint
+	 *            name of the checkpoint
+	 * @since 0.8.14
+	 */
+	public void setCheckpoint(final String checkpoint) {
+		this.checkpoint = checkpoint;
+	}
+
 	/**
 	 * Sets the number of retry attempts to connect to the target socket. This
 	 * allows to wait for a certain time until the target agent has initialized.
@@ -123,12 +158,20 @@ public class ExecDumpClient {
 			remoteReader
 					.setExecutionDataVisitor(loader.getExecutionDataStore());
 
-			remoteWriter.visitDumpCommand(dump, reset);
+			if (delta) {
+				remoteWriter.visitDeltaDumpCommand(checkpoint);
+			} else {
+				remoteWriter.visitDumpCommand(dump, reset);
+			}
 
 			if (!remoteReader.read()) {
 				throw new IOException("Socket closed unexpectedly.");
 			}
 
+			if (delta) {
+				remoteWriter.visitDeltaConfirmCommand(checkpoint);
+			}
+
 		} finally {
 			socket.close();
 		}
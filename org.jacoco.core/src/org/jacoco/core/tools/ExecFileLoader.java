@@ -21,20 +21,35 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 
+import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataReader;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.MappedExecutionDataReader;
+import org.jacoco.core.data.MappedExecutionDataWriter;
 import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.internal.data.PackedExecutionDataReader;
+import org.jacoco.core.internal.data.PackedExecutionDataStore;
+import org.jacoco.core.internal.data.PackedExecutionDataWriter;
 
 /**
  * Convenience utility for loading *.exec files into a
- * {@link ExecutionDataStore} and a {@link SessionInfoStore}.
+ * {@link ExecutionDataStore} and a {@link SessionInfoStore}. Files written by
+ * {@link MappedExecutionDataWriter} are detected and loaded as well.
  */
 public class ExecFileLoader {
 
 	private final SessionInfoStore sessionInfos;
 	private final ExecutionDataStore executionData;
 
+	/**
+	 * Execution data is kept in packed form as long as the execution data
+	 * store has not been requested, so files can be merged without decoding
+	 * probes.
+	 */
+	private PackedExecutionDataStore packedExecutionData;
+
 	/**
 	 * New instance to combine session infos and execution data from multiple
 	 * files.
@@ -42,6 +57,7 @@ public class ExecFileLoader {
 	public ExecFileLoader() {
 		sessionInfos = new SessionInfoStore();
 		executionData = new ExecutionDataStore();
+		packedExecutionData = new PackedExecutionDataStore();
 	}
 
 	/**
@@ -53,13 +69,56 @@ public class ExecFileLoader {
 	 *             in case of problems while reading from the stream
 	 */
 	public void load(final InputStream stream) throws IOException {
-		final ExecutionDataReader reader = new ExecutionDataReader(
-				new BufferedInputStream(stream));
-		reader.setExecutionDataVisitor(executionData);
+		final InputStream buffered = new BufferedInputStream(stream);
+		if (isMappedExecutionData(buffered)) {
+			loadMapped(buffered);
+			return;
+		}
+		final ExecutionDataReader reader;
+		if (packedExecutionData == null) {
+			reader = new ExecutionDataReader(buffered);
+			reader.setExecutionDataVisitor(executionData);
+		} else {
+			reader = new PackedExecutionDataReader(buffered,
+					packedExecutionData);
+		}
 		reader.setSessionInfoVisitor(sessionInfos);
 		reader.read();
 	}
 
+	private void loadMapped(final InputStream stream) throws IOException {
+		final MappedExecutionDataReader reader = new MappedExecutionDataReader(
+				stream);
+		if (packedExecutionData == null) {
+			reader.setExecutionDataVisitor(executionData);
+		} else {
+			final PackedExecutionDataStore packed = packedExecutionData;
+			reader.setExecutionDataVisitor(new IExecutionDataVisitor() {
+				public void visitClassExecution(final ExecutionData data) {
+					packed.put(data);
+				}
+			});
+		}
+		reader.setSessionInfoVisitor(sessionInfos);
+		reader.read();
+	}
+
+	private static boolean isMappedExecutionData(final InputStream stream)
+			throws IOException {
+		stream.mark(4);
+		int magic = 0;
+		for (int i = 0; i < 4; i++) {
+			final int b = stream.read();
+			if (b == -1) {
+				stream.reset();
+				return false;
+			}
+			magic = magic << 8 | b;
+		}
+		stream.reset();
+		return magic == MappedExecutionDataWriter.MAGIC_NUMBER;
+	}
+
 	/**
 	 * Reads all data from given input stream.
 	 *
@@ -86,9 +145,17 @@ public class ExecFileLoader {
 	 *             in case of problems while writing to the stream
 	 */
 	public void save(final OutputStream stream) throws IOException {
-		final ExecutionDataWriter dataWriter = new ExecutionDataWriter(stream);
-		sessionInfos.accept(dataWriter);
-		executionData.accept(dataWriter);
+		if (packedExecutionData == null) {
+			final ExecutionDataWriter dataWriter = new ExecutionDataWriter(
+					stream);
+			sessionInfos.accept(dataWriter);
+			executionData.accept(dataWriter);
+		} else {
+			final PackedExecutionDataWriter dataWriter = new PackedExecutionDataWriter(
+					stream);
+			sessionInfos.accept(dataWriter);
+			packedExecutionData.accept(dataWriter);
+		}
 	}
 
 	/**
@@ -136,6 +203,10 @@ public class ExecFileLoader {
 	 * @return execution data store
 	 */
 	public ExecutionDataStore getExecutionDataStore() {
+		if (packedExecutionData != null) {
+			packedExecutionData.accept(executionData);
+			packedExecutionData = null;
+		}
 		return executionData;
 	}
 
@@ -0,0 +1,966 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import static java.lang.String.format;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.IncompatibleExecDataVersionException;
+import org.jacoco.core.data.MappedExecutionDataReader;
+import org.jacoco.core.data.MappedExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.internal.data.ExecutionDataIndex;
+import org.jacoco.core.internal.data.PackedExecutionDataWriter;
+
+/**
+ * Utility for merging *.exec files into a single file with bounded memory.
+ * Unlike {@link ExecFileLoader} the execution data is not loaded into memory.
+ * Instead every input file is indexed by class id and read with positional
+ * reads. The sorted indexes are merged in a single pass where the merged
+ * execution data of every class is written directly to the output, ordered by
+ * class id. If there are more input files than can be merged in a single pass,
+ * groups of files are merged into temporary files first. For indexed input
+ * files, see {@link IndexedExecFile}, the existing index is used instead of
+ * scanning the file. Files written by {@link MappedExecutionDataWriter} are
+ * detected and converted to temporary execution data files before merging.
+ */
+public class ExecFileMerger {
+
+	private static final int DEFAULT_MAX_FILES_PER_PASS = 100;
+
+	private final List<File> files = new ArrayList<File>();
+
+	private int maxFilesPerPass = DEFAULT_MAX_FILES_PER_PASS;
+
+	private boolean indexed;
+
+	/**
+	 * Sets the maximum number of files which are merged in a single pass. The
+	 * memory required for merging is proportional to this number. The default
+	 * is 100.
+	 *
+	 * @param maxFilesPerPass
+	 *            maximum number of files per pass, at least 2
+	 */
+	public void setMaxFilesPerPass(final int maxFilesPerPass) {
+		if (maxFilesPerPass < 2) {
+			throw new IllegalArgumentException(
+					"At least two files per pass required.");
+		}
+		this.maxFilesPerPass = maxFilesPerPass;
+	}
+
+	/**
+	 * Specifies whether an indexed file is written which can be accessed with
+	 * {@link IndexedExecFile}. As an index can not be appended, appending to
+	 * an existing file merges its content and overwrites it. The default is
+	 * <code>false</code>.
+	 *
+	 * @param indexed
+	 *            <code>true</code> to write an indexed file
+	 */
+	public void setIndexed(final boolean indexed) {
+		this.indexed = indexed;
+	}
+
+	/**
+	 * Adds the given file to the files to merge. Only the file header is
+	 * validated, the content is read when merging.
+	 *
+	 * @param file
+	 *            execution data file
+	 * @throws IOException
+	 *             if the file can not be read or is not a valid execution data
+	 *             file
+	 */
+	public void add(final File file) throws IOException {
+		checkFileHeader(file);
+		files.add(file);
+	}
+
+	private static void checkFileHeader(final File file) throws IOException {
+		final Input input = Input.open(file);
+		try {
+			input.checkFileHeader();
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Checks whether at least one of the added files contains execution data.
+	 *
+	 * @return <code>true</code> if execution data is contained
+	 * @throws IOException
+	 *             if one of the files can not be read
+	 */
+	public boolean hasExecutionData() throws IOException {
+		for (final File file : files) {
+			if (isMapped(file) ? hasMappedExecutionData(file)
+					: hasExecutionData(file)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean hasExecutionData(final File file)
+			throws IOException {
+		final Input input = Input.open(file);
+		try {
+			return input.hasExecutionData();
+		} finally {
+			input.close();
+		}
+	}
+
+	private static boolean hasMappedExecutionData(final File file)
+			throws IOException {
+		final boolean[] found = new boolean[1];
+		readMapped(file, null, new IExecutionDataVisitor() {
+			public void visitClassExecution(final ExecutionData data) {
+				found[0] = true;
+			}
+		});
+		return found[0];
+	}
+
+	/**
+	 * Merges all added files and writes the result to the given stream.
+	 *
+	 * @param output
+	 *            stream to write merged execution data to
+	 * @throws IOException
+	 *             if the files can not be read or the result can not be
+	 *             written
+	 */
+	public void merge(final OutputStream output) throws IOException {
+		merge(files, output);
+	}
+
+	private void merge(final List<File> sources, final OutputStream output)
+			throws IOException {
+		final List<File> temporaryFiles = new ArrayList<File>();
+		try {
+			List<File> inputs = convertMapped(sources, temporaryFiles);
+			while (inputs.size() > maxFilesPerPass) {
+				final List<File> next = new ArrayList<File>();
+				for (int i = 0; i < inputs.size(); i += maxFilesPerPass) {
+					final File temp = File.createTempFile("jacoco", ".exec");
+					temporaryFiles.add(temp);
+					final OutputStream out = new BufferedOutputStream(
+							new FileOutputStream(temp));
+					try {
+						mergePass(inputs.subList(i, Math.min(inputs.size(),
+								i + maxFilesPerPass)), out, true);
+					} finally {
+						out.close();
+					}
+					next.add(temp);
+				}
+				inputs = next;
+			}
+			mergePass(inputs, output, indexed);
+		} finally {
+			for (final File temp : temporaryFiles) {
+				temp.delete();
+			}
+		}
+	}
+
+	/**
+	 * Merges all added files into the given file. Parent directories are
+	 * created as needed. If the file is overwritten and it is also one of the
+	 * input files the result is written to a temporary file first which then
+	 * replaces the file. If the file can not be replaced the original file is
+	 * restored and the temporary file is kept. Otherwise a file system lock is
+	 * acquired to avoid concurrent write access. If an indexed file is written,
+	 * the content of an existing file is merged instead of appended to.
+	 *
+	 * @param file
+	 *            file to write merged execution data to
+	 * @param append
+	 *            <code>true</code> if the content should be appended, otherwise
+	 *            the file is overwritten.
+	 * @throws IOException
+	 *             if the files can not be read or the result can not be
+	 *             written
+	 */
+	public void merge(final File file, final boolean append)
+			throws IOException {
+		final File folder = file.getParentFile();
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		List<File> inputs = files;
+		boolean overwrite = !append;
+		if (append && indexed && file.length() > 0) {
+			// Index offsets are relative to the file start, so the existing
+			// content is merged instead of appended to:
+			checkFileHeader(file);
+			inputs = new ArrayList<File>(files);
+			inputs.add(file);
+			overwrite = true;
+		}
+		if (overwrite && isInput(file, inputs)) {
+			final File temp = File.createTempFile("jacoco", ".exec",
+					file.getAbsoluteFile().getParentFile());
+			boolean written = false;
+			try {
+				write(inputs, temp, false);
+				written = true;
+			} finally {
+				if (!written) {
+					temp.delete();
+				}
+			}
+			replace(file, temp);
+		} else {
+			write(inputs, file, !overwrite);
+		}
+	}
+
+	/**
+	 * Replaces the given file with the given temporary file. The original
+	 * file is never deleted before the temporary file has taken its place.
+	 */
+	private static void replace(final File file, final File temp)
+			throws IOException {
+		if (temp.renameTo(file)) {
+			return;
+		}
+		// Some platforms do not rename to existing files, move it aside first:
+		final File backup = File.createTempFile("jacoco", ".bak",
+				temp.getParentFile());
+		if (!backup.delete() || !file.renameTo(backup)) {
+			throw new IOException(format(
+					"Unable to replace file %s, merged data is kept in %s.",
+					file, temp));
+		}
+		if (!temp.renameTo(file)) {
+			backup.renameTo(file);
+			throw new IOException(format(
+					"Unable to replace file %s, merged data is kept in %s.",
+					file, temp));
+		}
+		backup.delete();
+	}
+
+	private void write(final List<File> inputs, final File file,
+			final boolean append) throws IOException {
+		final FileOutputStream fileStream = new FileOutputStream(file, append);
+		// Avoid concurrent writes from other processes:
+		fileStream.getChannel().lock();
+		final OutputStream bufferedStream = new BufferedOutputStream(
+				fileStream);
+		try {
+			merge(inputs, bufferedStream);
+		} finally {
+			bufferedStream.close();
+		}
+	}
+
+	/**
+	 * Replaces files written by {@link MappedExecutionDataWriter} with
+	 * temporary execution data files of the same content.
+	 */
+	private static List<File> convertMapped(final List<File> sources,
+			final List<File> temporaryFiles) throws IOException {
+		List<File> result = sources;
+		for (int i = 0; i < sources.size(); i++) {
+			final File file = sources.get(i);
+			if (isMapped(file)) {
+				if (result == sources) {
+					result = new ArrayList<File>(sources);
+				}
+				final File temp = File.createTempFile("jacoco", ".exec");
+				temporaryFiles.add(temp);
+				final OutputStream out = new BufferedOutputStream(
+						new FileOutputStream(temp));
+				try {
+					final ExecutionDataWriter writer = new ExecutionDataWriter(
+							out);
+					readMapped(file, writer, writer);
+				} finally {
+					out.close();
+				}
+				result.set(i, temp);
+			}
+		}
+		return result;
+	}
+
+	private static void readMapped(final File file,
+			final ISessionInfoVisitor sessionInfos,
+			final IExecutionDataVisitor executionData) throws IOException {
+		final InputStream in = new BufferedInputStream(
+				new FileInputStream(file));
+		try {
+			final MappedExecutionDataReader reader = new MappedExecutionDataReader(
+					in);
+			reader.setSessionInfoVisitor(sessionInfos);
+			reader.setExecutionDataVisitor(executionData);
+			reader.read();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static boolean isMapped(final File file) throws IOException {
+		final Input input = Input.open(file);
+		try {
+			return input.isMapped();
+		} finally {
+			input.close();
+		}
+	}
+
+	private static boolean isInput(final File file, final List<File> inputs)
+			throws IOException {
+		final File canonical = file.getCanonicalFile();
+		for (final File f : inputs) {
+			if (canonical.equals(f.getCanonicalFile())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void mergePass(final List<File> files,
+			final OutputStream output, final boolean indexed)
+			throws IOException {
+		final List<Input> inputs = new ArrayList<Input>();
+		try {
+			mergePass(files, inputs, output, indexed);
+		} finally {
+			for (final Input input : inputs) {
+				input.close();
+			}
+		}
+	}
+
+	private static void mergePass(final List<File> files,
+			final List<Input> inputs, final OutputStream output,
+			final boolean indexed) throws IOException {
+		final SessionInfoStore sessionInfos = new SessionInfoStore();
+		final PriorityQueue<Input> queue = new PriorityQueue<Input>();
+		for (final File file : files) {
+			final Input input = Input.open(file);
+			inputs.add(input);
+			input.index(sessionInfos);
+			if (input.next()) {
+				queue.add(input);
+			}
+		}
+		final PackedExecutionDataWriter writer = new PackedExecutionDataWriter(
+				output, indexed);
+		sessionInfos.accept(writer);
+		while (!queue.isEmpty()) {
+			Input input = queue.poll();
+			final long id = input.getId();
+			final byte[] rawName = input.getRawName();
+			final int length = input.getProbeCount();
+			final long[] words = new long[(length + 63) >>> 6];
+			long[] counts = null;
+			while (true) {
+				input.mergeProbes(words);
+				counts = input.mergeCounts(counts);
+				if (input.next()) {
+					queue.add(input);
+				}
+				if (queue.isEmpty() || queue.peek().getId() != id) {
+					break;
+				}
+				input = queue.poll();
+				input.assertCompatibility(rawName, length);
+			}
+			writer.visitPackedClassExecution(id, decodeUTF(rawName), length,
+					words, counts);
+		}
+		writer.writeIndex();
+		writer.flush();
+	}
+
+	/**
+	 * Input file with an index of its execution data blocks sorted by class
+	 * id. The file is read with positional reads into a window of bounded
+	 * size, so files of any size can be merged and no resources are held
+	 * after the input has been closed.
+	 */
+	private static class Input implements Comparable<Input> {
+
+		/** minimum number of bytes read at once for sequential access */
+		private static final int READ_AHEAD = 0x10000;
+
+		private final File file;
+
+		private final FileInputStream stream;
+
+		private final FileChannel channel;
+
+		private final long length;
+
+		/** content of the file starting at {@link #windowStart} */
+		private ByteBuffer window = ByteBuffer.allocate(0);
+
+		/** view on the window to read probes packed in little endian order */
+		private ByteBuffer littleEndian = window;
+
+		private long windowStart;
+
+		/**
+		 * whether blocks are accessed in file order, so that reading ahead
+		 * avoids small reads
+		 */
+		private boolean readAhead = true;
+
+		private long[] ids = new long[0];
+
+		private long[] positions = new long[0];
+
+		private int[] lengths = new int[0];
+
+		private int size;
+
+		/** ids are added in ascending order, e.g. for merged files */
+		private boolean sorted = true;
+
+		private int cursor = -1;
+
+		private Input(final File file, final FileInputStream stream)
+				throws IOException {
+			this.file = file;
+			this.stream = stream;
+			this.channel = stream.getChannel();
+			this.length = channel.size();
+		}
+
+		static Input open(final File file) throws IOException {
+			final FileInputStream stream = new FileInputStream(file);
+			try {
+				return new Input(file, stream);
+			} catch (final IOException e) {
+				stream.close();
+				throw e;
+			}
+		}
+
+		void close() throws IOException {
+			stream.close();
+		}
+
+		boolean isMapped() throws IOException {
+			return length >= 4
+					&& getInt(0) == MappedExecutionDataWriter.MAGIC_NUMBER;
+		}
+
+		void checkFileHeader() throws IOException {
+			if (isMapped()) {
+				if (length < 6) {
+					throw truncated();
+				}
+				final char version = getChar(4);
+				if (version != MappedExecutionDataWriter.FORMAT_VERSION) {
+					throw new IOException(format(
+							"Unsupported mapped execution data version 0x%x in %s.",
+							Integer.valueOf(version), file));
+				}
+				return;
+			}
+			if (length > 0) {
+				if (get(0) != ExecutionDataWriter.BLOCK_HEADER) {
+					throw invalid();
+				}
+				checkHeader(1);
+			}
+		}
+
+		boolean hasExecutionData() throws IOException {
+			long pos = 0;
+			while (pos < length) {
+				if (isExecutionData(get(pos))) {
+					return true;
+				}
+				pos = skipBlock(pos, null);
+			}
+			return false;
+		}
+
+		void index(final ISessionInfoVisitor sessionInfos)
+				throws IOException {
+			checkFileHeader();
+			final ExecutionDataIndex index = ExecutionDataIndex.read(channel);
+			if (index != null && isSessionInfoOnly(getDataStart(index))) {
+				final long end = getDataStart(index);
+				for (long pos = 0; pos < end;) {
+					pos = skipBlock(pos, sessionInfos);
+				}
+				for (int i = 0; i < index.size(); i++) {
+					add(index.getId(i), index.getOffset(i),
+							index.getLength(i));
+				}
+				return;
+			}
+			long pos = 0;
+			while (pos < length) {
+				final long next = skipBlock(pos, sessionInfos);
+				if (isExecutionData(get(pos))) {
+					add(getLong(pos + 1), pos, (int) (next - pos));
+				}
+				pos = next;
+			}
+			if (!sorted) {
+				sort(ids, positions, lengths, size);
+				readAhead = false;
+			}
+		}
+
+		private static boolean isExecutionData(final byte type) {
+			return type == ExecutionDataWriter.BLOCK_EXECUTIONDATA
+					|| type == ExecutionDataWriter.BLOCK_EXECUTIONCOUNTS;
+		}
+
+		private static long getDataStart(final ExecutionDataIndex index) {
+			return index.size() > 0 ? index.getOffset(0)
+					: index.getPosition();
+		}
+
+		/**
+		 * Checks whether the given range from the file start only consists of
+		 * header and session info blocks. Otherwise the index only covers a
+		 * part of the file, e.g. if execution data has been appended.
+		 */
+		private boolean isSessionInfoOnly(final long end) throws IOException {
+			long pos = 0;
+			while (pos < end) {
+				final byte type = get(pos);
+				if (type != ExecutionDataWriter.BLOCK_HEADER
+						&& type != ExecutionDataWriter.BLOCK_SESSIONINFO) {
+					return false;
+				}
+				pos = skipBlock(pos, null);
+			}
+			return pos == end;
+		}
+
+		private void add(final long id, final long position,
+				final int blockLength) {
+			if (size == ids.length) {
+				final int capacity = Math.max(16, size * 2);
+				final long[] newIds = new long[capacity];
+				System.arraycopy(ids, 0, newIds, 0, size);
+				ids = newIds;
+				final long[] newPositions = new long[capacity];
+				System.arraycopy(positions, 0, newPositions, 0, size);
+				positions = newPositions;
+				final int[] newLengths = new int[capacity];
+				System.arraycopy(lengths, 0, newLengths, 0, size);
+				lengths = newLengths;
+			}
+			if (size > 0 && ids[size - 1] > id) {
+				sorted = false;
+			}
+			ids[size] = id;
+			positions[size] = position;
+			lengths[size] = blockLength;
+			size++;
+		}
+
+		/**
+		 * Returns the position after the block at the given position and
+		 * reports session infos to the given visitor, if any.
+		 */
+		private long skipBlock(final long pos,
+				final ISessionInfoVisitor sessionInfos) throws IOException {
+			final long next;
+			try {
+				final byte type = get(pos);
+				switch (type) {
+				case ExecutionDataWriter.BLOCK_HEADER:
+					checkHeader(pos + 1);
+					next = pos + 5;
+					break;
+				case ExecutionDataWriter.BLOCK_SESSIONINFO:
+					final String id = readUTF(pos + 1);
+					final long timestamps = pos + 3 + utfLength(pos + 1);
+					if (sessionInfos != null) {
+						sessionInfos.visitSessionInfo(new SessionInfo(id,
+								getLong(timestamps), getLong(timestamps + 8)));
+					}
+					next = timestamps + 16;
+					break;
+				case ExecutionDataWriter.BLOCK_EXECUTIONDATA:
+					next = getProbesEnd(pos);
+					break;
+				case ExecutionDataWriter.BLOCK_EXECUTIONCOUNTS:
+					final long counts = getProbesEnd(pos);
+					long p = varIntEnd(counts);
+					for (int i = readVarInt(counts); i > 0; i--) {
+						p = varIntEnd(p);
+					}
+					next = p;
+					break;
+				case ExecutionDataWriter.BLOCK_INDEX:
+					final long end = varIntEnd(pos + 1)
+							+ 16L * readVarInt(pos + 1) + 10;
+					if (end <= pos || end > length) {
+						throw truncated();
+					}
+					next = end;
+					break;
+				default:
+					throw new IOException(format("Unknown block type %x.",
+							Byte.valueOf(type)));
+				}
+			} catch (final IndexOutOfBoundsException e) {
+				throw truncated();
+			}
+			if (next > length) {
+				throw truncated();
+			}
+			return next;
+		}
+
+		private void checkHeader(final long pos) throws IOException {
+			if (length < pos + 4) {
+				throw truncated();
+			}
+			if (getChar(pos) != ExecutionDataWriter.MAGIC_NUMBER) {
+				throw invalid();
+			}
+			final char version = getChar(pos + 2);
+			if (version != ExecutionDataWriter.FORMAT_VERSION
+					&& version != ExecutionDataWriter.EXTENDED_FORMAT_VERSION) {
+				throw new IncompatibleExecDataVersionException(version);
+			}
+		}
+
+		private IOException invalid() {
+			return new IOException(
+					format("Invalid execution data file %s.", file));
+		}
+
+		private IOException truncated() {
+			return new EOFException(
+					format("Truncated execution data file %s.", file));
+		}
+
+		/**
+		 * Moves to the next execution data block in class id order and reads
+		 * it into the window.
+		 *
+		 * @return <code>true</code> if there is a next block
+		 */
+		boolean next() throws IOException {
+			if (++cursor < size) {
+				offset(positions[cursor], lengths[cursor]);
+				return true;
+			}
+			return false;
+		}
+
+		long getId() {
+			return ids[cursor];
+		}
+
+		/**
+		 * @return name of the current class in modified UTF-8 encoding
+		 *         including the length prefix
+		 */
+		byte[] getRawName() throws IOException {
+			return getRawUTF(positions[cursor] + 9);
+		}
+
+		int getProbeCount() throws IOException {
+			return readVarInt(getProbesPosition(positions[cursor]));
+		}
+
+		void assertCompatibility(final byte[] rawName, final int probeCount)
+				throws IOException {
+			final long pos = positions[cursor] + 9;
+			boolean sameName = rawName.length == 2 + utfLength(pos);
+			for (int i = 0; sameName && i < rawName.length; i++) {
+				sameName = rawName[i] == get(pos + i);
+			}
+			if (!sameName) {
+				throw new IllegalStateException(format(
+						"Different class names %s and %s for id %016x.",
+						decodeUTF(rawName), decodeUTF(getRawName()),
+						Long.valueOf(getId())));
+			}
+			if (probeCount != getProbeCount()) {
+				throw new IllegalStateException(format(
+						"Incompatible execution data for class %s with id %016x.",
+						decodeUTF(rawName), Long.valueOf(getId())));
+			}
+		}
+
+		void mergeProbes(final long[] words) throws IOException {
+			final long probes = getProbesPosition(positions[cursor]);
+			final int probeCount = readVarInt(probes);
+			final int bytes = (probeCount + 7) >>> 3;
+			final int start = offset(varIntEnd(probes), bytes);
+			final int fullWords = bytes >>> 3;
+			for (int w = 0; w < fullWords; w++) {
+				words[w] |= littleEndian.getLong(start + (w << 3));
+			}
+			for (int i = fullWords << 3; i < bytes; i++) {
+				words[i >>> 3] |= (0xFFL & window.get(start + i)) << ((i & 7) << 3);
+			}
+			if ((probeCount & 63) != 0) {
+				words[words.length - 1] &= (1L << probeCount) - 1;
+			}
+		}
+
+		/**
+		 * Adds the execution counts of the current block, if any, to the given
+		 * counts.
+		 *
+		 * @param counts
+		 *            counts to add to or <code>null</code>
+		 * @return counts including the counts of the current block or
+		 *         <code>null</code> if there are no counts at all
+		 * @throws IOException
+		 *             if the number of counts does not match the number of
+		 *             probes
+		 */
+		long[] mergeCounts(final long[] counts) throws IOException {
+			final long pos = positions[cursor];
+			if (get(pos) != ExecutionDataWriter.BLOCK_EXECUTIONCOUNTS) {
+				return counts;
+			}
+			final long start = getProbesEnd(pos);
+			final int countsLength = readVarInt(start);
+			if (countsLength != getProbeCount()) {
+				throw invalid();
+			}
+			final long[] result = counts == null ? new long[countsLength]
+					: counts;
+			long p = varIntEnd(start);
+			for (int i = 0; i < countsLength; i++) {
+				result[i] += readVarLong(p);
+				p = varIntEnd(p);
+			}
+			return result;
+		}
+
+		private long getProbesPosition(final long pos) throws IOException {
+			return pos + 11 + utfLength(pos + 9);
+		}
+
+		private long getProbesEnd(final long pos) throws IOException {
+			final long probes = getProbesPosition(pos);
+			return varIntEnd(probes) + ((readVarInt(probes) + 7) >>> 3);
+		}
+
+		private int utfLength(final long pos) throws IOException {
+			final int offset = offset(pos, 2);
+			return 0xFFFF & window.getShort(offset);
+		}
+
+		private String readUTF(final long pos) throws IOException {
+			return decodeUTF(getRawUTF(pos));
+		}
+
+		private byte[] getRawUTF(final long pos) throws IOException {
+			final byte[] bytes = new byte[2 + utfLength(pos)];
+			final int start = offset(pos, bytes.length);
+			for (int i = 0; i < bytes.length; i++) {
+				bytes[i] = window.get(start + i);
+			}
+			return bytes;
+		}
+
+		private int readVarInt(final long pos) throws IOException {
+			int value = 0;
+			int shift = 0;
+			long p = pos;
+			int b;
+			do {
+				b = 0xFF & get(p++);
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return value;
+		}
+
+		private long readVarLong(final long pos) throws IOException {
+			long value = 0;
+			int shift = 0;
+			long p = pos;
+			int b;
+			do {
+				b = 0xFF & get(p++);
+				value |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return value;
+		}
+
+		private long varIntEnd(final long pos) throws IOException {
+			long p = pos;
+			while ((get(p++) & 0x80) != 0) {
+				// skip continuation bytes
+			}
+			return p;
+		}
+
+		private byte get(final long pos) throws IOException {
+			final int offset = offset(pos, 1);
+			return window.get(offset);
+		}
+
+		private char getChar(final long pos) throws IOException {
+			final int offset = offset(pos, 2);
+			return window.getChar(offset);
+		}
+
+		private int getInt(final long pos) throws IOException {
+			final int offset = offset(pos, 4);
+			return window.getInt(offset);
+		}
+
+		private long getLong(final long pos) throws IOException {
+			final int offset = offset(pos, 8);
+			return window.getLong(offset);
+		}
+
+		/**
+		 * Returns the offset of the given file position in the window. The
+		 * window is reloaded unless it contains the given number of bytes
+		 * from this position. Accessing content beyond the end of the file
+		 * results in an {@link IndexOutOfBoundsException}. As the window may
+		 * be replaced, it must only be accessed after this call.
+		 */
+		private int offset(final long pos, final int count) throws IOException {
+			if (pos < windowStart
+					|| pos + count > windowStart + window.limit()) {
+				load(pos, count);
+			}
+			return (int) (pos - windowStart);
+		}
+
+		private void load(final long pos, final int count) throws IOException {
+			final int capacity = readAhead ? Math.max(count, READ_AHEAD)
+					: count;
+			if (window.capacity() < capacity) {
+				window = ByteBuffer.allocate(capacity);
+			}
+			window.clear();
+			window.limit((int) Math.max(0, Math.min(capacity, length - pos)));
+			while (window.hasRemaining()) {
+				if (channel.read(window, pos + window.position()) < 0) {
+					throw truncated();
+				}
+			}
+			window.flip();
+			littleEndian = window.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+			windowStart = pos;
+		}
+
+		public int compareTo(final Input other) {
+			final long a = getId();
+			final long b = other.getId();
+			return a < b ? -1 : (a == b ? 0 : 1);
+		}
+
+	}
+
+	/**
+	 * Decodes a string in modified UTF-8 encoding including the length prefix
+	 * as written by {@link java.io.DataOutput#writeUTF(String)}.
+	 */
+	private static String decodeUTF(final byte[] bytes) throws IOException {
+		final char[] chars = new char[bytes.length - 2];
+		for (int i = 0; i < chars.length; i++) {
+			final byte b = bytes[i + 2];
+			if (b < 0) {
+				// not ASCII
+				return new DataInputStream(new ByteArrayInputStream(bytes))
+						.readUTF();
+			}
+			chars[i] = (char) b;
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Sorts the given ids in ascending order and permutes the positions and
+	 * lengths accordingly. Bottom up merge sort to avoid recursion and boxing.
+	 */
+	private static void sort(final long[] ids, final long[] positions,
+			final int[] lengths, final int size) {
+		long[] srcIds = ids;
+		long[] srcPositions = positions;
+		int[] srcLengths = lengths;
+		long[] dstIds = new long[size];
+		long[] dstPositions = new long[size];
+		int[] dstLengths = new int[size];
+		for (int width = 1; width < size; width *= 2) {
+			for (int lo = 0; lo < size; lo += 2 * width) {
+				final int mid = Math.min(lo + width, size);
+				final int hi = Math.min(lo + 2 * width, size);
+				int i = lo;
+				int j = mid;
+				for (int k = lo; k < hi; k++) {
+					final int src;
+					if (i < mid && (j >= hi || srcIds[i] <= srcIds[j])) {
+						src = i++;
+					} else {
+						src = j++;
+					}
+					dstIds[k] = srcIds[src];
+					dstPositions[k] = srcPositions[src];
+					dstLengths[k] = srcLengths[src];
+				}
+			}
+			final long[] tmpIds = srcIds;
+			srcIds = dstIds;
+			dstIds = tmpIds;
+			final long[] tmpPositions = srcPositions;
+			srcPositions = dstPositions;
+			dstPositions = tmpPositions;
+			final int[] tmpLengths = srcLengths;
+			srcLengths = dstLengths;
+			dstLengths = tmpLengths;
+		}
+		if (srcIds != ids) {
+			System.arraycopy(srcIds, 0, ids, 0, size);
+			System.arraycopy(srcPositions, 0, positions, 0, size);
+			System.arraycopy(srcLengths, 0, lengths, 0, size);
+		}
+	}
+
+}
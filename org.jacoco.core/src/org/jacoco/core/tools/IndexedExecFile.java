@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import static java.lang.String.format;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IExecutionDataFilter;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.internal.data.CompactDataInput;
+import org.jacoco.core.internal.data.ExecutionDataIndex;
+
+/**
+ * Random access to an indexed *.exec file as written by
+ * {@link ExecFileMerger#setIndexed(boolean)}. Indexed files are regular
+ * execution data files which can also be read with {@link ExecutionDataReader}.
+ * Additionally they contain an index at the end of the file, so execution data
+ * of single classes can be read without reading the complete file. This allows
+ * for example to load only the execution data of classes which are actually
+ * analyzed. Instances can be used concurrently from multiple threads.
+ */
+public class IndexedExecFile {
+
+	private final File file;
+
+	private final FileInputStream stream;
+
+	private final FileChannel channel;
+
+	private final ExecutionDataIndex index;
+
+	private final SessionInfoStore sessionInfos = new SessionInfoStore();
+
+	/**
+	 * Opens the given file.
+	 *
+	 * @param file
+	 *            indexed execution data file
+	 * @throws IOException
+	 *             if the file can not be read or is not an indexed execution
+	 *             data file
+	 */
+	public IndexedExecFile(final File file) throws IOException {
+		this.file = file;
+		this.stream = new FileInputStream(file);
+		this.channel = stream.getChannel();
+		try {
+			index = ExecutionDataIndex.read(channel);
+			if (index == null) {
+				throw notIndexed();
+			}
+			readSessionInfos();
+		} catch (final IOException e) {
+			stream.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Checks whether the given file is an indexed execution data file.
+	 *
+	 * @param file
+	 *            file to check
+	 * @return <code>true</code> if the file can be opened with this class
+	 * @throws IOException
+	 *             if the file can not be read
+	 */
+	public static boolean isIndexed(final File file) throws IOException {
+		final FileInputStream stream = new FileInputStream(file);
+		try {
+			final ExecutionDataIndex index = ExecutionDataIndex
+					.read(stream.getChannel());
+			if (index == null) {
+				return false;
+			}
+		} finally {
+			stream.close();
+		}
+		try {
+			new IndexedExecFile(file).close();
+			return true;
+		} catch (final IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * The session infos are stored in front of all execution data blocks. If
+	 * other blocks are found here the index only covers a part of the file,
+	 * e.g. if execution data has been appended.
+	 */
+	private void readSessionInfos() throws IOException {
+		final long end = index.size() > 0 ? index.getOffset(0)
+				: index.getPosition();
+		final ExecutionDataReader reader = new ExecutionDataReader(
+				new ByteArrayInputStream(read(0, (int) end))) {
+			@Override
+			protected boolean readBlock(final byte blocktype)
+					throws IOException {
+				if (blocktype != ExecutionDataWriter.BLOCK_HEADER
+						&& blocktype != ExecutionDataWriter.BLOCK_SESSIONINFO) {
+					throw notIndexed();
+				}
+				return super.readBlock(blocktype);
+			}
+		};
+		reader.setSessionInfoVisitor(sessionInfos);
+		reader.read();
+	}
+
+	private IOException notIndexed() {
+		return new IOException(
+				format("%s is not an indexed execution data file.", file));
+	}
+
+	/**
+	 * Returns all session infos of this file.
+	 *
+	 * @return session infos
+	 */
+	public SessionInfoStore getSessionInfoStore() {
+		return sessionInfos;
+	}
+
+	/**
+	 * Returns the number of classes with execution data in this file.
+	 *
+	 * @return number of classes
+	 */
+	public int getClassCount() {
+		return index.size();
+	}
+
+	/**
+	 * Checks whether this file contains execution data for the given class.
+	 *
+	 * @param id
+	 *            class identifier
+	 * @return <code>true</code> if execution data is contained
+	 */
+	public boolean contains(final long id) {
+		return index.indexOf(id) != -1;
+	}
+
+	/**
+	 * Reads the execution data of the given class.
+	 *
+	 * @param id
+	 *            class identifier
+	 * @return execution data or <code>null</code> if this file contains no
+	 *         execution data for the given class
+	 * @throws IOException
+	 *             if the file can not be read
+	 */
+	public ExecutionData get(final long id) throws IOException {
+		final int i = index.indexOf(id);
+		return i == -1 ? null : readExecutionData(i);
+	}
+
+	/**
+	 * Reads the execution data of all classes selected by the given filter in
+	 * ascending order of class ids.
+	 *
+	 * @param filter
+	 *            filter to select classes or <code>null</code> for all
+	 *            classes
+	 * @param visitor
+	 *            visitor to report execution data to
+	 * @throws IOException
+	 *             if the file can not be read
+	 */
+	public void accept(final IExecutionDataFilter filter,
+			final IExecutionDataVisitor visitor) throws IOException {
+		for (int i = 0; i < index.size(); i++) {
+			if (filter == null || filter.include(index.getId(i))) {
+				visitor.visitClassExecution(readExecutionData(i));
+			}
+		}
+	}
+
+	private ExecutionData readExecutionData(final int i) throws IOException {
+		final CompactDataInput in = new CompactDataInput(
+				new ByteArrayInputStream(
+						read(index.getOffset(i), index.getLength(i))));
+		final long id = index.getId(i);
+		final byte type = in.readByte();
+		if ((type != ExecutionDataWriter.BLOCK_EXECUTIONDATA
+				&& type != ExecutionDataWriter.BLOCK_EXECUTIONCOUNTS)
+				|| in.readLong() != id) {
+			throw invalidEntry(id);
+		}
+		final String name = in.readUTF();
+		final boolean[] probes = in.readBooleanArray();
+		long[] counts = null;
+		if (type == ExecutionDataWriter.BLOCK_EXECUTIONCOUNTS) {
+			counts = in.readVarLongArray();
+			if (counts.length != probes.length) {
+				throw invalidEntry(id);
+			}
+		}
+		return new ExecutionData(id, name, probes, counts);
+	}
+
+	private IOException invalidEntry(final long id) {
+		return new IOException(
+				format("Invalid index entry for class id %016x in %s.",
+						Long.valueOf(id), file));
+	}
+
+	private byte[] read(final long position, final int length)
+			throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException(format(
+						"Truncated execution data file %s.", file));
+			}
+		}
+		return buffer.array();
+	}
+
+	/**
+	 * Closes the underlying file.
+	 *
+	 * @throws IOException
+	 *             if the file can not be closed
+	 */
+	public void close() throws IOException {
+		stream.close();
+	}
+
+}
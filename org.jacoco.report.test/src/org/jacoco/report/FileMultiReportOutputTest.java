@@ -13,6 +13,9 @@
 package org.jacoco.report;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -60,4 +63,35 @@ public class FileMultiReportOutputTest {
 		output.createFile("a/b/c/test");
 	}
 
+	@Test
+	public void testOpenFile() throws IOException {
+		final FileMultiReportOutput output = new FileMultiReportOutput(
+				folder.getRoot());
+		final OutputStream out = output.createFile("a/test");
+		out.write(42);
+		out.close();
+
+		final InputStream in = output.openFile("a/test");
+		assertEquals(42, in.read());
+		assertEquals(-1, in.read());
+		in.close();
+		assertNull(output.openFile("a/other"));
+		assertNull(output.openFile("a"));
+	}
+
+	@Test
+	public void testDeleteFileRemovesEmptyFolders() throws IOException {
+		final FileMultiReportOutput output = new FileMultiReportOutput(
+				folder.getRoot());
+		output.createFile("a/b/c/test").close();
+		output.createFile("a/other").close();
+
+		output.deleteFile("a/b/c/test");
+		output.deleteFile("a/b/c/missing");
+
+		assertFalse(new File(folder.getRoot(), "a/b").exists());
+		assertTrue(new File(folder.getRoot(), "a/other").isFile());
+		assertTrue(folder.getRoot().isDirectory());
+	}
+
 }
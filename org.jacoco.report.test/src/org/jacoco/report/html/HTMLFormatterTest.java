@@ -13,26 +13,61 @@
 package org.jacoco.report.html;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.core.analysis.ISourceFileCoverage;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.internal.InputStreams;
+import org.jacoco.core.internal.analysis.BundleCoverageImpl;
+import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.CounterImpl;
+import org.jacoco.core.internal.analysis.MethodCoverageImpl;
+import org.jacoco.core.internal.analysis.PackageCoverageImpl;
+import org.jacoco.core.internal.analysis.SourceFileCoverageImpl;
+import org.jacoco.report.FileMultiReportOutput;
 import org.jacoco.report.ILanguageNames;
+import org.jacoco.report.IMultiReportOutput;
+import org.jacoco.report.IReportVisitor;
+import org.jacoco.report.ISourceFileLocator;
 import org.jacoco.report.MemoryMultiReportOutput;
 import org.jacoco.report.ReportStructureTestDriver;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * Unit tests for {@link HTMLFormatter}.
  */
 public class HTMLFormatterTest {
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	private ReportStructureTestDriver driver;
 
 	private HTMLFormatter formatter;
@@ -164,4 +199,186 @@ public class HTMLFormatterTest {
 		output.close();
 	}
 
+	@Test
+	public void testIncrementalReportWritesChangedPagesOnly()
+			throws Exception {
+		formatter.setIncremental(true);
+		final Set<String> created = new HashSet<String>();
+		driver.sendGroup(formatter.createVisitor(createFileOutput(created)));
+		assertTrue(created.contains("bundle/org.jacoco.example/FooClass.html"));
+		assertTrue(new File(folder.getRoot(), ".jacoco-manifest").isFile());
+
+		created.clear();
+		driver.sendGroup(formatter.createVisitor(createFileOutput(created)));
+		assertTrue(created.contains("jacoco-sessions.html"));
+		assertFalse(created.contains("index.html"));
+		assertFalse(created.contains("bundle/index.html"));
+		assertFalse(
+				created.contains("bundle/org.jacoco.example/FooClass.html"));
+		assertFalse(created
+				.contains("bundle/org.jacoco.example/FooClass.java.html"));
+		assertTrue(new File(folder.getRoot(),
+				"bundle/org.jacoco.example/FooClass.html").isFile());
+
+		created.clear();
+		formatter.setFooterText("changed");
+		driver.sendGroup(formatter.createVisitor(createFileOutput(created)));
+		assertTrue(created.contains("index.html"));
+		assertTrue(created.contains("bundle/org.jacoco.example/FooClass.html"));
+		output.close();
+	}
+
+	@Test
+	public void testIncrementalReportDeletesStalePages() throws Exception {
+		formatter.setIncremental(true);
+		driver.sendGroup(formatter.createVisitor(
+				createFileOutput(new HashSet<String>())));
+		assertTrue(new File(folder.getRoot(), "bundle/index.html").isFile());
+
+		driver.sendBundle(formatter.createVisitor(
+				createFileOutput(new HashSet<String>())));
+
+		assertFalse(new File(folder.getRoot(), "bundle").exists());
+		assertTrue(new File(folder.getRoot(),
+				"org.jacoco.example/FooClass.html").isFile());
+		output.close();
+	}
+
+	@Test
+	public void testNonIncrementalReportDeletesManifest() throws Exception {
+		formatter.setIncremental(true);
+		driver.sendBundle(formatter.createVisitor(
+				createFileOutput(new HashSet<String>())));
+		final File manifest = new File(folder.getRoot(), ".jacoco-manifest");
+		assertTrue(manifest.isFile());
+
+		formatter.setIncremental(false);
+		driver.sendBundle(formatter.createVisitor(
+				createFileOutput(new HashSet<String>())));
+
+		assertFalse(manifest.exists());
+		output.close();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setThreads_should_reject_non_positive_values()
+			throws IOException {
+		output.close();
+		formatter.setThreads(0);
+	}
+
+	@Test
+	public void concurrent_report_should_be_identical_to_serial_report()
+			throws Exception {
+		final RecordingOutput serial = new RecordingOutput();
+		sendLargeBundle(formatter.createVisitor(serial));
+
+		formatter.setThreads(4);
+		final RecordingOutput concurrent = new RecordingOutput();
+		sendLargeBundle(formatter.createVisitor(concurrent));
+
+		assertEquals(new ArrayList<String>(serial.files.keySet()),
+				new ArrayList<String>(concurrent.files.keySet()));
+		for (final String path : serial.files.keySet()) {
+			assertEquals(path, serial.files.get(path).toString("UTF-8"),
+					concurrent.files.get(path).toString("UTF-8"));
+		}
+		output.close();
+	}
+
+	@Test
+	public void concurrent_report_should_write_files_concurrently()
+			throws Exception {
+		final RecordingOutput serial = new RecordingOutput();
+		sendLargeBundle(formatter.createVisitor(serial));
+
+		formatter.setThreads(4);
+		sendLargeBundle(formatter.createVisitor(
+				new FileMultiReportOutput(folder.getRoot())));
+
+		for (final String path : serial.files.keySet()) {
+			final FileInputStream in = new FileInputStream(
+					new File(folder.getRoot(), path));
+			try {
+				assertEquals(path, serial.files.get(path).toString("UTF-8"),
+						new String(InputStreams.readFully(in), "UTF-8"));
+			} finally {
+				in.close();
+			}
+		}
+		output.close();
+	}
+
+	private void sendLargeBundle(final IReportVisitor visitor)
+			throws IOException {
+		final List<IPackageCoverage> packages = new ArrayList<IPackageCoverage>();
+		for (int p = 0; p < 20; p++) {
+			final String packageName = "org/example/p" + p;
+			final List<IClassCoverage> classes = new ArrayList<IClassCoverage>();
+			final List<ISourceFileCoverage> sources = new ArrayList<ISourceFileCoverage>();
+			for (int c = 0; c < 5; c++) {
+				final MethodCoverageImpl m = new MethodCoverageImpl("run",
+						"()V", null);
+				m.increment(CounterImpl.getInstance(c, p),
+						CounterImpl.COUNTER_0_0, 1 + c);
+				m.incrementMethodCounter();
+				final ClassCoverageImpl cc = new ClassCoverageImpl(
+						packageName + "/C" + c, p * 100 + c, false);
+				cc.setSourceFileName("C" + c + ".java");
+				cc.addMethod(m);
+				classes.add(cc);
+				final SourceFileCoverageImpl sc = new SourceFileCoverageImpl(
+						"C" + c + ".java", packageName);
+				sc.increment(cc);
+				sources.add(sc);
+			}
+			packages.add(new PackageCoverageImpl(packageName, classes,
+					sources));
+		}
+		visitor.visitInfo(Collections.<SessionInfo> emptyList(),
+				Collections.<ExecutionData> emptyList());
+		visitor.visitBundle(new BundleCoverageImpl("bundle", packages),
+				new ISourceFileLocator() {
+					public Reader getSourceFile(final String packageName,
+							final String fileName) {
+						return new StringReader("package " + packageName
+								+ ";\nclass " + fileName + " {\n}\n");
+					}
+
+					public int getTabWidth() {
+						return 4;
+					}
+				});
+		visitor.visitEnd();
+	}
+
+	/**
+	 * Output which keeps all files in the order of their creation.
+	 */
+	private static class RecordingOutput implements IMultiReportOutput {
+
+		final Map<String, ByteArrayOutputStream> files = new LinkedHashMap<String, ByteArrayOutputStream>();
+
+		public OutputStream createFile(final String path) {
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			files.put(path, out);
+			return out;
+		}
+
+		public void close() {
+		}
+
+	}
+
+	private FileMultiReportOutput createFileOutput(final Set<String> created) {
+		return new FileMultiReportOutput(folder.getRoot()) {
+			@Override
+			public OutputStream createFile(final String path)
+					throws IOException {
+				created.add(path);
+				return super.createFile(path);
+			}
+		};
+	}
+
 }
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.report.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.jacoco.core.analysis.ICoverageNode.ElementType;
+import org.jacoco.core.internal.analysis.CounterImpl;
+import org.jacoco.core.internal.analysis.MethodCoverageImpl;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link Fingerprint}.
+ */
+public class FingerprintTest {
+
+	@Test
+	public void should_return_md5_hex_string() {
+		assertEquals("d41d8cd98f00b204e9800998ecf8427e",
+				new Fingerprint().toString());
+	}
+
+	@Test
+	public void should_be_equal_for_same_data() {
+		assertEquals(new Fingerprint().add("a").add(1).add(true).toString(),
+				new Fingerprint().add("a").add(1).add(true).toString());
+	}
+
+	@Test
+	public void should_distinguish_high_and_low_bits_of_long() {
+		assertNotEquals(new Fingerprint().add(1L).toString(),
+				new Fingerprint().add(1L << 32).toString());
+	}
+
+	@Test
+	public void should_distinguish_string_boundaries() {
+		assertNotEquals(new Fingerprint().add("ab").add("c").toString(),
+				new Fingerprint().add("a").add("bc").toString());
+	}
+
+	@Test
+	public void should_distinguish_null_and_empty_string() {
+		assertNotEquals(new Fingerprint().add((String) null).toString(),
+				new Fingerprint().add("").toString());
+	}
+
+	@Test
+	public void should_include_node_counters() {
+		final MethodCoverageImpl m1 = new MethodCoverageImpl("m", "()V", null);
+		m1.increment(CounterImpl.getInstance(1, 2), CounterImpl.COUNTER_0_0,
+				1);
+		final MethodCoverageImpl m2 = new MethodCoverageImpl("m", "()V", null);
+		m2.increment(CounterImpl.getInstance(2, 1), CounterImpl.COUNTER_0_0,
+				1);
+
+		assertEquals(ElementType.METHOD, m1.getElementType());
+		assertEquals(new Fingerprint().add(m1).toString(),
+				new Fingerprint().add(m1).toString());
+		assertNotEquals(new Fingerprint().add(m1).toString(),
+				new Fingerprint().add(m2).toString());
+	}
+
+}
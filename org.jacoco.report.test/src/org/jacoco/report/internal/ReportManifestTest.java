@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.report.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.jacoco.report.FileMultiReportOutput;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ReportManifest}.
+ */
+public class ReportManifestTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private FileMultiReportOutput output;
+
+	@Before
+	public void setup() {
+		output = new FileMultiReportOutput(folder.getRoot());
+	}
+
+	@Test
+	public void isUpToDate_should_return_false_without_previous_report()
+			throws IOException {
+		final ReportManifest manifest = new ReportManifest(output);
+
+		assertFalse(manifest.isUpToDate("a.html", "1"));
+		manifest.close();
+	}
+
+	@Test
+	public void isUpToDate_should_compare_with_previous_fingerprint()
+			throws IOException {
+		ReportManifest manifest = new ReportManifest(output);
+		manifest.isUpToDate("a.html", "1");
+		manifest.createFile("a.html").close();
+		manifest.isUpToDate("b/b.html", "2");
+		manifest.createFile("b/b.html").close();
+		manifest.close();
+
+		manifest = new ReportManifest(output);
+		assertTrue(manifest.isUpToDate("a.html", "1"));
+		assertFalse(manifest.isUpToDate("b/b.html", "3"));
+		manifest.close();
+	}
+
+	@Test
+	public void isUpToDate_should_return_false_for_files_without_fingerprint()
+			throws IOException {
+		ReportManifest manifest = new ReportManifest(output);
+		manifest.createFile("a.html").close();
+		manifest.close();
+
+		manifest = new ReportManifest(output);
+		assertFalse(manifest.isUpToDate("a.html", "1"));
+		manifest.close();
+	}
+
+	@Test
+	public void close_should_delete_stale_files() throws IOException {
+		ReportManifest manifest = new ReportManifest(output);
+		manifest.createFile("a.html").close();
+		manifest.createFile("b/b.html").close();
+		manifest.close();
+
+		manifest = new ReportManifest(output);
+		manifest.createFile("a.html").close();
+		manifest.close();
+
+		assertTrue(new File(folder.getRoot(), "a.html").isFile());
+		assertFalse(new File(folder.getRoot(), "b").exists());
+	}
+
+	@Test
+	public void should_not_delete_files_of_unknown_reports()
+			throws IOException {
+		output.createFile("other.html").close();
+
+		new ReportManifest(output).close();
+		new ReportManifest(output).close();
+
+		assertTrue(new File(folder.getRoot(), "other.html").isFile());
+	}
+
+	@Test
+	public void should_delete_previous_manifest_when_created()
+			throws IOException {
+		new ReportManifest(output).close();
+		final File file = new File(folder.getRoot(), ReportManifest.PATH);
+		assertTrue(file.isFile());
+
+		new ReportManifest(output);
+
+		assertFalse(file.exists());
+	}
+
+	@Test
+	public void should_ignore_manifest_with_unknown_header()
+			throws IOException {
+		final ReportManifest manifest = new ReportManifest(output);
+		manifest.isUpToDate("a.html", "1");
+		manifest.close();
+		output.createFile(ReportManifest.PATH).close();
+
+		assertFalse(new ReportManifest(output).isUpToDate("a.html", "1"));
+	}
+
+}
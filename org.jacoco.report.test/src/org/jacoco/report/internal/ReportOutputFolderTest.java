@@ -98,6 +98,52 @@ public class ReportOutputFolderTest {
 		assertEquals("../f2/test.html", folder.getLink(base, "test.html"));
 	}
 
+	@Test
+	public void testRedirectWritesToOtherOutput() throws IOException {
+		final MemoryMultiReportOutput other = new MemoryMultiReportOutput();
+		final ReportOutputFolder folder = root.subFolder("f1")
+				.redirect(other);
+		folder.createFile("test.html").close();
+		folder.subFolder("f2").createFile("test.html").close();
+		other.assertFile("f1/test.html");
+		other.assertFile("f1/f2/test.html");
+		output.assertEmpty();
+		other.close();
+		other.assertAllClosed();
+	}
+
+	@Test
+	public void testRedirectSharesFileNames() throws IOException {
+		final ReportOutputFolder folder = root.subFolder("f1");
+		final ReportOutputFolder redirected = folder
+				.redirect(new MemoryMultiReportOutput());
+		assertEquals("f1/Hello.html", redirected.getLink(root, "Hello.html"));
+		assertEquals("f1/1~HELLO.html", folder.getLink(root, "HELLO.html"));
+		assertEquals("f1/1~HELLO.html",
+				redirected.getLink(root, "HELLO.html"));
+		assertEquals("f1/f2/Hello.html",
+				redirected.subFolder("f2").getLink(root, "Hello.html"));
+		assertEquals("f1/f2/1~HELLO.html",
+				folder.subFolder("f2").getLink(root, "HELLO.html"));
+	}
+
+	@Test
+	public void testRedirectRelativeLinks() throws IOException {
+		final ReportOutputFolder folder = root.subFolder("f1");
+		final ReportOutputFolder redirected = folder
+				.redirect(new MemoryMultiReportOutput());
+		assertEquals("../test.html", root.getLink(redirected, "test.html"));
+		assertEquals("f1/test.html", redirected.getLink(root, "test.html"));
+		assertEquals("test.html", redirected.getLink(redirected, "test.html"));
+		assertEquals("../../test.html",
+				root.getLink(redirected.subFolder("f2"), "test.html"));
+		assertEquals("f1/test.html", redirected
+				.getLink(root.redirect(new MemoryMultiReportOutput()),
+						"test.html"));
+		assertEquals("../test.html", root.redirect(
+				new MemoryMultiReportOutput()).getLink(folder, "test.html"));
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void testInvalidRelativeLink() throws IOException {
 		final ReportOutputFolder folder = root.subFolder("f1").subFolder("f2");
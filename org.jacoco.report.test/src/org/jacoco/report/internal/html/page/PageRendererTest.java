@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.report.internal.html.page;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.report.IMultiReportOutput;
+import org.jacoco.report.internal.ReportOutputFolder;
+import org.jacoco.report.internal.html.HTMLElement;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link PageRenderer}.
+ */
+public class PageRendererTest extends PageTestBase {
+
+	private List<String> created;
+
+	private IMultiReportOutput recorder;
+
+	private PageRenderer renderer;
+
+	@Before
+	@Override
+	public void setup() throws Exception {
+		super.setup();
+		created = Collections.synchronizedList(new ArrayList<String>());
+		recorder = new IMultiReportOutput() {
+			public OutputStream createFile(final String path)
+					throws IOException {
+				created.add(path);
+				return output.createFile(path);
+			}
+
+			public void close() throws IOException {
+				output.close();
+			}
+		};
+	}
+
+	@After
+	public void shutdown() {
+		if (renderer != null) {
+			renderer.shutdown();
+		}
+	}
+
+	@Test
+	public void render_should_render_immediately_without_threads()
+			throws Exception {
+		renderer = new PageRenderer();
+		final PageRenderer.Job job = renderer.createJob(rootFolder);
+		assertSame(rootFolder, job.getFolder());
+
+		job.render(new TestPage("a", job.getFolder(), null, null));
+
+		output.assertFile("a.html");
+	}
+
+	@Test
+	public void awaitJobs_should_hand_off_buffered_files_in_job_order()
+			throws Exception {
+		renderer = new PageRenderer(2, recorder, false);
+		final CountDownLatch latch = new CountDownLatch(1);
+
+		final List<PageRenderer.Job> jobs = new ArrayList<PageRenderer.Job>();
+		final List<TestPage> pages = new ArrayList<TestPage>();
+		for (int i = 0; i < 5; i++) {
+			final PageRenderer.Job job = renderer
+					.createJob(rootFolder.subFolder("f" + i));
+			jobs.add(job);
+			pages.add(new TestPage("p" + i, job.getFolder(),
+					i == 0 ? latch : null, i == 2 ? latch : null));
+		}
+		for (int i = 0; i < jobs.size(); i++) {
+			jobs.get(i).render(pages.get(i));
+		}
+		renderer.awaitJobs();
+
+		assertEquals(Arrays.asList("f0/p0.html", "f1/p1.html", "f2/p2.html",
+				"f3/p3.html", "f4/p4.html"), created);
+		output.assertFile("f0/p0.html");
+	}
+
+	@Test
+	public void render_should_write_directly_to_concurrent_output()
+			throws Exception {
+		renderer = new PageRenderer(2, recorder, true);
+		final PageRenderer.Job job = renderer.createJob(rootFolder);
+		assertSame(rootFolder, job.getFolder());
+
+		job.render(new TestPage("a", job.getFolder(), null, null));
+		renderer.awaitJobs();
+
+		output.assertFile("a.html");
+		assertTrue(created.isEmpty());
+	}
+
+	@Test
+	public void awaitJobs_should_throw_exception_of_failed_job()
+			throws Exception {
+		renderer = new PageRenderer(2, recorder, false);
+		final PageRenderer.Job job = renderer.createJob(rootFolder);
+		job.render(new TestPage("a", job.getFolder(), null, null) {
+			@Override
+			protected void content(final HTMLElement body)
+					throws IOException {
+				throw new IOException("Expected");
+			}
+		});
+
+		try {
+			renderer.awaitJobs();
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Expected", e.getMessage());
+		}
+		assertTrue(created.isEmpty());
+	}
+
+	private class TestPage extends ReportPage {
+
+		private final String name;
+
+		private final CountDownLatch await;
+
+		private final CountDownLatch release;
+
+		TestPage(final String name, final ReportOutputFolder folder,
+				final CountDownLatch await, final CountDownLatch release) {
+			super(null, folder, PageRendererTest.this.context);
+			this.name = name;
+			this.await = await;
+			this.release = release;
+		}
+
+		@Override
+		protected void content(final HTMLElement body) throws IOException {
+			if (await != null) {
+				try {
+					await.await(10, TimeUnit.SECONDS);
+				} catch (final InterruptedException e) {
+					throw new IOException();
+				}
+			}
+			if (release != null) {
+				release.countDown();
+			}
+			body.text(name);
+		}
+
+		@Override
+		protected String getFileName() {
+			return name + ".html";
+		}
+
+		public String getLinkLabel() {
+			return name;
+		}
+
+		public String getLinkStyle() {
+			return null;
+		}
+
+	}
+
+}
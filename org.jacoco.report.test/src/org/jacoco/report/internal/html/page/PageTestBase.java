@@ -63,6 +63,10 @@ public abstract class PageTestBase {
 				return table;
 			}
 
+			public PageRenderer getPageRenderer() {
+				return new PageRenderer();
+			}
+
 			public String getFooterText() {
 				return "CustomFooter";
 			}
@@ -13,13 +13,17 @@
 package org.jacoco.report.internal.html.page;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 
 import java.io.FileInputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.StringReader;
 
+import org.jacoco.core.internal.analysis.CounterImpl;
 import org.jacoco.core.internal.analysis.SourceFileCoverageImpl;
+import org.jacoco.report.internal.Fingerprint;
 import org.junit.Before;
 import org.junit.Test;
 import org.w3c.dom.Document;
@@ -68,4 +72,57 @@ public class SourceFilePageTest extends PageTestBase {
 		// source code
 		assertNotNull(support.findStr(result, "/html/body/pre"));
 	}
+
+	@Test
+	public void fingerprint_should_depend_on_source() throws Exception {
+		assertEquals(fingerprint("class A {}"), fingerprint("class A {}"));
+		assertNotEquals(fingerprint("class A {}"), fingerprint("class B {}"));
+	}
+
+	@Test
+	public void fingerprint_should_depend_on_execution_counts()
+			throws Exception {
+		assertEquals(fingerprint(3), fingerprint(3));
+		assertNotEquals(fingerprint(3), fingerprint(4));
+	}
+
+	@Test
+	public void render_should_render_source_read_for_fingerprint()
+			throws Exception {
+		final SourceFileCoverageImpl node = new SourceFileCoverageImpl(
+				"Sample.java", "org/jacoco/report/internal/html");
+		final SourceFilePage page = new SourceFilePage(node,
+				new StringReader("class Sample {}"), 4, null, rootFolder,
+				context);
+		page.fingerprint(new Fingerprint());
+		page.render();
+
+		final Document result = support
+				.parse(output.getFile("Sample.java.html"));
+		assertEquals("class Sample {}",
+				support.findStr(result, "/html/body/pre").trim());
+	}
+
+	private String fingerprint(final long executionCount) throws Exception {
+		final SourceFileCoverageImpl node = new SourceFileCoverageImpl(
+				"Sample.java", "org/jacoco/report/internal/html");
+		node.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0, 1);
+		node.updateExecutionCount(1, executionCount);
+		return fingerprint(node, "class Sample {}");
+	}
+
+	private String fingerprint(final String source) throws Exception {
+		return fingerprint(new SourceFileCoverageImpl("Sample.java",
+				"org/jacoco/report/internal/html"), source);
+	}
+
+	private String fingerprint(final SourceFileCoverageImpl node,
+			final String source) throws Exception {
+		final SourceFilePage page = new SourceFilePage(node,
+				new StringReader(source), 4, null, rootFolder, context);
+		final Fingerprint fingerprint = new Fingerprint();
+		page.fingerprint(fingerprint);
+		return fingerprint.toString();
+	}
+
 }
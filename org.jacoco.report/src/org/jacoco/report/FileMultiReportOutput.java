@@ -16,15 +16,19 @@ import static java.lang.String.format;
 
 import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 
 /**
  * Implementation of {@link IMultiReportOutput} that writes files directly to a
- * given directory.
+ * given directory. Files of a previous report in the same directory can be
+ * accessed for incremental report generation. Different files can be created
+ * and written concurrently.
  */
-public class FileMultiReportOutput implements IMultiReportOutput {
+public class FileMultiReportOutput implements IIncrementalReportOutput {
 
 	private final File basedir;
 
@@ -41,6 +45,7 @@ public class FileMultiReportOutput implements IMultiReportOutput {
 	public OutputStream createFile(final String path) throws IOException {
 		final File file = new File(basedir, path);
 		final File parent = file.getParentFile();
+		// the directory might be created concurrently by another thread
 		parent.mkdirs();
 		if (!parent.isDirectory()) {
 			throw new IOException(format("Can't create directory %s.", parent));
@@ -48,6 +53,23 @@ public class FileMultiReportOutput implements IMultiReportOutput {
 		return new BufferedOutputStream(new FileOutputStream(file));
 	}
 
+	public InputStream openFile(final String path) throws IOException {
+		final File file = new File(basedir, path);
+		return file.isFile() ? new FileInputStream(file) : null;
+	}
+
+	public void deleteFile(final String path) throws IOException {
+		File file = new File(basedir, path);
+		if (file.exists() && !file.delete()) {
+			throw new IOException(format("Can't delete file %s.", file));
+		}
+		// remove folders which became empty
+		file = file.getParentFile();
+		while (!file.equals(basedir) && file.delete()) {
+			file = file.getParentFile();
+		}
+	}
+
 	public void close() throws IOException {
 		// nothing to do here
 	}
@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.report;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Extension of {@link IMultiReportOutput} for outputs which provide access to
+ * the files of a previous report. This allows incremental report generation
+ * where only files with changed content are written.
+ */
+public interface IIncrementalReportOutput extends IMultiReportOutput {
+
+	/**
+	 * Opens an existing file at the given local path.
+	 *
+	 * @param path
+	 *            local path to the document
+	 * @return input for the content or <code>null</code> if the file does not
+	 *         exist
+	 * @throws IOException
+	 *             if the file exists but can not be read
+	 */
+	InputStream openFile(String path) throws IOException;
+
+	/**
+	 * Deletes the file at the given local path. Nothing happens if the file
+	 * does not exist.
+	 *
+	 * @param path
+	 *            local path to the document
+	 * @throws IOException
+	 *             if the file exists but can not be deleted
+	 */
+	void deleteFile(String path) throws IOException;
+
+}
@@ -21,12 +21,15 @@ import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.ICoverageNode.CounterEntity;
 import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.SessionInfo;
+import org.jacoco.report.FileMultiReportOutput;
+import org.jacoco.report.IIncrementalReportOutput;
 import org.jacoco.report.ILanguageNames;
 import org.jacoco.report.IMultiReportOutput;
 import org.jacoco.report.IReportGroupVisitor;
 import org.jacoco.report.IReportVisitor;
 import org.jacoco.report.ISourceFileLocator;
 import org.jacoco.report.JavaNames;
+import org.jacoco.report.internal.ReportManifest;
 import org.jacoco.report.internal.ReportOutputFolder;
 import org.jacoco.report.internal.html.HTMLGroupVisitor;
 import org.jacoco.report.internal.html.IHTMLReportContext;
@@ -34,6 +37,7 @@ import org.jacoco.report.internal.html.ILinkable;
 import org.jacoco.report.internal.html.index.ElementIndex;
 import org.jacoco.report.internal.html.index.IIndexUpdate;
 import org.jacoco.report.internal.html.page.BundlePage;
+import org.jacoco.report.internal.html.page.PageRenderer;
 import org.jacoco.report.internal.html.page.ReportPage;
 import org.jacoco.report.internal.html.page.SessionsPage;
 import org.jacoco.report.internal.html.resources.Resources;
@@ -57,13 +61,24 @@ public class HTMLFormatter implements IHTMLReportContext {
 
 	private String outputEncoding = "UTF-8";
 
+	private boolean incremental = false;
+
+	private int threads = 1;
+
 	private Resources resources;
 
 	private ElementIndex index;
 
 	private SessionsPage sessionsPage;
 
-	private Table table;
+	private PageRenderer renderer;
+
+	private final ThreadLocal<Table> table = new ThreadLocal<Table>() {
+		@Override
+		protected Table initialValue() {
+			return createTable();
+		}
+	};
 
 	/**
 	 * New instance with default settings.
@@ -113,6 +128,46 @@ public class HTMLFormatter implements IHTMLReportContext {
 		this.outputEncoding = outputEncoding;
 	}
 
+	/**
+	 * Enables incremental report generation. A manifest with a fingerprint of
+	 * every page is stored with the report. When the report is created again
+	 * in the same location only pages whose content changed are written and
+	 * pages which do not exist any more are deleted. Incremental generation
+	 * requires an output implementing {@link IIncrementalReportOutput} like
+	 * {@link org.jacoco.report.FileMultiReportOutput}, for other outputs this
+	 * setting is ignored. Default is <code>false</code>.
+	 *
+	 * @param incremental
+	 *            <code>true</code> to enable incremental report generation
+	 */
+	public void setIncremental(final boolean incremental) {
+		this.incremental = incremental;
+	}
+
+	/**
+	 * Sets the number of threads used to render the pages of the packages of
+	 * a bundle concurrently. The report content does not depend on the number
+	 * of threads. Files are written concurrently to a
+	 * {@link FileMultiReportOutput}, for other outputs the files are buffered
+	 * and written on the calling thread in the same order as without
+	 * concurrent rendering. With more than one thread the
+	 * {@link org.jacoco.report.ISourceFileLocator} of a bundle is called
+	 * concurrently. Default is <code>1</code>, i.e. all pages are rendered on
+	 * the calling thread.
+	 *
+	 * @param threads
+	 *            number of threads, must be positive
+	 * @throws IllegalArgumentException
+	 *             if the number of threads is not positive
+	 */
+	public void setThreads(final int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException(
+					"Number of threads must be positive: " + threads);
+		}
+		this.threads = threads;
+	}
+
 	// === IHTMLReportContext ===
 
 	public ILanguageNames getLanguageNames() {
@@ -124,10 +179,11 @@ public class HTMLFormatter implements IHTMLReportContext {
 	}
 
 	public Table getTable() {
-		if (table == null) {
-			table = createTable();
-		}
-		return table;
+		return table.get();
+	}
+
+	public PageRenderer getPageRenderer() {
+		return renderer;
 	}
 
 	private Table createTable() {
@@ -179,18 +235,22 @@ public class HTMLFormatter implements IHTMLReportContext {
 	/**
 	 * Creates a new visitor to write a report to the given output.
 	 *
-	 * @param output
+	 * @param target
 	 *            output to write the report to
 	 * @return visitor to emit the report data to
 	 * @throws IOException
 	 *             in case of problems with the output stream
 	 */
-	public IReportVisitor createVisitor(final IMultiReportOutput output)
+	public IReportVisitor createVisitor(final IMultiReportOutput target)
 			throws IOException {
+		final IMultiReportOutput output = createOutput(target);
 		final ReportOutputFolder root = new ReportOutputFolder(output);
 		resources = new Resources(root);
 		resources.copyResources();
 		index = new ElementIndex(root);
+		renderer = threads == 1 ? new PageRenderer()
+				: new PageRenderer(threads, output,
+						target instanceof FileMultiReportOutput);
 		return new IReportVisitor() {
 
 			private List<SessionInfo> sessionInfos;
@@ -228,12 +288,30 @@ public class HTMLFormatter implements IHTMLReportContext {
 			}
 
 			public void visitEnd() throws IOException {
-				if (groupHandler != null) {
-					groupHandler.visitEnd();
+				try {
+					if (groupHandler != null) {
+						groupHandler.visitEnd();
+					}
+				} finally {
+					renderer.shutdown();
 				}
 				sessionsPage.render();
 				output.close();
 			}
 		};
 	}
+
+	private IMultiReportOutput createOutput(final IMultiReportOutput target)
+			throws IOException {
+		if (target instanceof IIncrementalReportOutput) {
+			final IIncrementalReportOutput output = (IIncrementalReportOutput) target;
+			if (incremental) {
+				return new ReportManifest(output);
+			}
+			// all pages are overwritten, so the manifest would be outdated
+			output.deleteFile(ReportManifest.PATH);
+		}
+		return target;
+	}
+
 }
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.report.internal;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.ICoverageNode.CounterEntity;
+
+/**
+ * Hash over all data which determines the content of a report file. Files
+ * with the same fingerprint have the same content.
+ */
+public class Fingerprint {
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final MessageDigest digest;
+
+	/**
+	 * Creates a new empty fingerprint.
+	 */
+	public Fingerprint() {
+		try {
+			digest = MessageDigest.getInstance("MD5");
+		} catch (final NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Adds the given string, <code>null</code> is allowed.
+	 *
+	 * @param value
+	 *            value to add
+	 * @return this fingerprint
+	 */
+	public Fingerprint add(final String value) {
+		if (value == null) {
+			add(-1);
+		} else {
+			add(value.length());
+			try {
+				digest.update(value.getBytes("UTF-8"));
+			} catch (final UnsupportedEncodingException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Adds the given number.
+	 *
+	 * @param value
+	 *            value to add
+	 * @return this fingerprint
+	 */
+	public Fingerprint add(final int value) {
+		digest.update((byte) (value >>> 24));
+		digest.update((byte) (value >>> 16));
+		digest.update((byte) (value >>> 8));
+		digest.update((byte) value);
+		return this;
+	}
+
+	/**
+	 * Adds the given number.
+	 *
+	 * @param value
+	 *            value to add
+	 * @return this fingerprint
+	 */
+	public Fingerprint add(final long value) {
+		add((int) (value >>> 32));
+		add((int) value);
+		return this;
+	}
+
+	/**
+	 * Adds the given flag.
+	 *
+	 * @param value
+	 *            value to add
+	 * @return this fingerprint
+	 */
+	public Fingerprint add(final boolean value) {
+		digest.update((byte) (value ? 1 : 0));
+		return this;
+	}
+
+	/**
+	 * Adds the missed and covered count of the given counter.
+	 *
+	 * @param counter
+	 *            counter to add
+	 * @return this fingerprint
+	 */
+	public Fingerprint add(final ICounter counter) {
+		add(counter.getMissedCount());
+		add(counter.getCoveredCount());
+		return this;
+	}
+
+	/**
+	 * Adds the name, the element type and all counters of the given node.
+	 *
+	 * @param node
+	 *            node to add
+	 * @return this fingerprint
+	 */
+	public Fingerprint add(final ICoverageNode node) {
+		add(node.getName());
+		add(node.getElementType().ordinal());
+		for (final CounterEntity entity : CounterEntity.values()) {
+			add(node.getCounter(entity));
+		}
+		return this;
+	}
+
+	/**
+	 * Returns the fingerprint as a hex string. No more data must be added
+	 * afterwards.
+	 *
+	 * @return hex string
+	 */
+	@Override
+	public String toString() {
+		final byte[] bytes = digest.digest();
+		final char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[2 * i] = HEX[(bytes[i] >>> 4) & 0xF];
+			chars[2 * i + 1] = HEX[bytes[i] & 0xF];
+		}
+		return new String(chars);
+	}
+
+}
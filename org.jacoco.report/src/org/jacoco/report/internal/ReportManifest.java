@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.report.internal;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jacoco.report.IIncrementalReportOutput;
+import org.jacoco.report.IMultiReportOutput;
+
+/**
+ * Output decorator for incremental report generation. The manifest stores the
+ * fingerprint of every file of a report. Files whose fingerprint did not
+ * change since the previous report are not written again and files of the
+ * previous report which are not part of the new report are deleted when the
+ * output is closed. Files can be created concurrently if the underlying output
+ * supports this.
+ */
+public class ReportManifest implements IMultiReportOutput {
+
+	/** Local path of the manifest file in the report */
+	public static final String PATH = ".jacoco-manifest";
+
+	private static final String HEADER = "JaCoCo report manifest 1";
+
+	/** Marker for files which are always written */
+	private static final String NO_FINGERPRINT = "-";
+
+	private final IIncrementalReportOutput output;
+
+	private final Map<String, String> previous;
+
+	private final Map<String, String> current = new TreeMap<String, String>();
+
+	/**
+	 * Creates a manifest for the given output and reads the manifest of the
+	 * previous report, if any. The previous manifest is deleted, so an
+	 * interrupted report generation results in a full report generation the
+	 * next time.
+	 *
+	 * @param output
+	 *            output to write the report to
+	 * @throws IOException
+	 *             if the previous manifest can not be read
+	 */
+	public ReportManifest(final IIncrementalReportOutput output)
+			throws IOException {
+		this.output = output;
+		this.previous = read(output);
+		output.deleteFile(PATH);
+	}
+
+	private static Map<String, String> read(
+			final IIncrementalReportOutput output) throws IOException {
+		final Map<String, String> entries = new HashMap<String, String>();
+		final InputStream in = output.openFile(PATH);
+		if (in == null) {
+			return entries;
+		}
+		final BufferedReader reader = new BufferedReader(
+				new InputStreamReader(in, "UTF-8"));
+		try {
+			if (!HEADER.equals(reader.readLine())) {
+				return entries;
+			}
+			String line;
+			while ((line = reader.readLine()) != null) {
+				final int space = line.indexOf(' ');
+				if (space != -1) {
+					entries.put(line.substring(space + 1),
+							line.substring(0, space));
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return entries;
+	}
+
+	/**
+	 * Checks whether the file at the given path is up-to-date with the given
+	 * fingerprint. In this case the file must not be written again.
+	 *
+	 * @param path
+	 *            local path of the file
+	 * @param fingerprint
+	 *            fingerprint of the file content
+	 * @return <code>true</code> if the file is up-to-date
+	 */
+	public boolean isUpToDate(final String path, final String fingerprint) {
+		synchronized (current) {
+			current.put(path, fingerprint);
+		}
+		return fingerprint.equals(previous.get(path));
+	}
+
+	public OutputStream createFile(final String path) throws IOException {
+		synchronized (current) {
+			if (!current.containsKey(path)) {
+				current.put(path, NO_FINGERPRINT);
+			}
+		}
+		return output.createFile(path);
+	}
+
+	/**
+	 * Deletes all files of the previous report which have not been created
+	 * for the new report, writes the new manifest and closes the underlying
+	 * output.
+	 */
+	public void close() throws IOException {
+		for (final String path : previous.keySet()) {
+			if (!current.containsKey(path)) {
+				output.deleteFile(path);
+			}
+		}
+		final Writer writer = new OutputStreamWriter(output.createFile(PATH),
+				"UTF-8");
+		writer.write(HEADER);
+		writer.write('\n');
+		for (final Map.Entry<String, String> e : current.entrySet()) {
+			writer.write(e.getValue());
+			writer.write(' ');
+			writer.write(e.getKey());
+			writer.write('\n');
+		}
+		writer.close();
+		output.close();
+	}
+
+}
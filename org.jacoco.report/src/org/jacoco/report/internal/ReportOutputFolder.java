@@ -22,11 +22,15 @@ import org.jacoco.report.IMultiReportOutput;
 /**
  * Logical representation of a folder in the output structure. This utility
  * ensures valid and unique file names and helps to create relative links.
+ * Instances of this class are thread safe.
  */
 public class ReportOutputFolder {
 
 	private final IMultiReportOutput output;
 
+	/** manifest for incremental output or <code>null</code> */
+	private final ReportManifest manifest;
+
 	private final ReportOutputFolder parent;
 
 	private final String path;
@@ -36,28 +40,31 @@ public class ReportOutputFolder {
 
 	private final NormalizedFileNames fileNames;
 
+	/** folder this instance redirects or <code>null</code> */
+	private final ReportOutputFolder origin;
+
 	/**
-	 * Creates a new root folder for the given output.
+	 * Creates a new root folder for the given output. If the output is a
+	 * {@link ReportManifest} files can be skipped if they are up-to-date.
 	 *
 	 * @param output
 	 *            output for generated files
 	 */
 	public ReportOutputFolder(final IMultiReportOutput output) {
-		this(output, null, "");
+		this(output, output instanceof ReportManifest ? (ReportManifest) output
+				: null, null, "", new NormalizedFileNames(), null);
 	}
 
-	/**
-	 * Creates a new root folder for the given output.
-	 *
-	 * @param output
-	 *            output for generated files
-	 */
 	private ReportOutputFolder(final IMultiReportOutput output,
-			final ReportOutputFolder parent, final String path) {
+			final ReportManifest manifest, final ReportOutputFolder parent,
+			final String path, final NormalizedFileNames fileNames,
+			final ReportOutputFolder origin) {
 		this.output = output;
+		this.manifest = manifest;
 		this.parent = parent;
 		this.path = path;
-		fileNames = new NormalizedFileNames();
+		this.fileNames = fileNames;
+		this.origin = origin;
 	}
 
 	/**
@@ -67,18 +74,41 @@ public class ReportOutputFolder {
 	 *            name of the sub-folder
 	 * @return handle for output into the sub-folder
 	 */
-	public ReportOutputFolder subFolder(final String name) {
+	public synchronized ReportOutputFolder subFolder(final String name) {
 		final String normalizedName = normalize(name);
 		ReportOutputFolder folder = subFolders.get(normalizedName);
 		if (folder != null) {
 			return folder;
 		}
-		folder = new ReportOutputFolder(output, this,
-				path + normalizedName + "/");
+		if (origin == null) {
+			folder = new ReportOutputFolder(output, manifest, this,
+					path + normalizedName + "/", new NormalizedFileNames(),
+					null);
+		} else {
+			final ReportOutputFolder originFolder = origin.subFolder(name);
+			folder = new ReportOutputFolder(output, manifest, this,
+					originFolder.path, originFolder.fileNames, originFolder);
+		}
 		subFolders.put(normalizedName, folder);
 		return folder;
 	}
 
+	/**
+	 * Creates a view on this folder which writes files to the given output
+	 * instead. The view has the same location and uses the same file names
+	 * as this folder. Pages created in the view can link to pages of this
+	 * folder and its ancestors. This allows rendering parts of the report
+	 * into a temporary output which is handed off to the actual output later.
+	 *
+	 * @param output
+	 *            output for files created in the view
+	 * @return view on this folder
+	 */
+	public ReportOutputFolder redirect(final IMultiReportOutput output) {
+		return new ReportOutputFolder(output, manifest, parent, path,
+				fileNames, this);
+	}
+
 	/**
 	 * Creates a new file in this folder with the given local name.
 	 *
@@ -92,6 +122,34 @@ public class ReportOutputFolder {
 		return output.createFile(path + normalize(name));
 	}
 
+	/**
+	 * Checks whether files are written incrementally, i.e. up-to-date files
+	 * can be skipped.
+	 *
+	 * @return <code>true</code> if {@link #isUpToDate(String, String)} should
+	 *         be checked before a file is created
+	 */
+	public boolean isIncremental() {
+		return manifest != null;
+	}
+
+	/**
+	 * Checks whether the file with the given local name is up-to-date with the
+	 * given fingerprint of its content. If it is up-to-date it must not be
+	 * created again, otherwise it has to be created with
+	 * {@link #createFile(String)}.
+	 *
+	 * @param name
+	 *            name of the file
+	 * @param fingerprint
+	 *            fingerprint of the file content
+	 * @return <code>true</code> if the file is up-to-date
+	 */
+	public boolean isUpToDate(final String name, final String fingerprint) {
+		return manifest != null
+				&& manifest.isUpToDate(path + normalize(name), fingerprint);
+	}
+
 	/**
 	 * Returns a link relative to a given base to a resource within this folder.
 	 *
@@ -114,12 +172,16 @@ public class ReportOutputFolder {
 	}
 
 	private boolean isAncestorOf(final ReportOutputFolder folder) {
-		if (this == folder) {
+		if (getOrigin() == folder.getOrigin()) {
 			return true;
 		}
 		return folder.parent == null ? false : isAncestorOf(folder.parent);
 	}
 
+	private ReportOutputFolder getOrigin() {
+		return origin == null ? this : origin.getOrigin();
+	}
+
 	private String normalize(final String name) {
 		return fileNames.getFileName(name);
 	}
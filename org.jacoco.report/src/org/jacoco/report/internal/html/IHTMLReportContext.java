@@ -16,6 +16,7 @@ import java.util.Locale;
 
 import org.jacoco.report.ILanguageNames;
 import org.jacoco.report.internal.html.index.IIndexUpdate;
+import org.jacoco.report.internal.html.page.PageRenderer;
 import org.jacoco.report.internal.html.resources.Resources;
 import org.jacoco.report.internal.html.table.Table;
 
@@ -39,12 +40,20 @@ public interface IHTMLReportContext {
 	ILanguageNames getLanguageNames();
 
 	/**
-	 * Returns a table for rendering coverage nodes.
+	 * Returns a table for rendering coverage nodes. The table must only be
+	 * used by the calling thread.
 	 *
 	 * @return table for rendering
 	 */
 	Table getTable();
 
+	/**
+	 * Returns the renderer for independent parts of the report.
+	 *
+	 * @return renderer for report pages
+	 */
+	PageRenderer getPageRenderer();
+
 	/**
 	 * Returns a string of textual information to include in every page footer.
 	 *
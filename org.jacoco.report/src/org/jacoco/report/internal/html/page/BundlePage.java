@@ -13,11 +13,14 @@
 package org.jacoco.report.internal.html.page;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.ICoverageNode;
 import org.jacoco.core.analysis.IPackageCoverage;
 import org.jacoco.report.ISourceFileLocator;
+import org.jacoco.report.internal.Fingerprint;
 import org.jacoco.report.internal.ReportOutputFolder;
 import org.jacoco.report.internal.html.HTMLElement;
 import org.jacoco.report.internal.html.IHTMLReportContext;
@@ -63,6 +66,11 @@ public class BundlePage extends TablePage<ICoverageNode> {
 	}
 
 	private void renderPackages() throws IOException {
+		final PageRenderer renderer = context.getPageRenderer();
+		// Create all folders first to get the same folder names regardless of
+		// the order in which the pages are rendered
+		final List<PageRenderer.Job> jobs = new ArrayList<PageRenderer.Job>();
+		final List<PackagePage> pages = new ArrayList<PackagePage>();
 		for (final IPackageCoverage p : bundle.getPackages()) {
 			if (!p.containsCode()) {
 				continue;
@@ -70,13 +78,28 @@ public class BundlePage extends TablePage<ICoverageNode> {
 			final String packagename = p.getName();
 			final String foldername = packagename.length() == 0 ? "default"
 					: packagename.replace('/', '.');
-			final PackagePage page = new PackagePage(p, this, locator,
-					folder.subFolder(foldername), context);
-			page.render();
+			final PageRenderer.Job job = renderer
+					.createJob(folder.subFolder(foldername));
+			jobs.add(job);
+			pages.add(new PackagePage(p, this, locator, job.getFolder(),
+					context));
+		}
+		for (int i = 0; i < jobs.size(); i++) {
+			jobs.get(i).render(pages.get(i));
+		}
+		renderer.awaitJobs();
+		for (final PackagePage page : pages) {
 			addItem(page);
 		}
 	}
 
+	@Override
+	protected boolean fingerprint(final Fingerprint fingerprint)
+			throws IOException {
+		fingerprint.add(bundle.getPackages().isEmpty());
+		return super.fingerprint(fingerprint);
+	}
+
 	@Override
 	protected String getOnload() {
 		return "initialSort(['breadcrumb', 'coveragetable'])";
@@ -16,6 +16,7 @@ import java.io.IOException;
 
 import org.jacoco.core.analysis.IClassCoverage;
 import org.jacoco.core.analysis.IMethodCoverage;
+import org.jacoco.report.internal.Fingerprint;
 import org.jacoco.report.internal.ReportOutputFolder;
 import org.jacoco.report.internal.html.HTMLElement;
 import org.jacoco.report.internal.html.IHTMLReportContext;
@@ -67,6 +68,16 @@ public class ClassPage extends TablePage<IClassCoverage> {
 		super.render();
 	}
 
+	@Override
+	protected boolean fingerprint(final Fingerprint fingerprint)
+			throws IOException {
+		fingerprint.add(getNode().isNoMatch());
+		fingerprint.add(getNode().getPackageName());
+		fingerprint.add(getNode().getSourceFileName());
+		fingerprint.add(sourcePage == null);
+		return super.fingerprint(fingerprint);
+	}
+
 	@Override
 	protected String getFileName() {
 		final String vmname = getNode().getName();
@@ -12,7 +12,10 @@
  *******************************************************************************/
 package org.jacoco.report.internal.html.page;
 
+import java.io.IOException;
+
 import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.report.internal.Fingerprint;
 import org.jacoco.report.internal.ReportOutputFolder;
 import org.jacoco.report.internal.html.IHTMLReportContext;
 import org.jacoco.report.internal.html.resources.Resources;
@@ -48,6 +51,13 @@ public abstract class NodePage<NodeType extends ICoverageNode>
 		this.node = node;
 	}
 
+	@Override
+	protected boolean fingerprint(final Fingerprint fingerprint)
+			throws IOException {
+		fingerprint.add(node);
+		return super.fingerprint(fingerprint);
+	}
+
 	// === ILinkable ===
 
 	public String getLinkStyle() {
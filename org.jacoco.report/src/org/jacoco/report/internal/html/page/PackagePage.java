@@ -17,6 +17,7 @@ import java.io.IOException;
 import org.jacoco.core.analysis.IClassCoverage;
 import org.jacoco.core.analysis.IPackageCoverage;
 import org.jacoco.report.ISourceFileLocator;
+import org.jacoco.report.internal.Fingerprint;
 import org.jacoco.report.internal.ReportOutputFolder;
 import org.jacoco.report.internal.html.HTMLElement;
 import org.jacoco.report.internal.html.IHTMLReportContext;
@@ -78,6 +79,14 @@ public class PackagePage extends TablePage<IPackageCoverage> {
 		}
 	}
 
+	@Override
+	protected boolean fingerprint(final Fingerprint fingerprint)
+			throws IOException {
+		fingerprint.add(sourceCoverageExists);
+		fingerprint.add(packageSourcePage.getLink(folder));
+		return super.fingerprint(fingerprint);
+	}
+
 	@Override
 	protected String getOnload() {
 		return "initialSort(['breadcrumb', 'coveragetable'])";
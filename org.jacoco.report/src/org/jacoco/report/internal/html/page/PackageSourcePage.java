@@ -20,6 +20,7 @@ import java.util.Map;
 import org.jacoco.core.analysis.IPackageCoverage;
 import org.jacoco.core.analysis.ISourceFileCoverage;
 import org.jacoco.report.ISourceFileLocator;
+import org.jacoco.report.internal.Fingerprint;
 import org.jacoco.report.internal.ReportOutputFolder;
 import org.jacoco.report.internal.html.HTMLElement;
 import org.jacoco.report.internal.html.IHTMLReportContext;
@@ -98,6 +99,13 @@ public class PackageSourcePage extends TablePage<IPackageCoverage> {
 		}
 	}
 
+	@Override
+	protected boolean fingerprint(final Fingerprint fingerprint)
+			throws IOException {
+		fingerprint.add(packagePage.getLink(folder));
+		return super.fingerprint(fingerprint);
+	}
+
 	@Override
 	protected String getOnload() {
 		return "initialSort(['breadcrumb', 'coveragetable'])";
@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2025 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.report.internal.html.page;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.report.IMultiReportOutput;
+import org.jacoco.report.internal.ReportOutputFolder;
+
+/**
+ * Renders independent parts of a report, for example the pages of the packages
+ * of a bundle. Each part is rendered as a {@link Job}. Without worker threads
+ * jobs are rendered immediately on the calling thread. Otherwise jobs are
+ * rendered concurrently on a limited number of worker threads. If the output
+ * does not support concurrent streams the files of every job are buffered in
+ * memory and handed off to the output on the calling thread in the order the
+ * jobs have been created. Therefore the result does not depend on the number
+ * of threads. To limit memory consumption at most two jobs per thread are
+ * pending at any time. If all worker threads are busy a job is rendered on the
+ * calling thread. Idle worker threads terminate, so a renderer does not keep
+ * threads alive if it is not shut down after a failure.
+ */
+public class PageRenderer {
+
+	private final IMultiReportOutput output;
+
+	private final boolean concurrentOutput;
+
+	private final ExecutorService executor;
+
+	private final int maxPending;
+
+	private final LinkedList<Job> pending = new LinkedList<Job>();
+
+	/**
+	 * Creates a renderer which renders all pages on the calling thread.
+	 */
+	public PageRenderer() {
+		this.output = null;
+		this.concurrentOutput = true;
+		this.executor = null;
+		this.maxPending = 0;
+	}
+
+	/**
+	 * Creates a renderer with the given number of worker threads.
+	 *
+	 * @param threads
+	 *            number of worker threads
+	 * @param output
+	 *            output buffered files are handed off to
+	 * @param concurrentOutput
+	 *            <code>true</code> if streams of the output can be written
+	 *            concurrently
+	 */
+	public PageRenderer(final int threads, final IMultiReportOutput output,
+			final boolean concurrentOutput) {
+		this.output = output;
+		this.concurrentOutput = concurrentOutput;
+		this.executor = new ThreadPoolExecutor(0, threads, 1, TimeUnit.SECONDS,
+				new SynchronousQueue<Runnable>(), new ThreadFactory() {
+					public Thread newThread(final Runnable r) {
+						final Thread thread = new Thread(r,
+								"jacoco-report-renderer");
+						thread.setDaemon(true);
+						return thread;
+					}
+				}, new ThreadPoolExecutor.CallerRunsPolicy());
+		this.maxPending = 2 * threads;
+	}
+
+	/**
+	 * Creates a new job which renders pages into the given folder. The pages
+	 * of the job must be created in the folder returned by
+	 * {@link Job#getFolder()}.
+	 *
+	 * @param folder
+	 *            folder the pages of the job are written to
+	 * @return new job
+	 */
+	public Job createJob(final ReportOutputFolder folder) {
+		if (concurrentOutput) {
+			return new Job(folder, null);
+		}
+		final BufferedOutput buffer = new BufferedOutput();
+		return new Job(folder.redirect(buffer), buffer);
+	}
+
+	/**
+	 * Waits until all jobs have been rendered and their files have been handed
+	 * off to the output.
+	 *
+	 * @throws IOException
+	 *             if rendering of a job failed
+	 */
+	public void awaitJobs() throws IOException {
+		while (!pending.isEmpty()) {
+			complete(pending.removeFirst());
+		}
+	}
+
+	private void complete(final Job job) throws IOException {
+		try {
+			job.future.get();
+		} catch (final InterruptedException e) {
+			cancel();
+			Thread.currentThread().interrupt();
+			throw new IOException("Report rendering interrupted.");
+		} catch (final ExecutionException e) {
+			cancel();
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new RuntimeException(cause);
+		}
+		if (job.buffer != null) {
+			job.buffer.writeTo(output);
+		}
+	}
+
+	private void cancel() {
+		for (final Job job : pending) {
+			job.future.cancel(true);
+		}
+		pending.clear();
+	}
+
+	/**
+	 * Stops the worker threads. Pending jobs are canceled.
+	 */
+	public void shutdown() {
+		if (executor != null) {
+			cancel();
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * A part of the report which is rendered independently of other jobs.
+	 */
+	public final class Job {
+
+		private final ReportOutputFolder folder;
+
+		private final BufferedOutput buffer;
+
+		private Future<Void> future;
+
+		private Job(final ReportOutputFolder folder,
+				final BufferedOutput buffer) {
+			this.folder = folder;
+			this.buffer = buffer;
+		}
+
+		/**
+		 * Returns the folder the pages of this job have to be created in.
+		 *
+		 * @return folder for the pages of this job
+		 */
+		public ReportOutputFolder getFolder() {
+			return folder;
+		}
+
+		/**
+		 * Renders the given page of this job. Depending on the renderer the
+		 * page is rendered immediately or scheduled for concurrent rendering.
+		 * In the latter case the page must not be modified until
+		 * {@link PageRenderer#awaitJobs()} returns.
+		 *
+		 * @param page
+		 *            page to render
+		 * @throws IOException
+		 *             if rendering fails
+		 */
+		public void render(final ReportPage page) throws IOException {
+			if (executor == null) {
+				page.render();
+				return;
+			}
+			if (pending.size() >= maxPending) {
+				complete(pending.removeFirst());
+			}
+			future = executor.submit(new Callable<Void>() {
+				public Void call() throws IOException {
+					page.render();
+					return null;
+				}
+			});
+			pending.add(this);
+		}
+
+	}
+
+	/**
+	 * Output which keeps files in memory in the order of their creation.
+	 */
+	private static class BufferedOutput implements IMultiReportOutput {
+
+		private final List<String> paths = new ArrayList<String>();
+
+		private final List<ByteArrayOutputStream> contents = new ArrayList<ByteArrayOutputStream>();
+
+		public OutputStream createFile(final String path) {
+			final ByteArrayOutputStream content = new ByteArrayOutputStream();
+			paths.add(path);
+			contents.add(content);
+			return content;
+		}
+
+		void writeTo(final IMultiReportOutput target) throws IOException {
+			for (int i = 0; i < paths.size(); i++) {
+				final OutputStream out = target.createFile(paths.get(i));
+				contents.get(i).writeTo(out);
+				out.close();
+			}
+			paths.clear();
+			contents.clear();
+		}
+
+		public void close() {
+			// nothing to do here
+		}
+
+	}
+
+}
@@ -15,6 +15,7 @@ package org.jacoco.report.internal.html.page;
 import java.io.IOException;
 
 import org.jacoco.core.JaCoCo;
+import org.jacoco.report.internal.Fingerprint;
 import org.jacoco.report.internal.ReportOutputFolder;
 import org.jacoco.report.internal.html.HTMLElement;
 import org.jacoco.report.internal.html.IHTMLReportContext;
@@ -65,12 +66,20 @@ public abstract class ReportPage implements ILinkable {
 
 	/**
 	 * Renders this page's content and optionally additional pages. This method
-	 * must be called at most once.
+	 * must be called at most once. For incremental reports the page is skipped
+	 * if it is up-to-date.
 	 *
 	 * @throws IOException
 	 *             if the page can't be written
 	 */
 	public void render() throws IOException {
+		if (folder.isIncremental()) {
+			final Fingerprint fingerprint = new Fingerprint();
+			if (fingerprint(fingerprint) && folder.isUpToDate(getFileName(),
+					fingerprint.toString())) {
+				return;
+			}
+		}
 		final HTMLElement html = new HTMLElement(
 				folder.createFile(getFileName()), context.getOutputEncoding());
 		html.attr("lang", context.getLocale().getLanguage());
@@ -79,6 +88,37 @@ public abstract class ReportPage implements ILinkable {
 		html.close();
 	}
 
+	/**
+	 * Adds all data which determines the content of this page to the given
+	 * fingerprint. Subclasses which render additional data must extend this
+	 * method. The location of the page is not part of the fingerprint.
+	 *
+	 * @param fingerprint
+	 *            fingerprint to add data to
+	 * @return <code>false</code> if this page can not be fingerprinted and
+	 *         therefore must always be rendered
+	 * @throws IOException
+	 *             in case of IO problems while reading the page content
+	 */
+	protected boolean fingerprint(final Fingerprint fingerprint)
+			throws IOException {
+		fingerprint.add(getClass().getName());
+		fingerprint.add(JaCoCo.VERSION);
+		fingerprint.add(context.getFooterText());
+		fingerprint.add(context.getOutputEncoding());
+		fingerprint.add(context.getLocale().toString());
+		fingerprint.add(context.getLanguageNames().getClass().getName());
+		fingerprint.add(getLinkLabel());
+		fingerprint.add(getLinkStyle());
+		fingerprint.add(getOnload());
+		for (ReportPage p = parent; p != null; p = p.parent) {
+			fingerprint.add(p.getLinkLabel());
+			fingerprint.add(p.getLinkStyle());
+			fingerprint.add(p.getLink(folder));
+		}
+		return true;
+	}
+
 	/**
 	 * Creates the elements within the head element.
 	 *
@@ -24,6 +24,7 @@ import java.util.List;
 import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.SessionInfo;
 import org.jacoco.report.ILanguageNames;
+import org.jacoco.report.internal.Fingerprint;
 import org.jacoco.report.internal.ReportOutputFolder;
 import org.jacoco.report.internal.html.HTMLElement;
 import org.jacoco.report.internal.html.IHTMLReportContext;
@@ -88,6 +89,12 @@ public class SessionsPage extends ReportPage {
 		});
 	}
 
+	@Override
+	protected boolean fingerprint(final Fingerprint fingerprint) {
+		// session infos and execution data change with every report
+		return false;
+	}
+
 	@Override
 	protected void content(final HTMLElement body) throws IOException {
 		if (sessionInfos.isEmpty()) {
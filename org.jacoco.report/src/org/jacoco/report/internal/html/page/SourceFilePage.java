@@ -16,8 +16,11 @@ import static java.lang.String.format;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
 
+import org.jacoco.core.analysis.ILine;
 import org.jacoco.core.analysis.ISourceNode;
+import org.jacoco.report.internal.Fingerprint;
 import org.jacoco.report.internal.ReportOutputFolder;
 import org.jacoco.report.internal.html.HTMLElement;
 import org.jacoco.report.internal.html.IHTMLReportContext;
@@ -29,7 +32,7 @@ import org.jacoco.report.internal.html.resources.Resources;
  */
 public class SourceFilePage extends NodePage<ISourceNode> {
 
-	private final Reader sourceReader;
+	private Reader sourceReader;
 
 	private final int tabWidth;
 
@@ -58,6 +61,30 @@ public class SourceFilePage extends NodePage<ISourceNode> {
 		this.tabWidth = tabWidth;
 	}
 
+	@Override
+	protected boolean fingerprint(final Fingerprint fingerprint)
+			throws IOException {
+		// the source is kept in memory to render it from the same content
+		final StringBuilder source = new StringBuilder();
+		final char[] buffer = new char[4096];
+		int n;
+		while ((n = sourceReader.read(buffer)) != -1) {
+			source.append(buffer, 0, n);
+		}
+		sourceReader.close();
+		sourceReader = new StringReader(source.toString());
+		fingerprint.add(source.toString());
+		fingerprint.add(tabWidth);
+		final ISourceNode node = getNode();
+		for (int nr = node.getFirstLine(); nr <= node.getLastLine(); nr++) {
+			final ILine line = node.getLine(nr);
+			fingerprint.add(line.getInstructionCounter());
+			fingerprint.add(line.getBranchCounter());
+			fingerprint.add(node.getExecutionCount(nr));
+		}
+		return super.fingerprint(fingerprint);
+	}
+
 	@Override
 	protected void content(final HTMLElement body) throws IOException {
 		final SourceHighlighter hl = new SourceHighlighter(context.getLocale());
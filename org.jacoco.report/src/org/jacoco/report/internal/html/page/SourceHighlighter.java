@@ -75,18 +75,26 @@ final class SourceHighlighter {
 		int nr = 0;
 		while ((line = lineBuffer.readLine()) != null) {
 			nr++;
-			renderCodeLine(pre, line, source.getLine(nr), nr);
+			renderCodeLine(pre, line, source.getLine(nr),
+					source.getExecutionCount(nr), nr);
 		}
 	}
 
 	private void renderCodeLine(final HTMLElement pre, final String linesrc,
-			final ILine line, final int lineNr) throws IOException {
-		highlight(pre, line, lineNr).text(linesrc);
+			final ILine line, final long executionCount, final int lineNr)
+			throws IOException {
+		highlight(pre, line, executionCount, lineNr).text(linesrc);
 		pre.text("\n");
 	}
 
 	HTMLElement highlight(final HTMLElement pre, final ILine line,
 			final int lineNr) throws IOException {
+		return highlight(pre, line, ISourceNode.UNKNOWN_EXECUTION_COUNT,
+				lineNr);
+	}
+
+	HTMLElement highlight(final HTMLElement pre, final ILine line,
+			final long executionCount, final int lineNr) throws IOException {
 		final String style;
 		switch (line.getStatus()) {
 		case ICounter.NOT_COVERED:
@@ -103,29 +111,42 @@ final class SourceHighlighter {
 		}
 
 		final String lineId = "L" + Integer.toString(lineNr);
+		final String executions = executionCount > 0
+				? String.format(locale, "Executed %,d times.",
+						Long.valueOf(executionCount))
+				: null;
 		final ICounter branches = line.getBranchCounter();
 		switch (branches.getStatus()) {
 		case ICounter.NOT_COVERED:
 			return span(pre, lineId, style, Styles.BRANCH_NOT_COVERED,
-					"All %2$d branches missed.", branches);
+					"All %2$d branches missed.", branches, executions);
 		case ICounter.FULLY_COVERED:
 			return span(pre, lineId, style, Styles.BRANCH_FULLY_COVERED,
-					"All %2$d branches covered.", branches);
+					"All %2$d branches covered.", branches, executions);
 		case ICounter.PARTLY_COVERED:
 			return span(pre, lineId, style, Styles.BRANCH_PARTLY_COVERED,
-					"%1$d of %2$d branches missed.", branches);
+					"%1$d of %2$d branches missed.", branches, executions);
 		default:
-			return pre.span(style, lineId);
+			final HTMLElement span = pre.span(style, lineId);
+			if (executions != null) {
+				span.attr("title", executions);
+			}
+			return span;
 		}
 	}
 
 	private HTMLElement span(final HTMLElement parent, final String id,
 			final String style1, final String style2, final String title,
-			final ICounter branches) throws IOException {
+			final ICounter branches, final String executions)
+			throws IOException {
 		final HTMLElement span = parent.span(style1 + " " + style2, id);
 		final Integer missed = Integer.valueOf(branches.getMissedCount());
 		final Integer total = Integer.valueOf(branches.getTotalCount());
-		span.attr("title", String.format(locale, title, missed, total));
+		String text = String.format(locale, title, missed, total);
+		if (executions != null) {
+			text += " " + executions;
+		}
+		span.attr("title", text);
 		return span;
 	}
 
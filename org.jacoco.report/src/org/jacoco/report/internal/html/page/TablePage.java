@@ -17,6 +17,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.report.internal.Fingerprint;
 import org.jacoco.report.internal.ReportOutputFolder;
 import org.jacoco.report.internal.html.HTMLElement;
 import org.jacoco.report.internal.html.IHTMLReportContext;
@@ -62,6 +63,18 @@ public abstract class TablePage<NodeType extends ICoverageNode>
 		items.add(item);
 	}
 
+	@Override
+	protected boolean fingerprint(final Fingerprint fingerprint)
+			throws IOException {
+		for (final ITableItem item : items) {
+			fingerprint.add(item.getLinkLabel());
+			fingerprint.add(item.getLinkStyle());
+			fingerprint.add(item.getLink(folder));
+			fingerprint.add(item.getNode());
+		}
+		return super.fingerprint(fingerprint);
+	}
+
 	@Override
 	protected void head(final HTMLElement head) throws IOException {
 		super.head(head);